@@ -0,0 +1,184 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.bulk;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.elasticsearch.Version;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.cluster.ClusterModule;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.analysis.AnalyzerScope;
+import org.elasticsearch.index.analysis.IndexAnalyzers;
+import org.elasticsearch.index.analysis.NamedAnalyzer;
+import org.elasticsearch.index.mapper.IdFieldMapper;
+import org.elasticsearch.index.mapper.MapperRegistry;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.SourceToParse;
+import org.elasticsearch.index.similarity.SimilarityService;
+import org.elasticsearch.indices.IndicesModule;
+import org.elasticsearch.script.Script;
+import org.elasticsearch.script.ScriptCompiler;
+import org.elasticsearch.script.ScriptContext;
+import org.elasticsearch.xcontent.NamedXContentRegistry;
+import org.elasticsearch.xcontent.XContentParserConfiguration;
+import org.elasticsearch.xcontent.XContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of parsing one megabyte of a log style bulk body, as it arrives from the network in pages, on the coordinating
+ * node ({@link #parseBulk}) and end to end, including parsing every document on the shard ({@link #parseBulkAndDocuments}).
+ * Each operation processes one megabyte so the reported time is the cost per megabyte.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class BulkParsingBenchmark {
+
+    private static final int BULK_SIZE_IN_BYTES = 1024 * 1024;
+    private static final int PAGE_SIZE_IN_BYTES = 16 * 1024;
+
+    private static final String MAPPINGS = """
+        {
+          "_doc": {
+            "properties": {
+              "@timestamp": { "type": "date" },
+              "host": { "properties": { "name": { "type": "keyword" } } },
+              "status": { "type": "long" },
+              "message": { "type": "text" }
+            }
+          }
+        }""";
+
+    /**
+     * The shape of the action lines: all identical, or each with its own id.
+     */
+    @Param({ "create", "index_with_id" })
+    public String actionLines;
+
+    private ReleasableBytesReference bulk;
+    private MapperService mapperService;
+
+    @Setup
+    public void setup() throws IOException {
+        final Random random = new Random(0);
+        final StringBuilder body = new StringBuilder();
+        int doc = 0;
+        while (body.length() < BULK_SIZE_IN_BYTES) {
+            if (actionLines.equals("create")) {
+                body.append("{\"create\":{}}\n");
+            } else {
+                body.append(String.format(Locale.ROOT, "{\"index\":{\"_id\":\"%d\"}}\n", doc));
+            }
+            body.append(
+                String.format(
+                    Locale.ROOT,
+                    "{\"@timestamp\":%d,\"host\":{\"name\":\"host-%d\"},\"status\":%d,\"message\":\"GET /products/%d HTTP/1.1\"}\n",
+                    1_600_000_000_000L + doc * 10L,
+                    random.nextInt(100),
+                    200 + random.nextInt(5) * 100,
+                    random.nextInt(100_000)
+                )
+            );
+            doc++;
+        }
+        final byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        final List<BytesReference> pages = new ArrayList<>();
+        for (int offset = 0; offset < bytes.length; offset += PAGE_SIZE_IN_BYTES) {
+            pages.add(new BytesArray(bytes, offset, Math.min(PAGE_SIZE_IN_BYTES, bytes.length - offset)));
+        }
+        bulk = ReleasableBytesReference.wrap(CompositeBytesReference.of(pages.toArray(new BytesReference[0])));
+        mapperService = createMapperService();
+    }
+
+    @Benchmark
+    public BulkRequest parseBulk() throws IOException {
+        return new BulkRequest().add(bulk, "logs", XContentType.JSON);
+    }
+
+    @Benchmark
+    public void parseBulkAndDocuments(Blackhole bh) throws IOException {
+        final BulkRequest request = new BulkRequest().add(bulk, "logs", XContentType.JSON);
+        int doc = 0;
+        for (DocWriteRequest<?> item : request.requests()) {
+            final IndexRequest indexRequest = (IndexRequest) item;
+            final String id = indexRequest.id() == null ? Integer.toString(doc) : indexRequest.id();
+            bh.consume(mapperService.documentMapper().parse(new SourceToParse(id, indexRequest.source(), indexRequest.getContentType())));
+            doc++;
+        }
+    }
+
+    private static MapperService createMapperService() throws IOException {
+        Settings settings = Settings.builder()
+            .put("index.number_of_replicas", 0)
+            .put("index.number_of_shards", 1)
+            .put("index.version.created", Version.CURRENT)
+            .build();
+        IndexMetadata meta = IndexMetadata.builder("logs").settings(settings).build();
+        IndexSettings indexSettings = new IndexSettings(meta, settings);
+        MapperRegistry mapperRegistry = new IndicesModule(Collections.emptyList()).getMapperRegistry();
+
+        SimilarityService similarityService = new SimilarityService(indexSettings, null, Map.of());
+        MapperService mapperService = new MapperService(
+            indexSettings,
+            new IndexAnalyzers(
+                Map.of("default", new NamedAnalyzer("default", AnalyzerScope.INDEX, new StandardAnalyzer())),
+                Map.of(),
+                Map.of()
+            ),
+            XContentParserConfiguration.EMPTY.withRegistry(new NamedXContentRegistry(ClusterModule.getNamedXWriteables()))
+                .withDeprecationHandler(LoggingDeprecationHandler.INSTANCE),
+            similarityService,
+            mapperRegistry,
+            () -> { throw new UnsupportedOperationException(); },
+            new IdFieldMapper(() -> true),
+            new ScriptCompiler() {
+                @Override
+                public <T> T compile(Script script, ScriptContext<T> scriptContext) {
+                    throw new UnsupportedOperationException();
+                }
+            }
+        );
+        mapperService.merge("_doc", new CompressedXContent(MAPPINGS), MapperService.MergeReason.MAPPING_UPDATE);
+        return mapperService;
+    }
+}
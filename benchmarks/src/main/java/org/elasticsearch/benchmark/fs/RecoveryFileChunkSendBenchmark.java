@@ -0,0 +1,132 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.benchmark.fs;
+
+import org.elasticsearch.core.SuppressForbidden;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the two ways peer recoveries can send the chunks of a file to the network: reading each chunk onto the heap and writing it
+ * to the socket, or copying it from the file to the socket with {@link FileChannel#transferTo}, which uses {@code sendfile} where
+ * available. Each operation sends the whole file over a loopback connection whose other end discards the bytes, so the score is the
+ * time to send {@code FILE_SIZE} bytes; run with {@code -prof perfnorm} (or {@code -prof gc} for the allocations of the heap copy) to
+ * compare the CPU cycles per operation.
+ */
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressForbidden(reason = "sends the file over a loopback socket on purpose")
+public class RecoveryFileChunkSendBenchmark {
+
+    private static final int FILE_SIZE = 64 * 1024 * 1024;
+
+    @Param({ "65536", "524288", "2097152" })
+    public int chunkSize;
+
+    private Path path;
+    private FileChannel fileChannel;
+    private ServerSocketChannel serverChannel;
+    private SocketChannel clientChannel;
+    private Thread drainThread;
+    private ByteBuffer heapBuffer;
+
+    @Setup
+    public void setup() throws IOException {
+        path = Files.createTempFile("recovery_file_chunks", null);
+        fileChannel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final ByteBuffer page = ByteBuffer.allocate(4096);
+        final Random random = new Random(0L);
+        for (long position = 0; position < FILE_SIZE; position += page.capacity()) {
+            random.nextBytes(page.array());
+            page.clear();
+            while (page.hasRemaining()) {
+                fileChannel.write(page, position + page.position());
+            }
+        }
+
+        serverChannel = ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        clientChannel = SocketChannel.open(serverChannel.getLocalAddress());
+        final SocketChannel acceptedChannel = serverChannel.accept();
+        drainThread = new Thread(() -> {
+            final ByteBuffer discard = ByteBuffer.allocateDirect(1 << 20);
+            try (acceptedChannel) {
+                while (acceptedChannel.read(discard.clear()) >= 0) {
+                    // discard the bytes like the target of a recovery that only counts them
+                }
+            } catch (IOException e) {
+                // the connection was closed on tear down
+            }
+        }, "drain");
+        drainThread.start();
+        heapBuffer = ByteBuffer.allocate(chunkSize);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        IOUtils.close(clientChannel, serverChannel, fileChannel, () -> Files.deleteIfExists(path));
+        drainThread.join();
+    }
+
+    @Benchmark
+    public long heapCopy() throws IOException {
+        long sent = 0L;
+        for (long position = 0L; position < FILE_SIZE; position += chunkSize) {
+            final ByteBuffer buffer = heapBuffer.clear().limit(Math.toIntExact(Math.min(chunkSize, FILE_SIZE - position)));
+            while (buffer.hasRemaining()) {
+                fileChannel.read(buffer, position + buffer.position());
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                sent += clientChannel.write(buffer);
+            }
+        }
+        return sent;
+    }
+
+    @Benchmark
+    public long transferTo() throws IOException {
+        long sent = 0L;
+        for (long position = 0L; position < FILE_SIZE; position += chunkSize) {
+            final long count = Math.min(chunkSize, FILE_SIZE - position);
+            long transferred = 0L;
+            while (transferred < count) {
+                transferred += fileChannel.transferTo(position + transferred, count - transferred, clientChannel);
+            }
+            sent += transferred;
+        }
+        return sent;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.benchmark.fs;
+
+import org.elasticsearch.core.SuppressForbidden;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the two ways the shared cache of searchable snapshots can read from its cache file: positional reads through the file channel
+ * and copies out of a memory mapping of the file. Reads are small and random like the reads of a query on a frozen index, and the file is
+ * written through the channel beforehand so that it is in the page cache, like the populated regions of the shared cache.
+ */
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@Threads(4)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@SuppressForbidden(reason = "positional reads of the cache file on purpose")
+public class SharedCacheFileReadBenchmark {
+
+    private static final int FILE_SIZE = 256 * 1024 * 1024;
+
+    @Param({ "128", "4096", "65536" })
+    public int readSize;
+
+    private Path path;
+    private FileChannel fileChannel;
+    private MappedByteBuffer mapping;
+
+    @State(Scope.Thread)
+    public static class ReadBuffer {
+        ByteBuffer buffer;
+
+        @Setup(Level.Trial)
+        public void setup(SharedCacheFileReadBenchmark benchmark) {
+            buffer = ByteBuffer.allocate(benchmark.readSize);
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        path = Files.createTempFile("shared_snapshot_cache", null);
+        fileChannel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final ByteBuffer page = ByteBuffer.allocate(4096);
+        final Random random = new Random(0L);
+        for (long position = 0; position < FILE_SIZE; position += page.capacity()) {
+            random.nextBytes(page.array());
+            page.clear();
+            while (page.hasRemaining()) {
+                fileChannel.write(page, position + page.position());
+            }
+        }
+        mapping = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0L, FILE_SIZE);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        IOUtils.close(fileChannel, () -> Files.deleteIfExists(path));
+    }
+
+    private int randomPosition() {
+        return ThreadLocalRandom.current().nextInt(FILE_SIZE - readSize);
+    }
+
+    @Benchmark
+    public ByteBuffer fileChannelRead(ReadBuffer readBuffer) throws IOException {
+        final ByteBuffer buffer = readBuffer.buffer.clear();
+        final long position = randomPosition();
+        while (buffer.hasRemaining()) {
+            fileChannel.read(buffer, position + buffer.position());
+        }
+        return buffer;
+    }
+
+    @Benchmark
+    public ByteBuffer mappedRead(ReadBuffer readBuffer) {
+        final ByteBuffer buffer = readBuffer.buffer.clear();
+        buffer.put(mapping.slice(randomPosition(), readSize));
+        return buffer;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.gateway;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterModule;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.gateway.PersistedClusterStateService;
+import org.elasticsearch.xcontent.NamedXContentRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes and loads the persisted cluster state of a cluster with many indices that share a limited number of distinct mappings, which
+ * is the usual shape of clusters with lots of time based indices. The incremental write changes the mapping of a single index, as a
+ * dynamic mapping update does.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class PersistedClusterStateServiceBenchmark {
+
+    private static final long TERM = 1L;
+
+    @Param({ "10000", "100000" })
+    public int numIndices;
+
+    @Param({ "10", "1000" })
+    public int numMappings;
+
+    private Path dataPath;
+    private PersistedClusterStateService persistedClusterStateService;
+    private PersistedClusterStateService.Writer writer;
+    private ClusterState clusterState;
+    private ClusterState updatedClusterState;
+
+    @Setup
+    public void setup() throws IOException {
+        dataPath = Files.createTempDirectory("persisted-cluster-state");
+        persistedClusterStateService = new PersistedClusterStateService(
+            new Path[] { dataPath },
+            "node",
+            new NamedXContentRegistry(ClusterModule.getNamedXWriteables()),
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
+            System::currentTimeMillis
+        );
+
+        final Metadata.Builder metadata = Metadata.builder();
+        for (int i = 0; i < numIndices; i++) {
+            metadata.put(
+                IndexMetadata.builder("index-" + i)
+                    .settings(
+                        Settings.builder()
+                            .put(IndexMetadata.INDEX_NUMBER_OF_SHARDS_SETTING.getKey(), 1)
+                            .put(IndexMetadata.INDEX_NUMBER_OF_REPLICAS_SETTING.getKey(), 1)
+                            .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+                            .put(IndexMetadata.SETTING_INDEX_UUID, UUIDs.randomBase64UUID())
+                    )
+                    .putMapping(mapping(i % numMappings))
+            );
+        }
+        clusterState = ClusterState.builder(ClusterName.DEFAULT).metadata(metadata).build();
+
+        final IndexMetadata updatedIndex = clusterState.metadata().index("index-0");
+        updatedClusterState = ClusterState.builder(clusterState)
+            .metadata(
+                Metadata.builder(clusterState.metadata())
+                    .put(
+                        IndexMetadata.builder(updatedIndex)
+                            .putMapping(mapping(numMappings))
+                            .mappingVersion(updatedIndex.getMappingVersion() + 1)
+                    )
+            )
+            .incrementVersion()
+            .build();
+
+        writer = persistedClusterStateService.createWriter();
+        writer.writeFullStateAndCommit(TERM, clusterState);
+    }
+
+    private static String mapping(int id) {
+        return """
+            {"properties":{"@timestamp":{"type":"date"},"message":{"type":"text"},"host":{"type":"keyword"},"field_%d":{"type":"long"}}}"""
+            .formatted(id);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        writer.close();
+        IOUtils.rm(dataPath);
+    }
+
+    @Benchmark
+    public void writeFullState() throws IOException {
+        writer.writeFullStateAndCommit(TERM, clusterState);
+    }
+
+    @Benchmark
+    public void writeMappingUpdate() throws IOException {
+        // alternate between the two states so that each write changes a mapping
+        writer.writeIncrementalStateAndCommit(TERM, clusterState, updatedClusterState);
+        writer.writeIncrementalStateAndCommit(TERM, updatedClusterState, clusterState);
+    }
+
+    @Benchmark
+    public Metadata loadState() throws IOException {
+        return persistedClusterStateService.loadBestOnDiskState().metadata;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.ingest;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.grok.MatcherWatchdog;
+import org.elasticsearch.ingest.IngestDocument;
+import org.elasticsearch.ingest.Pipeline;
+import org.elasticsearch.ingest.Processor;
+import org.elasticsearch.ingest.common.ConvertProcessor;
+import org.elasticsearch.ingest.common.DateProcessor;
+import org.elasticsearch.ingest.common.GrokProcessor;
+import org.elasticsearch.ingest.common.LowercaseProcessor;
+import org.elasticsearch.xcontent.XContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of running the documents of a bulk request of web server access logs through a typical log pipeline, either one
+ * document at a time ({@link #perDocument}) or in batches of documents ({@link #batched}), as the ingest service does.
+ * Each operation processes {@link #DOCUMENTS} documents.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class LogPipelineBenchmark {
+
+    private static final int DOCUMENTS = 1024;
+
+    private static final String PIPELINE = """
+        {
+          "processors": [
+            { "grok": { "field": "message", "patterns": [ "%{COMMONAPACHELOG}" ] } },
+            { "date": { "field": "timestamp", "formats": [ "dd/MMM/yyyy:HH:mm:ss Z" ] } },
+            { "convert": { "field": "response", "type": "integer" } },
+            { "lowercase": { "field": "verb" } }
+          ]
+        }""";
+
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss Z", Locale.ROOT);
+
+    /**
+     * The number of documents that are processed together by {@link #batched}.
+     */
+    @Param({ "16", "128" })
+    public int batchSize;
+
+    /**
+     * How many log lines are written per second, and thus share their timestamp.
+     */
+    @Param({ "1", "100" })
+    public int linesPerSecond;
+
+    private Pipeline pipeline;
+    private List<String> messages;
+
+    @Setup
+    public void setup() throws Exception {
+        final Map<String, Processor.Factory> factories = new HashMap<>();
+        factories.put(GrokProcessor.TYPE, new GrokProcessor.Factory(MatcherWatchdog.noop()));
+        factories.put(DateProcessor.TYPE, new DateProcessor.Factory(null));
+        factories.put(ConvertProcessor.TYPE, new ConvertProcessor.Factory());
+        factories.put(LowercaseProcessor.TYPE, new LowercaseProcessor.Factory());
+        final Map<String, Object> config = XContentHelper.convertToMap(new BytesArray(PIPELINE), false, XContentType.JSON).v2();
+        pipeline = Pipeline.create("logs", config, factories, null);
+
+        final Random random = new Random(0);
+        final String[] paths = new String[] { "/", "/index.html", "/products", "/cart", "/api/search", "/favicon.ico" };
+        final int[] statuses = new int[] { 200, 200, 200, 200, 304, 404, 500 };
+        messages = new ArrayList<>(DOCUMENTS);
+        for (int i = 0; i < DOCUMENTS; i++) {
+            final Instant timestamp = Instant.ofEpochSecond(1_600_000_000L + i / linesPerSecond);
+            messages.add(
+                String.format(
+                    Locale.ROOT,
+                    "10.0.%d.%d - - [%s] \"GET %s HTTP/1.1\" %d %d",
+                    random.nextInt(4),
+                    random.nextInt(256),
+                    HTTP_DATE.format(timestamp.atOffset(ZoneOffset.UTC)),
+                    paths[random.nextInt(paths.length)],
+                    statuses[random.nextInt(statuses.length)],
+                    random.nextInt(10_000)
+                )
+            );
+        }
+    }
+
+    @Benchmark
+    public void perDocument(Blackhole bh) {
+        for (IngestDocument ingestDocument : newDocuments()) {
+            pipeline.execute(ingestDocument, (result, e) -> {
+                bh.consume(result);
+                bh.consume(e);
+            });
+        }
+    }
+
+    @Benchmark
+    public void batched(Blackhole bh) {
+        final List<IngestDocument> ingestDocuments = newDocuments();
+        for (int from = 0; from < ingestDocuments.size(); from += batchSize) {
+            pipeline.executeBatch(ingestDocuments.subList(from, Math.min(from + batchSize, ingestDocuments.size())), (slot, result, e) -> {
+                bh.consume(result);
+                bh.consume(e);
+            });
+        }
+    }
+
+    private List<IngestDocument> newDocuments() {
+        final List<IngestDocument> ingestDocuments = new ArrayList<>(messages.size());
+        for (String message : messages) {
+            final Map<String, Object> source = new HashMap<>();
+            source.put("message", message);
+            ingestDocuments.add(new IngestDocument("logs", null, null, null, null, source));
+        }
+        return ingestDocuments;
+    }
+}
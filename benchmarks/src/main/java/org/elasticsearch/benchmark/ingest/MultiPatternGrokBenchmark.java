@@ -0,0 +1,128 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.ingest;
+
+import org.elasticsearch.grok.Grok;
+import org.elasticsearch.grok.MatcherWatchdog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the cost of matching syslog lines against the patterns of a grok processor with many alternative patterns, trying either
+ * all of them for each line like a single regular expression does ({@code dispatchAlternatives=false}) or only the ones whose
+ * literal strings are found in the line ({@code dispatchAlternatives=true}). Each operation matches {@link #LINES} lines.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class MultiPatternGrokBenchmark {
+
+    private static final int LINES = 1024;
+
+    private static final List<String> PATTERNS = List.of(
+        "%{SYSLOGBASE} Accepted %{WORD:method} for %{USER:user} from %{IP:ip} port %{INT:port} ssh2",
+        "%{SYSLOGBASE} Failed password for invalid user %{USER:user} from %{IP:ip} port %{INT:port} ssh2",
+        "%{SYSLOGBASE} Failed password for %{USER:user} from %{IP:ip} port %{INT:port} ssh2",
+        "%{SYSLOGBASE} Invalid user %{USER:user} from %{IP:ip} port %{INT:port}",
+        "%{SYSLOGBASE} Connection closed by %{IP:ip} port %{INT:port} \\[preauth\\]",
+        "%{SYSLOGBASE} Received disconnect from %{IP:ip} port %{INT:port}:%{INT:code}: %{GREEDYDATA:reason}",
+        "%{SYSLOGBASE} Disconnected from user %{USER:user} %{IP:ip} port %{INT:port}",
+        "%{SYSLOGBASE} pam_unix\\(%{DATA:pam_service}\\): session opened for user %{USER:user} by \\(uid=%{INT:uid}\\)",
+        "%{SYSLOGBASE} pam_unix\\(%{DATA:pam_service}\\): session closed for user %{USER:user}",
+        "%{SYSLOGBASE} \\s*%{USER:user} : TTY=%{DATA:tty} ; PWD=%{DATA:pwd} ; USER=%{USER:target_user} ; COMMAND=%{GREEDYDATA:command}",
+        "%{SYSLOGBASE} \\(%{USER:user}\\) CMD \\(%{GREEDYDATA:command}\\)",
+        "%{SYSLOGBASE} New session %{INT:session} of user %{USER:user}\\.",
+        "%{SYSLOGBASE} Removed session %{INT:session}\\.",
+        "%{SYSLOGBASE} Started %{GREEDYDATA:unit}\\.",
+        "%{SYSLOGBASE} %{GREEDYDATA:message}"
+    );
+
+    private static final List<String> MESSAGES = List.of(
+        "Accepted publickey for bob from 10.0.%d.%d port 52100 ssh2",
+        "Failed password for invalid user admin from 10.0.%d.%d port 52101 ssh2",
+        "Failed password for root from 10.0.%d.%d port 52102 ssh2",
+        "Invalid user test from 10.0.%d.%d port 52103",
+        "Connection closed by 10.0.%d.%d port 52104 [preauth]",
+        "Received disconnect from 10.0.%d.%d port 52105:11: Bye Bye",
+        "Disconnected from user bob 10.0.%d.%d port 52106",
+        "pam_unix(sshd:session): session opened for user bob by (uid=%d%d)",
+        "pam_unix(sshd:session): session closed for user bob%d%d",
+        "bob : TTY=pts/%d ; PWD=/home/bob ; USER=root ; COMMAND=/bin/ls /tmp/%d",
+        "(root) CMD (run-parts /etc/cron.hourly/%d%d)",
+        "New session %d%d of user bob.",
+        "Removed session %d%d.",
+        "Started Session %d%d of user bob.",
+        "eth%d: link up, %d Mbps"
+    );
+
+    /**
+     * Whether to only try the patterns whose literal strings are found in the line.
+     */
+    @Param({ "false", "true" })
+    public boolean dispatchAlternatives;
+
+    /**
+     * How many of the lines cannot match any pattern.
+     */
+    @Param({ "0", "50" })
+    public int unmatchedPercent;
+
+    private Grok grok;
+    private List<String> lines;
+
+    @Setup
+    public void setup() {
+        final String pattern = PATTERNS.stream().map(p -> "(?:" + p + ")").collect(Collectors.joining("|"));
+        grok = new Grok(Grok.getBuiltinPatterns(false), pattern, MatcherWatchdog.noop(), dispatchAlternatives, message -> {});
+
+        final Random random = new Random(0);
+        lines = new ArrayList<>(LINES);
+        for (int i = 0; i < LINES; i++) {
+            final String message = String.format(
+                Locale.ROOT,
+                MESSAGES.get(random.nextInt(MESSAGES.size())),
+                random.nextInt(256),
+                random.nextInt(256)
+            );
+            if (random.nextInt(100) < unmatchedPercent) {
+                lines.add("level=info component=proxy " + message);
+            } else {
+                final String program = message.startsWith("eth") ? "kernel" : "sshd[" + (1000 + random.nextInt(1000)) + "]";
+                lines.add(String.format(Locale.ROOT, "Mar 16 00:%02d:%02d evita %s: %s", i / 60 % 60, i % 60, program, message));
+            }
+        }
+    }
+
+    @Benchmark
+    public void captures(Blackhole bh) {
+        for (String line : lines) {
+            bh.consume(grok.captures(line));
+        }
+    }
+}
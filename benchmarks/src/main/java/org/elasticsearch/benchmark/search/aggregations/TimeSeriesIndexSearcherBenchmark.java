@@ -0,0 +1,165 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.search.aggregations;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.cluster.metadata.DataStream;
+import org.elasticsearch.index.mapper.TimeSeriesIdFieldMapper;
+import org.elasticsearch.search.aggregations.BucketCollector;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.aggregations.timeseries.TimeSeriesIndexSearcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link TimeSeriesIndexSearcher} over a synthetic metrics index, sorted by {@code _tsid} and {@code @timestamp} descending like
+ * time series indices are, with a query on the last {@link #selectivity} percent of the time range, which is the typical shape of
+ * dashboard queries. Compares to the unrestricted query to see how much of the index is skipped.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class TimeSeriesIndexSearcherBenchmark {
+
+    private static final long START_TIME = 1_640_995_200_000L;
+    private static final long INTERVAL = 10_000L;
+
+    @Param({ "1000" })
+    public int numTimeSeries;
+
+    @Param({ "1000" })
+    public int samplesPerTimeSeries;
+
+    /**
+     * The percentage of the time range that the query selects.
+     */
+    @Param({ "1", "10", "100" })
+    public int selectivity;
+
+    private Directory directory;
+    private DirectoryReader reader;
+    private TimeSeriesIndexSearcher searcher;
+    private Query query;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = new ByteBuffersDirectory();
+        IndexWriterConfig config = new IndexWriterConfig().setIndexSort(
+            new Sort(
+                new SortField(TimeSeriesIdFieldMapper.NAME, SortField.Type.STRING),
+                new SortedNumericSortField(DataStream.TimestampField.FIXED_TIMESTAMP_FIELD, SortField.Type.LONG, true)
+            )
+        ).setRAMBufferSizeMB(256);
+        try (IndexWriter writer = new IndexWriter(directory, config)) {
+            Document doc = new Document();
+            // samples arrive in time order, for all time series at once
+            for (int sample = 0; sample < samplesPerTimeSeries; sample++) {
+                long timestamp = START_TIME + sample * INTERVAL;
+                for (int ts = 0; ts < numTimeSeries; ts++) {
+                    doc.clear();
+                    doc.add(new SortedDocValuesField(TimeSeriesIdFieldMapper.NAME, new BytesRef("metric-" + ts)));
+                    doc.add(new LongPoint(DataStream.TimestampField.FIXED_TIMESTAMP_FIELD, timestamp));
+                    doc.add(new SortedNumericDocValuesField(DataStream.TimestampField.FIXED_TIMESTAMP_FIELD, timestamp));
+                    doc.add(new SortedNumericDocValuesField("value", ts * sample));
+                    writer.addDocument(doc);
+                }
+            }
+            writer.forceMerge(4);
+        }
+        reader = DirectoryReader.open(directory);
+        searcher = new TimeSeriesIndexSearcher(new IndexSearcher(reader), List.of());
+
+        long end = START_TIME + samplesPerTimeSeries * INTERVAL;
+        long from = end - (end - START_TIME) * selectivity / 100;
+        query = new BooleanQuery.Builder().add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST)
+            .add(
+                new IndexOrDocValuesQuery(
+                    LongPoint.newRangeQuery(DataStream.TimestampField.FIXED_TIMESTAMP_FIELD, from, end),
+                    SortedNumericDocValuesField.newSlowRangeQuery(DataStream.TimestampField.FIXED_TIMESTAMP_FIELD, from, end)
+                ),
+                BooleanClause.Occur.FILTER
+            )
+            .build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        reader.close();
+        directory.close();
+    }
+
+    @Benchmark
+    public long search() throws IOException {
+        CountingCollector collector = new CountingCollector();
+        searcher.search(query, collector);
+        return collector.count;
+    }
+
+    private static class CountingCollector extends BucketCollector {
+        long count;
+
+        @Override
+        public LeafBucketCollector getLeafCollector(LeafReaderContext ctx) {
+            return new LeafBucketCollector() {
+                @Override
+                public void collect(int doc, long owningBucketOrd) {
+                    count++;
+                }
+            };
+        }
+
+        @Override
+        public void preCollection() {}
+
+        @Override
+        public void postCollection() {}
+
+        @Override
+        public ScoreMode scoreMode() {
+            return ScoreMode.COMPLETE_NO_SCORES;
+        }
+    }
+}
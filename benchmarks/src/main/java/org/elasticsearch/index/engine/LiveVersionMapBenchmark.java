@@ -0,0 +1,109 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.index.translog.Translog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays the version map operations that {@link InternalEngine} performs for an update heavy workload: every update looks up the
+ * current version of its id and then records the new one, and the map is refreshed every {@link #refreshEvery} operations. Run with
+ * {@code -prof gc} to compare the allocation rate and GC time of the {@link EngineConfig.VersionMapType} implementations.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(LiveVersionMapBenchmark.OPERATIONS)
+@State(Scope.Benchmark)
+public class LiveVersionMapBenchmark {
+
+    static final int OPERATIONS = 1_000_000;
+
+    @Param({ "heap", "paged" })
+    public String type;
+
+    @Param({ "10000", "1000000" })
+    public int distinctIds;
+
+    @Param({ "200000" })
+    public int refreshEvery;
+
+    private final BigArrays bigArrays = new BigArrays(new PageCacheRecycler(Settings.EMPTY), null, "REQUEST");
+
+    private BytesRef[] ids;
+    private LiveVersionMap versionMap;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(0);
+        ids = new BytesRef[distinctIds];
+        for (int i = 0; i < distinctIds; i++) {
+            ids[i] = new BytesRef(Long.toString(random.nextLong(), Character.MAX_RADIX).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createVersionMap() {
+        versionMap = switch (EngineConfig.VersionMapType.valueOf(type.toUpperCase(Locale.ROOT))) {
+            case HEAP -> new LiveVersionMap();
+            case PAGED -> new LiveVersionMap(bigArrays);
+        };
+        versionMap.enforceSafeAccess();
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeVersionMap() {
+        versionMap.clear();
+    }
+
+    @Benchmark
+    public void update(Blackhole bh) throws IOException {
+        for (int op = 0; op < OPERATIONS; op++) {
+            final BytesRef uid = ids[op % ids.length];
+            try (Releasable ignored = versionMap.acquireLock(uid)) {
+                final VersionValue current = versionMap.getUnderLock(uid);
+                final long version = current == null ? 1 : current.version + 1;
+                bh.consume(current);
+                versionMap.putIndexUnderLock(uid, new IndexVersionValue(new Translog.Location(1, op * 100L, 100), version, op, 1));
+            }
+            if (op % refreshEvery == refreshEvery - 1) {
+                bh.consume(versionMap.ramBytesUsed());
+                versionMap.beforeRefresh();
+                versionMap.afterRefresh(true);
+            }
+        }
+    }
+}
@@ -71,17 +71,34 @@ public final class Grok {
     private final Regex compiledExpression;
     private final MatcherWatchdog matcherWatchdog;
     private final List<GrokCaptureConfig> captureConfig;
+    private final GrokAlternatives alternatives;
 
     public Grok(Map<String, String> patternBank, String grokPattern, Consumer<String> logCallBack) {
-        this(patternBank, grokPattern, true, MatcherWatchdog.noop(), logCallBack);
+        this(patternBank, grokPattern, true, MatcherWatchdog.noop(), false, logCallBack);
     }
 
     public Grok(Map<String, String> patternBank, String grokPattern, MatcherWatchdog matcherWatchdog, Consumer<String> logCallBack) {
-        this(patternBank, grokPattern, true, matcherWatchdog, logCallBack);
+        this(patternBank, grokPattern, true, matcherWatchdog, false, logCallBack);
+    }
+
+    /**
+     * @param dispatchAlternatives whether to only try the alternatives of the pattern, i.e. the parts of the pattern that are separated by
+     *                             top level {@code |}, whose literal strings are found in the text to match. This makes no difference
+     *                             to the matches but saves most of the cost of the alternatives that do not match, at the cost of
+     *                             searching the text for these literals first and of compiling more regular expressions.
+     */
+    public Grok(
+        Map<String, String> patternBank,
+        String grokPattern,
+        MatcherWatchdog matcherWatchdog,
+        boolean dispatchAlternatives,
+        Consumer<String> logCallBack
+    ) {
+        this(patternBank, grokPattern, true, matcherWatchdog, dispatchAlternatives, logCallBack);
     }
 
     Grok(Map<String, String> patternBank, String grokPattern, boolean namedCaptures, Consumer<String> logCallBack) {
-        this(patternBank, grokPattern, namedCaptures, MatcherWatchdog.noop(), logCallBack);
+        this(patternBank, grokPattern, namedCaptures, MatcherWatchdog.noop(), false, logCallBack);
     }
 
     private Grok(
@@ -89,6 +106,7 @@ public final class Grok {
         String grokPattern,
         boolean namedCaptures,
         MatcherWatchdog matcherWatchdog,
+        boolean dispatchAlternatives,
         Consumer<String> logCallBack
     ) {
         this.patternBank = patternBank;
@@ -97,9 +115,30 @@ public final class Grok {
 
         forbidCircularReferences();
 
-        String expression = toRegex(grokPattern);
+        this.compiledExpression = compile(toRegex(grokPattern), logCallBack);
+
+        List<GrokCaptureConfig> grokCaptureConfigs = new ArrayList<>();
+        for (Iterator<NameEntry> entry = compiledExpression.namedBackrefIterator(); entry.hasNext();) {
+            grokCaptureConfigs.add(new GrokCaptureConfig(entry.next()));
+        }
+        this.captureConfig = List.copyOf(grokCaptureConfigs);
+
+        // without named captures, the names of the groups depend on their offsets in the pattern, which disabling alternatives changes
+        if (dispatchAlternatives && namedCaptures) {
+            // the warnings of the regular expressions of the alternatives are the same as the ones of the full expression
+            this.alternatives = GrokAlternatives.build(grokPattern, alternativesPattern -> {
+                Regex regex = compile(toRegex(alternativesPattern), message -> {});
+                assert regex.numberOfCaptures() == compiledExpression.numberOfCaptures() : alternativesPattern;
+                return regex;
+            });
+        } else {
+            this.alternatives = null;
+        }
+    }
+
+    private static Regex compile(String expression, Consumer<String> logCallBack) {
         byte[] expressionBytes = expression.getBytes(StandardCharsets.UTF_8);
-        this.compiledExpression = new Regex(
+        return new Regex(
             expressionBytes,
             0,
             expressionBytes.length,
@@ -107,12 +146,6 @@ public final class Grok {
             UTF8Encoding.INSTANCE,
             message -> logCallBack.accept(message)
         );
-
-        List<GrokCaptureConfig> grokCaptureConfigs = new ArrayList<>();
-        for (Iterator<NameEntry> entry = compiledExpression.namedBackrefIterator(); entry.hasNext();) {
-            grokCaptureConfigs.add(new GrokCaptureConfig(entry.next()));
-        }
-        this.captureConfig = List.copyOf(grokCaptureConfigs);
     }
 
     /**
@@ -262,7 +295,12 @@ public final class Grok {
      * @return true if grok expression matches text or there is a timeout, false otherwise.
      */
     public boolean match(String text) {
-        Matcher matcher = compiledExpression.matcher(text.getBytes(StandardCharsets.UTF_8));
+        byte[] utf8Bytes = text.getBytes(StandardCharsets.UTF_8);
+        Regex regex = selectExpression(utf8Bytes, 0, utf8Bytes.length);
+        if (regex == null) {
+            return false;
+        }
+        Matcher matcher = regex.matcher(utf8Bytes);
         int result;
         try {
             matcherWatchdog.register(matcher);
@@ -298,7 +336,11 @@ public final class Grok {
      * @throws RuntimeException if there was a timeout
      */
     public boolean match(byte[] utf8Bytes, int offset, int length, GrokCaptureExtracter extracter) {
-        Matcher matcher = compiledExpression.matcher(utf8Bytes, offset, offset + length);
+        Regex regex = selectExpression(utf8Bytes, offset, length);
+        if (regex == null) {
+            return false;
+        }
+        Matcher matcher = regex.matcher(utf8Bytes, offset, offset + length);
         int result;
         try {
             matcherWatchdog.register(matcher);
@@ -318,6 +360,16 @@ public final class Grok {
         return true;
     }
 
+    /**
+     * @return the regular expression to match the given text with, or {@code null} if the text cannot match
+     */
+    private Regex selectExpression(byte[] utf8Bytes, int offset, int length) {
+        if (alternatives == null) {
+            return compiledExpression;
+        }
+        return alternatives.select(utf8Bytes, offset, length, compiledExpression);
+    }
+
     /**
      * The list of values that this {@linkplain Grok} can capture.
      */
@@ -325,6 +377,10 @@ public final class Grok {
         return captureConfig;
     }
 
+    GrokAlternatives alternatives() {
+        return alternatives;
+    }
+
     /**
      * Load built-in patterns.
      */
@@ -0,0 +1,410 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.grok;
+
+import org.joni.Regex;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Only tries the alternatives of a grok pattern, like the patterns of a grok processor, that can match a given text. The literal
+ * strings that every match of an alternative must contain are read from the grok pattern, and the alternatives whose literals are
+ * missing from a text are disabled by prefixing them with an empty negative lookahead. A disabled alternative fails right away instead
+ * of being attempted at every position of the text, and the numbering of the capture groups does not change. The match is the same as
+ * the one of the full expression since the disabled alternatives cannot match anywhere in the text, and texts that cannot match any
+ * alternative are rejected without running a regular expression at all.
+ */
+final class GrokAlternatives {
+
+    // the literals of all alternatives, and the alternatives themselves, are tracked with the bits of a long
+    static final int MAX_LITERALS = Long.SIZE;
+    static final int MAX_ALTERNATIVES = Long.SIZE;
+    // only the longest literals of each alternative are checked, since they are the least likely to be found
+    static final int MAX_LITERALS_PER_ALTERNATIVE = 4;
+    // the number of combinations of enabled alternatives whose regular expressions are compiled and kept
+    static final int MAX_COMPILED_COMBINATIONS = 64;
+
+    private static final String DISABLED = "(?!)";
+    // escapes that match a single character or an empty string, but never a literal that could be found in the text
+    private static final String CHARACTER_TYPE_ESCAPES = "dDwWsShHbBAzZGntrfvea";
+
+    private final List<String> alternatives;
+    private final byte[][] literals;
+    private final long[] requiredLiterals;
+    private final long allAlternatives;
+    private final Function<String, Regex> compiler;
+    private final Map<Long, Regex> compiledCombinations = new ConcurrentHashMap<>();
+
+    private GrokAlternatives(List<String> alternatives, List<String> literals, long[] requiredLiterals, Function<String, Regex> compiler) {
+        this.alternatives = alternatives;
+        this.literals = new byte[literals.size()][];
+        for (int i = 0; i < literals.size(); i++) {
+            this.literals[i] = literals.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+        this.requiredLiterals = requiredLiterals;
+        this.allAlternatives = alternatives.size() == Long.SIZE ? -1L : (1L << alternatives.size()) - 1;
+        this.compiler = compiler;
+    }
+
+    /**
+     * @param grokPattern the grok pattern, whose alternatives are separated by top level {@code |}
+     * @param compiler    compiles a grok pattern whose alternatives are the same as the ones of {@code grokPattern} into the same capture
+     *                    groups
+     * @return the alternatives of the pattern, or {@code null} if no alternative has a literal that must be found in the text or if the
+     *         pattern uses constructs that could change the meaning of its literals
+     */
+    static GrokAlternatives build(String grokPattern, Function<String, Regex> compiler) {
+        final List<String> alternatives = splitAlternatives(grokPattern);
+        if (alternatives == null || alternatives.size() > MAX_ALTERNATIVES) {
+            return null;
+        }
+        final List<String> literals = new ArrayList<>();
+        final long[] requiredLiterals = new long[alternatives.size()];
+        for (int i = 0; i < alternatives.size(); i++) {
+            for (String literal : requiredLiterals(alternatives.get(i))) {
+                int index = literals.indexOf(literal);
+                if (index < 0 && literals.size() < MAX_LITERALS) {
+                    index = literals.size();
+                    literals.add(literal);
+                }
+                if (index >= 0) {
+                    requiredLiterals[i] |= 1L << index;
+                }
+            }
+        }
+        if (literals.isEmpty()) {
+            return null;
+        }
+        return new GrokAlternatives(alternatives, literals, requiredLiterals, compiler);
+    }
+
+    /**
+     * @return the regular expression that only tries the alternatives that can match the given text, {@code fullExpression} if all
+     *         of them can, or {@code null} if none of them can
+     */
+    Regex select(byte[] utf8Bytes, int offset, int length, Regex fullExpression) {
+        long foundLiterals = 0;
+        for (int i = 0; i < literals.length; i++) {
+            if (contains(utf8Bytes, offset, offset + length, literals[i])) {
+                foundLiterals |= 1L << i;
+            }
+        }
+        long candidates = 0;
+        for (int i = 0; i < requiredLiterals.length; i++) {
+            if ((requiredLiterals[i] & ~foundLiterals) == 0) {
+                candidates |= 1L << i;
+            }
+        }
+        if (candidates == 0) {
+            return null;
+        }
+        if (candidates == allAlternatives) {
+            return fullExpression;
+        }
+        final Regex regex = compiledCombinations.get(candidates);
+        if (regex != null) {
+            return regex;
+        }
+        if (compiledCombinations.size() >= MAX_COMPILED_COMBINATIONS) {
+            return fullExpression;
+        }
+        return compiledCombinations.computeIfAbsent(candidates, this::compile);
+    }
+
+    private Regex compile(long candidates) {
+        final StringBuilder grokPattern = new StringBuilder();
+        for (int i = 0; i < alternatives.size(); i++) {
+            if (i > 0) {
+                grokPattern.append('|');
+            }
+            if ((candidates & (1L << i)) == 0) {
+                grokPattern.append(DISABLED);
+            }
+            grokPattern.append(alternatives.get(i));
+        }
+        return compiler.apply(grokPattern.toString());
+    }
+
+    int numberOfAlternatives() {
+        return alternatives.size();
+    }
+
+    int numberOfCompiledCombinations() {
+        return compiledCombinations.size();
+    }
+
+    private static boolean contains(byte[] bytes, int from, int to, byte[] literal) {
+        final int last = to - literal.length;
+        outer: for (int i = from; i <= last; i++) {
+            for (int j = 0; j < literal.length; j++) {
+                if (bytes[i + j] != literal[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the alternatives of the grok pattern, or {@code null} if the pattern cannot be split safely
+     */
+    static List<String> splitAlternatives(String grokPattern) {
+        final List<String> alternatives = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        int i = 0;
+        while (i < grokPattern.length()) {
+            final char c = grokPattern.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            } else if (isReference(grokPattern, i)) {
+                i = skipReference(grokPattern, i);
+            } else if (c == '[') {
+                i = skipCharacterClass(grokPattern, i);
+            } else if (c == '(') {
+                if (isSupportedGroup(grokPattern, i) == false) {
+                    return null;
+                }
+                depth++;
+                i++;
+            } else if (c == ')') {
+                if (depth == 0) {
+                    return null;
+                }
+                depth--;
+                i++;
+            } else {
+                if (c == '|' && depth == 0) {
+                    alternatives.add(grokPattern.substring(start, i));
+                    start = i + 1;
+                }
+                i++;
+            }
+            if (i < 0) {
+                return null;
+            }
+        }
+        if (depth != 0 || i > grokPattern.length()) {
+            return null;
+        }
+        alternatives.add(grokPattern.substring(start));
+        return alternatives;
+    }
+
+    /**
+     * @return the longest strings that every match of the given alternative contains, or an empty list if there are none or if they
+     *         cannot be told safely
+     */
+    static List<String> requiredLiterals(String alternative) {
+        alternative = unwrap(alternative);
+        if (alternative == null) {
+            return List.of();
+        }
+        final List<String> literals = new ArrayList<>();
+        final StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < alternative.length()) {
+            final char c = alternative.charAt(i);
+            if (c == '\\') {
+                if (i + 1 == alternative.length()) {
+                    return List.of();
+                }
+                final char escaped = alternative.charAt(i + 1);
+                if (Character.isLetterOrDigit(escaped)) {
+                    if (CHARACTER_TYPE_ESCAPES.indexOf(escaped) < 0) {
+                        // an escape sequence that matches a longer or a variable string, like \x41, \p{Alpha} or \1
+                        return List.of();
+                    }
+                    addLiteral(literals, literal);
+                } else {
+                    literal.append(escaped);
+                }
+                i += 2;
+            } else if (isReference(alternative, i)) {
+                addLiteral(literals, literal);
+                i = skipReference(alternative, i);
+            } else if (c == '[') {
+                addLiteral(literals, literal);
+                i = skipCharacterClass(alternative, i);
+            } else if (c == '(') {
+                addLiteral(literals, literal);
+                i = skipGroup(alternative, i);
+            } else if (c == '?' || c == '*' || c == '+') {
+                // the quantified character might not be part of the match
+                if (literal.length() > 0) {
+                    literal.setLength(literal.length() - Character.charCount(literal.codePointBefore(literal.length())));
+                }
+                addLiteral(literals, literal);
+                i++;
+            } else if (c == '{') {
+                // possibly an interval quantifier, which would apply to whatever precedes it
+                return List.of();
+            } else if (c == '^' || c == '$' || c == '.' || c == '|' || c == ')' || c == ']' || c == '}') {
+                addLiteral(literals, literal);
+                i++;
+            } else {
+                literal.append(c);
+                i++;
+            }
+            if (i < 0) {
+                return List.of();
+            }
+        }
+        addLiteral(literals, literal);
+        return literals.stream()
+            .distinct()
+            .sorted(Comparator.comparingInt(String::length).reversed())
+            .limit(MAX_LITERALS_PER_ALTERNATIVE)
+            .toList();
+    }
+
+    private static void addLiteral(List<String> literals, StringBuilder literal) {
+        if (literal.length() > 0) {
+            literals.add(literal.toString());
+            literal.setLength(0);
+        }
+    }
+
+    /**
+     * Removes the groups that enclose the whole alternative, like the ones that the grok processor adds around each of its patterns.
+     *
+     * @return the content of the outermost group that is not a single group, or {@code null} if it has alternatives of its own
+     */
+    private static String unwrap(String alternative) {
+        while (alternative.startsWith("(") && skipGroup(alternative, 0) == alternative.length()) {
+            final int start;
+            if (alternative.startsWith("(?:")) {
+                start = 3;
+            } else if (alternative.startsWith("(?<") && isLookbehind(alternative, 0) == false) {
+                start = alternative.indexOf('>') + 1;
+            } else if (alternative.startsWith("(?") == false) {
+                start = 1;
+            } else {
+                return alternative;
+            }
+            alternative = alternative.substring(start, alternative.length() - 1);
+            final List<String> alternatives = splitAlternatives(alternative);
+            if (alternatives == null || alternatives.size() != 1) {
+                return null;
+            }
+        }
+        return alternative;
+    }
+
+    /**
+     * Isolated options like {@code (?i)} apply to the rest of the enclosing group including its other alternatives, and comments
+     * might contain parentheses, so patterns with such groups are not handled.
+     */
+    private static boolean isSupportedGroup(String pattern, int i) {
+        if (pattern.startsWith("(?", i) == false) {
+            return true;
+        }
+        if (i + 2 >= pattern.length()) {
+            return false;
+        }
+        final char c = pattern.charAt(i + 2);
+        return c == ':' || c == '<' || c == '=' || c == '!' || c == '>';
+    }
+
+    private static boolean isLookbehind(String pattern, int i) {
+        return pattern.startsWith("(?<=", i) || pattern.startsWith("(?<!", i);
+    }
+
+    private static boolean isReference(String pattern, int i) {
+        return pattern.startsWith("%{", i);
+    }
+
+    /**
+     * @return the index after the reference to a named grok pattern that starts at {@code i}, or {@code -1} if it is malformed
+     */
+    private static int skipReference(String pattern, int i) {
+        final int end = pattern.indexOf('}', i);
+        if (end < 0 || i + 2 == end || Character.isLetterOrDigit(pattern.charAt(i + 2)) == false) {
+            return -1;
+        }
+        return end + 1;
+    }
+
+    /**
+     * @return the index after the character class that starts at {@code i}, or {@code -1} if it is unbalanced or starts with a literal
+     *         {@code ]}
+     */
+    private static int skipCharacterClass(String pattern, int i) {
+        int depth = 0;
+        while (i < pattern.length()) {
+            final char c = pattern.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (isReference(pattern, i)) {
+                return -1;
+            } else if (c == '[') {
+                depth++;
+                i++;
+                if (i < pattern.length() && pattern.charAt(i) == '^') {
+                    i++;
+                }
+                if (i < pattern.length() && pattern.charAt(i) == ']') {
+                    return -1;
+                }
+            } else if (c == ']') {
+                depth--;
+                i++;
+                if (depth == 0) {
+                    return i;
+                }
+            } else {
+                i++;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index after the group that starts at {@code i}, or {@code -1} if it is unbalanced or not supported
+     */
+    private static int skipGroup(String pattern, int i) {
+        int depth = 0;
+        while (i < pattern.length()) {
+            final char c = pattern.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (isReference(pattern, i)) {
+                i = skipReference(pattern, i);
+            } else if (c == '[') {
+                i = skipCharacterClass(pattern, i);
+            } else if (c == '(') {
+                if (isSupportedGroup(pattern, i) == false) {
+                    return -1;
+                }
+                depth++;
+                i++;
+            } else if (c == ')') {
+                depth--;
+                i++;
+                if (depth == 0) {
+                    return i;
+                }
+            } else {
+                i++;
+            }
+            if (i < 0) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.grok;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class GrokAlternativesTests extends ESTestCase {
+
+    private static final List<String> SYSLOG_PATTERNS = List.of(
+        "%{SYSLOGBASE} Accepted %{WORD:method} for %{USER:user} from %{IP:ip} port %{INT:port} ssh2",
+        "%{SYSLOGBASE} Failed password for (invalid user )?%{USER:user} from %{IP:ip} port %{INT:port} ssh2",
+        "%{SYSLOGBASE} Invalid user %{USER:user} from %{IP:ip}( port %{INT:port})?",
+        "%{SYSLOGBASE} pam_unix\\(%{DATA:pam_service}\\): session (opened|closed) for user %{USER:user}",
+        "%{SYSLOGBASE} \\s*%{USER:user} : TTY=%{DATA:tty} ; PWD=%{DATA:pwd} ; USER=%{USER:target_user} ; COMMAND=%{GREEDYDATA:command}",
+        "%{SYSLOGBASE} \\(%{USER:user}\\) CMD \\(%{GREEDYDATA:command}\\)",
+        "%{SYSLOGBASE} %{GREEDYDATA:message}"
+    );
+
+    private static final List<String> SYSLOG_LINES = List.of(
+        "Mar 16 00:01:25 evita sshd[1713]: Accepted publickey for bob from 10.0.0.1 port 52100 ssh2",
+        "Mar 16 00:01:26 evita sshd[1714]: Failed password for invalid user admin from 10.0.0.2 port 52101 ssh2",
+        "Mar 16 00:01:27 evita sshd[1715]: Failed password for root from 10.0.0.3 port 52102 ssh2",
+        "Mar 16 00:01:28 evita sshd[1716]: Invalid user test from 10.0.0.4 port 52103",
+        "Mar 16 00:01:29 evita sshd[1717]: Invalid user test from 10.0.0.5",
+        "Mar 16 00:01:30 evita sshd[1718]: pam_unix(sshd:session): session opened for user bob",
+        "Mar 16 00:01:31 evita sudo:      bob : TTY=pts/0 ; PWD=/home/bob ; USER=root ; COMMAND=/bin/ls",
+        "Mar 16 00:01:32 evita CRON[1719]: (root) CMD (run-parts /etc/cron.hourly)",
+        "Mar 16 00:01:33 evita kernel: eth0: link up",
+        "Failed password for root from 10.0.0.3 port 52102 ssh2",
+        "not a syslog line"
+    );
+
+    public void testSplitAlternatives() {
+        assertThat(GrokAlternatives.splitAlternatives("a|b"), equalTo(List.of("a", "b")));
+        assertThat(GrokAlternatives.splitAlternatives("(?:a|b)|c"), equalTo(List.of("(?:a|b)", "c")));
+        assertThat(GrokAlternatives.splitAlternatives("[|]\\||%{NUMBER:a|b}"), equalTo(List.of("[|]\\|", "%{NUMBER:a|b}")));
+        assertThat(GrokAlternatives.splitAlternatives("a|"), equalTo(List.of("a", "")));
+        // isolated options and comments
+        assertThat(GrokAlternatives.splitAlternatives("a(?i)b|c"), nullValue());
+        assertThat(GrokAlternatives.splitAlternatives("(?#)|)a|b"), nullValue());
+        // unbalanced groups and character classes
+        assertThat(GrokAlternatives.splitAlternatives("(a|b"), nullValue());
+        assertThat(GrokAlternatives.splitAlternatives("a)|b"), nullValue());
+        assertThat(GrokAlternatives.splitAlternatives("[]a]|b"), nullValue());
+        assertThat(GrokAlternatives.splitAlternatives("a\\"), nullValue());
+    }
+
+    public void testRequiredLiterals() {
+        assertThat(GrokAlternatives.requiredLiterals("foo"), equalTo(List.of("foo")));
+        assertThat(GrokAlternatives.requiredLiterals("(?:foo)"), equalTo(List.of("foo")));
+        assertThat(GrokAlternatives.requiredLiterals("(?<_ingest._grok_match_index.0>(foo))"), equalTo(List.of("foo")));
+        assertThat(GrokAlternatives.requiredLiterals("foo\\.bar?"), equalTo(List.of("foo.ba")));
+        assertThat(GrokAlternatives.requiredLiterals("^foo$"), equalTo(List.of("foo")));
+        assertThat(GrokAlternatives.requiredLiterals("a*bc+d"), equalTo(List.of("b", "d")));
+        assertThat(
+            GrokAlternatives.requiredLiterals("%{WORD} from %{IP:ip}( port %{INT:port})?[:;] ssh2\\d"),
+            containsInAnyOrder(" from ", " ssh2")
+        );
+        assertThat(GrokAlternatives.requiredLiterals("a b.c d"), equalTo(List.of("a b", "c d")));
+        // the longest literals are kept
+        assertThat(GrokAlternatives.requiredLiterals("a.bbbbb.cc.ddd.eeee"), equalTo(List.of("bbbbb", "eeee", "ddd", "cc")));
+        // no literal at all
+        assertThat(GrokAlternatives.requiredLiterals("%{GREEDYDATA:message}"), empty());
+        assertThat(GrokAlternatives.requiredLiterals("(?:foo|bar)"), empty());
+        assertThat(GrokAlternatives.requiredLiterals("(foo)?"), empty());
+        // constructs that could change the meaning of the literals
+        assertThat(GrokAlternatives.requiredLiterals("ab{2}"), empty());
+        assertThat(GrokAlternatives.requiredLiterals("ab\\x41"), empty());
+        assertThat(GrokAlternatives.requiredLiterals("ab\\1"), empty());
+        assertThat(GrokAlternatives.requiredLiterals("\\p{Alpha}bc"), empty());
+    }
+
+    public void testBuild() {
+        assertThat(GrokAlternatives.build("%{GREEDYDATA:a}|%{NUMBER:b}", pattern -> { throw new AssertionError(); }), nullValue());
+        assertThat(GrokAlternatives.build("a(?i)b|c", pattern -> { throw new AssertionError(); }), nullValue());
+        Grok grok = new Grok(Grok.getBuiltinPatterns(false), "foo %{NUMBER:a}|bar %{WORD:b}", MatcherWatchdog.noop(), true, logger::warn);
+        assertThat(grok.alternatives(), notNullValue());
+        assertThat(grok.alternatives().numberOfAlternatives(), equalTo(2));
+        Grok withoutDispatch = new Grok(Grok.getBuiltinPatterns(false), "foo %{NUMBER:a}|bar %{WORD:b}", logger::warn);
+        assertThat(withoutDispatch.alternatives(), nullValue());
+    }
+
+    public void testSameMatchesAsFullExpression() {
+        for (boolean ecsCompatibility : new boolean[] { false, true }) {
+            Map<String, String> patternBank = Grok.getBuiltinPatterns(ecsCompatibility);
+            String grokPattern = combine(SYSLOG_PATTERNS);
+            Grok full = new Grok(patternBank, grokPattern, MatcherWatchdog.noop(), false, logger::warn);
+            Grok dispatched = new Grok(patternBank, grokPattern, MatcherWatchdog.noop(), true, logger::warn);
+            assertThat(dispatched.alternatives().numberOfAlternatives(), equalTo(SYSLOG_PATTERNS.size()));
+            for (String line : SYSLOG_LINES) {
+                assertThat(line, dispatched.captures(line), equalTo(full.captures(line)));
+                assertThat(line, dispatched.match(line), equalTo(full.match(line)));
+            }
+        }
+    }
+
+    public void testLaterAlternativeMatchingEarlierInText() {
+        // a match at an earlier position wins over a match of an earlier alternative, whichever alternatives are tried
+        Grok full = new Grok(Map.of(), "(?<first>foo)|(?<second>bar)", MatcherWatchdog.noop(), false, logger::warn);
+        Grok dispatched = new Grok(Map.of(), "(?<first>foo)|(?<second>bar)", MatcherWatchdog.noop(), true, logger::warn);
+        for (String text : List.of("bar foo", "foo bar", "bar", "foo", "baz")) {
+            assertThat(text, dispatched.captures(text), equalTo(full.captures(text)));
+        }
+        assertThat(dispatched.captures("bar foo"), equalTo(Map.of("second", "bar")));
+    }
+
+    public void testRandomTexts() {
+        List<String> patterns = randomSubsetOf(between(1, SYSLOG_PATTERNS.size()), SYSLOG_PATTERNS);
+        Map<String, String> patternBank = Grok.getBuiltinPatterns(randomBoolean());
+        Grok full = new Grok(patternBank, combine(patterns), MatcherWatchdog.noop(), false, logger::warn);
+        Grok dispatched = new Grok(patternBank, combine(patterns), MatcherWatchdog.noop(), true, logger::warn);
+        for (int i = 0; i < 100; i++) {
+            StringBuilder text = new StringBuilder(randomFrom(SYSLOG_LINES));
+            for (int j = between(0, 3); j > 0; j--) {
+                int position = between(0, text.length());
+                if (randomBoolean() && position < text.length()) {
+                    text.deleteCharAt(position);
+                } else {
+                    text.insert(position, randomFrom(" ", "for ", "from ", "user ", "é", randomAlphaOfLength(1)));
+                }
+            }
+            assertThat(text.toString(), dispatched.captures(text.toString()), equalTo(full.captures(text.toString())));
+        }
+    }
+
+    public void testBoundedCompiledCombinations() {
+        List<String> patterns = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            patterns.add("x" + i + "y");
+        }
+        Grok full = new Grok(Map.of(), combine(patterns), MatcherWatchdog.noop(), false, logger::warn);
+        Grok dispatched = new Grok(Map.of(), combine(patterns), MatcherWatchdog.noop(), true, logger::warn);
+        for (int i = 0; i < GrokAlternatives.MAX_COMPILED_COMBINATIONS * 2; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int j = 0; j < patterns.size(); j++) {
+                if ((i & (1 << j)) != 0) {
+                    text.append(patterns.get(j)).append(' ');
+                }
+            }
+            assertThat(text.toString(), dispatched.match(text.toString()), equalTo(full.match(text.toString())));
+        }
+        assertThat(dispatched.alternatives().numberOfCompiledCombinations(), equalTo(GrokAlternatives.MAX_COMPILED_COMBINATIONS));
+    }
+
+    private static String combine(List<String> patterns) {
+        return String.join("|", patterns.stream().map(pattern -> "(?:" + pattern + ")").toList());
+    }
+}
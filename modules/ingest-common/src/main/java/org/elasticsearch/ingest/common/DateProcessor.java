@@ -9,6 +9,7 @@
 package org.elasticsearch.ingest.common;
 
 import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.TriConsumer;
 import org.elasticsearch.common.time.DateFormatter;
 import org.elasticsearch.common.util.LocaleUtils;
 import org.elasticsearch.core.Nullable;
@@ -23,6 +24,7 @@ import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -90,6 +92,34 @@ public final class DateProcessor extends AbstractProcessor {
 
     @Override
     public IngestDocument execute(IngestDocument ingestDocument) {
+        return doExecute(ingestDocument, null);
+    }
+
+    /**
+     * Parses the dates of all documents with the same parsers for as long as the timezone and the locale stay the same, and parses each
+     * distinct value only once, since the documents of a bulk request often share their timestamps.
+     */
+    @Override
+    public void executeBatch(List<IngestDocument> ingestDocuments, TriConsumer<Integer, IngestDocument, Exception> handler) {
+        final BatchCache cache = new BatchCache();
+        for (int i = 0; i < ingestDocuments.size(); i++) {
+            final IngestDocument result;
+            try {
+                result = doExecute(ingestDocuments.get(i), cache);
+            } catch (Exception e) {
+                handler.apply(i, null, e);
+                continue;
+            }
+            handler.apply(i, result, null);
+        }
+    }
+
+    @Override
+    public boolean supportsBatchExecution() {
+        return true;
+    }
+
+    private IngestDocument doExecute(IngestDocument ingestDocument, @Nullable BatchCache batchCache) {
         Object obj = ingestDocument.getFieldValue(field, Object.class);
         String value = null;
         if (obj != null) {
@@ -97,26 +127,79 @@ public final class DateProcessor extends AbstractProcessor {
             value = obj.toString();
         }
 
-        ZonedDateTime dateTime = null;
-        Exception lastException = null;
-        for (Function<Map<String, Object>, Function<String, ZonedDateTime>> dateParser : dateParsers) {
-            try {
-                dateTime = dateParser.apply(ingestDocument.getSourceAndMetadata()).apply(value);
-                break;
-            } catch (Exception e) {
-                // try the next parser and keep track of the exceptions
-                lastException = ExceptionsHelper.useOrSuppress(lastException, e);
-            }
+        final Map<String, Object> params = ingestDocument.getSourceAndMetadata();
+        final BatchCache cache = useBatchCache(batchCache, params) ? batchCache : null;
+        String formatted = null;
+        if (cache != null) {
+            formatted = cache.formattedDates.get(value);
         }
+        if (formatted == null) {
+            ZonedDateTime dateTime = null;
+            Exception lastException = null;
+            for (int i = 0; i < dateParsers.size(); i++) {
+                try {
+                    final Function<String, ZonedDateTime> parser = cache == null
+                        ? dateParsers.get(i).apply(params)
+                        : cache.parsers.computeIfAbsent(i, p -> newDateParser(p, cache.zoneId, cache.locale));
+                    dateTime = parser.apply(value);
+                    break;
+                } catch (Exception e) {
+                    // try the next parser and keep track of the exceptions
+                    lastException = ExceptionsHelper.useOrSuppress(lastException, e);
+                }
+            }
 
-        if (dateTime == null) {
-            throw new IllegalArgumentException("unable to parse date [" + value + "]", lastException);
+            if (dateTime == null) {
+                throw new IllegalArgumentException("unable to parse date [" + value + "]", lastException);
+            }
+            formatted = formatter.format(dateTime);
+            if (cache != null && value != null) {
+                cache.formattedDates.put(value, formatted);
+            }
         }
 
-        ingestDocument.setFieldValue(targetField, formatter.format(dateTime));
+        ingestDocument.setFieldValue(targetField, formatted);
         return ingestDocument;
     }
 
+    private boolean useBatchCache(@Nullable BatchCache cache, Map<String, Object> params) {
+        if (cache == null) {
+            return false;
+        }
+        try {
+            cache.setZoneAndLocale(newDateTimeZone(params), newLocale(params));
+            return true;
+        } catch (Exception e) {
+            // let the date parsers fail the same way as they do when the document is processed on its own
+            return false;
+        }
+    }
+
+    private Function<String, ZonedDateTime> newDateParser(int index, ZoneId zoneId, Locale locale) {
+        final String format = formats.get(index);
+        return DateFormat.fromString(format).getFunction(format, zoneId, locale);
+    }
+
+    /**
+     * The date parsers and the formatted dates of a batch of documents, which are valid for as long as the documents have the same
+     * timezone and locale.
+     */
+    private static final class BatchCache {
+        private final Map<Integer, Function<String, ZonedDateTime>> parsers = new HashMap<>();
+        private final Map<String, String> formattedDates = new HashMap<>();
+        private ZoneId zoneId;
+        private Locale locale;
+
+        void setZoneAndLocale(ZoneId zoneId, Locale locale) {
+            if (zoneId.equals(this.zoneId) == false || locale.equals(this.locale) == false) {
+                this.zoneId = zoneId;
+                this.locale = locale;
+                parsers.clear();
+                formattedDates.clear();
+            }
+        }
+    }
+
     @Override
     public String getType() {
         return TYPE;
@@ -10,6 +10,8 @@ package org.elasticsearch.ingest.common;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.TriConsumer;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.grok.Grok;
 import org.elasticsearch.grok.MatcherWatchdog;
 import org.elasticsearch.ingest.AbstractProcessor;
@@ -50,7 +52,8 @@ public final class GrokProcessor extends AbstractProcessor {
         super(tag, description);
         this.matchField = matchField;
         this.matchPatterns = matchPatterns;
-        this.grok = new Grok(patternBank, combinePatterns(matchPatterns, traceMatch), matcherWatchdog, logger::debug);
+        // only the patterns whose literal strings are found in the field value are tried
+        this.grok = new Grok(patternBank, combinePatterns(matchPatterns, traceMatch), matcherWatchdog, true, logger::debug);
         this.traceMatch = traceMatch;
         this.ignoreMissing = ignoreMissing;
         // Joni warnings are only emitted on an attempt to match, and the warning emitted for every call to match which is too verbose
@@ -60,6 +63,34 @@ public final class GrokProcessor extends AbstractProcessor {
 
     @Override
     public IngestDocument execute(IngestDocument ingestDocument) throws Exception {
+        return doExecute(ingestDocument, null);
+    }
+
+    /**
+     * Matches each distinct value only once, since the documents of a bulk request often repeat the same messages. The captured values
+     * are immutable so the documents can share them.
+     */
+    @Override
+    public void executeBatch(List<IngestDocument> ingestDocuments, TriConsumer<Integer, IngestDocument, Exception> handler) {
+        final Map<String, Map<String, Object>> capturesCache = new HashMap<>();
+        for (int i = 0; i < ingestDocuments.size(); i++) {
+            final IngestDocument result;
+            try {
+                result = doExecute(ingestDocuments.get(i), capturesCache);
+            } catch (Exception e) {
+                handler.apply(i, null, e);
+                continue;
+            }
+            handler.apply(i, result, null);
+        }
+    }
+
+    @Override
+    public boolean supportsBatchExecution() {
+        return true;
+    }
+
+    private IngestDocument doExecute(IngestDocument ingestDocument, @Nullable Map<String, Map<String, Object>> capturesCache) {
         String fieldValue = ingestDocument.getFieldValue(matchField, String.class, ignoreMissing);
 
         if (fieldValue == null && ignoreMissing) {
@@ -68,7 +99,9 @@ public final class GrokProcessor extends AbstractProcessor {
             throw new IllegalArgumentException("field [" + matchField + "] is null, cannot process it.");
         }
 
-        Map<String, Object> matches = grok.captures(fieldValue);
+        Map<String, Object> matches = capturesCache == null
+            ? grok.captures(fieldValue)
+            : capturesCache.computeIfAbsent(fieldValue, grok::captures);
         if (matches == null) {
             throw new IllegalArgumentException("Provided Grok expressions do not match field value: [" + fieldValue + "]");
         }
@@ -336,4 +336,55 @@ public class DateProcessorTests extends ESTestCase {
         String expectedDate = "00:00:00." + String.format(Locale.ROOT, "%09d", nanosAfterEpoch);
         assertThat(ingestDocument.getFieldValue("date_as_date", String.class), equalTo(expectedDate));
     }
+
+    public void testExecuteBatch() {
+        // the timezone of each document is taken from the document itself
+        TemplateScript.Factory timezone = params -> new TemplateScript(params) {
+            @Override
+            public String execute() {
+                return (String) params.get("timezone");
+            }
+        };
+        DateProcessor processor = new DateProcessor(
+            randomAlphaOfLength(10),
+            null,
+            timezone,
+            templatize(Locale.ENGLISH),
+            "date_as_string",
+            List.of("dd/MM/yyyy", "yyyy dd MM"),
+            "date_as_date"
+        );
+        assertTrue(processor.supportsBatchExecution());
+        String[][] documents = new String[][] {
+            { "2010 12 06", "Europe/Amsterdam" },
+            { "2010 12 06", "Europe/Amsterdam" },
+            { "12/06/2010", "Europe/Amsterdam" },
+            { "2010 12 06", "UTC" },
+            { "not a date", "UTC" },
+            { "2010 12 06", "invalid_timezone" },
+            { "2010 12 06", "Europe/Amsterdam" } };
+        List<IngestDocument> ingestDocuments = new ArrayList<>();
+        for (String[] document : documents) {
+            ingestDocuments.add(
+                RandomDocumentPicks.randomIngestDocument(random(), Map.of("date_as_string", document[0], "timezone", document[1]))
+            );
+        }
+
+        String[] results = new String[documents.length];
+        Exception[] failures = new Exception[documents.length];
+        processor.executeBatch(ingestDocuments, (slot, result, e) -> {
+            assertNull(results[slot]);
+            results[slot] = result == null ? null : result.getFieldValue("date_as_date", String.class);
+            failures[slot] = e;
+        });
+        assertThat(results[0], equalTo("2010-06-12T00:00:00.000+02:00"));
+        assertThat(results[1], equalTo("2010-06-12T00:00:00.000+02:00"));
+        assertThat(results[2], equalTo("2010-06-12T00:00:00.000+02:00"));
+        assertThat(results[3], equalTo("2010-06-12T00:00:00.000Z"));
+        assertThat(failures[4].getMessage(), equalTo("unable to parse date [not a date]"));
+        // the same failure as when the document is processed on its own
+        assertThat(failures[5].getMessage(), equalTo("unable to parse date [2010 12 06]"));
+        assertThat(failures[5].getCause().getMessage(), equalTo("Unknown time-zone ID: invalid_timezone"));
+        assertThat(results[6], equalTo("2010-06-12T00:00:00.000+02:00"));
+    }
 }
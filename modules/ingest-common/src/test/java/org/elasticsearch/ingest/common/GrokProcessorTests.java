@@ -12,11 +12,15 @@ import org.elasticsearch.grok.MatcherWatchdog;
 import org.elasticsearch.ingest.IngestDocument;
 import org.elasticsearch.ingest.RandomDocumentPicks;
 import org.elasticsearch.test.ESTestCase;
+import org.joni.Matcher;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.elasticsearch.ingest.IngestDocumentMatcher.assertIngestDocument;
 import static org.hamcrest.Matchers.equalTo;
@@ -374,4 +378,67 @@ public class GrokProcessorTests extends ESTestCase {
         assertFalse(doc.hasField("first"));
         assertThat(doc.getFieldValue("second", String.class), equalTo("3"));
     }
+
+    public void testExecuteBatch() throws Exception {
+        String fieldName = RandomDocumentPicks.randomFieldName(random());
+        AtomicInteger matches = new AtomicInteger();
+        MatcherWatchdog countingWatchdog = new MatcherWatchdog() {
+            @Override
+            public void register(Matcher matcher) {
+                matches.incrementAndGet();
+            }
+
+            @Override
+            public long maxExecutionTimeInMillis() {
+                return Long.MAX_VALUE;
+            }
+
+            @Override
+            public void unregister(Matcher matcher) {}
+        };
+        Map<String, String> patternBank = new HashMap<>();
+        patternBank.put("ONE", "1");
+        patternBank.put("TWO", "2");
+        GrokProcessor processor = new GrokProcessor(
+            randomAlphaOfLength(10),
+            null,
+            patternBank,
+            Arrays.asList("%{ONE:one}", "%{TWO:two}"),
+            fieldName,
+            true,
+            false,
+            countingWatchdog
+        );
+        assertTrue(processor.supportsBatchExecution());
+
+        String[] values = new String[] { "1", "2", "1", "3", "1", "2", "3" };
+        List<IngestDocument> ingestDocuments = new ArrayList<>();
+        List<IngestDocument> expected = new ArrayList<>();
+        for (String value : values) {
+            IngestDocument doc = RandomDocumentPicks.randomIngestDocument(random(), new HashMap<>());
+            doc.setFieldValue(fieldName, value);
+            ingestDocuments.add(doc);
+            expected.add(value.equals("3") ? null : processor.execute(new IngestDocument(doc)));
+        }
+
+        IngestDocument[] results = new IngestDocument[values.length];
+        Exception[] failures = new Exception[values.length];
+        matches.set(0);
+        processor.executeBatch(ingestDocuments, (slot, result, e) -> {
+            assertNull(results[slot]);
+            results[slot] = result;
+            failures[slot] = e;
+        });
+        // each distinct value is only matched once, apart from the value that does not match which is matched again
+        assertThat(matches.get(), equalTo(4));
+        for (int i = 0; i < values.length; i++) {
+            if (expected.get(i) == null) {
+                assertNull(results[i]);
+                assertThat(failures[i].getMessage(), equalTo("Provided Grok expressions do not match field value: [3]"));
+            } else {
+                assertNull(failures[i]);
+                assertIngestDocument(results[i], expected.get(i));
+            }
+        }
+    }
 }
@@ -26,6 +26,7 @@ import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.index.query.TermQueryBuilder;
 import org.elasticsearch.ingest.IngestService;
+import org.elasticsearch.ingest.geoip.stats.GeoIpCacheStats;
 import org.elasticsearch.persistent.PersistentTasksCustomMetadata;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.watcher.ResourceWatcherService;
@@ -425,6 +426,10 @@ public final class DatabaseNodeService implements Closeable {
         return configDatabases.getConfigDatabases().keySet();
     }
 
+    public Map<String, GeoIpCacheStats> getCacheStats() {
+        return cache.getStats();
+    }
+
     public Set<String> getFilesInTemp() {
         try (Stream<Path> files = Files.list(geoipTmpDirectory)) {
             return files.map(Path::getFileName).map(Path::toString).collect(Collectors.toSet());
@@ -7,15 +7,27 @@
  */
 package org.elasticsearch.ingest.geoip;
 
+import com.maxmind.db.Network;
 import com.maxmind.db.NodeCache;
+import com.maxmind.geoip2.model.AbstractCountryResponse;
 import com.maxmind.geoip2.model.AbstractResponse;
+import com.maxmind.geoip2.model.AsnResponse;
 
-import org.elasticsearch.common.cache.Cache;
-import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.core.PathUtils;
+import org.elasticsearch.ingest.geoip.stats.GeoIpCacheStats;
 
+import java.net.Inet4Address;
 import java.net.InetAddress;
 import java.nio.file.Path;
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
 import java.util.function.Function;
 
 /**
@@ -23,16 +35,47 @@ import java.util.function.Function;
  * This cache differs from the maxmind's {@link NodeCache} such that this cache stores the deserialized Json objects to avoid the
  * cost of deserialization for each lookup (cached or not). This comes at slight expense of higher memory usage, but significant
  * reduction of CPU usage.
+ * <p>
+ * Since every address of the network that a MaxMind record was found for gets the same record, the response is cached for the whole
+ * network so that a single lookup covers all the addresses of the network. Addresses that are not in the database are cached too, since
+ * unroutable and private addresses are common and would otherwise go to the database every time.
+ * <p>
+ * The entries are spread over stripes that each have an open addressing hash table keyed by the address, packed into two longs, and
+ * are evicted with the CLOCK algorithm. Lookups do not take any lock unless they race with a modification of their stripe.
  */
 final class GeoIpCache {
-    private final Cache<CacheKey, AbstractResponse> cache;
+
+    // the cache is split in one stripe per this many entries, up to MAX_STRIPES
+    static final int ENTRIES_PER_STRIPE = 64;
+    static final int MAX_STRIPES = 64;
+    private static final long MAX_SIZE = 1L << 28;
+    private static final int MIN_TABLE_LENGTH = 16;
+
+    // the value of the entries of the addresses that are not in the database
+    private static final Object NOT_FOUND = new Object();
+    private static final int IPV4_BITS = 32;
+    private static final int IPV6_BITS = 128;
+    // added to the prefix length of the keys of IPv6 addresses, so that IPv4 and IPv6 networks never collide
+    private static final int IPV6_FLAG = 1 << 8;
+
+    private final Stripe[] stripes;
+    private final int stripeShift;
+    private final Map<String, Database> databases = ConcurrentCollections.newConcurrentMap();
+    private final Map<String, Stats> stats = ConcurrentCollections.newConcurrentMap();
+    private final AtomicInteger databaseIds = new AtomicInteger();
 
     // package private for testing
     GeoIpCache(long maxSize) {
         if (maxSize < 0) {
             throw new IllegalArgumentException("geoip max cache size must be 0 or greater");
         }
-        this.cache = CacheBuilder.<CacheKey, AbstractResponse>builder().setMaximumWeight(maxSize).build();
+        maxSize = Math.min(maxSize, MAX_SIZE);
+        final int numStripes = Integer.highestOneBit((int) Math.max(1, Math.min(MAX_STRIPES, maxSize / ENTRIES_PER_STRIPE)));
+        this.stripes = new Stripe[numStripes];
+        for (int i = 0; i < numStripes; i++) {
+            stripes[i] = new Stripe((int) (maxSize / numStripes + (i < maxSize % numStripes ? 1 : 0)));
+        }
+        this.stripeShift = Integer.SIZE - Integer.numberOfTrailingZeros(numStripes);
     }
 
     @SuppressWarnings("unchecked")
@@ -41,70 +84,436 @@ final class GeoIpCache {
         String databasePath,
         Function<InetAddress, AbstractResponse> retrieveFunction
     ) {
-
-        // can't use cache.computeIfAbsent due to the elevated permissions for the jackson (run via the cache loader)
-        CacheKey cacheKey = new CacheKey(ip, databasePath);
-        // intentionally non-locking for simplicity...it's OK if we re-put the same key/value in the cache during a race condition.
-        AbstractResponse response = cache.get(cacheKey);
-        if (response == null) {
-            response = retrieveFunction.apply(ip);
-            if (response != null) {
-                cache.put(cacheKey, response);
-            }
+        final Database database = database(databasePath);
+        final Object cached = lookup(database, ip);
+        if (cached != null) {
+            database.stats.hits.increment();
+            return cached == NOT_FOUND ? null : (T) cached;
         }
+        database.stats.misses.increment();
+        // intentionally non-locking for simplicity...it's OK if we re-put the same key/value in the cache during a race condition.
+        final AbstractResponse response = retrieveFunction.apply(ip);
+        put(database, ip, response);
         return (T) response;
     }
 
     // only useful for testing
     AbstractResponse get(InetAddress ip, String databasePath) {
-        CacheKey cacheKey = new CacheKey(ip, databasePath);
-        return cache.get(cacheKey);
+        final Object cached = lookup(database(databasePath), ip);
+        return cached == NOT_FOUND ? null : (AbstractResponse) cached;
     }
 
     public int purgeCacheEntriesForDatabase(Path databaseFile) {
-        String databasePath = databaseFile.toString();
+        final Database database = databases.remove(databaseFile.toString());
+        if (database == null) {
+            return 0;
+        }
         int counter = 0;
-        for (CacheKey key : cache.keys()) {
-            if (key.databasePath.equals(databasePath)) {
-                cache.invalidate(key);
-                counter++;
-            }
+        for (Stripe stripe : stripes) {
+            counter += stripe.removeAll(database);
         }
         return counter;
     }
 
     public int count() {
-        return cache.count();
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            count += stripe.size();
+        }
+        return count;
+    }
+
+    /**
+     * @return the statistics of the cache for each database file name, since the node started
+     */
+    public Map<String, GeoIpCacheStats> getStats() {
+        final Map<String, GeoIpCacheStats> result = new TreeMap<>();
+        stats.forEach((name, s) -> result.put(name, new GeoIpCacheStats(s.hits.sum(), s.misses.sum(), s.evictions.sum())));
+        return result;
+    }
+
+    private Database database(String databasePath) {
+        final Database database = databases.get(databasePath);
+        if (database != null) {
+            return database;
+        }
+        return databases.computeIfAbsent(databasePath, path -> {
+            final String name = PathUtils.get(path).getFileName().toString();
+            return new Database(databaseIds.incrementAndGet(), stats.computeIfAbsent(name, n -> new Stats()));
+        });
     }
 
     /**
-     * The key to use for the cache. Since this cache can span multiple geoip processors that all use different databases, the database
-     * path is needed to be included in the cache key. For example, if we only used the IP address as the key the City and ASN the same
-     * IP may be in both with different values and we need to cache both.
+     * @return the cached value for the given address, {@link #NOT_FOUND} if it is known not to be in the database, or {@code null} if it
+     *         is not cached
      */
-    private static class CacheKey {
+    private Object lookup(Database database, InetAddress ip) {
+        final byte[] address = ip.getAddress();
+        final boolean ipv6 = address.length != 4;
+        final long high = ipv6 ? pack(address, 0) : 0L;
+        final long low = ipv6 ? pack(address, 8) : pack(address, 0) >>> IPV4_BITS;
+        final int bits = ipv6 ? IPV6_BITS : IPV4_BITS;
+        final Object value = get(database, high, low, bits, ipv6);
+        if (value != null) {
+            return value;
+        }
+        // then the networks that may contain the address, from the most specific one
+        if (ipv6 == false) {
+            return lookupNetworks(database, high, low, database.prefixLengths.get(0), 0, false);
+        }
+        final Object networkValue = lookupNetworks(database, high, low, database.prefixLengths.get(1), Long.SIZE, true);
+        return networkValue != null ? networkValue : lookupNetworks(database, high, low, database.prefixLengths.get(2), 0, true);
+    }
+
+    private Object lookupNetworks(Database database, long high, long low, long prefixLengths, int offset, boolean ipv6) {
+        for (long remaining = prefixLengths; remaining != 0; remaining &= ~Long.highestOneBit(remaining)) {
+            final int prefixLength = offset + Long.SIZE - 1 - Long.numberOfLeadingZeros(remaining);
+            final Object value = get(database, maskHigh(high, prefixLength, ipv6), maskLow(low, prefixLength, ipv6), prefixLength, ipv6);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private void put(Database database, InetAddress ip, AbstractResponse response) {
+        final byte[] address = ip.getAddress();
+        final boolean ipv6 = address.length != 4;
+        final long high = ipv6 ? pack(address, 0) : 0L;
+        final long low = ipv6 ? pack(address, 8) : pack(address, 0) >>> IPV4_BITS;
+        final int bits = ipv6 ? IPV6_BITS : IPV4_BITS;
+        final Network network = response == null ? null : network(response);
+        if (network != null && (network.getNetworkAddress() instanceof Inet4Address) != ipv6) {
+            final int prefixLength = network.getPrefixLength();
+            if (prefixLength >= 0 && prefixLength < bits) {
+                final byte[] networkAddress = network.getNetworkAddress().getAddress();
+                final long networkHigh = ipv6 ? pack(networkAddress, 0) : 0L;
+                final long networkLow = ipv6 ? pack(networkAddress, 8) : pack(networkAddress, 0) >>> IPV4_BITS;
+                // only trust the network if it contains the address
+                if (maskHigh(high, prefixLength, ipv6) == maskHigh(networkHigh, prefixLength, ipv6)
+                    && maskLow(low, prefixLength, ipv6) == maskLow(networkLow, prefixLength, ipv6)) {
+                    put(database, maskHigh(high, prefixLength, ipv6), maskLow(low, prefixLength, ipv6), prefixLength, ipv6, response);
+                    database.addPrefixLength(prefixLength, ipv6);
+                    return;
+                }
+            }
+        }
+        put(database, high, low, bits, ipv6, response == null ? NOT_FOUND : response);
+    }
+
+    private Object get(Database database, long high, long low, int prefixLength, boolean ipv6) {
+        final int key = key(prefixLength, ipv6);
+        final int hash = hash(database, high, low, key);
+        return stripe(hash).get(database, high, low, key, hash);
+    }
+
+    private void put(Database database, long high, long low, int prefixLength, boolean ipv6, Object value) {
+        final int key = key(prefixLength, ipv6);
+        final int hash = hash(database, high, low, key);
+        stripe(hash).put(database, high, low, key, hash, value);
+    }
+
+    private Stripe stripe(int hash) {
+        return stripes.length == 1 ? stripes[0] : stripes[hash >>> stripeShift];
+    }
+
+    private static int key(int prefixLength, boolean ipv6) {
+        return ipv6 ? prefixLength | IPV6_FLAG : prefixLength;
+    }
+
+    private static int hash(Database database, long high, long low, int key) {
+        final long hash = mix(low ^ mix(high ^ (((long) database.id << Integer.SIZE) | key)));
+        return (int) (hash ^ (hash >>> Integer.SIZE));
+    }
 
-        private final InetAddress ip;
-        private final String databasePath;
+    // the finalization step of MurmurHash3
+    private static long mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
 
-        private CacheKey(InetAddress ip, String databasePath) {
-            this.ip = ip;
-            this.databasePath = databasePath;
+    private static long pack(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < Math.min(bytes.length, offset + Long.BYTES); i++) {
+            value = (value << Byte.SIZE) | (bytes[i] & 0xFF);
         }
+        return value << (Byte.SIZE * Math.max(0, offset + Long.BYTES - bytes.length));
+    }
 
-        // generated
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            CacheKey cacheKey = (CacheKey) o;
-            return Objects.equals(ip, cacheKey.ip) && Objects.equals(databasePath, cacheKey.databasePath);
+    private static long maskHigh(long high, int prefixLength, boolean ipv6) {
+        if (ipv6 == false || prefixLength >= Long.SIZE) {
+            return high;
         }
+        return prefixLength == 0 ? 0L : high & (-1L << (Long.SIZE - prefixLength));
+    }
 
-        // generated
-        @Override
-        public int hashCode() {
-            return Objects.hash(ip, databasePath);
+    private static long maskLow(long low, int prefixLength, boolean ipv6) {
+        final int lowBits = ipv6 ? prefixLength - Long.SIZE : prefixLength;
+        final int width = ipv6 ? Long.SIZE : IPV4_BITS;
+        if (lowBits <= 0) {
+            return 0L;
+        }
+        return low & (-1L << (width - lowBits));
+    }
+
+    private static Network network(AbstractResponse response) {
+        if (response instanceof AbstractCountryResponse countryResponse) {
+            return countryResponse.getTraits() == null ? null : countryResponse.getTraits().getNetwork();
+        } else if (response instanceof AsnResponse asnResponse) {
+            return asnResponse.getNetwork();
+        }
+        return null;
+    }
+
+    private static final class Stats {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+    }
+
+    /**
+     * A database file, whose entries are removed all at once when the file is reloaded. Databases with the same file name share their
+     * statistics, so that they survive the updates of the database.
+     */
+    private static final class Database {
+        private final int id;
+        private final Stats stats;
+        // the prefix lengths of the cached networks: of IPv4 networks, of IPv6 networks longer than 64 bits, and of the other ones
+        private final AtomicLongArray prefixLengths = new AtomicLongArray(3);
+
+        private Database(int id, Stats stats) {
+            this.id = id;
+            this.stats = stats;
+        }
+
+        private void addPrefixLength(int prefixLength, boolean ipv6) {
+            final int index = ipv6 == false ? 0 : prefixLength >= Long.SIZE ? 1 : 2;
+            final long bit = 1L << (prefixLength % Long.SIZE);
+            if ((prefixLengths.get(index) & bit) == 0) {
+                prefixLengths.getAndAccumulate(index, bit, (current, added) -> current | added);
+            }
+        }
+    }
+
+    /**
+     * The arrays of an open addressing hash table with linear probing. Tables are replaced rather than resized so that lookups always
+     * see arrays of the same length.
+     */
+    private static final class Table {
+        private final Database[] databases;
+        private final long[] highs;
+        private final long[] lows;
+        private final int[] keys;
+        private final int[] hashes;
+        private final Object[] values;
+        private final boolean[] referenced;
+        private final int mask;
+
+        private Table(int length) {
+            databases = new Database[length];
+            highs = new long[length];
+            lows = new long[length];
+            keys = new int[length];
+            hashes = new int[length];
+            values = new Object[length];
+            referenced = new boolean[length];
+            mask = length - 1;
+        }
+
+        private int find(Database database, long high, long low, int key, int hash) {
+            for (int i = hash & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+                final Database candidate = databases[i];
+                if (candidate == null) {
+                    return -1 - i;
+                }
+                if (candidate == database && hashes[i] == hash && highs[i] == high && lows[i] == low && keys[i] == key) {
+                    return i;
+                }
+            }
+            return -1 - (hash & mask);
+        }
+
+        private void set(int i, Database database, long high, long low, int key, int hash, Object value) {
+            databases[i] = database;
+            highs[i] = high;
+            lows[i] = low;
+            keys[i] = key;
+            hashes[i] = hash;
+            values[i] = value;
+            referenced[i] = false;
+        }
+
+        private void copy(int i, Table other) {
+            final int slot = -1 - other.find(databases[i], highs[i], lows[i], keys[i], hashes[i]);
+            other.set(slot, databases[i], highs[i], lows[i], keys[i], hashes[i], values[i]);
+        }
+
+        private void move(int from, int to) {
+            set(to, databases[from], highs[from], lows[from], keys[from], hashes[from], values[from]);
+            referenced[to] = referenced[from];
+        }
+
+        /**
+         * Removes the entry at the given slot, and moves back the entries of the same probe sequence so that lookups still find them.
+         */
+        private void remove(int i) {
+            int j = i;
+            while (true) {
+                j = (j + 1) & mask;
+                if (databases[j] == null) {
+                    break;
+                }
+                final int home = hashes[j] & mask;
+                // the entry at j can fill the hole at i unless its home slot lies cyclically in (i, j]
+                final boolean stays = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+                if (stays == false) {
+                    move(j, i);
+                    i = j;
+                }
+            }
+            set(i, null, 0L, 0L, 0, 0, null);
+        }
+    }
+
+    /**
+     * A part of the cache with its own lock and its own bound on the number of entries.
+     */
+    private static final class Stripe {
+        private final StampedLock lock = new StampedLock();
+        private final int maxEntries;
+        private final int maxTableLength;
+        private volatile Table table;
+        private int size;
+        private int clockHand;
+
+        private Stripe(int maxEntries) {
+            this.maxEntries = maxEntries;
+            // a load factor of at most one half keeps the probe sequences short
+            this.maxTableLength = Math.max(MIN_TABLE_LENGTH, Integer.highestOneBit(Math.max(1, maxEntries) * 2 - 1) << 1);
+            this.table = new Table(Math.min(MIN_TABLE_LENGTH, maxTableLength));
+        }
+
+        private Object get(Database database, long high, long low, int key, int hash) {
+            final long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                final Object value = doGet(database, high, low, key, hash);
+                if (lock.validate(stamp)) {
+                    return value;
+                }
+            }
+            final long readStamp = lock.readLock();
+            try {
+                return doGet(database, high, low, key, hash);
+            } finally {
+                lock.unlockRead(readStamp);
+            }
+        }
+
+        private Object doGet(Database database, long high, long low, int key, int hash) {
+            final Table t = table;
+            final int i = t.find(database, high, low, key, hash);
+            if (i < 0) {
+                return null;
+            }
+            // racy, but it only makes the entry less likely to be evicted
+            t.referenced[i] = true;
+            return t.values[i];
+        }
+
+        private void put(Database database, long high, long low, int key, int hash, Object value) {
+            if (maxEntries == 0) {
+                return;
+            }
+            final long stamp = lock.writeLock();
+            try {
+                int i = table.find(database, high, low, key, hash);
+                if (i >= 0) {
+                    table.values[i] = value;
+                    return;
+                }
+                if (size >= maxEntries) {
+                    evict();
+                } else if (size + 1 > table.databases.length / 2 && table.databases.length < maxTableLength) {
+                    grow();
+                }
+                i = -1 - table.find(database, high, low, key, hash);
+                table.set(i, database, high, low, key, hash, value);
+                size++;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private void evict() {
+            final Table t = table;
+            while (true) {
+                final int i = clockHand;
+                clockHand = (clockHand + 1) & t.mask;
+                if (t.databases[i] == null) {
+                    continue;
+                }
+                if (t.referenced[i]) {
+                    t.referenced[i] = false;
+                    continue;
+                }
+                t.databases[i].stats.evictions.increment();
+                t.remove(i);
+                size--;
+                return;
+            }
+        }
+
+        private void grow() {
+            final Table previous = table;
+            final Table grown = new Table(previous.databases.length * 2);
+            for (int i = 0; i < previous.databases.length; i++) {
+                if (previous.databases[i] != null) {
+                    previous.copy(i, grown);
+                }
+            }
+            clockHand = 0;
+            table = grown;
+        }
+
+        private int removeAll(Database database) {
+            final long stamp = lock.writeLock();
+            try {
+                final Table t = table;
+                final List<Integer> kept = new ArrayList<>();
+                int removed = 0;
+                for (int i = 0; i < t.databases.length; i++) {
+                    if (t.databases[i] == database) {
+                        removed++;
+                    } else if (t.databases[i] != null) {
+                        kept.add(i);
+                    }
+                }
+                if (removed > 0) {
+                    final Table rebuilt = new Table(t.databases.length);
+                    for (int i : kept) {
+                        t.copy(i, rebuilt);
+                    }
+                    size -= removed;
+                    clockHand = 0;
+                    table = rebuilt;
+                }
+                return removed;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private int size() {
+            final long stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
         }
     }
 }
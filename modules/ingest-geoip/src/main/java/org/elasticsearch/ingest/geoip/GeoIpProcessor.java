@@ -18,16 +18,21 @@ import com.maxmind.geoip2.record.Country;
 import com.maxmind.geoip2.record.Location;
 import com.maxmind.geoip2.record.Subdivision;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.ResourceNotFoundException;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.TriConsumer;
 import org.elasticsearch.common.logging.DeprecationCategory;
 import org.elasticsearch.common.logging.DeprecationLogger;
 import org.elasticsearch.common.logging.HeaderWarning;
 import org.elasticsearch.common.network.InetAddresses;
 import org.elasticsearch.common.network.NetworkAddress;
+import org.elasticsearch.core.CheckedFunction;
 import org.elasticsearch.ingest.AbstractProcessor;
 import org.elasticsearch.ingest.IngestDocument;
 import org.elasticsearch.ingest.Processor;
@@ -54,6 +59,7 @@ import static org.elasticsearch.persistent.PersistentTasksCustomMetadata.getTask
 
 public final class GeoIpProcessor extends AbstractProcessor {
 
+    private static final Logger logger = LogManager.getLogger(GeoIpProcessor.class);
     private static final DeprecationLogger DEPRECATION_LOGGER = DeprecationLogger.getLogger(GeoIpProcessor.class);
     static final String DEFAULT_DATABASES_DEPRECATION_MESSAGE = "the [fallback_to_default_databases] has been deprecated, because "
         + "Elasticsearch no longer includes the default Maxmind geoip databases. This setting will be removed in Elasticsearch 9.0";
@@ -131,8 +137,67 @@ public final class GeoIpProcessor extends AbstractProcessor {
             return ingestDocument;
         }
 
+        return setGeoData(ingestDocument, ip, ipAddr -> getGeoData(lazyLoader, ipAddr));
+    }
+
+    /**
+     * Checks whether the database is valid and gets hold of it once for all documents rather than for each of them, and looks up each
+     * distinct ip address only once.
+     */
+    @Override
+    public void executeBatch(List<IngestDocument> ingestDocuments, TriConsumer<Integer, IngestDocument, Exception> handler) {
+        final IngestDocument[] results = new IngestDocument[ingestDocuments.size()];
+        final Exception[] failures = new Exception[ingestDocuments.size()];
+        final boolean valid = isValid.get();
+        final BatchLookup lookup = new BatchLookup();
+        for (int i = 0; i < ingestDocuments.size(); i++) {
+            final IngestDocument ingestDocument = ingestDocuments.get(i);
+            try {
+                Object ip = ingestDocument.getFieldValue(field, Object.class, ignoreMissing);
+                if (valid == false) {
+                    ingestDocument.appendFieldValue("tags", "_geoip_expired_database", false);
+                } else if (ip == null && ignoreMissing == false) {
+                    throw new IllegalArgumentException("field [" + field + "] is null, cannot extract geoip information.");
+                } else if (ip != null) {
+                    if (lookup.lazyLoader() == null) {
+                        tag(ingestDocument, databaseFile);
+                    } else {
+                        setGeoData(ingestDocument, ip, lookup::getGeoData);
+                    }
+                }
+                results[i] = ingestDocument;
+            } catch (Exception e) {
+                failures[i] = e;
+            }
+        }
+
+        try {
+            lookup.release();
+        } catch (IOException e) {
+            // the lookups are all done, this only fails to close a database that was replaced in the meantime
+            logger.warn(new ParameterizedMessage("failed to release database [{}] after a batch of lookups", databaseFile), e);
+        }
+        for (int i = 0; i < results.length; i++) {
+            if (failures[i] != null) {
+                handler.apply(i, null, failures[i]);
+            } else {
+                handler.apply(i, results[i], null);
+            }
+        }
+    }
+
+    @Override
+    public boolean supportsBatchExecution() {
+        return true;
+    }
+
+    private IngestDocument setGeoData(
+        IngestDocument ingestDocument,
+        Object ip,
+        CheckedFunction<String, Map<String, Object>, IOException> lookup
+    ) throws IOException {
         if (ip instanceof String ipString) {
-            Map<String, Object> geoData = getGeoData(lazyLoader, ipString);
+            Map<String, Object> geoData = lookup.apply(ipString);
             if (geoData.isEmpty() == false) {
                 ingestDocument.setFieldValue(targetField, geoData);
             }
@@ -143,7 +208,7 @@ public final class GeoIpProcessor extends AbstractProcessor {
                 if (ipAddr instanceof String == false) {
                     throw new IllegalArgumentException("array in field [" + field + "] should only contain strings");
                 }
-                Map<String, Object> geoData = getGeoData(lazyLoader, (String) ipAddr);
+                Map<String, Object> geoData = lookup.apply((String) ipAddr);
                 if (geoData.isEmpty()) {
                     geoDataList.add(null);
                     continue;
@@ -164,31 +229,69 @@ public final class GeoIpProcessor extends AbstractProcessor {
         return ingestDocument;
     }
 
-    private Map<String, Object> getGeoData(DatabaseReaderLazyLoader lazyLoader, String ip) throws IOException {
-        try {
-            final String databaseType = lazyLoader.getDatabaseType();
-            final InetAddress ipAddress = InetAddresses.forString(ip);
-            Map<String, Object> geoData;
-            if (databaseType.endsWith(CITY_DB_SUFFIX)) {
-                geoData = retrieveCityGeoData(lazyLoader, ipAddress);
-            } else if (databaseType.endsWith(COUNTRY_DB_SUFFIX)) {
-                geoData = retrieveCountryGeoData(lazyLoader, ipAddress);
+    /**
+     * The database and the geo data that were looked up for a batch of documents. The database is only acquired once a document
+     * needs it, and is held until the whole batch is processed.
+     */
+    private final class BatchLookup {
+        private final Map<String, Map<String, Object>> geoDataByIp = new HashMap<>();
+        private DatabaseReaderLazyLoader lazyLoader;
+        private boolean acquired;
+
+        DatabaseReaderLazyLoader lazyLoader() throws IOException {
+            if (acquired == false) {
+                lazyLoader = supplier.get();
+                acquired = true;
+            }
+            return lazyLoader;
+        }
 
-            } else if (databaseType.endsWith(ASN_DB_SUFFIX)) {
-                geoData = retrieveAsnGeoData(lazyLoader, ipAddress);
+        Map<String, Object> getGeoData(String ip) throws IOException {
+            Map<String, Object> geoData = geoDataByIp.get(ip);
+            if (geoData == null) {
+                geoData = retrieveGeoData(lazyLoader(), ip);
+                geoDataByIp.put(ip, geoData);
+            }
+            // each document gets its own copy since the geo data can be modified by the processors that come next
+            return IngestDocument.deepCopyMap(geoData);
+        }
 
-            } else {
-                throw new ElasticsearchParseException(
-                    "Unsupported database type [" + lazyLoader.getDatabaseType() + "]",
-                    new IllegalStateException()
-                );
+        void release() throws IOException {
+            if (lazyLoader != null) {
+                lazyLoader.postLookup();
             }
-            return geoData;
+        }
+    }
+
+    private Map<String, Object> getGeoData(DatabaseReaderLazyLoader lazyLoader, String ip) throws IOException {
+        try {
+            return retrieveGeoData(lazyLoader, ip);
         } finally {
             lazyLoader.postLookup();
         }
     }
 
+    private Map<String, Object> retrieveGeoData(DatabaseReaderLazyLoader lazyLoader, String ip) throws IOException {
+        final String databaseType = lazyLoader.getDatabaseType();
+        final InetAddress ipAddress = InetAddresses.forString(ip);
+        Map<String, Object> geoData;
+        if (databaseType.endsWith(CITY_DB_SUFFIX)) {
+            geoData = retrieveCityGeoData(lazyLoader, ipAddress);
+        } else if (databaseType.endsWith(COUNTRY_DB_SUFFIX)) {
+            geoData = retrieveCountryGeoData(lazyLoader, ipAddress);
+
+        } else if (databaseType.endsWith(ASN_DB_SUFFIX)) {
+            geoData = retrieveAsnGeoData(lazyLoader, ipAddress);
+
+        } else {
+            throw new ElasticsearchParseException(
+                "Unsupported database type [" + lazyLoader.getDatabaseType() + "]",
+                new IllegalStateException()
+            );
+        }
+        return geoData;
+    }
+
     @Override
     public String getType() {
         return TYPE;
@@ -114,7 +114,10 @@ public class GeoIpDownloaderStatsAction extends ActionType<GeoIpDownloaderStatsA
             builder.startObject("nodes");
             for (Map.Entry<String, NodeResponse> e : getNodesMap().entrySet()) {
                 NodeResponse response = e.getValue();
-                if (response.filesInTemp.isEmpty() && response.databases.isEmpty() && response.configDatabases.isEmpty()) {
+                if (response.filesInTemp.isEmpty()
+                    && response.databases.isEmpty()
+                    && response.configDatabases.isEmpty()
+                    && response.cacheStats.isEmpty()) {
                     continue;
                 }
                 builder.startObject(e.getKey());
@@ -133,6 +136,13 @@ public class GeoIpDownloaderStatsAction extends ActionType<GeoIpDownloaderStatsA
                 if (response.configDatabases.isEmpty() == false) {
                     builder.array("config_databases", response.configDatabases.toArray(String[]::new));
                 }
+                if (response.cacheStats.isEmpty() == false) {
+                    builder.startObject("cache");
+                    for (Map.Entry<String, GeoIpCacheStats> cacheStats : response.cacheStats.entrySet()) {
+                        builder.field(cacheStats.getKey(), cacheStats.getValue());
+                    }
+                    builder.endObject();
+                }
                 builder.endObject();
             }
             builder.endObject();
@@ -160,6 +170,7 @@ public class GeoIpDownloaderStatsAction extends ActionType<GeoIpDownloaderStatsA
         private final Set<String> databases;
         private final Set<String> filesInTemp;
         private final Set<String> configDatabases;
+        private final Map<String, GeoIpCacheStats> cacheStats;
 
         protected NodeResponse(StreamInput in) throws IOException {
             super(in);
@@ -167,6 +178,7 @@ public class GeoIpDownloaderStatsAction extends ActionType<GeoIpDownloaderStatsA
             databases = in.readSet(StreamInput::readString);
             filesInTemp = in.readSet(StreamInput::readString);
             configDatabases = in.getVersion().onOrAfter(Version.V_8_0_0) ? in.readSet(StreamInput::readString) : null;
+            cacheStats = in.getVersion().onOrAfter(Version.V_8_2_0) ? in.readMap(StreamInput::readString, GeoIpCacheStats::new) : Map.of();
         }
 
         protected NodeResponse(
@@ -174,13 +186,15 @@ public class GeoIpDownloaderStatsAction extends ActionType<GeoIpDownloaderStatsA
             GeoIpDownloaderStats stats,
             Set<String> databases,
             Set<String> filesInTemp,
-            Set<String> configDatabases
+            Set<String> configDatabases,
+            Map<String, GeoIpCacheStats> cacheStats
         ) {
             super(node);
             this.stats = stats;
             this.databases = databases;
             this.filesInTemp = filesInTemp;
             this.configDatabases = configDatabases;
+            this.cacheStats = cacheStats;
         }
 
         public GeoIpDownloaderStats getStats() {
@@ -199,6 +213,10 @@ public class GeoIpDownloaderStatsAction extends ActionType<GeoIpDownloaderStatsA
             return configDatabases;
         }
 
+        public Map<String, GeoIpCacheStats> getCacheStats() {
+            return cacheStats;
+        }
+
         @Override
         public void writeTo(StreamOutput out) throws IOException {
             super.writeTo(out);
@@ -211,6 +229,9 @@ public class GeoIpDownloaderStatsAction extends ActionType<GeoIpDownloaderStatsA
             if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
                 out.writeCollection(configDatabases, StreamOutput::writeString);
             }
+            if (out.getVersion().onOrAfter(Version.V_8_2_0)) {
+                out.writeMap(cacheStats, StreamOutput::writeString, (o, v) -> v.writeTo(o));
+            }
         }
 
         @Override
@@ -221,12 +242,13 @@ public class GeoIpDownloaderStatsAction extends ActionType<GeoIpDownloaderStatsA
             return stats.equals(that.stats)
                 && databases.equals(that.databases)
                 && filesInTemp.equals(that.filesInTemp)
-                && Objects.equals(configDatabases, that.configDatabases);
+                && Objects.equals(configDatabases, that.configDatabases)
+                && cacheStats.equals(that.cacheStats);
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(stats, databases, filesInTemp, configDatabases);
+            return Objects.hash(stats, databases, filesInTemp, configDatabases, cacheStats);
         }
     }
 }
@@ -8,12 +8,22 @@
 
 package org.elasticsearch.ingest.geoip;
 
+import com.maxmind.db.Network;
 import com.maxmind.geoip2.model.AbstractResponse;
+import com.maxmind.geoip2.model.AsnResponse;
 
 import org.elasticsearch.common.network.InetAddresses;
+import org.elasticsearch.core.PathUtils;
+import org.elasticsearch.ingest.geoip.stats.GeoIpCacheStats;
 import org.elasticsearch.test.ESTestCase;
 
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class GeoIpCacheTests extends ESTestCase {
 
@@ -47,6 +57,68 @@ public class GeoIpCacheTests extends ESTestCase {
         assertSame(response2, cache.get(InetAddresses.forString("127.0.0.1"), "path/to/db2"));
     }
 
+    public void testCachesNotFound() {
+        GeoIpCache cache = new GeoIpCache(1);
+        AtomicInteger lookups = new AtomicInteger();
+        assertNull(cache.putIfAbsent(InetAddresses.forString("127.0.0.1"), "path/to/db", ip -> {
+            lookups.incrementAndGet();
+            return null;
+        }));
+        assertNull(cache.putIfAbsent(InetAddresses.forString("127.0.0.1"), "path/to/db", ip -> { throw new AssertionError(); }));
+        assertEquals(1, lookups.get());
+        assertEquals(1, cache.count());
+    }
+
+    public void testCachesNetworks() {
+        GeoIpCache cache = new GeoIpCache(randomIntBetween(1, 1000));
+        AsnResponse response = mock(AsnResponse.class);
+        when(response.getNetwork()).thenReturn(new Network(InetAddresses.forString("82.168.0.0"), 14));
+
+        assertSame(response, cache.putIfAbsent(InetAddresses.forString("82.171.64.1"), "path/to/db", ip -> response));
+        // any address of the network is served from the cache
+        assertSame(response, cache.putIfAbsent(InetAddresses.forString("82.168.1.1"), "path/to/db", ip -> { throw new AssertionError(); }));
+        assertSame(response, cache.get(InetAddresses.forString("82.171.255.255"), "path/to/db"));
+        assertNull(cache.get(InetAddresses.forString("82.172.0.0"), "path/to/db"));
+        assertNull(cache.get(InetAddresses.forString("82.168.1.1"), "path/to/other_db"));
+        assertEquals(1, cache.count());
+
+        // a network that does not contain the address is not trusted
+        AsnResponse other = mock(AsnResponse.class);
+        when(other.getNetwork()).thenReturn(new Network(InetAddresses.forString("10.0.0.0"), 8));
+        assertSame(other, cache.putIfAbsent(InetAddresses.forString("192.168.0.1"), "path/to/db", ip -> other));
+        assertNull(cache.get(InetAddresses.forString("10.0.0.1"), "path/to/db"));
+    }
+
+    public void testStats() {
+        GeoIpCache cache = new GeoIpCache(1);
+        AbstractResponse response = mock(AbstractResponse.class);
+        cache.putIfAbsent(InetAddresses.forString("127.0.0.1"), "path/to/db1.mmdb", ip -> response);
+        cache.putIfAbsent(InetAddresses.forString("127.0.0.1"), "path/to/db1.mmdb", ip -> response);
+        cache.putIfAbsent(InetAddresses.forString("127.0.0.2"), "path/to/db1.mmdb", ip -> response);
+        cache.putIfAbsent(InetAddresses.forString("127.0.0.1"), "other/path/to/db2.mmdb", ip -> response);
+
+        Map<String, GeoIpCacheStats> stats = cache.getStats();
+        assertThat(stats.keySet(), contains("db1.mmdb", "db2.mmdb"));
+        // evictions are accounted to the database of the evicted entry
+        assertThat(stats.get("db1.mmdb"), equalTo(new GeoIpCacheStats(1, 2, 2)));
+        assertThat(stats.get("db2.mmdb"), equalTo(new GeoIpCacheStats(0, 1, 0)));
+    }
+
+    public void testPurgeCacheEntriesForDatabase() {
+        GeoIpCache cache = new GeoIpCache(10);
+        AbstractResponse response = mock(AbstractResponse.class);
+        cache.putIfAbsent(InetAddresses.forString("127.0.0.1"), "path/to/db1.mmdb", ip -> response);
+        cache.putIfAbsent(InetAddresses.forString("127.0.0.2"), "path/to/db1.mmdb", ip -> response);
+        cache.putIfAbsent(InetAddresses.forString("::1"), "path/to/db1.mmdb", ip -> null);
+        cache.putIfAbsent(InetAddresses.forString("127.0.0.1"), "path/to/db2.mmdb", ip -> response);
+        assertEquals(4, cache.count());
+
+        assertEquals(3, cache.purgeCacheEntriesForDatabase(PathUtils.get("path/to/db1.mmdb")));
+        assertEquals(1, cache.count());
+        assertNull(cache.get(InetAddresses.forString("127.0.0.1"), "path/to/db1.mmdb"));
+        assertSame(response, cache.get(InetAddresses.forString("127.0.0.1"), "path/to/db2.mmdb"));
+    }
+
     public void testThrowsFunctionsException() {
         GeoIpCache cache = new GeoIpCache(1);
         IllegalArgumentException ex = expectThrows(
@@ -18,12 +18,14 @@ import org.elasticsearch.test.ESTestCase;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 import static org.elasticsearch.ingest.IngestDocumentMatcher.assertIngestDocument;
@@ -500,6 +502,55 @@ public class GeoIpProcessorTests extends ESTestCase {
         assertThat(ingestDocument.getSourceAndMetadata(), hasEntry("tags", List.of("_geoip_expired_database")));
     }
 
+    public void testExecuteBatch() throws Exception {
+        final CheckedSupplier<DatabaseReaderLazyLoader, IOException> loader = loader("/GeoLite2-City.mmdb");
+        final AtomicInteger acquisitions = new AtomicInteger();
+        final GeoIpProcessor processor = new GeoIpProcessor(
+            randomAlphaOfLength(10),
+            null,
+            "source_field",
+            () -> {
+                acquisitions.incrementAndGet();
+                return loader.get();
+            },
+            () -> true,
+            "target_field",
+            EnumSet.allOf(GeoIpProcessor.Property.class),
+            false,
+            false,
+            "filename"
+        );
+        assertTrue(processor.supportsBatchExecution());
+
+        final List<IngestDocument> ingestDocuments = new ArrayList<>();
+        ingestDocuments.add(RandomDocumentPicks.randomIngestDocument(random(), Map.of("source_field", "8.8.8.8")));
+        ingestDocuments.add(RandomDocumentPicks.randomIngestDocument(random(), Map.of("source_field", "8.8.8.8")));
+        ingestDocuments.add(RandomDocumentPicks.randomIngestDocument(random(), Map.of("source_field", List.of("8.8.8.8", "127.0.0.1"))));
+        ingestDocuments.add(RandomDocumentPicks.randomIngestDocument(random(), Collections.singletonMap("source_field", null)));
+        final List<IngestDocument> expected = new ArrayList<>();
+        for (IngestDocument ingestDocument : ingestDocuments.subList(0, 3)) {
+            expected.add(processor.execute(new IngestDocument(ingestDocument)));
+        }
+
+        final IngestDocument[] results = new IngestDocument[ingestDocuments.size()];
+        final Exception[] failures = new Exception[ingestDocuments.size()];
+        acquisitions.set(0);
+        processor.executeBatch(ingestDocuments, (slot, result, e) -> {
+            assertThat(results[slot], nullValue());
+            results[slot] = result;
+            failures[slot] = e;
+        });
+        assertThat(acquisitions.get(), equalTo(1));
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(failures[i], nullValue());
+            assertIngestDocument(results[i], expected.get(i));
+        }
+        // each document gets its own copy of the geo data
+        assertNotSame(results[0].getSourceAndMetadata().get("target_field"), results[1].getSourceAndMetadata().get("target_field"));
+        assertThat(results[3], nullValue());
+        assertThat(failures[3].getMessage(), containsString("field [source_field] is null, cannot extract geoip information."));
+    }
+
     private CheckedSupplier<DatabaseReaderLazyLoader, IOException> loader(final String path) {
         final Supplier<InputStream> databaseInputStreamSupplier = () -> GeoIpProcessor.class.getResourceAsStream(path);
         final CheckedSupplier<DatabaseReader, IOException> loader = () -> new DatabaseReader.Builder(databaseInputStreamSupplier.get())
@@ -11,8 +11,10 @@ package org.elasticsearch.ingest.geoip.stats;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.core.Tuple;
 import org.elasticsearch.test.AbstractWireSerializingTestCase;
 
+import java.util.Map;
 import java.util.Set;
 
 public class GeoIpDownloaderStatsActionNodeResponseSerializingTests extends AbstractWireSerializingTestCase<
@@ -33,12 +35,21 @@ public class GeoIpDownloaderStatsActionNodeResponseSerializingTests extends Abst
         Set<String> databases = Set.copyOf(randomList(10, () -> randomAlphaOfLengthBetween(5, 10)));
         Set<String> files = Set.copyOf(randomList(10, () -> randomAlphaOfLengthBetween(5, 10)));
         Set<String> configDatabases = Set.copyOf(randomList(10, () -> randomAlphaOfLengthBetween(5, 10)));
+        Map<String, GeoIpCacheStats> cacheStats = randomMap(
+            0,
+            3,
+            () -> Tuple.tuple(
+                randomAlphaOfLengthBetween(5, 10),
+                new GeoIpCacheStats(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong())
+            )
+        );
         return new GeoIpDownloaderStatsAction.NodeResponse(
             node,
             GeoIpDownloaderStatsSerializingTests.createRandomInstance(),
             databases,
             files,
-            configDatabases
+            configDatabases,
+            cacheStats
         );
     }
 }
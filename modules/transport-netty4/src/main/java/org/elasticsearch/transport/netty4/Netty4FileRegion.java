@@ -0,0 +1,114 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport.netty4;
+
+import io.netty.channel.FileRegion;
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.IllegalReferenceCountException;
+
+import org.elasticsearch.common.bytes.FileRegionBytesReference;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A {@link FileRegion} that copies a {@link FileRegionBytesReference} from its file to the network with
+ * {@link FileChannel#transferTo}, which uses {@code sendfile} where available so that the bytes never go through the heap. Unlike
+ * {@link io.netty.channel.DefaultFileRegion} it does not close the file channel once written, since the channel is shared by all
+ * the regions of a file and is owned by whoever created the {@link FileRegionBytesReference}.
+ * <p>
+ * The region is copied on the event loop, so it must have been {@link FileRegionBytesReference#prefetch prefetched} into the page
+ * cache beforehand: {@link #transferTo} only waits for the disk if the pages were evicted again in the meantime.
+ */
+final class Netty4FileRegion extends AbstractReferenceCounted implements FileRegion {
+
+    private final FileChannel channel;
+    private final long position;
+    private final long count;
+    private long transferred;
+
+    Netty4FileRegion(FileRegionBytesReference fileRegion) {
+        this.channel = fileRegion.channel();
+        this.position = fileRegion.position();
+        this.count = fileRegion.length();
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    @Override
+    @Deprecated
+    public long transfered() {
+        return transferred;
+    }
+
+    @Override
+    public long transferred() {
+        return transferred;
+    }
+
+    @Override
+    public long count() {
+        return count;
+    }
+
+    @Override
+    public long transferTo(WritableByteChannel target, long position) throws IOException {
+        final long remaining = count - position;
+        if (remaining < 0L || position < 0L) {
+            throw new IllegalArgumentException("position out of range: " + position + " (expected: 0 - " + (count - 1) + ')');
+        }
+        if (remaining == 0L) {
+            return 0L;
+        }
+        if (refCnt() == 0) {
+            throw new IllegalReferenceCountException(0);
+        }
+        final long written = channel.transferTo(this.position + position, remaining, target);
+        if (written > 0L) {
+            transferred += written;
+        } else if (written == 0L && channel.size() < this.position + count) {
+            // transferTo returns 0 rather than failing if the file is too short, which would otherwise make the write spin forever
+            throw new IOException(
+                "file of size [" + channel.size() + "] is too short for region [" + this.position + "-" + (this.position + count) + "]"
+            );
+        }
+        return written;
+    }
+
+    @Override
+    protected void deallocate() {
+        // the file channel is not owned by the region
+    }
+
+    @Override
+    public FileRegion retain() {
+        super.retain();
+        return this;
+    }
+
+    @Override
+    public FileRegion retain(int increment) {
+        super.retain(increment);
+        return this;
+    }
+
+    @Override
+    public FileRegion touch() {
+        return this;
+    }
+
+    @Override
+    public FileRegion touch(Object hint) {
+        return this;
+    }
+}
@@ -14,6 +14,8 @@ import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.FileRegion;
+import io.netty.util.ReferenceCountUtil;
 
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.ElasticsearchException;
@@ -91,9 +93,9 @@ final class Netty4MessageChannelHandler extends ChannelDuplexHandler {
 
     @Override
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
-        assert msg instanceof ByteBuf;
+        assert msg instanceof ByteBuf || msg instanceof FileRegion : "Expected ByteBuf or FileRegion, found: " + msg.getClass();
         assert Transports.assertDefaultThreadContext(transport.getThreadPool().getThreadContext());
-        final boolean queued = queuedWrites.offer(new WriteOperation((ByteBuf) msg, promise));
+        final boolean queued = queuedWrites.offer(new WriteOperation(msg, promise));
         assert queued;
         assert Transports.assertDefaultThreadContext(transport.getThreadPool().getThreadContext());
     }
@@ -139,18 +141,25 @@ final class Netty4MessageChannelHandler extends ChannelDuplexHandler {
                 break;
             }
             final WriteOperation write = currentWrite;
-            final int readableBytes = write.buf.readableBytes();
-            final int bufferSize = Math.min(readableBytes, 1 << 18);
-            final int readerIndex = write.buf.readerIndex();
-            final boolean sliced = readableBytes != bufferSize;
-            final ByteBuf writeBuffer;
-            if (sliced) {
-                writeBuffer = write.buf.retainedSlice(readerIndex, bufferSize);
-                write.buf.readerIndex(readerIndex + bufferSize);
+            final boolean sliced;
+            final Object writeMessage;
+            if (write.msg instanceof ByteBuf buf) {
+                final int readableBytes = buf.readableBytes();
+                final int bufferSize = Math.min(readableBytes, 1 << 18);
+                final int readerIndex = buf.readerIndex();
+                sliced = readableBytes != bufferSize;
+                if (sliced) {
+                    writeMessage = buf.retainedSlice(readerIndex, bufferSize);
+                    buf.readerIndex(readerIndex + bufferSize);
+                } else {
+                    writeMessage = buf;
+                }
             } else {
-                writeBuffer = write.buf;
+                // file regions are copied to the socket by the channel without going through a buffer, so they need no slicing
+                sliced = false;
+                writeMessage = write.msg;
             }
-            final ChannelFuture writeFuture = ctx.write(writeBuffer);
+            final ChannelFuture writeFuture = ctx.write(writeMessage);
             needsFlush = true;
             if (sliced == false) {
                 currentWrite = null;
@@ -199,18 +208,19 @@ final class Netty4MessageChannelHandler extends ChannelDuplexHandler {
 
     private static final class WriteOperation {
 
-        private final ByteBuf buf;
+        // either a ByteBuf or a FileRegion
+        private final Object msg;
 
         private final ChannelPromise promise;
 
-        WriteOperation(ByteBuf buf, ChannelPromise promise) {
-            this.buf = buf;
+        WriteOperation(Object msg, ChannelPromise promise) {
+            this.msg = msg;
             this.promise = promise;
         }
 
         void failAsClosedChannel() {
             promise.tryFailure(new ClosedChannelException());
-            buf.release();
+            ReferenceCountUtil.release(msg);
         }
     }
 
@@ -8,14 +8,17 @@
 
 package org.elasticsearch.transport.netty4;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPromise;
+import io.netty.handler.ssl.SslHandler;
 
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.FileRegionBytesReference;
 import org.elasticsearch.core.CompletableContext;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasables;
@@ -24,6 +27,7 @@ import org.elasticsearch.transport.TcpChannel;
 import org.elasticsearch.transport.TransportException;
 
 import java.net.InetSocketAddress;
+import java.util.concurrent.RejectedExecutionException;
 
 public class Netty4TcpChannel implements TcpChannel {
 
@@ -170,6 +174,40 @@ public class Netty4TcpChannel implements TcpChannel {
         }
     }
 
+    @Override
+    public void sendMessage(BytesReference prefix, FileRegionBytesReference fileRegion, ActionListener<Void> listener) {
+        if (channel.pipeline().get(SslHandler.class) != null) {
+            // the region must be encrypted, so it has to be read into memory like any other message
+            TcpChannel.super.sendMessage(prefix, fileRegion, listener);
+            return;
+        }
+        final ByteBuf prefixBuf = Netty4Utils.toByteBuf(prefix);
+        final Netty4FileRegion region = new Netty4FileRegion(fileRegion);
+        final ChannelPromise promise = addPromise(listener, channel);
+        // both parts are written from the same event loop task so that no other message can be written in between them; a failure
+        // to write the prefix closes the channel, which fails the write of the region and therefore the listener
+        final Runnable write = () -> {
+            channel.write(prefixBuf, channel.newPromise());
+            channel.writeAndFlush(region, promise);
+        };
+        if (channel.eventLoop().inEventLoop()) {
+            write.run();
+        } else {
+            try {
+                channel.eventLoop().execute(write);
+            } catch (RejectedExecutionException e) {
+                prefixBuf.release();
+                region.release();
+                listener.onFailure(new TransportException("Cannot send message, event loop is shutting down.", e));
+                return;
+            }
+        }
+
+        if (channel.eventLoop().isShutdown()) {
+            listener.onFailure(new TransportException("Cannot send message, event loop is shutting down."));
+        }
+    }
+
     public Channel getNettyChannel() {
         return channel;
     }
@@ -0,0 +1,65 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport.netty4;
+
+import org.elasticsearch.common.bytes.FileRegionBytesReference;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class Netty4FileRegionTests extends ESTestCase {
+
+    public void testTransferTo() throws IOException {
+        final byte[] fileBytes = randomByteArrayOfLength(randomIntBetween(1, 1 << 16));
+        final Path file = createTempFile();
+        Files.write(file, fileBytes);
+        final int position = randomIntBetween(0, fileBytes.length - 1);
+        final int length = randomIntBetween(1, fileBytes.length - position);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final Netty4FileRegion region = new Netty4FileRegion(new FileRegionBytesReference(channel, position, length));
+            assertThat(region.position(), equalTo((long) position));
+            assertThat(region.count(), equalTo((long) length));
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final WritableByteChannel target = Channels.newChannel(out);
+            while (region.transferred() < region.count()) {
+                region.transferTo(target, region.transferred());
+            }
+            assertArrayEquals(Arrays.copyOfRange(fileBytes, position, position + length), out.toByteArray());
+
+            // releasing the region does not close the file channel, which is shared by all the regions of the file
+            assertTrue(region.release());
+            assertTrue(channel.isOpen());
+        }
+    }
+
+    public void testTransferBeyondEndOfFile() throws IOException {
+        final Path file = createTempFile();
+        final int fileLength = randomIntBetween(0, 100);
+        Files.write(file, randomByteArrayOfLength(fileLength));
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final FileRegionBytesReference fileRegion = new FileRegionBytesReference(channel, fileLength, randomIntBetween(1, 10));
+            final Netty4FileRegion region = new Netty4FileRegion(fileRegion);
+            expectThrows(IOException.class, () -> region.transferTo(Channels.newChannel(new ByteArrayOutputStream()), 0L));
+            region.release();
+        }
+    }
+}
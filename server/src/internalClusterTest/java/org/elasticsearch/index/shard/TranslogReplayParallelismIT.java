@@ -0,0 +1,103 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.shard;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.test.ESIntegTestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.hamcrest.Matchers.equalTo;
+
+@ESIntegTestCase.ClusterScope(scope = ESIntegTestCase.Scope.TEST, numDataNodes = 0)
+public class TranslogReplayParallelismIT extends ESIntegTestCase {
+
+    private static final String INDEX_NAME = "test";
+
+    public void testLocalTranslogRecovery() throws Exception {
+        internalCluster().startNode();
+        createIndexWithUnflushedTranslog();
+        final Map<String, Integer> expected = indexDocsWithUpdatesAndDeletes();
+
+        // replays the whole translog since nothing was flushed
+        internalCluster().restartRandomDataNode();
+        ensureGreen(INDEX_NAME);
+        assertDocs(expected);
+    }
+
+    public void testPeerRecovery() throws Exception {
+        internalCluster().startNodes(2);
+        createIndexWithUnflushedTranslog();
+        final Map<String, Integer> expected = indexDocsWithUpdatesAndDeletes();
+
+        // the new replica receives the operations that are not in the commit of the primary in the translog phase of the recovery
+        assertAcked(
+            client().admin()
+                .indices()
+                .prepareUpdateSettings(INDEX_NAME)
+                .setSettings(Settings.builder().put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 1))
+        );
+        ensureGreen(INDEX_NAME);
+        internalCluster().assertSameDocIdsOnShards();
+        assertDocs(expected);
+    }
+
+    private void createIndexWithUnflushedTranslog() {
+        assertAcked(
+            prepareCreate(INDEX_NAME).setMapping("value", "type=integer")
+                .setSettings(
+                    Settings.builder()
+                        .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+                        .put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0)
+                        .put(IndexSettings.INDEX_TRANSLOG_REPLAY_PARALLELISM_SETTING.getKey(), between(2, 4))
+                        .put(IndexSettings.INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING.getKey(), new ByteSizeValue(1, ByteSizeUnit.PB))
+                )
+        );
+        ensureGreen(INDEX_NAME);
+    }
+
+    /**
+     * Indexes, updates and deletes a small number of documents many times, so that the translog holds many operations on each of them,
+     * and returns the expected value of each document that is left.
+     */
+    private Map<String, Integer> indexDocsWithUpdatesAndDeletes() {
+        final Map<String, Integer> expected = new HashMap<>();
+        final int numDocs = between(1, 20);
+        for (int i = between(100, 1000); i > 0; i--) {
+            final String id = Integer.toString(between(0, numDocs - 1));
+            if (randomInt(4) == 0) {
+                client().prepareDelete(INDEX_NAME, id).get();
+                expected.remove(id);
+            } else {
+                final int value = randomInt();
+                client().prepareIndex(INDEX_NAME).setId(id).setSource("value", value).get();
+                expected.put(id, value);
+            }
+        }
+        return expected;
+    }
+
+    private void assertDocs(Map<String, Integer> expected) {
+        refresh(INDEX_NAME);
+        final SearchResponse response = client().prepareSearch(INDEX_NAME).setSize(expected.size() + 1).get();
+        assertHitCount(response, expected.size());
+        for (SearchHit hit : response.getHits()) {
+            assertThat(hit.getId(), hit.getSourceAsMap().get("value"), equalTo(expected.get(hit.getId())));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.MergePolicyConfig;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.aggregations.metrics.Sum;
+import org.elasticsearch.test.ESIntegTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.elasticsearch.search.aggregations.AggregationBuilders.histogram;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.sum;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class IndicesAggregationCacheIT extends ESIntegTestCase {
+
+    private static final String CACHED_INDEX = "cached";
+    private static final String UNCACHED_INDEX = "uncached";
+
+    /**
+     * Indexes the same documents into an index with the per-segment aggregation cache and into an index without it, in several
+     * refreshes so that the shards consist of multiple segments, and checks that both return the same aggregation results.
+     */
+    public void testCachedResultsEqualUncachedResults() throws Exception {
+        // no merges, so that the segments of earlier refreshes are still cached when later refreshes add segments
+        final Settings settings = Settings.builder()
+            .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, between(1, 3))
+            .put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0)
+            .put(MergePolicyConfig.INDEX_MERGE_ENABLED, false)
+            .build();
+        final String mapping = "host,type=keyword,value,type=long,bucket,type=long";
+        assertAcked(
+            prepareCreate(CACHED_INDEX).setMapping(mapping.split(","))
+                .setSettings(Settings.builder().put(settings).put(IndicesAggregationCache.INDEX_CACHE_ENABLED_SETTING.getKey(), true))
+        );
+        assertAcked(prepareCreate(UNCACHED_INDEX).setMapping(mapping.split(",")).setSettings(settings));
+        ensureGreen(CACHED_INDEX, UNCACHED_INDEX);
+
+        final AggregationBuilder aggregation = randomAggregation();
+        final int numHosts = between(1, 100);
+        final int refreshes = between(2, 5);
+        int id = 0;
+        for (int refresh = 0; refresh < refreshes; refresh++) {
+            final List<IndexRequestBuilder> requests = new ArrayList<>();
+            for (int i = between(1, 200); i > 0; i--) {
+                // skewed so that the counts of the terms differ widely between segments
+                final List<String> hosts = new ArrayList<>();
+                for (int h = between(1, 3); h > 0; h--) {
+                    hosts.add("host-" + (int) Math.pow(randomIntBetween(0, numHosts - 1), 2) % numHosts);
+                }
+                final Object[] source = { "host", hosts, "value", randomLongBetween(-1000, 1000), "bucket", between(0, 10) };
+                final String docId = Integer.toString(id++);
+                requests.add(client().prepareIndex(CACHED_INDEX).setId(docId).setSource(source));
+                requests.add(client().prepareIndex(UNCACHED_INDEX).setId(docId).setSource(source));
+            }
+            indexRandom(true, false, false, requests);
+            // the results of the segments of earlier refreshes are served from the segment cache
+            assertSameResults(aggregation);
+        }
+
+        long misses = 0;
+        long hits = 0;
+        for (NodeStats nodeStats : client().admin().cluster().prepareNodesStats().setIndices(true).get().getNodes()) {
+            misses += nodeStats.getIndices().getRequestCache().getSegmentAggregationsMissCount();
+            hits += nodeStats.getIndices().getRequestCache().getSegmentAggregationsHitCount();
+        }
+        assertThat(misses, greaterThan(0L));
+        assertThat(hits, greaterThan(0L));
+    }
+
+    private static AggregationBuilder randomAggregation() {
+        final int size = between(1, 10);
+        final AggregationBuilder terms = terms("hosts").field("host")
+            .order(BucketOrder.key(randomBoolean()))
+            .size(size)
+            .shardSize(between(size, 2 * size))
+            .subAggregation(sum("sum").field("value"));
+        return randomBoolean() ? terms : histogram("buckets").field("bucket").interval(between(1, 5)).subAggregation(terms);
+    }
+
+    private static void assertSameResults(AggregationBuilder aggregation) {
+        final SearchResponse cached = client().prepareSearch(CACHED_INDEX).setSize(0).addAggregation(aggregation).get();
+        final SearchResponse uncached = client().prepareSearch(UNCACHED_INDEX)
+            .setSize(0)
+            .setRequestCache(false)
+            .addAggregation(aggregation)
+            .get();
+        assertSearchResponse(cached);
+        assertSearchResponse(uncached);
+        assertThat(cached.getHits().getTotalHits().value, equalTo(uncached.getHits().getTotalHits().value));
+        if (cached.getAggregations().get("buckets") instanceof Histogram cachedHistogram) {
+            final Histogram uncachedHistogram = uncached.getAggregations().get("buckets");
+            assertThat(cachedHistogram.getBuckets().size(), equalTo(uncachedHistogram.getBuckets().size()));
+            for (int i = 0; i < cachedHistogram.getBuckets().size(); i++) {
+                final Histogram.Bucket cachedBucket = cachedHistogram.getBuckets().get(i);
+                final Histogram.Bucket uncachedBucket = uncachedHistogram.getBuckets().get(i);
+                assertThat(cachedBucket.getKey(), equalTo(uncachedBucket.getKey()));
+                assertThat(cachedBucket.getDocCount(), equalTo(uncachedBucket.getDocCount()));
+                assertSameTerms(cachedBucket.getAggregations().get("hosts"), uncachedBucket.getAggregations().get("hosts"));
+            }
+        } else {
+            assertSameTerms(cached.getAggregations().get("hosts"), uncached.getAggregations().get("hosts"));
+        }
+    }
+
+    private static void assertSameTerms(Terms cached, Terms uncached) {
+        assertThat(cached.getDocCountError(), equalTo(uncached.getDocCountError()));
+        assertThat(cached.getSumOfOtherDocCounts(), equalTo(uncached.getSumOfOtherDocCounts()));
+        assertThat(cached.getBuckets().size(), equalTo(uncached.getBuckets().size()));
+        for (int i = 0; i < cached.getBuckets().size(); i++) {
+            final Terms.Bucket cachedBucket = cached.getBuckets().get(i);
+            final Terms.Bucket uncachedBucket = uncached.getBuckets().get(i);
+            assertThat(cachedBucket.getKeyAsString(), equalTo(uncachedBucket.getKeyAsString()));
+            assertThat(cachedBucket.getDocCount(), equalTo(uncachedBucket.getDocCount()));
+            assertThat(cachedBucket.getDocCountError(), equalTo(uncachedBucket.getDocCountError()));
+            final Sum cachedSum = cachedBucket.getAggregations().get("sum");
+            final Sum uncachedSum = uncachedBucket.getAggregations().get("sum");
+            assertThat(cachedSum.value(), equalTo(uncachedSum.value()));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.repositories.blobstore;
+
+import org.elasticsearch.action.admin.cluster.snapshots.restore.RestoreSnapshotResponse;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.snapshots.AbstractSnapshotIntegTestCase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertNoFailures;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class BlobStoreContentDefinedChunkingIT extends AbstractSnapshotIntegTestCase {
+
+    public void testSnapshotAndRestoreWithContentDefinedChunks() throws Exception {
+        final String repoName = "test-repo";
+        final Path repoPath = randomRepoPath();
+        // small chunks so that the files of the index consist of many of them
+        createRepository(
+            repoName,
+            "fs",
+            Settings.builder()
+                .put("location", repoPath)
+                .put(BlobStoreRepository.CONTENT_DEFINED_CHUNKING_SETTING.getKey(), true)
+                .put("chunk_size", randomIntBetween(1000, 4000) + "b")
+        );
+
+        final String indexName = "test-idx";
+        createIndex(indexName, indexSettingsNoReplicas(1).build());
+        ensureGreen(indexName);
+        indexRandomDocs(indexName, randomIntBetween(100, 500));
+        createFullSnapshot(repoName, "snap-1");
+        final long chunksAfterFirstSnapshot = countChunkBlobs(repoPath);
+        assertThat(chunksAfterFirstSnapshot, greaterThan(0L));
+
+        indexRandomDocs(indexName, randomIntBetween(500, 1000));
+        if (randomBoolean()) {
+            assertNoFailures(client().admin().indices().prepareForceMerge(indexName).setMaxNumSegments(1).get());
+        }
+        final long docCount = getCountForIndex(indexName);
+        createFullSnapshot(repoName, "snap-2");
+
+        // the chunks that the second snapshot shares with the first one must survive the deletion of the first one
+        assertAcked(startDeleteSnapshot(repoName, "snap-1").get());
+        assertAcked(client().admin().indices().prepareDelete(indexName));
+        final RestoreSnapshotResponse restoreSnapshotResponse = clusterAdmin().prepareRestoreSnapshot(repoName, "snap-2")
+            .setIndices(indexName)
+            .setWaitForCompletion(true)
+            .get();
+        assertThat(restoreSnapshotResponse.getRestoreInfo().failedShards(), equalTo(0));
+        ensureGreen(indexName);
+        assertDocCount(indexName, docCount);
+    }
+
+    private static long countChunkBlobs(Path repoPath) throws IOException {
+        try (Stream<Path> paths = Files.walk(repoPath)) {
+            return paths.filter(path -> path.getFileName().toString().startsWith(ContentDefinedChunker.CHUNK_BLOB_PREFIX)).count();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.repositories.blobstore;
+
+import org.elasticsearch.action.admin.cluster.snapshots.restore.RestoreSnapshotResponse;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.repositories.Repository;
+import org.elasticsearch.repositories.RepositoryStats;
+import org.elasticsearch.snapshots.AbstractSnapshotIntegTestCase;
+import org.elasticsearch.test.ESIntegTestCase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.elasticsearch.indices.recovery.RecoverySettings.INDICES_RECOVERY_MAX_IN_FLIGHT_SNAPSHOT_PART_BYTES_SETTING;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+@ESIntegTestCase.ClusterScope(scope = ESIntegTestCase.Scope.TEST, numDataNodes = 0)
+public class BlobStoreParallelPartTransfersIT extends AbstractSnapshotIntegTestCase {
+
+    public void testSnapshotAndRestoreWithParallelPartTransfers() throws Exception {
+        internalCluster().startMasterOnlyNode();
+        final String dataNode = randomBoolean() ? startDataNodeWithLargeSnapshotPool() : internalCluster().startDataOnlyNode();
+
+        final String repoName = "test-repo";
+        final Path repoPath = randomRepoPath();
+        // small parts so that the files of the index consist of many of them
+        final int chunkSize = randomIntBetween(100, 1000);
+        createRepository(repoName, "fs", randomRepositorySettings().put("location", repoPath).put("chunk_size", chunkSize + "b"));
+
+        updateClusterSettings(
+            Settings.builder().put(INDICES_RECOVERY_MAX_IN_FLIGHT_SNAPSHOT_PART_BYTES_SETTING.getKey(), randomIntBetween(1, 10) + "kb")
+        );
+
+        final String indexName = "test-idx";
+        createIndexWithRandomDocs(indexName, randomIntBetween(100, 500));
+        final long docCount = getCountForIndex(indexName);
+
+        createFullSnapshot(repoName, "test-snap");
+        final Repository repository = getRepositoryOnNode(repoName, dataNode);
+        // every part of every uploaded file is a blob of its own, which is written once and read once when restoring
+        final long partCount = countPartBlobs(repoPath);
+        final long partBytes = sizeOfPartBlobs(repoPath);
+        assertThat(partCount, greaterThan(1L));
+        assertThat(partBytes, lessThanOrEqualTo(partCount * chunkSize));
+        final RepositoryStats.PartTransferStats partUploads = repository.stats().partUploads;
+        assertThat(partUploads.getCount(), equalTo(partCount));
+        assertThat(partUploads.getSizeInBytes(), equalTo(partBytes));
+
+        assertAcked(client().admin().indices().prepareDelete(indexName));
+        final RestoreSnapshotResponse restoreSnapshotResponse = clusterAdmin().prepareRestoreSnapshot(repoName, "test-snap")
+            .setIndices(indexName)
+            .setWaitForCompletion(true)
+            .get();
+        assertThat(restoreSnapshotResponse.getRestoreInfo().failedShards(), equalTo(0));
+        ensureGreen(indexName);
+        assertDocCount(indexName, docCount);
+
+        final RepositoryStats.PartTransferStats partDownloads = repository.stats().partDownloads;
+        assertThat(partDownloads.getCount(), equalTo(partCount));
+        assertThat(partDownloads.getSizeInBytes(), equalTo(partBytes));
+
+        updateClusterSettings(Settings.builder().putNull(INDICES_RECOVERY_MAX_IN_FLIGHT_SNAPSHOT_PART_BYTES_SETTING.getKey()));
+    }
+
+    private static long countPartBlobs(Path repoPath) throws IOException {
+        try (Stream<Path> paths = Files.walk(repoPath)) {
+            return paths.filter(BlobStoreParallelPartTransfersIT::isPartBlob).count();
+        }
+    }
+
+    private static long sizeOfPartBlobs(Path repoPath) throws IOException {
+        long size = 0L;
+        try (Stream<Path> paths = Files.walk(repoPath)) {
+            for (Path path : paths.filter(BlobStoreParallelPartTransfersIT::isPartBlob).toList()) {
+                size += Files.size(path);
+            }
+        }
+        return size;
+    }
+
+    private static boolean isPartBlob(Path path) {
+        return path.getFileName().toString().startsWith(BlobStoreRepository.UPLOADED_DATA_BLOB_PREFIX);
+    }
+}
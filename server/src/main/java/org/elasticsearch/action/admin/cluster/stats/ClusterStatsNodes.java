@@ -800,6 +800,7 @@ public class ClusterStatsNodes implements ToXContentFragment {
             long currentCoordinatingOps = 0;
             long currentPrimaryOps = 0;
             long currentReplicaOps = 0;
+            long shardRejections = 0;
             for (NodeStats nodeStat : nodeStats) {
                 IndexingPressureStats nodeStatIndexingPressureStats = nodeStat.getIndexingPressureStats();
                 if (nodeStatIndexingPressureStats != null) {
@@ -821,6 +822,7 @@ public class ClusterStatsNodes implements ToXContentFragment {
                     currentCoordinatingOps += nodeStatIndexingPressureStats.getCurrentCoordinatingOps();
                     currentPrimaryOps += nodeStatIndexingPressureStats.getCurrentPrimaryOps();
                     currentReplicaOps += nodeStatIndexingPressureStats.getCurrentReplicaOps();
+                    shardRejections += nodeStatIndexingPressureStats.getShardRejections();
                 }
             }
             indexingPressureStats = new IndexingPressureStats(
@@ -841,7 +843,9 @@ public class ClusterStatsNodes implements ToXContentFragment {
                 totalReplicaOps,
                 currentCoordinatingOps,
                 currentPrimaryOps,
-                currentReplicaOps
+                currentReplicaOps,
+                shardRejections,
+                List.of()
             );
         }
 
@@ -31,6 +31,7 @@ import org.elasticsearch.xcontent.XContentParserConfiguration;
 import org.elasticsearch.xcontent.XContentType;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -142,6 +143,12 @@ public final class BulkRequestParser {
         final Map<String, String> stringDeduplicator = new HashMap<>();
         boolean typesDeprecationLogged = false;
 
+        // Action lines of large bulks are often byte for byte identical, e.g. a long run of {"create":{}} lines, so the metadata of the
+        // last action line is reused rather than parsed again when the next action line has the same bytes.
+        ActionMetadata lastMetadata = null;
+        int lastActionFrom = -1;
+        int lastActionTo = -1;
+
         while (true) {
             int nextMarker = findNextMarker(marker, from, data);
             if (nextMarker == -1) {
@@ -149,224 +156,94 @@ public final class BulkRequestParser {
             }
             line++;
 
-            // now parse the action
-            try (XContentParser parser = createParser(xContent, data, from, nextMarker)) {
-                // move pointers
-                from = nextMarker + 1;
-
-                // Move to START_OBJECT
-                XContentParser.Token token = parser.nextToken();
-                if (token == null) {
-                    continue;
-                }
-                if (token != XContentParser.Token.START_OBJECT) {
-                    throw new IllegalArgumentException(
-                        "Malformed action/metadata line ["
-                            + line
-                            + "], expected "
-                            + XContentParser.Token.START_OBJECT
-                            + " but found ["
-                            + token
-                            + "]"
+            final ActionMetadata metadata;
+            if (lastMetadata != null && sameBytes(data, lastActionFrom, lastActionTo, from, nextMarker)) {
+                metadata = lastMetadata;
+            } else {
+                // now parse the action
+                try (XContentParser parser = createParser(xContent, data, from, nextMarker)) {
+                    metadata = parseActionLine(
+                        parser,
+                        line,
+                        defaultIndex,
+                        defaultRouting,
+                        defaultFetchSourceContext,
+                        defaultPipeline,
+                        defaultRequireAlias,
+                        allowExplicitIndex,
+                        stringDeduplicator
                     );
                 }
-                // Move to FIELD_NAME, that's the action
-                token = parser.nextToken();
-                if (token != XContentParser.Token.FIELD_NAME) {
-                    throw new IllegalArgumentException(
-                        "Malformed action/metadata line ["
-                            + line
-                            + "], expected "
-                            + XContentParser.Token.FIELD_NAME
-                            + " but found ["
-                            + token
-                            + "]"
-                    );
+                if (metadata == null) {
+                    from = nextMarker + 1;
+                    continue;
                 }
-                String action = parser.currentName();
-                if (SUPPORTED_ACTIONS.contains(action) == false) {
-                    deprecationLogger.compatibleCritical(
-                        STRICT_ACTION_PARSING_WARNING_KEY,
-                        "Unsupported action: [{}]. Supported values are [create], [delete], [index], and [update]. "
-                            + "Unsupported actions are currently accepted but will be rejected in a future version.",
-                        action
-                    );
+                // dynamic templates are a mutable map that must not be shared between requests
+                if (metadata.dynamicTemplates().isEmpty()) {
+                    lastMetadata = metadata;
+                    lastActionFrom = from;
+                    lastActionTo = nextMarker;
+                } else {
+                    lastMetadata = null;
                 }
+            }
+            // move pointers
+            from = nextMarker + 1;
 
-                String index = defaultIndex;
-                String type = null;
-                String id = null;
-                String routing = defaultRouting;
-                FetchSourceContext fetchSourceContext = defaultFetchSourceContext;
-                String opType = null;
-                long version = Versions.MATCH_ANY;
-                VersionType versionType = VersionType.INTERNAL;
-                long ifSeqNo = SequenceNumbers.UNASSIGNED_SEQ_NO;
-                long ifPrimaryTerm = UNASSIGNED_PRIMARY_TERM;
-                int retryOnConflict = 0;
-                String pipeline = defaultPipeline;
-                boolean requireAlias = defaultRequireAlias != null && defaultRequireAlias;
-                Map<String, String> dynamicTemplates = Map.of();
-
-                // at this stage, next token can either be END_OBJECT (and use default index and type, with auto generated id)
-                // or START_OBJECT which will have another set of parameters
-                token = parser.nextToken();
+            if (metadata.type() != null
+                && deprecateOrErrorOnType
+                && typesDeprecationLogged == false
+                && config.restApiVersion().matches(RestApiVersion.equalTo(RestApiVersion.V_7))) {
+                // for bigger bulks, deprecation throttling might not be enough
+                deprecationLogger.compatibleCritical("bulk_with_types", RestBulkAction.TYPES_DEPRECATION_MESSAGE);
+                typesDeprecationLogged = true;
+            }
+            final String action = metadata.action();
+            final String index = metadata.index();
+            final String type = metadata.type();
+            final String id = metadata.id();
+            final String routing = metadata.routing();
+            final FetchSourceContext fetchSourceContext = metadata.fetchSourceContext();
+            final String opType = metadata.opType();
+            final long version = metadata.version();
+            final VersionType versionType = metadata.versionType();
+            final long ifSeqNo = metadata.ifSeqNo();
+            final long ifPrimaryTerm = metadata.ifPrimaryTerm();
+            final int retryOnConflict = metadata.retryOnConflict();
+            final String pipeline = metadata.pipeline();
+            final boolean requireAlias = metadata.requireAlias();
+            final Map<String, String> dynamicTemplates = metadata.dynamicTemplates();
 
-                if (token == XContentParser.Token.START_OBJECT) {
-                    String currentFieldName = null;
-                    while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
-                        if (token == XContentParser.Token.FIELD_NAME) {
-                            currentFieldName = parser.currentName();
-                        } else if (token.isValue()) {
-                            if (INDEX.match(currentFieldName, parser.getDeprecationHandler())) {
-                                if (allowExplicitIndex == false) {
-                                    throw new IllegalArgumentException("explicit index in bulk is not allowed");
-                                }
-                                index = stringDeduplicator.computeIfAbsent(parser.text(), Function.identity());
-                            } else if (TYPE.match(currentFieldName, parser.getDeprecationHandler())) {
-                                if (parser.getRestApiVersion().matches(RestApiVersion.equalTo(RestApiVersion.V_7))) {
-                                    // for bigger bulks, deprecation throttling might not be enough
-                                    if (deprecateOrErrorOnType && typesDeprecationLogged == false) {
-                                        deprecationLogger.compatibleCritical("bulk_with_types", RestBulkAction.TYPES_DEPRECATION_MESSAGE);
-                                        typesDeprecationLogged = true;
-                                    }
-                                } else if (parser.getRestApiVersion().matches(RestApiVersion.onOrAfter(RestApiVersion.V_8))
-                                    && deprecateOrErrorOnType) {
-                                        throw new IllegalArgumentException(
-                                            "Action/metadata line [" + line + "] contains an unknown parameter [" + currentFieldName + "]"
-                                        );
-                                    }
-                                type = stringDeduplicator.computeIfAbsent(parser.text(), Function.identity());
-                            } else if (ID.match(currentFieldName, parser.getDeprecationHandler())) {
-                                id = parser.text();
-                            } else if (ROUTING.match(currentFieldName, parser.getDeprecationHandler())) {
-                                routing = stringDeduplicator.computeIfAbsent(parser.text(), Function.identity());
-                            } else if (OP_TYPE.match(currentFieldName, parser.getDeprecationHandler())) {
-                                opType = parser.text();
-                            } else if (VERSION.match(currentFieldName, parser.getDeprecationHandler())) {
-                                version = parser.longValue();
-                            } else if (VERSION_TYPE.match(currentFieldName, parser.getDeprecationHandler())) {
-                                versionType = VersionType.fromString(parser.text());
-                            } else if (IF_SEQ_NO.match(currentFieldName, parser.getDeprecationHandler())) {
-                                ifSeqNo = parser.longValue();
-                            } else if (IF_PRIMARY_TERM.match(currentFieldName, parser.getDeprecationHandler())) {
-                                ifPrimaryTerm = parser.longValue();
-                            } else if (RETRY_ON_CONFLICT.match(currentFieldName, parser.getDeprecationHandler())) {
-                                retryOnConflict = parser.intValue();
-                            } else if (PIPELINE.match(currentFieldName, parser.getDeprecationHandler())) {
-                                pipeline = stringDeduplicator.computeIfAbsent(parser.text(), Function.identity());
-                            } else if (SOURCE.match(currentFieldName, parser.getDeprecationHandler())) {
-                                fetchSourceContext = FetchSourceContext.fromXContent(parser);
-                            } else if (REQUIRE_ALIAS.match(currentFieldName, parser.getDeprecationHandler())) {
-                                requireAlias = parser.booleanValue();
-                            } else {
-                                throw new IllegalArgumentException(
-                                    "Action/metadata line [" + line + "] contains an unknown parameter [" + currentFieldName + "]"
-                                );
-                            }
-                        } else if (token == XContentParser.Token.START_ARRAY) {
-                            throw new IllegalArgumentException(
-                                "Malformed action/metadata line ["
-                                    + line
-                                    + "], expected a simple value for field ["
-                                    + currentFieldName
-                                    + "] but found ["
-                                    + token
-                                    + "]"
-                            );
-                        } else if (token == XContentParser.Token.START_OBJECT
-                            && DYNAMIC_TEMPLATES.match(currentFieldName, parser.getDeprecationHandler())) {
-                                dynamicTemplates = parser.mapStrings();
-                            } else if (token == XContentParser.Token.START_OBJECT
-                                && SOURCE.match(currentFieldName, parser.getDeprecationHandler())) {
-                                    fetchSourceContext = FetchSourceContext.fromXContent(parser);
-                                } else if (token != XContentParser.Token.VALUE_NULL) {
-                                    throw new IllegalArgumentException(
-                                        "Malformed action/metadata line ["
-                                            + line
-                                            + "], expected a simple value for field ["
-                                            + currentFieldName
-                                            + "] but found ["
-                                            + token
-                                            + "]"
-                                    );
-                                }
-                    }
-                } else if (token != XContentParser.Token.END_OBJECT) {
+            if ("delete".equals(action)) {
+                if (dynamicTemplates.isEmpty() == false) {
                     throw new IllegalArgumentException(
-                        "Malformed action/metadata line ["
-                            + line
-                            + "], expected "
-                            + XContentParser.Token.START_OBJECT
-                            + " or "
-                            + XContentParser.Token.END_OBJECT
-                            + " but found ["
-                            + token
-                            + "]"
+                        "Delete request in line [" + line + "] does not accept " + DYNAMIC_TEMPLATES.getPreferredName()
                     );
                 }
-                checkBulkActionIsProperlyClosed(parser);
-
-                if ("delete".equals(action)) {
-                    if (dynamicTemplates.isEmpty() == false) {
-                        throw new IllegalArgumentException(
-                            "Delete request in line [" + line + "] does not accept " + DYNAMIC_TEMPLATES.getPreferredName()
-                        );
-                    }
-                    deleteRequestConsumer.accept(
-                        new DeleteRequest(index).id(id)
-                            .routing(routing)
-                            .version(version)
-                            .versionType(versionType)
-                            .setIfSeqNo(ifSeqNo)
-                            .setIfPrimaryTerm(ifPrimaryTerm)
-                    );
-                } else {
-                    nextMarker = findNextMarker(marker, from, data);
-                    if (nextMarker == -1) {
-                        break;
-                    }
-                    line++;
+                deleteRequestConsumer.accept(
+                    new DeleteRequest(index).id(id)
+                        .routing(routing)
+                        .version(version)
+                        .versionType(versionType)
+                        .setIfSeqNo(ifSeqNo)
+                        .setIfPrimaryTerm(ifPrimaryTerm)
+                );
+            } else {
+                nextMarker = findNextMarker(marker, from, data);
+                if (nextMarker == -1) {
+                    break;
+                }
+                line++;
 
-                    // we use internalAdd so we don't fork here, this allows us not to copy over the big byte array to small chunks
-                    // of index request.
-                    if ("index".equals(action)) {
-                        if (opType == null) {
-                            indexRequestConsumer.accept(
-                                new IndexRequest(index).id(id)
-                                    .routing(routing)
-                                    .version(version)
-                                    .versionType(versionType)
-                                    .setPipeline(pipeline)
-                                    .setIfSeqNo(ifSeqNo)
-                                    .setIfPrimaryTerm(ifPrimaryTerm)
-                                    .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType)
-                                    .setDynamicTemplates(dynamicTemplates)
-                                    .setRequireAlias(requireAlias),
-                                type
-                            );
-                        } else {
-                            indexRequestConsumer.accept(
-                                new IndexRequest(index).id(id)
-                                    .routing(routing)
-                                    .version(version)
-                                    .versionType(versionType)
-                                    .create("create".equals(opType))
-                                    .setPipeline(pipeline)
-                                    .setIfSeqNo(ifSeqNo)
-                                    .setIfPrimaryTerm(ifPrimaryTerm)
-                                    .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType)
-                                    .setRequireAlias(requireAlias),
-                                type
-                            );
-                        }
-                    } else if ("create".equals(action)) {
+                // we use internalAdd so we don't fork here, this allows us not to copy over the big byte array to small chunks
+                // of index request.
+                if ("index".equals(action)) {
+                    if (opType == null) {
                         indexRequestConsumer.accept(
                             new IndexRequest(index).id(id)
                                 .routing(routing)
                                 .version(version)
                                 .versionType(versionType)
-                                .create(true)
                                 .setPipeline(pipeline)
                                 .setIfSeqNo(ifSeqNo)
                                 .setIfPrimaryTerm(ifPrimaryTerm)
@@ -375,49 +252,294 @@ public final class BulkRequestParser {
                                 .setRequireAlias(requireAlias),
                             type
                         );
-                    } else if ("update".equals(action)) {
-                        if (version != Versions.MATCH_ANY || versionType != VersionType.INTERNAL) {
-                            throw new IllegalArgumentException(
-                                "Update requests do not support versioning. " + "Please use `if_seq_no` and `if_primary_term` instead"
-                            );
-                        }
-                        // TODO: support dynamic_templates in update requests
-                        if (dynamicTemplates.isEmpty() == false) {
-                            throw new IllegalArgumentException(
-                                "Update request in line [" + line + "] does not accept " + DYNAMIC_TEMPLATES.getPreferredName()
-                            );
-                        }
-                        UpdateRequest updateRequest = new UpdateRequest().index(index)
-                            .id(id)
+                    } else {
+                        indexRequestConsumer.accept(
+                            new IndexRequest(index).id(id)
+                                .routing(routing)
+                                .version(version)
+                                .versionType(versionType)
+                                .create("create".equals(opType))
+                                .setPipeline(pipeline)
+                                .setIfSeqNo(ifSeqNo)
+                                .setIfPrimaryTerm(ifPrimaryTerm)
+                                .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType)
+                                .setRequireAlias(requireAlias),
+                            type
+                        );
+                    }
+                } else if ("create".equals(action)) {
+                    indexRequestConsumer.accept(
+                        new IndexRequest(index).id(id)
                             .routing(routing)
-                            .retryOnConflict(retryOnConflict)
+                            .version(version)
+                            .versionType(versionType)
+                            .create(true)
+                            .setPipeline(pipeline)
                             .setIfSeqNo(ifSeqNo)
                             .setIfPrimaryTerm(ifPrimaryTerm)
-                            .setRequireAlias(requireAlias)
-                            .routing(routing);
-                        try (
-                            XContentParser sliceParser = createParser(
-                                xContent,
-                                sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType)
-                            )
-                        ) {
-                            updateRequest.fromXContent(sliceParser);
-                        }
-                        if (fetchSourceContext != null) {
-                            updateRequest.fetchSource(fetchSourceContext);
+                            .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType)
+                            .setDynamicTemplates(dynamicTemplates)
+                            .setRequireAlias(requireAlias),
+                        type
+                    );
+                } else if ("update".equals(action)) {
+                    if (version != Versions.MATCH_ANY || versionType != VersionType.INTERNAL) {
+                        throw new IllegalArgumentException(
+                            "Update requests do not support versioning. " + "Please use `if_seq_no` and `if_primary_term` instead"
+                        );
+                    }
+                    // TODO: support dynamic_templates in update requests
+                    if (dynamicTemplates.isEmpty() == false) {
+                        throw new IllegalArgumentException(
+                            "Update request in line [" + line + "] does not accept " + DYNAMIC_TEMPLATES.getPreferredName()
+                        );
+                    }
+                    UpdateRequest updateRequest = new UpdateRequest().index(index)
+                        .id(id)
+                        .routing(routing)
+                        .retryOnConflict(retryOnConflict)
+                        .setIfSeqNo(ifSeqNo)
+                        .setIfPrimaryTerm(ifPrimaryTerm)
+                        .setRequireAlias(requireAlias)
+                        .routing(routing);
+                    try (
+                        XContentParser sliceParser = createParser(
+                            xContent,
+                            sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType)
+                        )
+                    ) {
+                        updateRequest.fromXContent(sliceParser);
+                    }
+                    if (fetchSourceContext != null) {
+                        updateRequest.fetchSource(fetchSourceContext);
+                    }
+                    IndexRequest upsertRequest = updateRequest.upsertRequest();
+                    if (upsertRequest != null) {
+                        upsertRequest.setPipeline(defaultPipeline);
+                    }
+
+                    updateRequestConsumer.accept(updateRequest);
+                }
+                // move pointers
+                from = nextMarker + 1;
+            }
+        }
+    }
+
+    /**
+     * Parses an action line into its {@link ActionMetadata}, or returns {@code null} if the line is empty.
+     */
+    private ActionMetadata parseActionLine(
+        XContentParser parser,
+        int line,
+        @Nullable String defaultIndex,
+        @Nullable String defaultRouting,
+        @Nullable FetchSourceContext defaultFetchSourceContext,
+        @Nullable String defaultPipeline,
+        @Nullable Boolean defaultRequireAlias,
+        boolean allowExplicitIndex,
+        Map<String, String> stringDeduplicator
+    ) throws IOException {
+        // Move to START_OBJECT
+        XContentParser.Token token = parser.nextToken();
+        if (token == null) {
+            return null;
+        }
+        if (token != XContentParser.Token.START_OBJECT) {
+            throw new IllegalArgumentException(
+                "Malformed action/metadata line ["
+                    + line
+                    + "], expected "
+                    + XContentParser.Token.START_OBJECT
+                    + " but found ["
+                    + token
+                    + "]"
+            );
+        }
+        // Move to FIELD_NAME, that's the action
+        token = parser.nextToken();
+        if (token != XContentParser.Token.FIELD_NAME) {
+            throw new IllegalArgumentException(
+                "Malformed action/metadata line [" + line + "], expected " + XContentParser.Token.FIELD_NAME + " but found [" + token + "]"
+            );
+        }
+        String action = parser.currentName();
+        if (SUPPORTED_ACTIONS.contains(action) == false) {
+            deprecationLogger.compatibleCritical(
+                STRICT_ACTION_PARSING_WARNING_KEY,
+                "Unsupported action: [{}]. Supported values are [create], [delete], [index], and [update]. "
+                    + "Unsupported actions are currently accepted but will be rejected in a future version.",
+                action
+            );
+        }
+
+        String index = defaultIndex;
+        String type = null;
+        String id = null;
+        String routing = defaultRouting;
+        FetchSourceContext fetchSourceContext = defaultFetchSourceContext;
+        String opType = null;
+        long version = Versions.MATCH_ANY;
+        VersionType versionType = VersionType.INTERNAL;
+        long ifSeqNo = SequenceNumbers.UNASSIGNED_SEQ_NO;
+        long ifPrimaryTerm = UNASSIGNED_PRIMARY_TERM;
+        int retryOnConflict = 0;
+        String pipeline = defaultPipeline;
+        boolean requireAlias = defaultRequireAlias != null && defaultRequireAlias;
+        Map<String, String> dynamicTemplates = Map.of();
+
+        // at this stage, next token can either be END_OBJECT (and use default index and type, with auto generated id)
+        // or START_OBJECT which will have another set of parameters
+        token = parser.nextToken();
+
+        if (token == XContentParser.Token.START_OBJECT) {
+            String currentFieldName = null;
+            while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                if (token == XContentParser.Token.FIELD_NAME) {
+                    currentFieldName = parser.currentName();
+                } else if (token.isValue()) {
+                    if (INDEX.match(currentFieldName, parser.getDeprecationHandler())) {
+                        if (allowExplicitIndex == false) {
+                            throw new IllegalArgumentException("explicit index in bulk is not allowed");
                         }
-                        IndexRequest upsertRequest = updateRequest.upsertRequest();
-                        if (upsertRequest != null) {
-                            upsertRequest.setPipeline(defaultPipeline);
+                        index = stringDeduplicator.computeIfAbsent(parser.text(), Function.identity());
+                    } else if (TYPE.match(currentFieldName, parser.getDeprecationHandler())) {
+                        // the deprecation of types with the compatible API is logged by the caller, once per bulk request
+                        if (parser.getRestApiVersion().matches(RestApiVersion.onOrAfter(RestApiVersion.V_8)) && deprecateOrErrorOnType) {
+                            throw new IllegalArgumentException(
+                                "Action/metadata line [" + line + "] contains an unknown parameter [" + currentFieldName + "]"
+                            );
                         }
-
-                        updateRequestConsumer.accept(updateRequest);
+                        type = stringDeduplicator.computeIfAbsent(parser.text(), Function.identity());
+                    } else if (ID.match(currentFieldName, parser.getDeprecationHandler())) {
+                        id = parser.text();
+                    } else if (ROUTING.match(currentFieldName, parser.getDeprecationHandler())) {
+                        routing = stringDeduplicator.computeIfAbsent(parser.text(), Function.identity());
+                    } else if (OP_TYPE.match(currentFieldName, parser.getDeprecationHandler())) {
+                        opType = parser.text();
+                    } else if (VERSION.match(currentFieldName, parser.getDeprecationHandler())) {
+                        version = parser.longValue();
+                    } else if (VERSION_TYPE.match(currentFieldName, parser.getDeprecationHandler())) {
+                        versionType = VersionType.fromString(parser.text());
+                    } else if (IF_SEQ_NO.match(currentFieldName, parser.getDeprecationHandler())) {
+                        ifSeqNo = parser.longValue();
+                    } else if (IF_PRIMARY_TERM.match(currentFieldName, parser.getDeprecationHandler())) {
+                        ifPrimaryTerm = parser.longValue();
+                    } else if (RETRY_ON_CONFLICT.match(currentFieldName, parser.getDeprecationHandler())) {
+                        retryOnConflict = parser.intValue();
+                    } else if (PIPELINE.match(currentFieldName, parser.getDeprecationHandler())) {
+                        pipeline = stringDeduplicator.computeIfAbsent(parser.text(), Function.identity());
+                    } else if (SOURCE.match(currentFieldName, parser.getDeprecationHandler())) {
+                        fetchSourceContext = FetchSourceContext.fromXContent(parser);
+                    } else if (REQUIRE_ALIAS.match(currentFieldName, parser.getDeprecationHandler())) {
+                        requireAlias = parser.booleanValue();
+                    } else {
+                        throw new IllegalArgumentException(
+                            "Action/metadata line [" + line + "] contains an unknown parameter [" + currentFieldName + "]"
+                        );
                     }
-                    // move pointers
-                    from = nextMarker + 1;
-                }
+                } else if (token == XContentParser.Token.START_ARRAY) {
+                    throw new IllegalArgumentException(
+                        "Malformed action/metadata line ["
+                            + line
+                            + "], expected a simple value for field ["
+                            + currentFieldName
+                            + "] but found ["
+                            + token
+                            + "]"
+                    );
+                } else if (token == XContentParser.Token.START_OBJECT
+                    && DYNAMIC_TEMPLATES.match(currentFieldName, parser.getDeprecationHandler())) {
+                        dynamicTemplates = parser.mapStrings();
+                    } else if (token == XContentParser.Token.START_OBJECT
+                        && SOURCE.match(currentFieldName, parser.getDeprecationHandler())) {
+                            fetchSourceContext = FetchSourceContext.fromXContent(parser);
+                        } else if (token != XContentParser.Token.VALUE_NULL) {
+                            throw new IllegalArgumentException(
+                                "Malformed action/metadata line ["
+                                    + line
+                                    + "], expected a simple value for field ["
+                                    + currentFieldName
+                                    + "] but found ["
+                                    + token
+                                    + "]"
+                            );
+                        }
             }
+        } else if (token != XContentParser.Token.END_OBJECT) {
+            throw new IllegalArgumentException(
+                "Malformed action/metadata line ["
+                    + line
+                    + "], expected "
+                    + XContentParser.Token.START_OBJECT
+                    + " or "
+                    + XContentParser.Token.END_OBJECT
+                    + " but found ["
+                    + token
+                    + "]"
+            );
+        }
+        checkBulkActionIsProperlyClosed(parser);
+        return new ActionMetadata(
+            action,
+            index,
+            type,
+            id,
+            routing,
+            fetchSourceContext,
+            opType,
+            version,
+            versionType,
+            ifSeqNo,
+            ifPrimaryTerm,
+            retryOnConflict,
+            pipeline,
+            requireAlias,
+            dynamicTemplates
+        );
+    }
+
+    /**
+     * The metadata parsed from an action line.
+     */
+    private record ActionMetadata(
+        String action,
+        String index,
+        String type,
+        String id,
+        String routing,
+        FetchSourceContext fetchSourceContext,
+        String opType,
+        long version,
+        VersionType versionType,
+        long ifSeqNo,
+        long ifPrimaryTerm,
+        int retryOnConflict,
+        String pipeline,
+        boolean requireAlias,
+        Map<String, String> dynamicTemplates
+    ) {}
+
+    /**
+     * Returns whether the bytes in {@code [from1, to1)} and {@code [from2, to2)} of the given data are the same.
+     */
+    private static boolean sameBytes(BytesReference data, int from1, int to1, int from2, int to2) {
+        if (to1 - from1 != to2 - from2) {
+            return false;
+        }
+        final BytesReference first = data.slice(from1, to1 - from1);
+        final BytesReference second = data.slice(from2, to2 - from2);
+        if (first.hasArray() && second.hasArray()) {
+            return Arrays.equals(
+                first.array(),
+                first.arrayOffset(),
+                first.arrayOffset() + first.length(),
+                second.array(),
+                second.arrayOffset(),
+                second.arrayOffset() + second.length()
+            );
         }
+        return first.equals(second);
     }
 
     private void checkBulkActionIsProperlyClosed(XContentParser parser) throws IOException {
@@ -25,8 +25,10 @@ import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.routing.GroupShardsIterator;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.SearchContextMissingException;
 import org.elasticsearch.search.SearchPhaseResult;
@@ -38,14 +40,17 @@ import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchContextId;
 import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.tasks.TaskCancelledException;
+import org.elasticsearch.threadpool.Scheduler;
 import org.elasticsearch.transport.Transport;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -96,6 +101,11 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
     private final Map<String, PendingExecutions> pendingExecutionsPerNode = new ConcurrentHashMap<>();
     private final boolean throttleConcurrentRequests;
     private final AtomicBoolean requestCancelled = new AtomicBoolean();
+    @Nullable
+    private final SearchShardHedging hedging;
+    // the requests sent to the copies of each shard, if requests are hedged
+    @Nullable
+    private final HedgedShardRequests[] hedgedShardRequests;
 
     private final List<Releasable> releasables = new ArrayList<>();
 
@@ -116,6 +126,46 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         SearchPhaseResults<Result> resultConsumer,
         int maxConcurrentRequestsPerNode,
         SearchResponse.Clusters clusters
+    ) {
+        this(
+            name,
+            logger,
+            searchTransportService,
+            nodeIdToConnection,
+            aliasFilter,
+            concreteIndexBoosts,
+            executor,
+            request,
+            listener,
+            shardsIts,
+            timeProvider,
+            clusterState,
+            task,
+            resultConsumer,
+            maxConcurrentRequestsPerNode,
+            clusters,
+            null
+        );
+    }
+
+    AbstractSearchAsyncAction(
+        String name,
+        Logger logger,
+        SearchTransportService searchTransportService,
+        BiFunction<String, String, Transport.Connection> nodeIdToConnection,
+        Map<String, AliasFilter> aliasFilter,
+        Map<String, Float> concreteIndexBoosts,
+        Executor executor,
+        SearchRequest request,
+        ActionListener<SearchResponse> listener,
+        GroupShardsIterator<SearchShardIterator> shardsIts,
+        SearchTimeProvider timeProvider,
+        ClusterState clusterState,
+        SearchTask task,
+        SearchPhaseResults<Result> resultConsumer,
+        int maxConcurrentRequestsPerNode,
+        SearchResponse.Clusters clusters,
+        @Nullable SearchShardHedging hedging
     ) {
         super(name);
         final List<SearchShardIterator> toSkipIterators = new ArrayList<>();
@@ -163,6 +213,15 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         this.aliasFilter = aliasFilter;
         this.results = resultConsumer;
         this.clusters = clusters;
+        this.hedging = hedging;
+        if (hedging == null) {
+            this.hedgedShardRequests = null;
+        } else {
+            this.hedgedShardRequests = new HedgedShardRequests[shardIterators.length];
+            for (int i = 0; i < hedgedShardRequests.length; i++) {
+                hedgedShardRequests[i] = new HedgedShardRequests();
+            }
+        }
     }
 
     @Override
@@ -310,49 +369,186 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
             SearchShardTarget unassignedShard = new SearchShardTarget(null, shardIt.shardId(), shardIt.getClusterAlias());
             onShardFailure(shardIndex, unassignedShard, shardIt, new NoShardAvailableActionException(shardIt.shardId()));
         } else {
-            final PendingExecutions pendingExecutions = throttleConcurrentRequests
-                ? pendingExecutionsPerNode.computeIfAbsent(shard.getNodeId(), n -> new PendingExecutions(maxConcurrentRequestsPerNode))
-                : null;
-            Runnable r = () -> {
-                final Thread thread = Thread.currentThread();
-                try {
-                    executePhaseOnShard(shardIt, shard, new SearchActionListener<Result>(shard, shardIndex) {
-                        @Override
-                        public void innerOnResponse(Result result) {
-                            try {
+            final HedgedShardRequests hedgedRequests = hedgedShardRequests == null ? null : hedgedShardRequests[shardIndex];
+            final int attempt = hedgedRequests == null ? 0 : hedgedRequests.onSend();
+            performPhaseOnShard(shardIndex, shardIt, shard, hedgedRequests, attempt);
+        }
+    }
+
+    private void performPhaseOnShard(
+        final int shardIndex,
+        final SearchShardIterator shardIt,
+        final SearchShardTarget shard,
+        @Nullable final HedgedShardRequests hedgedRequests,
+        final int attempt
+    ) {
+        final PendingExecutions pendingExecutions = throttleConcurrentRequests
+            ? pendingExecutionsPerNode.computeIfAbsent(shard.getNodeId(), n -> new PendingExecutions(maxConcurrentRequestsPerNode))
+            : null;
+        Runnable r = () -> {
+            final Thread thread = Thread.currentThread();
+            try {
+                if (hedgedRequests != null && attempt == 1) {
+                    scheduleHedge(shardIndex, shardIt, shard, hedgedRequests);
+                }
+                executePhaseOnShard(shardIt, shard, new SearchActionListener<Result>(shard, shardIndex) {
+                    @Override
+                    public void innerOnResponse(Result result) {
+                        try {
+                            if (hedgedRequests == null || onHedgedShardResponse(hedgedRequests, attempt)) {
                                 onShardResult(result, shardIt);
-                            } catch (Exception exc) {
-                                onShardFailure(shardIndex, shard, shardIt, exc);
-                            } finally {
-                                executeNext(pendingExecutions, thread);
+                            } else {
+                                releaseDiscardedResult(result);
                             }
+                        } catch (Exception exc) {
+                            onShardFailure(shardIndex, shard, shardIt, exc);
+                        } finally {
+                            executeNext(pendingExecutions, thread);
                         }
+                    }
 
-                        @Override
-                        public void onFailure(Exception t) {
-                            try {
+                    @Override
+                    public void onFailure(Exception t) {
+                        try {
+                            if (hedgedRequests == null || onHedgedShardFailure(hedgedRequests, attempt, shardIndex, shard, t)) {
                                 onShardFailure(shardIndex, shard, shardIt, t);
-                            } finally {
-                                executeNext(pendingExecutions, thread);
                             }
+                        } finally {
+                            executeNext(pendingExecutions, thread);
                         }
-                    });
-                } catch (final Exception e) {
-                    try {
-                        /*
-                         * It is possible to run into connection exceptions here because we are getting the connection early and might
-                         * run into nodes that are not connected. In this case, on shard failure will move us to the next shard copy.
-                         */
-                        fork(() -> onShardFailure(shardIndex, shard, shardIt, e));
-                    } finally {
-                        executeNext(pendingExecutions, thread);
                     }
+                });
+            } catch (final Exception e) {
+                try {
+                    /*
+                     * It is possible to run into connection exceptions here because we are getting the connection early and might
+                     * run into nodes that are not connected. In this case, on shard failure will move us to the next shard copy.
+                     */
+                    fork(() -> {
+                        if (hedgedRequests == null || onHedgedShardFailure(hedgedRequests, attempt, shardIndex, shard, e)) {
+                            onShardFailure(shardIndex, shard, shardIt, e);
+                        }
+                    });
+                } finally {
+                    executeNext(pendingExecutions, thread);
                 }
-            };
-            if (throttleConcurrentRequests) {
-                pendingExecutions.tryRun(r);
-            } else {
-                r.run();
+            }
+        };
+        if (throttleConcurrentRequests) {
+            pendingExecutions.tryRun(r);
+        } else {
+            r.run();
+        }
+    }
+
+    /**
+     * Schedules sending the request to another copy of the shard in case the given shard takes longer than usual to respond.
+     */
+    private void scheduleHedge(
+        final int shardIndex,
+        final SearchShardIterator shardIt,
+        final SearchShardTarget shard,
+        final HedgedShardRequests hedgedRequests
+    ) {
+        assert hedging != null;
+        if (shardIt.remaining() == 0) {
+            return;
+        }
+        final TimeValue delay = hedging.hedgeDelay(shard);
+        if (delay == null) {
+            return;
+        }
+        hedging.onHedgeableRequest();
+        hedgedRequests.setHedgeTimer(hedging.schedule(() -> fork(() -> hedge(shardIndex, shardIt, hedgedRequests)), delay));
+    }
+
+    private void hedge(final int shardIndex, final SearchShardIterator shardIt, final HedgedShardRequests hedgedRequests) {
+        assert hedging != null;
+        final SearchShardTarget hedgeShard;
+        final int hedgeAttempt;
+        synchronized (hedgedRequests) {
+            // only hedge the first request, and only if it is still the only one in flight
+            if (hedgedRequests.attempts != 1 || hedgedRequests.inFlight.size() != 1) {
+                return;
+            }
+            hedgeShard = shardIt.nextOrNull();
+            if (hedgeShard == null) {
+                return;
+            }
+            hedgeAttempt = hedgedRequests.onSend();
+            hedgedRequests.hedgeAttempt = hedgeAttempt;
+        }
+        logger.trace("hedging the request to shard [{}] with the copy on node [{}]", shardIt.shardId(), hedgeShard.getNodeId());
+        hedging.onHedgedRequest();
+        performPhaseOnShard(shardIndex, shardIt, hedgeShard, hedgedRequests, hedgeAttempt);
+    }
+
+    /**
+     * @return whether the response should be used, which is not the case if the response of another request to the shard was used
+     */
+    private boolean onHedgedShardResponse(final HedgedShardRequests hedgedRequests, final int attempt) {
+        assert hedging != null;
+        final int abandonedRequests;
+        synchronized (hedgedRequests) {
+            if (hedgedRequests.inFlight.remove(attempt) == false) {
+                return false;
+            }
+            // the other requests in flight are abandoned
+            abandonedRequests = hedgedRequests.inFlight.size();
+            hedgedRequests.inFlight.clear();
+            if (hedgedRequests.hedgeTimer != null) {
+                hedgedRequests.hedgeTimer.cancel();
+            }
+            if (attempt == hedgedRequests.hedgeAttempt) {
+                hedging.onHedgeWon();
+            }
+        }
+        if (abandonedRequests > 0) {
+            // the responses of the other requests are discarded, account for them now; the ops of this response are still to come
+            final int totalOps = this.totalOps.addAndGet(abandonedRequests);
+            assert totalOps < expectedTotalOps : "total ops [" + totalOps + "] reached expected [" + expectedTotalOps + "]";
+        }
+        return true;
+    }
+
+    /**
+     * @return whether the failure should be handled as usual, by moving on to the next copy of the shard, which is not the case if
+     *         another request to the shard is still in flight or has already succeeded
+     */
+    private boolean onHedgedShardFailure(
+        final HedgedShardRequests hedgedRequests,
+        final int attempt,
+        final int shardIndex,
+        final SearchShardTarget shard,
+        final Exception e
+    ) {
+        synchronized (hedgedRequests) {
+            if (hedgedRequests.inFlight.remove(attempt) == false) {
+                // the request was abandoned, and accounted for, when the response of another one was used
+                return false;
+            }
+            if (hedgedRequests.inFlight.isEmpty()) {
+                return true;
+            }
+            // recorded and accounted for while no other request can be used yet, so that the failure never replaces the response of
+            // another request and the ops of the request that is used are always the last ones to be added to the total ops
+            logger.debug(() -> new ParameterizedMessage("{}: Failed to execute [{}] while hedged", shard, request), e);
+            onShardFailure(shardIndex, shard, e);
+            final int totalOps = this.totalOps.incrementAndGet();
+            assert totalOps < expectedTotalOps : "total ops [" + totalOps + "] reached expected [" + expectedTotalOps + "]";
+        }
+        return false;
+    }
+
+    private void releaseDiscardedResult(Result result) {
+        final ShardSearchContextId contextId = result.getContextId();
+        if (contextId != null && isPartOfPointInTime(contextId) == false) {
+            try {
+                final SearchShardTarget shardTarget = result.getSearchShardTarget();
+                final Transport.Connection connection = getConnection(shardTarget.getClusterAlias(), shardTarget.getNodeId());
+                sendReleaseSearchContext(contextId, connection, getOriginalIndices(result.getShardIndex()));
+            } catch (Exception e) {
+                logger.trace("failed to release context", e);
             }
         }
     }
@@ -822,6 +1018,34 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         }
     }
 
+    /**
+     * The requests sent to the copies of a shard while the first request may be hedged. Once the response of a request is used, the
+     * other requests in flight are abandoned and their responses are discarded.
+     */
+    private static final class HedgedShardRequests {
+        // the number of requests sent to the copies of the shard
+        private int attempts;
+        // the requests that did not complete and were not abandoned yet
+        private final Set<Integer> inFlight = new HashSet<>();
+        // the request that hedged the first request, or 0 if it was not hedged
+        private int hedgeAttempt;
+        @Nullable
+        private Scheduler.Cancellable hedgeTimer;
+
+        synchronized int onSend() {
+            attempts++;
+            inFlight.add(attempts);
+            return attempts;
+        }
+
+        synchronized void setHedgeTimer(Scheduler.Cancellable hedgeTimer) {
+            this.hedgeTimer = hedgeTimer;
+            if (inFlight.contains(1) == false) {
+                hedgeTimer.cancel();
+            }
+        }
+    }
+
     private static final class PendingExecutions {
         private final int permits;
         private int permitsTaken = 0;
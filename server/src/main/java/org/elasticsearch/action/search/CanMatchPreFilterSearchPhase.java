@@ -168,7 +168,7 @@ final class CanMatchPreFilterSearchPhase extends SearchPhase {
             final ShardSearchRequest request = canMatchNodeRequest.createShardSearchRequest(buildShardLevelRequest(searchShardIterator));
             boolean canMatch = true;
             CoordinatorRewriteContext coordinatorRewriteContext = coordinatorRewriteContextProvider.getCoordinatorRewriteContext(
-                request.shardId().getIndex()
+                request.shardId()
             );
             if (coordinatorRewriteContext != null) {
                 try {
@@ -278,6 +278,14 @@ final class CanMatchPreFilterSearchPhase extends SearchPhase {
                                 if (response.getResponse() != null) {
                                     CanMatchShardResponse shardResponse = response.getResponse();
                                     shardResponse.setShardIndex(shardLevelRequests.get(i).getShardRequestIndex());
+                                    if (shardResponse.timestampRange() != null && entry.getKey().clusterAlias == null) {
+                                        // skip this shard on the coordinating node next time if it cannot match
+                                        coordinatorRewriteContextProvider.onCanMatchResponse(
+                                            shardLevelRequests.get(i).shardId(),
+                                            shardResponse.timestampRange(),
+                                            shardResponse.timestampRangeSettingsVersion()
+                                        );
+                                    }
                                     onOperation(shardResponse.getShardIndex(), shardResponse);
                                 } else {
                                     Exception failure = response.getException();
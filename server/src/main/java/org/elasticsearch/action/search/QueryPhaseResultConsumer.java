@@ -15,6 +15,7 @@ import org.elasticsearch.action.search.SearchPhaseController.TopDocsStats;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.io.stream.DelayableWriteable;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.core.Releasable;
@@ -26,6 +27,7 @@ import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.query.QuerySearchResult;
 
+import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -49,6 +51,11 @@ import static org.elasticsearch.action.search.SearchPhaseController.setShardInde
  * in the {@link CircuitBreaker#REQUEST} circuit breaker. Before any partial or final reduce, the memory
  * needed to reduce the aggregations is estimated and a {@link CircuitBreakingException} is thrown if it
  * exceeds the maximum memory allowed in this breaker.
+ * <p>
+ * In streaming mode every shard result is reduced into the accumulated aggregations as soon as it arrives instead of waiting for a
+ * batch of {@link SearchRequest#getBatchedReduceSize()} results, so the shard results can be released right away. Between two partial
+ * reduces the accumulated aggregations are kept serialized in recycled {@link org.elasticsearch.common.util.BigArrays} pages, and the
+ * circuit breaker accounts for the size of these pages rather than for the buffered shard results.
  */
 public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhaseResult> implements Releasable {
     private static final Logger logger = LogManager.getLogger(QueryPhaseResultConsumer.class);
@@ -63,6 +70,8 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
     private final boolean hasTopDocs;
     private final boolean hasAggs;
     private final boolean performFinalReduce;
+    private final boolean streamingReduce;
+    private final NamedWriteableRegistry namedWriteableRegistry;
 
     private final PendingMerges pendingMerges;
     private final Consumer<Exception> onPartialMergeFailure;
@@ -80,6 +89,37 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         SearchProgressListener progressListener,
         int expectedResultSize,
         Consumer<Exception> onPartialMergeFailure
+    ) {
+        this(
+            request,
+            executor,
+            circuitBreaker,
+            controller,
+            isCanceled,
+            progressListener,
+            expectedResultSize,
+            onPartialMergeFailure,
+            false,
+            null
+        );
+    }
+
+    /**
+     * Creates a {@link QueryPhaseResultConsumer} that incrementally reduces aggregation results
+     * as shard results are consumed, optionally in streaming mode. The {@link NamedWriteableRegistry}
+     * is needed to read back the accumulated aggregations in streaming mode.
+     */
+    public QueryPhaseResultConsumer(
+        SearchRequest request,
+        Executor executor,
+        CircuitBreaker circuitBreaker,
+        SearchPhaseController controller,
+        Supplier<Boolean> isCanceled,
+        SearchProgressListener progressListener,
+        int expectedResultSize,
+        Consumer<Exception> onPartialMergeFailure,
+        boolean streamingReduce,
+        NamedWriteableRegistry namedWriteableRegistry
     ) {
         super(expectedResultSize);
         this.executor = executor;
@@ -94,7 +134,14 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         SearchSourceBuilder source = request.source();
         this.hasTopDocs = source == null || source.size() != 0;
         this.hasAggs = source != null && source.aggregations() != null;
+        this.streamingReduce = streamingReduce && hasAggs;
+        assert this.streamingReduce == false || namedWriteableRegistry != null : "streaming reduce requires a registry";
+        this.namedWriteableRegistry = namedWriteableRegistry;
         int batchReduceSize = (hasAggs || hasTopDocs) ? Math.min(request.getBatchedReduceSize(), expectedResultSize) : expectedResultSize;
+        if (this.streamingReduce) {
+            // merge every result into the accumulated aggregations as soon as the previous merge is done
+            batchReduceSize = Math.min(2, batchReduceSize);
+        }
         this.pendingMerges = new PendingMerges(batchReduceSize, request.resolveTrackTotalHitsUpTo());
     }
 
@@ -163,7 +210,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         TopDocsStats topDocsStats,
         MergeResult lastMerge,
         int numReducePhases
-    ) {
+    ) throws IOException {
         // ensure consistent ordering
         Arrays.sort(toConsume, Comparator.comparingInt(QuerySearchResult::getShardIndex));
 
@@ -196,7 +243,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         if (hasAggs) {
             List<InternalAggregations> aggsList = new ArrayList<>();
             if (lastMerge != null) {
-                aggsList.add(lastMerge.reducedAggs);
+                aggsList.add(lastMerge.reducedAggs.expand());
             }
             for (QuerySearchResult result : toConsume) {
                 aggsList.add(result.consumeAggs());
@@ -214,16 +261,44 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             processedShards.add(new SearchShard(target.getClusterAlias(), target.getShardId()));
         }
         progressListener.notifyPartialReduce(processedShards, topDocsStats.getTotalHits(), newAggs, numReducePhases);
+        if (hasAggs == false) {
+            return new MergeResult(processedShards, newTopDocs, null, 0);
+        }
+        if (streamingReduce) {
+            // the serialized aggregations are much smaller than the reduced objects, and the size of their pages is exactly what
+            // the accumulator holds onto until the next merge. This consumer accounts for that size in the circuit breaker, so the
+            // pages are taken from big arrays that don't account for them a second time.
+            DelayableWriteable.Serialized<InternalAggregations> serialized = DelayableWriteable.serialize(
+                newAggs,
+                InternalAggregations::readFrom,
+                namedWriteableRegistry,
+                aggReduceContextBuilder.forPartialReduction().bigArrays().withBreakerService(null)
+            );
+            return new MergeResult(processedShards, newTopDocs, serialized, serialized.getSerializedSize());
+        }
         // we leave the results un-serialized because serializing is slow but we compute the serialized
         // size as an estimate of the memory used by the newly reduced aggregations.
-        long serializedSize = hasAggs ? DelayableWriteable.getSerializedSize(newAggs) : 0;
-        return new MergeResult(processedShards, newTopDocs, newAggs, hasAggs ? serializedSize : 0);
+        long serializedSize = DelayableWriteable.getSerializedSize(newAggs);
+        return new MergeResult(processedShards, newTopDocs, DelayableWriteable.referencing(newAggs), serializedSize);
+    }
+
+    private static void releaseAggs(MergeResult mergeResult) {
+        if (mergeResult != null && mergeResult.reducedAggs != null) {
+            mergeResult.reducedAggs.close();
+        }
     }
 
     public int getNumReducePhases() {
         return pendingMerges.numReducePhases;
     }
 
+    /**
+     * Returns the memory that is currently accounted in the circuit breaker for this consumer.
+     */
+    long getCircuitBreakerBytes() {
+        return pendingMerges.circuitBreakerBytes;
+    }
+
     private class PendingMerges implements Releasable {
         private final int batchReduceSize;
         private final List<QuerySearchResult> buffer = new ArrayList<>();
@@ -257,6 +332,10 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             }
 
             List<Releasable> toRelease = new ArrayList<>(buffer.stream().<Releasable>map(b -> b::releaseAggs).collect(Collectors.toList()));
+            toRelease.add(() -> {
+                releaseAggs(mergeResult);
+                mergeResult = null;
+            });
             toRelease.add(() -> {
                 circuitBreaker.addWithoutBreaking(-circuitBreakerBytes);
                 circuitBreakerBytes = 0;
@@ -389,6 +468,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             while ((mergeTask = queue.pollFirst()) != null) {
                 toCancels.add(mergeTask::cancel);
             }
+            releaseAggs(mergeResult);
             mergeResult = null;
             Releasables.close(toCancels);
         }
@@ -396,6 +476,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         private void onAfterMerge(MergeTask task, MergeResult newResult, long estimatedSize) {
             synchronized (this) {
                 if (hasFailure()) {
+                    releaseAggs(newResult);
                     return;
                 }
                 runningTask.compareAndSet(task, null);
@@ -429,13 +510,14 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             executor.execute(new AbstractRunnable() {
                 @Override
                 protected void doRun() {
-                    final MergeResult thisMergeResult = mergeResult;
-                    long estimatedTotalSize = (thisMergeResult != null ? thisMergeResult.estimatedSize : 0) + task.aggsBufferSize;
-                    final MergeResult newMerge;
                     final QuerySearchResult[] toConsume = task.consumeBuffer();
                     if (toConsume == null) {
                         return;
                     }
+                    // the running merge owns the previous result until it is replaced by the new one
+                    final MergeResult thisMergeResult = takeMergeResult();
+                    long estimatedTotalSize = (thisMergeResult != null ? thisMergeResult.estimatedSize : 0) + task.aggsBufferSize;
+                    final MergeResult newMerge;
                     try {
                         long estimatedMergeSize = estimateRamBytesUsedForReduce(estimatedTotalSize);
                         addEstimateAndMaybeBreak(estimatedMergeSize);
@@ -448,6 +530,8 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                         }
                         onMergeFailure(t);
                         return;
+                    } finally {
+                        releaseAggs(thisMergeResult);
                     }
                     onAfterMerge(task, newMerge, estimatedTotalSize);
                     tryExecuteNext();
@@ -460,6 +544,12 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             });
         }
 
+        private synchronized MergeResult takeMergeResult() {
+            MergeResult result = mergeResult;
+            mergeResult = null;
+            return result;
+        }
+
         public synchronized TopDocsStats consumeTopDocsStats() {
             for (QuerySearchResult result : buffer) {
                 topDocsStats.add(result.topDocs(), result.searchTimedOut(), result.terminatedEarly());
@@ -489,7 +579,12 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             }
             List<InternalAggregations> aggsList = new ArrayList<>();
             if (mergeResult != null) {
-                aggsList.add(mergeResult.reducedAggs);
+                try {
+                    aggsList.add(mergeResult.reducedAggs.expand());
+                } finally {
+                    releaseAggs(mergeResult);
+                    mergeResult = null;
+                }
             }
             for (QuerySearchResult result : buffer) {
                 aggsList.add(result.consumeAggs());
@@ -501,7 +596,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
     private record MergeResult(
         List<SearchShard> processedShards,
         TopDocs reducedTopDocs,
-        InternalAggregations reducedAggs,
+        DelayableWriteable<InternalAggregations> reducedAggs,
         long estimatedSize
     ) {}
 
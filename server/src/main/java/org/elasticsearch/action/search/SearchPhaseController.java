@@ -24,6 +24,7 @@ import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.search.TotalHits.Relation;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.collect.HppcMaps;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.common.util.Maps;
 import org.elasticsearch.lucene.grouping.TopFieldGroups;
@@ -661,6 +662,34 @@ public final class SearchPhaseController {
         SearchRequest request,
         int numShards,
         Consumer<Exception> onPartialMergeFailure
+    ) {
+        return newSearchPhaseResults(
+            executor,
+            circuitBreaker,
+            isCanceled,
+            listener,
+            request,
+            numShards,
+            onPartialMergeFailure,
+            false,
+            null
+        );
+    }
+
+    /**
+     * Returns a new {@link QueryPhaseResultConsumer} instance that reduces search responses incrementally,
+     * merging every response into the accumulated aggregations as it arrives if {@code streamingReduce} is set.
+     */
+    QueryPhaseResultConsumer newSearchPhaseResults(
+        Executor executor,
+        CircuitBreaker circuitBreaker,
+        Supplier<Boolean> isCanceled,
+        SearchProgressListener listener,
+        SearchRequest request,
+        int numShards,
+        Consumer<Exception> onPartialMergeFailure,
+        boolean streamingReduce,
+        NamedWriteableRegistry namedWriteableRegistry
     ) {
         return new QueryPhaseResultConsumer(
             request,
@@ -670,7 +699,9 @@ public final class SearchPhaseController {
             isCanceled,
             listener,
             numShards,
-            onPartialMergeFailure
+            onPartialMergeFailure,
+            streamingReduce,
+            namedWriteableRegistry
         );
     }
 
@@ -0,0 +1,58 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.node.ResponseCollectorService;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.threadpool.Scheduler;
+import org.elasticsearch.threadpool.ThreadPool;
+
+/**
+ * Decides when a shard request of the initial search phase is hedged, i.e. also sent to another copy of the shard because the node it
+ * was sent to takes longer than usual to respond. The first of the two responses is used and the other one is discarded, which cuts the
+ * tail latency of searches caused by slow nodes, for instance because of garbage collection pauses, at the cost of some extra load.
+ * Requests are hedged once they have been waiting for longer than the {@link ResponseCollectorService#getHedgeDelay 95th percentile} of
+ * the recent response times of the node.
+ */
+class SearchShardHedging {
+
+    private final ResponseCollectorService collector;
+    private final ThreadPool threadPool;
+
+    SearchShardHedging(ResponseCollectorService collector, ThreadPool threadPool) {
+        this.collector = collector;
+        this.threadPool = threadPool;
+    }
+
+    /**
+     * @return how long to wait for the response of the given shard before hedging the request, or {@code null} to never hedge it
+     */
+    @Nullable
+    TimeValue hedgeDelay(SearchShardTarget shard) {
+        return collector.getHedgeDelay(shard.getNodeId());
+    }
+
+    Scheduler.Cancellable schedule(Runnable command, TimeValue delay) {
+        return threadPool.schedule(command, delay, ThreadPool.Names.SAME);
+    }
+
+    void onHedgeableRequest() {
+        collector.onHedgeableRequest();
+    }
+
+    void onHedgedRequest() {
+        collector.onHedgedRequest();
+    }
+
+    void onHedgeWon() {
+        collector.onHedgeWon();
+    }
+}
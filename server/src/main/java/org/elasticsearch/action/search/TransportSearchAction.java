@@ -52,6 +52,7 @@ import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardNotFoundException;
 import org.elasticsearch.indices.ExecutorSelector;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.node.ResponseCollectorService;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchService;
 import org.elasticsearch.search.SearchShardTarget;
@@ -122,6 +123,17 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         Property.NodeScope
     );
 
+    /**
+     * Whether the coordinating node reduces every shard response into the accumulated aggregations as soon as it arrives, rather than
+     * buffering batches of {@link SearchRequest#getBatchedReduceSize()} responses.
+     */
+    public static final Setting<Boolean> STREAMING_REDUCE_SETTING = Setting.boolSetting(
+        "action.search.streaming_reduce.enabled",
+        false,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
     private final ThreadPool threadPool;
     private final ClusterService clusterService;
     private final SearchTransportService searchTransportService;
@@ -134,6 +146,8 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
     private final ExecutorSelector executorSelector;
     private final int defaultPreFilterShardSize;
     private final boolean ccsCheckCompatibility;
+    @Nullable
+    private final SearchShardHedging searchShardHedging;
 
     @Inject
     public TransportSearchAction(
@@ -163,6 +177,8 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         this.executorSelector = executorSelector;
         this.defaultPreFilterShardSize = DEFAULT_PRE_FILTER_SHARD_SIZE.get(clusterService.getSettings());
         this.ccsCheckCompatibility = SearchService.CCS_VERSION_CHECK_SETTING.get(clusterService.getSettings());
+        final ResponseCollectorService responseCollectorService = searchService.getResponseCollectorService();
+        this.searchShardHedging = responseCollectorService == null ? null : new SearchShardHedging(responseCollectorService, threadPool);
     }
 
     private Map<String, OriginalIndices> buildPerIndexOriginalIndices(
@@ -1184,7 +1200,9 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
                 task.getProgressListener(),
                 searchRequest,
                 shardIterators.size(),
-                exc -> searchTransportService.cancelSearchTask(task, "failed to merge result [" + exc.getMessage() + "]")
+                exc -> searchTransportService.cancelSearchTask(task, "failed to merge result [" + exc.getMessage() + "]"),
+                clusterService.getClusterSettings().get(STREAMING_REDUCE_SETTING),
+                namedWriteableRegistry
             );
             AbstractSearchAsyncAction<? extends SearchPhaseResult> searchAsyncAction = switch (searchRequest.searchType()) {
                 case DFS_QUERY_THEN_FETCH -> new SearchDfsQueryThenFetchAsyncAction(
@@ -1202,7 +1220,8 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
                     timeProvider,
                     clusterState,
                     task,
-                    clusters
+                    clusters,
+                    searchShardHedging
                 );
                 case QUERY_THEN_FETCH -> new SearchQueryThenFetchAsyncAction(
                     logger,
@@ -1219,7 +1238,8 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
                     timeProvider,
                     clusterState,
                     task,
-                    clusters
+                    clusters,
+                    searchShardHedging
                 );
             };
             return searchAsyncAction;
@@ -25,6 +25,7 @@ import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
 import org.elasticsearch.index.IndexingPressure;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.mapper.MapperParsingException;
@@ -117,6 +118,25 @@ public abstract class TransportWriteAction<
 
     @Override
     protected Releasable checkPrimaryLimits(Request request, boolean rerouteWasLocal, boolean localRerouteInitiatedByNodeClient) {
+        final Releasable shardReleasable = indexingPressure.markPrimaryShardOperationStarted(
+            request.shardId(),
+            primaryOperationCount(request),
+            primaryOperationSize(request),
+            force(request)
+        );
+        boolean success = false;
+        try {
+            final Releasable nodeReleasable = checkPrimaryNodeLimits(request, rerouteWasLocal, localRerouteInitiatedByNodeClient);
+            success = true;
+            return Releasables.wrap(nodeReleasable, shardReleasable);
+        } finally {
+            if (success == false) {
+                shardReleasable.close();
+            }
+        }
+    }
+
+    private Releasable checkPrimaryNodeLimits(Request request, boolean rerouteWasLocal, boolean localRerouteInitiatedByNodeClient) {
         if (rerouteWasLocal) {
             // If this primary request was received from a local reroute initiated by the node client, we
             // must mark a new primary operation local to the coordinating node.
@@ -204,9 +224,17 @@ public abstract class TransportWriteAction<
         IndexShard primary,
         ActionListener<PrimaryResult<ReplicaRequest, Response>> listener
     ) {
+        final long enqueuedAtNanos = System.nanoTime();
         threadPool.executor(executorFunction.apply(executorSelector, primary)).execute(new ActionRunnable<>(listener) {
             @Override
             protected void doRun() {
+                if (indexingPressure.isShardAdmissionEnabled()) {
+                    indexingPressure.recordPrimaryShardQueueLatency(
+                        request.shardId(),
+                        System.nanoTime() - enqueuedAtNanos,
+                        primary.isIndexingThrottled()
+                    );
+                }
                 dispatchedShardOperationOnPrimary(request, primary, listener);
             }
 
@@ -477,6 +477,7 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
     static final String KEY_SETTINGS = "settings";
     static final String KEY_STATE = "state";
     static final String KEY_MAPPINGS = "mappings";
+    static final String KEY_MAPPINGS_HASH = "mappings_hash";
     static final String KEY_ALIASES = "aliases";
     static final String KEY_ROLLOVER_INFOS = "rollover_info";
     static final String KEY_SYSTEM = "system";
@@ -485,6 +486,12 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
 
     public static final String INDEX_STATE_FILE_PREFIX = "state-";
 
+    /**
+     * When set to {@code true} the mapping of the index is only referenced by its hash in the non-API x-content output, the mappings
+     * themselves are expected to be stored separately and must be passed to {@link Builder#fromXContent(XContentParser, Map)}.
+     */
+    public static final String DEDUPLICATED_MAPPINGS_PARAM = "deduplicated_mappings";
+
     static final Version SYSTEM_INDEX_FLAG_ADDED = Version.V_7_10_0;
 
     private final int routingNumShards;
@@ -1751,7 +1758,12 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
             }
             builder.endObject();
 
-            if (context != Metadata.XContentContext.API) {
+            if (context != Metadata.XContentContext.API && params.paramAsBoolean(DEDUPLICATED_MAPPINGS_PARAM, false)) {
+                MappingMetadata mmd = indexMetadata.mapping();
+                if (mmd != null) {
+                    builder.field(KEY_MAPPINGS_HASH, mmd.getSha256());
+                }
+            } else if (context != Metadata.XContentContext.API) {
                 builder.startArray(KEY_MAPPINGS);
                 MappingMetadata mmd = indexMetadata.mapping();
                 if (mmd != null) {
@@ -1832,6 +1844,15 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
         }
 
         public static IndexMetadata fromXContent(XContentParser parser) throws IOException {
+            return fromXContent(parser, null);
+        }
+
+        /**
+         * Parses index metadata, resolving mappings that were written by their hash (see {@link #DEDUPLICATED_MAPPINGS_PARAM}) from the
+         * given mappings.
+         */
+        public static IndexMetadata fromXContent(XContentParser parser, @Nullable Map<String, MappingMetadata> mappingsByHash)
+            throws IOException {
             if (parser.currentToken() == null) { // fresh parser? move to the first token
                 parser.nextToken();
             }
@@ -1952,6 +1973,13 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
                         builder.setRoutingNumShards(parser.intValue());
                     } else if (KEY_SYSTEM.equals(currentFieldName)) {
                         builder.system(parser.booleanValue());
+                    } else if (KEY_MAPPINGS_HASH.equals(currentFieldName)) {
+                        final String mappingsHash = parser.text();
+                        final MappingMetadata mappingMetadata = mappingsByHash == null ? null : mappingsByHash.get(mappingsHash);
+                        if (mappingMetadata == null) {
+                            throw new IllegalArgumentException("no mappings found for hash [" + mappingsHash + "]");
+                        }
+                        builder.putMapping(mappingMetadata);
                     } else {
                         throw new IllegalArgumentException("Unexpected field [" + currentFieldName + "]");
                     }
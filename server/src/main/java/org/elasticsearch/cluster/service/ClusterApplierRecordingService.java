@@ -85,6 +85,14 @@ public final class ClusterApplierRecordingService {
             recordings.add(new Tuple<>(currentAction, timeSpentMS));
         }
 
+        /**
+         * Adds the recordings of another recorder, which recorded actions that ran concurrently with the actions of this recorder.
+         */
+        void addRecordings(Recorder other) {
+            assert other.recording == false : "other recorder is still recording";
+            recordings.addAll(other.recordings);
+        }
+
         List<Tuple<String, Long>> getRecordings() {
             return recordings;
         }
@@ -38,13 +38,18 @@ import org.elasticsearch.indices.store.IndicesStore;
 import org.elasticsearch.threadpool.Scheduler;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -63,8 +68,22 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         Setting.Property.NodeScope
     );
 
+    /**
+     * The number of threads that notify the listeners added with {@link #addIndependentListener}, or {@code 0} to notify them on the
+     * applier thread like all other listeners.
+     */
+    public static final Setting<Integer> CLUSTER_SERVICE_INDEPENDENT_LISTENER_THREADS_SETTING = Setting.intSetting(
+        "cluster.service.applier.independent_listener_threads",
+        4,
+        0,
+        Setting.Property.NodeScope
+    );
+
     public static final String CLUSTER_UPDATE_THREAD_NAME = "clusterApplierService#updateTask";
 
+    // must not contain the name of the applier thread, these threads do not apply cluster states
+    static final String CLUSTER_LISTENER_THREAD_NAME = "clusterApplierService#independentListener";
+
     private final ClusterSettings clusterSettings;
     private final ThreadPool threadPool;
 
@@ -72,6 +91,12 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
 
     private volatile PrioritizedEsThreadPoolExecutor threadPoolExecutor;
 
+    private final int independentListenerThreads;
+
+    private final Object independentListenerExecutorMutex = new Object();
+
+    private ExecutorService independentListenerExecutor; // created on first use, guarded by independentListenerExecutorMutex
+
     /**
      * Those 3 state listeners are changing infrequently - CopyOnWriteArrayList is just fine
      */
@@ -80,6 +105,7 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
     private final Collection<ClusterStateApplier> lowPriorityStateAppliers = new CopyOnWriteArrayList<>();
 
     private final Collection<ClusterStateListener> clusterStateListeners = new CopyOnWriteArrayList<>();
+    private final Collection<IndependentListener> independentClusterStateListeners = new CopyOnWriteArrayList<>();
     private final Map<TimeoutClusterStateListener, NotifyTimeout> timeoutClusterStateListeners = new ConcurrentHashMap<>();
 
     private final AtomicReference<ClusterState> state; // last applied state
@@ -98,6 +124,7 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         this.recordingService = new ClusterApplierRecordingService();
 
         this.slowTaskLoggingThreshold = CLUSTER_SERVICE_SLOW_TASK_LOGGING_THRESHOLD_SETTING.get(settings);
+        this.independentListenerThreads = CLUSTER_SERVICE_INDEPENDENT_LISTENER_THREADS_SETTING.get(settings);
         this.clusterSettings.addSettingsUpdateConsumer(
             CLUSTER_SERVICE_SLOW_TASK_LOGGING_THRESHOLD_SETTING,
             this::setSlowTaskLoggingThreshold
@@ -129,6 +156,30 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         threadPoolExecutor = createThreadPoolExecutor();
     }
 
+    /**
+     * Returns the executor that notifies the independent listeners, creating it on first use, or {@code null} if they should be notified
+     * on the applier thread because {@link #CLUSTER_SERVICE_INDEPENDENT_LISTENER_THREADS_SETTING} is {@code 0} or the service is stopped.
+     */
+    private ExecutorService getIndependentListenerExecutor() {
+        if (independentListenerThreads == 0) {
+            return null;
+        }
+        synchronized (independentListenerExecutorMutex) {
+            // the lifecycle moves to stopped before doStop() terminates the executor, so none is created after that
+            if (independentListenerExecutor == null && lifecycle.started()) {
+                independentListenerExecutor = EsExecutors.newFixed(
+                    nodeName + "/" + CLUSTER_LISTENER_THREAD_NAME,
+                    independentListenerThreads,
+                    -1,
+                    daemonThreadFactory(nodeName, CLUSTER_LISTENER_THREAD_NAME),
+                    threadPool.getThreadContext(),
+                    false
+                );
+            }
+            return independentListenerExecutor;
+        }
+    }
+
     protected PrioritizedEsThreadPoolExecutor createThreadPoolExecutor() {
         return EsExecutors.newSinglePrioritizing(
             nodeName + "/" + CLUSTER_UPDATE_THREAD_NAME,
@@ -166,6 +217,13 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
             }
         }
         ThreadPool.terminate(threadPoolExecutor, 10, TimeUnit.SECONDS);
+        final ExecutorService executor;
+        synchronized (independentListenerExecutorMutex) {
+            executor = independentListenerExecutor;
+        }
+        if (executor != null) {
+            ThreadPool.terminate(executor, 10, TimeUnit.SECONDS);
+        }
     }
 
     @Override
@@ -219,11 +277,32 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         clusterStateListeners.add(listener);
     }
 
+    /**
+     * Add a listener for updated cluster states that does not depend on the order in which it is notified relative to the listeners added
+     * with {@link #addListener}. Independent listeners are notified concurrently with each other and with the other listeners, on a bounded
+     * pool of threads sized by {@link #CLUSTER_SERVICE_INDEPENDENT_LISTENER_THREADS_SETTING}, except that a listener is only notified once
+     * the previously added independent listeners that it depends on have been notified. The next cluster state is only applied once all of
+     * them returned.
+     *
+     * @param dependencies independent listeners that must be notified of each cluster state before this listener is
+     */
+    public void addIndependentListener(ClusterStateListener listener, ClusterStateListener... dependencies) {
+        for (ClusterStateListener dependency : dependencies) {
+            if (independentClusterStateListeners.stream().noneMatch(l -> l.listener() == dependency)) {
+                throw new IllegalArgumentException(
+                    "listener [" + listener + "] depends on unknown independent listener [" + dependency + "]"
+                );
+            }
+        }
+        independentClusterStateListeners.add(new IndependentListener(listener, List.of(dependencies)));
+    }
+
     /**
      * Removes a listener for updated cluster states.
      */
     public void removeListener(final ClusterStateListener listener) {
         clusterStateListeners.remove(listener);
+        independentClusterStateListeners.removeIf(l -> l.listener() == listener);
     }
 
     /**
@@ -547,8 +626,123 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
     }
 
     private void callClusterStateListeners(ClusterChangedEvent clusterChangedEvent, Recorder stopWatch) {
+        final List<IndependentListener> independentListeners = List.copyOf(independentClusterStateListeners);
+        final ExecutorService executor = independentListeners.isEmpty() ? null : getIndependentListenerExecutor();
+        if (executor == null) {
+            for (IndependentListener independentListener : independentListeners) {
+                // in the order in which they were added, so that each listener comes after its dependencies
+                callClusterStateListener(clusterChangedEvent, stopWatch, List.of(independentListener.listener()));
+            }
+            callClusterStateListener(clusterChangedEvent, stopWatch, clusterStateListeners);
+            callClusterStateListener(clusterChangedEvent, stopWatch, timeoutClusterStateListeners.keySet());
+            return;
+        }
+
+        // fork the independent listeners first so that they overlap with the listeners that must be notified in order
+        final CountDownLatch countDownLatch = new CountDownLatch(independentListeners.size());
+        final Map<ClusterStateListener, IndependentNotification> notifications = new IdentityHashMap<>();
+        final List<IndependentNotification> readyNotifications = new ArrayList<>();
+        for (IndependentListener independentListener : independentListeners) {
+            final IndependentNotification notification = new IndependentNotification(
+                independentListener.listener(),
+                clusterChangedEvent,
+                executor,
+                countDownLatch
+            );
+            int pendingDependencies = 0;
+            for (ClusterStateListener dependency : independentListener.dependencies()) {
+                // a dependency that was removed in the meantime is no longer waited for
+                final IndependentNotification dependencyNotification = notifications.get(dependency);
+                if (dependencyNotification != null) {
+                    dependencyNotification.dependents.add(notification);
+                    pendingDependencies++;
+                }
+            }
+            notification.pendingDependencies.set(pendingDependencies);
+            if (pendingDependencies == 0) {
+                readyNotifications.add(notification);
+            }
+            notifications.put(independentListener.listener(), notification);
+        }
+        for (IndependentNotification notification : readyNotifications) {
+            notification.fork();
+        }
+
         callClusterStateListener(clusterChangedEvent, stopWatch, clusterStateListeners);
         callClusterStateListener(clusterChangedEvent, stopWatch, timeoutClusterStateListeners.keySet());
+
+        // the next cluster state must not be applied while a listener may still be notified of this one, so keep waiting if interrupted
+        boolean interrupted = false;
+        try (Releasable ignored = stopWatch.record("waiting for independent listeners")) {
+            while (true) {
+                try {
+                    countDownLatch.await();
+                    break;
+                } catch (InterruptedException e) {
+                    logger.debug("interrupted while waiting for independent listeners, continuing to wait", e);
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        for (IndependentNotification notification : notifications.values()) {
+            stopWatch.addRecordings(notification.recorder);
+        }
+    }
+
+    private record IndependentListener(ClusterStateListener listener, List<ClusterStateListener> dependencies) {}
+
+    /**
+     * Notifies an independent listener of a cluster state on the independent listener executor, and then forks the notifications of the
+     * listeners that depend on it and have no other pending dependencies.
+     */
+    private class IndependentNotification implements Runnable {
+        private final ClusterStateListener listener;
+        private final ClusterChangedEvent clusterChangedEvent;
+        private final ExecutorService executor;
+        private final CountDownLatch countDownLatch;
+        // each listener records its own timings since recorders aren't thread-safe
+        private final Recorder recorder = new Recorder(threadPool::rawRelativeTimeInMillis);
+        // only modified by the applier thread before any notification is forked
+        private final List<IndependentNotification> dependents = new ArrayList<>();
+        private final AtomicInteger pendingDependencies = new AtomicInteger();
+
+        IndependentNotification(
+            ClusterStateListener listener,
+            ClusterChangedEvent clusterChangedEvent,
+            ExecutorService executor,
+            CountDownLatch countDownLatch
+        ) {
+            this.listener = listener;
+            this.clusterChangedEvent = clusterChangedEvent;
+            this.executor = executor;
+            this.countDownLatch = countDownLatch;
+        }
+
+        void fork() {
+            try {
+                executor.execute(this);
+            } catch (EsRejectedExecutionException e) {
+                // shutting down, notify it inline instead
+                run();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                callClusterStateListener(clusterChangedEvent, recorder, List.of(listener));
+            } finally {
+                for (IndependentNotification dependent : dependents) {
+                    if (dependent.pendingDependencies.decrementAndGet() == 0) {
+                        dependent.fork();
+                    }
+                }
+                countDownLatch.countDown();
+            }
+        }
     }
 
     private void callClusterStateListener(
@@ -169,6 +169,14 @@ public class ClusterService extends AbstractLifecycleComponent {
         clusterApplierService.addListener(listener);
     }
 
+    /**
+     * Add a listener for updated cluster states that is notified concurrently with the other listeners, after the given independent
+     * listeners, see {@link ClusterApplierService#addIndependentListener}.
+     */
+    public void addIndependentListener(ClusterStateListener listener, ClusterStateListener... dependencies) {
+        clusterApplierService.addIndependentListener(listener, dependencies);
+    }
+
     /**
      * Removes a listener for updated cluster states.
      */
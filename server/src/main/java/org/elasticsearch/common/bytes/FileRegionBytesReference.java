@@ -0,0 +1,151 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.bytes;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefIterator;
+import org.elasticsearch.common.io.Channels;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A bytes reference to a region of a file, which is only read into memory when its bytes are accessed. Transports that can copy
+ * the region from the file to the network directly (e.g. using {@code sendfile}) never access its bytes, in which case it does not
+ * use any heap. The file channel must stay open for as long as the reference is in use.
+ */
+public final class FileRegionBytesReference extends AbstractBytesReference {
+
+    private final FileChannel channel;
+    private final long position;
+    private final int length;
+
+    private volatile BytesReference bytes;
+
+    public FileRegionBytesReference(FileChannel channel, long position, int length) {
+        if (position < 0L || length < 0) {
+            throw new IllegalArgumentException("invalid file region: position [" + position + "], length [" + length + "]");
+        }
+        this.channel = channel;
+        this.position = position;
+        this.length = length;
+    }
+
+    /**
+     * @return the channel of the file that holds the bytes
+     */
+    public FileChannel channel() {
+        return channel;
+    }
+
+    /**
+     * @return the position of the first byte of the region in the file
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Reads the region from the file and discards its bytes, so that they are in the page cache by the time the region is copied to
+     * the network. Transports copy regions on their network threads, which must not wait for the disk, so a region that may be sent
+     * without being read must be prefetched on a thread that may block before it is sent.
+     *
+     * @param buffer scratch buffer that the region is read into, one part at a time
+     */
+    public void prefetch(ByteBuffer buffer) throws IOException {
+        final long end = position + length;
+        long pos = position;
+        while (pos < end) {
+            buffer.clear();
+            if (end - pos < buffer.capacity()) {
+                buffer.limit(Math.toIntExact(end - pos));
+            }
+            final int read = channel.read(buffer, pos);
+            if (read < 0) {
+                throw new EOFException("read past EOF at position [" + pos + "] while prefetching region [" + position + "-" + end + "]");
+            }
+            pos += read;
+        }
+    }
+
+    private BytesReference bytes() {
+        BytesReference bytes = this.bytes;
+        if (bytes == null) {
+            synchronized (this) {
+                bytes = this.bytes;
+                if (bytes == null) {
+                    final byte[] buffer = new byte[length];
+                    try {
+                        Channels.readFromFileChannelWithEofException(channel, position, buffer, 0, length);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("failed to read [" + length + "] bytes at position [" + position + "]", e);
+                    }
+                    bytes = new BytesArray(buffer);
+                    this.bytes = bytes;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public byte get(int index) {
+        return bytes().get(index);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public BytesReference slice(int from, int length) {
+        return bytes().slice(from, length);
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        final BytesReference bytes = this.bytes;
+        return bytes == null ? 0L : bytes.ramBytesUsed();
+    }
+
+    @Override
+    public BytesRef toBytesRef() {
+        return bytes().toBytesRef();
+    }
+
+    @Override
+    public BytesRefIterator iterator() {
+        return bytes().iterator();
+    }
+
+    @Override
+    public void writeTo(OutputStream os) throws IOException {
+        bytes().writeTo(os);
+    }
+
+    @Override
+    public boolean hasArray() {
+        return bytes().hasArray();
+    }
+
+    @Override
+    public byte[] array() {
+        return bytes().array();
+    }
+
+    @Override
+    public int arrayOffset() {
+        return bytes().arrayOffset();
+    }
+}
@@ -87,6 +87,13 @@ public final class ReleasableBytesReference implements RefCounted, Releasable, B
         return new ReleasableBytesReference(slice, refCounted);
     }
 
+    /**
+     * @return the wrapped bytes reference, which must not be used once this reference is released
+     */
+    public BytesReference unwrap() {
+        return delegate;
+    }
+
     @Override
     public void close() {
         refCounted.decRef();
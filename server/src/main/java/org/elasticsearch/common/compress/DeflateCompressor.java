@@ -11,6 +11,7 @@ package org.elasticsearch.common.compress;
 import org.elasticsearch.Assertions;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 
 import java.io.BufferedInputStream;
@@ -177,6 +178,19 @@ public class DeflateCompressor implements Compressor {
     @Override
     public OutputStream threadLocalOutputStream(OutputStream out) throws IOException {
         out.write(HEADER);
+        return threadLocalRawOutputStream(out, null);
+    }
+
+    /**
+     * Creates a new output stream that compresses to the provided output stream without writing any header, like
+     * {@link #threadLocalOutputStream}, optionally with a preset dictionary that the decompressing side must set on its inflater too.
+     * Closing the returned stream will close the provided output stream.
+     *
+     * @param out        output stream to wrap
+     * @param dictionary preset dictionary, or {@code null} to compress without dictionary
+     * @return           compressing stream
+     */
+    public static OutputStream threadLocalRawOutputStream(OutputStream out, @Nullable byte[] dictionary) {
         final ReleasableReference<Deflater> current = deflaterForStreamRef.get();
         final Releasable releasable;
         final Deflater deflater;
@@ -188,6 +202,9 @@ public class DeflateCompressor implements Compressor {
             deflater = current.get();
             releasable = current;
         }
+        if (dictionary != null) {
+            deflater.setDictionary(dictionary);
+        }
         final boolean syncFlush = true;
         DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(out, deflater, BUFFER_SIZE, syncFlush) {
             @Override
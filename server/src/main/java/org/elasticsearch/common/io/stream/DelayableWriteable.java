@@ -11,6 +11,7 @@ package org.elasticsearch.common.io.stream;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.core.Releasable;
 
 import java.io.IOException;
@@ -58,6 +59,37 @@ public abstract class DelayableWriteable<T extends Writeable> implements Writeab
         }
     }
 
+    /**
+     * Build a {@linkplain Serialized} by serializing the provided object into pages of the provided {@linkplain BigArrays}. Unlike
+     * {@link #asSerialized(Reader, NamedWriteableRegistry)} the pages are recycled, so this is suitable for objects that are serialized
+     * over and over again. The pages are held until the returned object is closed.
+     */
+    public static <T extends Writeable> Serialized<T> serialize(
+        T reference,
+        Writeable.Reader<T> reader,
+        NamedWriteableRegistry registry,
+        BigArrays bigArrays
+    ) throws IOException {
+        final ReleasableBytesStreamOutput buffer = new ReleasableBytesStreamOutput(bigArrays);
+        boolean success = false;
+        try {
+            buffer.setVersion(Version.CURRENT);
+            reference.writeTo(buffer);
+            final Serialized<T> serialized = new Serialized<>(
+                reader,
+                Version.CURRENT,
+                registry,
+                new ReleasableBytesReference(buffer.bytes(), buffer)
+            );
+            success = true;
+            return serialized;
+        } finally {
+            if (success == false) {
+                buffer.close();
+            }
+        }
+    }
+
     private DelayableWriteable() {}
 
     /**
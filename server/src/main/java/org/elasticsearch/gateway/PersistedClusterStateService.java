@@ -35,6 +35,7 @@ import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
 import org.apache.lucene.store.NIOFSDirectory;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
@@ -42,10 +43,12 @@ import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.MappingMetadata;
 import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.logging.Loggers;
@@ -56,6 +59,7 @@ import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.Maps;
 import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
+import org.elasticsearch.common.xcontent.XContentParserUtils;
 import org.elasticsearch.core.CheckedConsumer;
 import org.elasticsearch.core.CheckedFunction;
 import org.elasticsearch.core.Nullable;
@@ -64,6 +68,7 @@ import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.env.NodeMetadata;
+import org.elasticsearch.index.IndexModule;
 import org.elasticsearch.xcontent.NamedXContentRegistry;
 import org.elasticsearch.xcontent.ToXContent;
 import org.elasticsearch.xcontent.XContentBuilder;
@@ -88,6 +93,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import java.util.function.IntPredicate;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
@@ -104,6 +110,15 @@ import java.util.function.Supplier;
  * | INDEX_TYPE_NAME  == "index"  | Index UUID                  | Index metadata                               | split into pages     |
  * +------------------------------+-----------------------------+----------------------------------------------+--------+-------------+
  *
+ * Many indices usually share identical mappings, so index metadata only refers to its mapping by hash, and each distinct mapping is
+ * stored once in its own documents, which are only added or removed when the first index starts or the last index stops using it:
+ *
+ * +--------------------------------+-----------------------------+----------------------------------------------+--------+-------------+
+ * | "type" (string field)          | "mapping_hash" (string)     | "data" (stored binary field in SMILE format) | "page" | "last_page" |
+ * +--------------------------------+-----------------------------+----------------------------------------------+--------+-------------+
+ * | MAPPING_TYPE_NAME == "mapping" | Mapping hash                | Compressed mapping                           | (as above)           |
+ * +--------------------------------+-----------------------------+----------------------------------------------+--------+-------------+
+ *
  * Additionally each commit has the following user data:
  *
  * +---------------------------+-------------------------+-------------------------------------------------------------------------------+
@@ -127,8 +142,11 @@ public class PersistedClusterStateService {
     public static final String TYPE_FIELD_NAME = "type";
     public static final String GLOBAL_TYPE_NAME = "global";
     public static final String INDEX_TYPE_NAME = "index";
+    public static final String MAPPING_TYPE_NAME = "mapping";
     private static final String DATA_FIELD_NAME = "data";
     private static final String INDEX_UUID_FIELD_NAME = "index_uuid";
+    private static final String MAPPING_HASH_FIELD_NAME = "mapping_hash";
+    private static final String MAPPING_CONTENT_FIELD_NAME = "content";
     public static final String PAGE_FIELD_NAME = "page";
     public static final String LAST_PAGE_FIELD_NAME = "last_page";
     public static final int IS_LAST_PAGE = 1;
@@ -161,6 +179,7 @@ public class PersistedClusterStateService {
     private final XContentParserConfiguration parserConfig;
     private final LongSupplier relativeTimeMillisSupplier;
     private final ByteSizeValue documentPageSize;
+    private final boolean allowMmap;
 
     private volatile TimeValue slowWriteLoggingThreshold;
 
@@ -188,6 +207,7 @@ public class PersistedClusterStateService {
         this.slowWriteLoggingThreshold = clusterSettings.get(SLOW_WRITE_LOGGING_THRESHOLD);
         clusterSettings.addSettingsUpdateConsumer(SLOW_WRITE_LOGGING_THRESHOLD, this::setSlowWriteLoggingThreshold);
         this.documentPageSize = clusterSettings.get(DOCUMENT_PAGE_SIZE);
+        this.allowMmap = clusterSettings.get(IndexModule.NODE_STORE_ALLOW_MMAP);
     }
 
     private void setSlowWriteLoggingThreshold(TimeValue slowWriteLoggingThreshold) {
@@ -257,6 +277,14 @@ public class PersistedClusterStateService {
         return new NIOFSDirectory(path);
     }
 
+    /**
+     * Opens the directory from which the on-disk state is loaded at startup. Loading reads every document once, so unless the node
+     * disallows the use of mmap this maps the files rather than copying each stored document through a read buffer.
+     */
+    private Directory createDirectoryForLoading(Path path) throws IOException {
+        return allowMmap ? new MMapDirectory(path) : createDirectory(path);
+    }
+
     public Path[] getDataPaths() {
         return dataPaths;
     }
@@ -372,7 +400,7 @@ public class PersistedClusterStateService {
         for (final Path dataPath : dataPaths) {
             final Path indexPath = dataPath.resolve(METADATA_DIRECTORY_NAME);
             if (Files.exists(indexPath)) {
-                try (Directory directory = createDirectory(indexPath)) {
+                try (Directory directory = createDirectoryForLoading(indexPath)) {
                     if (checkClean) {
                         try (BytesStreamOutput outputStream = new BytesStreamOutput()) {
                             final boolean isClean;
@@ -476,7 +504,7 @@ public class PersistedClusterStateService {
         searcher.setQueryCache(null);
 
         final SetOnce<Metadata.Builder> builderReference = new SetOnce<>();
-        consumeFromType(searcher, GLOBAL_TYPE_NAME, bytes -> {
+        consumeFromType(searcher, GLOBAL_TYPE_NAME, document -> GLOBAL_TYPE_NAME, bytes -> {
             final Metadata metadata = readXContent(bytes, Metadata.Builder::fromXContent);
             logger.trace("found global metadata with last-accepted term [{}]", metadata.coordinationMetadata().term());
             if (builderReference.get() != null) {
@@ -492,9 +520,25 @@ public class PersistedClusterStateService {
 
         logger.trace("got global metadata, now reading index metadata");
 
+        final Map<String, MappingMetadata> mappingsByHash = new HashMap<>();
+        consumeFromType(searcher, MAPPING_TYPE_NAME, document -> document.getField(MAPPING_HASH_FIELD_NAME).stringValue(), bytes -> {
+            final MappingMetadata mappingMetadata = readXContent(bytes, parser -> {
+                XContentParserUtils.ensureExpectedToken(XContentParser.Token.START_OBJECT, parser.nextToken(), parser);
+                XContentParserUtils.ensureFieldName(parser, parser.nextToken(), MAPPING_CONTENT_FIELD_NAME);
+                XContentParserUtils.ensureExpectedToken(XContentParser.Token.VALUE_EMBEDDED_OBJECT, parser.nextToken(), parser);
+                return new MappingMetadata(new CompressedXContent(parser.binaryValue()));
+            });
+            logger.trace("found mapping with hash [{}]", mappingMetadata.getSha256());
+            if (mappingsByHash.put(mappingMetadata.getSha256(), mappingMetadata) != null) {
+                throw new CorruptStateException(
+                    "duplicate mapping found for hash [" + mappingMetadata.getSha256() + "] in [" + dataPath + "]"
+                );
+            }
+        });
+
         final Set<String> indexUUIDs = new HashSet<>();
-        consumeFromType(searcher, INDEX_TYPE_NAME, bytes -> {
-            final IndexMetadata indexMetadata = readXContent(bytes, IndexMetadata::fromXContent);
+        consumeFromType(searcher, INDEX_TYPE_NAME, document -> document.getField(INDEX_UUID_FIELD_NAME).stringValue(), bytes -> {
+            final IndexMetadata indexMetadata = readXContent(bytes, parser -> IndexMetadata.Builder.fromXContent(parser, mappingsByHash));
             logger.trace("found index metadata for {}", indexMetadata.getIndex());
             if (indexUUIDs.add(indexMetadata.getIndexUUID()) == false) {
                 throw new CorruptStateException("duplicate metadata found for " + indexMetadata.getIndex() + " in [" + dataPath + "]");
@@ -530,6 +574,7 @@ public class PersistedClusterStateService {
     private static void consumeFromType(
         IndexSearcher indexSearcher,
         String type,
+        Function<Document, String> keyFunction,
         CheckedConsumer<BytesReference, IOException> bytesReferenceConsumer
     ) throws IOException {
 
@@ -575,13 +620,7 @@ public class PersistedClusterStateService {
                         // startup, on the main thread and before most other services have started, and we will need space to serialize the
                         // whole cluster state in memory later on.
 
-                        final String key;
-                        if (type.equals(GLOBAL_TYPE_NAME)) {
-                            key = GLOBAL_TYPE_NAME;
-                        } else {
-                            key = document.getField(INDEX_UUID_FIELD_NAME).stringValue();
-                        }
-
+                        final String key = keyFunction.apply(document);
                         final PaginatedDocumentReader reader = documentReaders.computeIfAbsent(key, k -> new PaginatedDocumentReader());
                         final BytesReference bytesReference = reader.addPage(key, documentData, pageIndex, isLastPage);
                         if (bytesReference != null) {
@@ -612,9 +651,10 @@ public class PersistedClusterStateService {
     private static final ToXContent.Params FORMAT_PARAMS;
 
     static {
-        Map<String, String> params = Maps.newMapWithExpectedSize(2);
+        Map<String, String> params = Maps.newMapWithExpectedSize(3);
         params.put("binary", "true");
         params.put(Metadata.CONTEXT_MODE_PARAM, Metadata.CONTEXT_MODE_GATEWAY);
+        params.put(IndexMetadata.DEDUPLICATED_MAPPINGS_PARAM, "true");
         FORMAT_PARAMS = new ToXContent.MapParams(params);
     }
 
@@ -671,6 +711,11 @@ public class PersistedClusterStateService {
             indexWriter.deleteDocuments(new Term(INDEX_UUID_FIELD_NAME, indexUUID));
         }
 
+        void deleteMapping(String mappingHash) throws IOException {
+            this.logger.trace("removing mapping with hash [{}]", mappingHash);
+            indexWriter.deleteDocuments(new Term(MAPPING_HASH_FIELD_NAME, mappingHash));
+        }
+
         void flush() throws IOException {
             this.logger.trace("flushing");
             this.indexWriter.flush();
@@ -787,7 +832,7 @@ public class PersistedClusterStateService {
         /**
          * Updates and commits the given cluster state update
          */
-        void writeIncrementalStateAndCommit(long currentTerm, ClusterState previousClusterState, ClusterState clusterState)
+        public void writeIncrementalStateAndCommit(long currentTerm, ClusterState previousClusterState, ClusterState clusterState)
             throws IOException {
             ensureOpen();
             ensureFullStateWritten();
@@ -844,6 +889,29 @@ public class PersistedClusterStateService {
                 addGlobalMetadataDocuments(metadata);
             }
 
+            // add the mappings that weren't used before first, and remove the ones that aren't used anymore
+            final Map<String, MappingMetadata> previousMappingsByHash = mappingsByHash(previouslyWrittenMetadata);
+            final Map<String, MappingMetadata> mappingsByHash = mappingsByHash(metadata);
+            int numMappingsAdded = 0;
+            int numMappingsRemoved = 0;
+            int numMappingsUnchanged = 0;
+            for (Map.Entry<String, MappingMetadata> mapping : mappingsByHash.entrySet()) {
+                if (previousMappingsByHash.containsKey(mapping.getKey())) {
+                    numMappingsUnchanged++;
+                } else {
+                    numMappingsAdded++;
+                    addMappingDocuments(mapping.getKey(), mapping.getValue());
+                }
+            }
+            for (String previousMappingHash : previousMappingsByHash.keySet()) {
+                if (mappingsByHash.containsKey(previousMappingHash) == false) {
+                    numMappingsRemoved++;
+                    for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
+                        metadataIndexWriter.deleteMapping(previousMappingHash);
+                    }
+                }
+            }
+
             final Map<String, Long> indexMetadataVersionByUUID = Maps.newMapWithExpectedSize(previouslyWrittenMetadata.indices().size());
             for (IndexMetadata indexMetadata : previouslyWrittenMetadata.indices().values()) {
                 final Long previousValue = indexMetadataVersionByUUID.putIfAbsent(indexMetadata.getIndexUUID(), indexMetadata.getVersion());
@@ -894,7 +962,17 @@ public class PersistedClusterStateService {
                 metadataIndexWriter.flush();
             }
 
-            return new WriterStats(false, updateGlobalMeta, numIndicesUnchanged, numIndicesAdded, numIndicesUpdated, numIndicesRemoved);
+            return new WriterStats(
+                false,
+                updateGlobalMeta,
+                numMappingsUnchanged,
+                numMappingsAdded,
+                numMappingsRemoved,
+                numIndicesUnchanged,
+                numIndicesAdded,
+                numIndicesUpdated,
+                numIndicesRemoved
+            );
         }
 
         private static int lastPageValue(boolean isLastPage) {
@@ -918,6 +996,35 @@ public class PersistedClusterStateService {
             }));
         }
 
+        private static Map<String, MappingMetadata> mappingsByHash(Metadata metadata) {
+            final Map<String, MappingMetadata> mappingsByHash = new HashMap<>();
+            for (IndexMetadata indexMetadata : metadata.indices().values()) {
+                final MappingMetadata mappingMetadata = indexMetadata.mapping();
+                if (mappingMetadata != null) {
+                    mappingsByHash.putIfAbsent(mappingMetadata.getSha256(), mappingMetadata);
+                }
+            }
+            return mappingsByHash;
+        }
+
+        private void addMappingDocuments(String mappingHash, MappingMetadata mappingMetadata) throws IOException {
+            logger.trace("writing mapping with hash [{}]", mappingHash);
+            writePages(
+                (builder, params) -> builder.field(MAPPING_CONTENT_FIELD_NAME, mappingMetadata.source().compressed()),
+                (bytesRef, pageIndex, isLastPage) -> {
+                    final Document document = new Document();
+                    document.add(new StringField(TYPE_FIELD_NAME, MAPPING_TYPE_NAME, Field.Store.NO));
+                    document.add(new StringField(MAPPING_HASH_FIELD_NAME, mappingHash, Field.Store.YES));
+                    document.add(new StoredField(PAGE_FIELD_NAME, pageIndex));
+                    document.add(new StoredField(LAST_PAGE_FIELD_NAME, lastPageValue(isLastPage)));
+                    document.add(new StoredField(DATA_FIELD_NAME, bytesRef));
+                    for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
+                        metadataIndexWriter.indexWriter.addDocument(document);
+                    }
+                }
+            );
+        }
+
         private void addGlobalMetadataDocuments(Metadata metadata) throws IOException {
             logger.trace("updating global metadata doc");
             writePages(metadata, (bytesRef, pageIndex, isLastPage) -> {
@@ -960,6 +1067,11 @@ public class PersistedClusterStateService {
         private WriterStats addMetadata(Metadata metadata) throws IOException {
             addGlobalMetadataDocuments(metadata);
 
+            final Map<String, MappingMetadata> mappingsByHash = mappingsByHash(metadata);
+            for (Map.Entry<String, MappingMetadata> mapping : mappingsByHash.entrySet()) {
+                addMappingDocuments(mapping.getKey(), mapping.getValue());
+            }
+
             for (IndexMetadata indexMetadata : metadata.indices().values()) {
                 addIndexMetadataDocuments(indexMetadata);
             }
@@ -970,7 +1082,7 @@ public class PersistedClusterStateService {
                 metadataIndexWriter.flush();
             }
 
-            return new WriterStats(true, true, 0, 0, metadata.indices().size(), 0);
+            return new WriterStats(true, true, 0, mappingsByHash.size(), 0, 0, 0, metadata.indices().size(), 0);
         }
 
         public void writeIncrementalTermUpdateAndCommit(long currentTerm, long lastAcceptedVersion, Version oldestIndexVersion)
@@ -1052,6 +1164,9 @@ public class PersistedClusterStateService {
         private record WriterStats(
             boolean isFullWrite,
             boolean globalMetaUpdated,
+            int numMappingsUnchanged,
+            int numMappingsAdded,
+            int numMappingsRemoved,
             int numIndicesUnchanged,
             int numIndicesAdded,
             int numIndicesUpdated,
@@ -1060,14 +1175,23 @@ public class PersistedClusterStateService {
             @Override
             public String toString() {
                 if (isFullWrite) {
-                    return String.format(Locale.ROOT, "wrote global metadata and metadata for [%d] indices", numIndicesUpdated);
+                    return String.format(
+                        Locale.ROOT,
+                        "wrote global metadata, [%d] mappings and metadata for [%d] indices",
+                        numMappingsAdded,
+                        numIndicesUpdated
+                    );
                 } else {
                     return String.format(
                         Locale.ROOT,
                         """
-                            [%s] global metadata, wrote metadata for [%d] new indices and [%d] existing indices, \
+                            [%s] global metadata, wrote [%d] new mappings, removed [%d] mappings and skipped [%d] unchanged mappings, \
+                            wrote metadata for [%d] new indices and [%d] existing indices, \
                             removed metadata for [%d] indices and skipped [%d] unchanged indices""",
                         globalMetaUpdated ? "wrote" : "skipped writing",
+                        numMappingsAdded,
+                        numMappingsRemoved,
+                        numMappingsUnchanged,
                         numIndicesAdded,
                         numIndicesUpdated,
                         numIndicesRemoved,
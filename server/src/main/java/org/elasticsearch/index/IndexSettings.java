@@ -270,6 +270,19 @@ public final class IndexSettings {
         Property.IndexScope
     );
 
+    /**
+     * The number of threads that apply translog operations concurrently when the shard replays its translog or the operations that it
+     * receives during a peer recovery. Operations on the same document are always applied by the same thread, in order.
+     */
+    public static final Setting<Integer> INDEX_TRANSLOG_REPLAY_PARALLELISM_SETTING = Setting.intSetting(
+        "index.translog.replay_parallelism",
+        1,
+        1,
+        32,
+        Property.Dynamic,
+        Property.IndexScope
+    );
+
     /**
      * The minimum size of a merge that triggers a flush in order to free resources
      */
@@ -573,6 +586,7 @@ public final class IndexSettings {
     private volatile TimeValue syncInterval;
     private volatile TimeValue refreshInterval;
     private volatile ByteSizeValue flushThresholdSize;
+    private volatile int translogReplayParallelism;
     private volatile ByteSizeValue generationThresholdSize;
     private volatile ByteSizeValue flushAfterMergeThresholdSize;
     private final MergeSchedulerConfig mergeSchedulerConfig;
@@ -713,6 +727,7 @@ public final class IndexSettings {
         syncInterval = INDEX_TRANSLOG_SYNC_INTERVAL_SETTING.get(settings);
         refreshInterval = scopedSettings.get(INDEX_REFRESH_INTERVAL_SETTING);
         flushThresholdSize = scopedSettings.get(INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING);
+        translogReplayParallelism = scopedSettings.get(INDEX_TRANSLOG_REPLAY_PARALLELISM_SETTING);
         generationThresholdSize = scopedSettings.get(INDEX_TRANSLOG_GENERATION_THRESHOLD_SIZE_SETTING);
         flushAfterMergeThresholdSize = scopedSettings.get(INDEX_FLUSH_AFTER_MERGE_THRESHOLD_SIZE_SETTING);
         mergeSchedulerConfig = new MergeSchedulerConfig(this);
@@ -792,6 +807,7 @@ public final class IndexSettings {
         scopedSettings.addSettingsUpdateConsumer(INDEX_WARMER_ENABLED_SETTING, this::setEnableWarmer);
         scopedSettings.addSettingsUpdateConsumer(INDEX_GC_DELETES_SETTING, this::setGCDeletes);
         scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING, this::setTranslogFlushThresholdSize);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_REPLAY_PARALLELISM_SETTING, this::setTranslogReplayParallelism);
         scopedSettings.addSettingsUpdateConsumer(INDEX_FLUSH_AFTER_MERGE_THRESHOLD_SIZE_SETTING, this::setFlushAfterMergeThresholdSize);
         scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_GENERATION_THRESHOLD_SIZE_SETTING, this::setGenerationThresholdSize);
         scopedSettings.addSettingsUpdateConsumer(INDEX_REFRESH_INTERVAL_SETTING, this::setRefreshInterval);
@@ -823,6 +839,10 @@ public final class IndexSettings {
         this.flushThresholdSize = byteSizeValue;
     }
 
+    private void setTranslogReplayParallelism(int translogReplayParallelism) {
+        this.translogReplayParallelism = translogReplayParallelism;
+    }
+
     private void setFlushAfterMergeThresholdSize(ByteSizeValue byteSizeValue) {
         this.flushAfterMergeThresholdSize = byteSizeValue;
     }
@@ -1030,6 +1050,13 @@ public final class IndexSettings {
         return flushThresholdSize;
     }
 
+    /**
+     * Returns the number of threads that apply translog operations concurrently when replaying them.
+     */
+    public int getTranslogReplayParallelism() {
+        return translogReplayParallelism;
+    }
+
     /**
      * Returns the merge threshold size when to forcefully flush the index and free resources.
      */
@@ -14,13 +14,22 @@ import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.shard.IndexEventListener;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.stats.IndexingPressureStats;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
-public class IndexingPressure {
+public class IndexingPressure implements IndexEventListener {
 
     public static final Setting<ByteSizeValue> MAX_INDEXING_BYTES = Setting.memorySizeSetting(
         "indexing_pressure.memory.limit",
@@ -28,6 +37,39 @@ public class IndexingPressure {
         Setting.Property.NodeScope
     );
 
+    /**
+     * Whether primary operations are also admitted against a per-shard share of {@link #MAX_INDEXING_BYTES}, so that a single hot shard
+     * cannot use up the indexing memory of the whole node.
+     */
+    public static final Setting<Boolean> SHARD_ADMISSION_ENABLED = Setting.boolSetting(
+        "indexing_pressure.shard_admission.enabled",
+        false,
+        Setting.Property.NodeScope
+    );
+
+    /**
+     * The share of {@link #MAX_INDEXING_BYTES} that the primary operations of a single healthy shard may use.
+     */
+    public static final Setting<Double> SHARD_ADMISSION_MAX_SHARE = Setting.doubleSetting(
+        "indexing_pressure.shard_admission.max_share",
+        0.5,
+        0.01,
+        1.0,
+        Setting.Property.NodeScope
+    );
+
+    /**
+     * The write thread pool queue latency above which the share of a shard is lowered proportionally.
+     */
+    public static final Setting<TimeValue> SHARD_ADMISSION_TARGET_QUEUE_LATENCY = Setting.timeSetting(
+        "indexing_pressure.shard_admission.target_queue_latency",
+        TimeValue.timeValueMillis(100),
+        TimeValue.timeValueMillis(1),
+        Setting.Property.NodeScope
+    );
+
+    private static final double QUEUE_LATENCY_EWMA_ALPHA = 0.3;
+
     private static final Logger logger = LogManager.getLogger(IndexingPressure.class);
 
     private final AtomicLong currentCombinedCoordinatingAndPrimaryBytes = new AtomicLong(0);
@@ -52,12 +94,23 @@ public class IndexingPressure {
     private final AtomicLong primaryRejections = new AtomicLong(0);
     private final AtomicLong replicaRejections = new AtomicLong(0);
 
+    private final AtomicLong shardRejections = new AtomicLong(0);
+
     private final long primaryAndCoordinatingLimits;
     private final long replicaLimits;
 
+    private final boolean shardAdmissionEnabled;
+    private final double shardMaxShare;
+    private final long shardTargetQueueLatencyNanos;
+    // only shards of this node with operations in flight or that are under pressure are tracked
+    private final Map<ShardId, ShardPressure> shards = new ConcurrentHashMap<>();
+
     public IndexingPressure(Settings settings) {
         this.primaryAndCoordinatingLimits = MAX_INDEXING_BYTES.get(settings).getBytes();
         this.replicaLimits = (long) (this.primaryAndCoordinatingLimits * 1.5);
+        this.shardAdmissionEnabled = SHARD_ADMISSION_ENABLED.get(settings);
+        this.shardMaxShare = SHARD_ADMISSION_MAX_SHARE.get(settings);
+        this.shardTargetQueueLatencyNanos = SHARD_ADMISSION_TARGET_QUEUE_LATENCY.get(settings).nanos();
     }
 
     private static Releasable wrapReleasable(Releasable releasable) {
@@ -194,6 +247,153 @@ public class IndexingPressure {
         });
     }
 
+    public boolean isShardAdmissionEnabled() {
+        return shardAdmissionEnabled;
+    }
+
+    /**
+     * Admits a primary operation against the share of the indexing memory limit of its shard. The share of a shard shrinks while its
+     * operations wait longer than {@link #SHARD_ADMISSION_TARGET_QUEUE_LATENCY} in the write queue and is halved while its indexing is
+     * throttled because merges fall behind, so that a struggling shard is rejected early while the other shards of the node keep their
+     * budget. A shard without operations in flight always admits the next operation so it cannot be starved. This is in addition to
+     * the node level accounting of {@link #markPrimaryOperationStarted} and friends and is a no-op unless
+     * {@link #SHARD_ADMISSION_ENABLED} is set.
+     */
+    public Releasable markPrimaryShardOperationStarted(ShardId shardId, int operations, long bytes, boolean forceExecution) {
+        if (shardAdmissionEnabled == false) {
+            return () -> {};
+        }
+        // the admission and the removal of idle shards happen under the lock of the map entry so no operation is lost
+        shards.compute(shardId, (k, shard) -> {
+            if (shard == null) {
+                shard = new ShardPressure();
+            }
+            final long limit = shardLimit(shard);
+            if (shard.tryAcquire(operations, bytes, limit, forceExecution) == false) {
+                shardRejections.getAndIncrement();
+                throw new EsRejectedExecutionException(
+                    "rejected execution of primary operation on shard "
+                        + shardId
+                        + " ["
+                        + "shard_bytes="
+                        + shard.currentBytes
+                        + ", "
+                        + "primary_operation_bytes="
+                        + bytes
+                        + ", "
+                        + "max_shard_bytes="
+                        + limit
+                        + ", "
+                        + "queue_latency="
+                        + TimeValue.timeValueNanos((long) shard.queueLatencyNanos)
+                        + ", "
+                        + "indexing_throttled="
+                        + shard.indexingThrottled
+                        + "]",
+                    false
+                );
+            }
+            return shard;
+        });
+        return wrapReleasable(() -> shards.computeIfPresent(shardId, (k, shard) -> {
+            shard.release(operations, bytes);
+            return shard.isIdle(shardTargetQueueLatencyNanos) ? null : shard;
+        }));
+    }
+
+    /**
+     * Records how long a primary operation of the given shard waited in the write queue and whether the indexing of the shard is
+     * currently throttled, which lowers the share of the shard in {@link #markPrimaryShardOperationStarted}.
+     */
+    public void recordPrimaryShardQueueLatency(ShardId shardId, long queueLatencyNanos, boolean indexingThrottled) {
+        if (shardAdmissionEnabled == false) {
+            return;
+        }
+        // the operation is still in flight so its shard is tracked
+        shards.computeIfPresent(shardId, (k, shard) -> {
+            shard.onQueueLatency(queueLatencyNanos, indexingThrottled);
+            return shard;
+        });
+    }
+
+    /**
+     * Forgets the pressure of a shard once it is closed on this node, since a shard that was still under pressure when its last operation
+     * completed would otherwise be tracked forever.
+     */
+    @Override
+    public void afterIndexShardClosed(ShardId shardId, @Nullable IndexShard indexShard, Settings indexSettings) {
+        shards.remove(shardId);
+    }
+
+    private long shardLimit(ShardPressure shard) {
+        double share = shardMaxShare;
+        if (shard.queueLatencyNanos > shardTargetQueueLatencyNanos) {
+            share *= shardTargetQueueLatencyNanos / shard.queueLatencyNanos;
+        }
+        if (shard.indexingThrottled) {
+            share /= 2;
+        }
+        return Math.max(1L, (long) (primaryAndCoordinatingLimits * share));
+    }
+
+    /**
+     * The primary indexing pressure of a single shard. Only accessed under the lock of its entry in {@link #shards} or, for stats,
+     * under its own monitor.
+     */
+    private static final class ShardPressure {
+        private long currentBytes;
+        // write actions that do not count their operations still count as one operation so that the shard is not considered idle
+        private long currentOps;
+        private long rejections;
+        private double queueLatencyNanos;
+        private boolean indexingThrottled;
+
+        synchronized boolean tryAcquire(int operations, long bytes, long limit, boolean forceExecution) {
+            if (forceExecution == false && currentOps > 0 && currentBytes + bytes > limit) {
+                rejections++;
+                return false;
+            }
+            currentBytes += bytes;
+            currentOps += operations == 0 ? 1 : operations;
+            return true;
+        }
+
+        synchronized void release(int operations, long bytes) {
+            currentBytes -= bytes;
+            currentOps -= operations == 0 ? 1 : operations;
+            assert currentBytes >= 0 && currentOps >= 0 : "released more than acquired";
+        }
+
+        synchronized void onQueueLatency(long latencyNanos, boolean throttled) {
+            queueLatencyNanos = QUEUE_LATENCY_EWMA_ALPHA * latencyNanos + (1 - QUEUE_LATENCY_EWMA_ALPHA) * queueLatencyNanos;
+            indexingThrottled = throttled;
+        }
+
+        synchronized boolean isIdle(long targetQueueLatencyNanos) {
+            return currentOps == 0 && indexingThrottled == false && queueLatencyNanos <= targetQueueLatencyNanos;
+        }
+    }
+
+    private List<IndexingPressureStats.ShardAdmissionStats> shardAdmissionStats() {
+        final List<IndexingPressureStats.ShardAdmissionStats> stats = new ArrayList<>();
+        for (Map.Entry<ShardId, ShardPressure> entry : shards.entrySet()) {
+            final ShardPressure shard = entry.getValue();
+            synchronized (shard) {
+                stats.add(
+                    new IndexingPressureStats.ShardAdmissionStats(
+                        entry.getKey(),
+                        shard.currentBytes,
+                        shardLimit(shard),
+                        (long) shard.queueLatencyNanos,
+                        shard.indexingThrottled,
+                        shard.rejections
+                    )
+                );
+            }
+        }
+        return stats;
+    }
+
     public IndexingPressureStats stats() {
         return new IndexingPressureStats(
             totalCombinedCoordinatingAndPrimaryBytes.get(),
@@ -213,7 +413,9 @@ public class IndexingPressure {
             totalReplicaOps.get(),
             currentCoordinatingOps.get(),
             currentPrimaryOps.get(),
-            currentReplicaOps.get()
+            currentReplicaOps.get(),
+            shardRejections.get(),
+            shardAdmissionStats()
         );
     }
 }
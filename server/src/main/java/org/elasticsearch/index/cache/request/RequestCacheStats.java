@@ -8,6 +8,7 @@
 
 package org.elasticsearch.index.cache.request;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -24,6 +25,12 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
     private long hitCount;
     private long missCount;
 
+    // node level statistics of the IndicesAggregationCache, these are not tracked per shard
+    private long segmentAggregationsMemorySize;
+    private long segmentAggregationsEvictions;
+    private long segmentAggregationsHitCount;
+    private long segmentAggregationsMissCount;
+
     public RequestCacheStats() {}
 
     public RequestCacheStats(StreamInput in) throws IOException {
@@ -31,6 +38,12 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         evictions = in.readVLong();
         hitCount = in.readVLong();
         missCount = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_8_2_0)) {
+            segmentAggregationsMemorySize = in.readVLong();
+            segmentAggregationsEvictions = in.readVLong();
+            segmentAggregationsHitCount = in.readVLong();
+            segmentAggregationsMissCount = in.readVLong();
+        }
     }
 
     public RequestCacheStats(long memorySize, long evictions, long hitCount, long missCount) {
@@ -45,6 +58,17 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         this.evictions += stats.evictions;
         this.hitCount += stats.hitCount;
         this.missCount += stats.missCount;
+        this.segmentAggregationsMemorySize += stats.segmentAggregationsMemorySize;
+        this.segmentAggregationsEvictions += stats.segmentAggregationsEvictions;
+        this.segmentAggregationsHitCount += stats.segmentAggregationsHitCount;
+        this.segmentAggregationsMissCount += stats.segmentAggregationsMissCount;
+    }
+
+    public void addSegmentAggregationStats(long memorySize, long evictions, long hitCount, long missCount) {
+        this.segmentAggregationsMemorySize += memorySize;
+        this.segmentAggregationsEvictions += evictions;
+        this.segmentAggregationsHitCount += hitCount;
+        this.segmentAggregationsMissCount += missCount;
     }
 
     public long getMemorySizeInBytes() {
@@ -67,12 +91,38 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         return this.missCount;
     }
 
+    /** the memory used by the per-segment aggregation results cached on the node */
+    public long getSegmentAggregationsMemorySizeInBytes() {
+        return segmentAggregationsMemorySize;
+    }
+
+    /** the number of per-segment aggregation results that were evicted from the cache of the node */
+    public long getSegmentAggregationsEvictions() {
+        return segmentAggregationsEvictions;
+    }
+
+    /** the number of segments whose aggregation results were found in the cache of the node */
+    public long getSegmentAggregationsHitCount() {
+        return segmentAggregationsHitCount;
+    }
+
+    /** the number of segments whose aggregation results had to be computed */
+    public long getSegmentAggregationsMissCount() {
+        return segmentAggregationsMissCount;
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVLong(memorySize);
         out.writeVLong(evictions);
         out.writeVLong(hitCount);
         out.writeVLong(missCount);
+        if (out.getVersion().onOrAfter(Version.V_8_2_0)) {
+            out.writeVLong(segmentAggregationsMemorySize);
+            out.writeVLong(segmentAggregationsEvictions);
+            out.writeVLong(segmentAggregationsHitCount);
+            out.writeVLong(segmentAggregationsMissCount);
+        }
     }
 
     @Override
@@ -82,6 +132,14 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         builder.field(Fields.EVICTIONS, getEvictions());
         builder.field(Fields.HIT_COUNT, getHitCount());
         builder.field(Fields.MISS_COUNT, getMissCount());
+        if (segmentAggregationsHitCount > 0 || segmentAggregationsMissCount > 0) {
+            builder.startObject(Fields.SEGMENT_AGGREGATIONS);
+            builder.humanReadableField(Fields.MEMORY_SIZE_IN_BYTES, Fields.MEMORY_SIZE, new ByteSizeValue(segmentAggregationsMemorySize));
+            builder.field(Fields.EVICTIONS, segmentAggregationsEvictions);
+            builder.field(Fields.HIT_COUNT, segmentAggregationsHitCount);
+            builder.field(Fields.MISS_COUNT, segmentAggregationsMissCount);
+            builder.endObject();
+        }
         builder.endObject();
         return builder;
     }
@@ -93,5 +151,6 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         static final String EVICTIONS = "evictions";
         static final String HIT_COUNT = "hit_count";
         static final String MISS_COUNT = "miss_count";
+        static final String SEGMENT_AGGREGATIONS = "segment_aggregations";
     }
 }
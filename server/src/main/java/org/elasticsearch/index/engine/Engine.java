@@ -771,6 +771,19 @@ public abstract class Engine implements Closeable {
         ensureOpen(null);
     }
 
+    /**
+     * Acquires the read lock of this engine for the current thread, unless the engine is being closed or reset. Unlike the acquisitions
+     * made by the operations of this engine, it does not wait behind a pending acquisition of the write lock: a thread that works on
+     * behalf of a thread that already holds the read lock, such as the appliers of a parallel translog replay, holds the lock acquired
+     * this way so that its operations can re-acquire it while the holder waits for it.
+     *
+     * @return the acquired lock, to be released by the current thread, or {@code null} if the write lock is held
+     */
+    @Nullable
+    public Releasable tryAcquireReadLock() {
+        return readLock.tryAcquire();
+    }
+
     /** get commits stats for the last commit */
     public final CommitStats commitStats() {
         return new CommitStats(getLastCommittedSegmentInfos());
@@ -108,6 +108,33 @@ public final class EngineConfig {
         }
     }, Property.IndexScope, Property.NodeScope);
 
+    /**
+     * The data structure the engine uses to track the versions of recently indexed documents until they are visible to searches.
+     */
+    public enum VersionMapType {
+        /**
+         * Keeps entries in on-heap concurrent maps.
+         */
+        HEAP,
+        /**
+         * Keeps entries in paged hash tables allocated from the recycled pages of {@link org.elasticsearch.common.util.BigArrays}
+         * which are accounted for by the circuit breaker. This reduces heap and GC overhead for update heavy indices with many
+         * distinct ids between refreshes.
+         */
+        PAGED
+    }
+
+    /**
+     * Index setting to choose the {@link VersionMapType} of the engine's live version map.
+     * This setting is <b>not</b> realtime updateable.
+     */
+    public static final Setting<VersionMapType> INDEX_VERSION_MAP_TYPE_SETTING = Setting.enumSetting(
+        VersionMapType.class,
+        "index.version_map.type",
+        VersionMapType.HEAP,
+        Property.IndexScope
+    );
+
     private final TranslogConfig translogConfig;
 
     /**
@@ -209,6 +236,13 @@ public final class EngineConfig {
         return enableGcDeletes;
     }
 
+    /**
+     * Returns the {@link VersionMapType} of the live version map.
+     */
+    public VersionMapType getVersionMapType() {
+        return indexSettings.getValue(INDEX_VERSION_MAP_TYPE_SETTING);
+    }
+
     /**
      * Returns the {@link Codec} used in the engines {@link org.apache.lucene.index.IndexWriter}
      * <p>
@@ -12,6 +12,7 @@ import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.KeyedLock;
 import org.elasticsearch.core.Releasable;
@@ -21,21 +22,103 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
 
 /** Maps _uid value to its version information. */
 final class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
 
     private final KeyedLock<BytesRef> keyedLock = new KeyedLock<>();
 
-    private static final class VersionLookup {
+    /**
+     * The storage behind a single {@link VersionLookup}. Every call for a given uid is made while holding the lock for that uid, but
+     * calls for different uids may happen concurrently. Once released, a store must behave as if it was empty.
+     */
+    interface VersionStore extends Releasable {
+
+        VersionValue get(BytesRef uid);
+
+        /**
+         * Stores the given value and returns the previous value for this uid or {@code null} if there was none.
+         */
+        VersionValue put(BytesRef uid, VersionValue value);
+
+        VersionValue remove(BytesRef uid);
+
+        int size();
+
+        /**
+         * Returns the number of bytes used to hold the given uid/value pair in this store.
+         */
+        long ramBytesUsed(BytesRef uid, VersionValue value);
+
+        /**
+         * Returns the current entries of this store, either as a live view or as a point in time snapshot.
+         */
+        Map<BytesRef, VersionValue> asMap();
+    }
+
+    /**
+     * A {@link VersionStore} backed by a {@link java.util.concurrent.ConcurrentHashMap}.
+     */
+    private static final class HeapVersionStore implements VersionStore {
+
+        private final Map<BytesRef, VersionValue> map;
+
+        HeapVersionStore(Map<BytesRef, VersionValue> map) {
+            this.map = map;
+        }
+
+        @Override
+        public VersionValue get(BytesRef uid) {
+            return map.get(uid);
+        }
+
+        @Override
+        public VersionValue put(BytesRef uid, VersionValue value) {
+            return map.put(uid, value);
+        }
+
+        @Override
+        public VersionValue remove(BytesRef uid) {
+            return map.remove(uid);
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public long ramBytesUsed(BytesRef uid, VersionValue value) {
+            return BASE_BYTES_PER_CHM_ENTRY + value.ramBytesUsed() + BASE_BYTES_PER_BYTESREF + uid.bytes.length;
+        }
+
+        @Override
+        public Map<BytesRef, VersionValue> asMap() {
+            return map;
+        }
+
+        @Override
+        public void close() {
+            // the map is garbage collected once it is no longer referenced
+        }
+    }
+
+    private static final IntFunction<VersionStore> HEAP_STORE_FACTORY = expectedSize -> new HeapVersionStore(
+        expectedSize > 0
+            ? ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency(expectedSize)
+            : ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency()
+    );
+
+    private static final class VersionLookup implements Releasable {
 
         /** Tracks bytes used by current map, i.e. what is freed on refresh. For deletes, which are also added to tombstones,
          *  we only account for the CHM entry here, and account for BytesRef/VersionValue against the tombstones, since refresh would not
          *  clear this RAM. */
         final AtomicLong ramBytesUsed = new AtomicLong();
 
-        private static final VersionLookup EMPTY = new VersionLookup(Collections.emptyMap());
-        private final Map<BytesRef, VersionValue> map;
+        private static final VersionLookup EMPTY = new VersionLookup(new HeapVersionStore(Collections.emptyMap()));
+        private final VersionStore store;
 
         // each version map has a notion of safe / unsafe which allows us to apply certain optimization in the auto-generated ID usecase
         // where we know that documents can't have any duplicates so we can skip the version map entirely. This reduces
@@ -53,24 +136,28 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
         // the tombstone
         private final AtomicLong minDeleteTimestamp = new AtomicLong(Long.MAX_VALUE);
 
-        private VersionLookup(Map<BytesRef, VersionValue> map) {
-            this.map = map;
+        private VersionLookup(VersionStore store) {
+            this.store = store;
         }
 
         VersionValue get(BytesRef key) {
-            return map.get(key);
+            return store.get(key);
         }
 
         VersionValue put(BytesRef key, VersionValue value) {
-            return map.put(key, value);
+            return store.put(key, value);
         }
 
         boolean isEmpty() {
-            return map.isEmpty();
+            return store.size() == 0;
         }
 
         int size() {
-            return map.size();
+            return store.size();
+        }
+
+        long ramBytesUsed(BytesRef uid, VersionValue value) {
+            return store.ramBytesUsed(uid, value);
         }
 
         boolean isUnsafe() {
@@ -82,7 +169,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
         }
 
         public VersionValue remove(BytesRef uid) {
-            return map.remove(uid);
+            return store.remove(uid);
         }
 
         public void updateMinDeletedTimestamp(DeleteVersionValue delete) {
@@ -90,6 +177,11 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
             minDeleteTimestamp.updateAndGet(prev -> Math.min(time, prev));
         }
 
+        @Override
+        public void close() {
+            store.close();
+        }
+
     }
 
     private static final class Maps {
@@ -105,14 +197,22 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
         boolean needsSafeAccess;
         final boolean previousMapsNeededSafeAccess;
 
-        Maps(VersionLookup current, VersionLookup old, boolean previousMapsNeededSafeAccess) {
+        // creates the store for each new current map, given the expected number of entries or 0 if unknown
+        private final IntFunction<VersionStore> storeFactory;
+
+        Maps(VersionLookup current, VersionLookup old, boolean previousMapsNeededSafeAccess, IntFunction<VersionStore> storeFactory) {
             this.current = current;
             this.old = old;
             this.previousMapsNeededSafeAccess = previousMapsNeededSafeAccess;
+            this.storeFactory = storeFactory;
+        }
+
+        Maps(IntFunction<VersionStore> storeFactory) {
+            this(new VersionLookup(storeFactory.apply(0)), VersionLookup.EMPTY, false, storeFactory);
         }
 
         Maps() {
-            this(new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency()), VersionLookup.EMPTY, false);
+            this(HEAP_STORE_FACTORY);
         }
 
         boolean isSafeAccessMode() {
@@ -131,9 +231,10 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
          */
         Maps buildTransitionMap() {
             return new Maps(
-                new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency(current.size())),
+                new VersionLookup(storeFactory.apply(current.size())),
                 current,
-                shouldInheritSafeAccess()
+                shouldInheritSafeAccess(),
+                storeFactory
             );
         }
 
@@ -141,14 +242,13 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
          * builds a new map that invalidates the old map but maintains the current. This should be called in afterRefresh()
          */
         Maps invalidateOldMap() {
-            return new Maps(current, VersionLookup.EMPTY, previousMapsNeededSafeAccess);
+            return new Maps(current, VersionLookup.EMPTY, previousMapsNeededSafeAccess, storeFactory);
         }
 
         void put(BytesRef uid, VersionValue version) {
-            long uidRAMBytesUsed = BASE_BYTES_PER_BYTESREF + uid.bytes.length;
-            long ramAccounting = BASE_BYTES_PER_CHM_ENTRY + version.ramBytesUsed() + uidRAMBytesUsed;
+            long ramAccounting = current.ramBytesUsed(uid, version);
             VersionValue previousValue = current.put(uid, version);
-            ramAccounting += previousValue == null ? 0 : -(BASE_BYTES_PER_CHM_ENTRY + previousValue.ramBytesUsed() + uidRAMBytesUsed);
+            ramAccounting += previousValue == null ? 0 : -current.ramBytesUsed(uid, previousValue);
             adjustRam(ramAccounting);
         }
 
@@ -163,8 +263,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
             VersionValue previousValue = current.remove(uid);
             current.updateMinDeletedTimestamp(deleted);
             if (previousValue != null) {
-                long uidRAMBytesUsed = BASE_BYTES_PER_BYTESREF + uid.bytes.length;
-                adjustRam(-(BASE_BYTES_PER_CHM_ENTRY + previousValue.ramBytesUsed() + uidRAMBytesUsed));
+                adjustRam(-current.ramBytesUsed(uid, previousValue));
             }
             if (old != VersionLookup.EMPTY) {
                 // we also need to remove it from the old map here to make sure we don't read this stale value while
@@ -181,11 +280,30 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
     // All deletes also go here, and delete "tombstones" are retained after refresh:
     private final Map<BytesRef, DeleteVersionValue> tombstones = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
 
-    private volatile Maps maps = new Maps();
+    private volatile Maps maps;
     // we maintain a second map that only receives the updates that we skip on the actual map (unsafe ops)
     // this map is only maintained if assertions are enabled
     private volatile Maps unsafeKeysMap = new Maps();
 
+    // guards swapping and releasing the maps on refresh against releasing them on close. This must not be the monitor of this
+    // instance since the engine refreshes while holding it.
+    private final Object mapsMutex = new Object();
+
+    /**
+     * Creates a version map that keeps its entries in on-heap maps.
+     */
+    LiveVersionMap() {
+        this.maps = new Maps();
+    }
+
+    /**
+     * Creates a version map that keeps the entries that are cleared on refresh in paged hash tables allocated from the given
+     * {@link BigArrays}, see {@link PagedVersionStore}. Tombstones are always kept on heap.
+     */
+    LiveVersionMap(BigArrays bigArrays) {
+        this.maps = new Maps(expectedSize -> new PagedVersionStore(bigArrays, expectedSize));
+    }
+
     /**
      * Bytes consumed for each BytesRef UID:
      * In this base value, we account for the {@link BytesRef} object itself as
@@ -232,7 +350,9 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
         // map. While reopen is running, any lookup will first
         // try this new map, then fallback to old, then to the
         // current searcher:
-        maps = maps.buildTransitionMap();
+        synchronized (mapsMutex) {
+            maps = maps.buildTransitionMap();
+        }
         assert (unsafeKeysMap = unsafeKeysMap.buildTransitionMap()) != null;
         // This is not 100% correct, since concurrent indexing ops can change these counters in between our execution of the previous
         // line and this one, but that should be minor, and the error won't accumulate over time:
@@ -247,7 +367,12 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
         // reopen, and so any concurrent indexing requests can still sneak in a few additions to that current map that are in fact
         // reflected in the previous reader. We don't touch tombstones here: they expire on their own index.gc_deletes timeframe:
 
-        maps = maps.invalidateOldMap();
+        synchronized (mapsMutex) {
+            final VersionLookup old = maps.old;
+            maps = maps.invalidateOldMap();
+            // lookups that still hold on to the previous maps see the released store as empty and fall back to the new reader
+            old.close();
+        }
         assert (unsafeKeysMap = unsafeKeysMap.invalidateOldMap()) != null;
 
     }
@@ -405,7 +530,13 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      * Called when this index is closed.
      */
     synchronized void clear() {
-        maps = new Maps();
+        synchronized (mapsMutex) {
+            final Maps previous = maps;
+            // once closed we only hand out on-heap maps so that nothing needs to be released anymore
+            maps = new Maps();
+            previous.current.close();
+            previous.old.close();
+        }
         tombstones.clear();
         // NOTE: we can't zero this here, because a refresh thread could be calling InternalEngine.pruneDeletedTombstones at the same time,
         // and this will lead to an assert trip. Presumably it's fine if our ramBytesUsedTombstones is non-zero after clear since the
@@ -444,7 +575,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      * Returns the current internal versions as a point in time snapshot
      */
     Map<BytesRef, VersionValue> getAllCurrent() {
-        return maps.current.map;
+        return maps.current.store.asMap();
     }
 
     /** Iterates over all deleted versions, including new ones (not yet exposed via reader) and old ones
@@ -0,0 +1,232 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.BytesRefHash;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.index.translog.Translog;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link LiveVersionMap.VersionStore} that keeps uids and their {@link IndexVersionValue}s in paged, open-addressing hash tables
+ * allocated from {@link BigArrays} rather than in individual heap objects. Each entry is a copy of the uid bytes plus a fixed-width
+ * record of longs, so a store holding millions of entries is made of a handful of recycled pages that are released all at once when
+ * the store is dropped on refresh.
+ * <p>
+ * The hash tables are not thread-safe so entries are spread over a fixed number of stripes that are each guarded by their own monitor.
+ * Removed entries are only marked as such, their space is reclaimed when the whole store is released.
+ */
+final class PagedVersionStore implements LiveVersionMap.VersionStore {
+
+    static final int STRIPES = 16;
+
+    // layout of a record
+    private static final int VERSION = 0;
+    private static final int SEQ_NO = 1;
+    private static final int TERM = 2;
+    private static final int GENERATION = 3;
+    private static final int TRANSLOG_LOCATION = 4;
+    private static final int SIZE = 5;
+    private static final int RECORD_LONGS = 6;
+
+    // values for the generation slot of records that don't point to a translog location
+    private static final long NO_LOCATION = -1L;
+    private static final long REMOVED = -2L;
+
+    /**
+     * Bytes used per entry on top of the uid bytes: the record, the start offset and the cached hash of the key and two slots
+     * in the id table since it is at most half full.
+     */
+    static final long BYTES_PER_ENTRY = RECORD_LONGS * Long.BYTES + Long.BYTES + Integer.BYTES + 2 * Long.BYTES;
+
+    private final BigArrays bigArrays;
+    private final Stripe[] stripes;
+    private final AtomicInteger size = new AtomicInteger();
+
+    PagedVersionStore(BigArrays bigArrays, int expectedSize) {
+        this.bigArrays = bigArrays;
+        final long capacityPerStripe = Math.max(16, expectedSize / STRIPES);
+        this.stripes = new Stripe[STRIPES];
+        boolean success = false;
+        try {
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new Stripe(bigArrays, capacityPerStripe);
+            }
+            success = true;
+        } finally {
+            if (success == false) {
+                close();
+            }
+        }
+    }
+
+    private static final class Stripe {
+
+        private final BytesRefHash keys;
+        private LongArray records;
+        private boolean closed;
+
+        Stripe(BigArrays bigArrays, long capacity) {
+            boolean success = false;
+            BytesRefHash keys = null;
+            try {
+                keys = new BytesRefHash(capacity, bigArrays);
+                records = bigArrays.newLongArray(capacity * RECORD_LONGS, false);
+                success = true;
+            } finally {
+                if (success == false) {
+                    Releasables.close(keys);
+                }
+            }
+            this.keys = keys;
+        }
+    }
+
+    private Stripe stripe(BytesRef uid) {
+        // the hash table mixes the hash code again before using it, so the low bits can safely be used to pick the stripe
+        return stripes[uid.hashCode() & (STRIPES - 1)];
+    }
+
+    @Override
+    public VersionValue get(BytesRef uid) {
+        final Stripe stripe = stripe(uid);
+        synchronized (stripe) {
+            if (stripe.closed) {
+                return null;
+            }
+            final long id = stripe.keys.find(uid);
+            return id < 0 ? null : readRecord(stripe.records, id);
+        }
+    }
+
+    @Override
+    public VersionValue put(BytesRef uid, VersionValue value) {
+        assert value instanceof IndexVersionValue : "only index operations are kept in the current map but got " + value;
+        final Stripe stripe = stripe(uid);
+        final VersionValue previous;
+        synchronized (stripe) {
+            if (stripe.closed) {
+                return null;
+            }
+            long id = stripe.keys.add(uid);
+            if (id < 0) {
+                id = -1 - id;
+                previous = readRecord(stripe.records, id);
+            } else {
+                previous = null;
+                stripe.records = bigArrays.grow(stripe.records, (id + 1) * RECORD_LONGS);
+            }
+            writeRecord(stripe.records, id, value);
+        }
+        if (previous == null) {
+            size.incrementAndGet();
+        }
+        return previous;
+    }
+
+    @Override
+    public VersionValue remove(BytesRef uid) {
+        final Stripe stripe = stripe(uid);
+        final VersionValue previous;
+        synchronized (stripe) {
+            if (stripe.closed) {
+                return null;
+            }
+            final long id = stripe.keys.find(uid);
+            if (id < 0) {
+                return null;
+            }
+            previous = readRecord(stripe.records, id);
+            stripe.records.set(id * RECORD_LONGS + GENERATION, REMOVED);
+        }
+        if (previous != null) {
+            size.decrementAndGet();
+        }
+        return previous;
+    }
+
+    private static VersionValue readRecord(LongArray records, long id) {
+        final long offset = id * RECORD_LONGS;
+        final long generation = records.get(offset + GENERATION);
+        if (generation == REMOVED) {
+            return null;
+        }
+        final Translog.Location location = generation == NO_LOCATION
+            ? null
+            : new Translog.Location(generation, records.get(offset + TRANSLOG_LOCATION), (int) records.get(offset + SIZE));
+        return new IndexVersionValue(location, records.get(offset + VERSION), records.get(offset + SEQ_NO), records.get(offset + TERM));
+    }
+
+    private static void writeRecord(LongArray records, long id, VersionValue value) {
+        final long offset = id * RECORD_LONGS;
+        records.set(offset + VERSION, value.version);
+        records.set(offset + SEQ_NO, value.seqNo);
+        records.set(offset + TERM, value.term);
+        final Translog.Location location = value.getLocation();
+        if (location == null) {
+            records.set(offset + GENERATION, NO_LOCATION);
+        } else {
+            assert location.generation >= 0 : "unexpected translog generation " + location;
+            records.set(offset + GENERATION, location.generation);
+            records.set(offset + TRANSLOG_LOCATION, location.translogLocation);
+            records.set(offset + SIZE, location.size);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public long ramBytesUsed(BytesRef uid, VersionValue value) {
+        return BYTES_PER_ENTRY + uid.length;
+    }
+
+    @Override
+    public Map<BytesRef, VersionValue> asMap() {
+        final Map<BytesRef, VersionValue> snapshot = new HashMap<>();
+        final BytesRef spare = new BytesRef();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                if (stripe.closed) {
+                    continue;
+                }
+                for (long id = 0; id < stripe.keys.size(); id++) {
+                    final VersionValue value = readRecord(stripe.records, id);
+                    if (value != null) {
+                        snapshot.put(BytesRef.deepCopyOf(stripe.keys.get(id, spare)), value);
+                    }
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void close() {
+        for (Stripe stripe : stripes) {
+            if (stripe == null) {
+                continue;
+            }
+            synchronized (stripe) {
+                if (stripe.closed == false) {
+                    stripe.closed = true;
+                    Releasables.close(stripe.keys, stripe.records);
+                }
+            }
+        }
+    }
+}
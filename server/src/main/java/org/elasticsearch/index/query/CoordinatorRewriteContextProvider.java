@@ -14,8 +14,12 @@ import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.index.IndexMode;
+import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.shard.IndexLongFieldRange;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardLongFieldRange;
 import org.elasticsearch.xcontent.XContentParserConfiguration;
 
 import java.util.function.Function;
@@ -29,6 +33,7 @@ public class CoordinatorRewriteContextProvider {
     private final LongSupplier nowInMillis;
     private final Supplier<ClusterState> clusterStateSupplier;
     private final Function<Index, DateFieldMapper.DateFieldType> mappingSupplier;
+    private final CoordinatorTimestampRangeCache timestampRangeCache;
 
     public CoordinatorRewriteContextProvider(
         XContentParserConfiguration parserConfig,
@@ -37,6 +42,26 @@ public class CoordinatorRewriteContextProvider {
         LongSupplier nowInMillis,
         Supplier<ClusterState> clusterStateSupplier,
         Function<Index, DateFieldMapper.DateFieldType> mappingSupplier
+    ) {
+        this(
+            parserConfig,
+            writeableRegistry,
+            client,
+            nowInMillis,
+            clusterStateSupplier,
+            mappingSupplier,
+            new CoordinatorTimestampRangeCache()
+        );
+    }
+
+    public CoordinatorRewriteContextProvider(
+        XContentParserConfiguration parserConfig,
+        NamedWriteableRegistry writeableRegistry,
+        Client client,
+        LongSupplier nowInMillis,
+        Supplier<ClusterState> clusterStateSupplier,
+        Function<Index, DateFieldMapper.DateFieldType> mappingSupplier,
+        CoordinatorTimestampRangeCache timestampRangeCache
     ) {
         this.parserConfig = parserConfig;
         this.writeableRegistry = writeableRegistry;
@@ -44,6 +69,7 @@ public class CoordinatorRewriteContextProvider {
         this.nowInMillis = nowInMillis;
         this.clusterStateSupplier = clusterStateSupplier;
         this.mappingSupplier = mappingSupplier;
+        this.timestampRangeCache = timestampRangeCache;
     }
 
     @Nullable
@@ -64,4 +90,75 @@ public class CoordinatorRewriteContextProvider {
         IndexLongFieldRange timestampRange = indexMetadata.getTimestampRange();
         return new CoordinatorRewriteContext(parserConfig, writeableRegistry, client, nowInMillis, index, timestampRange, dateFieldType);
     }
+
+    /**
+     * Returns a context to rewrite the queries of the given shard on the coordinating node, using the range of the {@code @timestamp}
+     * field of the whole index if it is in the index metadata, and otherwise the range of the shard as bounded by the time series bounds
+     * of the index and as cached from earlier can_match responses of the shard.
+     */
+    @Nullable
+    public CoordinatorRewriteContext getCoordinatorRewriteContext(ShardId shardId) {
+        final CoordinatorRewriteContext indexContext = getCoordinatorRewriteContext(shardId.getIndex());
+        if (indexContext != null) {
+            return indexContext;
+        }
+
+        final IndexMetadata indexMetadata = clusterStateSupplier.get().metadata().index(shardId.getIndex());
+        if (indexMetadata == null) {
+            return null;
+        }
+        final ShardLongFieldRange cachedRange = timestampRangeCache.get(indexMetadata, shardId);
+        final boolean timeSeries = IndexSettings.MODE.get(indexMetadata.getSettings()) == IndexMode.TIME_SERIES;
+        if (cachedRange == null && timeSeries == false) {
+            return null;
+        }
+
+        final DateFieldMapper.DateFieldType dateFieldType = mappingSupplier.apply(shardId.getIndex());
+        if (dateFieldType == null) {
+            return null;
+        }
+
+        long min = Long.MIN_VALUE;
+        long max = Long.MAX_VALUE;
+        if (timeSeries) {
+            // documents outside the time series bounds of the index are rejected
+            try {
+                min = dateFieldType.resolution().convert(IndexSettings.TIME_SERIES_START_TIME.get(indexMetadata.getSettings()));
+                max = dateFieldType.resolution().convert(IndexSettings.TIME_SERIES_END_TIME.get(indexMetadata.getSettings())) - 1;
+            } catch (IllegalArgumentException e) {
+                // the bounds are out of the range of nanosecond timestamps, ignore them
+                if (cachedRange == null) {
+                    return null;
+                }
+                min = Long.MIN_VALUE;
+                max = Long.MAX_VALUE;
+            }
+        }
+        if (cachedRange != null) {
+            min = Math.max(min, cachedRange.getMin());
+            max = Math.min(max, cachedRange.getMax());
+        }
+        final ShardLongFieldRange shardRange = cachedRange == ShardLongFieldRange.EMPTY || min > max
+            ? ShardLongFieldRange.EMPTY
+            : ShardLongFieldRange.of(min, max);
+        // the range of the shard is the complete range of an index that would only hold this shard
+        final IndexLongFieldRange timestampRange = IndexLongFieldRange.NO_SHARDS.extendWithShardRange(0, 1, shardRange);
+        return new CoordinatorRewriteContext(
+            parserConfig,
+            writeableRegistry,
+            client,
+            nowInMillis,
+            shardId.getIndex(),
+            timestampRange,
+            dateFieldType
+        );
+    }
+
+    /**
+     * Caches the range of the {@code @timestamp} field that a shard of the local cluster reported in response to a can_match request,
+     * computed under the given settings version of its index.
+     */
+    public void onCanMatchResponse(ShardId shardId, ShardLongFieldRange timestampRange, long settingsVersion) {
+        timestampRangeCache.put(clusterStateSupplier.get().metadata(), shardId, timestampRange, settingsVersion);
+    }
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.query;
+
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardLongFieldRange;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Caches the range of the {@code @timestamp} field of the shards of immutable indices, as reported by the shards in response to earlier
+ * can_match requests, so that the coordinating node can skip the shards that cannot match a range query on this field without sending
+ * them a can_match request again. Shards only report their range once all their documents are visible to searches, and the documents of
+ * an index that has a write block cannot change. A range is only cached if the shard computed it under the settings that the coordinating
+ * node knows of, and only used for as long as the settings of its index do not change, since adding or removing a block changes them.
+ */
+public final class CoordinatorTimestampRangeCache {
+
+    private final Map<ShardId, Entry> entries = ConcurrentCollections.newConcurrentMap();
+
+    // the immutable indices that ranges were cached for, as of the last time the cache was pruned
+    private final Set<Index> indicesWithRanges = ConcurrentCollections.newConcurrentSet();
+
+    private final Consumer<IndexMetadata> onFirstRangeOfIndex;
+
+    private record Entry(long settingsVersion, ShardLongFieldRange range) {}
+
+    public CoordinatorTimestampRangeCache() {
+        this(indexMetadata -> {});
+    }
+
+    /**
+     * @param onFirstRangeOfIndex called when the first range of a shard of an index is cached, for instance to look up the mapping of the
+     *                            {@code @timestamp} field of the index which is needed to use the range
+     */
+    public CoordinatorTimestampRangeCache(Consumer<IndexMetadata> onFirstRangeOfIndex) {
+        this.onFirstRangeOfIndex = onFirstRangeOfIndex;
+    }
+
+    /**
+     * @return whether the documents of the given index cannot change, because the index has a write block
+     */
+    public static boolean isImmutable(IndexMetadata indexMetadata) {
+        final Settings settings = indexMetadata.getSettings();
+        return IndexMetadata.INDEX_BLOCKS_WRITE_SETTING.get(settings) || IndexMetadata.INDEX_READ_ONLY_SETTING.get(settings);
+    }
+
+    /**
+     * Caches the range of the {@code @timestamp} field that the given shard reported, if its index is immutable and the shard computed
+     * the range under the current settings of the index.
+     *
+     * @param settingsVersion the settings version of the index on the node of the shard when it computed the range
+     */
+    public void put(Metadata metadata, ShardId shardId, ShardLongFieldRange range, long settingsVersion) {
+        final IndexMetadata indexMetadata = metadata.index(shardId.getIndex());
+        if (indexMetadata == null
+            || range == ShardLongFieldRange.UNKNOWN
+            || indexMetadata.getSettingsVersion() != settingsVersion
+            || isImmutable(indexMetadata) == false) {
+            // the range may not hold under the settings that the coordinating node knows of
+            entries.remove(shardId);
+            return;
+        }
+        entries.put(shardId, new Entry(settingsVersion, range));
+        if (indicesWithRanges.add(shardId.getIndex())) {
+            onFirstRangeOfIndex.accept(indexMetadata);
+        }
+    }
+
+    /**
+     * Removes the ranges that are no longer valid under the given metadata, and forgets the indices that were deleted or are no longer
+     * immutable. Called whenever the indices in the metadata of the cluster change, since these ranges are never looked up again.
+     */
+    public void prune(Metadata metadata) {
+        entries.entrySet().removeIf(e -> isValid(metadata.index(e.getKey().getIndex()), e.getValue()) == false);
+        indicesWithRanges.removeIf(index -> {
+            final IndexMetadata indexMetadata = metadata.index(index);
+            return indexMetadata == null || isImmutable(indexMetadata) == false;
+        });
+    }
+
+    /**
+     * @return whether ranges of the shards of the given index were cached, in which case the index is worth looking up the mapping of
+     *         the {@code @timestamp} field for
+     */
+    public boolean hasRanges(Index index) {
+        return indicesWithRanges.contains(index);
+    }
+
+    /**
+     * @return the cached range of the {@code @timestamp} field of the given shard, or {@code null} if it is unknown or might be stale
+     */
+    @Nullable
+    public ShardLongFieldRange get(IndexMetadata indexMetadata, ShardId shardId) {
+        final Entry entry = entries.get(shardId);
+        if (entry == null) {
+            return null;
+        }
+        if (isValid(indexMetadata, entry) == false) {
+            entries.remove(shardId, entry);
+            return null;
+        }
+        return entry.range();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private static boolean isValid(@Nullable IndexMetadata indexMetadata, Entry entry) {
+        return indexMetadata != null && indexMetadata.getSettingsVersion() == entry.settingsVersion() && isImmutable(indexMetadata);
+    }
+}
@@ -47,6 +47,7 @@ import org.elasticsearch.cluster.routing.RecoverySource;
 import org.elasticsearch.cluster.routing.RecoverySource.SnapshotRecoverySource;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.allocation.decider.DiskThresholdDecider;
+import org.elasticsearch.common.CheckedBiConsumer;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.lucene.Lucene;
@@ -132,6 +133,7 @@ import org.elasticsearch.index.store.StoreFileMetadata;
 import org.elasticsearch.index.store.StoreStats;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.index.translog.TranslogConfig;
+import org.elasticsearch.index.translog.TranslogGroupCommitService;
 import org.elasticsearch.index.translog.TranslogStats;
 import org.elasticsearch.index.warmer.ShardIndexWarmerService;
 import org.elasticsearch.index.warmer.WarmerStats;
@@ -162,6 +164,7 @@ import java.util.Collections;
 import java.util.Deque;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
@@ -185,6 +188,7 @@ import java.util.function.LongSupplier;
 import java.util.function.LongUnaryOperator;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.cluster.metadata.DataStream.TIMESERIES_LEAF_READERS_SORTER;
@@ -311,7 +315,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         final Runnable globalCheckpointSyncer,
         final RetentionLeaseSyncer retentionLeaseSyncer,
         final CircuitBreakerService circuitBreakerService,
-        final IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier
+        final IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier,
+        final TranslogGroupCommitService translogGroupCommitService
     ) throws IOException {
         super(shardRouting.shardId(), indexSettings);
         assert shardRouting.initializing();
@@ -328,6 +333,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         this.indexEventListener = indexEventListener;
         this.threadPool = threadPool;
         this.translogSyncProcessor = createTranslogSyncProcessor(logger, threadPool.getThreadContext(), this::getEngine);
+        this.translogGroupCommitService = Objects.requireNonNull(translogGroupCommitService);
+        this.translogGroupCommitSyncer = createTranslogGroupCommitSyncer(this::getEngine);
         this.mapperService = mapperService;
         this.indexCache = indexCache;
         this.internalIndexingStats = new InternalIndexingStats();
@@ -1271,6 +1278,14 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return internalIndexingStats.stats(throttled, throttleTimeInMillis);
     }
 
+    /**
+     * Returns whether indexing into this shard is currently throttled, e.g. because merges are falling behind.
+     */
+    public boolean isIndexingThrottled() {
+        final Engine engine = getEngineOrNull();
+        return engine != null && engine.isThrottled();
+    }
+
     public SearchStats searchStats(String... groups) {
         return searchStats.stats(groups);
     }
@@ -1827,40 +1842,101 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
 
     /**
      * Replays translog operations from the provided translog {@code snapshot} to the current engine using the given {@code origin}.
-     * The callback {@code onOperationRecovered} is notified after each translog operation is replayed successfully.
+     * The callback {@code onOperationRecovered} is notified after each translog operation is replayed successfully, possibly
+     * concurrently if {@link IndexSettings#INDEX_TRANSLOG_REPLAY_PARALLELISM_SETTING} is greater than one.
      */
     int runTranslogRecovery(Engine engine, Translog.Snapshot snapshot, Engine.Operation.Origin origin, Runnable onOperationRecovered)
         throws IOException {
+        final int parallelism = indexSettings.getTranslogReplayParallelism();
+        if (parallelism > 1) {
+            return newTranslogReplayPipeline(engine, parallelism).replay(
+                snapshot::next,
+                operation -> recoverTranslogOperation(engine, operation, origin, onOperationRecovered)
+            );
+        }
         int opsRecovered = 0;
         Translog.Operation operation;
         while ((operation = snapshot.next()) != null) {
-            try {
-                logger.trace("[translog] recover op {}", operation);
-                Engine.Result result = applyTranslogOperation(engine, operation, origin);
-                switch (result.getResultType()) {
-                    case FAILURE:
-                        throw result.getFailure();
-                    case MAPPING_UPDATE_REQUIRED:
-                        throw new IllegalArgumentException("unexpected mapping update: " + result.getRequiredMappingUpdate());
-                    case SUCCESS:
-                        break;
-                    default:
-                        throw new AssertionError("Unknown result type [" + result.getResultType() + "]");
-                }
-
+            if (recoverTranslogOperation(engine, operation, origin, onOperationRecovered)) {
                 opsRecovered++;
-                onOperationRecovered.run();
-            } catch (Exception e) {
-                // TODO: Don't enable this leniency unless users explicitly opt-in
-                if (origin == Engine.Operation.Origin.LOCAL_TRANSLOG_RECOVERY && ExceptionsHelper.status(e) == RestStatus.BAD_REQUEST) {
-                    // mainly for MapperParsingException and Failure to detect xcontent
-                    logger.info("ignoring recovery of a corrupt translog entry", e);
-                } else {
+            }
+        }
+        return opsRecovered;
+    }
+
+    private boolean recoverTranslogOperation(
+        Engine engine,
+        Translog.Operation operation,
+        Engine.Operation.Origin origin,
+        Runnable onOperationRecovered
+    ) {
+        try {
+            logger.trace("[translog] recover op {}", operation);
+            Engine.Result result = applyTranslogOperation(engine, operation, origin);
+            switch (result.getResultType()) {
+                case FAILURE:
+                    throw result.getFailure();
+                case MAPPING_UPDATE_REQUIRED:
+                    throw new IllegalArgumentException("unexpected mapping update: " + result.getRequiredMappingUpdate());
+                case SUCCESS:
+                    break;
+                default:
+                    throw new AssertionError("Unknown result type [" + result.getResultType() + "]");
+            }
+
+            onOperationRecovered.run();
+            return true;
+        } catch (Exception e) {
+            // TODO: Don't enable this leniency unless users explicitly opt-in
+            if (origin == Engine.Operation.Origin.LOCAL_TRANSLOG_RECOVERY && ExceptionsHelper.status(e) == RestStatus.BAD_REQUEST) {
+                // mainly for MapperParsingException and Failure to detect xcontent
+                logger.info("ignoring recovery of a corrupt translog entry", e);
+                return false;
+            } else {
+                throw ExceptionsHelper.convertToRuntime(e);
+            }
+        }
+    }
+
+    /**
+     * Applies the given translog operations received during a peer recovery to the current engine, possibly concurrently if
+     * {@link IndexSettings#INDEX_TRANSLOG_REPLAY_PARALLELISM_SETTING} is greater than one, in which case operations on the same
+     * document are still applied in the given order. Stops at the first exception thrown by the {@code resultHandler}, which is
+     * notified of the result of each operation.
+     */
+    public void applyTranslogOperations(
+        List<Translog.Operation> operations,
+        Engine.Operation.Origin origin,
+        CheckedBiConsumer<Translog.Operation, Engine.Result, Exception> resultHandler
+    ) throws IOException {
+        final Engine engine = getEngine();
+        final int parallelism = Math.min(indexSettings.getTranslogReplayParallelism(), operations.size());
+        if (parallelism > 1) {
+            final Iterator<Translog.Operation> iterator = operations.iterator();
+            newTranslogReplayPipeline(engine, parallelism).replay(() -> iterator.hasNext() ? iterator.next() : null, operation -> {
+                resultHandler.accept(operation, applyTranslogOperation(engine, operation, origin));
+                return true;
+            });
+        } else {
+            for (Translog.Operation operation : operations) {
+                try {
+                    resultHandler.accept(operation, applyTranslogOperation(engine, operation, origin));
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
                     throw ExceptionsHelper.convertToRuntime(e);
                 }
             }
         }
-        return opsRecovered;
+    }
+
+    private TranslogReplayPipeline newTranslogReplayPipeline(Engine engine, int parallelism) {
+        return new TranslogReplayPipeline(
+            parallelism,
+            threadPool.generic(),
+            engine::tryAcquireReadLock,
+            () -> state == IndexShardState.CLOSED
+        );
     }
 
     private void loadGlobalCheckpointToReplicationTracker() throws IOException {
@@ -3585,6 +3661,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     }
 
     private final AsyncIOProcessor<Translog.Location> translogSyncProcessor;
+    private final TranslogGroupCommitService translogGroupCommitService;
+    private final TranslogGroupCommitService.ShardTranslogSyncer translogGroupCommitSyncer;
 
     private static AsyncIOProcessor<Translog.Location> createTranslogSyncProcessor(
         Logger logger,
@@ -3607,18 +3685,35 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         };
     }
 
+    private static TranslogGroupCommitService.ShardTranslogSyncer createTranslogGroupCommitSyncer(Supplier<Engine> engineSupplier) {
+        return location -> {
+            try {
+                engineSupplier.get().ensureTranslogSynced(Stream.of(location));
+            } catch (AlreadyClosedException ex) {
+                // that's fine since we already synced everything on engine close - this also is conform with the methods
+                // documentation
+            }
+        };
+    }
+
     /**
      * Syncs the given location with the underlying storage unless already synced. This method might return immediately without
      * actually fsyncing the location until the sync listener is called. Yet, unless there is already another thread fsyncing
      * the transaction log the caller thread will be hijacked to run the fsync for all pending fsync operations.
      * This method allows indexing threads to continue indexing without blocking on fsync calls. We ensure that there is only
      * one thread blocking on the sync an all others can continue indexing.
+     * If translog group commit is enabled on this node the location is synced as part of the next node-wide batch instead, see
+     * {@link TranslogGroupCommitService}.
      * NOTE: if the syncListener throws an exception when it's processed the exception will only be logged. Users should make sure that the
      * listener handles all exception cases internally.
      */
     public final void sync(Translog.Location location, Consumer<Exception> syncListener) {
         verifyNotClosed();
-        translogSyncProcessor.put(location, syncListener);
+        if (translogGroupCommitService.isEnabled()) {
+            translogGroupCommitService.sync(translogGroupCommitSyncer, location, syncListener);
+        } else {
+            translogSyncProcessor.put(location, syncListener);
+        }
     }
 
     public void sync() throws IOException {
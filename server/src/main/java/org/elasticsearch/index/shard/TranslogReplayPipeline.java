@@ -0,0 +1,269 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.shard;
+
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.core.CheckedFunction;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.index.translog.Translog;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Replays translog operations with several appliers. The calling thread reads the operations and hands them over in batches to the
+ * appliers, which run on the given executor. Operations are partitioned by document id, so that all the operations on a document are
+ * applied by the same applier in the order in which they were read, as if they were applied one at a time; no-ops are partitioned by
+ * sequence number. Operations on different documents may be applied in any order, which the engine already has to deal with when
+ * replicas apply concurrent replication requests.
+ */
+final class TranslogReplayPipeline {
+
+    /**
+     * Number of operations that are handed over to an applier at once.
+     */
+    static final int BATCH_SIZE = 256;
+
+    /**
+     * Number of batches each applier may have queued, which bounds the number of operations that are read ahead of the appliers.
+     */
+    static final int MAX_QUEUED_BATCHES = 4;
+
+    private static final List<Translog.Operation> END_OF_OPERATIONS = List.of();
+
+    private final int parallelism;
+    private final Executor executor;
+    private final Supplier<Releasable> applierLock;
+    private final BooleanSupplier isAborted;
+
+    /**
+     * @param parallelism the number of appliers
+     * @param executor    the executor that runs the appliers
+     * @param applierLock acquires a lock that each applier holds while it applies operations, or returns {@code null}. The replay may
+     *                    hold the read lock of the engine, in which case the appliers must hold it too: otherwise their operations
+     *                    would block on the lock behind a close of the engine that waits for the replay, which waits for them.
+     * @param isAborted   whether to skip the operations that are not applied yet, for instance because the shard is closed
+     */
+    TranslogReplayPipeline(int parallelism, Executor executor, Supplier<Releasable> applierLock, BooleanSupplier isAborted) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1 but was [" + parallelism + "]");
+        }
+        this.parallelism = parallelism;
+        this.executor = executor;
+        this.applierLock = applierLock;
+        this.isAborted = isAborted;
+    }
+
+    /**
+     * Reads operations until the given supplier returns {@code null} and applies them. Stops at the first failure, which is thrown once
+     * the appliers stopped. Always waits for the appliers, so that none of them applies an operation once this method returned.
+     *
+     * @param operations supplies the operations to replay, called on the calling thread only
+     * @param applier    applies an operation and returns whether it counts as replayed, called concurrently by the appliers
+     * @return the number of operations that the applier counted as replayed
+     */
+    int replay(CheckedSupplier<Translog.Operation, IOException> operations, CheckedFunction<Translog.Operation, Boolean, Exception> applier)
+        throws IOException {
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final AtomicInteger replayed = new AtomicInteger();
+        final CountDownLatch appliersDone = new CountDownLatch(parallelism);
+        final List<Applier> appliers = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            final Applier applierTask = new Applier(applier, applierLock, failure, replayed, appliersDone);
+            appliers.add(applierTask);
+            executor.execute(applierTask);
+        }
+
+        final List<List<Translog.Operation>> batches = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            batches.add(new ArrayList<>(BATCH_SIZE));
+        }
+        try {
+            Translog.Operation operation;
+            while (failure.get() == null && (operation = operations.get()) != null) {
+                if (isAborted.getAsBoolean()) {
+                    setFailure(failure, new IllegalStateException("translog replay was aborted"));
+                    break;
+                }
+                final int partition = partition(operation);
+                final List<Translog.Operation> batch = batches.get(partition);
+                batch.add(operation);
+                if (batch.size() == BATCH_SIZE) {
+                    appliers.get(partition).enqueue(batch);
+                    batches.set(partition, new ArrayList<>(BATCH_SIZE));
+                }
+            }
+            for (int i = 0; i < parallelism; i++) {
+                if (batches.get(i).isEmpty() == false) {
+                    appliers.get(i).enqueue(batches.get(i));
+                }
+            }
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            setFailure(failure, e);
+        } finally {
+            for (Applier applierTask : appliers) {
+                applierTask.end(failure.get() != null);
+            }
+            awaitAppliers(appliersDone, failure);
+        }
+
+        final Throwable t = failure.get();
+        if (t != null) {
+            if (t instanceof Error error) {
+                throw error;
+            }
+            if (t instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw ExceptionsHelper.convertToRuntime((Exception) t);
+        }
+        return replayed.get();
+    }
+
+    private int partition(Translog.Operation operation) {
+        return switch (operation.opType()) {
+            case INDEX -> Math.floorMod(((Translog.Index) operation).id().hashCode(), parallelism);
+            case DELETE -> Math.floorMod(((Translog.Delete) operation).id().hashCode(), parallelism);
+            case NO_OP -> Math.floorMod(Long.hashCode(operation.seqNo()), parallelism);
+            case CREATE -> throw new IllegalStateException("No operation defined for [" + operation + "]");
+        };
+    }
+
+    private void awaitAppliers(CountDownLatch appliersDone, AtomicReference<Throwable> failure) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    if (appliersDone.await(100, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                    if (failure.get() == null && isAborted.getAsBoolean()) {
+                        // the appliers skip the operations they have not applied yet, but we still wait for the ones being applied
+                        setFailure(failure, new IllegalStateException("translog replay was aborted"));
+                    }
+                } catch (InterruptedException e) {
+                    // the appliers must not apply operations once we returned, so we keep waiting for them
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void setFailure(AtomicReference<Throwable> failure, Throwable t) {
+        if (failure.compareAndSet(null, t) == false) {
+            final Throwable first = failure.get();
+            if (first != t) {
+                first.addSuppressed(t);
+            }
+        }
+    }
+
+    private static final class Applier extends AbstractRunnable {
+
+        private final BlockingQueue<List<Translog.Operation>> queue = new ArrayBlockingQueue<>(MAX_QUEUED_BATCHES);
+        private final CheckedFunction<Translog.Operation, Boolean, Exception> applier;
+        private final Supplier<Releasable> applierLock;
+        private final AtomicReference<Throwable> failure;
+        private final AtomicInteger replayed;
+        private final CountDownLatch appliersDone;
+        private volatile boolean done;
+
+        Applier(
+            CheckedFunction<Translog.Operation, Boolean, Exception> applier,
+            Supplier<Releasable> applierLock,
+            AtomicReference<Throwable> failure,
+            AtomicInteger replayed,
+            CountDownLatch appliersDone
+        ) {
+            this.applier = applier;
+            this.applierLock = applierLock;
+            this.failure = failure;
+            this.replayed = replayed;
+            this.appliersDone = appliersDone;
+        }
+
+        void enqueue(List<Translog.Operation> batch) throws InterruptedException {
+            while (done == false && failure.get() == null) {
+                if (queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        }
+
+        void end(boolean failed) {
+            if (failed) {
+                // no need to wait for the queued batches to be drained since they will be skipped anyway
+                queue.clear();
+            }
+            try {
+                while (done == false && queue.offer(END_OF_OPERATIONS, 100, TimeUnit.MILLISECONDS) == false) {
+                    // the applier is still busy with the queued batches
+                }
+            } catch (InterruptedException e) {
+                setFailure(failure, e);
+                // only the reading thread adds to the queue, so there is room for the end marker once the queue is cleared
+                queue.clear();
+                queue.offer(END_OF_OPERATIONS);
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        protected void doRun() throws Exception {
+            try (Releasable ignored = applierLock.get()) {
+                List<Translog.Operation> batch;
+                while ((batch = queue.take()) != END_OF_OPERATIONS) {
+                    try {
+                        for (Translog.Operation operation : batch) {
+                            if (failure.get() != null) {
+                                break;
+                            }
+                            if (applier.apply(operation)) {
+                                replayed.incrementAndGet();
+                            }
+                        }
+                    } catch (AssertionError e) {
+                        // rethrown by the reading thread, rather than only reaching the uncaught exception handler
+                        setFailure(failure, e);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            setFailure(failure, e);
+        }
+
+        @Override
+        public void onAfter() {
+            done = true;
+            appliersDone.countDown();
+        }
+    }
+}
@@ -10,6 +10,7 @@ package org.elasticsearch.index.snapshots.blobstore;
 
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -20,10 +21,13 @@ import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.store.StoreFileMetadata;
 import org.elasticsearch.xcontent.ParseField;
 import org.elasticsearch.xcontent.ToXContentFragment;
+import org.elasticsearch.xcontent.ToXContentObject;
 import org.elasticsearch.xcontent.XContentBuilder;
 import org.elasticsearch.xcontent.XContentParser;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.IntStream;
@@ -47,6 +51,10 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
         private final long partBytes;
         private final int numberOfParts;
         private final StoreFileMetadata metadata;
+        @Nullable
+        private final List<Chunk> chunks;
+        @Nullable
+        private final long[] chunkOffsets;
 
         /**
          * Constructs a new instance of file info
@@ -56,9 +64,59 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
          * @param partSize     size of the single chunk
          */
         public FileInfo(String name, StoreFileMetadata metadata, @Nullable ByteSizeValue partSize) {
+            this(name, metadata, partSize, null);
+        }
+
+        /**
+         * Constructs a new instance of file info for a file that is stored as content defined chunks, each of which is a blob named after
+         * its contents.
+         *
+         * @param name      file name as stored in the blob store
+         * @param metadata  the files meta data
+         * @param chunks    the chunks that make up the file, in order
+         */
+        public FileInfo(String name, StoreFileMetadata metadata, List<Chunk> chunks) {
+            this(name, metadata, null, Objects.requireNonNull(chunks));
+        }
+
+        public FileInfo(StreamInput in) throws IOException {
+            this(in.readString(), new StoreFileMetadata(in), in.readOptionalWriteable(ByteSizeValue::new), readChunks(in));
+        }
+
+        private FileInfo(String name, StoreFileMetadata metadata, @Nullable ByteSizeValue partSize, @Nullable List<Chunk> chunks) {
             this.name = Objects.requireNonNull(name);
             this.metadata = metadata;
 
+            if (chunks != null) {
+                assert partSize == null : "chunks of file [" + metadata + "] have no fixed part size but got [" + partSize + "]";
+                if (chunks.isEmpty()) {
+                    throw new IllegalArgumentException("no chunks for file [" + metadata + "]");
+                }
+                this.chunks = List.copyOf(chunks);
+                this.chunkOffsets = new long[chunks.size()];
+                long offset = 0L;
+                long maxChunkBytes = 0L;
+                for (int i = 0; i < chunkOffsets.length; i++) {
+                    final long chunkBytes = chunks.get(i).length();
+                    if (chunkBytes <= 0L) {
+                        throw new IllegalArgumentException(
+                            "invalid length [" + chunkBytes + "] of chunk [" + i + "] of file [" + metadata + "]"
+                        );
+                    }
+                    chunkOffsets[i] = offset;
+                    offset += chunkBytes;
+                    maxChunkBytes = Math.max(maxChunkBytes, chunkBytes);
+                }
+                if (offset != metadata.length()) {
+                    throw new IllegalArgumentException("chunks of [" + offset + "] bytes do not match file [" + metadata + "]");
+                }
+                this.numberOfParts = chunks.size();
+                this.partSize = null;
+                // the largest chunk, which bounds the size of the parts like the part size does for parts of equal size
+                this.partBytes = maxChunkBytes;
+                return;
+            }
+
             long partBytes = Long.MAX_VALUE;
             if (partSize != null && partSize.getBytes() > 0) {
                 partBytes = partSize.getBytes();
@@ -76,11 +134,17 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
 
             this.partSize = partSize;
             this.partBytes = partBytes;
+            this.chunks = null;
+            this.chunkOffsets = null;
             assert IntStream.range(0, numberOfParts).mapToLong(this::partBytes).sum() == metadata.length();
         }
 
-        public FileInfo(StreamInput in) throws IOException {
-            this(in.readString(), new StoreFileMetadata(in), in.readOptionalWriteable(ByteSizeValue::new));
+        @Nullable
+        private static List<Chunk> readChunks(StreamInput in) throws IOException {
+            if (in.getVersion().onOrAfter(Version.V_8_2_0) && in.readBoolean()) {
+                return in.readList(Chunk::new);
+            }
+            return null;
         }
 
         @Override
@@ -88,6 +152,16 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             out.writeString(name);
             metadata.writeTo(out);
             out.writeOptionalWriteable(partSize);
+            if (out.getVersion().onOrAfter(Version.V_8_2_0)) {
+                out.writeBoolean(chunks != null);
+                if (chunks != null) {
+                    out.writeList(chunks);
+                }
+            } else if (chunks != null) {
+                throw new IllegalArgumentException(
+                    "file [" + name + "] is stored as content defined chunks which nodes of version [" + out.getVersion() + "] cannot read"
+                );
+            }
         }
 
         /**
@@ -106,7 +180,9 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
          * @return part name
          */
         public String partName(int part) {
-            if (numberOfParts > 1) {
+            if (chunks != null) {
+                return chunks.get(part).name();
+            } else if (numberOfParts > 1) {
                 return name + ".part" + part;
             } else {
                 return name;
@@ -160,6 +236,9 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
          */
         public long partBytes(int part) {
             assert 0 <= part && part < numberOfParts : part + " vs " + numberOfParts;
+            if (chunks != null) {
+                return chunks.get(part).length();
+            }
             if (numberOfParts == 1) {
                 return length();
             }
@@ -173,6 +252,52 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             return lastPartBytes;
         }
 
+        /**
+         * Returns the size (in bytes) of the largest part
+         *
+         * @return the size (in bytes) of the largest part
+         */
+        public long maxPartBytes() {
+            return numberOfParts == 1 ? length() : partBytes;
+        }
+
+        /**
+         * Returns the position of the first byte of a given part within the file
+         *
+         * @return the position of the first byte of the part
+         */
+        public long partOffset(int part) {
+            assert 0 <= part && part < numberOfParts : part + " vs " + numberOfParts;
+            if (chunkOffsets != null) {
+                return chunkOffsets[part];
+            }
+            return part == 0 ? 0L : part * partBytes;
+        }
+
+        /**
+         * Returns the number of the part that contains the byte at the given position within the file
+         *
+         * @return the part number
+         */
+        public int partNumberForPosition(long position) {
+            assert 0L <= position && position < Math.max(1L, length()) : position + " vs " + length();
+            if (chunkOffsets != null) {
+                final int index = Arrays.binarySearch(chunkOffsets, position);
+                return index >= 0 ? index : -index - 2;
+            }
+            return numberOfParts == 1 ? 0 : Math.toIntExact(position / partBytes);
+        }
+
+        /**
+         * Returns the content defined chunks that the file is stored as, or {@code null} if it is stored as parts of equal size
+         *
+         * @return the chunks of the file
+         */
+        @Nullable
+        public List<Chunk> chunks() {
+            return chunks;
+        }
+
         /**
          * Returns number of parts
          *
@@ -233,6 +358,9 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
                     return false;
                 }
             }
+            if (Objects.equals(chunks, fileInfo.chunks) == false) {
+                return false;
+            }
             return metadata.isSame(fileInfo.metadata);
         }
 
@@ -244,6 +372,7 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
         static final String WRITTEN_BY = "written_by";
         static final String META_HASH = "meta_hash";
         static final String WRITER_UUID = "writer_uuid";
+        static final String CHUNKS = "chunks";
 
         /**
          * Serializes file info into JSON
@@ -260,6 +389,13 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             if (file.partSize != null) {
                 builder.field(PART_SIZE, file.partSize.getBytes());
             }
+            if (file.chunks != null) {
+                builder.startArray(CHUNKS);
+                for (Chunk chunk : file.chunks) {
+                    chunk.toXContent(builder, params);
+                }
+                builder.endArray();
+            }
 
             if (file.metadata.writtenBy() != null) {
                 builder.field(WRITTEN_BY, file.metadata.writtenBy());
@@ -297,6 +433,7 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             String writtenBy = null;
             BytesRef metaHash = new BytesRef();
             BytesRef writerUuid = UNAVAILABLE_WRITER_UUID;
+            List<Chunk> chunks = null;
             XContentParserUtils.ensureExpectedToken(token, XContentParser.Token.START_OBJECT, parser);
             while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
                 if (token == XContentParser.Token.FIELD_NAME) {
@@ -325,6 +462,11 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
                         } else {
                             XContentParserUtils.throwUnknownField(currentFieldName, parser.getTokenLocation());
                         }
+                    } else if (token == XContentParser.Token.START_ARRAY && CHUNKS.equals(currentFieldName)) {
+                        chunks = new ArrayList<>();
+                        while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+                            chunks.add(Chunk.fromXContent(parser));
+                        }
                     } else {
                         XContentParserUtils.throwUnknownToken(token, parser.getTokenLocation());
                     }
@@ -344,8 +486,11 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
                 throw new ElasticsearchParseException("missing or invalid written_by [" + writtenBy + "]");
             } else if (checksum == null) {
                 throw new ElasticsearchParseException("missing checksum for name [" + name + "]");
+            } else if (chunks != null && partSize != null) {
+                throw new ElasticsearchParseException("file [" + name + "] has both a part size and chunks");
             }
-            return new FileInfo(name, new StoreFileMetadata(physicalName, length, checksum, writtenBy, metaHash, writerUuid), partSize);
+            final StoreFileMetadata metadata = new StoreFileMetadata(physicalName, length, checksum, writtenBy, metaHash, writerUuid);
+            return chunks == null ? new FileInfo(name, metadata, partSize) : new FileInfo(name, metadata, chunks);
         }
 
         @Override
@@ -358,12 +503,74 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
                 + partSize
                 + ", partBytes: "
                 + partBytes
+                + ", chunked: "
+                + (chunks != null)
                 + ", metadata: "
                 + metadata
                 + "]";
         }
     }
 
+    /**
+     * A content defined chunk of a file, stored as a blob that is named after the digest of its contents so that chunks with the same
+     * contents are only stored once.
+     *
+     * @param name   the name of the blob that holds the chunk
+     * @param length the length of the chunk in bytes
+     */
+    public record Chunk(String name, long length) implements Writeable, ToXContentObject {
+
+        static final String NAME = "name";
+        static final String LENGTH = "length";
+
+        public Chunk {
+            Objects.requireNonNull(name);
+        }
+
+        public Chunk(StreamInput in) throws IOException {
+            this(in.readString(), in.readVLong());
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(name);
+            out.writeVLong(length);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field(NAME, name);
+            builder.field(LENGTH, length);
+            return builder.endObject();
+        }
+
+        static Chunk fromXContent(XContentParser parser) throws IOException {
+            XContentParserUtils.ensureExpectedToken(XContentParser.Token.START_OBJECT, parser.currentToken(), parser);
+            String name = null;
+            long length = -1L;
+            XContentParser.Token token;
+            while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                XContentParserUtils.ensureExpectedToken(XContentParser.Token.FIELD_NAME, token, parser);
+                final String currentFieldName = parser.currentName();
+                parser.nextToken();
+                if (NAME.equals(currentFieldName)) {
+                    name = parser.text();
+                } else if (LENGTH.equals(currentFieldName)) {
+                    length = parser.longValue();
+                } else {
+                    XContentParserUtils.throwUnknownField(currentFieldName, parser.getTokenLocation());
+                }
+            }
+            if (name == null || Strings.validFileName(name) == false) {
+                throw new ElasticsearchParseException("missing or invalid chunk name [" + name + "]");
+            } else if (length <= 0L) {
+                throw new ElasticsearchParseException("missing or invalid length of chunk [" + name + "]");
+            }
+            return new Chunk(name, length);
+        }
+    }
+
     /**
      * Snapshot name
      */
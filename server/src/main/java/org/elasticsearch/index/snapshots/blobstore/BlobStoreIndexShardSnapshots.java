@@ -18,11 +18,14 @@ import org.elasticsearch.xcontent.XContentParser;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static java.util.Collections.unmodifiableMap;
 
@@ -39,6 +42,7 @@ public class BlobStoreIndexShardSnapshots implements Iterable<SnapshotFiles>, To
     private final List<SnapshotFiles> shardSnapshots;
     private final Map<String, FileInfo> files;
     private final Map<String, List<FileInfo>> physicalFiles;
+    private final Set<String> chunks;
 
     public BlobStoreIndexShardSnapshots(List<SnapshotFiles> shardSnapshots) {
         this.shardSnapshots = List.copyOf(shardSnapshots);
@@ -66,6 +70,7 @@ public class BlobStoreIndexShardSnapshots implements Iterable<SnapshotFiles>, To
         }
         this.physicalFiles = unmodifiableMap(mapBuilder);
         this.files = unmodifiableMap(newFiles);
+        this.chunks = chunkNames(newFiles.values());
     }
 
     private BlobStoreIndexShardSnapshots(Map<String, FileInfo> files, List<SnapshotFiles> shardSnapshots) {
@@ -82,6 +87,19 @@ public class BlobStoreIndexShardSnapshots implements Iterable<SnapshotFiles>, To
             mapBuilder.put(entry.getKey(), List.copyOf(entry.getValue()));
         }
         this.physicalFiles = unmodifiableMap(mapBuilder);
+        this.chunks = chunkNames(files.values());
+    }
+
+    private static Set<String> chunkNames(Collection<FileInfo> files) {
+        final Set<String> chunkNames = new HashSet<>();
+        for (FileInfo fileInfo : files) {
+            if (fileInfo.chunks() != null) {
+                for (BlobStoreIndexShardSnapshot.Chunk chunk : fileInfo.chunks()) {
+                    chunkNames.add(chunk.name());
+                }
+            }
+        }
+        return Collections.unmodifiableSet(chunkNames);
     }
 
     /**
@@ -135,6 +153,16 @@ public class BlobStoreIndexShardSnapshots implements Iterable<SnapshotFiles>, To
         return files.get(name);
     }
 
+    /**
+     * Checks whether a file in any of the snapshots is stored as content defined chunks that include the given chunk
+     *
+     * @param chunkName the name of the blob of the chunk
+     * @return true if the chunk is referenced by any of the snapshots
+     */
+    public boolean containsChunk(String chunkName) {
+        return chunks.contains(chunkName);
+    }
+
     @Override
     public Iterator<SnapshotFiles> iterator() {
         return shardSnapshots.iterator();
@@ -13,10 +13,14 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.xcontent.ToXContentFragment;
+import org.elasticsearch.xcontent.ToXContentObject;
 import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.List;
 
 public class IndexingPressureStats implements Writeable, ToXContentFragment {
 
@@ -42,6 +46,9 @@ public class IndexingPressureStats implements Writeable, ToXContentFragment {
     private final long currentPrimaryOps;
     private final long currentReplicaOps;
 
+    private final long shardRejections;
+    private final List<ShardAdmissionStats> shardAdmissionStats;
+
     public IndexingPressureStats(StreamInput in) throws IOException {
         totalCombinedCoordinatingAndPrimaryBytes = in.readVLong();
         totalCoordinatingBytes = in.readVLong();
@@ -70,6 +77,14 @@ public class IndexingPressureStats implements Writeable, ToXContentFragment {
         this.currentCoordinatingOps = 0;
         this.currentPrimaryOps = 0;
         this.currentReplicaOps = 0;
+
+        if (in.getVersion().onOrAfter(Version.V_8_2_0)) {
+            shardRejections = in.readVLong();
+            shardAdmissionStats = in.readList(ShardAdmissionStats::new);
+        } else {
+            shardRejections = 0;
+            shardAdmissionStats = List.of();
+        }
     }
 
     public IndexingPressureStats(
@@ -91,6 +106,52 @@ public class IndexingPressureStats implements Writeable, ToXContentFragment {
         long currentCoordinatingOps,
         long currentPrimaryOps,
         long currentReplicaOps
+    ) {
+        this(
+            totalCombinedCoordinatingAndPrimaryBytes,
+            totalCoordinatingBytes,
+            totalPrimaryBytes,
+            totalReplicaBytes,
+            currentCombinedCoordinatingAndPrimaryBytes,
+            currentCoordinatingBytes,
+            currentPrimaryBytes,
+            currentReplicaBytes,
+            coordinatingRejections,
+            primaryRejections,
+            replicaRejections,
+            memoryLimit,
+            totalCoordinatingOps,
+            totalPrimaryOps,
+            totalReplicaOps,
+            currentCoordinatingOps,
+            currentPrimaryOps,
+            currentReplicaOps,
+            0,
+            List.of()
+        );
+    }
+
+    public IndexingPressureStats(
+        long totalCombinedCoordinatingAndPrimaryBytes,
+        long totalCoordinatingBytes,
+        long totalPrimaryBytes,
+        long totalReplicaBytes,
+        long currentCombinedCoordinatingAndPrimaryBytes,
+        long currentCoordinatingBytes,
+        long currentPrimaryBytes,
+        long currentReplicaBytes,
+        long coordinatingRejections,
+        long primaryRejections,
+        long replicaRejections,
+        long memoryLimit,
+        long totalCoordinatingOps,
+        long totalPrimaryOps,
+        long totalReplicaOps,
+        long currentCoordinatingOps,
+        long currentPrimaryOps,
+        long currentReplicaOps,
+        long shardRejections,
+        List<ShardAdmissionStats> shardAdmissionStats
     ) {
         this.totalCombinedCoordinatingAndPrimaryBytes = totalCombinedCoordinatingAndPrimaryBytes;
         this.totalCoordinatingBytes = totalCoordinatingBytes;
@@ -111,6 +172,9 @@ public class IndexingPressureStats implements Writeable, ToXContentFragment {
         this.currentCoordinatingOps = currentCoordinatingOps;
         this.currentPrimaryOps = currentPrimaryOps;
         this.currentReplicaOps = currentReplicaOps;
+
+        this.shardRejections = shardRejections;
+        this.shardAdmissionStats = shardAdmissionStats;
     }
 
     @Override
@@ -132,6 +196,11 @@ public class IndexingPressureStats implements Writeable, ToXContentFragment {
         if (out.getVersion().onOrAfter(Version.V_7_10_0)) {
             out.writeVLong(memoryLimit);
         }
+
+        if (out.getVersion().onOrAfter(Version.V_8_2_0)) {
+            out.writeVLong(shardRejections);
+            out.writeList(shardAdmissionStats);
+        }
     }
 
     public long getTotalCombinedCoordinatingAndPrimaryBytes() {
@@ -206,6 +275,17 @@ public class IndexingPressureStats implements Writeable, ToXContentFragment {
         return memoryLimit;
     }
 
+    public long getShardRejections() {
+        return shardRejections;
+    }
+
+    /**
+     * The admission state of the shards that currently have primary operations in flight or that are under pressure.
+     */
+    public List<ShardAdmissionStats> getShardAdmissionStats() {
+        return shardAdmissionStats;
+    }
+
     private static final String COMBINED = "combined_coordinating_and_primary";
     private static final String COMBINED_IN_BYTES = "combined_coordinating_and_primary_in_bytes";
     private static final String COORDINATING = "coordinating";
@@ -221,6 +301,7 @@ public class IndexingPressureStats implements Writeable, ToXContentFragment {
     private static final String REPLICA_REJECTIONS = "replica_rejections";
     private static final String LIMIT = "limit";
     private static final String LIMIT_IN_BYTES = "limit_in_bytes";
+    private static final String SHARD_REJECTIONS = "shard_rejections";
 
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
@@ -242,9 +323,59 @@ public class IndexingPressureStats implements Writeable, ToXContentFragment {
         builder.field(COORDINATING_REJECTIONS, coordinatingRejections);
         builder.field(PRIMARY_REJECTIONS, primaryRejections);
         builder.field(REPLICA_REJECTIONS, replicaRejections);
+        if (shardRejections > 0) {
+            builder.field(SHARD_REJECTIONS, shardRejections);
+        }
         builder.endObject();
         builder.humanReadableField(LIMIT_IN_BYTES, LIMIT, new ByteSizeValue(memoryLimit));
         builder.endObject();
+        if (shardAdmissionStats.isEmpty() == false) {
+            builder.startArray("shards");
+            for (ShardAdmissionStats shardStats : shardAdmissionStats) {
+                shardStats.toXContent(builder, params);
+            }
+            builder.endArray();
+        }
         return builder.endObject();
     }
+
+    /**
+     * The per-shard admission state of a shard on a node with {@code indexing_pressure.shard_admission.enabled}.
+     */
+    public record ShardAdmissionStats(
+        ShardId shardId,
+        long currentBytes,
+        long limit,
+        long queueLatencyNanos,
+        boolean indexingThrottled,
+        long rejections
+    ) implements Writeable, ToXContentObject {
+
+        public ShardAdmissionStats(StreamInput in) throws IOException {
+            this(new ShardId(in), in.readVLong(), in.readVLong(), in.readVLong(), in.readBoolean(), in.readVLong());
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            shardId.writeTo(out);
+            out.writeVLong(currentBytes);
+            out.writeVLong(limit);
+            out.writeVLong(queueLatencyNanos);
+            out.writeBoolean(indexingThrottled);
+            out.writeVLong(rejections);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field("index", shardId.getIndexName());
+            builder.field("shard", shardId.id());
+            builder.humanReadableField("current_in_bytes", "current", new ByteSizeValue(currentBytes));
+            builder.humanReadableField(LIMIT_IN_BYTES, LIMIT, new ByteSizeValue(limit));
+            builder.humanReadableField("queue_latency_in_millis", "queue_latency", TimeValue.timeValueNanos(queueLatencyNanos));
+            builder.field("indexing_throttled", indexingThrottled);
+            builder.field("rejections", rejections);
+            return builder.endObject();
+        }
+    }
 }
@@ -28,6 +28,7 @@ import org.apache.lucene.store.BufferedChecksum;
 import org.apache.lucene.store.ByteArrayDataInput;
 import org.apache.lucene.store.ChecksumIndexInput;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.store.FilterDirectory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
@@ -77,8 +78,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
 import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -168,6 +171,26 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
         return directory;
     }
 
+    /**
+     * Opens a channel for reading the given file straight from the file system, bypassing {@link #directory()}. This is only possible
+     * if the directory that this store wraps is a plain {@link FSDirectory}: any other directory may hold the bytes of its files
+     * elsewhere or in another form, in which case this method returns {@code null} and the file must be read through the directory.
+     */
+    @Nullable
+    public FileChannel openFileChannel(String name) throws IOException {
+        ensureOpen();
+        // only the directories that the store itself wraps around the directory of the shard are unwrapped, since other filters may
+        // change the bytes of the files
+        final Directory delegate = directory.getDelegate();
+        final Directory storeDirectory = delegate instanceof ByteSizeCachingDirectory cachingDirectory
+            ? cachingDirectory.getDelegate()
+            : delegate;
+        if (storeDirectory instanceof FSDirectory fsDirectory) {
+            return FileChannel.open(fsDirectory.getDirectory().resolve(name), StandardOpenOption.READ);
+        }
+        return null;
+    }
+
     /**
      * Returns the last committed segments info for this store
      *
@@ -0,0 +1,264 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.ExponentiallyWeightedMovingAverage;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Gathers the translog sync requests of all shards on a node and fsyncs them in batches ("group commit"). Without it every shard with
+ * {@code index.translog.durability: request} hijacks one of its writing threads to fsync its own translog, so a bulk request that
+ * touches hundreds of shards results in hundreds of independent small fsyncs.
+ * <p>
+ * Requests that arrive while no batch is running wait for a short window so that concurrent requests can join the batch. The window
+ * adapts to the observed fsync latency: it is half the moving average of the fsync latency, bounded by
+ * {@link #GROUP_COMMIT_MAX_WINDOW_SETTING}, so that nodes with fast disks hardly wait at all. Requests that arrive while a batch is running
+ * are picked up by the next batch as soon as the running batch completes. Each batch fsyncs every shard at most once, up to the highest
+ * requested location, in parallel on the {@link ThreadPool.Names#FLUSH} thread pool and notifies the listeners of a shard once its fsync
+ * completed.
+ */
+public class TranslogGroupCommitService {
+
+    private static final Logger logger = LogManager.getLogger(TranslogGroupCommitService.class);
+
+    public static final Setting<Boolean> GROUP_COMMIT_ENABLED_SETTING = Setting.boolSetting(
+        "indices.translog.group_commit.enabled",
+        false,
+        Setting.Property.NodeScope
+    );
+
+    public static final Setting<TimeValue> GROUP_COMMIT_MAX_WINDOW_SETTING = Setting.timeSetting(
+        "indices.translog.group_commit.max_window",
+        TimeValue.timeValueMillis(5),
+        TimeValue.ZERO,
+        TimeValue.timeValueMillis(100),
+        Setting.Property.NodeScope
+    );
+
+    /**
+     * Syncs the translog of a single shard.
+     */
+    @FunctionalInterface
+    public interface ShardTranslogSyncer {
+        /**
+         * Ensures that the translog of the shard is synced at least up to the given location.
+         */
+        void sync(Translog.Location location) throws IOException;
+    }
+
+    private final ThreadPool threadPool;
+    private final boolean enabled;
+    private final long maxWindowNanos;
+
+    private final Object mutex = new Object();
+    // the requests waiting for the next batch, keyed by the syncer of their shard
+    private Map<ShardTranslogSyncer, PendingSyncs> pending = new IdentityHashMap<>();
+    // whether a batch is scheduled or running, only one batch is in flight at a time
+    private boolean batchInFlight;
+
+    private final ExponentiallyWeightedMovingAverage fsyncLatencyNanos = new ExponentiallyWeightedMovingAverage(0.3, 0);
+    private final CounterMetric batches = new CounterMetric();
+    private final CounterMetric syncs = new CounterMetric();
+    private final CounterMetric fsyncTimeNanos = new CounterMetric();
+    private final CounterMetric waitTimeNanos = new CounterMetric();
+
+    public TranslogGroupCommitService(Settings settings, ThreadPool threadPool) {
+        this.threadPool = threadPool;
+        this.enabled = GROUP_COMMIT_ENABLED_SETTING.get(settings);
+        this.maxWindowNanos = GROUP_COMMIT_MAX_WINDOW_SETTING.get(settings).nanos();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private static final class PendingSyncs {
+        private Translog.Location maxLocation;
+        private final List<Consumer<Exception>> listeners = new ArrayList<>();
+        // sum of the times at which the listeners were enqueued, used to compute the total time spent waiting
+        private long enqueuedAtNanosSum;
+
+        void add(Translog.Location location, Consumer<Exception> listener, long nowNanos) {
+            if (maxLocation == null || maxLocation.compareTo(location) < 0) {
+                maxLocation = location;
+            }
+            listeners.add(listener);
+            enqueuedAtNanosSum += nowNanos;
+        }
+    }
+
+    /**
+     * Syncs the translog of a shard up to at least the given location as part of the next batch and notifies the listener once done.
+     * The listener is called with {@code null} on success and is called on a different thread than the caller's.
+     */
+    public void sync(ShardTranslogSyncer syncer, Translog.Location location, Consumer<Exception> listener) {
+        assert enabled : "group commit is disabled";
+        final Consumer<Exception> contextPreservingListener = preserveContext(listener);
+        final boolean scheduleBatch;
+        synchronized (mutex) {
+            pending.computeIfAbsent(syncer, k -> new PendingSyncs()).add(location, contextPreservingListener, System.nanoTime());
+            scheduleBatch = batchInFlight == false;
+            batchInFlight = true;
+        }
+        if (scheduleBatch) {
+            scheduleBatch();
+        }
+    }
+
+    /**
+     * The time to wait for more requests before starting a batch.
+     */
+    TimeValue currentWindow() {
+        return TimeValue.timeValueNanos(Math.min(maxWindowNanos, (long) (fsyncLatencyNanos.getAverage() / 2)));
+    }
+
+    private void scheduleBatch() {
+        final AbstractRunnable batch = new AbstractRunnable() {
+            @Override
+            protected void doRun() {
+                runBatch();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                // we could not even dispatch the batch, fail all waiting requests rather than leaving them hanging
+                final Map<ShardTranslogSyncer, PendingSyncs> failed;
+                synchronized (mutex) {
+                    failed = pending;
+                    pending = new IdentityHashMap<>();
+                    batchInFlight = false;
+                }
+                for (PendingSyncs pendingSyncs : failed.values()) {
+                    notifyListeners(pendingSyncs.listeners, e);
+                }
+            }
+
+            @Override
+            public String toString() {
+                return "translog group commit";
+            }
+        };
+        final TimeValue window = currentWindow();
+        try {
+            if (window.nanos() == 0L) {
+                threadPool.executor(ThreadPool.Names.FLUSH).execute(batch);
+            } else {
+                threadPool.schedule(batch, window, ThreadPool.Names.FLUSH);
+            }
+        } catch (EsRejectedExecutionException e) {
+            batch.onRejection(e);
+        }
+    }
+
+    private void runBatch() {
+        final Map<ShardTranslogSyncer, PendingSyncs> batch;
+        synchronized (mutex) {
+            batch = pending;
+            pending = new IdentityHashMap<>();
+        }
+        assert batch.isEmpty() == false : "batches are only scheduled when there are pending requests";
+        batches.inc();
+        final long batchStartNanos = System.nanoTime();
+        final CountDown countDown = new CountDown(batch.size());
+        for (Map.Entry<ShardTranslogSyncer, PendingSyncs> entry : batch.entrySet()) {
+            final ShardTranslogSyncer syncer = entry.getKey();
+            final PendingSyncs pendingSyncs = entry.getValue();
+            syncs.inc(pendingSyncs.listeners.size());
+            waitTimeNanos.inc(pendingSyncs.listeners.size() * batchStartNanos - pendingSyncs.enqueuedAtNanosSum);
+            threadPool.executor(ThreadPool.Names.FLUSH).execute(new AbstractRunnable() {
+                @Override
+                protected void doRun() throws IOException {
+                    final long startNanos = System.nanoTime();
+                    syncer.sync(pendingSyncs.maxLocation);
+                    final long tookNanos = System.nanoTime() - startNanos;
+                    fsyncTimeNanos.inc(tookNanos);
+                    fsyncLatencyNanos.addValue(tookNanos);
+                    notifyListeners(pendingSyncs.listeners, null);
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    logger.debug("failed to sync translog", e);
+                    notifyListeners(pendingSyncs.listeners, e);
+                }
+
+                @Override
+                public void onAfter() {
+                    if (countDown.countDown()) {
+                        onBatchCompleted();
+                    }
+                }
+            });
+        }
+    }
+
+    private void onBatchCompleted() {
+        final boolean moreRequests;
+        synchronized (mutex) {
+            moreRequests = pending.isEmpty() == false;
+            batchInFlight = moreRequests;
+        }
+        if (moreRequests) {
+            // these requests have been waiting for the previous batch already, no need to wait for the window
+            runBatch();
+        }
+    }
+
+    private static void notifyListeners(List<Consumer<Exception>> listeners, Exception exception) {
+        for (Consumer<Exception> listener : listeners) {
+            try {
+                listener.accept(exception);
+            } catch (Exception ex) {
+                logger.warn("failed to notify callback", ex);
+            }
+        }
+    }
+
+    private Consumer<Exception> preserveContext(Consumer<Exception> consumer) {
+        final Supplier<ThreadContext.StoredContext> restorableContext = threadPool.getThreadContext().newRestorableContext(false);
+        return e -> {
+            try (ThreadContext.StoredContext ignore = restorableContext.get()) {
+                consumer.accept(e);
+            }
+        };
+    }
+
+    /**
+     * Returns the node level group commit statistics.
+     */
+    public TranslogStats stats() {
+        final TranslogStats stats = new TranslogStats();
+        stats.addGroupCommitStats(
+            batches.count(),
+            syncs.count(),
+            TimeUnit.NANOSECONDS.toMillis(fsyncTimeNanos.count()),
+            TimeUnit.NANOSECONDS.toMillis(waitTimeNanos.count())
+        );
+        return stats;
+    }
+}
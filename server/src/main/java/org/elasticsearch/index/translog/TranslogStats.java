@@ -7,11 +7,13 @@
  */
 package org.elasticsearch.index.translog;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.xcontent.ToXContentFragment;
 import org.elasticsearch.xcontent.XContentBuilder;
 
@@ -25,6 +27,12 @@ public class TranslogStats implements Writeable, ToXContentFragment {
     private int uncommittedOperations;
     private long earliestLastModifiedAge;
 
+    // node level statistics of the TranslogGroupCommitService, these are not tracked per shard
+    private long groupCommitBatches;
+    private long groupCommitSyncs;
+    private long groupCommitFsyncTimeInMillis;
+    private long groupCommitWaitTimeInMillis;
+
     public TranslogStats() {}
 
     public TranslogStats(StreamInput in) throws IOException {
@@ -33,6 +41,12 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         uncommittedOperations = in.readVInt();
         uncommittedSizeInBytes = in.readVLong();
         earliestLastModifiedAge = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_8_2_0)) {
+            groupCommitBatches = in.readVLong();
+            groupCommitSyncs = in.readVLong();
+            groupCommitFsyncTimeInMillis = in.readVLong();
+            groupCommitWaitTimeInMillis = in.readVLong();
+        }
     }
 
     public TranslogStats(
@@ -78,6 +92,17 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         } else {
             this.earliestLastModifiedAge = Math.min(this.earliestLastModifiedAge, translogStats.earliestLastModifiedAge);
         }
+        this.groupCommitBatches += translogStats.groupCommitBatches;
+        this.groupCommitSyncs += translogStats.groupCommitSyncs;
+        this.groupCommitFsyncTimeInMillis += translogStats.groupCommitFsyncTimeInMillis;
+        this.groupCommitWaitTimeInMillis += translogStats.groupCommitWaitTimeInMillis;
+    }
+
+    public void addGroupCommitStats(long batches, long syncs, long fsyncTimeInMillis, long waitTimeInMillis) {
+        this.groupCommitBatches += batches;
+        this.groupCommitSyncs += syncs;
+        this.groupCommitFsyncTimeInMillis += fsyncTimeInMillis;
+        this.groupCommitWaitTimeInMillis += waitTimeInMillis;
     }
 
     public long getTranslogSizeInBytes() {
@@ -102,6 +127,26 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         return earliestLastModifiedAge;
     }
 
+    /** the number of translog group commit batches that were run on the node */
+    public long getGroupCommitBatches() {
+        return groupCommitBatches;
+    }
+
+    /** the number of translog sync requests that were handled by group commit batches on the node */
+    public long getGroupCommitSyncs() {
+        return groupCommitSyncs;
+    }
+
+    /** the total time spent fsyncing translogs in group commit batches */
+    public long getGroupCommitFsyncTimeInMillis() {
+        return groupCommitFsyncTimeInMillis;
+    }
+
+    /** the total time translog sync requests spent waiting for their group commit batch to start */
+    public long getGroupCommitWaitTimeInMillis() {
+        return groupCommitWaitTimeInMillis;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject("translog");
@@ -110,6 +155,14 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         builder.field("uncommitted_operations", uncommittedOperations);
         builder.humanReadableField("uncommitted_size_in_bytes", "uncommitted_size", new ByteSizeValue(uncommittedSizeInBytes));
         builder.field("earliest_last_modified_age", earliestLastModifiedAge);
+        if (groupCommitBatches > 0) {
+            builder.startObject("group_commit");
+            builder.field("batches", groupCommitBatches);
+            builder.field("syncs", groupCommitSyncs);
+            builder.humanReadableField("fsync_time_in_millis", "fsync_time", new TimeValue(groupCommitFsyncTimeInMillis));
+            builder.humanReadableField("wait_time_in_millis", "wait_time", new TimeValue(groupCommitWaitTimeInMillis));
+            builder.endObject();
+        }
         builder.endObject();
         return builder;
     }
@@ -126,5 +179,11 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         out.writeVInt(uncommittedOperations);
         out.writeVLong(uncommittedSizeInBytes);
         out.writeVLong(earliestLastModifiedAge);
+        if (out.getVersion().onOrAfter(Version.V_8_2_0)) {
+            out.writeVLong(groupCommitBatches);
+            out.writeVLong(groupCommitSyncs);
+            out.writeVLong(groupCommitFsyncTimeInMillis);
+            out.writeVLong(groupCommitWaitTimeInMillis);
+        }
     }
 }
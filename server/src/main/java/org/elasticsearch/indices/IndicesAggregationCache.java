@@ -0,0 +1,275 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.RemovalListener;
+import org.elasticsearch.common.cache.RemovalNotification;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.cache.request.RequestCacheStats;
+import org.elasticsearch.index.mapper.MappingLookup;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.InternalOrder;
+import org.elasticsearch.search.aggregations.bucket.filter.FilterAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.filter.FiltersAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.HistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.range.DateRangeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.range.RangeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.AvgAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.CardinalityAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.ExtendedStatsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.MaxAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.MinAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.StatsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.SumAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.ValueCountAggregationBuilder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the partial aggregation results of single segments, keyed by the segment, the shard level request and the mappings.
+ * <p>
+ * The {@link IndicesRequestCache} caches the result of a whole shard and is invalidated by every refresh that changes the shard. On
+ * append-only indices most segments survive refreshes unchanged though, so caching their results separately means that only the new
+ * segments need to be aggregated after a refresh, and their results are then reduced with the cached results of the older segments.
+ * Entries are dropped when the core of their segment is closed, for instance because it was merged away, and are otherwise evicted by
+ * size. Since deletes only ever grow within a segment, the number of deleted documents identifies the live documents of a segment.
+ * <p>
+ * The cache is opted in per index with {@link #INDEX_CACHE_ENABLED_SETTING} and is only used for requests that the request cache may
+ * cache, and that only have aggregations whose per-segment results can be reduced like per-shard results, see {@link #canCache}.
+ */
+public final class IndicesAggregationCache implements RemovalListener<IndicesAggregationCache.Key, BytesReference>, Closeable {
+
+    public static final Setting<Boolean> INDEX_CACHE_ENABLED_SETTING = Setting.boolSetting(
+        "index.aggregations.segment_cache.enable",
+        false,
+        Property.Dynamic,
+        Property.IndexScope
+    );
+    public static final Setting<ByteSizeValue> INDICES_CACHE_SIZE = Setting.memorySizeSetting(
+        "indices.aggregations.segment_cache.size",
+        "1%",
+        Property.NodeScope
+    );
+
+    /**
+     * The aggregations that collect each document independently and whose shard level results don't lose information that would
+     * be needed to reduce them with results of other segments.
+     */
+    private static final Set<String> CACHEABLE_AGGREGATIONS = Set.of(
+        DateHistogramAggregationBuilder.NAME,
+        HistogramAggregationBuilder.NAME,
+        RangeAggregationBuilder.NAME,
+        DateRangeAggregationBuilder.NAME,
+        FilterAggregationBuilder.NAME,
+        FiltersAggregationBuilder.NAME,
+        TermsAggregationBuilder.NAME,
+        MinAggregationBuilder.NAME,
+        MaxAggregationBuilder.NAME,
+        SumAggregationBuilder.NAME,
+        AvgAggregationBuilder.NAME,
+        ValueCountAggregationBuilder.NAME,
+        StatsAggregationBuilder.NAME,
+        ExtendedStatsAggregationBuilder.NAME,
+        CardinalityAggregationBuilder.NAME
+    );
+
+    private final NamedWriteableRegistry namedWriteableRegistry;
+    private final Cache<Key, BytesReference> cache;
+    // the cached keys of every segment core, to drop them as soon as the segment is closed
+    private final ConcurrentMap<Object, Set<Key>> keysByCore = ConcurrentCollections.newConcurrentMap();
+    private final CounterMetric hitCount = new CounterMetric();
+    private final CounterMetric missCount = new CounterMetric();
+    private final CounterMetric evictions = new CounterMetric();
+
+    IndicesAggregationCache(Settings settings, NamedWriteableRegistry namedWriteableRegistry) {
+        this.namedWriteableRegistry = namedWriteableRegistry;
+        this.cache = CacheBuilder.<Key, BytesReference>builder()
+            .setMaximumWeight(INDICES_CACHE_SIZE.get(settings).getBytes())
+            .weigher((k, v) -> k.ramBytesUsed() + v.length())
+            .removalListener(this)
+            .build();
+    }
+
+    /**
+     * Returns whether the per-segment results of the given aggregations can be reduced to the same result as the shard level
+     * aggregation.
+     */
+    public static boolean canCache(AggregatorFactories.Builder aggregations) {
+        if (aggregations == null || aggregations.getAggregatorFactories().isEmpty()) {
+            return false;
+        }
+        return canCache(aggregations.getAggregatorFactories());
+    }
+
+    private static boolean canCache(Collection<AggregationBuilder> aggregations) {
+        for (AggregationBuilder aggregation : aggregations) {
+            if (CACHEABLE_AGGREGATIONS.contains(aggregation.getType()) == false) {
+                return false;
+            }
+            if (aggregation instanceof TermsAggregationBuilder terms) {
+                // only the top terms of key orders are exact when they are computed per segment, the top terms of other orders and
+                // shard_min_doc_count would drop terms that are competitive once all segments are reduced and change the result
+                if (InternalOrder.isKeyOrder(terms.order()) == false) {
+                    return false;
+                }
+                if (terms.shardMinDocCount() > 0) {
+                    return false;
+                }
+            }
+            if (canCache(aggregation.getSubAggregations()) == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the cached partial aggregation results of the segment, or computes and caches them.
+     */
+    public InternalAggregations getOrCompute(
+        LeafReaderContext leaf,
+        MappingLookup.CacheKey mappingCacheKey,
+        BytesReference requestCacheKey,
+        CheckedSupplier<InternalAggregations, IOException> loader
+    ) throws IOException {
+        final IndexReader.CacheHelper cacheHelper = leaf.reader().getCoreCacheHelper();
+        if (cacheHelper == null) {
+            return loader.get();
+        }
+        final Key key = new Key(cacheHelper.getKey(), leaf.reader().numDeletedDocs(), mappingCacheKey, requestCacheKey);
+        final BytesReference cached = cache.get(key);
+        if (cached != null) {
+            hitCount.inc();
+            try (StreamInput in = new NamedWriteableAwareStreamInput(cached.streamInput(), namedWriteableRegistry)) {
+                return InternalAggregations.readFrom(in);
+            }
+        }
+        missCount.inc();
+        final InternalAggregations aggregations = loader.get();
+        final BytesReference bytes;
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            aggregations.writeTo(out);
+            bytes = out.bytes();
+        }
+        final Set<Key> keys = keysByCore.computeIfAbsent(key.coreCacheKey, k -> {
+            cacheHelper.addClosedListener(this::onCoreClosed);
+            return ConcurrentCollections.newConcurrentSet();
+        });
+        keys.add(key);
+        cache.put(key, bytes);
+        return aggregations;
+    }
+
+    private void onCoreClosed(IndexReader.CacheKey coreCacheKey) {
+        final Set<Key> keys = keysByCore.remove(coreCacheKey);
+        if (keys != null) {
+            for (Key key : keys) {
+                cache.invalidate(key);
+            }
+        }
+    }
+
+    @Override
+    public void onRemoval(RemovalNotification<Key, BytesReference> notification) {
+        if (notification.getRemovalReason() == RemovalNotification.RemovalReason.EVICTED) {
+            evictions.inc();
+        }
+        if (notification.getRemovalReason() != RemovalNotification.RemovalReason.REPLACED) {
+            final Set<Key> keys = keysByCore.get(notification.getKey().coreCacheKey);
+            if (keys != null) {
+                keys.remove(notification.getKey());
+            }
+        }
+    }
+
+    /**
+     * Returns the statistics of the cache, as part of the node level request cache statistics.
+     */
+    public RequestCacheStats stats() {
+        final RequestCacheStats stats = new RequestCacheStats();
+        stats.addSegmentAggregationStats(cache.weight(), evictions.count(), hitCount.count(), missCount.count());
+        return stats;
+    }
+
+    /**
+     * Returns the number of cached segment results.
+     */
+    int count() {
+        return cache.count();
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+        keysByCore.clear();
+    }
+
+    static final class Key implements Accountable {
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Key.class);
+
+        final Object coreCacheKey;
+        final int numDeletedDocs;
+        final MappingLookup.CacheKey mappingCacheKey;
+        final BytesReference requestCacheKey;
+
+        Key(Object coreCacheKey, int numDeletedDocs, MappingLookup.CacheKey mappingCacheKey, BytesReference requestCacheKey) {
+            this.coreCacheKey = Objects.requireNonNull(coreCacheKey);
+            this.numDeletedDocs = numDeletedDocs;
+            this.mappingCacheKey = Objects.requireNonNull(mappingCacheKey);
+            this.requestCacheKey = Objects.requireNonNull(requestCacheKey);
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return BASE_RAM_BYTES_USED + requestCacheKey.length();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return numDeletedDocs == key.numDeletedDocs
+                && coreCacheKey.equals(key.coreCacheKey)
+                && mappingCacheKey.equals(key.mappingCacheKey)
+                && requestCacheKey.equals(key.requestCacheKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(coreCacheKey, numDeletedDocs, mappingCacheKey, requestCacheKey);
+        }
+    }
+}
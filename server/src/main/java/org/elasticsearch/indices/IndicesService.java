@@ -110,6 +110,7 @@ import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.IndexingOperationListener;
 import org.elasticsearch.index.shard.IndexingStats;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.translog.TranslogGroupCommitService;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
@@ -121,6 +122,9 @@ import org.elasticsearch.plugins.IndexStorePlugin;
 import org.elasticsearch.plugins.PluginsService;
 import org.elasticsearch.repositories.RepositoriesService;
 import org.elasticsearch.script.ScriptService;
+import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.aggregations.SearchContextAggregations;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.aggregations.support.ValuesSourceRegistry;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.SearchContext;
@@ -224,8 +228,10 @@ public class IndicesService extends AbstractLifecycleComponent
     private final NamedWriteableRegistry namedWriteableRegistry;
     private final Map<String, IndexStorePlugin.SnapshotCommitSupplier> snapshotCommitSuppliers;
     private final IndexingMemoryController indexingMemoryController;
+    private final TranslogGroupCommitService translogGroupCommitService;
     private final TimeValue cleanInterval;
     final IndicesRequestCache indicesRequestCache; // pkg-private for testing
+    final IndicesAggregationCache indicesAggregationCache; // pkg-private for testing
     private final IndicesQueryCache indicesQueryCache;
     private final MetaStateService metaStateService;
     private final Collection<Function<IndexSettings, Optional<EngineFactory>>> engineFactoryProviders;
@@ -295,12 +301,14 @@ public class IndicesService extends AbstractLifecycleComponent
         this.indicesQueryCache = new IndicesQueryCache(settings);
         this.mapperRegistry = mapperRegistry;
         this.namedWriteableRegistry = namedWriteableRegistry;
+        this.indicesAggregationCache = new IndicesAggregationCache(settings, namedWriteableRegistry);
         indexingMemoryController = new IndexingMemoryController(
             settings,
             threadPool,
             // ensure we pull an iter with new shards - flatten makes a copy
             () -> Iterables.flatten(this).iterator()
         );
+        this.translogGroupCommitService = new TranslogGroupCommitService(settings, threadPool);
         this.indexScopedSettings = indexScopedSettings;
         this.circuitBreakerService = circuitBreakerService;
         this.bigArrays = bigArrays;
@@ -350,6 +358,7 @@ public class IndicesService extends AbstractLifecycleComponent
                     indicesFieldDataCache,
                     cacheCleaner,
                     indicesRequestCache,
+                    indicesAggregationCache,
                     indicesQueryCache
                 );
             } catch (IOException e) {
@@ -448,6 +457,8 @@ public class IndicesService extends AbstractLifecycleComponent
                 case Recovery -> commonStats.recoveryStats.add(oldShardsStats.recoveryStats);
                 case Flush -> commonStats.flush.add(oldShardsStats.flushStats);
                 case Bulk -> commonStats.bulk.add(oldShardsStats.bulkStats);
+                case Translog -> commonStats.translog.add(translogGroupCommitService.stats());
+                case RequestCache -> commonStats.requestCache.add(indicesAggregationCache.stats());
             }
         }
 
@@ -720,7 +731,8 @@ public class IndicesService extends AbstractLifecycleComponent
             idFieldMapper,
             valuesSourceRegistry,
             indexFoldersDeletionListeners,
-            snapshotCommitSuppliers
+            snapshotCommitSuppliers,
+            translogGroupCommitService
         );
     }
 
@@ -1487,6 +1499,44 @@ public class IndicesService extends AbstractLifecycleComponent
 
     }
 
+    /**
+     * Can the partial aggregation results of the segments of the shard be cached for this request? Only requests that
+     * {@link #canCache can be cached} as a whole, that only aggregate, and that only have aggregations whose per-segment results can
+     * be reduced like per-shard results are eligible.
+     */
+    public boolean canUseSegmentAggregationCache(ShardSearchRequest request, SearchContext context) {
+        assert canCache(request, context);
+        if (context.indexShard().indexSettings().getValue(IndicesAggregationCache.INDEX_CACHE_ENABLED_SETTING) == false) {
+            return false;
+        }
+        if (context.aggregations() == null || IndicesAggregationCache.canCache(request.source().aggregations()) == false) {
+            return false;
+        }
+        // the aggregations of each segment are collected on their own, without the collectors of the query phase that could filter
+        // documents or time out the search
+        if (context.size() != 0
+            || context.parsedPostFilter() != null
+            || context.minimumScore() != null
+            || context.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER
+            || (context.timeout() != null && context.timeout().equals(SearchService.NO_TIMEOUT) == false)) {
+            return false;
+        }
+        final AggregationContext aggregationContext = context.aggregations().factories().context();
+        return aggregationContext != null && aggregationContext.isInSortOrderExecutionRequired() == false;
+    }
+
+    /**
+     * Returns the {@link SearchContextAggregations.SegmentCache} of the request, caching the partial aggregation results of each
+     * segment in the node level {@link IndicesAggregationCache}.
+     */
+    public SearchContextAggregations.SegmentCache segmentAggregationCache(ShardSearchRequest request, SearchContext context)
+        throws IOException {
+        assert canUseSegmentAggregationCache(request, context);
+        final BytesReference cacheKey = request.cacheKey(requestCacheKeyDifferentiator);
+        final MappingLookup.CacheKey mappingCacheKey = context.getSearchExecutionContext().mappingCacheKey();
+        return (leaf, loader) -> indicesAggregationCache.getOrCompute(leaf, mappingCacheKey, cacheKey, loader);
+    }
+
     /**
      * Loads the cache result, computing it if needed by executing the query phase and otherwise deserializing the cached
      * value into the {@link SearchContext#queryResult() context's query result}. The combination of load + compute allows
@@ -1680,7 +1730,8 @@ public class IndicesService extends AbstractLifecycleComponent
             client,
             nowInMillis,
             clusterService::state,
-            this::getTimestampFieldType
+            this::getTimestampFieldType,
+            timestampFieldMapperService.getTimestampRangeCache()
         );
     }
 
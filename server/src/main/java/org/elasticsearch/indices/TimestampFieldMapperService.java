@@ -27,10 +27,13 @@ import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.index.IndexMode;
 import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.query.CoordinatorTimestampRangeCache;
 import org.elasticsearch.index.shard.IndexLongFieldRange;
 import org.elasticsearch.node.Node;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -43,7 +46,8 @@ import java.util.concurrent.TimeUnit;
 import static org.elasticsearch.common.util.concurrent.EsExecutors.daemonThreadFactory;
 
 /**
- * Tracks the mapping of the {@code @timestamp} field of immutable indices that expose their timestamp range in their index metadata.
+ * Tracks the mapping of the {@code @timestamp} field of immutable indices that expose their timestamp range in their index metadata, of
+ * indices with a write block whose shards reported their timestamp range in can_match responses, and of time series indices.
  * Coordinating nodes do not have (easy) access to mappings for all indices, so we extract the type of this one field from the mapping here.
  */
 public class TimestampFieldMapperService extends AbstractLifecycleComponent implements ClusterStateApplier {
@@ -51,6 +55,7 @@ public class TimestampFieldMapperService extends AbstractLifecycleComponent impl
     private static final Logger logger = LogManager.getLogger(TimestampFieldMapperService.class);
 
     private final IndicesService indicesService;
+    private final CoordinatorTimestampRangeCache timestampRangeCache = new CoordinatorTimestampRangeCache(this::computeTimestampFieldType);
     private final ExecutorService executor; // single thread to construct mapper services async as needed
 
     /**
@@ -95,54 +100,76 @@ public class TimestampFieldMapperService extends AbstractLifecycleComponent impl
             return;
         }
 
+        timestampRangeCache.prune(metadata);
+
         // clear out mappers for indices that no longer exist or whose timestamp range is no longer known
         fieldTypesByIndex.keySet().removeIf(index -> hasUsefulTimestampField(metadata.index(index)) == false);
 
         // capture mappers for indices that do exist
         for (IndexMetadata indexMetadata : indices.values()) {
-            final Index index = indexMetadata.getIndex();
-
-            if (hasUsefulTimestampField(indexMetadata) && fieldTypesByIndex.containsKey(index) == false) {
-                logger.trace("computing timestamp mapping for {}", index);
-                final PlainActionFuture<DateFieldMapper.DateFieldType> future = new PlainActionFuture<>();
-                fieldTypesByIndex.put(index, future);
-
-                final IndexService indexService = indicesService.indexService(index);
-                if (indexService == null) {
-                    logger.trace("computing timestamp mapping for {} async", index);
-                    executor.execute(new AbstractRunnable() {
-                        @Override
-                        public void onFailure(Exception e) {
-                            logger.debug(new ParameterizedMessage("failed to compute mapping for {}", index), e);
-                            future.onResponse(null); // no need to propagate a failure to create the mapper service to searches
-                        }
-
-                        @Override
-                        protected void doRun() throws Exception {
-                            try (MapperService mapperService = indicesService.createIndexMapperService(indexMetadata)) {
-                                mapperService.merge(indexMetadata, MapperService.MergeReason.MAPPING_RECOVERY);
-                                logger.trace("computed timestamp field mapping for {}", index);
-                                future.onResponse(fromMapperService(mapperService));
-                            }
-                        }
-                    });
-                } else {
-                    logger.trace("computing timestamp mapping for {} using existing index service", index);
-                    try {
-                        future.onResponse(fromMapperService(indexService.mapperService()));
-                    } catch (Exception e) {
-                        assert false : e;
-                        future.onResponse(null);
+            if (hasUsefulTimestampField(indexMetadata)) {
+                computeTimestampFieldType(indexMetadata);
+            }
+        }
+    }
+
+    /**
+     * Computes the type of the {@code @timestamp} field of the given index, unless it is already known or being computed.
+     */
+    private void computeTimestampFieldType(IndexMetadata indexMetadata) {
+        final Index index = indexMetadata.getIndex();
+        if (fieldTypesByIndex.containsKey(index)) {
+            return;
+        }
+        final PlainActionFuture<DateFieldMapper.DateFieldType> future = new PlainActionFuture<>();
+        if (fieldTypesByIndex.putIfAbsent(index, future) != null) {
+            return;
+        }
+        logger.trace("computing timestamp mapping for {}", index);
+
+        final IndexService indexService = indicesService.indexService(index);
+        if (indexService == null) {
+            logger.trace("computing timestamp mapping for {} async", index);
+            executor.execute(new AbstractRunnable() {
+                @Override
+                public void onFailure(Exception e) {
+                    logger.debug(new ParameterizedMessage("failed to compute mapping for {}", index), e);
+                    future.onResponse(null); // no need to propagate a failure to create the mapper service to searches
+                }
+
+                @Override
+                protected void doRun() throws Exception {
+                    try (MapperService mapperService = indicesService.createIndexMapperService(indexMetadata)) {
+                        mapperService.merge(indexMetadata, MapperService.MergeReason.MAPPING_RECOVERY);
+                        logger.trace("computed timestamp field mapping for {}", index);
+                        future.onResponse(fromMapperService(mapperService));
                     }
                 }
+            });
+        } else {
+            logger.trace("computing timestamp mapping for {} using existing index service", index);
+            try {
+                future.onResponse(fromMapperService(indexService.mapperService()));
+            } catch (Exception e) {
+                assert false : e;
+                future.onResponse(null);
             }
         }
     }
 
-    private static boolean hasUsefulTimestampField(IndexMetadata indexMetadata) {
+    private boolean hasUsefulTimestampField(IndexMetadata indexMetadata) {
         if (indexMetadata == null) {
             return false;
         }
+        if (IndexSettings.MODE.get(indexMetadata.getSettings()) == IndexMode.TIME_SERIES) {
+            // time series indices always have a @timestamp field, whose range is bounded by the settings of the index
+            return true;
+        }
+        if (CoordinatorTimestampRangeCache.isImmutable(indexMetadata) && timestampRangeCache.hasRanges(indexMetadata.getIndex())) {
+            // only once a shard reported its range, which it only does if it has a @timestamp field, rather than for every index
+            // with a write block such as the read-only indices of ILM
+            return true;
+        }
         final IndexLongFieldRange timestampRange = indexMetadata.getTimestampRange();
         return timestampRange.isComplete() && timestampRange != IndexLongFieldRange.UNKNOWN;
     }
@@ -156,6 +183,14 @@ public class TimestampFieldMapperService extends AbstractLifecycleComponent impl
         }
     }
 
+    /**
+     * @return the cache of the ranges of the {@code @timestamp} field that shards reported in response to can_match requests, whose
+     *         indices this service computes the mapping of the field of once they have a cached range
+     */
+    public CoordinatorTimestampRangeCache getTimestampRangeCache() {
+        return timestampRangeCache;
+    }
+
     /**
      * @return the field type of the {@code @timestamp} field of the given index, or {@code null} if:
      * - the index is not found,
@@ -43,6 +43,7 @@ import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexComponent;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.IndexingPressure;
 import org.elasticsearch.index.seqno.GlobalCheckpointSyncAction;
 import org.elasticsearch.index.seqno.ReplicationTracker;
 import org.elasticsearch.index.seqno.RetentionLeaseSyncer;
@@ -121,6 +122,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
         final SearchService searchService,
         final PeerRecoverySourceService peerRecoverySourceService,
         final SnapshotShardsService snapshotShardsService,
+        final IndexingPressure indexingPressure,
         final PrimaryReplicaSyncer primaryReplicaSyncer,
         final RetentionLeaseSyncer retentionLeaseSyncer,
         final NodeClient client
@@ -136,6 +138,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
             searchService,
             peerRecoverySourceService,
             snapshotShardsService,
+            indexingPressure,
             primaryReplicaSyncer,
             retentionLeaseSyncer,
             client
@@ -154,12 +157,19 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
         final SearchService searchService,
         final PeerRecoverySourceService peerRecoverySourceService,
         final SnapshotShardsService snapshotShardsService,
+        final IndexingPressure indexingPressure,
         final PrimaryReplicaSyncer primaryReplicaSyncer,
         final RetentionLeaseSyncer retentionLeaseSyncer,
         final NodeClient client
     ) {
         this.settings = settings;
-        this.buildInIndexListener = Arrays.asList(peerRecoverySourceService, recoveryTargetService, searchService, snapshotShardsService);
+        this.buildInIndexListener = Arrays.asList(
+            peerRecoverySourceService,
+            recoveryTargetService,
+            searchService,
+            snapshotShardsService,
+            indexingPressure
+        );
         this.indicesService = indicesService;
         this.clusterService = clusterService;
         this.threadPool = threadPool;
@@ -101,7 +101,7 @@ public class PeerRecoverySourceService extends AbstractLifecycleComponent implem
     protected void doStart() {
         final ClusterService clusterService = indicesService.clusterService();
         if (DiscoveryNode.canContainData(clusterService.getSettings())) {
-            clusterService.addListener(this);
+            clusterService.addIndependentListener(this);
         }
     }
 
@@ -8,16 +8,27 @@
 
 package org.elasticsearch.indices.recovery;
 
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.FileRegionBytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.core.RefCounted;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.store.StoreFileMetadata;
+import org.elasticsearch.transport.FileRegionTransportRequest;
 
 import java.io.IOException;
 
-public final class RecoveryFileChunkRequest extends RecoveryTransportRequest implements RefCounted {
+public final class RecoveryFileChunkRequest extends RecoveryTransportRequest implements RefCounted, FileRegionTransportRequest {
+
+    /**
+     * The version from which on the content of the chunk is the last field of the request, so that it may be sent straight from the
+     * file it was read from.
+     */
+    static final Version CONTENT_LAST_VERSION = Version.V_8_2_0;
+
     private final boolean lastChunk;
     private final long recoveryId;
     private final ShardId shardId;
@@ -36,12 +47,21 @@ public final class RecoveryFileChunkRequest extends RecoveryTransportRequest imp
         position = in.readVLong();
         final long length = in.readVLong();
         final String checksum = in.readString();
-        content = in.readReleasableBytesReference();
-        final String writtenBy = in.readString();
-        metadata = new StoreFileMetadata(name, length, checksum, writtenBy);
-        lastChunk = in.readBoolean();
-        totalTranslogOps = in.readVInt();
-        sourceThrottleTimeInNanos = in.readLong();
+        if (in.getVersion().onOrAfter(CONTENT_LAST_VERSION)) {
+            final String writtenBy = in.readString();
+            metadata = new StoreFileMetadata(name, length, checksum, writtenBy);
+            lastChunk = in.readBoolean();
+            totalTranslogOps = in.readVInt();
+            sourceThrottleTimeInNanos = in.readLong();
+            content = in.readReleasableBytesReference();
+        } else {
+            content = in.readReleasableBytesReference();
+            final String writtenBy = in.readString();
+            metadata = new StoreFileMetadata(name, length, checksum, writtenBy);
+            lastChunk = in.readBoolean();
+            totalTranslogOps = in.readVInt();
+            sourceThrottleTimeInNanos = in.readLong();
+        }
     }
 
     public RecoveryFileChunkRequest(
@@ -100,6 +120,39 @@ public final class RecoveryFileChunkRequest extends RecoveryTransportRequest imp
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
+        if (out.getVersion().onOrAfter(CONTENT_LAST_VERSION)) {
+            writeThin(out);
+            content.writeTo(out);
+        } else {
+            super.writeTo(out);
+            out.writeLong(recoveryId);
+            shardId.writeTo(out);
+            out.writeString(metadata.name());
+            out.writeVLong(position);
+            out.writeVLong(metadata.length());
+            out.writeString(metadata.checksum());
+            out.writeBytesReference(content);
+            out.writeString(metadata.writtenBy());
+            out.writeBoolean(lastChunk);
+            out.writeVInt(totalTranslogOps);
+            out.writeLong(sourceThrottleTimeInNanos);
+        }
+    }
+
+    @Override
+    public FileRegionBytesReference fileRegion(Version version) {
+        if (version.onOrAfter(CONTENT_LAST_VERSION) && content.length() > 0) {
+            final BytesReference bytes = content.unwrap();
+            if (bytes instanceof FileRegionBytesReference region) {
+                return region;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void writeThin(StreamOutput out) throws IOException {
+        assert out.getVersion().onOrAfter(CONTENT_LAST_VERSION) : out.getVersion();
         super.writeTo(out);
         out.writeLong(recoveryId);
         shardId.writeTo(out);
@@ -107,11 +160,11 @@ public final class RecoveryFileChunkRequest extends RecoveryTransportRequest imp
         out.writeVLong(position);
         out.writeVLong(metadata.length());
         out.writeString(metadata.checksum());
-        out.writeBytesReference(content);
         out.writeString(metadata.writtenBy());
         out.writeBoolean(lastChunk);
         out.writeVInt(totalTranslogOps);
         out.writeLong(sourceThrottleTimeInNanos);
+        out.writeVInt(content.length());
     }
 
     @Override
@@ -37,6 +37,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static org.elasticsearch.common.settings.Setting.parseInt;
@@ -392,6 +393,18 @@ public class RecoverySettings {
         Setting.Property.NodeScope
     );
 
+    /**
+     * The maximum number of bytes of the parts of snapshotted files that a node transfers ahead of the part that the snapshot or restore of
+     * the file is currently at, so that large files are uploaded and downloaded in several parts in parallel. Restores hold these parts in
+     * memory until they are written to disk. Defaults to `0`, which transfers the parts of each file one after the other.
+     */
+    public static final Setting<ByteSizeValue> INDICES_RECOVERY_MAX_IN_FLIGHT_SNAPSHOT_PART_BYTES_SETTING = Setting.byteSizeSetting(
+        "indices.recovery.max_in_flight_snapshot_part_bytes",
+        ByteSizeValue.ZERO,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
     public static final ByteSizeValue DEFAULT_CHUNK_SIZE = new ByteSizeValue(512, ByteSizeUnit.KB);
 
     private volatile ByteSizeValue maxBytesPerSec;
@@ -407,8 +420,10 @@ public class RecoverySettings {
     private volatile boolean useSnapshotsDuringRecovery;
     private volatile int maxConcurrentSnapshotFileDownloads;
     private volatile int maxConcurrentSnapshotFileDownloadsPerNode;
+    private volatile long maxInFlightSnapshotPartBytes;
 
     private final AdjustableSemaphore maxSnapshotFileDownloadsPerNodeSemaphore;
+    private final AtomicLong inFlightSnapshotPartBytes = new AtomicLong();
 
     private volatile ByteSizeValue chunkSize = DEFAULT_CHUNK_SIZE;
 
@@ -432,6 +447,7 @@ public class RecoverySettings {
         this.maxConcurrentSnapshotFileDownloads = INDICES_RECOVERY_MAX_CONCURRENT_SNAPSHOT_FILE_DOWNLOADS.get(settings);
         this.maxConcurrentSnapshotFileDownloadsPerNode = INDICES_RECOVERY_MAX_CONCURRENT_SNAPSHOT_FILE_DOWNLOADS_PER_NODE.get(settings);
         this.maxSnapshotFileDownloadsPerNodeSemaphore = new AdjustableSemaphore(this.maxConcurrentSnapshotFileDownloadsPerNode, true);
+        this.maxInFlightSnapshotPartBytes = INDICES_RECOVERY_MAX_IN_FLIGHT_SNAPSHOT_PART_BYTES_SETTING.get(settings).getBytes();
         this.availableNetworkBandwidth = NODE_BANDWIDTH_RECOVERY_NETWORK_SETTING.get(settings);
         this.availableDiskReadBandwidth = NODE_BANDWIDTH_RECOVERY_DISK_READ_SETTING.get(settings);
         this.availableDiskWriteBandwidth = NODE_BANDWIDTH_RECOVERY_DISK_WRITE_SETTING.get(settings);
@@ -479,6 +495,10 @@ public class RecoverySettings {
             INDICES_RECOVERY_MAX_CONCURRENT_SNAPSHOT_FILE_DOWNLOADS_PER_NODE,
             this::setMaxConcurrentSnapshotFileDownloadsPerNode
         );
+        clusterSettings.addSettingsUpdateConsumer(
+            INDICES_RECOVERY_MAX_IN_FLIGHT_SNAPSHOT_PART_BYTES_SETTING,
+            this::setMaxInFlightSnapshotPartBytes
+        );
     }
 
     private void computeMaxBytesPerSec(Settings settings) {
@@ -688,6 +708,35 @@ public class RecoverySettings {
         return Releasables.releaseOnce(() -> maxSnapshotFileDownloadsPerNodeSemaphore.release(maxConcurrentSnapshotFileDownloads));
     }
 
+    public long getMaxInFlightSnapshotPartBytes() {
+        return maxInFlightSnapshotPartBytes;
+    }
+
+    private void setMaxInFlightSnapshotPartBytes(ByteSizeValue maxInFlightSnapshotPartBytes) {
+        this.maxInFlightSnapshotPartBytes = maxInFlightSnapshotPartBytes.getBytes();
+    }
+
+    /**
+     * Reserves the given number of bytes for the transfer of a part of a snapshotted file ahead of the part that the snapshot or restore
+     * of the file is currently at.
+     *
+     * @return a {@link Releasable} that frees the reserved bytes, or {@code null} if this would exceed the maximum number of bytes in
+     *         flight
+     */
+    @Nullable
+    public Releasable tryAcquireSnapshotPartBytes(long bytes) {
+        assert bytes > 0L : bytes;
+        while (true) {
+            final long current = inFlightSnapshotPartBytes.get();
+            if (current + bytes > maxInFlightSnapshotPartBytes) {
+                return null;
+            }
+            if (inFlightSnapshotPartBytes.compareAndSet(current, current + bytes)) {
+                return Releasables.releaseOnce(() -> inFlightSnapshotPartBytes.addAndGet(-bytes));
+            }
+        }
+    }
+
     private static void validateNodeBandwidthRecoverySettings(Settings settings) {
         final List<String> nonDefaults = NODE_BANDWIDTH_RECOVERY_SETTINGS.stream()
             .filter(setting -> setting.get(settings) != ByteSizeValue.MINUS_ONE)
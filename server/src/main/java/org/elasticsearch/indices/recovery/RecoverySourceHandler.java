@@ -32,6 +32,7 @@ import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.StopWatch;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.FileRegionBytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.unit.ByteSizeValue;
@@ -39,8 +40,10 @@ import org.elasticsearch.common.util.CancellableThreads;
 import org.elasticsearch.common.util.concurrent.CountDown;
 import org.elasticsearch.common.util.concurrent.FutureUtils;
 import org.elasticsearch.common.util.concurrent.ListenableFuture;
+import org.elasticsearch.core.AbstractRefCounted;
 import org.elasticsearch.core.CheckedRunnable;
 import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.RefCounted;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.core.TimeValue;
@@ -70,6 +73,8 @@ import org.elasticsearch.transport.Transports;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -107,6 +112,11 @@ import static org.elasticsearch.common.util.CollectionUtils.concatLists;
  */
 public class RecoverySourceHandler {
 
+    /**
+     * Size of the buffer that the regions of files sent without being read onto the heap are prefetched into.
+     */
+    private static final int PREFETCH_BUFFER_SIZE = 64 * 1024;
+
     protected final Logger logger;
     // Shard that is going to be recovered (the "source")
     private final IndexShard shard;
@@ -1337,17 +1347,39 @@ public class RecoverySourceHandler {
                 final Deque<byte[]> buffers = new ConcurrentLinkedDeque<>();
                 final AtomicInteger liveBufferCount = new AtomicInteger(); // only used in assertions to verify proper recycling
                 IndexInput currentInput = null;
+                // if the file can be read straight from the file system, the chunks are regions of it which the transport may send
+                // without reading them onto the heap, and the channel is closed once the last of its chunks is released
+                FileChannel currentChannel = null;
+                RefCounted currentChannelRef = null;
+                // regions are read once on this thread so that the transport does not have to wait for the disk to send them
+                ByteBuffer prefetchBuffer = null;
                 long offset = 0;
 
                 @Override
                 protected void onNewResource(StoreFileMetadata md) throws IOException {
                     offset = 0;
                     IOUtils.close(currentInput);
+                    releaseCurrentChannel();
                     if (md.hashEqualsContents()) {
                         // we already have the file contents on heap no need to open the file again
                         currentInput = null;
                     } else {
-                        currentInput = store.directory().openInput(md.name(), IOContext.READONCE);
+                        final FileChannel channel = store.openFileChannel(md.name());
+                        if (channel == null) {
+                            currentInput = store.directory().openInput(md.name(), IOContext.READONCE);
+                        } else {
+                            currentInput = null;
+                            currentChannel = channel;
+                            currentChannelRef = AbstractRefCounted.of(() -> IOUtils.closeWhileHandlingException(channel));
+                        }
+                    }
+                }
+
+                private void releaseCurrentChannel() {
+                    if (currentChannelRef != null) {
+                        currentChannelRef.decRef();
+                        currentChannelRef = null;
+                        currentChannel = null;
                     }
                 }
 
@@ -1355,6 +1387,20 @@ public class RecoverySourceHandler {
                 protected FileChunk nextChunkRequest(StoreFileMetadata md) throws IOException {
                     assert Transports.assertNotTransportThread("read file chunk");
                     cancellableThreads.checkForCancel();
+                    if (currentChannel != null) {
+                        final int length = Math.toIntExact(Math.min(md.length() - offset, chunkSizeInBytes));
+                        final boolean lastChunk = offset + length == md.length();
+                        final FileRegionBytesReference region = new FileRegionBytesReference(currentChannel, offset, length);
+                        if (prefetchBuffer == null) {
+                            prefetchBuffer = ByteBuffer.allocate(PREFETCH_BUFFER_SIZE);
+                        }
+                        region.prefetch(prefetchBuffer);
+                        final RefCounted channelRef = currentChannelRef;
+                        channelRef.incRef();
+                        final FileChunk chunk = new FileChunk(md, region, offset, lastChunk, channelRef::decRef);
+                        offset += length;
+                        return chunk;
+                    }
                     if (currentInput == null) {
                         // no input => reading directly from the metadata
                         assert md.hashEqualsContents();
@@ -1394,7 +1440,7 @@ public class RecoverySourceHandler {
 
                 @Override
                 public void close() throws IOException {
-                    IOUtils.close(currentInput, storeRef);
+                    IOUtils.close(currentInput, this::releaseCurrentChannel, storeRef);
                 }
 
                 @Override
@@ -422,8 +422,7 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
              * the policy.
              */
             indexShard().updateRetentionLeasesOnReplica(retentionLeases);
-            for (Translog.Operation operation : operations) {
-                Engine.Result result = indexShard().applyTranslogOperation(operation, Engine.Operation.Origin.PEER_RECOVERY);
+            indexShard().applyTranslogOperations(operations, Engine.Operation.Origin.PEER_RECOVERY, (operation, result) -> {
                 if (result.getResultType() == Engine.Result.Type.MAPPING_UPDATE_REQUIRED) {
                     throw new MapperException("mapping updates are not allowed [" + operation + "]");
                 }
@@ -433,7 +432,7 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
                     }
                     ExceptionsHelper.reThrowIfNotNull(result.getFailure());
                 }
-            }
+            });
             // update stats only after all operations completed (to ensure that mapping updates don't mess with stats)
             translog.incrementRecoveredOperations(operations.size());
             indexShard().sync();
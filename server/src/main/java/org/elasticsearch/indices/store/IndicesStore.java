@@ -110,7 +110,7 @@ public class IndicesStore implements ClusterStateListener, Closeable {
             // we double check nothing has changed when responses come back from other nodes.
             // it's easier to do that check when the current cluster state is visible.
             // also it's good in general to let things settle down
-            clusterService.addListener(this);
+            clusterService.addIndependentListener(this);
         }
     }
 
@@ -9,6 +9,7 @@
 package org.elasticsearch.ingest;
 
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.TriConsumer;
 import org.elasticsearch.core.Tuple;
 
 import java.util.ArrayList;
@@ -16,6 +17,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
@@ -159,6 +161,89 @@ public class CompoundProcessor implements Processor {
         });
     }
 
+    @Override
+    public boolean supportsBatchExecution() {
+        return true;
+    }
+
+    @Override
+    public void executeBatch(List<IngestDocument> ingestDocuments, TriConsumer<Integer, IngestDocument, Exception> handler) {
+        final int[] slots = new int[ingestDocuments.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = i;
+        }
+        innerExecuteBatch(0, ingestDocuments, slots, handler);
+    }
+
+    /**
+     * Runs the given documents through the processors one processor at a time, so that each processor gets all the documents at once.
+     * Documents that get dropped or that fail leave the batch and are passed to the handler straight away, together with their slot,
+     * while the other documents move on to the next processor once the current processor is done with all of them.
+     */
+    void innerExecuteBatch(
+        int currentProcessor,
+        List<IngestDocument> ingestDocuments,
+        int[] slots,
+        TriConsumer<Integer, IngestDocument, Exception> handler
+    ) {
+        if (ingestDocuments.isEmpty()) {
+            return;
+        }
+        if (currentProcessor == processorsWithMetrics.size()) {
+            for (int i = 0; i < slots.length; i++) {
+                handler.apply(slots[i], ingestDocuments.get(i), null);
+            }
+            return;
+        }
+
+        Tuple<Processor, IngestMetric> processorWithMetric = processorsWithMetrics.get(currentProcessor);
+        final Processor processor = processorWithMetric.v1();
+        final IngestMetric metric = processorWithMetric.v2();
+        final IngestDocument[] results = new IngestDocument[slots.length];
+        final AtomicInteger pending = new AtomicInteger(slots.length);
+        final long startTimeInNanos = relativeTimeProvider.getAsLong();
+        metric.preIngest(slots.length);
+        Processor.executeBatch(processor, ingestDocuments, (i, result, e) -> {
+            final IngestDocument ingestDocument = ingestDocuments.get(i);
+            if (e != null) {
+                metric.ingestFailed();
+                if (ignoreFailure) {
+                    results[i] = ingestDocument;
+                }
+            } else {
+                results[i] = result;
+            }
+            // the results must be set before counting down so that they are visible to the thread that moves on to the next processor
+            final boolean last = pending.decrementAndGet() == 0;
+            if (last) {
+                metric.postIngest(slots.length, relativeTimeProvider.getAsLong() - startTimeInNanos);
+            }
+
+            if (e != null && ignoreFailure == false) {
+                IngestProcessorException compoundProcessorException = newCompoundProcessorException(e, processor, ingestDocument);
+                if (onFailureProcessors.isEmpty()) {
+                    handler.apply(slots[i], null, compoundProcessorException);
+                } else {
+                    executeOnFailureAsync(0, ingestDocument, compoundProcessorException, (r, ex) -> handler.apply(slots[i], r, ex));
+                }
+            } else if (e == null && result == null) {
+                handler.apply(slots[i], null, null);
+            }
+
+            if (last) {
+                final List<IngestDocument> remaining = new ArrayList<>(results.length);
+                final int[] remainingSlots = new int[results.length];
+                for (int j = 0; j < results.length; j++) {
+                    if (results[j] != null) {
+                        remainingSlots[remaining.size()] = slots[j];
+                        remaining.add(results[j]);
+                    }
+                }
+                innerExecuteBatch(currentProcessor + 1, remaining, Arrays.copyOf(remainingSlots, remaining.size()), handler);
+            }
+        });
+    }
+
     void executeOnFailureAsync(
         int currentOnFailureProcessor,
         IngestDocument ingestDocument,
@@ -8,6 +8,7 @@
 
 package org.elasticsearch.ingest;
 
+import org.elasticsearch.common.TriConsumer;
 import org.elasticsearch.common.logging.DeprecationCategory;
 import org.elasticsearch.common.logging.DeprecationLogger;
 import org.elasticsearch.script.DynamicMap;
@@ -26,6 +27,7 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.LongSupplier;
@@ -114,6 +116,51 @@ public class ConditionalProcessor extends AbstractProcessor implements WrappingP
         }
     }
 
+    @Override
+    public boolean supportsBatchExecution() {
+        return true;
+    }
+
+    @Override
+    public void executeBatch(List<IngestDocument> ingestDocuments, TriConsumer<Integer, IngestDocument, Exception> handler) {
+        final List<IngestDocument> matching = new ArrayList<>(ingestDocuments.size());
+        final int[] slots = new int[ingestDocuments.size()];
+        for (int i = 0; i < ingestDocuments.size(); i++) {
+            final IngestDocument ingestDocument = ingestDocuments.get(i);
+            final boolean matches;
+            try {
+                matches = evaluate(ingestDocument);
+            } catch (Exception e) {
+                handler.apply(i, null, e);
+                continue;
+            }
+            if (matches) {
+                slots[matching.size()] = i;
+                matching.add(ingestDocument);
+            } else {
+                handler.apply(i, ingestDocument, null);
+            }
+        }
+        if (matching.isEmpty()) {
+            return;
+        }
+
+        final AtomicInteger pending = new AtomicInteger(matching.size());
+        final long startTimeInNanos = relativeTimeProvider.getAsLong();
+        metric.preIngest(matching.size());
+        Processor.executeBatch(processor, matching, (i, result, e) -> {
+            if (pending.decrementAndGet() == 0) {
+                metric.postIngest(matching.size(), relativeTimeProvider.getAsLong() - startTimeInNanos);
+            }
+            if (e != null) {
+                metric.ingestFailed();
+                handler.apply(slots[i], null, e);
+            } else {
+                handler.apply(slots[i], result, null);
+            }
+        });
+    }
+
     @Override
     public IngestDocument execute(IngestDocument ingestDocument) throws Exception {
         throw new UnsupportedOperationException("this method should not get executed");
@@ -9,6 +9,7 @@
 package org.elasticsearch.ingest;
 
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.TriConsumer;
 import org.elasticsearch.common.util.LazyMap;
 import org.elasticsearch.common.util.Maps;
 import org.elasticsearch.index.VersionType;
@@ -810,6 +811,43 @@ public final class IngestDocument {
         }
     }
 
+    /**
+     * Executes the given pipeline for several documents at once, see {@link #executePipeline(Pipeline, BiConsumer)}.
+     *
+     * @param pipeline the pipeline to execute
+     * @param ingestDocuments the documents to execute the pipeline for
+     * @param handler handles the result or failure of each document, together with its position in the given list
+     */
+    public static void executePipeline(
+        Pipeline pipeline,
+        List<IngestDocument> ingestDocuments,
+        TriConsumer<Integer, IngestDocument, Exception> handler
+    ) {
+        final List<IngestDocument> executing = new ArrayList<>(ingestDocuments.size());
+        final int[] slots = new int[ingestDocuments.size()];
+        final Object[] previousPipelines = new Object[ingestDocuments.size()];
+        for (int i = 0; i < ingestDocuments.size(); i++) {
+            final IngestDocument ingestDocument = ingestDocuments.get(i);
+            if (ingestDocument.executedPipelines.add(pipeline.getId())) {
+                previousPipelines[executing.size()] = ingestDocument.ingestMetadata.put("pipeline", pipeline.getId());
+                slots[executing.size()] = i;
+                executing.add(ingestDocument);
+            } else {
+                handler.apply(i, null, new IllegalStateException(PIPELINE_CYCLE_ERROR_MESSAGE + pipeline.getId()));
+            }
+        }
+        pipeline.executeBatch(executing, (i, result, e) -> {
+            final IngestDocument ingestDocument = executing.get(i);
+            ingestDocument.executedPipelines.remove(pipeline.getId());
+            if (previousPipelines[i] != null) {
+                ingestDocument.ingestMetadata.put("pipeline", previousPipelines[i]);
+            } else {
+                ingestDocument.ingestMetadata.remove("pipeline");
+            }
+            handler.apply(slots[i], result, e);
+        });
+    }
+
     /**
      * @return a pipeline stack; all pipelines that are in execution by this document in reverse order
      */
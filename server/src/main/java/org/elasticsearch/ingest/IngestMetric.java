@@ -58,6 +58,26 @@ class IngestMetric {
         ingestCount.inc();
     }
 
+    /**
+     * Call this prior to performing the ingest action on several items at once.
+     * @param count The number of items.
+     */
+    void preIngest(int count) {
+        ingestCurrent.addAndGet(count);
+    }
+
+    /**
+     * Call this after performing the ingest action on several items at once, even if the action failed for some of them.
+     * @param count The number of items.
+     * @param ingestTimeInNanos The time it took to perform the action on all items.
+     */
+    void postIngest(int count, long ingestTimeInNanos) {
+        long current = ingestCurrent.addAndGet(-count);
+        assert current >= 0 : "ingest metric current count double-decremented";
+        this.ingestTimeInNanos.inc(ingestTimeInNanos);
+        ingestCount.inc(count);
+    }
+
     /**
      * Call this if the ingest action failed.
      */
@@ -38,6 +38,7 @@ import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.cluster.metadata.MetadataIndexTemplateService;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.TriConsumer;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.regex.Regex;
@@ -59,11 +60,13 @@ import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
@@ -89,6 +92,11 @@ public class IngestService implements ClusterStateApplier, ReportingService<Inge
 
     private static final Logger logger = LogManager.getLogger(IngestService.class);
 
+    // the documents of a bulk request that go through the same pipeline are handed to its processors in batches of up to this many
+    // documents; this bounds the size of a single processor call, not the number of documents that are in flight, since all the batches
+    // of a pipeline are started together
+    static final int MAX_BATCH_SIZE = 128;
+
     private final ClusterService clusterService;
     private final ScriptService scriptService;
     private final Map<String, Processor.Factory> processorFactories;
@@ -613,6 +621,7 @@ public class IngestService implements ClusterStateApplier, ReportingService<Inge
             protected void doRun() {
                 final Thread originalThread = Thread.currentThread();
                 final AtomicInteger counter = new AtomicInteger(numberOfActionRequests);
+                final List<PipelineItem> items = new ArrayList<>(numberOfActionRequests);
                 int i = 0;
                 for (DocWriteRequest<?> actionRequest : actionRequests) {
                     IndexRequest indexRequest = TransportBulkAction.getIndexWriteRequest(actionRequest);
@@ -648,116 +657,194 @@ public class IngestService implements ClusterStateApplier, ReportingService<Inge
                         continue;
                     }
 
-                    executePipelines(
-                        i,
-                        pipelines.iterator(),
-                        hasFinalPipeline,
-                        indexRequest,
-                        onDropped,
-                        onFailure,
-                        counter,
-                        onCompletion,
-                        originalThread
-                    );
-
+                    items.add(new PipelineItem(i, indexRequest, pipelines.iterator(), hasFinalPipeline));
                     i++;
                 }
+                executePipelines(items, onDropped, onFailure, counter, onCompletion, originalThread);
             }
         });
     }
 
+    /**
+     * Runs the given documents through the next pipeline that each of them has to go through. The documents that go through the same
+     * pipeline are processed together, in batches of up to {@link #MAX_BATCH_SIZE} documents, so that processors can amortise work
+     * across the documents of a bulk request.
+     */
     private void executePipelines(
-        final int slot,
-        final Iterator<String> it,
-        final boolean hasFinalPipeline,
-        final IndexRequest indexRequest,
+        final List<PipelineItem> items,
         final IntConsumer onDropped,
         final BiConsumer<Integer, Exception> onFailure,
         final AtomicInteger counter,
         final BiConsumer<Thread, Exception> onCompletion,
         final Thread originalThread
     ) {
-        assert it.hasNext();
-        final String pipelineId = it.next();
-        try {
-            PipelineHolder holder = pipelines.get(pipelineId);
-            if (holder == null) {
-                throw new IllegalArgumentException("pipeline with id [" + pipelineId + "] does not exist");
+        final Map<String, List<PipelineItem>> itemsByPipeline = new LinkedHashMap<>();
+        for (PipelineItem item : items) {
+            assert item.pipelines().hasNext();
+            itemsByPipeline.computeIfAbsent(item.pipelines().next(), k -> new ArrayList<>()).add(item);
+        }
+        for (Map.Entry<String, List<PipelineItem>> entry : itemsByPipeline.entrySet()) {
+            final List<PipelineItem> pipelineItems = entry.getValue();
+            for (int from = 0; from < pipelineItems.size(); from += MAX_BATCH_SIZE) {
+                final List<PipelineItem> batch = pipelineItems.subList(from, Math.min(from + MAX_BATCH_SIZE, pipelineItems.size()));
+                executePipeline(entry.getKey(), batch, onDropped, onFailure, counter, onCompletion, originalThread);
             }
-            Pipeline pipeline = holder.pipeline;
-            String originalIndex = indexRequest.indices()[0];
-            innerExecute(slot, indexRequest, pipeline, onDropped, e -> {
-                if (e != null) {
-                    logger.debug(
-                        () -> new ParameterizedMessage(
-                            "failed to execute pipeline [{}] for document [{}/{}]",
-                            pipelineId,
-                            indexRequest.index(),
-                            indexRequest.id()
-                        ),
-                        e
-                    );
-                    onFailure.accept(slot, e);
+        }
+    }
+
+    private void executePipeline(
+        final String pipelineId,
+        final List<PipelineItem> batch,
+        final IntConsumer onDropped,
+        final BiConsumer<Integer, Exception> onFailure,
+        final AtomicInteger counter,
+        final BiConsumer<Thread, Exception> onCompletion,
+        final Thread originalThread
+    ) {
+        PipelineHolder holder = pipelines.get(pipelineId);
+        if (holder == null) {
+            for (PipelineItem item : batch) {
+                onItemFailure(
+                    pipelineId,
+                    item,
+                    new IllegalArgumentException("pipeline with id [" + pipelineId + "] does not exist"),
+                    onFailure,
+                    counter,
+                    onCompletion,
+                    originalThread
+                );
+            }
+            return;
+        }
+        Pipeline pipeline = holder.pipeline;
+
+        final List<PipelineItem> executing;
+        final List<IngestDocument> ingestDocuments;
+        if (pipeline.getProcessors().isEmpty()) {
+            executing = batch;
+            ingestDocuments = null;
+        } else {
+            executing = new ArrayList<>(batch.size());
+            ingestDocuments = new ArrayList<>(batch.size());
+            for (PipelineItem item : batch) {
+                final IngestDocument ingestDocument;
+                try {
+                    ingestDocument = newIngestDocument(item.indexRequest());
+                } catch (Exception e) {
+                    onItemFailure(pipelineId, item, e, onFailure, counter, onCompletion, originalThread);
+                    continue;
                 }
+                executing.add(item);
+                ingestDocuments.add(ingestDocument);
+            }
+            if (executing.isEmpty()) {
+                return;
+            }
+        }
 
-                Iterator<String> newIt = it;
-                boolean newHasFinalPipeline = hasFinalPipeline;
-                String newIndex = indexRequest.indices()[0];
-
-                if (Objects.equals(originalIndex, newIndex) == false) {
-                    if (hasFinalPipeline && it.hasNext() == false) {
-                        totalMetrics.ingestFailed();
-                        onFailure.accept(
-                            slot,
-                            new IllegalStateException("final pipeline [" + pipelineId + "] can't change the target index")
-                        );
-                    } else {
-                        indexRequest.isPipelineResolved(false);
-                        resolvePipelines(null, indexRequest, state.metadata());
-                        if (IngestService.NOOP_PIPELINE_NAME.equals(indexRequest.getFinalPipeline()) == false) {
-                            newIt = Collections.singleton(indexRequest.getFinalPipeline()).iterator();
-                            newHasFinalPipeline = true;
-                        } else {
-                            newIt = Collections.emptyIterator();
-                        }
-                    }
+        final String[] originalIndices = new String[executing.size()];
+        for (int i = 0; i < originalIndices.length; i++) {
+            originalIndices[i] = executing.get(i).indexRequest().indices()[0];
+        }
+        final PipelineItem[] nextItems = new PipelineItem[executing.size()];
+        final AtomicInteger pending = new AtomicInteger(executing.size());
+        innerExecute(executing, ingestDocuments, pipeline, onDropped, (i, result, e) -> {
+            final PipelineItem item = executing.get(i);
+            try {
+                if (result != null) {
+                    updateIndexRequest(item.indexRequest(), result);
+                }
+                nextItems[i] = nextPipelineItem(pipelineId, item, originalIndices[i], e, onFailure);
+            } catch (Exception ex) {
+                // e.g. a metadata field that a processor set to a value of the wrong type, this only fails this document
+                logItemFailure(pipelineId, item, ex);
+                onFailure.accept(item.slot(), ex);
+            }
+
+            if (nextItems[i] == null) {
+                if (counter.decrementAndGet() == 0) {
+                    onCompletion.accept(originalThread, null);
                 }
+                assert counter.get() >= 0;
+            }
 
-                if (newIt.hasNext()) {
-                    executePipelines(
-                        slot,
-                        newIt,
-                        newHasFinalPipeline,
-                        indexRequest,
-                        onDropped,
-                        onFailure,
-                        counter,
-                        onCompletion,
-                        originalThread
-                    );
-                } else {
-                    if (counter.decrementAndGet() == 0) {
-                        onCompletion.accept(originalThread, null);
-                    }
-                    assert counter.get() >= 0;
+            // the documents that have another pipeline to go through move on once the whole batch went through this pipeline
+            if (pending.decrementAndGet() == 0) {
+                final List<PipelineItem> next = Arrays.stream(nextItems).filter(Objects::nonNull).toList();
+                if (next.isEmpty() == false) {
+                    executePipelines(next, onDropped, onFailure, counter, onCompletion, originalThread);
                 }
-            });
-        } catch (Exception e) {
-            logger.debug(
-                () -> new ParameterizedMessage(
-                    "failed to execute pipeline [{}] for document [{}/{}]",
-                    pipelineId,
-                    indexRequest.index(),
-                    indexRequest.id()
-                ),
-                e
-            );
+            }
+        });
+    }
+
+    /**
+     * Returns the given document with the pipelines it still has to go through after it went through the given pipeline, or {@code null}
+     * if it does not have to go through any other pipeline.
+     */
+    private PipelineItem nextPipelineItem(
+        final String pipelineId,
+        final PipelineItem item,
+        final String originalIndex,
+        final Exception e,
+        final BiConsumer<Integer, Exception> onFailure
+    ) {
+        final int slot = item.slot();
+        final IndexRequest indexRequest = item.indexRequest();
+        if (e != null) {
+            logItemFailure(pipelineId, item, e);
             onFailure.accept(slot, e);
-            if (counter.decrementAndGet() == 0) {
-                onCompletion.accept(originalThread, null);
+        }
+
+        Iterator<String> newIt = item.pipelines();
+        boolean newHasFinalPipeline = item.hasFinalPipeline();
+        String newIndex = indexRequest.indices()[0];
+
+        if (Objects.equals(originalIndex, newIndex) == false) {
+            if (item.hasFinalPipeline() && item.pipelines().hasNext() == false) {
+                totalMetrics.ingestFailed();
+                onFailure.accept(slot, new IllegalStateException("final pipeline [" + pipelineId + "] can't change the target index"));
+            } else {
+                indexRequest.isPipelineResolved(false);
+                resolvePipelines(null, indexRequest, state.metadata());
+                if (IngestService.NOOP_PIPELINE_NAME.equals(indexRequest.getFinalPipeline()) == false) {
+                    newIt = Collections.singleton(indexRequest.getFinalPipeline()).iterator();
+                    newHasFinalPipeline = true;
+                } else {
+                    newIt = Collections.emptyIterator();
+                }
             }
-            assert counter.get() >= 0;
         }
+        return newIt.hasNext() ? new PipelineItem(slot, indexRequest, newIt, newHasFinalPipeline) : null;
+    }
+
+    private static void logItemFailure(final String pipelineId, final PipelineItem item, final Exception e) {
+        logger.debug(
+            () -> new ParameterizedMessage(
+                "failed to execute pipeline [{}] for document [{}/{}]",
+                pipelineId,
+                item.indexRequest().index(),
+                item.indexRequest().id()
+            ),
+            e
+        );
+    }
+
+    private static void onItemFailure(
+        final String pipelineId,
+        final PipelineItem item,
+        final Exception e,
+        final BiConsumer<Integer, Exception> onFailure,
+        final AtomicInteger counter,
+        final BiConsumer<Thread, Exception> onCompletion,
+        final Thread originalThread
+    ) {
+        logItemFailure(pipelineId, item, e);
+        onFailure.accept(item.slot(), e);
+        if (counter.decrementAndGet() == 0) {
+            onCompletion.accept(originalThread, null);
+        }
+        assert counter.get() >= 0;
     }
 
     public IngestStats stats() {
@@ -811,70 +898,85 @@ public class IngestService implements ClusterStateApplier, ReportingService<Inge
         return sb.toString();
     }
 
+    private static IngestDocument newIngestDocument(IndexRequest indexRequest) {
+        String index = indexRequest.index();
+        String id = indexRequest.id();
+        String routing = indexRequest.routing();
+        Long version = indexRequest.version();
+        VersionType versionType = indexRequest.versionType();
+        Map<String, Object> sourceAsMap = indexRequest.sourceAsMap();
+        return new IngestDocument(index, id, routing, version, versionType, sourceAsMap);
+    }
+
+    /**
+     * Runs the given documents through the given pipeline at once. The handler is called once for each document, with the position of
+     * the document in the given list and the ingest document to update its index request from, which is {@code null} if the document
+     * failed, was dropped or the pipeline has no processors.
+     */
     private void innerExecute(
-        int slot,
-        IndexRequest indexRequest,
+        List<PipelineItem> items,
+        List<IngestDocument> ingestDocuments,
         Pipeline pipeline,
         IntConsumer itemDroppedHandler,
-        Consumer<Exception> handler
+        TriConsumer<Integer, IngestDocument, Exception> handler
     ) {
         if (pipeline.getProcessors().isEmpty()) {
-            handler.accept(null);
+            for (int i = 0; i < items.size(); i++) {
+                handler.apply(i, null, null);
+            }
             return;
         }
 
-        long startTimeInNanos = System.nanoTime();
+        final long startTimeInNanos = System.nanoTime();
+        final AtomicInteger pending = new AtomicInteger(ingestDocuments.size());
         // the pipeline specific stat holder may not exist and that is fine:
         // (e.g. the pipeline may have been removed while we're ingesting a document
-        totalMetrics.preIngest();
-        String index = indexRequest.index();
-        String id = indexRequest.id();
-        String routing = indexRequest.routing();
-        Long version = indexRequest.version();
-        VersionType versionType = indexRequest.versionType();
-        Map<String, Object> sourceAsMap = indexRequest.sourceAsMap();
-        IngestDocument ingestDocument = new IngestDocument(index, id, routing, version, versionType, sourceAsMap);
-        ingestDocument.executePipeline(pipeline, (result, e) -> {
-            long ingestTimeInNanos = System.nanoTime() - startTimeInNanos;
-            totalMetrics.postIngest(ingestTimeInNanos);
+        totalMetrics.preIngest(ingestDocuments.size());
+        IngestDocument.executePipeline(pipeline, ingestDocuments, (i, result, e) -> {
+            if (pending.decrementAndGet() == 0) {
+                totalMetrics.postIngest(ingestDocuments.size(), System.nanoTime() - startTimeInNanos);
+            }
             if (e != null) {
                 totalMetrics.ingestFailed();
-                handler.accept(e);
+                handler.apply(i, null, e);
             } else if (result == null) {
-                itemDroppedHandler.accept(slot);
-                handler.accept(null);
+                itemDroppedHandler.accept(items.get(i).slot());
+                handler.apply(i, null, null);
             } else {
-                Map<IngestDocument.Metadata, Object> metadataMap = ingestDocument.extractMetadata();
-
-                String newIndex = (String) metadataMap.get(IngestDocument.Metadata.INDEX);
-                // it's fine to set all metadata fields all the time, as ingest document holds their starting values
-                // before ingestion, which might also get modified during ingestion.
-                indexRequest.index(newIndex);
-                indexRequest.id((String) metadataMap.get(IngestDocument.Metadata.ID));
-                indexRequest.routing((String) metadataMap.get(IngestDocument.Metadata.ROUTING));
-                indexRequest.version(((Number) metadataMap.get(IngestDocument.Metadata.VERSION)).longValue());
-                if (metadataMap.get(IngestDocument.Metadata.VERSION_TYPE) != null) {
-                    indexRequest.versionType(VersionType.fromString((String) metadataMap.get(IngestDocument.Metadata.VERSION_TYPE)));
-                }
-                if (metadataMap.get(IngestDocument.Metadata.IF_SEQ_NO) != null) {
-                    indexRequest.setIfSeqNo(((Number) metadataMap.get(IngestDocument.Metadata.IF_SEQ_NO)).longValue());
-                }
-                if (metadataMap.get(IngestDocument.Metadata.IF_PRIMARY_TERM) != null) {
-                    indexRequest.setIfPrimaryTerm(((Number) metadataMap.get(IngestDocument.Metadata.IF_PRIMARY_TERM)).longValue());
-                }
-                indexRequest.source(ingestDocument.getSourceAndMetadata(), indexRequest.getContentType());
-                if (metadataMap.get(IngestDocument.Metadata.DYNAMIC_TEMPLATES) != null) {
-                    Map<String, String> mergedDynamicTemplates = new HashMap<>(indexRequest.getDynamicTemplates());
-                    @SuppressWarnings("unchecked")
-                    Map<String, String> map = (Map<String, String>) metadataMap.get(IngestDocument.Metadata.DYNAMIC_TEMPLATES);
-                    mergedDynamicTemplates.putAll(map);
-                    indexRequest.setDynamicTemplates(mergedDynamicTemplates);
-                }
-                handler.accept(null);
+                handler.apply(i, ingestDocuments.get(i), null);
             }
         });
     }
 
+    private static void updateIndexRequest(IndexRequest indexRequest, IngestDocument ingestDocument) {
+        Map<IngestDocument.Metadata, Object> metadataMap = ingestDocument.extractMetadata();
+
+        String newIndex = (String) metadataMap.get(IngestDocument.Metadata.INDEX);
+        // it's fine to set all metadata fields all the time, as ingest document holds their starting values
+        // before ingestion, which might also get modified during ingestion.
+        indexRequest.index(newIndex);
+        indexRequest.id((String) metadataMap.get(IngestDocument.Metadata.ID));
+        indexRequest.routing((String) metadataMap.get(IngestDocument.Metadata.ROUTING));
+        indexRequest.version(((Number) metadataMap.get(IngestDocument.Metadata.VERSION)).longValue());
+        if (metadataMap.get(IngestDocument.Metadata.VERSION_TYPE) != null) {
+            indexRequest.versionType(VersionType.fromString((String) metadataMap.get(IngestDocument.Metadata.VERSION_TYPE)));
+        }
+        if (metadataMap.get(IngestDocument.Metadata.IF_SEQ_NO) != null) {
+            indexRequest.setIfSeqNo(((Number) metadataMap.get(IngestDocument.Metadata.IF_SEQ_NO)).longValue());
+        }
+        if (metadataMap.get(IngestDocument.Metadata.IF_PRIMARY_TERM) != null) {
+            indexRequest.setIfPrimaryTerm(((Number) metadataMap.get(IngestDocument.Metadata.IF_PRIMARY_TERM)).longValue());
+        }
+        indexRequest.source(ingestDocument.getSourceAndMetadata(), indexRequest.getContentType());
+        if (metadataMap.get(IngestDocument.Metadata.DYNAMIC_TEMPLATES) != null) {
+            Map<String, String> mergedDynamicTemplates = new HashMap<>(indexRequest.getDynamicTemplates());
+            @SuppressWarnings("unchecked")
+            Map<String, String> map = (Map<String, String>) metadataMap.get(IngestDocument.Metadata.DYNAMIC_TEMPLATES);
+            mergedDynamicTemplates.putAll(map);
+            indexRequest.setDynamicTemplates(mergedDynamicTemplates);
+        }
+    }
+
     @Override
     public void applyClusterState(final ClusterChangedEvent event) {
         state = event.state();
@@ -1080,4 +1182,9 @@ public class IngestService implements ClusterStateApplier, ReportingService<Inge
         }
     }
 
+    /**
+     * A document of a bulk request, with the pipelines that it still has to go through.
+     */
+    private record PipelineItem(int slot, IndexRequest indexRequest, Iterator<String> pipelines, boolean hasFinalPipeline) {}
+
 }
@@ -9,6 +9,7 @@
 package org.elasticsearch.ingest;
 
 import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.TriConsumer;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.script.ScriptService;
 
@@ -16,6 +17,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.LongSupplier;
 
@@ -124,6 +126,28 @@ public final class Pipeline {
         });
     }
 
+    /**
+     * Modifies the data of several documents to be indexed at once, see {@link #execute(IngestDocument, BiConsumer)}. The handler is
+     * called once for each document, with the position of the document in the given list.
+     */
+    public void executeBatch(List<IngestDocument> ingestDocuments, TriConsumer<Integer, IngestDocument, Exception> handler) {
+        if (ingestDocuments.isEmpty()) {
+            return;
+        }
+        final AtomicInteger pending = new AtomicInteger(ingestDocuments.size());
+        final long startTimeInNanos = relativeTimeProvider.getAsLong();
+        metrics.preIngest(ingestDocuments.size());
+        compoundProcessor.executeBatch(ingestDocuments, (slot, result, e) -> {
+            if (pending.decrementAndGet() == 0) {
+                metrics.postIngest(ingestDocuments.size(), relativeTimeProvider.getAsLong() - startTimeInNanos);
+            }
+            if (e != null) {
+                metrics.ingestFailed();
+            }
+            handler.apply(slot, result, e);
+        });
+    }
+
     /**
      * The unique id of this pipeline
      */
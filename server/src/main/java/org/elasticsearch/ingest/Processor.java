@@ -9,12 +9,14 @@
 package org.elasticsearch.ingest;
 
 import org.elasticsearch.client.internal.Client;
+import org.elasticsearch.common.TriConsumer;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.index.analysis.AnalysisRegistry;
 import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.threadpool.Scheduler;
 
+import java.util.List;
 import java.util.Map;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
@@ -46,6 +48,56 @@ public interface Processor {
         handler.accept(result, null);
     }
 
+    /**
+     * Introspect and potentially modify several documents at once, for instance the documents of a bulk request that go through the same
+     * pipeline. Each document must be processed exactly as {@link #execute(IngestDocument, BiConsumer)} would process it on its own, but
+     * processors can override this method to amortise work across the documents, such as parsing or looking up repeated values once.
+     *
+     * Expert method: processors that override this method must also override {@link #supportsBatchExecution()}, otherwise the documents
+     * are passed to {@link #execute(IngestDocument, BiConsumer)} one by one.
+     *
+     * @param ingestDocuments the documents to process
+     * @param handler called exactly once for each document, possibly concurrently, with the position of the document in the given list
+     *                and its result or failure, as the handler of {@link #execute(IngestDocument, BiConsumer)} would be called
+     */
+    default void executeBatch(List<IngestDocument> ingestDocuments, TriConsumer<Integer, IngestDocument, Exception> handler) {
+        executeEach(this, ingestDocuments, handler);
+    }
+
+    /**
+     * @return whether this processor overrides {@link #executeBatch} to process several documents at once
+     */
+    default boolean supportsBatchExecution() {
+        return false;
+    }
+
+    /**
+     * Passes the given documents to {@link #executeBatch} if the given processor {@link #supportsBatchExecution() supports it}, or to
+     * {@link #execute(IngestDocument, BiConsumer)} one by one otherwise.
+     */
+    static void executeBatch(
+        Processor processor,
+        List<IngestDocument> ingestDocuments,
+        TriConsumer<Integer, IngestDocument, Exception> handler
+    ) {
+        if (processor.supportsBatchExecution()) {
+            processor.executeBatch(ingestDocuments, handler);
+        } else {
+            executeEach(processor, ingestDocuments, handler);
+        }
+    }
+
+    private static void executeEach(
+        Processor processor,
+        List<IngestDocument> ingestDocuments,
+        TriConsumer<Integer, IngestDocument, Exception> handler
+    ) {
+        for (int i = 0; i < ingestDocuments.size(); i++) {
+            final int slot = i;
+            processor.execute(ingestDocuments.get(i), (result, e) -> handler.apply(slot, result, e));
+        }
+    }
+
     /**
      * Introspect and potentially modify the incoming data.
      *
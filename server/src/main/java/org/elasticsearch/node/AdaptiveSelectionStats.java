@@ -8,6 +8,7 @@
 
 package org.elasticsearch.node;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -25,31 +26,62 @@ import java.util.stream.Collectors;
 
 /**
  * Class representing statistics about adaptive replica selection. This includes
- * EWMA of queue size, service time, and response time, as well as outgoing
- * searches to each node and the "rank" based on the ARS formula.
+ * EWMA of queue size, service time, and response time, percentiles of the
+ * response time, as well as outgoing searches to each node and the "rank" based
+ * on the ARS formula. It also includes how many shard requests were hedged.
  */
 public class AdaptiveSelectionStats implements Writeable, ToXContentFragment {
 
     private final Map<String, Long> clientOutgoingConnections;
     private final Map<String, ResponseCollectorService.ComputedNodeStats> nodeComputedStats;
+    private final long hedgeableRequests;
+    private final long hedgedRequests;
+    private final long hedgeWins;
 
     public AdaptiveSelectionStats(
         Map<String, Long> clientConnections,
         Map<String, ResponseCollectorService.ComputedNodeStats> nodeComputedStats
+    ) {
+        this(clientConnections, nodeComputedStats, 0L, 0L, 0L);
+    }
+
+    public AdaptiveSelectionStats(
+        Map<String, Long> clientConnections,
+        Map<String, ResponseCollectorService.ComputedNodeStats> nodeComputedStats,
+        long hedgeableRequests,
+        long hedgedRequests,
+        long hedgeWins
     ) {
         this.clientOutgoingConnections = clientConnections;
         this.nodeComputedStats = nodeComputedStats;
+        this.hedgeableRequests = hedgeableRequests;
+        this.hedgedRequests = hedgedRequests;
+        this.hedgeWins = hedgeWins;
     }
 
     public AdaptiveSelectionStats(StreamInput in) throws IOException {
         this.clientOutgoingConnections = in.readMap(StreamInput::readString, StreamInput::readLong);
         this.nodeComputedStats = in.readMap(StreamInput::readString, ResponseCollectorService.ComputedNodeStats::new);
+        if (in.getVersion().onOrAfter(Version.V_8_2_0)) {
+            this.hedgeableRequests = in.readVLong();
+            this.hedgedRequests = in.readVLong();
+            this.hedgeWins = in.readVLong();
+        } else {
+            this.hedgeableRequests = 0L;
+            this.hedgedRequests = 0L;
+            this.hedgeWins = 0L;
+        }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeMap(this.clientOutgoingConnections, StreamOutput::writeString, StreamOutput::writeLong);
         out.writeMap(this.nodeComputedStats, StreamOutput::writeString, (stream, stats) -> stats.writeTo(stream));
+        if (out.getVersion().onOrAfter(Version.V_8_2_0)) {
+            out.writeVLong(hedgeableRequests);
+            out.writeVLong(hedgedRequests);
+            out.writeVLong(hedgeWins);
+        }
     }
 
     @Override
@@ -71,11 +103,23 @@ public class AdaptiveSelectionStats implements Writeable, ToXContentFragment {
                     builder.field("avg_response_time", new TimeValue((long) stats.responseTime, TimeUnit.NANOSECONDS).toString());
                 }
                 builder.field("avg_response_time_ns", (long) stats.responseTime);
+                if (stats.p50ResponseTime >= 0) {
+                    builder.field("p50_response_time_ns", (long) stats.p50ResponseTime);
+                    builder.field("p99_response_time_ns", (long) stats.p99ResponseTime);
+                }
                 builder.field("rank", String.format(Locale.ROOT, "%.1f", stats.rank(outgoingSearches)));
+                builder.field("tail_aware_rank", String.format(Locale.ROOT, "%.1f", stats.tailAwareRank(outgoingSearches)));
             }
             builder.endObject();
         }
         builder.endObject();
+        builder.startObject("search_hedging");
+        builder.field("hedgeable_requests", hedgeableRequests);
+        builder.field("hedged_requests", hedgedRequests);
+        builder.field("hedge_wins", hedgeWins);
+        builder.field("hedge_rate", hedgeableRequests == 0 ? 0.0 : (double) hedgedRequests / hedgeableRequests);
+        builder.field("hedge_win_rate", hedgedRequests == 0 ? 0.0 : (double) hedgeWins / hedgedRequests);
+        builder.endObject();
         return builder;
     }
 
@@ -93,6 +137,27 @@ public class AdaptiveSelectionStats implements Writeable, ToXContentFragment {
         return nodeComputedStats;
     }
 
+    /**
+     * Returns the number of shard requests that were sent with a timer to hedge them
+     */
+    public long getHedgeableRequests() {
+        return hedgeableRequests;
+    }
+
+    /**
+     * Returns the number of shard requests that were hedged, i.e. also sent to another copy of the shard
+     */
+    public long getHedgedRequests() {
+        return hedgedRequests;
+    }
+
+    /**
+     * Returns the number of hedged shard requests for which the other copy of the shard responded first
+     */
+    public long getHedgeWins() {
+        return hedgeWins;
+    }
+
     /**
      * Returns a map of node id to the ranking of the nodes based on the adaptive replica formula
      */
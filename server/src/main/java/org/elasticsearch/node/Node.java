@@ -602,8 +602,12 @@ public class Node implements Closeable {
                 .flatMap(m -> m.entrySet().stream())
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
 
+            final SystemIndexManager systemIndexManager;
             if (DiscoveryNode.isMasterNode(settings)) {
-                clusterService.addListener(new SystemIndexManager(systemIndices, client));
+                systemIndexManager = new SystemIndexManager(systemIndices, client);
+                clusterService.addIndependentListener(systemIndexManager);
+            } else {
+                systemIndexManager = null;
             }
 
             final RerouteService rerouteService = new BatchedRerouteService(clusterService, clusterModule.getAllocationService()::reroute);
@@ -735,7 +739,11 @@ public class Node implements Closeable {
                 scriptService
             );
             if (DiscoveryNode.isMasterNode(settings)) {
-                clusterService.addListener(new SystemIndexMetadataUpgradeService(systemIndices, clusterService));
+                // keeps submitting its metadata updates after the mapping updates of the system index manager, as when they were ordered
+                clusterService.addIndependentListener(
+                    new SystemIndexMetadataUpgradeService(systemIndices, clusterService),
+                    systemIndexManager
+                );
             }
             new TemplateUpgradeService(client, clusterService, threadPool, indexTemplateMetadataUpgraders);
             final Transport transport = networkModule.getTransportSupplier().get();
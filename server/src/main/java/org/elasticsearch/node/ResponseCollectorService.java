@@ -8,6 +8,7 @@
 
 package org.elasticsearch.node;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.cluster.ClusterChangedEvent;
 import org.elasticsearch.cluster.ClusterStateListener;
 import org.elasticsearch.cluster.node.DiscoveryNode;
@@ -16,8 +17,13 @@ import org.elasticsearch.common.ExponentiallyWeightedMovingAverage;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.util.Maps;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.TimeValue;
 
 import java.io.IOException;
 import java.util.Locale;
@@ -28,7 +34,9 @@ import java.util.concurrent.ConcurrentMap;
 /**
  * Collects statistics about queue size, response time, and service time of
  * tasks executed on each node, making the EWMA of the values available to the
- * coordinating node.
+ * coordinating node. The recent response times of each node are also kept in
+ * a histogram, which makes their percentiles available for ranking nodes
+ * according to their tail latency and for hedging shard requests.
  */
 public final class ResponseCollectorService implements ClusterStateListener {
 
@@ -37,10 +45,73 @@ public final class ResponseCollectorService implements ClusterStateListener {
      */
     public static final double ALPHA = 0.3;
 
+    /**
+     * How nodes are ranked by adaptive replica selection.
+     */
+    public enum RankingMode {
+        /**
+         * Ranks nodes with the formula of the C3 paper, from the EWMA of their queue size, response time and service time.
+         */
+        EWMA,
+        /**
+         * Ranks nodes from the percentiles of their recent response times and the number of requests in flight to them, so that nodes
+         * with a long tail latency, for instance because of garbage collection pauses, are avoided.
+         */
+        LATENCY_HISTOGRAM
+    }
+
+    public static final Setting<RankingMode> RANKING_MODE_SETTING = Setting.enumSetting(
+        RankingMode.class,
+        "cluster.routing.adaptive_replica_selection.ranking",
+        RankingMode.EWMA,
+        Setting.Property.Dynamic,
+        Setting.Property.NodeScope
+    );
+
+    public static final Setting<Boolean> HEDGING_ENABLED_SETTING = Setting.boolSetting(
+        "cluster.routing.adaptive_replica_selection.hedging.enabled",
+        false,
+        Setting.Property.Dynamic,
+        Setting.Property.NodeScope
+    );
+
+    /**
+     * The percentile of the response times of a node after which a shard request to the node is hedged.
+     */
+    static final double HEDGING_PERCENTILE = 95.0;
+
+    /**
+     * The number of responses of a node that must be known before shard requests to the node are hedged.
+     */
+    static final int HEDGING_MIN_RESPONSES = 100;
+
     private final ConcurrentMap<String, NodeStatistics> nodeIdToStats = ConcurrentCollections.newConcurrentMap();
+    private final CounterMetric hedgeableRequests = new CounterMetric();
+    private final CounterMetric hedgedRequests = new CounterMetric();
+    private final CounterMetric hedgeWins = new CounterMetric();
+
+    private volatile RankingMode rankingMode;
+    private volatile boolean hedgingEnabled;
 
     public ResponseCollectorService(ClusterService clusterService) {
         clusterService.addListener(this);
+        final ClusterSettings clusterSettings = clusterService.getClusterSettings();
+        this.rankingMode = clusterSettings.get(RANKING_MODE_SETTING);
+        this.hedgingEnabled = clusterSettings.get(HEDGING_ENABLED_SETTING);
+        clusterSettings.addSettingsUpdateConsumer(RANKING_MODE_SETTING, this::setRankingMode);
+        clusterSettings.addSettingsUpdateConsumer(HEDGING_ENABLED_SETTING, this::setHedgingEnabled);
+    }
+
+    private void setRankingMode(RankingMode rankingMode) {
+        this.rankingMode = rankingMode;
+    }
+
+    private void setHedgingEnabled(boolean hedgingEnabled) {
+        this.hedgingEnabled = hedgingEnabled;
+    }
+
+    public RankingMode getRankingMode() {
+        return rankingMode;
     }
 
     @Override
@@ -61,16 +132,57 @@ public final class ResponseCollectorService implements ClusterStateListener {
             if (ns == null) {
                 ExponentiallyWeightedMovingAverage queueEWMA = new ExponentiallyWeightedMovingAverage(ALPHA, queueSize);
                 ExponentiallyWeightedMovingAverage responseEWMA = new ExponentiallyWeightedMovingAverage(ALPHA, responseTimeNanos);
-                return new NodeStatistics(nodeId, queueEWMA, responseEWMA, avgServiceTimeNanos);
+                final NodeStatistics stats = new NodeStatistics(nodeId, queueEWMA, responseEWMA, avgServiceTimeNanos);
+                stats.responseTimes.record(responseTimeNanos);
+                return stats;
             } else {
                 ns.queueSize.addValue((double) queueSize);
                 ns.responseTime.addValue((double) responseTimeNanos);
+                ns.responseTimes.record(responseTimeNanos);
                 ns.serviceTime = avgServiceTimeNanos;
                 return ns;
             }
         });
     }
 
+    /**
+     * Returns how long to wait for the response of a shard request sent to the given node before sending the request to another copy
+     * of the shard too, or {@code null} if the request should not be hedged, either because hedging is disabled or because too few
+     * responses of the node are known yet.
+     */
+    @Nullable
+    public TimeValue getHedgeDelay(String nodeId) {
+        if (hedgingEnabled == false) {
+            return null;
+        }
+        final NodeStatistics stats = nodeIdToStats.get(nodeId);
+        if (stats == null || stats.responseTimes.count() < HEDGING_MIN_RESPONSES) {
+            return null;
+        }
+        return TimeValue.timeValueNanos(stats.responseTimes.percentile(HEDGING_PERCENTILE));
+    }
+
+    /**
+     * Called when a shard request is sent along with a timer that hedges it after the {@link #getHedgeDelay hedge delay}.
+     */
+    public void onHedgeableRequest() {
+        hedgeableRequests.inc();
+    }
+
+    /**
+     * Called when a shard request is hedged, i.e. sent to another copy of the shard.
+     */
+    public void onHedgedRequest() {
+        hedgedRequests.inc();
+    }
+
+    /**
+     * Called when the hedged copy of a shard request responds before the original one.
+     */
+    public void onHedgeWon() {
+        hedgeWins.inc();
+    }
+
     public Map<String, ComputedNodeStats> getAllNodeStatistics() {
         final int clientNum = nodeIdToStats.size();
         // Transform the mutable object internally used for accounting into the computed version
@@ -80,7 +192,13 @@ public final class ResponseCollectorService implements ClusterStateListener {
     }
 
     public AdaptiveSelectionStats getAdaptiveStats(Map<String, Long> clientSearchConnections) {
-        return new AdaptiveSelectionStats(clientSearchConnections, getAllNodeStatistics());
+        return new AdaptiveSelectionStats(
+            clientSearchConnections,
+            getAllNodeStatistics(),
+            hedgeableRequests.count(),
+            hedgedRequests.count(),
+            hedgeWins.count()
+        );
     }
 
     /**
@@ -96,13 +214,15 @@ public final class ResponseCollectorService implements ClusterStateListener {
     /**
      * Struct-like class encapsulating a point-in-time snapshot of a particular
      * node's statistics. This includes the EWMA of queue size, response time,
-     * and service time.
+     * and service time, as well as percentiles of the recent response times.
      */
     public static class ComputedNodeStats implements Writeable {
         // We store timestamps with nanosecond precision, however, the
         // formula specifies milliseconds, therefore we need to convert
         // the values so the times don't unduely weight the formula
         private final double FACTOR = 1000000.0;
+        // how much the tail of the response times weighs in the tail-aware rank
+        private static final double TAIL_WEIGHT = 0.5;
         private final int clientNum;
 
         private double cachedRank = 0;
@@ -111,13 +231,30 @@ public final class ResponseCollectorService implements ClusterStateListener {
         public final int queueSize;
         public final double responseTime;
         public final double serviceTime;
+        // percentiles of the recent response times, or -1 if unknown
+        public final double p50ResponseTime;
+        public final double p99ResponseTime;
 
         public ComputedNodeStats(String nodeId, int clientNum, int queueSize, double responseTime, double serviceTime) {
+            this(nodeId, clientNum, queueSize, responseTime, serviceTime, -1, -1);
+        }
+
+        public ComputedNodeStats(
+            String nodeId,
+            int clientNum,
+            int queueSize,
+            double responseTime,
+            double serviceTime,
+            double p50ResponseTime,
+            double p99ResponseTime
+        ) {
             this.nodeId = nodeId;
             this.clientNum = clientNum;
             this.queueSize = queueSize;
             this.responseTime = responseTime;
             this.serviceTime = serviceTime;
+            this.p50ResponseTime = p50ResponseTime;
+            this.p99ResponseTime = p99ResponseTime;
         }
 
         ComputedNodeStats(int clientNum, NodeStatistics nodeStats) {
@@ -126,7 +263,9 @@ public final class ResponseCollectorService implements ClusterStateListener {
                 clientNum,
                 (int) nodeStats.queueSize.getAverage(),
                 nodeStats.responseTime.getAverage(),
-                nodeStats.serviceTime
+                nodeStats.serviceTime,
+                nodeStats.responseTimes.percentile(50),
+                nodeStats.responseTimes.percentile(99)
             );
         }
 
@@ -136,6 +275,13 @@ public final class ResponseCollectorService implements ClusterStateListener {
             this.queueSize = in.readInt();
             this.responseTime = in.readDouble();
             this.serviceTime = in.readDouble();
+            if (in.getVersion().onOrAfter(Version.V_8_2_0)) {
+                this.p50ResponseTime = in.readDouble();
+                this.p99ResponseTime = in.readDouble();
+            } else {
+                this.p50ResponseTime = -1;
+                this.p99ResponseTime = -1;
+            }
         }
 
         @Override
@@ -145,6 +291,10 @@ public final class ResponseCollectorService implements ClusterStateListener {
             out.writeInt(this.queueSize);
             out.writeDouble(this.responseTime);
             out.writeDouble(this.serviceTime);
+            if (out.getVersion().onOrAfter(Version.V_8_2_0)) {
+                out.writeDouble(this.p50ResponseTime);
+                out.writeDouble(this.p99ResponseTime);
+            }
         }
 
         /**
@@ -182,6 +332,29 @@ public final class ResponseCollectorService implements ClusterStateListener {
             return cachedRank;
         }
 
+        /**
+         * Rank this copy of the data according to its tail latency: the expected response time lies between the median and the 99th
+         * percentile of the recent response times, and every request already in flight to the node has to be served first. Unlike
+         * the EWMA of the response time, the 99th percentile does not forget about the occasional slow responses of a node, for
+         * instance because of garbage collection pauses. Falls back to the EWMA of the response time if no percentiles are known.
+         */
+        public double tailAwareRank(long outstandingRequests) {
+            final double p50 = p50ResponseTime >= 0 ? p50ResponseTime : responseTime;
+            final double p99 = p99ResponseTime >= 0 ? p99ResponseTime : responseTime;
+            final double expectedResponseTime = (p50 + TAIL_WEIGHT * (p99 - p50)) / FACTOR;
+            return expectedResponseTime * (1 + outstandingRequests);
+        }
+
+        /**
+         * Ranks this copy of the data according to the given mode.
+         */
+        public double rank(RankingMode rankingMode, long outstandingRequests) {
+            return switch (rankingMode) {
+                case EWMA -> rank(outstandingRequests);
+                case LATENCY_HISTOGRAM -> tailAwareRank(outstandingRequests);
+            };
+        }
+
         @Override
         public String toString() {
             StringBuilder sb = new StringBuilder("ComputedNodeStats[");
@@ -190,6 +363,8 @@ public final class ResponseCollectorService implements ClusterStateListener {
             sb.append(", queue: ").append(queueSize);
             sb.append(", response time: ").append(String.format(Locale.ROOT, "%.1f", responseTime));
             sb.append(", service time: ").append(String.format(Locale.ROOT, "%.1f", serviceTime));
+            sb.append(", p50 response time: ").append(String.format(Locale.ROOT, "%.1f", p50ResponseTime));
+            sb.append(", p99 response time: ").append(String.format(Locale.ROOT, "%.1f", p99ResponseTime));
             sb.append(", rank: ").append(String.format(Locale.ROOT, "%.1f", rank(1)));
             sb.append(")");
             return sb.toString();
@@ -198,13 +373,15 @@ public final class ResponseCollectorService implements ClusterStateListener {
 
     /**
      * Class encapsulating a node's exponentially weighted queue size, response
-     * time, and service time, however, this class is private and intended only
-     * to be used for the internal accounting of {@code ResponseCollectorService}.
+     * time, and service time, and the histogram of its recent response times,
+     * however, this class is private and intended only to be used for the
+     * internal accounting of {@code ResponseCollectorService}.
      */
     private static class NodeStatistics {
         final String nodeId;
         final ExponentiallyWeightedMovingAverage queueSize;
         final ExponentiallyWeightedMovingAverage responseTime;
+        final ResponseTimeHistogram responseTimes = new ResponseTimeHistogram();
         double serviceTime;
 
         NodeStatistics(
@@ -0,0 +1,102 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.node;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of the recent response times of a node, used to estimate the percentiles of the response times. Response times are
+ * bucketed with a relative precision of 25%, starting at one microsecond. Only the most recent responses are accounted for: the
+ * histogram is made of two generations of {@link #GENERATION_SIZE} responses each, and the oldest generation is dropped once the newest
+ * one is full, so that the percentiles follow changes in the behaviour of the node.
+ */
+final class ResponseTimeHistogram {
+
+    static final int GENERATION_SIZE = 1000;
+
+    // each power of two is split into this many buckets
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // response times below 2^10 nanoseconds go to the first bucket
+    private static final int MIN_EXPONENT = 10;
+    // response times above 2^45 nanoseconds (about 10 hours) go to the last bucket
+    private static final int MAX_EXPONENT = 45;
+    private static final int BUCKETS = (MAX_EXPONENT - MIN_EXPONENT + 1) * SUB_BUCKETS + 1;
+
+    private long[] current = new long[BUCKETS];
+    private long[] previous = new long[BUCKETS];
+    private int currentCount;
+    private int previousCount;
+
+    synchronized void record(long responseTimeNanos) {
+        if (currentCount == GENERATION_SIZE) {
+            final long[] recycled = previous;
+            Arrays.fill(recycled, 0L);
+            previous = current;
+            previousCount = currentCount;
+            current = recycled;
+            currentCount = 0;
+        }
+        current[bucket(responseTimeNanos)]++;
+        currentCount++;
+    }
+
+    /**
+     * @return the number of responses that the percentiles are computed from
+     */
+    synchronized int count() {
+        return currentCount + previousCount;
+    }
+
+    /**
+     * @param percentile the percentile, between {@code 0} and {@code 100}
+     * @return the estimated response time at the given percentile in nanoseconds, or {@code -1} if no response was recorded
+     */
+    synchronized long percentile(double percentile) {
+        assert percentile >= 0 && percentile <= 100 : percentile;
+        final int count = count();
+        if (count == 0) {
+            return -1L;
+        }
+        final long rank = Math.max(1L, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += current[i] + previous[i];
+            if (seen >= rank) {
+                return value(i);
+            }
+        }
+        throw new AssertionError("rank [" + rank + "] is greater than the count [" + count + "]");
+    }
+
+    static int bucket(long nanos) {
+        if (nanos < (1L << MIN_EXPONENT)) {
+            return 0;
+        }
+        final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        final int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - MIN_EXPONENT) * SUB_BUCKETS + subBucket + 1;
+    }
+
+    /**
+     * @return the middle of the range of response times of the given bucket
+     */
+    static long value(int bucket) {
+        if (bucket == 0) {
+            return (1L << MIN_EXPONENT) / 2;
+        }
+        final int exponent = (bucket - 1) / SUB_BUCKETS + MIN_EXPONENT;
+        final int subBucket = (bucket - 1) % SUB_BUCKETS;
+        final long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (SUB_BUCKETS + subBucket) * width + width / 2;
+    }
+}
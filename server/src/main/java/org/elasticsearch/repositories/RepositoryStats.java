@@ -8,28 +8,49 @@
 
 package org.elasticsearch.repositories;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.xcontent.ToXContentObject;
+import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 public class RepositoryStats implements Writeable {
 
     public static final RepositoryStats EMPTY_STATS = new RepositoryStats(Collections.emptyMap());
 
     public final Map<String, Long> requestCounts;
+    public final PartTransferStats partUploads;
+    public final PartTransferStats partDownloads;
 
     public RepositoryStats(Map<String, Long> requestCounts) {
+        this(requestCounts, PartTransferStats.EMPTY, PartTransferStats.EMPTY);
+    }
+
+    public RepositoryStats(Map<String, Long> requestCounts, PartTransferStats partUploads, PartTransferStats partDownloads) {
         this.requestCounts = Collections.unmodifiableMap(requestCounts);
+        this.partUploads = Objects.requireNonNull(partUploads);
+        this.partDownloads = Objects.requireNonNull(partDownloads);
     }
 
     public RepositoryStats(StreamInput in) throws IOException {
         this.requestCounts = in.readMap(StreamInput::readString, StreamInput::readLong);
+        if (in.getVersion().onOrAfter(Version.V_8_2_0)) {
+            this.partUploads = new PartTransferStats(in);
+            this.partDownloads = new PartTransferStats(in);
+        } else {
+            this.partUploads = PartTransferStats.EMPTY;
+            this.partDownloads = PartTransferStats.EMPTY;
+        }
     }
 
     public RepositoryStats merge(RepositoryStats otherStats) {
@@ -38,12 +59,16 @@ public class RepositoryStats implements Writeable {
         for (Map.Entry<String, Long> entry : otherStats.requestCounts.entrySet()) {
             result.merge(entry.getKey(), entry.getValue(), Math::addExact);
         }
-        return new RepositoryStats(result);
+        return new RepositoryStats(result, partUploads.merge(otherStats.partUploads), partDownloads.merge(otherStats.partDownloads));
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeMap(requestCounts, StreamOutput::writeString, StreamOutput::writeLong);
+        if (out.getVersion().onOrAfter(Version.V_8_2_0)) {
+            partUploads.writeTo(out);
+            partDownloads.writeTo(out);
+        }
     }
 
     @Override
@@ -51,16 +76,116 @@ public class RepositoryStats implements Writeable {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         RepositoryStats that = (RepositoryStats) o;
-        return requestCounts.equals(that.requestCounts);
+        return requestCounts.equals(that.requestCounts)
+            && partUploads.equals(that.partUploads)
+            && partDownloads.equals(that.partDownloads);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(requestCounts);
+        return Objects.hash(requestCounts, partUploads, partDownloads);
     }
 
     @Override
     public String toString() {
-        return "RepositoryStats{" + "requestCounts=" + requestCounts + '}';
+        return "RepositoryStats{"
+            + "requestCounts="
+            + requestCounts
+            + ", partUploads="
+            + partUploads
+            + ", partDownloads="
+            + partDownloads
+            + '}';
+    }
+
+    /**
+     * Statistics about the transfers of the parts that the files of shard snapshots are split into.
+     */
+    public static class PartTransferStats implements Writeable, ToXContentObject {
+
+        public static final PartTransferStats EMPTY = new PartTransferStats(0L, 0L, 0L);
+
+        private final long count;
+        private final long sizeInBytes;
+        private final long timeInNanos;
+
+        public PartTransferStats(long count, long sizeInBytes, long timeInNanos) {
+            this.count = count;
+            this.sizeInBytes = sizeInBytes;
+            this.timeInNanos = timeInNanos;
+        }
+
+        public PartTransferStats(StreamInput in) throws IOException {
+            this.count = in.readVLong();
+            this.sizeInBytes = in.readVLong();
+            this.timeInNanos = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(count);
+            out.writeVLong(sizeInBytes);
+            out.writeVLong(timeInNanos);
+        }
+
+        public PartTransferStats merge(PartTransferStats other) {
+            return new PartTransferStats(
+                Math.addExact(count, other.count),
+                Math.addExact(sizeInBytes, other.sizeInBytes),
+                Math.addExact(timeInNanos, other.timeInNanos)
+            );
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSizeInBytes() {
+            return sizeInBytes;
+        }
+
+        public long getTimeInNanos() {
+            return timeInNanos;
+        }
+
+        /**
+         * @return the throughput that a single part transfer achieved on average, in bytes per second
+         */
+        public long getThroughputPerPartInBytesPerSec() {
+            return timeInNanos == 0L ? 0L : (long) (sizeInBytes * (double) TimeUnit.SECONDS.toNanos(1L) / timeInNanos);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field("count", count);
+            builder.humanReadableField("size_in_bytes", "size", ByteSizeValue.ofBytes(sizeInBytes));
+            builder.humanReadableField("time_in_millis", "time", TimeValue.timeValueNanos(timeInNanos));
+            builder.humanReadableField(
+                "throughput_per_part_in_bytes_per_sec",
+                "throughput_per_part_per_sec",
+                ByteSizeValue.ofBytes(getThroughputPerPartInBytesPerSec())
+            );
+            builder.endObject();
+            return builder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            PartTransferStats that = (PartTransferStats) o;
+            return count == that.count && sizeInBytes == that.sizeInBytes && timeInNanos == that.timeInNanos;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(count, sizeInBytes, timeInNanos);
+        }
+
+        @Override
+        public String toString() {
+            return "PartTransferStats{" + "count=" + count + ", sizeInBytes=" + sizeInBytes + ", timeInNanos=" + timeInNanos + '}';
+        }
     }
 }
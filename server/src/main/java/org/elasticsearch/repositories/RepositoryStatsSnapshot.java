@@ -69,6 +69,8 @@ public final class RepositoryStatsSnapshot implements Writeable, ToXContentObjec
         builder.startObject();
         repositoryInfo.toXContent(builder, params);
         builder.field("request_counts", repositoryStats.requestCounts);
+        builder.field("part_uploads", repositoryStats.partUploads);
+        builder.field("part_downloads", repositoryStats.partDownloads);
         builder.field("archived", archived);
         if (archived) {
             builder.field("cluster_version", clusterVersion);
@@ -21,6 +21,7 @@ import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.store.RateLimiter;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefIterator;
 import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
@@ -45,6 +46,7 @@ import org.elasticsearch.cluster.metadata.RepositoryMetadata;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.routing.allocation.AllocationService;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.ExponentiallyWeightedMovingAverage;
 import org.elasticsearch.common.Numbers;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.UUIDs;
@@ -56,6 +58,7 @@ import org.elasticsearch.common.blobstore.DeleteResult;
 import org.elasticsearch.common.blobstore.fs.FsBlobContainer;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.compress.NotXContentException;
 import org.elasticsearch.common.io.Streams;
@@ -70,6 +73,7 @@ import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.FutureUtils;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
 import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
 import org.elasticsearch.core.CheckedConsumer;
 import org.elasticsearch.core.Nullable;
@@ -82,7 +86,6 @@ import org.elasticsearch.index.snapshots.IndexShardSnapshotStatus;
 import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
 import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshots;
 import org.elasticsearch.index.snapshots.blobstore.RateLimitingInputStream;
-import org.elasticsearch.index.snapshots.blobstore.SlicedInputStream;
 import org.elasticsearch.index.snapshots.blobstore.SnapshotFiles;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetadata;
@@ -140,6 +143,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
@@ -253,10 +257,23 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
      */
     public static final Setting<Boolean> USE_FOR_PEER_RECOVERY_SETTING = Setting.boolSetting("use_for_peer_recovery", false);
 
+    /**
+     * Setting that makes the repository store new files of shard snapshots as content defined chunks, which are named after their contents
+     * so that the chunks a file shares with the files already in the shard's folder in the repository are not uploaded again. Only takes
+     * effect once all nodes that access the repository support it.
+     */
+    public static final Setting<Boolean> CONTENT_DEFINED_CHUNKING_SETTING = Setting.boolSetting(
+        "content_defined_chunking",
+        false,
+        Setting.Property.NodeScope
+    );
+
     protected final boolean supportURLRepo;
 
     private final boolean compress;
 
+    private final boolean contentDefinedChunking;
+
     private final boolean cacheRepositoryData;
 
     private volatile RateLimiter snapshotRateLimiter;
@@ -267,6 +284,34 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
     private final CounterMetric restoreRateLimitingTimeInNanos = new CounterMetric();
 
+    /**
+     * When parallel part transfers are enabled with {@link RecoverySettings#INDICES_RECOVERY_MAX_IN_FLIGHT_SNAPSHOT_PART_BYTES_SETTING},
+     * files that are at least twice as large as this are split into parts of at least this size.
+     */
+    static final long MIN_PARALLEL_PART_SIZE_IN_BYTES = ByteSizeUnit.MB.toBytes(16);
+
+    // size of the parts of large files until the throughput of part uploads has been observed
+    static final long DEFAULT_PARALLEL_PART_SIZE_IN_BYTES = ByteSizeUnit.MB.toBytes(64);
+
+    // the parts of large files are sized so that uploading one of them takes about this long at the observed throughput
+    private static final long TARGET_PART_UPLOAD_TIME_IN_SECONDS = 10L;
+
+    // sizes of content defined chunks, small enough for most of the unchanged bytes of a file to be found in chunks that are in the
+    // repository already and large enough to keep the number of blobs per file and the number of requests to upload them low
+    static final long MIN_CONTENT_DEFINED_CHUNK_SIZE_IN_BYTES = ByteSizeUnit.MB.toBytes(1);
+    static final long AVERAGE_CONTENT_DEFINED_CHUNK_SIZE_IN_BYTES = ByteSizeUnit.MB.toBytes(4);
+    static final long MAX_CONTENT_DEFINED_CHUNK_SIZE_IN_BYTES = ByteSizeUnit.MB.toBytes(16);
+
+    private final PartTransferMetrics partUploads = new PartTransferMetrics();
+
+    private final PartTransferMetrics partDownloads = new PartTransferMetrics();
+
+    // throughput of the uploads of parts in bytes per second, which starts out at the throughput that yields the default part size
+    private final ExponentiallyWeightedMovingAverage partUploadThroughput = new ExponentiallyWeightedMovingAverage(
+        0.3,
+        (double) DEFAULT_PARALLEL_PART_SIZE_IN_BYTES / TARGET_PART_UPLOAD_TIME_IN_SECONDS
+    );
+
     public static final ChecksumBlobStoreFormat<Metadata> GLOBAL_METADATA_FORMAT = new ChecksumBlobStoreFormat<>(
         "metadata",
         METADATA_NAME_FORMAT,
@@ -394,6 +439,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         this.bigArrays = bigArrays;
         this.recoverySettings = recoverySettings;
         this.compress = COMPRESS_SETTING.get(metadata.settings());
+        this.contentDefinedChunking = CONTENT_DEFINED_CHUNKING_SETTING.get(metadata.settings());
         this.supportURLRepo = SUPPORT_URL_REPO.get(metadata.settings());
         snapshotRateLimiter = getRateLimiter(metadata.settings(), MAX_SNAPSHOT_BYTES_PER_SEC);
         restoreRateLimiter = getRateLimiter(metadata.settings(), MAX_RESTORE_BYTES_PER_SEC);
@@ -794,7 +840,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         if (store == null) {
             return RepositoryStats.EMPTY_STATS;
         }
-        return new RepositoryStats(store.stats());
+        return new RepositoryStats(store.stats(), partUploads.stats(), partDownloads.stats());
     }
 
     @Override
@@ -2678,6 +2724,12 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             long indexIncrementalSize = 0;
             long indexTotalFileSize = 0;
             final BlockingQueue<BlobStoreIndexShardSnapshot.FileInfo> filesToSnapshot = new LinkedBlockingQueue<>();
+            final ShardFileChunking chunking = new ShardFileChunking(
+                contentDefinedChunking && SnapshotsService.useContentDefinedChunks(context.getRepositoryMetaVersion())
+                    ? contentDefinedChunker()
+                    : null,
+                snapshots
+            );
 
             if (store.indexSettings().getIndexMetadata().isSearchableSnapshot()) {
                 indexCommitPointFiles = Collections.emptyList();
@@ -2728,11 +2780,17 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                         indexIncrementalFileCount++;
                         indexIncrementalSize += md.length();
                         // create a new FileInfo
-                        BlobStoreIndexShardSnapshot.FileInfo snapshotFileInfo = new BlobStoreIndexShardSnapshot.FileInfo(
-                            (needsWrite ? UPLOADED_DATA_BLOB_PREFIX : VIRTUAL_DATA_BLOB_PREFIX) + UUIDs.randomBase64UUID(),
+                        final String blobName = (needsWrite ? UPLOADED_DATA_BLOB_PREFIX : VIRTUAL_DATA_BLOB_PREFIX)
+                            + UUIDs.randomBase64UUID();
+                        final BlobStoreIndexShardSnapshot.FileInfo snapshotFileInfo = new BlobStoreIndexShardSnapshot.FileInfo(
+                            blobName,
                             md,
-                            chunkSize()
+                            partSize(md.length())
                         );
+                        if (needsWrite && chunking.shouldChunk(md)) {
+                            // split into chunks by the worker that uploads the file, until then the file info stands in for it
+                            chunking.addFileToChunk(blobName);
+                        }
                         indexCommitPointFiles.add(snapshotFileInfo);
                         if (needsWrite) {
                             filesToSnapshot.add(snapshotFileInfo);
@@ -2761,43 +2819,40 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             final ShardGeneration indexGeneration;
             final boolean writeShardGens = SnapshotsService.useShardGenerations(context.getRepositoryMetaVersion());
             final boolean writeFileInfoWriterUUID = SnapshotsService.includeFileInfoWriterUUID(context.getRepositoryMetaVersion());
-            // build a new BlobStoreIndexShardSnapshot, that includes this one and all the saved ones
-            List<SnapshotFiles> newSnapshotsList = new ArrayList<>();
-            newSnapshotsList.add(new SnapshotFiles(snapshotId.getName(), indexCommitPointFiles, context.stateIdentifier()));
-            for (SnapshotFiles point : snapshots) {
-                newSnapshotsList.add(point);
-            }
-            final BlobStoreIndexShardSnapshots updatedBlobStoreIndexShardSnapshots = new BlobStoreIndexShardSnapshots(newSnapshotsList);
-            final Runnable afterWriteSnapBlob;
+            final Consumer<BlobStoreIndexShardSnapshots> beforeWriteSnapBlob;
+            final Consumer<BlobStoreIndexShardSnapshots> afterWriteSnapBlob;
             if (writeShardGens) {
-                // When using shard generations we can safely write the index-${uuid} blob before writing out any of the actual data
-                // for this shard since the uuid named blob will simply not be referenced in case of error and thus we will never
-                // reference a generation that has not had all its files fully upload.
+                // When using shard generations we can safely write the index-${uuid} blob before the commit point since the uuid named
+                // blob will simply not be referenced in case of error and thus we will never reference a generation that has not had all
+                // its files fully upload. It is written once the files are uploaded, since the files that are stored as content defined
+                // chunks are only split into chunks right before their upload.
                 indexGeneration = ShardGeneration.newGeneration();
-                try {
-                    final Map<String, String> serializationParams = Collections.singletonMap(
-                        BlobStoreIndexShardSnapshot.FileInfo.SERIALIZE_WRITER_UUID,
-                        Boolean.toString(writeFileInfoWriterUUID)
-                    );
-                    INDEX_SHARD_SNAPSHOTS_FORMAT.write(
-                        updatedBlobStoreIndexShardSnapshots,
-                        shardContainer,
-                        indexGeneration.toBlobNamePart(),
-                        compress,
-                        serializationParams
-                    );
-                } catch (IOException e) {
-                    throw new IndexShardSnapshotFailedException(
-                        shardId,
-                        "Failed to write shard level snapshot metadata for ["
-                            + snapshotId
-                            + "] to ["
-                            + INDEX_SHARD_SNAPSHOTS_FORMAT.blobName(indexGeneration.toBlobNamePart())
-                            + "]",
-                        e
-                    );
-                }
-                afterWriteSnapBlob = () -> {};
+                beforeWriteSnapBlob = updatedBlobStoreIndexShardSnapshots -> {
+                    try {
+                        final Map<String, String> serializationParams = Collections.singletonMap(
+                            BlobStoreIndexShardSnapshot.FileInfo.SERIALIZE_WRITER_UUID,
+                            Boolean.toString(writeFileInfoWriterUUID)
+                        );
+                        INDEX_SHARD_SNAPSHOTS_FORMAT.write(
+                            updatedBlobStoreIndexShardSnapshots,
+                            shardContainer,
+                            indexGeneration.toBlobNamePart(),
+                            compress,
+                            serializationParams
+                        );
+                    } catch (IOException e) {
+                        throw new IndexShardSnapshotFailedException(
+                            shardId,
+                            "Failed to write shard level snapshot metadata for ["
+                                + snapshotId
+                                + "] to ["
+                                + INDEX_SHARD_SNAPSHOTS_FORMAT.blobName(indexGeneration.toBlobNamePart())
+                                + "]",
+                            e
+                        );
+                    }
+                };
+                afterWriteSnapBlob = updatedBlobStoreIndexShardSnapshots -> {};
             } else {
                 // When not using shard generations we can only write the index-${N} blob after all other work for this shard has
                 // completed.
@@ -2816,7 +2871,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                         + indexGeneration
                         + "] when deleting index-N blobs "
                         + blobsToDelete;
-                afterWriteSnapBlob = () -> {
+                beforeWriteSnapBlob = updatedBlobStoreIndexShardSnapshots -> {};
+                afterWriteSnapBlob = updatedBlobStoreIndexShardSnapshots -> {
                     try {
                         final Map<String, String> serializationParams = Collections.singletonMap(
                             BlobStoreIndexShardSnapshot.FileInfo.SERIALIZE_WRITER_UUID,
@@ -2851,6 +2907,16 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
             final StepListener<Collection<Void>> allFilesUploadedListener = new StepListener<>();
             allFilesUploadedListener.whenComplete(v -> {
+                final List<BlobStoreIndexShardSnapshot.FileInfo> snapshotFiles = chunking.resolve(indexCommitPointFiles);
+                // build a new BlobStoreIndexShardSnapshot, that includes this one and all the saved ones
+                List<SnapshotFiles> newSnapshotsList = new ArrayList<>();
+                newSnapshotsList.add(new SnapshotFiles(snapshotId.getName(), snapshotFiles, context.stateIdentifier()));
+                for (SnapshotFiles point : snapshots) {
+                    newSnapshotsList.add(point);
+                }
+                final BlobStoreIndexShardSnapshots updatedBlobStoreIndexShardSnapshots = new BlobStoreIndexShardSnapshots(newSnapshotsList);
+                beforeWriteSnapBlob.accept(updatedBlobStoreIndexShardSnapshots);
+
                 final IndexShardSnapshotStatus.Copy lastSnapshotStatus = snapshotStatus.moveToFinalize(snapshotIndexCommit.getGeneration());
 
                 // now create and write the commit point
@@ -2858,7 +2924,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                 final BlobStoreIndexShardSnapshot blobStoreIndexShardSnapshot = new BlobStoreIndexShardSnapshot(
                     snapshotId.getName(),
                     lastSnapshotStatus.getIndexVersion(),
-                    indexCommitPointFiles,
+                    snapshotFiles,
                     lastSnapshotStatus.getStartTime(),
                     threadPool.absoluteTimeInMillis() - lastSnapshotStatus.getStartTime(),
                     lastSnapshotStatus.getIncrementalFileCount(),
@@ -2880,7 +2946,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                 } catch (IOException e) {
                     throw new IndexShardSnapshotFailedException(shardId, "Failed to write commit point", e);
                 }
-                afterWriteSnapBlob.run();
+                afterWriteSnapBlob.accept(updatedBlobStoreIndexShardSnapshots);
                 final ShardSnapshotResult shardSnapshotResult = new ShardSnapshotResult(
                     indexGeneration,
                     ByteSizeValue.ofBytes(blobStoreIndexShardSnapshot.totalSize()),
@@ -2898,7 +2964,16 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             final int workers = Math.min(threadPool.info(ThreadPool.Names.SNAPSHOT).getMax(), indexIncrementalFileCount);
             final ActionListener<Void> filesListener = fileQueueListener(filesToSnapshot, workers, allFilesUploadedListener);
             for (int i = 0; i < workers; ++i) {
-                executeOneFileSnapshot(store, snapshotId, context.indexId(), snapshotStatus, filesToSnapshot, executor, filesListener);
+                executeOneFileSnapshot(
+                    store,
+                    snapshotId,
+                    context.indexId(),
+                    snapshotStatus,
+                    filesToSnapshot,
+                    chunking,
+                    executor,
+                    filesListener
+                );
             }
         } catch (Exception e) {
             context.onFailure(e);
@@ -2911,6 +2986,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         IndexId indexId,
         IndexShardSnapshotStatus snapshotStatus,
         BlockingQueue<BlobStoreIndexShardSnapshot.FileInfo> filesToSnapshot,
+        ShardFileChunking chunking,
         Executor executor,
         ActionListener<Void> listener
     ) throws InterruptedException {
@@ -2921,8 +2997,9 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         } else {
             executor.execute(ActionRunnable.wrap(listener, l -> {
                 try (Releasable ignored = incrementStoreRef(store, snapshotStatus, shardId)) {
-                    snapshotFile(snapshotFileInfo, indexId, shardId, snapshotId, snapshotStatus, store);
-                    executeOneFileSnapshot(store, snapshotId, indexId, snapshotStatus, filesToSnapshot, executor, l);
+                    final BlobStoreIndexShardSnapshot.FileInfo fileInfo = chunking.chunk(snapshotFileInfo, store, snapshotStatus);
+                    snapshotFile(fileInfo, indexId, shardId, snapshotId, snapshotStatus, store, chunking.chunksToUpload);
+                    executeOneFileSnapshot(store, snapshotId, indexId, snapshotStatus, filesToSnapshot, chunking, executor, l);
                 }
             }));
         }
@@ -2940,6 +3017,98 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         return store::decRef;
     }
 
+    private static List<BlobStoreIndexShardSnapshot.Chunk> splitIntoChunks(
+        ContentDefinedChunker chunker,
+        Store store,
+        IndexShardSnapshotStatus snapshotStatus,
+        StoreFileMetadata md
+    ) {
+        final ShardId shardId = store.shardId();
+        try (
+            Releasable ignored = incrementStoreRef(store, snapshotStatus, shardId);
+            IndexInput indexInput = store.directory().openInput(md.name(), IOContext.READONCE)
+        ) {
+            return chunker.chunk(indexInput, () -> {
+                if (snapshotStatus.isAborted()) {
+                    logger.debug("[{}] Aborted while splitting the file [{}] into chunks, exiting", shardId, md.name());
+                    throw new AbortedSnapshotException();
+                }
+            });
+        } catch (IOException e) {
+            throw new IndexShardSnapshotFailedException(shardId, "Failed to split file [" + md.name() + "] into chunks", e);
+        }
+    }
+
+    /**
+     * The files of a shard snapshot that are stored as content defined chunks. Each of them is split into chunks by the worker that
+     * uploads it, right before its upload, so that files are split into chunks in parallel and while other files are uploaded.
+     */
+    private static final class ShardFileChunking {
+
+        @Nullable
+        private final ContentDefinedChunker chunker;
+        private final BlobStoreIndexShardSnapshots existingSnapshots;
+        // the blob names of the files to split into chunks, only added to before the workers start
+        private final Set<String> filesToChunk = new HashSet<>();
+        // the files that were split into chunks, by blob name
+        private final Map<String, BlobStoreIndexShardSnapshot.FileInfo> chunkedFiles = ConcurrentCollections.newConcurrentMap();
+        // the chunks that any file of this snapshot has, so that each chunk is only queued for upload once
+        private final Set<String> seenChunks = ConcurrentCollections.newConcurrentSet();
+        // the chunks that are neither in the repository nor uploaded yet, each of them is uploaded by the first file that needs it
+        final Set<String> chunksToUpload = ConcurrentCollections.newConcurrentSet();
+
+        ShardFileChunking(@Nullable ContentDefinedChunker chunker, BlobStoreIndexShardSnapshots existingSnapshots) {
+            this.chunker = chunker;
+            this.existingSnapshots = existingSnapshots;
+        }
+
+        boolean shouldChunk(StoreFileMetadata md) {
+            return chunker != null && md.length() > chunker.minChunkSize();
+        }
+
+        void addFileToChunk(String blobName) {
+            filesToChunk.add(blobName);
+        }
+
+        /**
+         * @return the given file info, split into chunks if the file is stored as content defined chunks
+         */
+        BlobStoreIndexShardSnapshot.FileInfo chunk(
+            BlobStoreIndexShardSnapshot.FileInfo fileInfo,
+            Store store,
+            IndexShardSnapshotStatus snapshotStatus
+        ) {
+            if (filesToChunk.contains(fileInfo.name()) == false) {
+                return fileInfo;
+            }
+            final List<BlobStoreIndexShardSnapshot.Chunk> chunks = splitIntoChunks(chunker, store, snapshotStatus, fileInfo.metadata());
+            for (BlobStoreIndexShardSnapshot.Chunk chunk : chunks) {
+                if (seenChunks.add(chunk.name()) && existingSnapshots.containsChunk(chunk.name()) == false) {
+                    chunksToUpload.add(chunk.name());
+                }
+            }
+            final BlobStoreIndexShardSnapshot.FileInfo chunkedFileInfo = new BlobStoreIndexShardSnapshot.FileInfo(
+                fileInfo.name(),
+                fileInfo.metadata(),
+                chunks
+            );
+            chunkedFiles.put(fileInfo.name(), chunkedFileInfo);
+            return chunkedFileInfo;
+        }
+
+        /**
+         * @return the given files of the snapshot, with the files that are stored as content defined chunks split into chunks, which
+         *         they all are once all files are uploaded
+         */
+        List<BlobStoreIndexShardSnapshot.FileInfo> resolve(List<BlobStoreIndexShardSnapshot.FileInfo> files) {
+            if (filesToChunk.isEmpty()) {
+                return files;
+            }
+            assert chunkedFiles.keySet().equals(filesToChunk) : "files " + filesToChunk + " but chunked " + chunkedFiles.keySet();
+            return files.stream().map(fileInfo -> chunkedFiles.getOrDefault(fileInfo.name(), fileInfo)).toList();
+        }
+    }
+
     private static boolean assertFileContentsMatchHash(
         IndexShardSnapshotStatus snapshotStatus,
         BlobStoreIndexShardSnapshot.FileInfo fileInfo,
@@ -3066,21 +3235,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                             indexOutput.writeBytes(hash.bytes, hash.offset, hash.length);
                             recoveryState.getIndex().addRecoveredBytesToFile(fileInfo.physicalName(), hash.length);
                         } else {
-                            try (InputStream stream = maybeRateLimitRestores(new SlicedInputStream(fileInfo.numberOfParts()) {
-                                @Override
-                                protected InputStream openSlice(int slice) throws IOException {
-                                    ensureNotClosing(store);
-                                    return container.readBlob(fileInfo.partName(slice));
-                                }
-                            })) {
-                                final byte[] buffer = new byte[Math.toIntExact(Math.min(bufferSize, fileInfo.length()))];
-                                int length;
-                                while ((length = stream.read(buffer)) > 0) {
-                                    ensureNotClosing(store);
-                                    indexOutput.writeBytes(buffer, 0, length);
-                                    recoveryState.getIndex().addRecoveredBytesToFile(fileInfo.physicalName(), length);
-                                }
-                            }
+                            restoreFileParts(fileInfo, store, indexOutput);
                         }
                         Store.verify(indexOutput);
                         indexOutput.close();
@@ -3100,6 +3255,103 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                     }
                 }
 
+                /**
+                 * Writes the parts of a file to the given output in order. The restoring thread downloads the parts itself, unless tasks
+                 * on the snapshot thread pool have already started to download them ahead into memory, which they do as far as the
+                 * bytes in flight of the node allow.
+                 */
+                private void restoreFileParts(BlobStoreIndexShardSnapshot.FileInfo fileInfo, Store store, IndexOutput indexOutput)
+                    throws IOException {
+                    final int numberOfParts = fileInfo.numberOfParts();
+                    final AtomicInteger nextPart = new AtomicInteger();
+                    final List<ListenableFuture<ReleasableBytesReference>> downloadedParts = new ArrayList<>(numberOfParts);
+                    if (numberOfParts > 1 && fileInfo.maxPartBytes() <= recoverySettings.getMaxInFlightSnapshotPartBytes()) {
+                        for (int i = 0; i < numberOfParts; i++) {
+                            downloadedParts.add(new ListenableFuture<>());
+                        }
+                        final int helpers = Math.min(threadPool.info(ThreadPool.Names.SNAPSHOT).getMax(), numberOfParts - 1);
+                        for (int i = 0; i < helpers; i++) {
+                            executor.execute(() -> downloadPartsAhead(fileInfo, store, nextPart, downloadedParts));
+                        }
+                    }
+                    int part = 0;
+                    try {
+                        final byte[] buffer = new byte[Math.toIntExact(Math.min(bufferSize, fileInfo.length()))];
+                        for (; part < numberOfParts; part++) {
+                            if (nextPart.compareAndSet(part, part + 1)) {
+                                final long startNanos = System.nanoTime();
+                                try (InputStream stream = maybeRateLimitRestores(readPart(fileInfo, part, store))) {
+                                    int length;
+                                    while ((length = stream.read(buffer)) > 0) {
+                                        ensureNotClosing(store);
+                                        indexOutput.writeBytes(buffer, 0, length);
+                                        recoveryState.getIndex().addRecoveredBytesToFile(fileInfo.physicalName(), length);
+                                    }
+                                }
+                                partDownloads.onPartTransferred(fileInfo.partBytes(part), System.nanoTime() - startNanos);
+                            } else {
+                                try (ReleasableBytesReference bytes = FutureUtils.get(downloadedParts.get(part))) {
+                                    ensureNotClosing(store);
+                                    final BytesRefIterator iterator = bytes.iterator();
+                                    BytesRef bytesRef;
+                                    while ((bytesRef = iterator.next()) != null) {
+                                        indexOutput.writeBytes(bytesRef.bytes, bytesRef.offset, bytesRef.length);
+                                    }
+                                    recoveryState.getIndex().addRecoveredBytesToFile(fileInfo.physicalName(), bytes.length());
+                                }
+                            }
+                        }
+                    } finally {
+                        // stop downloading parts ahead, and release the parts that were downloaded ahead but will not be written
+                        final int claimedParts = nextPart.getAndSet(numberOfParts);
+                        for (int i = part + 1; i < claimedParts; i++) {
+                            downloadedParts.get(i).addListener(ActionListener.wrap(Releasable::close, e -> {}));
+                        }
+                    }
+                }
+
+                private void downloadPartsAhead(
+                    BlobStoreIndexShardSnapshot.FileInfo fileInfo,
+                    Store store,
+                    AtomicInteger nextPart,
+                    List<ListenableFuture<ReleasableBytesReference>> downloadedParts
+                ) {
+                    while (true) {
+                        final Releasable inFlightBytes = recoverySettings.tryAcquireSnapshotPartBytes(fileInfo.maxPartBytes());
+                        if (inFlightBytes == null) {
+                            return;
+                        }
+                        final int part = nextPart.getAndIncrement();
+                        if (part >= fileInfo.numberOfParts()) {
+                            inFlightBytes.close();
+                            return;
+                        }
+                        final BytesReference bytes;
+                        final long startNanos = System.nanoTime();
+                        if (store.tryIncRef() == false) {
+                            inFlightBytes.close();
+                            downloadedParts.get(part).onFailure(new AlreadyClosedException("store is closed"));
+                            return;
+                        }
+                        try (InputStream stream = maybeRateLimitRestores(readPart(fileInfo, part, store))) {
+                            bytes = Streams.readFully(stream);
+                        } catch (Exception e) {
+                            inFlightBytes.close();
+                            downloadedParts.get(part).onFailure(e);
+                            return;
+                        } finally {
+                            store.decRef();
+                        }
+                        partDownloads.onPartTransferred(bytes.length(), System.nanoTime() - startNanos);
+                        downloadedParts.get(part).onResponse(new ReleasableBytesReference(bytes, inFlightBytes));
+                    }
+                }
+
+                private InputStream readPart(BlobStoreIndexShardSnapshot.FileInfo fileInfo, int part, Store store) throws IOException {
+                    ensureNotClosing(store);
+                    return container.readBlob(fileInfo.partName(part));
+                }
+
                 void ensureNotClosing(final Store store) throws AlreadyClosedException {
                     assert store.refCount() > 0;
                     if (store.isClosing()) {
@@ -3339,7 +3591,9 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                         && survivingSnapshotUUIDs.contains(
                             blob.substring(SNAPSHOT_PREFIX.length(), blob.length() - ".dat".length())
                         ) == false)
-                    || (blob.startsWith(UPLOADED_DATA_BLOB_PREFIX) && updatedSnapshots.findNameFile(canonicalName(blob)) == null)
+                    || (blob.startsWith(UPLOADED_DATA_BLOB_PREFIX)
+                        && updatedSnapshots.findNameFile(canonicalName(blob)) == null
+                        && updatedSnapshots.containsChunk(blob) == false)
                     || FsBlobContainer.isTempBlobName(blob)
             )
             .collect(Collectors.toList());
@@ -3433,9 +3687,48 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         return new Tuple<>(BlobStoreIndexShardSnapshots.EMPTY, latest);
     }
 
+    /**
+     * Returns the size of the parts that a file of the given length is split into. This is the chunk size of the repository, unless
+     * parallel part transfers are enabled and the file is large, in which case the part size adapts to the throughput of the part uploads
+     * observed so far, so that the parts of large files can be uploaded and downloaded in parallel.
+     */
+    private ByteSizeValue partSize(long fileLength) {
+        final ByteSizeValue chunkSize = chunkSize();
+        final long maxInFlightBytes = recoverySettings.getMaxInFlightSnapshotPartBytes();
+        if (fileLength < 2 * MIN_PARALLEL_PART_SIZE_IN_BYTES
+            || maxInFlightBytes < MIN_PARALLEL_PART_SIZE_IN_BYTES
+            || (chunkSize != null && chunkSize.getBytes() > 0L && chunkSize.getBytes() <= MIN_PARALLEL_PART_SIZE_IN_BYTES)) {
+            return chunkSize;
+        }
+        long partSize = (long) (partUploadThroughput.getAverage() * TARGET_PART_UPLOAD_TIME_IN_SECONDS);
+        // a part must fit into the bytes in flight to be transferred in parallel
+        partSize = Math.min(partSize, maxInFlightBytes);
+        if (chunkSize != null && chunkSize.getBytes() > 0L) {
+            partSize = Math.min(partSize, chunkSize.getBytes());
+        }
+        return ByteSizeValue.ofBytes(Math.max(partSize, MIN_PARALLEL_PART_SIZE_IN_BYTES));
+    }
+
+    /**
+     * Returns the chunker for files that are stored as content defined chunks. Chunks do not exceed the chunk size of the repository.
+     */
+    private ContentDefinedChunker contentDefinedChunker() {
+        final ByteSizeValue chunkSize = chunkSize();
+        if (chunkSize == null || chunkSize.getBytes() <= 0L || chunkSize.getBytes() >= MAX_CONTENT_DEFINED_CHUNK_SIZE_IN_BYTES) {
+            return new ContentDefinedChunker(
+                MIN_CONTENT_DEFINED_CHUNK_SIZE_IN_BYTES,
+                AVERAGE_CONTENT_DEFINED_CHUNK_SIZE_IN_BYTES,
+                MAX_CONTENT_DEFINED_CHUNK_SIZE_IN_BYTES
+            );
+        }
+        final long averageChunkSize = Math.max(1L, Long.highestOneBit(chunkSize.getBytes() / 4L));
+        return new ContentDefinedChunker(Math.max(1L, averageChunkSize / 4L), averageChunkSize, chunkSize.getBytes());
+    }
+
     /**
      * Snapshot individual file
      * @param fileInfo file to be snapshotted
+     * @param chunksToUpload the chunks that still need to be uploaded, if the file is stored as content defined chunks
      */
     private void snapshotFile(
         BlobStoreIndexShardSnapshot.FileInfo fileInfo,
@@ -3443,51 +3736,33 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         ShardId shardId,
         SnapshotId snapshotId,
         IndexShardSnapshotStatus snapshotStatus,
-        Store store
+        Store store,
+        Set<String> chunksToUpload
     ) throws IOException {
         final BlobContainer shardContainer = shardContainer(indexId, shardId);
         final String file = fileInfo.physicalName();
-        try (IndexInput indexInput = store.openVerifyingInput(file, IOContext.READONCE, fileInfo.metadata())) {
-            for (int i = 0; i < fileInfo.numberOfParts(); i++) {
-                final long partBytes = fileInfo.partBytes(i);
-
-                // Make reads abortable by mutating the snapshotStatus object
-                final InputStream inputStream = new FilterInputStream(
-                    maybeRateLimitSnapshots(new InputStreamIndexInput(indexInput, partBytes))
-                ) {
-                    @Override
-                    public int read() throws IOException {
-                        checkAborted();
-                        return super.read();
-                    }
-
-                    @Override
-                    public int read(byte[] b, int off, int len) throws IOException {
-                        checkAborted();
-                        return super.read(b, off, len);
-                    }
-
-                    private void checkAborted() {
-                        if (snapshotStatus.isAborted()) {
-                            logger.debug("[{}] [{}] Aborted on the file [{}], exiting", shardId, snapshotId, fileInfo.physicalName());
-                            throw new AbortedSnapshotException();
+        try {
+            if (fileInfo.chunks() == null
+                && fileInfo.numberOfParts() > 1
+                && fileInfo.maxPartBytes() <= recoverySettings.getMaxInFlightSnapshotPartBytes()) {
+                // the parts are not read sequentially, so the file is verified up front
+                Store.checkIntegrity(fileInfo.metadata(), store.directory());
+                try (IndexInput indexInput = store.directory().openInput(file, IOContext.READ)) {
+                    new ParallelPartUpload(fileInfo, indexInput, shardContainer, shardId, snapshotId, snapshotStatus).run();
+                }
+            } else {
+                try (IndexInput indexInput = store.openVerifyingInput(file, IOContext.READONCE, fileInfo.metadata())) {
+                    for (int i = 0; i < fileInfo.numberOfParts(); i++) {
+                        if (fileInfo.chunks() == null || chunksToUpload.remove(fileInfo.partName(i))) {
+                            snapshotFilePart(fileInfo, i, indexInput, shardContainer, shardId, snapshotId, snapshotStatus);
+                        } else {
+                            // the chunk is in the repository already or uploaded for another file, but the file is still verified
+                            indexInput.seek(indexInput.getFilePointer() + fileInfo.partBytes(i));
                         }
                     }
-                };
-                final String partName = fileInfo.partName(i);
-                logger.trace("[{}] Writing [{}] to [{}]", metadata.name(), partName, shardContainer.path());
-                final long startMS = threadPool.relativeTimeInMillis();
-                shardContainer.writeBlob(partName, inputStream, partBytes, false);
-                logger.trace(
-                    "[{}] Writing [{}] of size [{}b] to [{}] took [{}ms]",
-                    metadata.name(),
-                    partName,
-                    partBytes,
-                    shardContainer.path(),
-                    threadPool.relativeTimeInMillis() - startMS
-                );
+                    Store.verify(indexInput);
+                }
             }
-            Store.verify(indexInput);
             snapshotStatus.addProcessedFile(fileInfo.length());
         } catch (Exception t) {
             failStoreIfCorrupted(store, t);
@@ -3496,6 +3771,148 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         }
     }
 
+    /**
+     * Uploads a part of a file, reading it from the current position of the given input.
+     */
+    private void snapshotFilePart(
+        BlobStoreIndexShardSnapshot.FileInfo fileInfo,
+        int part,
+        IndexInput indexInput,
+        BlobContainer shardContainer,
+        ShardId shardId,
+        SnapshotId snapshotId,
+        IndexShardSnapshotStatus snapshotStatus
+    ) throws IOException {
+        final long partBytes = fileInfo.partBytes(part);
+
+        // Make reads abortable by mutating the snapshotStatus object
+        final InputStream inputStream = new FilterInputStream(maybeRateLimitSnapshots(new InputStreamIndexInput(indexInput, partBytes))) {
+            @Override
+            public int read() throws IOException {
+                checkAborted();
+                return super.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                checkAborted();
+                return super.read(b, off, len);
+            }
+
+            private void checkAborted() {
+                if (snapshotStatus.isAborted()) {
+                    logger.debug("[{}] [{}] Aborted on the file [{}], exiting", shardId, snapshotId, fileInfo.physicalName());
+                    throw new AbortedSnapshotException();
+                }
+            }
+        };
+        final String partName = fileInfo.partName(part);
+        logger.trace("[{}] Writing [{}] to [{}]", metadata.name(), partName, shardContainer.path());
+        final long startNanos = System.nanoTime();
+        shardContainer.writeBlob(partName, inputStream, partBytes, false);
+        final long tookNanos = System.nanoTime() - startNanos;
+        partUploads.onPartTransferred(partBytes, tookNanos);
+        if (tookNanos > 0L && partBytes >= MIN_PARALLEL_PART_SIZE_IN_BYTES) {
+            // small parts are dominated by the latency of the upload request and say little about the achievable throughput
+            partUploadThroughput.addValue(partBytes * (double) TimeUnit.SECONDS.toNanos(1L) / tookNanos);
+        }
+        logger.trace(
+            "[{}] Writing [{}] of size [{}b] to [{}] took [{}ms]",
+            metadata.name(),
+            partName,
+            partBytes,
+            shardContainer.path(),
+            TimeUnit.NANOSECONDS.toMillis(tookNanos)
+        );
+    }
+
+    /**
+     * Uploads the parts of a file in parallel. The snapshotting thread uploads the parts in order, while tasks on the snapshot thread pool
+     * upload further parts concurrently as far as the bytes in flight of the node allow. The snapshotting thread only waits for parts that
+     * tasks are already uploading, so that idle threads of the pool speed up the upload of large files without ever blocking it.
+     */
+    private final class ParallelPartUpload {
+
+        private final BlobStoreIndexShardSnapshot.FileInfo fileInfo;
+        private final IndexInput[] slices;
+        private final BlobContainer shardContainer;
+        private final ShardId shardId;
+        private final SnapshotId snapshotId;
+        private final IndexShardSnapshotStatus snapshotStatus;
+        private final AtomicInteger nextPart = new AtomicInteger();
+        private final AtomicInteger remainingParts;
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+        private final PlainActionFuture<Void> allPartsUploaded = PlainActionFuture.newFuture();
+
+        ParallelPartUpload(
+            BlobStoreIndexShardSnapshot.FileInfo fileInfo,
+            IndexInput indexInput,
+            BlobContainer shardContainer,
+            ShardId shardId,
+            SnapshotId snapshotId,
+            IndexShardSnapshotStatus snapshotStatus
+        ) throws IOException {
+            this.fileInfo = fileInfo;
+            this.shardContainer = shardContainer;
+            this.shardId = shardId;
+            this.snapshotId = snapshotId;
+            this.snapshotStatus = snapshotStatus;
+            // slices are created up front because each of them may only be used by the thread that uploads its part
+            this.slices = new IndexInput[fileInfo.numberOfParts()];
+            long offset = 0L;
+            for (int i = 0; i < slices.length; i++) {
+                slices[i] = indexInput.slice(fileInfo.partName(i), offset, fileInfo.partBytes(i));
+                offset += fileInfo.partBytes(i);
+            }
+            this.remainingParts = new AtomicInteger(slices.length);
+        }
+
+        void run() throws IOException {
+            final Executor executor = threadPool.executor(ThreadPool.Names.SNAPSHOT);
+            final int helpers = Math.min(threadPool.info(ThreadPool.Names.SNAPSHOT).getMax(), slices.length - 1);
+            for (int i = 0; i < helpers; i++) {
+                executor.execute(() -> uploadParts(true));
+            }
+            uploadParts(false);
+            allPartsUploaded.actionGet();
+            final Exception e = failure.get();
+            if (e instanceof IOException ioException) {
+                throw ioException;
+            } else if (e != null) {
+                throw ExceptionsHelper.convertToRuntime(e);
+            }
+        }
+
+        private void uploadParts(boolean helper) {
+            while (true) {
+                // only the snapshotting thread uploads parts without reserving bytes in flight
+                final Releasable inFlightBytes = helper ? recoverySettings.tryAcquireSnapshotPartBytes(fileInfo.maxPartBytes()) : () -> {};
+                if (inFlightBytes == null) {
+                    return;
+                }
+                try (inFlightBytes) {
+                    final int part = nextPart.getAndIncrement();
+                    if (part >= slices.length) {
+                        return;
+                    }
+                    try {
+                        if (failure.get() == null) {
+                            snapshotFilePart(fileInfo, part, slices[part], shardContainer, shardId, snapshotId, snapshotStatus);
+                        }
+                    } catch (Exception e) {
+                        if (failure.compareAndSet(null, e) == false) {
+                            failure.get().addSuppressed(e);
+                        }
+                    } finally {
+                        if (remainingParts.decrementAndGet() == 0) {
+                            allPartsUploaded.onResponse(null);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
     private static void failStoreIfCorrupted(Store store, Exception e) {
         if (Lucene.isCorruptionException(e)) {
             try {
@@ -3524,6 +3941,26 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         return bufferSize;
     }
 
+    /**
+     * Tracks the transfers of the parts of the files of shard snapshots.
+     */
+    private static final class PartTransferMetrics {
+
+        private final CounterMetric count = new CounterMetric();
+        private final CounterMetric sizeInBytes = new CounterMetric();
+        private final CounterMetric timeInNanos = new CounterMetric();
+
+        void onPartTransferred(long bytes, long tookNanos) {
+            count.inc();
+            sizeInBytes.inc(bytes);
+            timeInNanos.inc(Math.max(0L, tookNanos));
+        }
+
+        RepositoryStats.PartTransferStats stats() {
+            return new RepositoryStats.PartTransferStats(count.count(), sizeInBytes.count(), timeInNanos.count());
+        }
+    }
+
     /**
      * The result of removing a snapshot from a shard folder in the repository.
      */
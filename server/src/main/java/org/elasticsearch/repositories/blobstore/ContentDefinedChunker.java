@@ -0,0 +1,132 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.repositories.blobstore;
+
+import org.apache.lucene.store.IndexInput;
+import org.elasticsearch.common.hash.MessageDigests;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits files into chunks whose boundaries depend on the contents of the files rather than on positions, so that bytes which a file
+ * shares with a file that was snapshotted before are split into the same chunks even if they moved within the file. A boundary is
+ * placed after each byte at which a rolling hash of the preceding 64 bytes matches a mask, with the number of bits of the mask chosen
+ * for the chunks to have the given average size. Chunks are named after the SHA-256 digest of their contents.
+ * <p>
+ * The boundaries and the names of the chunks are part of the repository format: changing how they are computed does not make
+ * existing snapshots unreadable, but prevents the chunks of new snapshots from being deduplicated against the existing ones.
+ */
+final class ContentDefinedChunker {
+
+    /**
+     * Prefix of the names of the blobs that hold content defined chunks, which are data blobs like any other.
+     */
+    static final String CHUNK_BLOB_PREFIX = BlobStoreRepository.UPLOADED_DATA_BLOB_PREFIX + "chunk-";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // random values for each byte value, fixed by a seed so that chunk boundaries are the same on every node and in every version
+    private static final long[] GEAR = new long[256];
+
+    static {
+        long state = 0x5EED_C0DE_C4A7_CDC1L;
+        for (int i = 0; i < GEAR.length; i++) {
+            // splitmix64
+            state += 0x9E3779B97F4A7C15L;
+            long z = state;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            GEAR[i] = z ^ (z >>> 31);
+        }
+    }
+
+    private final long minChunkSize;
+    private final long maxChunkSize;
+    private final long mask;
+
+    /**
+     * @param minChunkSize     the minimum size of a chunk, except for the last chunk of a file
+     * @param averageChunkSize the average size of the chunks, which must be a power of two
+     * @param maxChunkSize     the maximum size of a chunk
+     */
+    ContentDefinedChunker(long minChunkSize, long averageChunkSize, long maxChunkSize) {
+        if (Long.bitCount(averageChunkSize) != 1) {
+            throw new IllegalArgumentException("average chunk size [" + averageChunkSize + "] must be a power of two");
+        }
+        if (minChunkSize <= 0L || minChunkSize > averageChunkSize || averageChunkSize > maxChunkSize) {
+            throw new IllegalArgumentException(
+                "chunk sizes must satisfy 0 < min [" + minChunkSize + "] <= avg [" + averageChunkSize + "] <= max [" + maxChunkSize + "]"
+            );
+        }
+        this.minChunkSize = minChunkSize;
+        this.maxChunkSize = maxChunkSize;
+        // the highest bits of the rolling hash depend on the most bytes, the lowest bit only depends on the last one
+        final int bits = Long.numberOfTrailingZeros(averageChunkSize);
+        this.mask = bits == 0 ? 0L : -1L << (Long.SIZE - bits);
+    }
+
+    long minChunkSize() {
+        return minChunkSize;
+    }
+
+    /**
+     * Splits the remaining bytes of the given input into chunks.
+     *
+     * @return the chunks, in order, which are empty if there are no remaining bytes
+     */
+    List<BlobStoreIndexShardSnapshot.Chunk> chunk(IndexInput input) throws IOException {
+        return chunk(input, () -> {});
+    }
+
+    /**
+     * Splits the remaining bytes of the given input into chunks, running the given check before each read so that it can stop
+     * splitting a large input by throwing an exception.
+     *
+     * @return the chunks, in order, which are empty if there are no remaining bytes
+     */
+    List<BlobStoreIndexShardSnapshot.Chunk> chunk(IndexInput input, Runnable beforeRead) throws IOException {
+        final List<BlobStoreIndexShardSnapshot.Chunk> chunks = new ArrayList<>();
+        final MessageDigest digest = MessageDigests.sha256();
+        final byte[] buffer = new byte[Math.toIntExact(Math.min(BUFFER_SIZE, Math.max(1L, input.length())))];
+        long remaining = input.length() - input.getFilePointer();
+        long chunkLength = 0L;
+        long hash = 0L;
+        while (remaining > 0L) {
+            beforeRead.run();
+            final int length = Math.toIntExact(Math.min(buffer.length, remaining));
+            input.readBytes(buffer, 0, length);
+            remaining -= length;
+            int chunkStart = 0;
+            for (int i = 0; i < length; i++) {
+                hash = (hash << 1) + GEAR[buffer[i] & 0xFF];
+                chunkLength += 1L;
+                if ((chunkLength >= minChunkSize && (hash & mask) == 0L) || chunkLength == maxChunkSize) {
+                    digest.update(buffer, chunkStart, i + 1 - chunkStart);
+                    chunks.add(new BlobStoreIndexShardSnapshot.Chunk(chunkName(digest), chunkLength));
+                    chunkStart = i + 1;
+                    chunkLength = 0L;
+                    hash = 0L;
+                }
+            }
+            digest.update(buffer, chunkStart, length - chunkStart);
+        }
+        if (chunkLength > 0L) {
+            chunks.add(new BlobStoreIndexShardSnapshot.Chunk(chunkName(digest), chunkLength));
+        }
+        return chunks;
+    }
+
+    private static String chunkName(MessageDigest digest) {
+        // digest() also resets the digest for the next chunk
+        return CHUNK_BLOB_PREFIX + MessageDigests.toHexString(digest.digest());
+    }
+}
@@ -11,6 +11,8 @@ package org.elasticsearch.search;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.shard.ShardLongFieldRange;
 import org.elasticsearch.search.sort.MinAndMax;
 
 import java.io.IOException;
@@ -21,6 +23,10 @@ import java.io.IOException;
 public final class CanMatchShardResponse extends SearchPhaseResult {
     private final boolean canMatch;
     private final MinAndMax<?> estimatedMinAndMax;
+    @Nullable
+    private final ShardLongFieldRange timestampRange;
+    // the settings version of the index of the shard that the timestamp range was computed under
+    private final long timestampRangeSettingsVersion;
 
     public CanMatchShardResponse(StreamInput in) throws IOException {
         super(in);
@@ -30,11 +36,30 @@ public final class CanMatchShardResponse extends SearchPhaseResult {
         } else {
             estimatedMinAndMax = null;
         }
+        if (in.getVersion().onOrAfter(Version.V_8_2_0)) {
+            timestampRange = in.readOptionalWriteable(ShardLongFieldRange::readFrom);
+            timestampRangeSettingsVersion = timestampRange == null ? -1L : in.readVLong();
+        } else {
+            timestampRange = null;
+            timestampRangeSettingsVersion = -1L;
+        }
     }
 
     public CanMatchShardResponse(boolean canMatch, MinAndMax<?> estimatedMinAndMax) {
+        this(canMatch, estimatedMinAndMax, null, -1L);
+    }
+
+    public CanMatchShardResponse(
+        boolean canMatch,
+        MinAndMax<?> estimatedMinAndMax,
+        @Nullable ShardLongFieldRange timestampRange,
+        long timestampRangeSettingsVersion
+    ) {
+        assert timestampRange == null || timestampRangeSettingsVersion >= 0 : timestampRangeSettingsVersion;
         this.canMatch = canMatch;
         this.estimatedMinAndMax = estimatedMinAndMax;
+        this.timestampRange = timestampRange;
+        this.timestampRangeSettingsVersion = timestampRangeSettingsVersion;
     }
 
     @Override
@@ -43,6 +68,12 @@ public final class CanMatchShardResponse extends SearchPhaseResult {
         if (out.getVersion().onOrAfter(Version.V_7_6_0)) {
             out.writeOptionalWriteable(estimatedMinAndMax);
         }
+        if (out.getVersion().onOrAfter(Version.V_8_2_0)) {
+            out.writeOptionalWriteable(timestampRange);
+            if (timestampRange != null) {
+                out.writeVLong(timestampRangeSettingsVersion);
+            }
+        }
     }
 
     public boolean canMatch() {
@@ -52,4 +83,21 @@ public final class CanMatchShardResponse extends SearchPhaseResult {
     public MinAndMax<?> estimatedMinAndMax() {
         return estimatedMinAndMax;
     }
+
+    /**
+     * The range of the {@code @timestamp} field of the shard, which the coordinating node may cache because the shard cannot change,
+     * or {@code null} if the shard may still change.
+     */
+    @Nullable
+    public ShardLongFieldRange timestampRange() {
+        return timestampRange;
+    }
+
+    /**
+     * The settings version of the index of the shard when it computed its {@link #timestampRange()}, which only holds for as long as
+     * the settings of the index did not change since.
+     */
+    public long timestampRangeSettingsVersion() {
+        return timestampRangeSettingsVersion;
+    }
 }
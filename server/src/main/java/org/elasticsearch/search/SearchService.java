@@ -11,6 +11,10 @@ package org.elasticsearch.search;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FilterDirectoryReader;
+import org.apache.lucene.index.PointValues;
 import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.TopDocs;
@@ -25,6 +29,8 @@ import org.elasticsearch.action.search.SearchShardTask;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.action.support.TransportActions;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.DataStream;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.CheckedSupplier;
@@ -40,6 +46,7 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.CollectionUtils;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.core.TimeValue;
@@ -49,7 +56,10 @@ import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.query.CoordinatorRewriteContextProvider;
+import org.elasticsearch.index.query.CoordinatorTimestampRangeCache;
 import org.elasticsearch.index.query.InnerHitContextBuilder;
 import org.elasticsearch.index.query.MatchAllQueryBuilder;
 import org.elasticsearch.index.query.MatchNoneQueryBuilder;
@@ -62,6 +72,7 @@ import org.elasticsearch.index.shard.IndexEventListener;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.SearchOperationListener;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardLongFieldRange;
 import org.elasticsearch.indices.ExecutorSelector;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
@@ -457,6 +468,15 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         final boolean canCache = indicesService.canCache(request, context);
         context.getSearchExecutionContext().freezeContext();
         if (canCache) {
+            if (indicesService.canUseSegmentAggregationCache(request, context)) {
+                AggregationReduceContext reduceContext = new AggregationReduceContext.ForPartial(
+                    bigArrays,
+                    scriptService,
+                    context::isCancelled,
+                    request.source().aggregations()
+                );
+                context.aggregations().segmentCache(indicesService.segmentAggregationCache(request, context), reduceContext);
+            }
             indicesService.loadIntoContext(request, context, queryPhase);
         } else {
             queryPhase.execute(context);
@@ -1529,13 +1549,56 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                 } else {
                     minMax = null;
                 }
-                return new CanMatchShardResponse(canMatch || hasRefreshPending, minMax);
+                // the coordinating node only caches the range if the settings of the index did not change since this version
+                final IndexMetadata indexMetadata = indexService.getMetadata();
+                final ShardLongFieldRange timestampRange = request.readerId() == null && hasRefreshPending == false
+                    ? getImmutableTimestampRange(indexMetadata, indexService, canMatchSearcher)
+                    : null;
+                return new CanMatchShardResponse(
+                    canMatch || hasRefreshPending,
+                    minMax,
+                    timestampRange,
+                    indexMetadata.getSettingsVersion()
+                );
             }
         } finally {
             Releasables.close(releasable);
         }
     }
 
+    /**
+     * Returns the range of the {@code @timestamp} field of the shard if its index has a write block and all its documents are visible
+     * to the given searcher, so that coordinating nodes can cache it to skip the shard without a can_match round trip, or {@code null}
+     * if the shard may still change.
+     */
+    @Nullable
+    private static ShardLongFieldRange getImmutableTimestampRange(
+        IndexMetadata indexMetadata,
+        IndexService indexService,
+        Engine.Searcher searcher
+    ) throws IOException {
+        if (CoordinatorTimestampRangeCache.isImmutable(indexMetadata) == false
+            || indexMetadata.getTimestampRange().containsAllShardRanges()) {
+            // the index may change, or coordinating nodes already know the range of the index from its metadata
+            return null;
+        }
+        final MappedFieldType fieldType = indexService.mapperService().fieldType(DataStream.TimestampField.FIXED_TIMESTAMP_FIELD);
+        if (fieldType instanceof DateFieldMapper.DateFieldType == false || fieldType.isIndexed() == false) {
+            return null;
+        }
+        // the range is shared by all users, so it must not depend on the fields and documents that the searcher of this user sees
+        final DirectoryReader reader = FilterDirectoryReader.unwrap(searcher.getDirectoryReader());
+        if (reader.isCurrent() == false) {
+            return null;
+        }
+        final byte[] minPackedValue = PointValues.getMinPackedValue(reader, DataStream.TimestampField.FIXED_TIMESTAMP_FIELD);
+        final byte[] maxPackedValue = PointValues.getMaxPackedValue(reader, DataStream.TimestampField.FIXED_TIMESTAMP_FIELD);
+        if (minPackedValue == null || maxPackedValue == null) {
+            return ShardLongFieldRange.EMPTY;
+        }
+        return ShardLongFieldRange.of(LongPoint.decodeDimension(minPackedValue, 0), LongPoint.decodeDimension(maxPackedValue, 0));
+    }
+
     @SuppressWarnings("unchecked")
     public static boolean queryStillMatchesAfterRewrite(ShardSearchRequest request, QueryRewriteContext context) throws IOException {
         Rewriteable.rewrite(request.getRewriteable(), context, false);
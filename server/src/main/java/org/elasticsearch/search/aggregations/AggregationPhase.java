@@ -7,7 +7,9 @@
  */
 package org.elasticsearch.search.aggregations;
 
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.Weight;
 import org.elasticsearch.action.search.SearchShardTask;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.search.SearchService;
@@ -33,6 +35,10 @@ public class AggregationPhase {
         if (context.aggregations() == null) {
             return;
         }
+        if (context.aggregations().segmentCache() != null && context.searcher().getIndexReader().leaves().isEmpty() == false) {
+            aggregateSegments(context);
+            return;
+        }
         BucketCollector bucketCollector;
         try {
             context.aggregations().aggregators(context.aggregations().factories().createTopLevelAggregators());
@@ -58,6 +64,38 @@ public class AggregationPhase {
         }
     }
 
+    /**
+     * Aggregates each segment on its own, or loads its results from the {@link SearchContextAggregations#segmentCache() segment cache},
+     * and reduces the results of the segments into the shard level result.
+     */
+    private static void aggregateSegments(SearchContext context) {
+        final SearchContextAggregations aggregations = context.aggregations();
+        final List<InternalAggregations> results = new ArrayList<>();
+        try {
+            for (LeafReaderContext leaf : context.searcher().getIndexReader().leaves()) {
+                results.add(aggregations.segmentCache().getOrCompute(leaf, () -> aggregateSegment(context, leaf)));
+            }
+        } catch (IOException e) {
+            throw new AggregationExecutionException("Could not perform per-segment aggregation", e);
+        }
+        context.queryResult().aggregations(InternalAggregations.reduce(results, aggregations.segmentReduceContext()));
+    }
+
+    private static InternalAggregations aggregateSegment(SearchContext context, LeafReaderContext leaf) throws IOException {
+        final Aggregator[] aggregators = context.aggregations().factories().createTopLevelAggregators();
+        final BucketCollector bucketCollector = MultiBucketCollector.wrap(true, List.of(aggregators));
+        bucketCollector.preCollection();
+        final Weight weight = context.searcher().createWeight(context.rewrittenQuery(), bucketCollector.scoreMode(), 1f);
+        context.searcher().search(List.of(leaf), weight, bucketCollector);
+        context.aggregations().factories().context().multiBucketConsumer().reset();
+        final List<InternalAggregation> results = new ArrayList<>(aggregators.length);
+        for (Aggregator aggregator : aggregators) {
+            aggregator.postCollection();
+            results.add(aggregator.buildTopLevel());
+        }
+        return InternalAggregations.from(results);
+    }
+
     private List<Runnable> getCancellationChecks(SearchContext context) {
         List<Runnable> cancellationChecks = new ArrayList<>();
         if (context.lowLevelCancellation()) {
@@ -7,6 +7,12 @@
  */
 package org.elasticsearch.search.aggregations;
 
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.core.Nullable;
+
+import java.io.IOException;
+
 /**
  * The aggregation context that is part of the search context.
  */
@@ -14,6 +20,8 @@ public class SearchContextAggregations {
 
     private final AggregatorFactories factories;
     private Aggregator[] aggregators;
+    private SegmentCache segmentCache;
+    private AggregationReduceContext segmentReduceContext;
 
     /**
      * Creates a new aggregation context with the parsed aggregator factories
@@ -38,4 +46,42 @@ public class SearchContextAggregations {
     public void aggregators(Aggregator[] aggregators) {
         this.aggregators = aggregators;
     }
+
+    /**
+     * Aggregates each segment on its own, loading the results of the segments from the given cache if possible, and reduces them
+     * with the given partial reduce context.
+     */
+    public void segmentCache(SegmentCache segmentCache, AggregationReduceContext segmentReduceContext) {
+        assert segmentReduceContext.isFinalReduce() == false : "segment results must be reduced with a partial reduce";
+        this.segmentCache = segmentCache;
+        this.segmentReduceContext = segmentReduceContext;
+    }
+
+    /**
+     * The cache of the partial aggregation results of single segments or {@code null} if the aggregations are collected at the
+     * shard level.
+     */
+    @Nullable
+    public SegmentCache segmentCache() {
+        return segmentCache;
+    }
+
+    /**
+     * The context to reduce the partial aggregation results of the segments.
+     */
+    public AggregationReduceContext segmentReduceContext() {
+        return segmentReduceContext;
+    }
+
+    /**
+     * Caches the partial aggregation results of single segments.
+     */
+    @FunctionalInterface
+    public interface SegmentCache {
+        /**
+         * Returns the cached aggregation results of the segment, or computes them with the given loader.
+         */
+        InternalAggregations getOrCompute(LeafReaderContext leaf, CheckedSupplier<InternalAggregations, IOException> loader)
+            throws IOException;
+    }
 }
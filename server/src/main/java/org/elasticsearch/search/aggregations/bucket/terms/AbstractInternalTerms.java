@@ -318,13 +318,18 @@ public abstract class AbstractInternalTerms<A extends AbstractInternalTerms<A, B
             /*
              * We can prune the list on partial reduce if the aggregation is ordered
              * by key and not filtered on doc count. The results come in key order
-             * so we can just stop iteration early.
+             * so we only need to count the documents of the remaining buckets
+             * towards the documents of the terms that are not returned.
              */
             boolean canPrune = isKeyOrder(getOrder()) && getMinDocCount() == 0;
             result = new ArrayList<>();
             thisReduceOrder = reduceBuckets(aggregations, reduceContext, bucket -> {
-                result.add(bucket.reduced());
-                return false == canPrune || result.size() < getRequiredSize();
+                if (canPrune && result.size() >= getRequiredSize()) {
+                    otherDocCount[0] += bucket.getDocCount();
+                } else {
+                    result.add(bucket.reduced());
+                }
+                return true;
             });
         }
         for (B r : result) {
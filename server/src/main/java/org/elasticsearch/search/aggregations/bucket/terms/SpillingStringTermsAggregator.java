@@ -0,0 +1,479 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.FilterDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.IntroSorter;
+import org.apache.lucene.util.PriorityQueue;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.BytesRefHash;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.fielddata.SortedBinaryDocValues;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.CardinalityUpperBound;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.InternalOrder;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import static org.elasticsearch.search.aggregations.InternalOrder.isKeyOrder;
+
+/**
+ * An aggregator of string values that hashes the strings on the fly like the
+ * {@link MapStringTermsAggregator} but that bounds the memory it uses. Once the
+ * hashed terms and their counts exceed {@link #SPILL_THRESHOLD_SETTING} they are
+ * sorted and written to a temporary file in the directory of the shard, and the
+ * hash starts over. The sorted runs are merged when the aggregation is built, so
+ * the top terms are exact no matter how many unique terms the shard has.
+ * <p>
+ * Only the doc counts of the terms are spilled, so this aggregator only supports
+ * {@code terms} aggregations without sub-aggregations that collect from a single
+ * bucket, see {@link #canSpill}.
+ */
+public class SpillingStringTermsAggregator extends AbstractStringTermsAggregator {
+    public static final Setting<ByteSizeValue> SPILL_THRESHOLD_SETTING = Setting.byteSizeSetting(
+        "index.aggregations.terms.spill_threshold",
+        ByteSizeValue.ofMb(64),
+        Property.Dynamic,
+        Property.IndexScope
+    );
+
+    /**
+     * Rough heap used per hashed term on top of its bytes: its start offset,
+     * hash and id in the {@link BytesRefHash}, its count and its slot when
+     * sorting the run.
+     */
+    private static final long BYTES_PER_TERM = Long.BYTES + Integer.BYTES + Long.BYTES + Long.BYTES + Integer.BYTES;
+
+    private static final String CODEC_NAME = "terms_agg_spill";
+    private static final int VERSION_CURRENT = 0;
+
+    private final ValuesSourceConfig valuesSourceConfig;
+    private final IncludeExclude.StringFilter includeExclude;
+    private final Directory directory;
+    private final long spillThreshold;
+    private final List<String> runs = new ArrayList<>();
+
+    private BytesRefHash terms;
+    private LongArray counts;
+    private long heapBytes;
+    private long spilledTerms;
+    private int spilledRuns;
+
+    SpillingStringTermsAggregator(
+        String name,
+        AggregatorFactories factories,
+        ValuesSourceConfig valuesSourceConfig,
+        BucketOrder order,
+        DocValueFormat format,
+        BucketCountThresholds bucketCountThresholds,
+        IncludeExclude.StringFilter includeExclude,
+        AggregationContext context,
+        Aggregator parent,
+        SubAggCollectionMode collectionMode,
+        boolean showTermDocCountError,
+        Map<String, Object> metadata
+    ) throws IOException {
+        super(name, factories, context, parent, order, format, bucketCountThresholds, collectionMode, showTermDocCountError, metadata);
+        assert factories == AggregatorFactories.EMPTY : "sub-aggregations can't be spilled";
+        this.valuesSourceConfig = valuesSourceConfig;
+        this.includeExclude = includeExclude;
+        this.directory = spillDirectory(context);
+        this.spillThreshold = context.getIndexSettings().getValue(SPILL_THRESHOLD_SETTING).getBytes();
+        boolean success = false;
+        try {
+            terms = new BytesRefHash(1, context.bigArrays());
+            counts = context.bigArrays().newLongArray(1, true);
+            success = true;
+        } finally {
+            if (success == false) {
+                Releasables.close(terms, counts);
+            }
+        }
+    }
+
+    /**
+     * Returns whether a {@code terms} aggregation can use this aggregator. Terms
+     * with {@code min_doc_count: 0} would have to be collected from every
+     * document, so they can't either.
+     */
+    static boolean canSpill(
+        AggregatorFactories factories,
+        BucketCountThresholds bucketCountThresholds,
+        AggregationContext context,
+        CardinalityUpperBound cardinality
+    ) {
+        return factories == AggregatorFactories.EMPTY
+            && cardinality == CardinalityUpperBound.ONE
+            && bucketCountThresholds.getMinDocCount() > 0
+            && spillDirectory(context) != null;
+    }
+
+    /**
+     * The runs are written to the directory of the shard, like the external sort
+     * of rollups does. Only directories that are stored on the file system can
+     * spill, readers that aren't backed by a directory and the read-only
+     * directories of searchable snapshots can't.
+     */
+    private static Directory spillDirectory(AggregationContext context) {
+        IndexReader reader = context.searcher().getIndexReader();
+        if (reader instanceof DirectoryReader directoryReader) {
+            Directory directory = directoryReader.directory();
+            return FilterDirectory.unwrap(directory) instanceof FSDirectory ? directory : null;
+        }
+        return null;
+    }
+
+    @Override
+    public LeafBucketCollector getLeafCollector(LeafReaderContext ctx, LeafBucketCollector sub) throws IOException {
+        SortedBinaryDocValues values = valuesSourceConfig.getValuesSource().bytesValues(ctx);
+        return new LeafBucketCollectorBase(sub, values) {
+            final BytesRefBuilder previous = new BytesRefBuilder();
+
+            @Override
+            public void collect(int doc, long owningBucketOrd) throws IOException {
+                assert owningBucketOrd == 0;
+                if (false == values.advanceExact(doc)) {
+                    return;
+                }
+                int valuesCount = values.docValueCount();
+                int docCount = docCountProvider.getDocCount(doc);
+
+                // SortedBinaryDocValues don't guarantee uniqueness so we
+                // need to take care of dups
+                previous.clear();
+                for (int i = 0; i < valuesCount; ++i) {
+                    BytesRef bytes = values.nextValue();
+                    if (includeExclude != null && false == includeExclude.accept(bytes)) {
+                        continue;
+                    }
+                    if (i > 0 && previous.get().equals(bytes)) {
+                        continue;
+                    }
+                    previous.copyBytes(bytes);
+                    long ord = terms.add(bytes);
+                    if (ord < 0) {
+                        counts.increment(-1 - ord, docCount);
+                    } else {
+                        counts = bigArrays().grow(counts, ord + 1);
+                        counts.increment(ord, docCount);
+                        heapBytes += bytes.length + BYTES_PER_TERM;
+                        if (heapBytes >= spillThreshold) {
+                            spill();
+                        }
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Writes the hashed terms sorted by their bytes, along with their counts, to
+     * a temporary file and starts over with an empty hash.
+     */
+    private void spill() throws IOException {
+        final int size = Math.toIntExact(terms.size());
+        final int[] ords = sortedOrds(size);
+        final BytesRef spare = new BytesRef();
+        boolean success = false;
+        // the name of the aggregation may contain characters that aren't allowed in file names
+        final IndexOutput out = directory.createTempOutput(CODEC_NAME, "run", IOContext.DEFAULT);
+        try {
+            runs.add(out.getName());
+            CodecUtil.writeHeader(out, CODEC_NAME, VERSION_CURRENT);
+            out.writeVInt(size);
+            for (int ord : ords) {
+                terms.get(ord, spare);
+                out.writeVInt(spare.length);
+                out.writeBytes(spare.bytes, spare.offset, spare.length);
+                out.writeVLong(counts.get(ord));
+            }
+            CodecUtil.writeFooter(out);
+            success = true;
+        } finally {
+            if (success) {
+                out.close();
+            } else {
+                IOUtils.closeWhileHandlingException(out);
+            }
+        }
+        spilledTerms += size;
+        spilledRuns++;
+        // start over, the pages of the hash go back to the recycler and the circuit breaker
+        Releasables.close(terms, counts);
+        terms = null;
+        counts = null;
+        heapBytes = 0;
+        // allocated after releasing the previous hash so the circuit breaker only ever sees one of them
+        terms = new BytesRefHash(1, bigArrays());
+        counts = bigArrays().newLongArray(1, true);
+    }
+
+    private int[] sortedOrds(int size) {
+        final int[] ords = new int[size];
+        for (int i = 0; i < size; i++) {
+            ords[i] = i;
+        }
+        new IntroSorter() {
+            final BytesRef pivot = new BytesRef();
+            final BytesRef left = new BytesRef();
+            final BytesRef right = new BytesRef();
+
+            @Override
+            protected void swap(int i, int j) {
+                int tmp = ords[i];
+                ords[i] = ords[j];
+                ords[j] = tmp;
+            }
+
+            @Override
+            protected int compare(int i, int j) {
+                return terms.get(ords[i], left).compareTo(terms.get(ords[j], right));
+            }
+
+            @Override
+            protected void setPivot(int i) {
+                terms.get(ords[i], pivot);
+            }
+
+            @Override
+            protected int comparePivot(int j) {
+                return pivot.compareTo(terms.get(ords[j], right));
+            }
+        }.sort(0, size);
+        return ords;
+    }
+
+    @Override
+    public InternalAggregation[] buildAggregations(long[] owningBucketOrds) throws IOException {
+        assert owningBucketOrds.length == 1 && owningBucketOrds[0] == 0;
+        final TopTerms top = new TopTerms((int) Math.min(spilledTerms + terms.size(), bucketCountThresholds.getShardSize()));
+        if (runs.isEmpty()) {
+            // everything fit in memory
+            final BytesRef spare = new BytesRef();
+            for (long ord = 0; ord < terms.size(); ord++) {
+                top.add(terms.get(ord, spare), counts.get(ord));
+            }
+        } else {
+            try {
+                if (terms.size() > 0) {
+                    spill();
+                }
+                mergeRuns(top);
+            } finally {
+                deleteRuns();
+            }
+        }
+        return new InternalAggregation[] { buildResult(top) };
+    }
+
+    /**
+     * Merges the sorted runs, summing up the counts of the terms that are in
+     * several runs.
+     */
+    private void mergeRuns(TopTerms top) throws IOException {
+        final List<RunReader> readers = new ArrayList<>(runs.size());
+        try {
+            final PriorityQueue<RunReader> queue = new PriorityQueue<>(runs.size()) {
+                @Override
+                protected boolean lessThan(RunReader a, RunReader b) {
+                    return a.term.get().compareTo(b.term.get()) < 0;
+                }
+            };
+            for (String run : runs) {
+                RunReader reader = new RunReader(directory.openChecksumInput(run, IOContext.READONCE));
+                readers.add(reader);
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+            }
+            final BytesRefBuilder current = new BytesRefBuilder();
+            long currentCount = 0;
+            boolean hasCurrent = false;
+            while (queue.size() > 0) {
+                RunReader reader = queue.top();
+                if (hasCurrent && current.get().equals(reader.term.get())) {
+                    currentCount += reader.count;
+                } else {
+                    if (hasCurrent) {
+                        top.add(current.get(), currentCount);
+                    }
+                    current.copyBytes(reader.term.get());
+                    currentCount = reader.count;
+                    hasCurrent = true;
+                }
+                if (reader.next()) {
+                    queue.updateTop();
+                } else {
+                    queue.pop();
+                }
+            }
+            if (hasCurrent) {
+                top.add(current.get(), currentCount);
+            }
+        } finally {
+            IOUtils.close(readers);
+        }
+    }
+
+    private StringTerms buildResult(TopTerms top) {
+        StringTerms.Bucket[] topBuckets = new StringTerms.Bucket[top.ordered.size()];
+        long otherDocCount = top.totalDocCount;
+        for (int i = top.ordered.size() - 1; i >= 0; --i) {
+            topBuckets[i] = top.ordered.pop();
+            otherDocCount -= topBuckets[i].getDocCount();
+        }
+        final BucketOrder reduceOrder;
+        if (isKeyOrder(order) == false) {
+            reduceOrder = InternalOrder.key(true);
+            Arrays.sort(topBuckets, reduceOrder.comparator());
+        } else {
+            reduceOrder = order;
+        }
+        return new StringTerms(
+            name,
+            reduceOrder,
+            order,
+            bucketCountThresholds.getRequiredSize(),
+            bucketCountThresholds.getMinDocCount(),
+            metadata(),
+            format,
+            bucketCountThresholds.getShardSize(),
+            showTermDocCountError,
+            otherDocCount,
+            Arrays.asList(topBuckets),
+            null
+        );
+    }
+
+    @Override
+    public InternalAggregation buildEmptyAggregation() {
+        return buildEmptyTermsAggregation();
+    }
+
+    @Override
+    public void collectDebugInfo(BiConsumer<String, Object> add) {
+        super.collectDebugInfo(add);
+        add.accept("total_buckets", spilledTerms + terms.size());
+        add.accept("spilled_runs", spilledRuns);
+        add.accept("collection_strategy", "from " + valuesSourceConfig.getDescription());
+        add.accept("result_strategy", "terms");
+    }
+
+    @Override
+    public void doClose() {
+        Releasables.close(terms, counts);
+        deleteRuns();
+    }
+
+    private void deleteRuns() {
+        for (String run : runs) {
+            try {
+                directory.deleteFile(run);
+            } catch (IOException e) {
+                // best effort, a leftover temporary file doesn't affect the shard
+            }
+        }
+        runs.clear();
+    }
+
+    /**
+     * Selects the top terms of the shard.
+     */
+    private class TopTerms {
+        private final PriorityQueue<StringTerms.Bucket> ordered;
+        private StringTerms.Bucket spare;
+        private long totalDocCount;
+
+        TopTerms(int size) {
+            ordered = new BucketPriorityQueue<>(size, partiallyBuiltBucketComparator);
+        }
+
+        void add(BytesRef term, long docCount) {
+            totalDocCount += docCount;
+            if (docCount < bucketCountThresholds.getShardMinDocCount()) {
+                return;
+            }
+            if (spare == null) {
+                spare = new StringTerms.Bucket(new BytesRef(), 0, InternalAggregations.EMPTY, showTermDocCountError, 0, format);
+            }
+            spare.termBytes = term;
+            spare.docCount = docCount;
+            StringTerms.Bucket evicted = ordered.insertWithOverflow(spare);
+            if (evicted != spare) {
+                // the term bytes are only valid until the next term, copy them now that they are in the queue
+                spare.termBytes = BytesRef.deepCopyOf(term);
+                spare = evicted;
+            }
+        }
+    }
+
+    /**
+     * Reads the terms and counts of a sorted run.
+     */
+    private static class RunReader implements Closeable {
+        private final ChecksumIndexInput in;
+        private final BytesRefBuilder term = new BytesRefBuilder();
+        private long remaining;
+        private long count;
+
+        RunReader(ChecksumIndexInput in) throws IOException {
+            this.in = in;
+            CodecUtil.checkHeader(in, CODEC_NAME, VERSION_CURRENT, VERSION_CURRENT);
+            remaining = in.readVInt();
+        }
+
+        boolean next() throws IOException {
+            if (remaining == 0) {
+                CodecUtil.checkFooter(in);
+                return false;
+            }
+            remaining--;
+            int length = in.readVInt();
+            term.grow(length);
+            term.setLength(length);
+            in.readBytes(term.bytes(), 0, length);
+            count = in.readVLong();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
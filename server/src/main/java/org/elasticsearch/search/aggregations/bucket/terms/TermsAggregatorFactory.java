@@ -107,7 +107,7 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
                     execution = ExecutionMode.fromString(executionHint);
                 }
                 // In some cases, using ordinals is just not supported: override it
-                if (valuesSource instanceof ValuesSource.Bytes.WithOrdinals == false) {
+                if (valuesSource instanceof ValuesSource.Bytes.WithOrdinals == false && execution != ExecutionMode.SPILL) {
                     execution = ExecutionMode.MAP;
                 }
                 if (execution == null) {
@@ -544,14 +544,72 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
                     metadata
                 );
             }
+        },
+        /**
+         * Like {@link #MAP} but writes sorted runs of the terms to disk rather than
+         * growing without bounds, see {@link SpillingStringTermsAggregator}. Falls back
+         * to {@link #MAP} for aggregations that can't be spilled.
+         */
+        SPILL(new ParseField("spill")) {
+
+            @Override
+            Aggregator create(
+                String name,
+                AggregatorFactories factories,
+                ValuesSourceConfig valuesSourceConfig,
+                BucketOrder order,
+                TermsAggregator.BucketCountThresholds bucketCountThresholds,
+                IncludeExclude includeExclude,
+                AggregationContext context,
+                Aggregator parent,
+                SubAggCollectionMode subAggCollectMode,
+                boolean showTermDocCountError,
+                CardinalityUpperBound cardinality,
+                Map<String, Object> metadata
+            ) throws IOException {
+                if (SpillingStringTermsAggregator.canSpill(factories, bucketCountThresholds, context, cardinality) == false) {
+                    return MAP.create(
+                        name,
+                        factories,
+                        valuesSourceConfig,
+                        order,
+                        bucketCountThresholds,
+                        includeExclude,
+                        context,
+                        parent,
+                        subAggCollectMode,
+                        showTermDocCountError,
+                        cardinality,
+                        metadata
+                    );
+                }
+                IncludeExclude.StringFilter filter = includeExclude == null
+                    ? null
+                    : includeExclude.convertToStringFilter(valuesSourceConfig.format());
+                return new SpillingStringTermsAggregator(
+                    name,
+                    factories,
+                    valuesSourceConfig,
+                    order,
+                    valuesSourceConfig.format(),
+                    bucketCountThresholds,
+                    filter,
+                    context,
+                    parent,
+                    subAggCollectMode,
+                    showTermDocCountError,
+                    metadata
+                );
+            }
         };
 
         public static ExecutionMode fromString(String value) {
             return switch (value) {
                 case "global_ordinals" -> GLOBAL_ORDINALS;
                 case "map" -> MAP;
+                case "spill" -> SPILL;
                 default -> throw new IllegalArgumentException(
-                    "Unknown `execution_hint`: [" + value + "], expected any of [map, global_ordinals]"
+                    "Unknown `execution_hint`: [" + value + "], expected any of [map, global_ordinals, spill]"
                 );
             };
         }
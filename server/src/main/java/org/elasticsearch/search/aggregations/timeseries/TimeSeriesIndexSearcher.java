@@ -8,15 +8,24 @@
 
 package org.elasticsearch.search.aggregations.timeseries;
 
+import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ConjunctionUtils;
+import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.PointRangeQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.ScorerSupplier;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
@@ -53,6 +62,7 @@ public class TimeSeriesIndexSearcher {
         int seen = 0;
         query = searcher.rewrite(query);
         Weight weight = searcher.createWeight(query, bucketCollector.scoreMode(), 1);
+        long[] timestampBounds = timestampBounds(query);
 
         // Create LeafWalker for each subreader
         List<LeafWalker> leafWalkers = new ArrayList<>();
@@ -61,9 +71,20 @@ public class TimeSeriesIndexSearcher {
                 checkCancelled();
             }
             LeafBucketCollector leafCollector = bucketCollector.getLeafCollector(leaf);
-            Scorer scorer = weight.scorer(leaf);
+            TimeSeriesTimeRangeIterator timeRange = timestampBounds == null
+                ? null
+                : TimeSeriesTimeRangeIterator.build(leaf.reader(), timestampBounds[0], timestampBounds[1]);
+            if (timeRange != null && timeRange.cost() == 0) {
+                // no time series of this segment has documents in the requested time range
+                continue;
+            }
+            ScorerSupplier scorerSupplier = weight.scorerSupplier(leaf);
+            Scorer scorer = scorerSupplier == null ? null : scorerSupplier.get(timeRange == null ? Long.MAX_VALUE : timeRange.cost());
             if (scorer != null) {
-                LeafWalker leafWalker = new LeafWalker(leaf, scorer, leafCollector);
+                DocIdSetIterator iterator = timeRange == null
+                    ? scorer.iterator()
+                    : ConjunctionUtils.intersectIterators(List.of(timeRange, scorer.iterator()));
+                LeafWalker leafWalker = new LeafWalker(leaf, scorer, iterator, leafCollector);
                 if (leafWalker.nextDoc() != DocIdSetIterator.NO_MORE_DOCS) {
                     leafWalkers.add(leafWalker);
                 }
@@ -97,6 +118,48 @@ public class TimeSeriesIndexSearcher {
         }
     }
 
+    /**
+     * Extracts the range of {@code @timestamp} values that documents must be in to match the query, or {@code null} if the query
+     * doesn't restrict the timestamp. The range is used to skip the time series, and parts of them, that are outside of it.
+     */
+    static long[] timestampBounds(Query query) {
+        if (query instanceof ConstantScoreQuery constantScoreQuery) {
+            return timestampBounds(constantScoreQuery.getQuery());
+        }
+        if (query instanceof BoostQuery boostQuery) {
+            return timestampBounds(boostQuery.getQuery());
+        }
+        if (query instanceof IndexOrDocValuesQuery indexOrDocValuesQuery) {
+            return timestampBounds(indexOrDocValuesQuery.getIndexQuery());
+        }
+        if (query instanceof PointRangeQuery pointRangeQuery) {
+            if (DataStream.TimestampField.FIXED_TIMESTAMP_FIELD.equals(pointRangeQuery.getField())
+                && pointRangeQuery.getNumDims() == 1
+                && pointRangeQuery.getBytesPerDim() == Long.BYTES) {
+                return new long[] {
+                    LongPoint.decodeDimension(pointRangeQuery.getLowerPoint(), 0),
+                    LongPoint.decodeDimension(pointRangeQuery.getUpperPoint(), 0) };
+            }
+            return null;
+        }
+        if (query instanceof BooleanQuery booleanQuery) {
+            long[] bounds = null;
+            for (BooleanClause clause : booleanQuery.clauses()) {
+                if (clause.isRequired() == false) {
+                    continue;
+                }
+                long[] clauseBounds = timestampBounds(clause.getQuery());
+                if (clauseBounds != null) {
+                    bounds = bounds == null
+                        ? clauseBounds
+                        : new long[] { Math.max(bounds[0], clauseBounds[0]), Math.min(bounds[1], clauseBounds[1]) };
+                }
+            }
+            return bounds;
+        }
+        return null;
+    }
+
     // Re-populate the queue with walkers on the same TSID.
     private boolean populateQueue(List<LeafWalker> leafWalkers, PriorityQueue<LeafWalker> queue) throws IOException {
         BytesRef currentTsid = null;
@@ -158,11 +221,11 @@ public class TimeSeriesIndexSearcher {
         int tsidOrd;
         long timestamp;
 
-        LeafWalker(LeafReaderContext context, Scorer scorer, LeafCollector collector) throws IOException {
+        LeafWalker(LeafReaderContext context, Scorer scorer, DocIdSetIterator iterator, LeafCollector collector) throws IOException {
             this.collector = collector;
             liveDocs = context.reader().getLiveDocs();
             this.collector.setScorer(scorer);
-            iterator = scorer.iterator();
+            this.iterator = iterator;
             tsids = DocValues.getSorted(context.reader(), TimeSeriesIdFieldMapper.NAME);
             timestamps = DocValues.getSortedNumeric(context.reader(), DataStream.TimestampField.FIXED_TIMESTAMP_FIELD);
         }
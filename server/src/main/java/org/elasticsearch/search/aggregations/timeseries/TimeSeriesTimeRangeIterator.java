@@ -0,0 +1,254 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.timeseries;
+
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.util.ArrayUtil;
+import org.elasticsearch.cluster.metadata.DataStream;
+import org.elasticsearch.index.mapper.TimeSeriesIdFieldMapper;
+
+import java.io.IOException;
+
+/**
+ * Iterates over the documents of a segment sorted by {@code _tsid} and {@code @timestamp} whose timestamp is within a range.
+ * <p>
+ * Since the documents of a time series are contiguous and sorted by timestamp, the documents of every time series that are within
+ * the range are a single run of doc ids. The boundaries of the time series and of the runs are found by binary searching the doc values
+ * of the segment, so only a logarithmic number of doc values per time series is decoded and whole time series, or the parts of them
+ * outside the range, are skipped without visiting them.
+ */
+final class TimeSeriesTimeRangeIterator extends DocIdSetIterator {
+
+    private final int[] starts;
+    private final int[] ends;
+    private final int numRanges;
+    private final long cost;
+    private int range = 0;
+    private int doc = -1;
+
+    private TimeSeriesTimeRangeIterator(int[] starts, int[] ends, int numRanges) {
+        this.starts = starts;
+        this.ends = ends;
+        this.numRanges = numRanges;
+        long cost = 0;
+        for (int i = 0; i < numRanges; i++) {
+            cost += ends[i] - starts[i];
+        }
+        this.cost = cost;
+    }
+
+    /**
+     * Builds an iterator over the documents of the segment with a timestamp in {@code [from, to]}, or returns {@code null} if the
+     * segment isn't sorted by {@code _tsid} and {@code @timestamp} or if all of its documents are in the range anyway.
+     */
+    static TimeSeriesTimeRangeIterator build(LeafReader reader, long from, long to) throws IOException {
+        final Sort sort = reader.getMetaData().getSort();
+        if (sort == null || sort.getSort().length < 2) {
+            return null;
+        }
+        final SortField tsidSort = sort.getSort()[0];
+        final SortField timestampSort = sort.getSort()[1];
+        if (TimeSeriesIdFieldMapper.NAME.equals(tsidSort.getField()) == false
+            || tsidSort.getReverse()
+            || DataStream.TimestampField.FIXED_TIMESTAMP_FIELD.equals(timestampSort.getField()) == false) {
+            return null;
+        }
+        final int maxDoc = reader.maxDoc();
+        // the points hold the min and max timestamp of the segment without decoding any doc values
+        final PointValues points = reader.getPointValues(DataStream.TimestampField.FIXED_TIMESTAMP_FIELD);
+        if (points != null && points.getDocCount() == maxDoc) {
+            final long min = LongPoint.decodeDimension(points.getMinPackedValue(), 0);
+            final long max = LongPoint.decodeDimension(points.getMaxPackedValue(), 0);
+            if (from <= min && max <= to) {
+                return null;
+            }
+        }
+        final Probe probe = new Probe(reader);
+        final boolean descending = timestampSort.getReverse();
+        int[] starts = new int[16];
+        int[] ends = new int[16];
+        int numRanges = 0;
+        int start = 0;
+        while (start < maxDoc) {
+            final int ord = probe.ordAt(start);
+            if (ord < 0) {
+                // documents without a tsid or timestamp break the sort order we rely on
+                return null;
+            }
+            final int end = probe.tsidEnd(start, ord, maxDoc);
+            final int lo;
+            final int hi;
+            if (descending) {
+                lo = probe.firstTimestamp(start, end, t -> t <= to);
+                hi = probe.firstTimestamp(lo, end, t -> t < from);
+            } else {
+                lo = probe.firstTimestamp(start, end, t -> t >= from);
+                hi = probe.firstTimestamp(lo, end, t -> t > to);
+            }
+            if (probe.missingValues) {
+                return null;
+            }
+            if (lo < hi) {
+                if (numRanges > 0 && ends[numRanges - 1] == lo) {
+                    ends[numRanges - 1] = hi;
+                } else {
+                    starts = ArrayUtil.grow(starts, numRanges + 1);
+                    ends = ArrayUtil.grow(ends, numRanges + 1);
+                    starts[numRanges] = lo;
+                    ends[numRanges] = hi;
+                    numRanges++;
+                }
+            }
+            start = end;
+        }
+        return new TimeSeriesTimeRangeIterator(starts, ends, numRanges);
+    }
+
+    @Override
+    public int docID() {
+        return doc;
+    }
+
+    @Override
+    public int nextDoc() throws IOException {
+        return advance(doc + 1);
+    }
+
+    @Override
+    public int advance(int target) throws IOException {
+        while (range < numRanges && ends[range] <= target) {
+            range++;
+        }
+        if (range == numRanges) {
+            return doc = NO_MORE_DOCS;
+        }
+        return doc = Math.max(target, starts[range]);
+    }
+
+    @Override
+    public long cost() {
+        return cost;
+    }
+
+    @FunctionalInterface
+    private interface LongPredicate {
+        boolean test(long value);
+    }
+
+    /**
+     * Random access to the {@code _tsid} ords and timestamps of a segment. The doc values are pulled once and reused for as long as the
+     * probes move forward. Since doc values can't move backward they are pulled again when a probe goes back past their current doc,
+     * so the searches below scan small windows forward instead of binary searching them.
+     */
+    private static final class Probe {
+        /**
+         * Windows of at most this many docs are scanned forward rather than binary searched.
+         */
+        private static final int LINEAR_SCAN_DOCS = 64;
+
+        private final LeafReader reader;
+        private SortedDocValues tsids;
+        private NumericDocValues timestamps;
+        private boolean missingValues;
+
+        Probe(LeafReader reader) {
+            this.reader = reader;
+        }
+
+        int ordAt(int doc) throws IOException {
+            if (tsids == null || tsids.docID() > doc) {
+                tsids = DocValues.getSorted(reader, TimeSeriesIdFieldMapper.NAME);
+            }
+            return tsids.advanceExact(doc) ? tsids.ordValue() : -1;
+        }
+
+        long timestampAt(int doc) throws IOException {
+            if (timestamps == null || timestamps.docID() > doc) {
+                timestamps = DocValues.unwrapSingleton(
+                    DocValues.getSortedNumeric(reader, DataStream.TimestampField.FIXED_TIMESTAMP_FIELD)
+                );
+                if (timestamps == null) {
+                    missingValues = true;
+                    return Long.MIN_VALUE;
+                }
+            }
+            if (timestamps.advanceExact(doc) == false) {
+                missingValues = true;
+                return Long.MIN_VALUE;
+            }
+            return timestamps.longValue();
+        }
+
+        /**
+         * Returns the first doc after {@code start} that doesn't belong to the time series with the given ord. Most time series are
+         * short compared to the segment, so this scans the first docs and then gallops forward before binary searching.
+         */
+        int tsidEnd(int start, int ord, int maxDoc) throws IOException {
+            final int scanEnd = Math.min(maxDoc, start + LINEAR_SCAN_DOCS);
+            for (int doc = start + 1; doc < scanEnd; doc++) {
+                if (ordAt(doc) != ord) {
+                    return doc;
+                }
+            }
+            final int base = scanEnd - 1;
+            int lo = base;
+            int hi = maxDoc;
+            for (int step = LINEAR_SCAN_DOCS; base + step < maxDoc; step <<= 1) {
+                if (ordAt(base + step) != ord) {
+                    hi = base + step;
+                    break;
+                }
+                lo = base + step;
+            }
+            while (hi - lo > LINEAR_SCAN_DOCS) {
+                final int mid = (lo + hi) >>> 1;
+                if (ordAt(mid) == ord) {
+                    lo = mid;
+                } else {
+                    hi = mid;
+                }
+            }
+            for (int doc = lo + 1; doc < hi; doc++) {
+                if (ordAt(doc) != ord) {
+                    return doc;
+                }
+            }
+            return hi;
+        }
+
+        /**
+         * Returns the first doc in {@code [from, to)} whose timestamp matches the predicate, or {@code to} if there is none. The
+         * predicate must not match a prefix of the docs and match all others.
+         */
+        int firstTimestamp(int from, int to, LongPredicate predicate) throws IOException {
+            int lo = from;
+            int hi = to;
+            while (hi - lo > LINEAR_SCAN_DOCS && missingValues == false) {
+                final int mid = (lo + hi) >>> 1;
+                if (predicate.test(timestampAt(mid))) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            while (lo < hi && missingValues == false && predicate.test(timestampAt(lo)) == false) {
+                lo++;
+            }
+            return lo;
+        }
+    }
+}
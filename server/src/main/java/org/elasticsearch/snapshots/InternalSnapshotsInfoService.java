@@ -100,7 +100,7 @@ public class InternalSnapshotsInfoService implements ClusterStateListener, Snaps
         final ClusterSettings clusterSettings = clusterService.getClusterSettings();
         clusterSettings.addSettingsUpdateConsumer(INTERNAL_SNAPSHOT_INFO_MAX_CONCURRENT_FETCHES_SETTING, this::setMaxConcurrentFetches);
         if (DiscoveryNode.isMasterNode(settings)) {
-            clusterService.addListener(this);
+            clusterService.addIndependentListener(this);
         }
     }
 
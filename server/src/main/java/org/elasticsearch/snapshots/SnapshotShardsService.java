@@ -99,7 +99,7 @@ public class SnapshotShardsService extends AbstractLifecycleComponent implements
         this.remoteFailedRequestDeduplicator = new ResultDeduplicator<>(threadPool.getThreadContext());
         if (DiscoveryNode.canContainData(settings)) {
             // this is only useful on the nodes that can hold data
-            clusterService.addListener(this);
+            clusterService.addIndependentListener(this);
         }
     }
 
@@ -129,6 +129,8 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
 
     public static final Version FILE_INFO_WRITER_UUIDS_IN_SHARD_DATA_VERSION = Version.V_7_16_0;
 
+    public static final Version CONTENT_DEFINED_CHUNKS_VERSION = Version.V_8_2_0;
+
     public static final Version OLD_SNAPSHOT_FORMAT = Version.V_7_5_0;
 
     public static final String POLICY_ID_METADATA_FIELD = "policy";
@@ -2361,6 +2363,16 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
         return repositoryMetaVersion.onOrAfter(FILE_INFO_WRITER_UUIDS_IN_SHARD_DATA_VERSION);
     }
 
+    /**
+     * Checks whether the metadata version supports storing files as content defined chunks in the repository.
+     *
+     * @param repositoryMetaVersion version to check
+     * @return true if version supports storing files as content defined chunks
+     */
+    public static boolean useContentDefinedChunks(Version repositoryMetaVersion) {
+        return repositoryMetaVersion.onOrAfter(CONTENT_DEFINED_CHUNKS_VERSION);
+    }
+
     /** Deletes snapshot from repository
      *
      * @param deleteEntry       delete entry in cluster state
@@ -14,10 +14,13 @@ import net.jpountz.lz4.LZ4FastDecompressor;
 
 import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.DeflateCompressor;
 import org.elasticsearch.core.Booleans;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.lz4.ESLZ4Compressor;
 import org.elasticsearch.lz4.ESLZ4Decompressor;
 
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
@@ -25,11 +28,18 @@ public class Compression {
 
     public enum Scheme {
         LZ4,
-        DEFLATE;
+        DEFLATE,
+        /**
+         * DEFLATE with a preset dictionary that the sender trains from the messages that it recently sent on the same channel, see
+         * {@link OutboundCompressionDictionaries}. Falls back to {@link #DEFLATE} with nodes that do not support it.
+         */
+        DEFLATE_DICTIONARY;
 
         static final Version LZ4_VERSION = Version.V_7_14_0;
+        static final Version DEFLATE_DICTIONARY_VERSION = Version.V_8_2_0;
         static final int HEADER_LENGTH = 4;
         private static final byte[] DEFLATE_HEADER = new byte[] { 'D', 'F', 'L', '\0' };
+        private static final byte[] DEFLATE_DICTIONARY_HEADER = new byte[] { 'D', 'F', 'D', '\0' };
         private static final byte[] LZ4_HEADER = new byte[] { 'L', 'Z', '4', '\0' };
         private static final int LZ4_BLOCK_SIZE;
         private static final boolean USE_FORKED_LZ4;
@@ -58,6 +68,15 @@ public class Compression {
             }
         }
 
+        public static boolean isDeflateDictionary(BytesReference bytes) {
+            byte firstByte = bytes.get(0);
+            if (firstByte != Scheme.DEFLATE_DICTIONARY_HEADER[0]) {
+                return false;
+            } else {
+                return validateHeader(bytes, DEFLATE_DICTIONARY_HEADER);
+            }
+        }
+
         public static boolean isLZ4(BytesReference bytes) {
             byte firstByte = bytes.get(0);
             if (firstByte != Scheme.LZ4_HEADER[0]) {
@@ -94,6 +113,35 @@ public class Compression {
             }
             return new ReuseBuffersLZ4BlockOutputStream(outputStream, LZ4_BLOCK_SIZE, lz4Compressor);
         }
+
+        /**
+         * Writes the header of a {@link #DEFLATE_DICTIONARY} message and returns a stream that compresses with the given dictionary.
+         *
+         * @param dictionaryId the id of the dictionary, or {@code 0} if the message is compressed without dictionary
+         * @param retireBelow  the receiver may forget about the dictionaries whose id is lower than this one
+         * @param dictionary   the dictionary to compress with, or {@code null} to compress without dictionary
+         * @param define       whether to send the dictionary along with the message, because the receiver does not know it yet
+         */
+        public static OutputStream deflateDictionaryOutputStream(
+            OutputStream outputStream,
+            int dictionaryId,
+            int retireBelow,
+            @Nullable byte[] dictionary,
+            boolean define
+        ) throws IOException {
+            assert (dictionaryId == 0) == (dictionary == null);
+            assert define == false || dictionary != null;
+            final DataOutputStream header = new DataOutputStream(outputStream);
+            header.write(DEFLATE_DICTIONARY_HEADER);
+            header.writeInt(dictionaryId);
+            header.writeInt(retireBelow);
+            header.writeInt(define ? dictionary.length : 0);
+            if (define) {
+                header.write(dictionary);
+            }
+            header.flush();
+            return DeflateCompressor.threadLocalRawOutputStream(outputStream, dictionary);
+        }
     }
 
     public enum Enabled {
@@ -0,0 +1,141 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.core.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Builds a DEFLATE preset dictionary out of sample messages, by picking the segments of the samples whose content occurs in most
+ * samples, similar to the COVER algorithm of zstd. The samples are split into as many epochs as the dictionary has segments, and the
+ * best segment of each epoch goes into the dictionary. A segment is scored by summing the number of samples that contain each of its
+ * k-mers, and the k-mers of the selected segments do not count anymore towards the score of the following ones. Only the k-mers that
+ * occur in a significant share of the samples count, which also ignores the noise of hash collisions. The selected segments are ordered
+ * by increasing score, since DEFLATE encodes the content at the end of the dictionary with shorter distances.
+ */
+final class CompressionDictionaryTrainer {
+
+    static final int KMER_LENGTH = 8;
+    static final int SEGMENT_LENGTH = 64;
+    private static final int HASH_BITS = 18;
+
+    private CompressionDictionaryTrainer() {}
+
+    /**
+     * @return a dictionary of at most {@code maxSize} bytes, or {@code null} if the samples have no content in common
+     */
+    @Nullable
+    static byte[] train(List<BytesReference> samples, int maxSize) {
+        final byte[] data = new byte[samples.stream().mapToInt(BytesReference::length).sum()];
+        // the hash of the k-mer that starts at each position, or -1 if the k-mer crosses the end of its sample
+        final int[] hashes = new int[data.length];
+        final int[] frequencies = new int[1 << HASH_BITS];
+        final int[] lastSample = new int[1 << HASH_BITS];
+        Arrays.fill(lastSample, -1);
+
+        int offset = 0;
+        for (int sample = 0; sample < samples.size(); sample++) {
+            final BytesRef bytes = samples.get(sample).toBytesRef();
+            final int length = bytes.length;
+            System.arraycopy(bytes.bytes, bytes.offset, data, offset, length);
+            for (int i = 0; i < length; i++) {
+                if (i + KMER_LENGTH > length) {
+                    hashes[offset + i] = -1;
+                } else {
+                    final int hash = hash(data, offset + i);
+                    hashes[offset + i] = hash;
+                    if (lastSample[hash] != sample) {
+                        lastSample[hash] = sample;
+                        frequencies[hash]++;
+                    }
+                }
+            }
+            offset += length;
+        }
+
+        final int segmentsInDictionary = Math.min(maxSize / SEGMENT_LENGTH, data.length / SEGMENT_LENGTH);
+        if (segmentsInDictionary == 0) {
+            return null;
+        }
+        final int minFrequency = Math.max(2, samples.size() / 8);
+        // a segment must be mostly made of frequent k-mers to be worth including
+        final long minScore = (long) minFrequency * SEGMENT_LENGTH / 2;
+        final int epochLength = data.length / segmentsInDictionary;
+        final List<Segment> segments = new ArrayList<>(segmentsInDictionary);
+        for (int epoch = 0; epoch < segmentsInDictionary; epoch++) {
+            final Segment segment = bestSegment(hashes, frequencies, minFrequency, minScore, epoch * epochLength, epochLength);
+            if (segment != null) {
+                segments.add(segment);
+                for (int i = segment.start(); i < segment.start() + SEGMENT_LENGTH; i++) {
+                    if (hashes[i] != -1) {
+                        frequencies[hashes[i]] = 0;
+                    }
+                }
+            }
+        }
+        if (segments.isEmpty()) {
+            return null;
+        }
+
+        segments.sort(Comparator.comparingLong(Segment::score));
+        final byte[] dictionary = new byte[segments.size() * SEGMENT_LENGTH];
+        for (int i = 0; i < segments.size(); i++) {
+            System.arraycopy(data, segments.get(i).start(), dictionary, i * SEGMENT_LENGTH, SEGMENT_LENGTH);
+        }
+        return dictionary;
+    }
+
+    /**
+     * @return the segment of the given epoch whose k-mers occur in most samples, or {@code null} if no segment reaches the minimum score
+     */
+    @Nullable
+    private static Segment bestSegment(int[] hashes, int[] frequencies, int minFrequency, long minScore, int epochStart, int epochLength) {
+        final int lastStart = epochStart + epochLength - SEGMENT_LENGTH;
+        long score = 0;
+        for (int i = epochStart; i < epochStart + SEGMENT_LENGTH; i++) {
+            score += weight(hashes[i], frequencies, minFrequency);
+        }
+        long bestScore = score;
+        int bestStart = epochStart;
+        for (int start = epochStart + 1; start <= lastStart; start++) {
+            final int added = weight(hashes[start + SEGMENT_LENGTH - 1], frequencies, minFrequency);
+            final int removed = weight(hashes[start - 1], frequencies, minFrequency);
+            score += added - removed;
+            if (score > bestScore) {
+                bestScore = score;
+                bestStart = start;
+            }
+        }
+        return bestScore >= minScore ? new Segment(bestStart, bestScore) : null;
+    }
+
+    private static int weight(int hash, int[] frequencies, int minFrequency) {
+        if (hash == -1) {
+            return 0;
+        }
+        final int frequency = frequencies[hash];
+        return frequency >= minFrequency ? frequency : 0;
+    }
+
+    private static int hash(byte[] data, int offset) {
+        long kmer = 0;
+        for (int i = 0; i < KMER_LENGTH; i++) {
+            kmer = (kmer << 8) | (data[offset + i] & 0xFF);
+        }
+        return (int) ((kmer * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - HASH_BITS));
+    }
+
+    private record Segment(int start, long score) {}
+}
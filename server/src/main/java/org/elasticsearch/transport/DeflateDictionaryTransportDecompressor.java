@@ -0,0 +1,102 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.Numbers;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.recycler.Recycler;
+
+import java.io.IOException;
+
+/**
+ * Decompresses {@link Compression.Scheme#DEFLATE_DICTIONARY} messages. The compressed bytes start with a preamble that consists of the
+ * header of the scheme, the id of the dictionary that the message was compressed with, the id below which dictionaries may be forgotten
+ * and the length of the dictionary that the message defines followed by its bytes, if any. The raw DEFLATE stream follows.
+ */
+public class DeflateDictionaryTransportDecompressor extends DeflateTransportDecompressor {
+
+    private static final int FIXED_PREAMBLE_LENGTH = Compression.Scheme.HEADER_LENGTH + 3 * Integer.BYTES;
+
+    private final InboundCompressionDictionaries dictionaries;
+    private final byte[] fixedPreamble = new byte[FIXED_PREAMBLE_LENGTH];
+    private int fixedPreambleRead = 0;
+    private byte[] definition;
+    private int definitionRead = 0;
+    private boolean hasReadPreamble = false;
+
+    DeflateDictionaryTransportDecompressor(Recycler<BytesRef> recycler, InboundCompressionDictionaries dictionaries) {
+        super(recycler, false);
+        this.dictionaries = dictionaries;
+    }
+
+    @Override
+    public int decompress(BytesReference bytesReference) throws IOException {
+        if (hasReadPreamble) {
+            return super.decompress(bytesReference);
+        }
+        final int preambleBytes = readPreamble(bytesReference);
+        if (hasReadPreamble == false) {
+            assert preambleBytes == bytesReference.length();
+            return preambleBytes;
+        }
+        return preambleBytes + super.decompress(bytesReference.slice(preambleBytes, bytesReference.length() - preambleBytes));
+    }
+
+    private int readPreamble(BytesReference bytes) {
+        int offset = 0;
+        if (fixedPreambleRead < FIXED_PREAMBLE_LENGTH) {
+            offset = copy(bytes, 0, fixedPreamble, fixedPreambleRead, FIXED_PREAMBLE_LENGTH - fixedPreambleRead);
+            fixedPreambleRead += offset;
+            if (fixedPreambleRead < FIXED_PREAMBLE_LENGTH) {
+                return offset;
+            }
+            final int definitionLength = Numbers.bytesToInt(fixedPreamble, Compression.Scheme.HEADER_LENGTH + 2 * Integer.BYTES);
+            if (definitionLength < 0 || definitionLength > OutboundCompressionDictionaries.MAX_DICTIONARY_SIZE) {
+                throw new IllegalStateException("invalid compression dictionary length [" + definitionLength + "]");
+            }
+            definition = new byte[definitionLength];
+        }
+        final int copied = copy(bytes, offset, definition, definitionRead, definition.length - definitionRead);
+        definitionRead += copied;
+        offset += copied;
+        if (definitionRead == definition.length) {
+            onPreambleRead();
+        }
+        return offset;
+    }
+
+    private void onPreambleRead() {
+        final int dictionaryId = Numbers.bytesToInt(fixedPreamble, Compression.Scheme.HEADER_LENGTH);
+        final int retireBelow = Numbers.bytesToInt(fixedPreamble, Compression.Scheme.HEADER_LENGTH + Integer.BYTES);
+        if (definition.length > 0) {
+            dictionaries.define(dictionaryId, definition);
+        }
+        dictionaries.retireBelow(retireBelow);
+        if (dictionaryId != 0) {
+            setDictionary(dictionaries.get(dictionaryId));
+        }
+        definition = null;
+        hasReadPreamble = true;
+    }
+
+    private static int copy(BytesReference source, int sourceOffset, byte[] target, int targetOffset, int maxLength) {
+        final int length = Math.min(maxLength, source.length() - sourceOffset);
+        if (length > 0) {
+            final BytesRef bytesRef = source.slice(sourceOffset, length).toBytesRef();
+            System.arraycopy(bytesRef.bytes, bytesRef.offset, target, targetOffset, length);
+        }
+        return length;
+    }
+
+    @Override
+    public Compression.Scheme getScheme() {
+        return Compression.Scheme.DEFLATE_DICTIONARY;
+    }
+}
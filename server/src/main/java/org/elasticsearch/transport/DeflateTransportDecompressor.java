@@ -31,9 +31,25 @@ public class DeflateTransportDecompressor implements TransportDecompressor {
     private boolean hasSkippedHeader = false;
 
     public DeflateTransportDecompressor(Recycler<BytesRef> recycler) {
+        this(recycler, true);
+    }
+
+    /**
+     * @param hasHeader whether the compressed bytes start with the header of the scheme, which is skipped
+     */
+    DeflateTransportDecompressor(Recycler<BytesRef> recycler, boolean hasHeader) {
         this.recycler = recycler;
         inflater = new Inflater(true);
         pages = new ArrayDeque<>(4);
+        hasSkippedHeader = hasHeader == false;
+    }
+
+    /**
+     * Sets the preset dictionary that the bytes were compressed with, before any bytes are decompressed.
+     */
+    void setDictionary(byte[] dictionary) {
+        assert pages.isEmpty() : "dictionary must be set before decompressing";
+        inflater.setDictionary(dictionary);
     }
 
     @Override
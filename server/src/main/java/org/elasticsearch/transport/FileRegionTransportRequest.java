@@ -0,0 +1,38 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.FileRegionBytesReference;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.core.Nullable;
+
+import java.io.IOException;
+
+/**
+ * Requests that implement this interface end with a region of a file which, if the message is not compressed, is not copied into
+ * the serialized message. Transports whose channels support it copy the region from the file to the network directly, other
+ * transports read it when they send the message.
+ */
+public interface FileRegionTransportRequest {
+
+    /**
+     * @return the region of a file that the serialized request ends with when sent to a node of the given version, or {@code null}
+     *         if the request is to be serialized with {@link Writeable#writeTo} as usual
+     */
+    @Nullable
+    FileRegionBytesReference fileRegion(Version version);
+
+    /**
+     * Writes the request like {@link Writeable#writeTo}, except for the bytes of the {@link #fileRegion} which are appended right
+     * after this content.
+     */
+    void writeThin(StreamOutput out) throws IOException;
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * The dictionaries that the remote end of a channel defined for the {@link Compression.Scheme#DEFLATE_DICTIONARY} messages that it sends
+ * on this channel, see {@link OutboundCompressionDictionaries}. Only accessed by the thread that decodes the inbound messages of the
+ * channel.
+ */
+final class InboundCompressionDictionaries {
+
+    private final NavigableMap<Integer, byte[]> dictionaries = new TreeMap<>();
+
+    void define(int id, byte[] dictionary) {
+        if (id <= 0) {
+            throw new IllegalStateException("invalid compression dictionary id [" + id + "]");
+        }
+        if (dictionaries.isEmpty() == false && id < dictionaries.lastKey()) {
+            throw new IllegalStateException(
+                "compression dictionary [" + id + "] is defined after compression dictionary [" + dictionaries.lastKey() + "]"
+            );
+        }
+        if (dictionary.length > OutboundCompressionDictionaries.MAX_DICTIONARY_SIZE) {
+            throw new IllegalStateException("compression dictionary [" + id + "] is too large [" + dictionary.length + "]");
+        }
+        dictionaries.put(id, dictionary);
+    }
+
+    /**
+     * Forgets about the dictionaries whose id is lower than the given one, which the remote end no longer uses.
+     */
+    void retireBelow(int id) {
+        dictionaries.headMap(id, false).clear();
+    }
+
+    byte[] get(int id) {
+        final byte[] dictionary = dictionaries.get(id);
+        if (dictionary == null) {
+            throw new IllegalStateException("unknown compression dictionary [" + id + "]");
+        }
+        return dictionary;
+    }
+
+    int size() {
+        return dictionaries.size();
+    }
+}
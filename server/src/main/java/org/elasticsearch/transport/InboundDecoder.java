@@ -27,6 +27,7 @@ public class InboundDecoder implements Releasable {
 
     private final Version version;
     private final Recycler<BytesRef> recycler;
+    private final InboundCompressionDictionaries compressionDictionaries = new InboundCompressionDictionaries();
     private TransportDecompressor decompressor;
     private int totalNetworkSize = -1;
     private int bytesConsumed = 0;
@@ -79,7 +80,7 @@ public class InboundDecoder implements Releasable {
         } else {
             if (isCompressed && decompressor == null) {
                 // Attempt to initialize decompressor
-                TransportDecompressor decompressor = TransportDecompressor.getDecompressor(recycler, reference);
+                TransportDecompressor decompressor = TransportDecompressor.getDecompressor(recycler, compressionDictionaries, reference);
                 if (decompressor == null) {
                     return 0;
                 } else {
@@ -64,6 +64,13 @@ public abstract class NetworkMessage {
     }
 
     private static Compression.Scheme adjustedScheme(Version version, Compression.Scheme compressionScheme) {
-        return compressionScheme == Compression.Scheme.LZ4 && version.before(Compression.Scheme.LZ4_VERSION) ? null : compressionScheme;
+        if (compressionScheme == Compression.Scheme.LZ4 && version.before(Compression.Scheme.LZ4_VERSION)) {
+            return null;
+        } else if (compressionScheme == Compression.Scheme.DEFLATE_DICTIONARY
+            && version.before(Compression.Scheme.DEFLATE_DICTIONARY_VERSION)) {
+            return Compression.Scheme.DEFLATE;
+        } else {
+            return compressionScheme;
+        }
     }
 }
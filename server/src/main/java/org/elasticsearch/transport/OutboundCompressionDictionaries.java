@@ -0,0 +1,250 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.core.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * The dictionaries that the {@link Compression.Scheme#DEFLATE_DICTIONARY} messages sent on a channel are compressed with. The
+ * dictionaries are trained from samples of the messages recently sent on the channel, and are sent to the remote end along with the
+ * first message that uses them.
+ * <p>
+ * Messages are serialized concurrently and may be written to the channel in a different order than they were serialized in, so a
+ * message may only use a dictionary without sending it once the message that sends it has been written. Likewise, the remote end may
+ * only forget about a dictionary once all the messages that use it have been written: each message tells the remote end the id of the
+ * oldest dictionary that may still be used by messages that are not written yet.
+ */
+final class OutboundCompressionDictionaries {
+
+    private static final Logger logger = LogManager.getLogger(OutboundCompressionDictionaries.class);
+
+    /**
+     * The size of the DEFLATE window, which the part of a dictionary that is used cannot exceed.
+     */
+    static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+
+    /**
+     * Only the beginning of messages is sampled, which is enough to capture the repetitive parts of large messages and bounds the
+     * memory that the samples use.
+     */
+    static final int MAX_SAMPLE_SIZE = 4 * 1024;
+
+    /**
+     * Number of sampled messages that a dictionary is trained from.
+     */
+    static final int TRAINING_SAMPLES = 64;
+
+    /**
+     * Number of messages after which a new dictionary is trained, so that the dictionary follows the messages sent on the channel.
+     */
+    static final int RETRAINING_INTERVAL = 10_000;
+
+    private final Executor trainingExecutor;
+    private final int retrainingInterval;
+    // the dictionaries that may still be used by messages that are not written yet, by increasing id
+    private final Deque<Dictionary> liveDictionaries = new ArrayDeque<>();
+    private List<BytesReference> samples = new ArrayList<>(TRAINING_SAMPLES);
+    // the dictionary that messages use, which the remote end knows about
+    private Dictionary current;
+    // the dictionary that the next message sends to the remote end
+    private Dictionary pending;
+    private boolean sendingPending;
+    private boolean training;
+    private int messagesSinceTraining;
+    private int nextId = 1;
+
+    OutboundCompressionDictionaries(Executor trainingExecutor) {
+        this(trainingExecutor, RETRAINING_INTERVAL);
+    }
+
+    OutboundCompressionDictionaries(Executor trainingExecutor, int retrainingInterval) {
+        this.trainingExecutor = trainingExecutor;
+        this.retrainingInterval = retrainingInterval;
+        // so that the first messages are sampled
+        this.messagesSinceTraining = retrainingInterval;
+    }
+
+    /**
+     * Picks the dictionary to compress a message with, which must be released once the message is written or failed to be written.
+     */
+    synchronized Lease acquire() {
+        messagesSinceTraining++;
+        final Dictionary dictionary;
+        final boolean define;
+        if (pending != null && sendingPending == false) {
+            dictionary = pending;
+            define = true;
+            sendingPending = true;
+        } else {
+            dictionary = current;
+            define = false;
+        }
+        if (dictionary != null) {
+            dictionary.inFlight++;
+        }
+        final int retireBelow = liveDictionaries.isEmpty() ? 0 : liveDictionaries.peekFirst().id;
+        final boolean sample = training == false
+            && pending == null
+            && samples.size() < TRAINING_SAMPLES
+            && messagesSinceTraining >= retrainingInterval;
+        return new Lease(dictionary, define, retireBelow, sample);
+    }
+
+    private synchronized void release(Lease lease, boolean written) {
+        if (lease.dictionary != null) {
+            lease.dictionary.inFlight--;
+            assert lease.dictionary.inFlight >= 0;
+        }
+        if (lease.define) {
+            assert sendingPending && pending == lease.dictionary;
+            sendingPending = false;
+            if (written) {
+                current = pending;
+                pending = null;
+            }
+        }
+        while (liveDictionaries.isEmpty() == false) {
+            final Dictionary oldest = liveDictionaries.peekFirst();
+            if (oldest == current || oldest == pending || oldest.inFlight > 0) {
+                break;
+            }
+            liveDictionaries.pollFirst();
+        }
+    }
+
+    private void addSample(BytesReference sample) {
+        final List<BytesReference> trainingSamples;
+        synchronized (this) {
+            if (training || samples.size() >= TRAINING_SAMPLES) {
+                return;
+            }
+            samples.add(sample);
+            if (samples.size() < TRAINING_SAMPLES) {
+                return;
+            }
+            trainingSamples = samples;
+            samples = new ArrayList<>(TRAINING_SAMPLES);
+            training = true;
+        }
+        trainingExecutor.execute(new AbstractRunnable() {
+            @Override
+            protected void doRun() {
+                onTrained(CompressionDictionaryTrainer.train(trainingSamples, MAX_DICTIONARY_SIZE));
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                logger.debug("failed to train transport compression dictionary", e);
+                onTrained(null);
+            }
+        });
+    }
+
+    private synchronized void onTrained(@Nullable byte[] dictionary) {
+        assert training;
+        training = false;
+        messagesSinceTraining = 0;
+        if (dictionary != null && pending == null) {
+            pending = new Dictionary(nextId++, dictionary);
+            liveDictionaries.addLast(pending);
+        }
+    }
+
+    // exposed for tests
+    synchronized int liveDictionaries() {
+        return liveDictionaries.size();
+    }
+
+    private static final class Dictionary {
+        private final int id;
+        private final byte[] bytes;
+        // the number of messages that use the dictionary and are not written yet
+        private int inFlight;
+
+        private Dictionary(int id, byte[] bytes) {
+            assert bytes.length <= MAX_DICTIONARY_SIZE;
+            this.id = id;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * The dictionary that a message is compressed with.
+     */
+    final class Lease {
+
+        @Nullable
+        private final Dictionary dictionary;
+        private final boolean define;
+        private final int retireBelow;
+        private final boolean sample;
+
+        private Lease(@Nullable Dictionary dictionary, boolean define, int retireBelow, boolean sample) {
+            this.dictionary = dictionary;
+            this.define = define;
+            this.retireBelow = retireBelow;
+            this.sample = sample;
+        }
+
+        /**
+         * @return the id of the dictionary, or {@code 0} if the message is compressed without dictionary
+         */
+        int dictionaryId() {
+            return dictionary == null ? 0 : dictionary.id;
+        }
+
+        @Nullable
+        byte[] dictionary() {
+            return dictionary == null ? null : dictionary.bytes;
+        }
+
+        /**
+         * @return whether the message sends the dictionary to the remote end
+         */
+        boolean define() {
+            return define;
+        }
+
+        /**
+         * @return the id below which the remote end may forget about dictionaries
+         */
+        int retireBelow() {
+            return retireBelow;
+        }
+
+        /**
+         * @return whether the uncompressed bytes of the message should be passed to {@link #offerSample}
+         */
+        boolean sample() {
+            return sample;
+        }
+
+        void offerSample(BytesReference sample) {
+            assert this.sample;
+            addSample(sample);
+        }
+
+        /**
+         * @param written whether the message was written to the channel
+         */
+        void release(boolean written) {
+            OutboundCompressionDictionaries.this.release(this, written);
+        }
+    }
+}
@@ -18,17 +18,20 @@ import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.FileRegionBytesReference;
 import org.elasticsearch.common.io.stream.RecyclerBytesStreamOutput;
 import org.elasticsearch.common.network.CloseableChannel;
 import org.elasticsearch.common.network.HandlingTimeTracker;
 import org.elasticsearch.common.recycler.Recycler;
 import org.elasticsearch.common.transport.NetworkExceptionHelper;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
+import java.util.Map;
 
 final class OutboundHandler {
 
@@ -41,6 +44,7 @@ final class OutboundHandler {
     private final Recycler<BytesRef> recycler;
     private final HandlingTimeTracker handlingTimeTracker;
     private final boolean rstOnClose;
+    private final Map<TcpChannel, OutboundCompressionDictionaries> compressionDictionaries = ConcurrentCollections.newConcurrentMap();
 
     private volatile long slowLogThresholdMs = Long.MAX_VALUE;
 
@@ -164,18 +168,76 @@ final class OutboundHandler {
 
     private void sendMessage(TcpChannel channel, OutboundMessage networkMessage, ActionListener<Void> listener) throws IOException {
         final RecyclerBytesStreamOutput byteStreamOutput = new RecyclerBytesStreamOutput(recycler);
-        final ActionListener<Void> wrappedListener = ActionListener.runBefore(listener, byteStreamOutput::close);
+        final OutboundCompressionDictionaries.Lease compressionDictionary;
+        if (networkMessage.isCompress() && networkMessage.compressionScheme == Compression.Scheme.DEFLATE_DICTIONARY) {
+            compressionDictionary = compressionDictionaries(channel).acquire();
+        } else {
+            compressionDictionary = null;
+        }
+        final ActionListener<Void> wrappedListener = releasingListener(
+            ActionListener.runBefore(listener, byteStreamOutput::close),
+            compressionDictionary
+        );
         final BytesReference message;
         try {
-            message = networkMessage.serialize(byteStreamOutput);
+            message = networkMessage.serialize(byteStreamOutput, compressionDictionary);
         } catch (Exception e) {
             logger.warn(() -> new ParameterizedMessage("failed to serialize outbound message [{}]", networkMessage), e);
             wrappedListener.onFailure(e);
             throw e;
         }
+        if (networkMessage.isCompress()) {
+            statsTracker.markMessageCompressed(
+                networkMessage.uncompressedLength(),
+                networkMessage.compressedLength(),
+                networkMessage.compressionTimeNanos()
+            );
+        }
         internalSend(channel, message, networkMessage, wrappedListener);
     }
 
+    private OutboundCompressionDictionaries compressionDictionaries(TcpChannel channel) {
+        final OutboundCompressionDictionaries existing = compressionDictionaries.get(channel);
+        if (existing != null) {
+            return existing;
+        }
+        final OutboundCompressionDictionaries dictionaries = new OutboundCompressionDictionaries(threadPool.generic());
+        final OutboundCompressionDictionaries raced = compressionDictionaries.putIfAbsent(channel, dictionaries);
+        if (raced != null) {
+            return raced;
+        }
+        // registered outside of the map update since the listener is completed right away if the channel is already closed
+        channel.addCloseListener(ActionListener.wrap(() -> compressionDictionaries.remove(channel)));
+        return dictionaries;
+    }
+
+    private static ActionListener<Void> releasingListener(
+        ActionListener<Void> listener,
+        @Nullable OutboundCompressionDictionaries.Lease compressionDictionary
+    ) {
+        if (compressionDictionary == null) {
+            return listener;
+        }
+        return new ActionListener<>() {
+            @Override
+            public void onResponse(Void v) {
+                compressionDictionary.release(true);
+                listener.onResponse(v);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                compressionDictionary.release(false);
+                listener.onFailure(e);
+            }
+
+            @Override
+            public String toString() {
+                return listener.toString();
+            }
+        };
+    }
+
     private void internalSend(
         TcpChannel channel,
         BytesReference reference,
@@ -188,7 +250,7 @@ final class OutboundHandler {
         TransportLogger.logOutboundMessage(channel, reference);
         // stash thread context so that channel event loop is not polluted by thread context
         try (ThreadContext.StoredContext existing = threadPool.getThreadContext().stashContext()) {
-            channel.sendMessage(reference, new ActionListener<>() {
+            final ActionListener<Void> sendListener = new ActionListener<>() {
                 @Override
                 public void onResponse(Void v) {
                     statsTracker.markBytesWritten(messageSize);
@@ -233,7 +295,15 @@ final class OutboundHandler {
                         }
                     }
                 }
-            });
+            };
+            final FileRegionBytesReference fileRegion = message == null ? null : message.fileRegion();
+            if (fileRegion == null) {
+                channel.sendMessage(reference, sendListener);
+            } else {
+                // the message ends with the region of the file, which the channel may copy to the network without reading it
+                final BytesReference prefix = reference.slice(0, reference.length() - fileRegion.length());
+                channel.sendMessage(prefix, fileRegion, sendListener);
+            }
         } catch (RuntimeException ex) {
             listener.onFailure(ex);
             CloseableChannel.closeChannel(channel);
@@ -12,6 +12,7 @@ import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.bytes.FileRegionBytesReference;
 import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
@@ -19,13 +20,23 @@ import org.elasticsearch.common.io.stream.RecyclerBytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.core.Nullable;
 
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
 abstract class OutboundMessage extends NetworkMessage {
 
     protected final Writeable message;
 
+    @Nullable
+    private FileRegionBytesReference fileRegion;
+
+    private long uncompressedLength = -1L;
+    private long compressedLength = -1L;
+    private long compressionTimeNanos = -1L;
+
     OutboundMessage(
         ThreadContext threadContext,
         Version version,
@@ -39,6 +50,17 @@ abstract class OutboundMessage extends NetworkMessage {
     }
 
     BytesReference serialize(RecyclerBytesStreamOutput bytesStream) throws IOException {
+        return serialize(bytesStream, null);
+    }
+
+    /**
+     * @param compressionDictionary the dictionary to compress with if the message uses {@link Compression.Scheme#DEFLATE_DICTIONARY},
+     *                              which compresses without dictionary if {@code null}
+     */
+    BytesReference serialize(
+        RecyclerBytesStreamOutput bytesStream,
+        @Nullable OutboundCompressionDictionaries.Lease compressionDictionary
+    ) throws IOException {
         bytesStream.setVersion(version);
         bytesStream.skip(TcpHeader.headerSize(version));
 
@@ -53,16 +75,29 @@ abstract class OutboundMessage extends NetworkMessage {
         }
 
         final boolean compress = TransportStatus.isCompress(status);
-        final StreamOutput stream = compress ? wrapCompressed(bytesStream) : bytesStream;
+        final long compressionStartNanos = compress ? System.nanoTime() : 0L;
+        final long compressionStartPosition = bytesStream.position();
+        final UncompressedBytesCounter uncompressedBytes = compress
+            ? new UncompressedBytesCounter(wrapCompressed(bytesStream, compressionDictionary), compressionDictionary)
+            : null;
+        final StreamOutput stream = compress ? new OutputStreamStreamOutput(uncompressedBytes) : bytesStream;
         final BytesReference zeroCopyBuffer;
         try {
             stream.setVersion(version);
             if (variableHeaderLength == -1) {
                 writeVariableHeader(stream);
             }
+            // a region of a file is only appended as is if it does not need to go through the compressing stream
+            final FileRegionBytesReference region = compress == false && message instanceof FileRegionTransportRequest fRequest
+                ? fRequest.fileRegion(version)
+                : null;
             if (message instanceof BytesTransportRequest bRequest) {
                 bRequest.writeThin(stream);
                 zeroCopyBuffer = bRequest.bytes;
+            } else if (region != null) {
+                ((FileRegionTransportRequest) message).writeThin(stream);
+                zeroCopyBuffer = region;
+                fileRegion = region;
             } else if (message instanceof RemoteTransportException) {
                 stream.writeException((RemoteTransportException) message);
                 zeroCopyBuffer = BytesArray.EMPTY;
@@ -77,6 +112,12 @@ abstract class OutboundMessage extends NetworkMessage {
                 stream.close();
             }
         }
+        if (compress) {
+            compressionTimeNanos = System.nanoTime() - compressionStartNanos;
+            uncompressedLength = uncompressedBytes.count;
+            compressedLength = bytesStream.position() - compressionStartPosition;
+            uncompressedBytes.offerSample();
+        }
         final BytesReference message = bytesStream.bytes();
         if (zeroCopyBuffer.length() == 0) {
             reference = message;
@@ -90,13 +131,57 @@ abstract class OutboundMessage extends NetworkMessage {
         return reference;
     }
 
+    /**
+     * @return the region of a file that the serialized message ends with, if the transport may copy it to the network directly
+     */
+    @Nullable
+    FileRegionBytesReference fileRegion() {
+        return fileRegion;
+    }
+
+    /**
+     * @return the number of bytes that were compressed, or {@code -1} if the message is not compressed
+     */
+    long uncompressedLength() {
+        return uncompressedLength;
+    }
+
+    /**
+     * @return the number of bytes that the message was compressed into, or {@code -1} if the message is not compressed
+     */
+    long compressedLength() {
+        return compressedLength;
+    }
+
+    /**
+     * @return the time spent serializing and compressing the compressed part of the message, or {@code -1} if the message is not
+     *         compressed
+     */
+    long compressionTimeNanos() {
+        return compressionTimeNanos;
+    }
+
     // compressed stream wrapped bytes must be no-close wrapped since we need to close the compressed wrapper below to release
     // resources and write EOS marker bytes but must not yet release the bytes themselves
-    private StreamOutput wrapCompressed(RecyclerBytesStreamOutput bytesStream) throws IOException {
+    private OutputStream wrapCompressed(
+        RecyclerBytesStreamOutput bytesStream,
+        @Nullable OutboundCompressionDictionaries.Lease compressionDictionary
+    ) throws IOException {
         if (compressionScheme == Compression.Scheme.DEFLATE) {
-            return new OutputStreamStreamOutput(CompressorFactory.COMPRESSOR.threadLocalOutputStream(Streams.noCloseStream(bytesStream)));
+            return CompressorFactory.COMPRESSOR.threadLocalOutputStream(Streams.noCloseStream(bytesStream));
         } else if (compressionScheme == Compression.Scheme.LZ4) {
-            return new OutputStreamStreamOutput(Compression.Scheme.lz4OutputStream(Streams.noCloseStream(bytesStream)));
+            return Compression.Scheme.lz4OutputStream(Streams.noCloseStream(bytesStream));
+        } else if (compressionScheme == Compression.Scheme.DEFLATE_DICTIONARY) {
+            if (compressionDictionary == null) {
+                return Compression.Scheme.deflateDictionaryOutputStream(Streams.noCloseStream(bytesStream), 0, 0, null, false);
+            }
+            return Compression.Scheme.deflateDictionaryOutputStream(
+                Streams.noCloseStream(bytesStream),
+                compressionDictionary.dictionaryId(),
+                compressionDictionary.retireBelow(),
+                compressionDictionary.dictionary(),
+                compressionDictionary.define()
+            );
         } else {
             throw new IllegalArgumentException("Invalid compression scheme: " + compressionScheme);
         }
@@ -106,6 +191,51 @@ abstract class OutboundMessage extends NetworkMessage {
         threadContext.writeTo(stream);
     }
 
+    /**
+     * Counts the bytes written to the compressing stream, and keeps a copy of the first ones if the compression dictionary wants a
+     * sample of the message.
+     */
+    private static final class UncompressedBytesCounter extends FilterOutputStream {
+
+        @Nullable
+        private final OutboundCompressionDictionaries.Lease compressionDictionary;
+        @Nullable
+        private final byte[] sample;
+        private long count;
+
+        UncompressedBytesCounter(OutputStream out, @Nullable OutboundCompressionDictionaries.Lease compressionDictionary) {
+            super(out);
+            this.compressionDictionary = compressionDictionary;
+            this.sample = compressionDictionary != null && compressionDictionary.sample()
+                ? new byte[OutboundCompressionDictionaries.MAX_SAMPLE_SIZE]
+                : null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (sample != null && count < sample.length) {
+                sample[(int) count] = (byte) b;
+            }
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (sample != null && count < sample.length) {
+                System.arraycopy(b, off, sample, (int) count, (int) Math.min(len, sample.length - count));
+            }
+            count += len;
+        }
+
+        void offerSample() {
+            if (sample != null) {
+                compressionDictionary.offerSample(new BytesArray(sample, 0, (int) Math.min(count, sample.length)));
+            }
+        }
+    }
+
     static class Request extends OutboundMessage {
 
         private final String action;
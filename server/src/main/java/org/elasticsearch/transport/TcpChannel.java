@@ -10,6 +10,8 @@ package org.elasticsearch.transport;
 
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.bytes.FileRegionBytesReference;
 import org.elasticsearch.common.network.CloseableChannel;
 import org.elasticsearch.core.TimeValue;
 
@@ -55,6 +57,19 @@ public interface TcpChannel extends CloseableChannel {
      */
     void sendMessage(BytesReference reference, ActionListener<Void> listener);
 
+    /**
+     * Sends a tcp message which ends with a region of a file to the channel. The listener will be executed once the send process
+     * has been completed. Channels that can copy the region from the file to the network directly should override this method,
+     * by default the region is read into memory and sent along with the rest of the message.
+     *
+     * @param prefix the start of the message, which the region of the file follows
+     * @param fileRegion the end of the message
+     * @param listener to execute upon send completion
+     */
+    default void sendMessage(BytesReference prefix, FileRegionBytesReference fileRegion, ActionListener<Void> listener) {
+        sendMessage(CompositeBytesReference.of(prefix, fileRegion), listener);
+    }
+
     /**
      * Adds a listener that will be executed when the channel is connected. If the channel is still
      * unconnected when this listener is added, the listener will be executed by the thread that eventually
@@ -972,7 +972,10 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             messagesSent,
             bytesWritten,
             networkService.getHandlingTimeTracker().getHistogram(),
-            outboundHandlingTimeTracker.getHistogram()
+            outboundHandlingTimeTracker.getHistogram(),
+            statsTracker.getUncompressedBytes(),
+            statsTracker.getCompressedBytes(),
+            statsTracker.getCompressionTimeNanos()
         );
     }
 
@@ -33,7 +33,11 @@ public interface TransportDecompressor extends Releasable {
     @Override
     void close();
 
-    static TransportDecompressor getDecompressor(Recycler<BytesRef> recycler, BytesReference bytes) throws IOException {
+    static TransportDecompressor getDecompressor(
+        Recycler<BytesRef> recycler,
+        InboundCompressionDictionaries compressionDictionaries,
+        BytesReference bytes
+    ) throws IOException {
         if (bytes.length() < Compression.Scheme.HEADER_LENGTH) {
             return null;
         }
@@ -42,6 +46,8 @@ public interface TransportDecompressor extends Releasable {
             return new DeflateTransportDecompressor(recycler);
         } else if (Compression.Scheme.isLZ4(bytes)) {
             return new Lz4TransportDecompressor(recycler);
+        } else if (Compression.Scheme.isDeflateDictionary(bytes)) {
+            return new DeflateDictionaryTransportDecompressor(recycler, compressionDictionaries);
         } else {
             throw createIllegalState(bytes);
         }
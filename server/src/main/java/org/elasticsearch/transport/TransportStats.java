@@ -13,7 +13,9 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.network.HandlingTimeTracker;
+import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.xcontent.ToXContentFragment;
 import org.elasticsearch.xcontent.XContentBuilder;
 
@@ -30,6 +32,9 @@ public class TransportStats implements Writeable, ToXContentFragment {
     private final long txSize;
     private final long[] inboundHandlingTimeBucketFrequencies;
     private final long[] outboundHandlingTimeBucketFrequencies;
+    private final long txUncompressedSize;
+    private final long txCompressedSize;
+    private final long txCompressionTimeNanos;
 
     public TransportStats(
         long serverOpen,
@@ -39,7 +44,10 @@ public class TransportStats implements Writeable, ToXContentFragment {
         long txCount,
         long txSize,
         long[] inboundHandlingTimeBucketFrequencies,
-        long[] outboundHandlingTimeBucketFrequencies
+        long[] outboundHandlingTimeBucketFrequencies,
+        long txUncompressedSize,
+        long txCompressedSize,
+        long txCompressionTimeNanos
     ) {
         this.serverOpen = serverOpen;
         this.totalOutboundConnections = totalOutboundConnections;
@@ -49,6 +57,9 @@ public class TransportStats implements Writeable, ToXContentFragment {
         this.txSize = txSize;
         this.inboundHandlingTimeBucketFrequencies = inboundHandlingTimeBucketFrequencies;
         this.outboundHandlingTimeBucketFrequencies = outboundHandlingTimeBucketFrequencies;
+        this.txUncompressedSize = txUncompressedSize;
+        this.txCompressedSize = txCompressedSize;
+        this.txCompressionTimeNanos = txCompressionTimeNanos;
         assert assertHistogramsConsistent();
     }
 
@@ -72,6 +83,15 @@ public class TransportStats implements Writeable, ToXContentFragment {
             inboundHandlingTimeBucketFrequencies = new long[0];
             outboundHandlingTimeBucketFrequencies = new long[0];
         }
+        if (in.getVersion().onOrAfter(Version.V_8_2_0)) {
+            txUncompressedSize = in.readVLong();
+            txCompressedSize = in.readVLong();
+            txCompressionTimeNanos = in.readVLong();
+        } else {
+            txUncompressedSize = 0L;
+            txCompressedSize = 0L;
+            txCompressionTimeNanos = 0L;
+        }
         assert assertHistogramsConsistent();
     }
 
@@ -93,6 +113,11 @@ public class TransportStats implements Writeable, ToXContentFragment {
                 out.writeVLong(handlingTimeBucketFrequency);
             }
         }
+        if (out.getVersion().onOrAfter(Version.V_8_2_0)) {
+            out.writeVLong(txUncompressedSize);
+            out.writeVLong(txCompressedSize);
+            out.writeVLong(txCompressionTimeNanos);
+        }
     }
 
     public long serverOpen() {
@@ -143,6 +168,27 @@ public class TransportStats implements Writeable, ToXContentFragment {
         return Arrays.copyOf(outboundHandlingTimeBucketFrequencies, outboundHandlingTimeBucketFrequencies.length);
     }
 
+    /**
+     * @return the size of the outbound messages before compression, for the messages that were compressed
+     */
+    public ByteSizeValue getTxUncompressedSize() {
+        return new ByteSizeValue(txUncompressedSize);
+    }
+
+    /**
+     * @return the size of the outbound messages after compression, for the messages that were compressed
+     */
+    public ByteSizeValue getTxCompressedSize() {
+        return new ByteSizeValue(txCompressedSize);
+    }
+
+    /**
+     * @return the time spent serializing and compressing the outbound messages that were compressed
+     */
+    public TimeValue getTxCompressionTime() {
+        return TimeValue.timeValueNanos(txCompressionTimeNanos);
+    }
+
     private boolean assertHistogramsConsistent() {
         assert inboundHandlingTimeBucketFrequencies.length == outboundHandlingTimeBucketFrequencies.length;
         if (inboundHandlingTimeBucketFrequencies.length == 0) {
@@ -170,6 +216,17 @@ public class TransportStats implements Writeable, ToXContentFragment {
             // Stats came from before v8.1
             assert Version.CURRENT.major == Version.V_8_0_0.major;
         }
+        builder.startObject(Fields.TX_COMPRESSION);
+        builder.humanReadableField(Fields.UNCOMPRESSED_SIZE_IN_BYTES, Fields.UNCOMPRESSED_SIZE, new ByteSizeValue(txUncompressedSize));
+        builder.humanReadableField(Fields.COMPRESSED_SIZE_IN_BYTES, Fields.COMPRESSED_SIZE, new ByteSizeValue(txCompressedSize));
+        builder.field(Fields.RATIO, txCompressedSize == 0 ? 0.0 : (double) txUncompressedSize / txCompressedSize);
+        builder.humanReadableField(Fields.TIME_IN_MILLIS, Fields.TIME, TimeValue.timeValueNanos(txCompressionTimeNanos));
+        // the time per MB of uncompressed bytes, which makes the cost of the compression schemes comparable across workloads
+        final double uncompressedMegabytes = (double) txUncompressedSize / ByteSizeUnit.MB.toBytes(1);
+        final double compressionTimeMicros = txCompressionTimeNanos / 1000.0;
+        final long timePerMegabyteMicros = txUncompressedSize == 0 ? 0L : Math.round(compressionTimeMicros / uncompressedMegabytes);
+        builder.field(Fields.TIME_PER_MB_IN_MICROS, timePerMegabyteMicros);
+        builder.endObject();
         builder.endObject();
         return builder;
     }
@@ -204,5 +261,14 @@ public class TransportStats implements Writeable, ToXContentFragment {
         static final String TX_SIZE_IN_BYTES = "tx_size_in_bytes";
         static final String INBOUND_HANDLING_TIME_HISTOGRAM = "inbound_handling_time_histogram";
         static final String OUTBOUND_HANDLING_TIME_HISTOGRAM = "outbound_handling_time_histogram";
+        static final String TX_COMPRESSION = "tx_compression";
+        static final String UNCOMPRESSED_SIZE = "uncompressed_size";
+        static final String UNCOMPRESSED_SIZE_IN_BYTES = "uncompressed_size_in_bytes";
+        static final String COMPRESSED_SIZE = "compressed_size";
+        static final String COMPRESSED_SIZE_IN_BYTES = "compressed_size_in_bytes";
+        static final String RATIO = "ratio";
+        static final String TIME = "time";
+        static final String TIME_IN_MILLIS = "time_in_millis";
+        static final String TIME_PER_MB_IN_MICROS = "time_per_mb_in_micros";
     }
 }
@@ -8,6 +8,7 @@
 
 package org.elasticsearch.action.admin.cluster.node.stats;
 
+import org.elasticsearch.node.ResponseCollectorService;
 import org.elasticsearch.node.ResponseCollectorService.ComputedNodeStats;
 import org.elasticsearch.test.ESTestCase;
 
@@ -57,6 +58,44 @@ public class ComputedNodeStatsTests extends ESTestCase {
         assertTrue(first.rank(0) < second.rank(1));
     }
 
+    public void testTailAwareRank() {
+        // Without percentiles, the tail-aware rank falls back to the average response time.
+        ComputedNodeStats stats = createStats(0, 150, 100);
+        assertThat(stats.tailAwareRank(0), equalTo(150.0));
+        assertThat(stats.tailAwareRank(1), equalTo(300.0));
+
+        // A larger tail should result in a larger rank, even with a smaller median.
+        ComputedNodeStats first = createStats(2, 150, 100, 20, 30);
+        ComputedNodeStats second = createStats(2, 150, 100, 10, 500);
+        assertTrue(first.tailAwareRank(1) < second.tailAwareRank(1));
+
+        // More pending requests should always result in a larger rank.
+        first = createStats(2, 150, 100, 20, 30);
+        second = createStats(2, 150, 100, 20, 30);
+        assertTrue(first.tailAwareRank(0) < second.tailAwareRank(1));
+
+        assertThat(first.rank(ResponseCollectorService.RankingMode.EWMA, 1), equalTo(first.rank(1)));
+        assertThat(first.rank(ResponseCollectorService.RankingMode.LATENCY_HISTOGRAM, 1), equalTo(first.tailAwareRank(1)));
+    }
+
+    private ComputedNodeStats createStats(
+        int queueSize,
+        int responseTimeMillis,
+        int serviceTimeMillis,
+        int p50ResponseTimeMillis,
+        int p99ResponseTimeMillis
+    ) {
+        return new ComputedNodeStats(
+            "node0",
+            5,
+            queueSize,
+            1_000_000 * responseTimeMillis,
+            1_000_000 * serviceTimeMillis,
+            1_000_000 * p50ResponseTimeMillis,
+            1_000_000 * p99ResponseTimeMillis
+        );
+    }
+
     private ComputedNodeStats createStats(int queueSize, int responseTimeMillis, int serviceTimeMillis) {
         return new ComputedNodeStats("node0", 5, queueSize, 1_000_000 * responseTimeMillis, 1_000_000 * serviceTimeMillis);
     }
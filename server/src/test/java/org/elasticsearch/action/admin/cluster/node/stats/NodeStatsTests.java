@@ -251,6 +251,18 @@ public class NodeStatsTests extends ESTestCase {
                         nodeStats.getTransport().getOutboundHandlingTimeBucketFrequencies(),
                         deserializedNodeStats.getTransport().getOutboundHandlingTimeBucketFrequencies()
                     );
+                    assertEquals(
+                        nodeStats.getTransport().getTxUncompressedSize(),
+                        deserializedNodeStats.getTransport().getTxUncompressedSize()
+                    );
+                    assertEquals(
+                        nodeStats.getTransport().getTxCompressedSize(),
+                        deserializedNodeStats.getTransport().getTxCompressedSize()
+                    );
+                    assertEquals(
+                        nodeStats.getTransport().getTxCompressionTime(),
+                        deserializedNodeStats.getTransport().getTxCompressionTime()
+                    );
                 }
                 if (nodeStats.getHttp() == null) {
                     assertNull(deserializedNodeStats.getHttp());
@@ -480,7 +492,12 @@ public class NodeStatsTests extends ESTestCase {
                         assertEquals(aStats.queueSize, bStats.queueSize, 0.01);
                         assertEquals(aStats.serviceTime, bStats.serviceTime, 0.01);
                         assertEquals(aStats.responseTime, bStats.responseTime, 0.01);
+                        assertEquals(aStats.p50ResponseTime, bStats.p50ResponseTime, 0.01);
+                        assertEquals(aStats.p99ResponseTime, bStats.p99ResponseTime, 0.01);
                     });
+                    assertEquals(adaptiveStats.getHedgeableRequests(), deserializedAdaptiveStats.getHedgeableRequests());
+                    assertEquals(adaptiveStats.getHedgedRequests(), deserializedAdaptiveStats.getHedgedRequests());
+                    assertEquals(adaptiveStats.getHedgeWins(), deserializedAdaptiveStats.getHedgeWins());
                 }
                 ScriptCacheStats scriptCacheStats = nodeStats.getScriptCacheStats();
                 ScriptCacheStats deserializedScriptCacheStats = deserializedNodeStats.getScriptCacheStats();
@@ -702,7 +719,10 @@ public class NodeStatsTests extends ESTestCase {
                 randomNonNegativeLong(),
                 randomNonNegativeLong(),
                 IntStream.range(0, HandlingTimeTracker.BUCKET_COUNT).mapToLong(i -> randomNonNegativeLong()).toArray(),
-                IntStream.range(0, HandlingTimeTracker.BUCKET_COUNT).mapToLong(i -> randomNonNegativeLong()).toArray()
+                IntStream.range(0, HandlingTimeTracker.BUCKET_COUNT).mapToLong(i -> randomNonNegativeLong()).toArray(),
+                randomNonNegativeLong(),
+                randomNonNegativeLong(),
+                randomNonNegativeLong()
             )
             : null;
         HttpStats httpStats = null;
@@ -869,12 +889,22 @@ public class NodeStatsTests extends ESTestCase {
                         randomIntBetween(1, 10),
                         randomIntBetween(0, 2000),
                         randomDoubleBetween(1.0, 10000000.0, true),
-                        randomDoubleBetween(1.0, 10000000.0, true)
+                        randomDoubleBetween(1.0, 10000000.0, true),
+                        randomBoolean() ? -1 : randomDoubleBetween(1.0, 10000000.0, true),
+                        randomBoolean() ? -1 : randomDoubleBetween(1.0, 10000000.0, true)
                     );
                     nodeStats.put(nodeId, stats);
                 }
             }
-            adaptiveSelectionStats = new AdaptiveSelectionStats(nodeConnections, nodeStats);
+            long hedgeableRequests = randomLongBetween(0, 1000);
+            long hedgedRequests = randomLongBetween(0, hedgeableRequests);
+            adaptiveSelectionStats = new AdaptiveSelectionStats(
+                nodeConnections,
+                nodeStats,
+                hedgeableRequests,
+                hedgedRequests,
+                randomLongBetween(0, hedgedRequests)
+            );
         }
         ScriptCacheStats scriptCacheStats = scriptStats != null ? scriptStats.toScriptCacheStats() : null;
         IndexingPressureStats indexingPressureStats = null;
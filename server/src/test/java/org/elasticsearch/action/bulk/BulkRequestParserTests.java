@@ -8,16 +8,22 @@
 
 package org.elasticsearch.action.bulk;
 
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
 import org.elasticsearch.core.RestApiVersion;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.xcontent.XContentType;
 import org.hamcrest.Matchers;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class BulkRequestParserTests extends ESTestCase {
@@ -279,4 +285,89 @@ public class BulkRequestParserTests extends ESTestCase {
         assertSame(first.getPipeline(), second.getPipeline());
         assertSame(first.routing(), second.routing());
     }
+
+    public void testIdenticalActionLinesAreParsedOnce() throws IOException {
+        final int numItems = randomIntBetween(2, 50);
+        final StringBuilder bulk = new StringBuilder();
+        for (int i = 0; i < numItems; i++) {
+            if (randomBoolean()) {
+                bulk.append("""
+                    { "create":{ "_index": "bar" } }
+                    { "field": %s }
+                    """.formatted(i));
+            } else {
+                bulk.append("""
+                    { "delete":{ "_index": "bar", "_id": "1" } }
+                    """);
+            }
+        }
+        final byte[] bytes = bulk.toString().getBytes(StandardCharsets.UTF_8);
+        // split the bulk into pages like the network layer does, so that some action lines span pages
+        final int pageSize = randomIntBetween(1, bytes.length);
+        final List<BytesReference> pages = new ArrayList<>();
+        for (int offset = 0; offset < bytes.length; offset += pageSize) {
+            pages.add(new BytesArray(bytes, offset, Math.min(pageSize, bytes.length - offset)));
+        }
+        final BytesReference request = CompositeBytesReference.of(pages.toArray(new BytesReference[0]));
+
+        BulkRequestParser parser = new BulkRequestParser(randomBoolean(), RestApiVersion.current());
+        final List<IndexRequest> indexRequests = new ArrayList<>();
+        final List<DeleteRequest> deleteRequests = new ArrayList<>();
+        parser.parse(
+            request,
+            null,
+            null,
+            null,
+            null,
+            null,
+            true,
+            XContentType.JSON,
+            (indexRequest, type) -> indexRequests.add(indexRequest),
+            req -> fail(),
+            deleteRequests::add
+        );
+        assertEquals(numItems, indexRequests.size() + deleteRequests.size());
+        for (int i = 0; i < indexRequests.size(); i++) {
+            final IndexRequest indexRequest = indexRequests.get(i);
+            assertEquals("bar", indexRequest.index());
+            assertEquals(DocWriteRequest.OpType.CREATE, indexRequest.opType());
+            assertNull(indexRequest.id());
+            if (i > 0) {
+                assertNotSame(indexRequests.get(i - 1), indexRequest);
+                assertNotEquals(indexRequests.get(i - 1).source(), indexRequest.source());
+            }
+        }
+        for (DeleteRequest deleteRequest : deleteRequests) {
+            assertEquals("bar", deleteRequest.index());
+            assertEquals("1", deleteRequest.id());
+        }
+    }
+
+    public void testDynamicTemplatesAreNotShared() throws IOException {
+        BytesArray request = new BytesArray("""
+            { "index":{ "_index": "bar", "dynamic_templates": { "baz": "foo" } } }
+            {}
+            { "index":{ "_index": "bar", "dynamic_templates": { "baz": "foo" } } }
+            {}
+            """);
+        BulkRequestParser parser = new BulkRequestParser(randomBoolean(), RestApiVersion.current());
+        final List<IndexRequest> indexRequests = new ArrayList<>();
+        parser.parse(
+            request,
+            null,
+            null,
+            null,
+            null,
+            null,
+            true,
+            XContentType.JSON,
+            (indexRequest, type) -> indexRequests.add(indexRequest),
+            req -> fail(),
+            req -> fail()
+        );
+        assertThat(indexRequests, Matchers.hasSize(2));
+        assertEquals(Map.of("baz", "foo"), indexRequests.get(0).getDynamicTemplates());
+        assertEquals(indexRequests.get(0).getDynamicTemplates(), indexRequests.get(1).getDynamicTemplates());
+        assertNotSame(indexRequests.get(0).getDynamicTemplates(), indexRequests.get(1).getDynamicTemplates());
+    }
 }
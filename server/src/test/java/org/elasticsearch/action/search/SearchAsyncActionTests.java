@@ -19,6 +19,7 @@ import org.elasticsearch.cluster.routing.UnassignedInfo;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.SearchPhaseResult;
@@ -27,6 +28,7 @@ import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.InternalSearchResponse;
 import org.elasticsearch.search.internal.ShardSearchContextId;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.Scheduler;
 import org.elasticsearch.transport.Transport;
 import org.elasticsearch.transport.TransportException;
 import org.elasticsearch.transport.TransportRequest;
@@ -42,6 +44,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -694,6 +697,324 @@ public class SearchAsyncActionTests extends ESTestCase {
         assertThat(searchResponse.get().getSuccessfulShards(), equalTo(shardsIter.size()));
     }
 
+    public void testHedgeSlowShardRequests() throws InterruptedException {
+        SearchRequest request = new SearchRequest();
+        request.allowPartialSearchResults(true);
+        int numShards = randomIntBetween(1, 10);
+        request.setMaxConcurrentShardRequests(randomIntBetween(numShards, 100));
+        AtomicReference<SearchResponse> searchResponse = new AtomicReference<>();
+        ActionListener<SearchResponse> responseListener = ActionListener.wrap(
+            searchResponse::set,
+            (e) -> { throw new AssertionError("unexpected", e); }
+        );
+        DiscoveryNode primaryNode = new DiscoveryNode("node_1", buildNewFakeTransportAddress(), Version.CURRENT);
+        DiscoveryNode replicaNode = new DiscoveryNode("node_2", buildNewFakeTransportAddress(), Version.CURRENT);
+
+        AtomicInteger contextIdGenerator = new AtomicInteger(0);
+        GroupShardsIterator<SearchShardIterator> shardsIter = getShardsIter(
+            "idx",
+            new OriginalIndices(new String[] { "idx" }, SearchRequest.DEFAULT_INDICES_OPTIONS),
+            numShards,
+            true,
+            primaryNode,
+            replicaNode
+        );
+        Set<ShardSearchContextId> freedContexts = newConcurrentSet();
+        SearchTransportService transportService = new SearchTransportService(null, null, null) {
+            @Override
+            public void sendFreeContext(Transport.Connection connection, ShardSearchContextId contextId, OriginalIndices originalIndices) {
+                assertTrue(freedContexts.add(contextId));
+            }
+        };
+        Map<String, Transport.Connection> lookup = new HashMap<>();
+        lookup.put(primaryNode.getId(), new MockConnection(primaryNode));
+        lookup.put(replicaNode.getId(), new MockConnection(replicaNode));
+        Map<String, AliasFilter> aliasFilters = Collections.singletonMap("_na_", new AliasFilter(null, Strings.EMPTY_ARRAY));
+
+        List<Runnable> scheduledHedges = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger hedgeableRequests = new AtomicInteger();
+        AtomicInteger hedgedRequests = new AtomicInteger();
+        AtomicInteger hedgeWins = new AtomicInteger();
+        SearchShardHedging hedging = new SearchShardHedging(null, null) {
+            @Override
+            TimeValue hedgeDelay(SearchShardTarget shard) {
+                return TimeValue.timeValueMillis(randomLongBetween(1, 1000));
+            }
+
+            @Override
+            Scheduler.Cancellable schedule(Runnable command, TimeValue delay) {
+                scheduledHedges.add(command);
+                AtomicBoolean cancelled = new AtomicBoolean();
+                return new Scheduler.Cancellable() {
+                    @Override
+                    public boolean cancel() {
+                        return cancelled.compareAndSet(false, true);
+                    }
+
+                    @Override
+                    public boolean isCancelled() {
+                        return cancelled.get();
+                    }
+                };
+            }
+
+            @Override
+            void onHedgeableRequest() {
+                hedgeableRequests.incrementAndGet();
+            }
+
+            @Override
+            void onHedgedRequest() {
+                hedgedRequests.incrementAndGet();
+            }
+
+            @Override
+            void onHedgeWon() {
+                hedgeWins.incrementAndGet();
+            }
+        };
+
+        // the first copy of every shard never responds until the search is done
+        Map<ShardId, Runnable> slowResponses = new ConcurrentHashMap<>();
+        Map<ShardId, String> slowNodes = new ConcurrentHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(1, Runtime.getRuntime().availableProcessors()));
+        CountDownLatch latch = new CountDownLatch(1);
+        AbstractSearchAsyncAction<TestSearchPhaseResult> asyncAction = new AbstractSearchAsyncAction<TestSearchPhaseResult>(
+            "test",
+            logger,
+            transportService,
+            (cluster, node) -> {
+                assert cluster == null : "cluster was not null: " + cluster;
+                return lookup.get(node);
+            },
+            aliasFilters,
+            Collections.emptyMap(),
+            executor,
+            request,
+            responseListener,
+            shardsIter,
+            new TransportSearchAction.SearchTimeProvider(0, 0, () -> 0),
+            ClusterState.EMPTY_STATE,
+            null,
+            new ArraySearchPhaseResults<>(shardsIter.size()),
+            request.getMaxConcurrentShardRequests(),
+            SearchResponse.Clusters.EMPTY,
+            hedging
+        ) {
+            @Override
+            protected void executePhaseOnShard(
+                SearchShardIterator shardIt,
+                SearchShardTarget shard,
+                SearchActionListener<TestSearchPhaseResult> listener
+            ) {
+                Transport.Connection connection = getConnection(null, shard.getNodeId());
+                TestSearchPhaseResult testSearchPhaseResult = new TestSearchPhaseResult(
+                    new ShardSearchContextId(UUIDs.randomBase64UUID(), contextIdGenerator.incrementAndGet()),
+                    connection.getNode()
+                );
+                if (slowNodes.putIfAbsent(shard.getShardId(), shard.getNodeId()) == null) {
+                    slowResponses.put(shard.getShardId(), () -> listener.onResponse(testSearchPhaseResult));
+                } else {
+                    assertNotEquals(slowNodes.get(shard.getShardId()), shard.getNodeId());
+                    if (randomBoolean()) {
+                        listener.onResponse(testSearchPhaseResult);
+                    } else {
+                        new Thread(() -> listener.onResponse(testSearchPhaseResult)).start();
+                    }
+                }
+            }
+
+            @Override
+            protected SearchPhase getNextPhase(SearchPhaseResults<TestSearchPhaseResult> results, SearchPhaseContext context) {
+                return new SearchPhase("test") {
+                    @Override
+                    public void run() {
+                        for (int i = 0; i < results.getNumShards(); i++) {
+                            TestSearchPhaseResult result = results.getAtomicArray().get(i);
+                            assertNotEquals(slowNodes.get(result.getSearchShardTarget().getShardId()), result.node.getId());
+                        }
+                        sendSearchResponse(InternalSearchResponse.EMPTY_WITH_TOTAL_HITS, null);
+                        latch.countDown();
+                    }
+                };
+            }
+        };
+        asyncAction.start();
+        assertThat(slowResponses.size(), equalTo(numShards));
+        assertThat(scheduledHedges.size(), equalTo(numShards));
+        assertThat(hedgeableRequests.get(), equalTo(numShards));
+        scheduledHedges.forEach(Runnable::run);
+        latch.await();
+        assertThat(hedgedRequests.get(), equalTo(numShards));
+        assertThat(hedgeWins.get(), equalTo(numShards));
+        assertNotNull(searchResponse.get());
+        assertThat(searchResponse.get().getSuccessfulShards(), equalTo(numShards));
+        assertThat(searchResponse.get().getFailedShards(), equalTo(0));
+
+        // the responses of the slow copies are discarded and their search contexts released
+        assertThat(freedContexts.size(), equalTo(0));
+        slowResponses.values().forEach(Runnable::run);
+        assertThat(freedContexts.size(), equalTo(numShards));
+        assertThat(searchResponse.get().getSuccessfulShards(), equalTo(numShards));
+        final List<Runnable> runnables = executor.shutdownNow();
+        assertThat(runnables, equalTo(Collections.emptyList()));
+    }
+
+    public void testHedgedShardFailureRacingWithResponseOfOtherCopy() throws Exception {
+        SearchRequest request = new SearchRequest();
+        request.allowPartialSearchResults(true);
+        int numShards = randomIntBetween(1, 10);
+        request.setMaxConcurrentShardRequests(randomIntBetween(numShards, 100));
+        AtomicReference<SearchResponse> searchResponse = new AtomicReference<>();
+        ActionListener<SearchResponse> responseListener = ActionListener.wrap(
+            searchResponse::set,
+            (e) -> { throw new AssertionError("unexpected", e); }
+        );
+        DiscoveryNode primaryNode = new DiscoveryNode("node_1", buildNewFakeTransportAddress(), Version.CURRENT);
+        DiscoveryNode replicaNode = new DiscoveryNode("node_2", buildNewFakeTransportAddress(), Version.CURRENT);
+
+        AtomicInteger contextIdGenerator = new AtomicInteger(0);
+        GroupShardsIterator<SearchShardIterator> shardsIter = getShardsIter(
+            "idx",
+            new OriginalIndices(new String[] { "idx" }, SearchRequest.DEFAULT_INDICES_OPTIONS),
+            numShards,
+            true,
+            primaryNode,
+            replicaNode
+        );
+        SearchTransportService transportService = new SearchTransportService(null, null, null) {
+            @Override
+            public void sendFreeContext(Transport.Connection connection, ShardSearchContextId contextId, OriginalIndices originalIndices) {}
+        };
+        Map<String, Transport.Connection> lookup = new HashMap<>();
+        lookup.put(primaryNode.getId(), new MockConnection(primaryNode));
+        lookup.put(replicaNode.getId(), new MockConnection(replicaNode));
+        Map<String, AliasFilter> aliasFilters = Collections.singletonMap("_na_", new AliasFilter(null, Strings.EMPTY_ARRAY));
+
+        List<Runnable> scheduledHedges = Collections.synchronizedList(new ArrayList<>());
+        SearchShardHedging hedging = new SearchShardHedging(null, null) {
+            @Override
+            TimeValue hedgeDelay(SearchShardTarget shard) {
+                return TimeValue.timeValueMillis(randomLongBetween(1, 1000));
+            }
+
+            @Override
+            Scheduler.Cancellable schedule(Runnable command, TimeValue delay) {
+                scheduledHedges.add(command);
+                AtomicBoolean cancelled = new AtomicBoolean();
+                return new Scheduler.Cancellable() {
+                    @Override
+                    public boolean cancel() {
+                        return cancelled.compareAndSet(false, true);
+                    }
+
+                    @Override
+                    public boolean isCancelled() {
+                        return cancelled.get();
+                    }
+                };
+            }
+        };
+
+        // the first copy of every shard fails at the same time as the hedged request to the other copy succeeds
+        List<Runnable> failures = Collections.synchronizedList(new ArrayList<>());
+        List<Runnable> responses = Collections.synchronizedList(new ArrayList<>());
+        Set<ShardId> sentShards = newConcurrentSet();
+        ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(1, Runtime.getRuntime().availableProcessors()));
+        CountDownLatch latch = new CountDownLatch(1);
+        AbstractSearchAsyncAction<TestSearchPhaseResult> asyncAction = new AbstractSearchAsyncAction<TestSearchPhaseResult>(
+            "test",
+            logger,
+            transportService,
+            (cluster, node) -> {
+                assert cluster == null : "cluster was not null: " + cluster;
+                return lookup.get(node);
+            },
+            aliasFilters,
+            Collections.emptyMap(),
+            executor,
+            request,
+            responseListener,
+            shardsIter,
+            new TransportSearchAction.SearchTimeProvider(0, 0, () -> 0),
+            ClusterState.EMPTY_STATE,
+            null,
+            new ArraySearchPhaseResults<>(shardsIter.size()),
+            request.getMaxConcurrentShardRequests(),
+            SearchResponse.Clusters.EMPTY,
+            hedging
+        ) {
+            @Override
+            protected void executePhaseOnShard(
+                SearchShardIterator shardIt,
+                SearchShardTarget shard,
+                SearchActionListener<TestSearchPhaseResult> listener
+            ) {
+                if (sentShards.add(shard.getShardId())) {
+                    failures.add(() -> listener.onFailure(new RuntimeException("boom")));
+                } else {
+                    Transport.Connection connection = getConnection(null, shard.getNodeId());
+                    TestSearchPhaseResult testSearchPhaseResult = new TestSearchPhaseResult(
+                        new ShardSearchContextId(UUIDs.randomBase64UUID(), contextIdGenerator.incrementAndGet()),
+                        connection.getNode()
+                    );
+                    responses.add(() -> listener.onResponse(testSearchPhaseResult));
+                }
+            }
+
+            @Override
+            protected SearchPhase getNextPhase(SearchPhaseResults<TestSearchPhaseResult> results, SearchPhaseContext context) {
+                return new SearchPhase("test") {
+                    @Override
+                    public void run() {
+                        sendSearchResponse(InternalSearchResponse.EMPTY_WITH_TOTAL_HITS, null);
+                        latch.countDown();
+                    }
+                };
+            }
+        };
+        asyncAction.start();
+        assertThat(failures.size(), equalTo(numShards));
+        assertThat(scheduledHedges.size(), equalTo(numShards));
+        scheduledHedges.forEach(Runnable::run);
+        assertBusy(() -> assertThat(responses.size(), equalTo(numShards)));
+
+        CyclicBarrier barrier = new CyclicBarrier(2 * numShards);
+        List<Thread> threads = new ArrayList<>();
+        for (Runnable runnable : failures) {
+            threads.add(new Thread(() -> {
+                safeAwait(barrier);
+                runnable.run();
+            }));
+        }
+        for (Runnable runnable : responses) {
+            threads.add(new Thread(() -> {
+                safeAwait(barrier);
+                runnable.run();
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // whichever request of the last shard completes last, the phase completes, with the responses of the hedged requests
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertNotNull(searchResponse.get());
+        assertThat(searchResponse.get().getSuccessfulShards(), equalTo(numShards));
+        assertThat(searchResponse.get().getFailedShards(), equalTo(0));
+        final List<Runnable> runnables = executor.shutdownNow();
+        assertThat(runnables, equalTo(Collections.emptyList()));
+    }
+
+    private static void safeAwait(CyclicBarrier barrier) {
+        try {
+            barrier.await(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
     static GroupShardsIterator<SearchShardIterator> getShardsIter(
         String index,
         OriginalIndices originalIndices,
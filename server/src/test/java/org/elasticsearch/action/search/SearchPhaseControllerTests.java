@@ -29,10 +29,13 @@ import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.text.Text;
 import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.MockBigArrays;
+import org.elasticsearch.common.util.MockPageCacheRecycler;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.common.util.concurrent.EsThreadPoolExecutor;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.lucene.grouping.TopFieldGroups;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchHit;
@@ -693,6 +696,86 @@ public class SearchPhaseControllerTests extends ESTestCase {
         assertNull(reduce.sortedTopDocs().collapseValues());
     }
 
+    public void testConsumerStreamingReduce() throws Exception {
+        int expectedNumResults = randomIntBetween(1, 100);
+        SearchRequest request = randomSearchRequest();
+        request.source(new SearchSourceBuilder().aggregation(new MaxAggregationBuilder("test")).size(0));
+        request.setBatchedReduceSize(randomIntBetween(2, 200));
+        AssertingCircuitBreaker circuitBreaker = new AssertingCircuitBreaker(CircuitBreaker.REQUEST);
+        // the accumulated aggregations are held in recycled pages that must all be released, the big arrays of the reduce context
+        // account in the same breaker as the consumer like they do on the coordinating node
+        BigArrays bigArrays = new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService() {
+            @Override
+            public CircuitBreaker getBreaker(String name) {
+                return circuitBreaker;
+            }
+        });
+        SearchPhaseController controller = new SearchPhaseController((t, s) -> new AggregationReduceContext.Builder() {
+            @Override
+            public AggregationReduceContext forPartialReduction() {
+                return new AggregationReduceContext.ForPartial(bigArrays, null, t, s.source().aggregations());
+            }
+
+            public AggregationReduceContext forFinalReduction() {
+                return new AggregationReduceContext.ForFinal(bigArrays, null, t, s.source().aggregations(), b -> {});
+            };
+        });
+        AtomicInteger numPartialReduces = new AtomicInteger();
+        QueryPhaseResultConsumer consumer = controller.newSearchPhaseResults(
+            fixedExecutor,
+            circuitBreaker,
+            () -> false,
+            new SearchProgressListener() {
+                @Override
+                protected void onPartialReduce(List<SearchShard> shards, TotalHits totalHits, InternalAggregations aggs, int reducePhase) {
+                    numPartialReduces.incrementAndGet();
+                }
+            },
+            request,
+            expectedNumResults,
+            exc -> {},
+            true,
+            writableRegistry()
+        );
+        AtomicInteger max = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(expectedNumResults);
+        for (int i = 0; i < expectedNumResults; i++) {
+            int number = randomIntBetween(1, 1000);
+            max.updateAndGet(prev -> Math.max(prev, number));
+            QuerySearchResult result = new QuerySearchResult(
+                new ShardSearchContextId("", i),
+                new SearchShardTarget("node", new ShardId("a", "b", i), null),
+                null
+            );
+            result.topDocs(
+                new TopDocsAndMaxScore(new TopDocs(new TotalHits(1, TotalHits.Relation.EQUAL_TO), new ScoreDoc[0]), number),
+                new DocValueFormat[0]
+            );
+            InternalAggregations aggs = InternalAggregations.from(
+                Collections.singletonList(new InternalMax("test", (double) number, DocValueFormat.RAW, Collections.emptyMap()))
+            );
+            result.aggregations(aggs);
+            result.setShardIndex(i);
+            result.size(1);
+            consumer.consumeResult(result, latch::countDown);
+        }
+        latch.await();
+
+        // every result but the first two and the last one is merged into the accumulator on its own, regardless of the batch size
+        assertEquals(Math.max(0, expectedNumResults - 2), numPartialReduces.get());
+        // the pages of the accumulator are accounted once, by the consumer
+        assertThat(circuitBreaker.allocated, equalTo(consumer.getCircuitBreakerBytes()));
+        if (numPartialReduces.get() > 0) {
+            assertThat(consumer.getCircuitBreakerBytes(), greaterThan(0L));
+        }
+        SearchPhaseController.ReducedQueryPhase reduce = consumer.reduce();
+        InternalMax internalMax = (InternalMax) reduce.aggregations().asList().get(0);
+        assertEquals(max.get(), internalMax.getValue(), 0.0D);
+        assertEquals(expectedNumResults, reduce.totalHits().value);
+        consumer.close();
+        assertThat(circuitBreaker.allocated, equalTo(0L));
+    }
+
     public void testConsumerOnlyHits() throws Exception {
         int expectedNumResults = randomIntBetween(1, 100);
         int bufferSize = randomIntBetween(2, 200);
@@ -1115,13 +1198,13 @@ public class SearchPhaseControllerTests extends ESTestCase {
 
     public void testCoordCircuitBreaker() throws Exception {
         int numShards = randomIntBetween(20, 200);
-        testReduceCase(numShards, numShards, true);
-        testReduceCase(numShards, numShards, false);
-        testReduceCase(numShards, randomIntBetween(2, numShards - 1), true);
-        testReduceCase(numShards, randomIntBetween(2, numShards - 1), false);
+        testReduceCase(numShards, numShards, true, randomBoolean());
+        testReduceCase(numShards, numShards, false, randomBoolean());
+        testReduceCase(numShards, randomIntBetween(2, numShards - 1), true, randomBoolean());
+        testReduceCase(numShards, randomIntBetween(2, numShards - 1), false, randomBoolean());
     }
 
-    private void testReduceCase(int numShards, int bufferSize, boolean shouldFail) throws Exception {
+    private void testReduceCase(int numShards, int bufferSize, boolean shouldFail, boolean streamingReduce) throws Exception {
         SearchRequest request = new SearchRequest();
         request.source(new SearchSourceBuilder().aggregation(new MaxAggregationBuilder("test")).size(0));
         request.setBatchedReduceSize(bufferSize);
@@ -1138,7 +1221,9 @@ public class SearchPhaseControllerTests extends ESTestCase {
             SearchProgressListener.NOOP,
             request,
             numShards,
-            exc -> hasConsumedFailure.set(true)
+            exc -> hasConsumedFailure.set(true),
+            streamingReduce,
+            writableRegistry()
         );
         CountDownLatch latch = new CountDownLatch(numShards);
         Thread[] threads = new Thread[numShards];
@@ -13,8 +13,11 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.cluster.ClusterChangedEvent;
 import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.ClusterStateListener;
 import org.elasticsearch.cluster.ClusterStateObserver;
 import org.elasticsearch.cluster.LocalNodeMasterListener;
 import org.elasticsearch.cluster.block.ClusterBlocks;
@@ -37,20 +40,31 @@ import org.elasticsearch.threadpool.ThreadPool;
 import org.junit.After;
 import org.junit.Before;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
 import static org.elasticsearch.test.ClusterServiceUtils.createNoOpNodeConnectionsService;
 import static org.elasticsearch.test.ClusterServiceUtils.setState;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 
 public class ClusterApplierServiceTests extends ESTestCase {
 
@@ -479,6 +493,148 @@ public class ClusterApplierServiceTests extends ESTestCase {
         assertTrue(applierCalled.get());
     }
 
+    public void testIndependentListenersAreNotifiedConcurrently() throws Exception {
+        // both independent listeners must be running at the same time to get past the barrier
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        final List<String> orderedCalls = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            final String name = "independent-" + i;
+            clusterApplierService.addIndependentListener(new ClusterStateListener() {
+                @Override
+                public void clusterChanged(ClusterChangedEvent event) {
+                    assertThat(Thread.currentThread().getName(), containsString(ClusterApplierService.CLUSTER_LISTENER_THREAD_NAME));
+                    try {
+                        barrier.await(10, TimeUnit.SECONDS);
+                    } catch (Exception e) {
+                        throw new AssertionError(e);
+                    }
+                }
+
+                @Override
+                public String toString() {
+                    return name;
+                }
+            });
+        }
+        for (int i = 0; i < 3; i++) {
+            final String name = "ordered-" + i;
+            clusterApplierService.addListener(event -> orderedCalls.add(name));
+        }
+
+        final AtomicReference<Exception> error = new AtomicReference<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        clusterApplierService.onNewClusterState(
+            "test",
+            () -> ClusterState.builder(clusterApplierService.state()).build(),
+            new ActionListener<>() {
+                @Override
+                public void onResponse(Void ignored) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    error.set(e);
+                    latch.countDown();
+                }
+            }
+        );
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertNull(error.get());
+        assertThat(barrier.isBroken(), is(false));
+        assertThat(orderedCalls, equalTo(List.of("ordered-0", "ordered-1", "ordered-2")));
+        final Map<String, ClusterApplierRecordingService.Stats.Recording> recordings = clusterApplierService.getStats().getRecordings();
+        assertThat(recordings.keySet(), hasItems("independent-0", "independent-1", "waiting for independent listeners"));
+    }
+
+    public void testIndependentListenersAreNotifiedAfterTheirDependencies() throws Exception {
+        final List<String> calls = new CopyOnWriteArrayList<>();
+        final int listeners = between(2, 10);
+        final List<ClusterStateListener> added = new ArrayList<>();
+        final Map<String, Set<String>> dependencies = new HashMap<>();
+        for (int i = 0; i < listeners; i++) {
+            final String name = "independent-" + i;
+            final ClusterStateListener listener = new ClusterStateListener() {
+                @Override
+                public void clusterChanged(ClusterChangedEvent event) {
+                    assertThat(Thread.currentThread().getName(), containsString(ClusterApplierService.CLUSTER_LISTENER_THREAD_NAME));
+                    assertTrue(ClusterApplierService.assertNotClusterStateUpdateThread("independent listener"));
+                    calls.add(name);
+                }
+
+                @Override
+                public String toString() {
+                    return name;
+                }
+            };
+            final List<ClusterStateListener> listenerDependencies = randomSubsetOf(added);
+            dependencies.put(name, listenerDependencies.stream().map(Object::toString).collect(Collectors.toSet()));
+            clusterApplierService.addIndependentListener(listener, listenerDependencies.toArray(new ClusterStateListener[0]));
+            added.add(listener);
+        }
+
+        final PlainActionFuture<Void> future = PlainActionFuture.newFuture();
+        clusterApplierService.onNewClusterState("test", () -> ClusterState.builder(clusterApplierService.state()).build(), future);
+        future.get(10, TimeUnit.SECONDS);
+
+        assertThat(calls, hasSize(listeners));
+        // otherwise assertions about being on the applier thread would also hold on the independent listener threads
+        assertThat(
+            ClusterApplierService.CLUSTER_LISTENER_THREAD_NAME,
+            not(containsString(ClusterApplierService.CLUSTER_UPDATE_THREAD_NAME))
+        );
+        for (int i = 0; i < calls.size(); i++) {
+            for (String dependency : dependencies.get(calls.get(i))) {
+                assertThat(calls.get(i) + " depends on " + dependency, calls.subList(0, i), hasItem(dependency));
+            }
+        }
+    }
+
+    public void testIndependentListenerMustDependOnIndependentListeners() {
+        final ClusterStateListener ordered = event -> {};
+        clusterApplierService.addListener(ordered);
+        final IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> clusterApplierService.addIndependentListener(event -> {}, ordered)
+        );
+        assertThat(e.getMessage(), containsString("depends on unknown independent listener"));
+    }
+
+    public void testIndependentListenersAreNotifiedOnApplierThreadWithoutListenerThreads() throws Exception {
+        final ClusterState initialState = clusterApplierService.state();
+        clusterApplierService.close();
+        final ClusterApplierService applierService = new ClusterApplierService(
+            "test_node",
+            Settings.builder()
+                .put("cluster.name", "ClusterApplierServiceTests")
+                .put(ClusterApplierService.CLUSTER_SERVICE_INDEPENDENT_LISTENER_THREADS_SETTING.getKey(), 0)
+                .build(),
+            clusterSettings,
+            threadPool
+        );
+        clusterApplierService = applierService;
+        applierService.setNodeConnectionsService(createNoOpNodeConnectionsService());
+        applierService.setInitialState(initialState);
+        applierService.start();
+
+        final List<String> calls = new CopyOnWriteArrayList<>();
+        final ClusterStateListener first = event -> {
+            assertThat(Thread.currentThread().getName(), containsString(ClusterApplierService.CLUSTER_UPDATE_THREAD_NAME));
+            calls.add("first");
+        };
+        applierService.addIndependentListener(first);
+        applierService.addIndependentListener(event -> {
+            assertThat(Thread.currentThread().getName(), containsString(ClusterApplierService.CLUSTER_UPDATE_THREAD_NAME));
+            calls.add("second");
+        }, first);
+
+        final PlainActionFuture<Void> future = PlainActionFuture.newFuture();
+        applierService.onNewClusterState("test", () -> ClusterState.builder(applierService.state()).build(), future);
+        future.get(10, TimeUnit.SECONDS);
+        assertThat(calls, equalTo(List.of("first", "second")));
+    }
+
     public void testClusterStateApplierCanCreateAnObserver() throws InterruptedException {
         AtomicReference<Throwable> error = new AtomicReference<>();
         AtomicBoolean applierCalled = new AtomicBoolean();
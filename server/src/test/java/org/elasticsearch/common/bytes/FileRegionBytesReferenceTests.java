@@ -0,0 +1,107 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.bytes;
+
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.junit.After;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class FileRegionBytesReferenceTests extends AbstractBytesReferenceTestCase {
+
+    private final List<FileChannel> channels = new ArrayList<>();
+
+    @After
+    public void closeChannels() throws IOException {
+        IOUtils.close(channels);
+    }
+
+    @Override
+    protected BytesReference newBytesReference(int length) throws IOException {
+        return newBytesReference(length, randomInt(length));
+    }
+
+    @Override
+    protected BytesReference newBytesReferenceWithOffsetOfZero(int length) throws IOException {
+        return newBytesReference(length, 0);
+    }
+
+    private BytesReference newBytesReference(int length, int position) throws IOException {
+        final Path file = createTempFile();
+        Files.write(file, randomByteArrayOfLength(position + length + randomInt(10)));
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        channels.add(channel);
+        return new FileRegionBytesReference(channel, position, length);
+    }
+
+    public void testReadsLazily() throws IOException {
+        final byte[] fileBytes = randomByteArrayOfLength(randomIntBetween(1, PAGE_SIZE));
+        final Path file = createTempFile();
+        Files.write(file, fileBytes);
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        channels.add(channel);
+
+        final int position = randomIntBetween(0, fileBytes.length - 1);
+        final int length = randomIntBetween(1, fileBytes.length - position);
+        final FileRegionBytesReference region = new FileRegionBytesReference(channel, position, length);
+        assertThat(region.length(), equalTo(length));
+        assertThat(region.ramBytesUsed(), equalTo(0L));
+
+        final BytesArray expected = new BytesArray(fileBytes, position, length);
+        assertThat(region, equalTo(expected));
+        assertThat(region.ramBytesUsed(), equalTo((long) length));
+    }
+
+    public void testPrefetchDoesNotKeepTheBytes() throws IOException {
+        final byte[] fileBytes = randomByteArrayOfLength(randomIntBetween(1, PAGE_SIZE * 3));
+        final Path file = createTempFile();
+        Files.write(file, fileBytes);
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        channels.add(channel);
+
+        final int position = randomIntBetween(0, fileBytes.length - 1);
+        final int length = randomIntBetween(0, fileBytes.length - position);
+        final FileRegionBytesReference region = new FileRegionBytesReference(channel, position, length);
+        final ByteBuffer buffer = ByteBuffer.allocate(randomIntBetween(1, PAGE_SIZE));
+        region.prefetch(buffer);
+        assertThat(region.ramBytesUsed(), equalTo(0L));
+        assertThat(region, equalTo(new BytesArray(fileBytes, position, length)));
+    }
+
+    public void testPrefetchBeyondEndOfFile() throws IOException {
+        final Path file = createTempFile();
+        final int fileLength = randomIntBetween(0, 100);
+        Files.write(file, randomByteArrayOfLength(fileLength));
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        channels.add(channel);
+        final FileRegionBytesReference region = new FileRegionBytesReference(channel, randomIntBetween(0, fileLength), fileLength + 1);
+        expectThrows(EOFException.class, () -> region.prefetch(ByteBuffer.allocate(randomIntBetween(1, 200))));
+    }
+
+    public void testRegionBeyondEndOfFile() throws IOException {
+        final Path file = createTempFile();
+        final int fileLength = randomIntBetween(0, 100);
+        Files.write(file, randomByteArrayOfLength(fileLength));
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        channels.add(channel);
+        final FileRegionBytesReference region = new FileRegionBytesReference(channel, randomIntBetween(0, fileLength), fileLength + 1);
+        expectThrows(UncheckedIOException.class, () -> region.get(0));
+    }
+}
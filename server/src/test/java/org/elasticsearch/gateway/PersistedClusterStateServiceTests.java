@@ -24,6 +24,7 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.TermQuery;
@@ -87,6 +88,7 @@ import static org.elasticsearch.gateway.PersistedClusterStateService.INDEX_TYPE_
 import static org.elasticsearch.gateway.PersistedClusterStateService.IS_LAST_PAGE;
 import static org.elasticsearch.gateway.PersistedClusterStateService.IS_NOT_LAST_PAGE;
 import static org.elasticsearch.gateway.PersistedClusterStateService.LAST_PAGE_FIELD_NAME;
+import static org.elasticsearch.gateway.PersistedClusterStateService.MAPPING_TYPE_NAME;
 import static org.elasticsearch.gateway.PersistedClusterStateService.METADATA_DIRECTORY_NAME;
 import static org.elasticsearch.gateway.PersistedClusterStateService.PAGE_FIELD_NAME;
 import static org.elasticsearch.gateway.PersistedClusterStateService.TYPE_FIELD_NAME;
@@ -987,6 +989,91 @@ public class PersistedClusterStateServiceTests extends ESTestCase {
         }
     }
 
+    public void testDeduplicatesMappings() throws IOException {
+        final Path dataPath = createTempDir();
+        try (NodeEnvironment nodeEnvironment = newNodeEnvironment(new Path[] { dataPath })) {
+            final PersistedClusterStateService persistedClusterStateService = newPersistedClusterStateService(nodeEnvironment);
+            final String sharedMapping = """
+                {"properties":{"message":{"type":"text"},"host":{"type":"keyword"}}}""";
+            final String otherMapping = """
+                {"properties":{"value":{"type":"long"}}}""";
+
+            try (Writer writer = persistedClusterStateService.createWriter()) {
+                final ClusterState clusterState = loadPersistedClusterState(persistedClusterStateService);
+                final Metadata.Builder metadata = Metadata.builder(clusterState.metadata()).version(clusterState.metadata().version() + 1);
+                final int numIndices = between(2, 10);
+                for (int i = 0; i < numIndices; i++) {
+                    metadata.put(indexWithMapping("shared-" + i, sharedMapping));
+                }
+                metadata.put(indexWithMapping("other", otherMapping));
+                metadata.put(indexWithMapping("unmapped", null));
+                final ClusterState newState = ClusterState.builder(clusterState).metadata(metadata).incrementVersion().build();
+                writer.writeFullStateAndCommit(0L, newState);
+                assertThat(countMappings(dataPath), equalTo(2));
+                assertEquals(newState.metadata().indices(), loadPersistedClusterState(persistedClusterStateService).metadata().indices());
+
+                // only the new mapping is written, and the mapping that isn't used anymore is removed
+                final String updatedMapping = """
+                    {"properties":{"value":{"type":"long"},"tag":{"type":"keyword"}}}""";
+                final ClusterState updatedState = ClusterState.builder(newState)
+                    .metadata(
+                        Metadata.builder(newState.metadata())
+                            .version(newState.metadata().version() + 1)
+                            .put(
+                                IndexMetadata.builder(newState.metadata().index("other"))
+                                    .putMapping(updatedMapping)
+                                    .mappingVersion(newState.metadata().index("other").getMappingVersion() + 1)
+                            )
+                            .remove("shared-0")
+                    )
+                    .incrementVersion()
+                    .build();
+                writer.writeIncrementalStateAndCommit(0L, newState, updatedState);
+                assertThat(countMappings(dataPath), equalTo(2));
+
+                final ClusterState loadedState = loadPersistedClusterState(persistedClusterStateService);
+                assertEquals(updatedState.metadata().indices(), loadedState.metadata().indices());
+                assertThat(
+                    loadedState.metadata().index("other").mapping().source().string(),
+                    equalTo(updatedState.metadata().index("other").mapping().source().string())
+                );
+                assertThat(loadedState.metadata().index("unmapped").mapping(), nullValue());
+            }
+        }
+    }
+
+    private static IndexMetadata.Builder indexWithMapping(String name, String mapping) {
+        final IndexMetadata.Builder builder = IndexMetadata.builder(name)
+            .settings(
+                Settings.builder()
+                    .put(IndexMetadata.INDEX_NUMBER_OF_REPLICAS_SETTING.getKey(), 1)
+                    .put(IndexMetadata.INDEX_NUMBER_OF_SHARDS_SETTING.getKey(), 1)
+                    .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+                    .put(IndexMetadata.SETTING_INDEX_UUID, UUIDs.randomBase64UUID(random()))
+            );
+        if (mapping != null) {
+            builder.putMapping(mapping);
+        }
+        return builder;
+    }
+
+    private static int countMappings(Path dataPath) throws IOException {
+        try (
+            Directory directory = new NIOFSDirectory(dataPath.resolve(METADATA_DIRECTORY_NAME));
+            DirectoryReader reader = DirectoryReader.open(directory)
+        ) {
+            final IndexSearcher indexSearcher = new IndexSearcher(reader);
+            int mappings = 0;
+            for (ScoreDoc scoreDoc : indexSearcher.search(new TermQuery(new Term(TYPE_FIELD_NAME, MAPPING_TYPE_NAME)), 1000).scoreDocs) {
+                // count the first page of each mapping
+                if (indexSearcher.doc(scoreDoc.doc).getField(PAGE_FIELD_NAME).numericValue().intValue() == 0) {
+                    mappings++;
+                }
+            }
+            return mappings;
+        }
+    }
+
     public void testReloadsMetadataAcrossMultipleSegments() throws IOException {
         try (NodeEnvironment nodeEnvironment = newNodeEnvironment(createDataPaths())) {
             final PersistedClusterStateService persistedClusterStateService = newPersistedClusterStateService(nodeEnvironment);
@@ -1073,7 +1160,7 @@ public class PersistedClusterStateServiceTests extends ESTestCase {
                 commitUserData = reader.getIndexCommit().getUserData();
                 final IndexSearcher indexSearcher = new IndexSearcher(reader);
                 indexSearcher.setQueryCache(null);
-                for (String typeName : new String[] { GLOBAL_TYPE_NAME, INDEX_TYPE_NAME }) {
+                for (String typeName : new String[] { GLOBAL_TYPE_NAME, MAPPING_TYPE_NAME, INDEX_TYPE_NAME }) {
                     final Query query = new TermQuery(new Term(TYPE_FIELD_NAME, typeName));
                     final Weight weight = indexSearcher.createWeight(query, ScoreMode.COMPLETE_NO_SCORES, 0.0f);
                     for (LeafReaderContext leafReaderContext : indexSearcher.getIndexReader().leaves()) {
@@ -1194,7 +1281,7 @@ public class PersistedClusterStateServiceTests extends ESTestCase {
                         Level.WARN,
                         """
                             writing full cluster state took [*] which is above the warn threshold of [*]; \
-                            wrote global metadata and metadata for [0] indices"""
+                            wrote global metadata, [0] mappings and metadata for [0] indices"""
                     )
                 );
 
@@ -1210,7 +1297,7 @@ public class PersistedClusterStateServiceTests extends ESTestCase {
                         Level.WARN,
                         """
                             writing full cluster state took [*] which is above the warn threshold of [*]; \
-                            wrote global metadata and metadata for [0] indices"""
+                            wrote global metadata, [0] mappings and metadata for [0] indices"""
                     )
                 );
 
@@ -1244,7 +1331,7 @@ public class PersistedClusterStateServiceTests extends ESTestCase {
                         Level.WARN,
                         """
                             writing full cluster state took [*] which is above the warn threshold of [*]; \
-                            wrote global metadata and metadata for [0] indices"""
+                            wrote global metadata, [0] mappings and metadata for [0] indices"""
                     )
                 );
 
@@ -1277,6 +1364,7 @@ public class PersistedClusterStateServiceTests extends ESTestCase {
                         Level.WARN,
                         """
                             writing cluster state took [*] which is above the warn threshold of [*]; [skipped writing] global metadata, \
+                            wrote [0] new mappings, removed [0] mappings and skipped [0] unchanged mappings, \
                             wrote metadata for [1] new indices and [0] existing indices, removed metadata for [0] indices and \
                             skipped [0] unchanged indices"""
                     )
@@ -64,6 +64,7 @@ import org.elasticsearch.index.shard.ShardPath;
 import org.elasticsearch.index.similarity.NonNegativeScoresSimilarity;
 import org.elasticsearch.index.similarity.SimilarityService;
 import org.elasticsearch.index.store.FsDirectoryFactory;
+import org.elasticsearch.index.translog.TranslogGroupCommitService;
 import org.elasticsearch.indices.IndicesModule;
 import org.elasticsearch.indices.IndicesQueryCache;
 import org.elasticsearch.indices.TestIndexNameExpressionResolver;
@@ -198,7 +199,8 @@ public class IndexModuleTests extends ESTestCase {
             IdFieldMapper.NO_FIELD_DATA,
             null,
             indexDeletionListener,
-            emptyMap()
+            emptyMap(),
+            new TranslogGroupCommitService(settings, threadPool)
         );
     }
 
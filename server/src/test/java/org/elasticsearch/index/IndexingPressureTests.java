@@ -8,9 +8,12 @@
 
 package org.elasticsearch.index;
 
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.stats.IndexingPressureStats;
 import org.elasticsearch.test.ESTestCase;
 
@@ -153,4 +156,96 @@ public class IndexingPressureTests extends ESTestCase {
         }
         assertEquals(0, indexingPressure.stats().getCurrentCoordinatingBytes());
     }
+
+    private final Settings shardAdmissionSettings = Settings.builder()
+        .put(IndexingPressure.MAX_INDEXING_BYTES.getKey(), "10KB")
+        .put(IndexingPressure.SHARD_ADMISSION_ENABLED.getKey(), true)
+        .put(IndexingPressure.SHARD_ADMISSION_MAX_SHARE.getKey(), 0.5)
+        .put(IndexingPressure.SHARD_ADMISSION_TARGET_QUEUE_LATENCY.getKey(), "100ms")
+        .build();
+
+    public void testShardAdmissionDisabledByDefault() {
+        IndexingPressure indexingPressure = new IndexingPressure(settings);
+        ShardId shardId = new ShardId("index", "_na_", 0);
+        try (
+            Releasable first = indexingPressure.markPrimaryShardOperationStarted(shardId, 1, 1024 * 8, false);
+            Releasable second = indexingPressure.markPrimaryShardOperationStarted(shardId, 1, 1024 * 8, false)
+        ) {
+            assertEquals(0, indexingPressure.stats().getShardRejections());
+            assertTrue(indexingPressure.stats().getShardAdmissionStats().isEmpty());
+        }
+    }
+
+    public void testShardAdmissionRejectsHotShard() throws Exception {
+        IndexingPressure indexingPressure = new IndexingPressure(shardAdmissionSettings);
+        ShardId hotShard = new ShardId("index", "_na_", 0);
+        ShardId otherShard = new ShardId("index", "_na_", 1);
+        try (
+            Releasable hot = indexingPressure.markPrimaryShardOperationStarted(hotShard, 1, 1024 * 3, false);
+            Releasable other = indexingPressure.markPrimaryShardOperationStarted(otherShard, 1, 1024 * 3, false)
+        ) {
+            // the hot shard may only use half of the node limit
+            expectThrows(
+                EsRejectedExecutionException.class,
+                () -> indexingPressure.markPrimaryShardOperationStarted(hotShard, 1, 1024 * 3, false)
+            );
+            // but the other shard still has its own share
+            indexingPressure.markPrimaryShardOperationStarted(otherShard, 1, 1024, false).close();
+            // forced operations are never rejected
+            indexingPressure.markPrimaryShardOperationStarted(hotShard, 1, 1024 * 3, true).close();
+
+            IndexingPressureStats stats = indexingPressure.stats();
+            assertEquals(1, stats.getShardRejections());
+            assertEquals(2, stats.getShardAdmissionStats().size());
+            for (IndexingPressureStats.ShardAdmissionStats shardStats : stats.getShardAdmissionStats()) {
+                assertEquals(1024 * 3, shardStats.currentBytes());
+                assertEquals(1024 * 5, shardStats.limit());
+                assertEquals(shardStats.shardId().equals(hotShard) ? 1 : 0, shardStats.rejections());
+            }
+
+            try (BytesStreamOutput out = new BytesStreamOutput()) {
+                stats.writeTo(out);
+                IndexingPressureStats read = new IndexingPressureStats(out.bytes().streamInput());
+                assertEquals(stats.getShardRejections(), read.getShardRejections());
+                assertEquals(stats.getShardAdmissionStats(), read.getShardAdmissionStats());
+            }
+        }
+        // idle shards are no longer tracked
+        assertTrue(indexingPressure.stats().getShardAdmissionStats().isEmpty());
+    }
+
+    public void testShardAdmissionAlwaysAdmitsFirstOperation() {
+        IndexingPressure indexingPressure = new IndexingPressure(shardAdmissionSettings);
+        ShardId shardId = new ShardId("index", "_na_", 0);
+        try (Releasable ignored = indexingPressure.markPrimaryShardOperationStarted(shardId, 1, 1024 * 8, false)) {
+            assertEquals(1024 * 8, indexingPressure.stats().getShardAdmissionStats().get(0).currentBytes());
+            expectThrows(EsRejectedExecutionException.class, () -> indexingPressure.markPrimaryShardOperationStarted(shardId, 1, 1, false));
+        }
+    }
+
+    public void testShardShareShrinksWithQueueLatencyAndThrottling() {
+        IndexingPressure indexingPressure = new IndexingPressure(shardAdmissionSettings);
+        ShardId shardId = new ShardId("index", "_na_", 0);
+        try (Releasable ignored = indexingPressure.markPrimaryShardOperationStarted(shardId, 1, 1024, false)) {
+            for (int i = 0; i < 100; i++) {
+                indexingPressure.recordPrimaryShardQueueLatency(shardId, TimeValue.timeValueSeconds(1).nanos(), false);
+            }
+            IndexingPressureStats.ShardAdmissionStats shardStats = indexingPressure.stats().getShardAdmissionStats().get(0);
+            // a queue latency of ten times the target shrinks the share of the shard to a tenth
+            assertEquals(512, shardStats.limit(), 1);
+            expectThrows(EsRejectedExecutionException.class, () -> indexingPressure.markPrimaryShardOperationStarted(shardId, 1, 1, false));
+
+            indexingPressure.recordPrimaryShardQueueLatency(shardId, TimeValue.timeValueSeconds(1).nanos(), true);
+            shardStats = indexingPressure.stats().getShardAdmissionStats().get(0);
+            assertTrue(shardStats.indexingThrottled());
+            assertEquals(256, shardStats.limit(), 1);
+        }
+        // the shard is still under pressure so it stays tracked
+        assertEquals(1, indexingPressure.stats().getShardAdmissionStats().size());
+        assertEquals(0, indexingPressure.stats().getShardAdmissionStats().get(0).currentBytes());
+
+        // until it is closed
+        indexingPressure.afterIndexShardClosed(shardId, null, Settings.EMPTY);
+        assertTrue(indexingPressure.stats().getShardAdmissionStats().isEmpty());
+    }
 }
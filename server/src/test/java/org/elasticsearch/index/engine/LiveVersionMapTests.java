@@ -13,8 +13,13 @@ import org.apache.lucene.tests.util.TestUtil;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.Constants;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.MockBigArrays;
+import org.elasticsearch.common.util.MockPageCacheRecycler;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.test.ESTestCase;
 
 import java.io.IOException;
@@ -441,6 +446,83 @@ public class LiveVersionMapTests extends ESTestCase {
         }
     }
 
+    public void testPagedBasics() throws IOException {
+        LiveVersionMap map = new LiveVersionMap(newPagedBigArrays());
+        try (Releasable r = map.acquireLock(uid("test"))) {
+            Translog.Location tlogLoc = randomTranslogLocation();
+            map.putIndexUnderLock(uid("test"), new IndexVersionValue(tlogLoc, 1, 1, 1));
+            assertEquals(new IndexVersionValue(tlogLoc, 1, 1, 1), map.getUnderLock(uid("test")));
+            map.putIndexUnderLock(uid("test"), new IndexVersionValue(tlogLoc, 2, 2, 1));
+            assertEquals(new IndexVersionValue(tlogLoc, 2, 2, 1), map.getUnderLock(uid("test")));
+            assertEquals(1, map.getAllCurrent().size());
+            assertThat(map.ramBytesUsedForRefresh(), greaterThan(0L));
+            map.beforeRefresh();
+            assertEquals(new IndexVersionValue(tlogLoc, 2, 2, 1), map.getUnderLock(uid("test")));
+            assertThat(map.getRefreshingBytes(), greaterThan(0L));
+            map.afterRefresh(randomBoolean());
+            assertNull(map.getUnderLock(uid("test")));
+            assertThat(map.getRefreshingBytes(), equalTo(0L));
+
+            map.putIndexUnderLock(uid("test"), new IndexVersionValue(tlogLoc, 3, 3, 1));
+            map.putDeleteUnderLock(uid("test"), new DeleteVersionValue(4, 4, 1, 1));
+            assertEquals(new DeleteVersionValue(4, 4, 1, 1), map.getUnderLock(uid("test")));
+            assertEquals(0, map.getAllCurrent().size());
+            assertThat(map.ramBytesUsedForRefresh(), equalTo(0L));
+            map.putIndexUnderLock(uid("test"), new IndexVersionValue(tlogLoc, 5, 5, 1));
+            assertEquals(new IndexVersionValue(tlogLoc, 5, 5, 1), map.getUnderLock(uid("test")));
+            assertEquals(1, map.getAllCurrent().size());
+        }
+        map.clear();
+    }
+
+    public void testPagedMatchesHeap() throws IOException {
+        LiveVersionMap heap = new LiveVersionMap();
+        LiveVersionMap paged = new LiveVersionMap(newPagedBigArrays());
+        List<BytesRef> uids = new ArrayList<>();
+        int numUids = randomIntBetween(1, 500);
+        for (int i = 0; i < numUids; i++) {
+            uids.add(uid(TestUtil.randomSimpleString(random(), 1, 20)));
+        }
+        int numOps = randomIntBetween(100, 5000);
+        for (int i = 0; i < numOps; i++) {
+            BytesRef uid = randomFrom(uids);
+            try (Releasable r1 = heap.acquireLock(uid); Releasable r2 = paged.acquireLock(uid)) {
+                if (rarely()) {
+                    DeleteVersionValue delete = new DeleteVersionValue(i, i, 1, i);
+                    heap.putDeleteUnderLock(uid, delete);
+                    paged.putDeleteUnderLock(uid, delete);
+                } else {
+                    IndexVersionValue index = new IndexVersionValue(randomTranslogLocation(), i, i, 1);
+                    heap.putIndexUnderLock(uid, index);
+                    paged.putIndexUnderLock(uid, index);
+                }
+                assertEquals(heap.getUnderLock(uid), paged.getUnderLock(uid));
+            }
+            if (rarely()) {
+                heap.beforeRefresh();
+                paged.beforeRefresh();
+                if (randomBoolean()) {
+                    heap.afterRefresh(true);
+                    paged.afterRefresh(true);
+                }
+            }
+        }
+        assertEquals(heap.getAllCurrent(), paged.getAllCurrent());
+        for (BytesRef uid : uids) {
+            try (Releasable r1 = heap.acquireLock(uid); Releasable r2 = paged.acquireLock(uid)) {
+                assertEquals(heap.getUnderLock(uid), paged.getUnderLock(uid));
+            }
+        }
+        heap.afterRefresh(true);
+        paged.afterRefresh(true);
+        paged.clear();
+        assertEquals(0, paged.getAllCurrent().size());
+    }
+
+    private static BigArrays newPagedBigArrays() {
+        return new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService());
+    }
+
     IndexVersionValue randomIndexVersionValue() {
         return new IndexVersionValue(randomTranslogLocation(), randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong());
     }
@@ -0,0 +1,191 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.query;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardLongFieldRange;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xcontent.XContentParserConfiguration;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+public class CoordinatorTimestampRangeCacheTests extends ESTestCase {
+
+    public void testOnlyCachesShardsOfImmutableIndices() {
+        final CoordinatorTimestampRangeCache cache = new CoordinatorTimestampRangeCache();
+        final IndexMetadata writable = indexMetadata(new Index("writable", UUIDs.randomBase64UUID()), Settings.EMPTY, 1L);
+        final IndexMetadata immutable = indexMetadata(new Index("immutable", UUIDs.randomBase64UUID()), writeBlock(), 1L);
+        final Metadata metadata = Metadata.builder().put(writable, false).put(immutable, false).build();
+
+        final ShardLongFieldRange range = randomBoolean() ? ShardLongFieldRange.EMPTY : ShardLongFieldRange.of(100L, 200L);
+        cache.put(metadata, new ShardId(writable.getIndex(), 0), range, 1L);
+        assertThat(cache.get(writable, new ShardId(writable.getIndex(), 0)), nullValue());
+        assertThat(cache.size(), equalTo(0));
+
+        final ShardId shardId = new ShardId(immutable.getIndex(), 0);
+        cache.put(metadata, shardId, range, 1L);
+        assertThat(cache.get(immutable, shardId), equalTo(range));
+        assertThat(cache.get(immutable, new ShardId(immutable.getIndex(), 1)), nullValue());
+
+        // nothing is known about this shard anymore
+        cache.put(metadata, shardId, ShardLongFieldRange.UNKNOWN, 1L);
+        assertThat(cache.get(immutable, shardId), nullValue());
+    }
+
+    public void testInvalidatedWhenIndexSettingsChange() {
+        final CoordinatorTimestampRangeCache cache = new CoordinatorTimestampRangeCache();
+        final Index index = new Index("index", UUIDs.randomBase64UUID());
+        final IndexMetadata indexMetadata = indexMetadata(index, writeBlock(), 1L);
+        final ShardId shardId = new ShardId(index, 0);
+        cache.put(Metadata.builder().put(indexMetadata, false).build(), shardId, ShardLongFieldRange.of(100L, 200L), 1L);
+        assertThat(cache.get(indexMetadata, shardId), equalTo(ShardLongFieldRange.of(100L, 200L)));
+
+        final IndexMetadata updated = randomBoolean()
+            ? indexMetadata(index, writeBlock(), 2L)
+            : indexMetadata(index, Settings.builder().put(IndexMetadata.INDEX_BLOCKS_WRITE_SETTING.getKey(), false).build(), 1L);
+        assertThat(cache.get(updated, shardId), nullValue());
+        assertThat(cache.size(), equalTo(0));
+    }
+
+    public void testOnlyCachesRangesComputedUnderCurrentSettings() {
+        final List<IndexMetadata> firstRanges = new ArrayList<>();
+        final CoordinatorTimestampRangeCache cache = new CoordinatorTimestampRangeCache(firstRanges::add);
+        final Index index = new Index("index", UUIDs.randomBase64UUID());
+        final IndexMetadata indexMetadata = indexMetadata(index, writeBlock(), 2L);
+        final Metadata metadata = Metadata.builder().put(indexMetadata, false).build();
+        final ShardId shardId = new ShardId(index, 0);
+
+        // the shard computed the range before or after a settings update that this node does not know of yet
+        cache.put(metadata, shardId, ShardLongFieldRange.of(100L, 200L), randomFrom(1L, 3L));
+        assertThat(cache.get(indexMetadata, shardId), nullValue());
+        assertFalse(cache.hasRanges(index));
+        assertThat(firstRanges, empty());
+
+        cache.put(metadata, shardId, ShardLongFieldRange.of(100L, 200L), 2L);
+        assertThat(cache.get(indexMetadata, shardId), equalTo(ShardLongFieldRange.of(100L, 200L)));
+        assertTrue(cache.hasRanges(index));
+        cache.put(metadata, new ShardId(index, 1), ShardLongFieldRange.EMPTY, 2L);
+        assertThat(firstRanges, equalTo(List.of(indexMetadata)));
+    }
+
+    public void testPrunesEntriesOfDeletedAndChangedIndices() {
+        final CoordinatorTimestampRangeCache cache = new CoordinatorTimestampRangeCache();
+        final IndexMetadata deleted = indexMetadata(new Index("deleted", UUIDs.randomBase64UUID()), writeBlock(), 1L);
+        final IndexMetadata unblocked = indexMetadata(new Index("unblocked", UUIDs.randomBase64UUID()), writeBlock(), 1L);
+        final IndexMetadata remaining = indexMetadata(new Index("remaining", UUIDs.randomBase64UUID()), writeBlock(), 1L);
+        final Metadata before = Metadata.builder().put(deleted, false).put(unblocked, false).put(remaining, false).build();
+        final int numShards = between(1, 10);
+        for (int i = 0; i < numShards; i++) {
+            cache.put(before, new ShardId(deleted.getIndex(), i), ShardLongFieldRange.EMPTY, 1L);
+            cache.put(before, new ShardId(unblocked.getIndex(), i), ShardLongFieldRange.EMPTY, 1L);
+        }
+        cache.put(before, new ShardId(remaining.getIndex(), 0), ShardLongFieldRange.EMPTY, 1L);
+        assertThat(cache.size(), equalTo(2 * numShards + 1));
+
+        final Metadata after = Metadata.builder()
+            .put(indexMetadata(unblocked.getIndex(), Settings.EMPTY, 2L), false)
+            .put(remaining, false)
+            .build();
+        cache.prune(after);
+        assertThat(cache.size(), equalTo(1));
+        assertThat(cache.hasRanges(deleted.getIndex()), equalTo(false));
+        assertThat(cache.hasRanges(unblocked.getIndex()), equalTo(false));
+        assertThat(cache.hasRanges(remaining.getIndex()), equalTo(true));
+        assertThat(cache.get(remaining, new ShardId(remaining.getIndex(), 0)), equalTo(ShardLongFieldRange.EMPTY));
+    }
+
+    public void testSkipsShardsOutsideOfCachedRange() throws IOException {
+        final Index index = new Index("index", UUIDs.randomBase64UUID());
+        final IndexMetadata indexMetadata = indexMetadata(index, writeBlock(), 1L);
+        final CoordinatorRewriteContextProvider provider = contextProvider(indexMetadata);
+        final ShardId cachedShard = new ShardId(index, 0);
+        assertThat(provider.getCoordinatorRewriteContext(cachedShard), nullValue());
+
+        provider.onCanMatchResponse(cachedShard, ShardLongFieldRange.of(1000L, 2000L), 1L);
+        final CoordinatorRewriteContext context = provider.getCoordinatorRewriteContext(cachedShard);
+        assertCanMatch(context, 2001L, 3000L, false);
+        assertCanMatch(context, 1500L, 3000L, true);
+        assertThat(provider.getCoordinatorRewriteContext(new ShardId(index, 1)), nullValue());
+
+        provider.onCanMatchResponse(cachedShard, ShardLongFieldRange.EMPTY, 1L);
+        final CoordinatorRewriteContext emptyContext = provider.getCoordinatorRewriteContext(cachedShard);
+        assertCanMatch(emptyContext, 0L, 3000L, false);
+    }
+
+    public void testSkipsShardsOutsideOfTimeSeriesBounds() throws IOException {
+        final Index index = new Index("index", UUIDs.randomBase64UUID());
+        final Settings settings = Settings.builder()
+            .put(IndexSettings.MODE.getKey(), "time_series")
+            .put(IndexMetadata.INDEX_ROUTING_PATH.getKey(), "dimension")
+            .put(IndexSettings.TIME_SERIES_START_TIME.getKey(), Instant.ofEpochMilli(1000L).toString())
+            .put(IndexSettings.TIME_SERIES_END_TIME.getKey(), Instant.ofEpochMilli(2000L).toString())
+            .build();
+        final CoordinatorRewriteContextProvider provider = contextProvider(indexMetadata(index, settings, 1L));
+        final ShardId shardId = new ShardId(index, 0);
+        final CoordinatorRewriteContext context = provider.getCoordinatorRewriteContext(shardId);
+
+        // the end time is exclusive
+        assertCanMatch(context, 2000L, 3000L, false);
+        assertCanMatch(context, 0L, 999L, false);
+        assertCanMatch(context, 1999L, 3000L, true);
+    }
+
+    private static void assertCanMatch(CoordinatorRewriteContext context, long from, long to, boolean canMatch) throws IOException {
+        assertThat(context, not(nullValue()));
+        final QueryBuilder rewritten = Rewriteable.rewrite(new RangeQueryBuilder("@timestamp").from(from).to(to), context);
+        assertThat(rewritten instanceof MatchNoneQueryBuilder, equalTo(canMatch == false));
+    }
+
+    private static CoordinatorRewriteContextProvider contextProvider(IndexMetadata indexMetadata) {
+        final ClusterState clusterState = ClusterState.builder(ClusterName.DEFAULT)
+            .metadata(Metadata.builder().put(indexMetadata, false))
+            .build();
+        final DateFieldMapper.DateFieldType fieldType = new DateFieldMapper.DateFieldType("@timestamp");
+        return new CoordinatorRewriteContextProvider(
+            XContentParserConfiguration.EMPTY,
+            null,
+            null,
+            System::currentTimeMillis,
+            () -> clusterState,
+            index -> index.equals(indexMetadata.getIndex()) ? fieldType : null,
+            new CoordinatorTimestampRangeCache()
+        );
+    }
+
+    private static Settings writeBlock() {
+        return Settings.builder().put(IndexMetadata.INDEX_BLOCKS_WRITE_SETTING.getKey(), true).build();
+    }
+
+    private static IndexMetadata indexMetadata(Index index, Settings settings, long settingsVersion) {
+        return IndexMetadata.builder(index.getName())
+            .settings(settings(Version.CURRENT).put(IndexMetadata.SETTING_INDEX_UUID, index.getUUID()).put(settings))
+            .numberOfShards(2)
+            .numberOfReplicas(0)
+            .settingsVersion(settingsVersion)
+            .build();
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.shard;
+
+import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.util.concurrent.ReleasableLock;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
+
+public class TranslogReplayPipelineTests extends ESTestCase {
+
+    private static List<Translog.Operation> randomOperations() {
+        final int numDocs = randomIntBetween(1, 50);
+        final int numOps = randomIntBetween(0, 5 * TranslogReplayPipeline.BATCH_SIZE);
+        final List<Translog.Operation> operations = new ArrayList<>(numOps);
+        for (int seqNo = 0; seqNo < numOps; seqNo++) {
+            final String id = Integer.toString(randomInt(numDocs));
+            operations.add(switch (randomInt(5)) {
+                case 0 -> new Translog.Delete(id, seqNo, 1L);
+                case 1 -> new Translog.NoOp(seqNo, 1L, "test");
+                default -> new Translog.Index(id, seqNo, 1L, new byte[] { 1 });
+            });
+        }
+        return operations;
+    }
+
+    private static String key(Translog.Operation operation) {
+        return switch (operation.opType()) {
+            case INDEX -> ((Translog.Index) operation).id();
+            case DELETE -> ((Translog.Delete) operation).id();
+            default -> "no-op-" + operation.seqNo();
+        };
+    }
+
+    private static CheckedSupplier<Translog.Operation, IOException> supplierOf(List<Translog.Operation> operations) {
+        final Iterator<Translog.Operation> iterator = operations.iterator();
+        return () -> iterator.hasNext() ? iterator.next() : null;
+    }
+
+    public void testAppliesOperationsOnTheSameDocumentInOrder() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(1, 4));
+        try {
+            final int parallelism = randomIntBetween(1, 8);
+            final List<Translog.Operation> operations = randomOperations();
+            final Map<String, List<Long>> applied = new ConcurrentHashMap<>();
+            final TranslogReplayPipeline pipeline = new TranslogReplayPipeline(parallelism, executor, () -> null, () -> false);
+            final int replayed = pipeline.replay(supplierOf(operations), operation -> {
+                applied.computeIfAbsent(key(operation), k -> Collections.synchronizedList(new ArrayList<>())).add(operation.seqNo());
+                // only counts some of the operations as replayed, like corrupted operations that are skipped on local recovery
+                return operation.seqNo() % 3 != 0;
+            });
+
+            final Map<String, List<Long>> expected = new ConcurrentHashMap<>();
+            for (Translog.Operation operation : operations) {
+                expected.computeIfAbsent(key(operation), k -> new ArrayList<>()).add(operation.seqNo());
+            }
+            assertThat(applied, equalTo(expected));
+            assertThat(replayed, equalTo((int) operations.stream().filter(operation -> operation.seqNo() % 3 != 0).count()));
+        } finally {
+            terminate(executor);
+        }
+    }
+
+    public void testStopsAtFirstFailure() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(1, 4));
+        try {
+            final List<Translog.Operation> operations = randomOperations();
+            assumeTrue("needs an operation to fail", operations.isEmpty() == false);
+            final long failingSeqNo = randomLongBetween(0, operations.size() - 1);
+            final RuntimeException failure = new IllegalArgumentException("simulated");
+            final TranslogReplayPipeline pipeline = new TranslogReplayPipeline(randomIntBetween(1, 8), executor, () -> null, () -> false);
+            final RuntimeException e = expectThrows(RuntimeException.class, () -> pipeline.replay(supplierOf(operations), operation -> {
+                if (operation.seqNo() == failingSeqNo) {
+                    throw failure;
+                }
+                return true;
+            }));
+            assertThat(e, sameInstance(failure));
+        } finally {
+            terminate(executor);
+        }
+    }
+
+    public void testPropagatesReadFailure() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(1, 4));
+        try {
+            final List<Translog.Operation> operations = randomOperations();
+            final Iterator<Translog.Operation> iterator = operations.iterator();
+            final IOException failure = new IOException("simulated");
+            final AtomicInteger applied = new AtomicInteger();
+            final TranslogReplayPipeline pipeline = new TranslogReplayPipeline(randomIntBetween(1, 8), executor, () -> null, () -> false);
+            final IOException e = expectThrows(IOException.class, () -> pipeline.replay(() -> {
+                if (iterator.hasNext()) {
+                    return iterator.next();
+                }
+                throw failure;
+            }, operation -> {
+                applied.incrementAndGet();
+                return true;
+            }));
+            assertThat(e, sameInstance(failure));
+            assertThat(applied.get(), lessThanOrEqualTo(operations.size()));
+        } finally {
+            terminate(executor);
+        }
+    }
+
+    public void testWaitsForAppliersOnceAborted() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(1);
+        final CountDownLatch applying = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicBoolean aborted = new AtomicBoolean();
+        final AtomicBoolean applierDone = new AtomicBoolean();
+        final AtomicInteger applied = new AtomicInteger();
+        try {
+            final TranslogReplayPipeline pipeline = new TranslogReplayPipeline(1, executor, () -> null, aborted::get);
+            final List<Translog.Operation> operations = List.of(
+                new Translog.Index("id", 0L, 1L, new byte[] { 1 }),
+                new Translog.Index("id", 1L, 1L, new byte[] { 1 })
+            );
+            final Thread abortingThread = new Thread(() -> {
+                try {
+                    applying.await();
+                    aborted.set(true);
+                    // the replay must keep waiting for the operation that is being applied
+                    Thread.sleep(randomIntBetween(0, 300));
+                    assertFalse(applierDone.get());
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                } finally {
+                    release.countDown();
+                }
+            });
+            abortingThread.start();
+            final IllegalStateException e = expectThrows(IllegalStateException.class, () -> pipeline.replay(supplierOf(operations), op -> {
+                applied.incrementAndGet();
+                applying.countDown();
+                release.await();
+                applierDone.set(true);
+                return true;
+            }));
+            assertThat(e.getMessage(), equalTo("translog replay was aborted"));
+            assertTrue(applierDone.get());
+            // the operation after the one that was being applied is skipped
+            assertThat(applied.get(), equalTo(1));
+            abortingThread.join();
+        } finally {
+            release.countDown();
+            terminate(executor);
+        }
+    }
+
+    public void testAppliersCanReacquireReadLockBehindPendingWriteLock() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(1, 4));
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        final ReleasableLock readLock = new ReleasableLock(lock.readLock());
+        final ReleasableLock writeLock = new ReleasableLock(lock.writeLock());
+        final Thread writer = new Thread(() -> {
+            try (ReleasableLock ignored = writeLock.acquire()) {
+                // like an engine close, which waits for the translog replay to release the read lock
+            }
+        });
+        try {
+            final List<Translog.Operation> operations = randomOperations();
+            final AtomicInteger applied = new AtomicInteger();
+            final TranslogReplayPipeline pipeline = new TranslogReplayPipeline(
+                randomIntBetween(1, 8),
+                executor,
+                readLock::tryAcquire,
+                () -> false
+            );
+            try (ReleasableLock ignored = readLock.acquire()) {
+                writer.start();
+                assertBusy(() -> assertTrue(lock.hasQueuedThreads()));
+                pipeline.replay(supplierOf(operations), operation -> {
+                    // like an engine operation, which would block behind the writer without holding the read lock already
+                    try (ReleasableLock ignored2 = readLock.acquire()) {
+                        applied.incrementAndGet();
+                    }
+                    return true;
+                });
+            }
+            writer.join();
+            assertThat(applied.get(), equalTo(operations.size()));
+        } finally {
+            terminate(executor);
+        }
+    }
+
+    public void testRejectsInvalidParallelism() {
+        final IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> new TranslogReplayPipeline(randomIntBetween(Integer.MIN_VALUE, 0), Runnable::run, () -> null, () -> false)
+        );
+        assertThat(e.getMessage(), startsWith("parallelism must be at least 1"));
+    }
+}
@@ -11,6 +11,7 @@ import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.Version;
 import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
 import org.elasticsearch.index.store.StoreFileMetadata;
@@ -23,12 +24,15 @@ import org.elasticsearch.xcontent.XContentType;
 import org.elasticsearch.xcontent.json.JsonXContent;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 import static org.elasticsearch.index.store.StoreFileMetadata.UNAVAILABLE_WRITER_UUID;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 
 public class FileInfoTests extends ESTestCase {
     private static final org.apache.lucene.util.Version MIN_SUPPORTED_LUCENE_VERSION = org.elasticsearch.Version.CURRENT
@@ -198,4 +202,76 @@ public class FileInfoTests extends ESTestCase {
             assertEquals(numBytes, metadata.length());
         }
     }
+
+    public void testChunksToFromXContent() throws IOException {
+        final List<BlobStoreIndexShardSnapshot.Chunk> chunks = randomChunks();
+        final long length = chunks.stream().mapToLong(BlobStoreIndexShardSnapshot.Chunk::length).sum();
+        final StoreFileMetadata meta = new StoreFileMetadata("_0.cfs", length, "666", Version.LATEST.toString());
+        final FileInfo info = new FileInfo("__foobar", meta, chunks);
+
+        XContentBuilder builder = XContentFactory.contentBuilder(XContentType.JSON);
+        FileInfo.toXContent(info, builder, ToXContent.EMPTY_PARAMS);
+        byte[] xcontent = BytesReference.toBytes(BytesReference.bytes(shuffleXContent(builder)));
+
+        final FileInfo parsedInfo;
+        try (XContentParser parser = createParser(JsonXContent.jsonXContent, xcontent)) {
+            parser.nextToken();
+            parsedInfo = FileInfo.fromXContent(parser);
+        }
+        assertThat(parsedInfo.chunks(), equalTo(chunks));
+        assertThat(parsedInfo.partSize(), nullValue());
+        assertThat(parsedInfo.numberOfParts(), equalTo(chunks.size()));
+        assertThat(parsedInfo.isSame(info), is(true));
+        for (int i = 0; i < chunks.size(); i++) {
+            assertThat(parsedInfo.partName(i), equalTo(chunks.get(i).name()));
+            assertThat(parsedInfo.partBytes(i), equalTo(chunks.get(i).length()));
+        }
+    }
+
+    public void testChunksSerialization() throws IOException {
+        final List<BlobStoreIndexShardSnapshot.Chunk> chunks = randomChunks();
+        final long length = chunks.stream().mapToLong(BlobStoreIndexShardSnapshot.Chunk::length).sum();
+        final StoreFileMetadata meta = new StoreFileMetadata("_0.cfs", length, "666", Version.LATEST.toString());
+        final FileInfo info = new FileInfo("__foobar", meta, chunks);
+
+        final FileInfo copy = copyWriteable(info, writableRegistry(), FileInfo::new);
+        assertThat(copy.chunks(), equalTo(chunks));
+        assertThat(copy.isSame(info), is(true));
+
+        final BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(org.elasticsearch.Version.V_8_1_0);
+        expectThrows(IllegalArgumentException.class, () -> info.writeTo(out));
+    }
+
+    public void testPartForPosition() {
+        final List<BlobStoreIndexShardSnapshot.Chunk> chunks = randomChunks();
+        final long length = chunks.stream().mapToLong(BlobStoreIndexShardSnapshot.Chunk::length).sum();
+        final StoreFileMetadata meta = new StoreFileMetadata("_0.cfs", length, "666", Version.LATEST.toString());
+        final FileInfo info = randomBoolean()
+            ? new FileInfo("__foobar", meta, chunks)
+            : new FileInfo("__foobar", meta, new ByteSizeValue(randomLongBetween(1L, length)));
+
+        long maxPartBytes = 0L;
+        long position = 0L;
+        for (int part = 0; part < info.numberOfParts(); part++) {
+            assertThat(info.partOffset(part), equalTo(position));
+            final long partBytes = info.partBytes(part);
+            maxPartBytes = Math.max(maxPartBytes, partBytes);
+            assertThat(info.partNumberForPosition(position), equalTo(part));
+            assertThat(info.partNumberForPosition(position + randomLongBetween(0L, partBytes - 1L)), equalTo(part));
+            assertThat(info.partNumberForPosition(position + partBytes - 1L), equalTo(part));
+            position += partBytes;
+        }
+        assertThat(position, equalTo(length));
+        assertThat(info.maxPartBytes(), equalTo(maxPartBytes));
+    }
+
+    private static List<BlobStoreIndexShardSnapshot.Chunk> randomChunks() {
+        final List<BlobStoreIndexShardSnapshot.Chunk> chunks = new ArrayList<>();
+        final int numberOfChunks = randomIntBetween(1, 20);
+        for (int i = 0; i < numberOfChunks; i++) {
+            chunks.add(new BlobStoreIndexShardSnapshot.Chunk("__chunk-" + randomAlphaOfLength(64), randomLongBetween(1L, 1000L)));
+        }
+        return chunks;
+    }
 }
@@ -0,0 +1,184 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class TranslogGroupCommitServiceTests extends ESTestCase {
+
+    private ThreadPool threadPool;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        threadPool = new TestThreadPool(getTestName());
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        terminate(threadPool);
+        super.tearDown();
+    }
+
+    private TranslogGroupCommitService newService() {
+        return new TranslogGroupCommitService(
+            Settings.builder()
+                .put(TranslogGroupCommitService.GROUP_COMMIT_ENABLED_SETTING.getKey(), true)
+                .put(TranslogGroupCommitService.GROUP_COMMIT_MAX_WINDOW_SETTING.getKey(), randomIntBetween(0, 5) + "ms")
+                .build(),
+            threadPool
+        );
+    }
+
+    public void testDisabledByDefault() {
+        assertFalse(new TranslogGroupCommitService(Settings.EMPTY, threadPool).isEnabled());
+        assertTrue(newService().isEnabled());
+    }
+
+    public void testSyncsEachShardUpToTheHighestLocation() throws Exception {
+        final TranslogGroupCommitService service = newService();
+        final int numShards = randomIntBetween(1, 10);
+        final List<List<Translog.Location>> syncedLocations = new ArrayList<>();
+        final List<TranslogGroupCommitService.ShardTranslogSyncer> syncers = new ArrayList<>();
+        for (int i = 0; i < numShards; i++) {
+            final List<Translog.Location> synced = new CopyOnWriteArrayList<>();
+            syncedLocations.add(synced);
+            syncers.add(synced::add);
+        }
+
+        final int numRequests = randomIntBetween(1, 500);
+        final CountDownLatch latch = new CountDownLatch(numRequests);
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final Thread[] threads = new Thread[randomIntBetween(1, 4)];
+        final List<List<Translog.Location>> requests = new ArrayList<>();
+        for (int i = 0; i < numShards; i++) {
+            requests.add(new CopyOnWriteArrayList<>());
+        }
+        for (int t = 0; t < threads.length; t++) {
+            final int threadId = t;
+            threads[t] = new Thread(() -> {
+                for (int r = threadId; r < numRequests; r += threads.length) {
+                    final int shard = r % numShards;
+                    final Translog.Location location = new Translog.Location(1, r * 10L, 10);
+                    requests.get(shard).add(location);
+                    service.sync(syncers.get(shard), location, e -> {
+                        if (e != null) {
+                            failure.set(e);
+                        }
+                        latch.countDown();
+                    });
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertNull(failure.get());
+
+        for (int shard = 0; shard < numShards; shard++) {
+            final List<Translog.Location> synced = syncedLocations.get(shard);
+            final List<Translog.Location> requested = requests.get(shard);
+            // every shard is synced at most once per batch, and at least once if it requested a sync
+            assertThat(synced.size(), lessThanOrEqualTo(requested.size()));
+            if (requested.isEmpty() == false) {
+                final Translog.Location maxRequested = requested.stream().max(Translog.Location::compareTo).get();
+                final Translog.Location maxSynced = synced.stream().max(Translog.Location::compareTo).get();
+                assertThat(maxSynced, equalTo(maxRequested));
+            }
+        }
+
+        assertBusy(() -> {
+            final TranslogStats stats = service.stats();
+            assertThat(stats.getGroupCommitSyncs(), equalTo((long) numRequests));
+            assertThat(stats.getGroupCommitBatches(), greaterThanOrEqualTo(1L));
+            assertThat(stats.getGroupCommitBatches(), lessThanOrEqualTo((long) numRequests));
+        });
+    }
+
+    public void testFailuresArePassedToListenersOfTheFailingShard() throws Exception {
+        final TranslogGroupCommitService service = newService();
+        final IOException exception = new IOException("simulated");
+        final TranslogGroupCommitService.ShardTranslogSyncer failing = location -> { throw exception; };
+        final TranslogGroupCommitService.ShardTranslogSyncer succeeding = location -> {};
+
+        final CountDownLatch latch = new CountDownLatch(2);
+        final AtomicReference<Exception> failingResult = new AtomicReference<>();
+        final AtomicReference<Exception> succeedingResult = new AtomicReference<>();
+        service.sync(failing, new Translog.Location(1, 0, 10), e -> {
+            failingResult.set(e);
+            latch.countDown();
+        });
+        service.sync(succeeding, new Translog.Location(1, 0, 10), e -> {
+            succeedingResult.set(e);
+            latch.countDown();
+        });
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertThat(failingResult.get(), instanceOf(IOException.class));
+        assertThat(failingResult.get(), sameInstance(exception));
+        assertNull(succeedingResult.get());
+    }
+
+    public void testWindowIsBoundedByMaxWindow() throws Exception {
+        final TimeValue maxWindow = TimeValue.timeValueMillis(randomIntBetween(1, 10));
+        final TranslogGroupCommitService service = new TranslogGroupCommitService(
+            Settings.builder()
+                .put(TranslogGroupCommitService.GROUP_COMMIT_ENABLED_SETTING.getKey(), true)
+                .put(TranslogGroupCommitService.GROUP_COMMIT_MAX_WINDOW_SETTING.getKey(), maxWindow.getStringRep())
+                .build(),
+            threadPool
+        );
+        // no fsync observed yet, so there is nothing to wait for
+        assertThat(service.currentWindow().nanos(), equalTo(0L));
+
+        // fsyncs that take several times as long as the max window, so that half their average latency soon exceeds it
+        final TranslogGroupCommitService.ShardTranslogSyncer slowSyncer = location -> {
+            try {
+                Thread.sleep(4 * maxWindow.millis());
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        };
+        final int numSyncs = randomIntBetween(5, 10);
+        for (int i = 0; i < numSyncs; i++) {
+            final CountDownLatch latch = new CountDownLatch(1);
+            final AtomicReference<Exception> failure = new AtomicReference<>();
+            service.sync(slowSyncer, new Translog.Location(1, i * 10L, 10), e -> {
+                failure.set(e);
+                latch.countDown();
+            });
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertNull(failure.get());
+            assertThat(service.currentWindow().nanos(), greaterThan(0L));
+            assertThat(service.currentWindow().nanos(), lessThanOrEqualTo(maxWindow.nanos()));
+        }
+        // the moving average exceeds twice the max window after a couple of slow fsyncs, so the window is clamped
+        assertThat(service.currentWindow().nanos(), equalTo(maxWindow.nanos()));
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.cache.request.RequestCacheStats;
+import org.elasticsearch.index.mapper.MappingLookup;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchModule;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
+import org.elasticsearch.search.aggregations.metrics.InternalMax;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Collections.emptyList;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class IndicesAggregationCacheTests extends ESTestCase {
+
+    public void testCanCache() {
+        assertFalse(IndicesAggregationCache.canCache(null));
+        assertFalse(IndicesAggregationCache.canCache(new AggregatorFactories.Builder()));
+
+        assertTrue(
+            IndicesAggregationCache.canCache(
+                new AggregatorFactories.Builder().addAggregator(
+                    AggregationBuilders.dateHistogram("histo")
+                        .field("@timestamp")
+                        .fixedInterval(DateHistogramInterval.minutes(1))
+                        .subAggregation(
+                            AggregationBuilders.terms("hosts")
+                                .field("host")
+                                .order(BucketOrder.key(false))
+                                .subAggregation(AggregationBuilders.max("max"))
+                        )
+                )
+            )
+        );
+        assertTrue(
+            IndicesAggregationCache.canCache(
+                new AggregatorFactories.Builder().addAggregator(
+                    AggregationBuilders.terms("hosts").field("host").order(BucketOrder.key(true))
+                )
+            )
+        );
+
+        assertFalse(
+            IndicesAggregationCache.canCache(
+                new AggregatorFactories.Builder().addAggregator(AggregationBuilders.percentiles("percentiles").field("value"))
+            )
+        );
+        assertFalse(
+            IndicesAggregationCache.canCache(new AggregatorFactories.Builder().addAggregator(AggregationBuilders.terms("hosts").field("host")))
+        );
+        assertFalse(
+            IndicesAggregationCache.canCache(
+                new AggregatorFactories.Builder().addAggregator(
+                    AggregationBuilders.terms("hosts").field("host").order(BucketOrder.count(false))
+                )
+            )
+        );
+        assertFalse(
+            IndicesAggregationCache.canCache(
+                new AggregatorFactories.Builder().addAggregator(
+                    AggregationBuilders.terms("hosts")
+                        .field("host")
+                        .order(BucketOrder.aggregation("max", false))
+                        .subAggregation(AggregationBuilders.max("max").field("value"))
+                )
+            )
+        );
+        assertFalse(
+            IndicesAggregationCache.canCache(
+                new AggregatorFactories.Builder().addAggregator(AggregationBuilders.terms("hosts").field("host").shardMinDocCount(2))
+            )
+        );
+        assertFalse(
+            IndicesAggregationCache.canCache(
+                new AggregatorFactories.Builder().addAggregator(
+                    AggregationBuilders.dateHistogram("histo")
+                        .field("@timestamp")
+                        .fixedInterval(DateHistogramInterval.minutes(1))
+                        .subAggregation(AggregationBuilders.topHits("top"))
+                )
+            )
+        );
+    }
+
+    public void testCachesResultsPerSegment() throws IOException {
+        final IndicesAggregationCache cache = new IndicesAggregationCache(
+            Settings.EMPTY,
+            new NamedWriteableRegistry(new SearchModule(Settings.EMPTY, emptyList()).getNamedWriteables())
+        );
+        final MappingLookup.CacheKey mappingKey = MappingLookup.EMPTY.cacheKey();
+        final BytesReference requestKey = new BytesArray("request");
+
+        try (
+            Directory dir = newDirectory();
+            IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))
+        ) {
+            addSegment(writer, "1");
+            addSegment(writer, "2");
+            final AtomicInteger computed = new AtomicInteger();
+            DirectoryReader reader = DirectoryReader.open(writer);
+            assertThat(reader.leaves().size(), equalTo(2));
+            for (LeafReaderContext leaf : reader.leaves()) {
+                assertMax(cache.getOrCompute(leaf, mappingKey, requestKey, () -> compute(computed, leaf)), leaf);
+            }
+            assertThat(computed.get(), equalTo(2));
+            assertThat(cache.count(), equalTo(2));
+
+            // a refresh that adds a segment only computes the new segment
+            addSegment(writer, "3");
+            DirectoryReader newReader = DirectoryReader.openIfChanged(reader, writer);
+            reader.close();
+            reader = newReader;
+            for (LeafReaderContext leaf : reader.leaves()) {
+                assertMax(cache.getOrCompute(leaf, mappingKey, requestKey, () -> compute(computed, leaf)), leaf);
+            }
+            assertThat(computed.get(), equalTo(3));
+            assertThat(cache.count(), equalTo(3));
+
+            // other requests don't share the results
+            final LeafReaderContext first = reader.leaves().get(0);
+            cache.getOrCompute(first, mappingKey, new BytesArray("other"), () -> compute(computed, first));
+            assertThat(computed.get(), equalTo(4));
+
+            // deletes change the results of a segment
+            writer.deleteDocuments(new Term("id", "1"));
+            newReader = DirectoryReader.openIfChanged(reader, writer);
+            reader.close();
+            reader = newReader;
+            for (LeafReaderContext leaf : reader.leaves()) {
+                cache.getOrCompute(leaf, mappingKey, requestKey, () -> compute(computed, leaf));
+            }
+            assertThat(computed.get(), equalTo(5));
+
+            RequestCacheStats stats = cache.stats();
+            assertThat(stats.getSegmentAggregationsHitCount(), equalTo(4L));
+            assertThat(stats.getSegmentAggregationsMissCount(), equalTo(5L));
+            assertThat(stats.getSegmentAggregationsMemorySizeInBytes(), greaterThan(0L));
+            reader.close();
+        }
+        // the results of segments are dropped once their segments are closed
+        assertThat(cache.count(), equalTo(0));
+        cache.close();
+    }
+
+    private static void addSegment(IndexWriter writer, String id) throws IOException {
+        Document doc = new Document();
+        doc.add(new StringField("id", id, Field.Store.NO));
+        writer.addDocument(doc);
+        doc = new Document();
+        doc.add(new StringField("id", id + "-other", Field.Store.NO));
+        writer.addDocument(doc);
+        writer.flush();
+    }
+
+    private static InternalAggregations compute(AtomicInteger computed, LeafReaderContext leaf) {
+        computed.incrementAndGet();
+        return InternalAggregations.from(List.of(new InternalMax("max", leaf.reader().numDocs(), DocValueFormat.RAW, Map.of())));
+    }
+
+    private static void assertMax(InternalAggregations aggregations, LeafReaderContext leaf) {
+        InternalMax max = aggregations.get("max");
+        assertThat(max.value(), equalTo((double) leaf.reader().numDocs()));
+    }
+}
@@ -549,6 +549,7 @@ public class IndicesClusterStateServiceRandomUpdatesTests extends AbstractIndice
             null,
             null,
             null,
+            null,
             primaryReplicaSyncer,
             RetentionLeaseSyncer.EMPTY,
             client
@@ -0,0 +1,126 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.FileRegionBytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.StoreFileMetadata;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.VersionUtils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class RecoveryFileChunkRequestTests extends ESTestCase {
+
+    private static RecoveryFileChunkRequest createRequest(BytesReference content) {
+        final StoreFileMetadata metadata = new StoreFileMetadata(
+            randomAlphaOfLength(10),
+            randomLongBetween(content.length(), Long.MAX_VALUE / 2),
+            randomAlphaOfLength(8),
+            org.apache.lucene.util.Version.LATEST.toString()
+        );
+        return new RecoveryFileChunkRequest(
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            new ShardId("test", "_na_", randomIntBetween(0, 10)),
+            metadata,
+            randomNonNegativeLong(),
+            ReleasableBytesReference.wrap(content),
+            randomBoolean(),
+            randomIntBetween(0, Integer.MAX_VALUE),
+            randomNonNegativeLong()
+        );
+    }
+
+    private static void assertRequestsEqual(RecoveryFileChunkRequest expected, RecoveryFileChunkRequest actual) {
+        assertThat(actual.recoveryId(), equalTo(expected.recoveryId()));
+        assertThat(actual.requestSeqNo(), equalTo(expected.requestSeqNo()));
+        assertThat(actual.shardId(), equalTo(expected.shardId()));
+        assertThat(actual.metadata().name(), equalTo(expected.metadata().name()));
+        assertThat(actual.metadata().length(), equalTo(expected.metadata().length()));
+        assertThat(actual.metadata().checksum(), equalTo(expected.metadata().checksum()));
+        assertThat(actual.metadata().writtenBy(), equalTo(expected.metadata().writtenBy()));
+        assertThat(actual.position(), equalTo(expected.position()));
+        assertThat(actual.content(), equalTo(expected.content()));
+        assertThat(actual.lastChunk(), equalTo(expected.lastChunk()));
+        assertThat(actual.totalTranslogOps(), equalTo(expected.totalTranslogOps()));
+        assertThat(actual.sourceThrottleTimeInNanos(), equalTo(expected.sourceThrottleTimeInNanos()));
+    }
+
+    public void testSerialization() throws IOException {
+        final Version version = VersionUtils.randomCompatibleVersion(random(), Version.CURRENT);
+        final RecoveryFileChunkRequest request = createRequest(new BytesArray(randomByteArrayOfLength(randomIntBetween(0, 1024))));
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(version);
+            request.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                in.setVersion(version);
+                assertRequestsEqual(request, new RecoveryFileChunkRequest(in));
+            }
+        } finally {
+            request.decRef();
+        }
+    }
+
+    public void testFileRegion() throws IOException {
+        final byte[] bytes = randomByteArrayOfLength(randomIntBetween(1, 1024));
+        final int offset = randomIntBetween(0, 100);
+        final Path file = createTempFile();
+        final byte[] fileBytes = new byte[offset + bytes.length];
+        System.arraycopy(bytes, 0, fileBytes, offset, bytes.length);
+        Files.write(file, fileBytes);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final FileRegionBytesReference region = new FileRegionBytesReference(channel, offset, bytes.length);
+            final RecoveryFileChunkRequest request = createRequest(region);
+            try {
+                assertThat(request.fileRegion(Version.CURRENT), sameInstance(region));
+                final Version oldVersion = VersionUtils.randomPreviousCompatibleVersion(
+                    random(),
+                    RecoveryFileChunkRequest.CONTENT_LAST_VERSION
+                );
+                assertThat(request.fileRegion(oldVersion), nullValue());
+
+                // a thin request followed by the bytes of the region is the same as the fully serialized request
+                final BytesReference serialized;
+                try (BytesStreamOutput out = new BytesStreamOutput()) {
+                    request.writeTo(out);
+                    serialized = out.bytes();
+                }
+                try (BytesStreamOutput out = new BytesStreamOutput()) {
+                    request.writeThin(out);
+                    out.writeBytes(bytes);
+                    assertThat(out.bytes(), equalTo(serialized));
+                }
+
+                try (StreamInput in = serialized.streamInput()) {
+                    final RecoveryFileChunkRequest deserialized = new RecoveryFileChunkRequest(in);
+                    assertRequestsEqual(request, deserialized);
+                    assertThat(deserialized.content(), equalTo(new BytesArray(bytes)));
+                }
+            } finally {
+                request.decRef();
+            }
+        }
+    }
+}
@@ -31,6 +31,7 @@ import static org.elasticsearch.indices.recovery.RecoverySettings.DEFAULT_MAX_BY
 import static org.elasticsearch.indices.recovery.RecoverySettings.INDICES_RECOVERY_MAX_BYTES_PER_SEC_SETTING;
 import static org.elasticsearch.indices.recovery.RecoverySettings.INDICES_RECOVERY_MAX_CONCURRENT_SNAPSHOT_FILE_DOWNLOADS;
 import static org.elasticsearch.indices.recovery.RecoverySettings.INDICES_RECOVERY_MAX_CONCURRENT_SNAPSHOT_FILE_DOWNLOADS_PER_NODE;
+import static org.elasticsearch.indices.recovery.RecoverySettings.INDICES_RECOVERY_MAX_IN_FLIGHT_SNAPSHOT_PART_BYTES_SETTING;
 import static org.elasticsearch.indices.recovery.RecoverySettings.INDICES_RECOVERY_USE_SNAPSHOTS_SETTING;
 import static org.elasticsearch.indices.recovery.RecoverySettings.JAVA_VERSION_OVERRIDING_TEST_SETTING;
 import static org.elasticsearch.indices.recovery.RecoverySettings.NODE_BANDWIDTH_RECOVERY_DISK_READ_SETTING;
@@ -97,6 +98,37 @@ public class RecoverySettingsTests extends ESTestCase {
         permit.close();
     }
 
+    public void testSnapshotPartBytesAreBoundedByMaxInFlightBytes() {
+        ClusterSettings clusterSettings = new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+        RecoverySettings recoverySettings = new RecoverySettings(Settings.EMPTY, clusterSettings);
+
+        // parallel part transfers are disabled by default
+        assertThat(recoverySettings.getMaxInFlightSnapshotPartBytes(), equalTo(0L));
+        assertThat(recoverySettings.tryAcquireSnapshotPartBytes(1L), is(nullValue()));
+
+        clusterSettings.applySettings(
+            Settings.builder().put(INDICES_RECOVERY_MAX_IN_FLIGHT_SNAPSHOT_PART_BYTES_SETTING.getKey(), "10b").build()
+        );
+        assertThat(recoverySettings.getMaxInFlightSnapshotPartBytes(), equalTo(10L));
+
+        Releasable first = recoverySettings.tryAcquireSnapshotPartBytes(6L);
+        assertThat(first, is(notNullValue()));
+        assertThat(recoverySettings.tryAcquireSnapshotPartBytes(6L), is(nullValue()));
+
+        Releasable second = recoverySettings.tryAcquireSnapshotPartBytes(4L);
+        assertThat(second, is(notNullValue()));
+        assertThat(recoverySettings.tryAcquireSnapshotPartBytes(1L), is(nullValue()));
+
+        first.close();
+        first.close(); // released only once
+        Releasable third = recoverySettings.tryAcquireSnapshotPartBytes(6L);
+        assertThat(third, is(notNullValue()));
+        assertThat(recoverySettings.tryAcquireSnapshotPartBytes(1L), is(nullValue()));
+
+        second.close();
+        third.close();
+    }
+
     public void testMaxConcurrentSnapshotFileDownloadsPerNodeIsValidated() {
         ClusterSettings clusterSettings = new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
         Settings settings = Settings.builder()
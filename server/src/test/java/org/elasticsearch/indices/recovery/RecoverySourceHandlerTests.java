@@ -19,6 +19,7 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.NIOFSDirectory;
 import org.apache.lucene.tests.index.RandomIndexWriter;
 import org.apache.lucene.tests.store.BaseDirectoryWrapper;
 import org.apache.lucene.util.SetOnce;
@@ -36,6 +37,7 @@ import org.elasticsearch.common.StopWatch;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.FileRegionBytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.io.FileSystemUtils;
 import org.elasticsearch.common.lucene.store.IndexOutputOutputStream;
@@ -163,9 +165,18 @@ public class RecoverySourceHandlerTests extends ESTestCase {
     }
 
     public void testSendFiles() throws Throwable {
+        doTestSendFiles(newStore(createTempDir()), false);
+    }
+
+    public void testSendFilesAsFileRegions() throws Throwable {
+        // files of a store over a plain FSDirectory are sent as regions of the files rather than copies of their bytes
+        final Store store = new Store(shardId, INDEX_SETTINGS, new NIOFSDirectory(createTempDir()), new DummyShardLock(shardId));
+        doTestSendFiles(store, true);
+    }
+
+    private void doTestSendFiles(Store store, boolean expectFileRegions) throws Throwable {
         final RecoverySettings recoverySettings = new RecoverySettings(Settings.EMPTY, service);
         final StartRecoveryRequest request = getStartRecoveryRequest();
-        Store store = newStore(createTempDir());
         Directory dir = store.directory();
         RandomIndexWriter writer = new RandomIndexWriter(random(), dir, newIndexWriterConfig());
         int numDocs = randomIntBetween(10, 100);
@@ -196,6 +207,9 @@ public class RecoverySourceHandlerTests extends ESTestCase {
                 ActionListener<Void> listener
             ) {
                 ActionListener.completeWith(listener, () -> {
+                    if (md.hashEqualsContents() == false) {
+                        assertThat(content.unwrap() instanceof FileRegionBytesReference, equalTo(expectFileRegions));
+                    }
                     multiFileWriter.writeFileChunk(md, position, content, lastChunk);
                     return null;
                 });
@@ -9,9 +9,11 @@
 package org.elasticsearch.ingest;
 
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.TriConsumer;
 import org.elasticsearch.test.ESTestCase;
 import org.junit.Before;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -411,6 +413,69 @@ public class CompoundProcessorTests extends ESTestCase {
         assertThat(ingestProcessorException.getHeader("pipeline_origin"), equalTo(List.of("2", "1")));
     }
 
+    public void testExecuteBatch() {
+        LongSupplier relativeTimeProvider = mock(LongSupplier.class);
+        when(relativeTimeProvider.getAsLong()).thenReturn(0L);
+        BatchProcessor first = new BatchProcessor("first");
+        BatchProcessor second = new BatchProcessor("second");
+        CompoundProcessor compoundProcessor = new CompoundProcessor(
+            false,
+            List.of(first, second),
+            List.of(new TestProcessor(ingestDocument -> ingestDocument.setFieldValue("on_failure", true))),
+            relativeTimeProvider
+        );
+        assertThat(compoundProcessor.supportsBatchExecution(), is(true));
+
+        List<IngestDocument> ingestDocuments = List.of(
+            new IngestDocument(new HashMap<>(), new HashMap<>()),
+            new IngestDocument(new HashMap<>(Map.of("fail", true)), new HashMap<>()),
+            new IngestDocument(new HashMap<>(Map.of("drop", true)), new HashMap<>()),
+            new IngestDocument(new HashMap<>(), new HashMap<>())
+        );
+        IngestDocument[] results = new IngestDocument[ingestDocuments.size()];
+        Exception[] failures = new Exception[ingestDocuments.size()];
+        int[] calls = new int[ingestDocuments.size()];
+        compoundProcessor.executeBatch(ingestDocuments, (slot, result, e) -> {
+            calls[slot]++;
+            results[slot] = result;
+            failures[slot] = e;
+        });
+
+        for (int i = 0; i < ingestDocuments.size(); i++) {
+            assertThat(calls[i], equalTo(1));
+            assertThat(failures[i], nullValue());
+        }
+        // each processor gets the documents that are still being processed at once
+        assertThat(first.batchSizes, equalTo(List.of(4)));
+        assertThat(second.batchSizes, equalTo(List.of(2)));
+        assertThat(results[0].getFieldValue("second", Boolean.class), is(true));
+        assertThat(results[1].getFieldValue("on_failure", Boolean.class), is(true));
+        assertThat(results[1].hasField("second"), is(false));
+        assertThat(results[2], nullValue());
+        assertThat(results[3].getFieldValue("second", Boolean.class), is(true));
+        assertStats(0, compoundProcessor, 0L, 4, 1, 0);
+        assertStats(1, compoundProcessor, 0L, 2, 0, 0);
+    }
+
+    public void testExecuteBatchIgnoreFailure() {
+        BatchProcessor processor = new BatchProcessor("processor");
+        TestProcessor next = new TestProcessor(ingestDocument -> ingestDocument.setFieldValue("next", true));
+        CompoundProcessor compoundProcessor = new CompoundProcessor(true, List.of(processor, next), List.of());
+        List<IngestDocument> ingestDocuments = List.of(
+            new IngestDocument(new HashMap<>(Map.of("fail", true)), new HashMap<>()),
+            new IngestDocument(new HashMap<>(), new HashMap<>())
+        );
+        IngestDocument[] results = new IngestDocument[ingestDocuments.size()];
+        compoundProcessor.executeBatch(ingestDocuments, (slot, result, e) -> {
+            assertThat(e, nullValue());
+            results[slot] = result;
+        });
+        assertThat(results[0].getFieldValue("next", Boolean.class), is(true));
+        assertThat(results[0].hasField("processor"), is(false));
+        assertThat(results[1].getFieldValue("next", Boolean.class), is(true));
+        assertThat(next.getInvokedCounter(), equalTo(2));
+    }
+
     private void assertStats(CompoundProcessor compoundProcessor, long count, long failed, long time) {
         assertStats(0, compoundProcessor, 0L, count, failed, time);
     }
@@ -422,4 +487,58 @@ public class CompoundProcessorTests extends ESTestCase {
         assertThat(stats.getIngestFailedCount(), equalTo(failed));
         assertThat(stats.getIngestTimeInMillis(), equalTo(time));
     }
+
+    /**
+     * Processes documents in batches and records the size of each batch. Documents with a {@code fail} field fail, documents with a
+     * {@code drop} field are dropped, and the other documents get a field named after the tag of the processor.
+     */
+    private static class BatchProcessor implements Processor {
+        private final String tag;
+        private final List<Integer> batchSizes = new ArrayList<>();
+
+        BatchProcessor(String tag) {
+            this.tag = tag;
+        }
+
+        @Override
+        public boolean supportsBatchExecution() {
+            return true;
+        }
+
+        @Override
+        public void executeBatch(List<IngestDocument> ingestDocuments, TriConsumer<Integer, IngestDocument, Exception> handler) {
+            batchSizes.add(ingestDocuments.size());
+            for (int i = 0; i < ingestDocuments.size(); i++) {
+                IngestDocument ingestDocument = ingestDocuments.get(i);
+                if (ingestDocument.hasField("fail")) {
+                    handler.apply(i, null, new RuntimeException("failed"));
+                } else if (ingestDocument.hasField("drop")) {
+                    handler.apply(i, null, null);
+                } else {
+                    ingestDocument.setFieldValue(tag, true);
+                    handler.apply(i, ingestDocument, null);
+                }
+            }
+        }
+
+        @Override
+        public IngestDocument execute(IngestDocument ingestDocument) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getType() {
+            return "batch";
+        }
+
+        @Override
+        public String getTag() {
+            return tag;
+        }
+
+        @Override
+        public String getDescription() {
+            return null;
+        }
+    }
 }
@@ -37,12 +37,14 @@ import org.elasticsearch.cluster.metadata.IndexTemplateMetadata;
 import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.TriConsumer;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.time.DateFormatter;
 import org.elasticsearch.common.util.Maps;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.core.Tuple;
@@ -1454,6 +1456,121 @@ public class IngestServiceTests extends ESTestCase {
         }
     }
 
+    public void testBulkRequestExecutionInBatches() throws Exception {
+        int numRequest = IngestService.MAX_BATCH_SIZE + randomIntBetween(1, IngestService.MAX_BATCH_SIZE);
+        BulkRequest bulkRequest = new BulkRequest();
+        for (int i = 0; i < numRequest; i++) {
+            IndexRequest indexRequest = new IndexRequest("_index").id(Integer.toString(i)).setPipeline("_id").setFinalPipeline("_final");
+            indexRequest.source(Requests.INDEX_CONTENT_TYPE, "field1", "value1");
+            bulkRequest.add(indexRequest);
+        }
+
+        Map<String, List<Integer>> batchSizes = ConcurrentCollections.newConcurrentMap();
+        Map<String, Processor.Factory> processors = new HashMap<>();
+        processors.put("batch", (factories, tag, description, config) -> new FakeProcessor("batch", tag, description, doc -> {}) {
+            @Override
+            public boolean supportsBatchExecution() {
+                return true;
+            }
+
+            @Override
+            public void executeBatch(List<IngestDocument> ingestDocuments, TriConsumer<Integer, IngestDocument, Exception> handler) {
+                batchSizes.computeIfAbsent(tag, k -> Collections.synchronizedList(new ArrayList<>())).add(ingestDocuments.size());
+                for (int i = 0; i < ingestDocuments.size(); i++) {
+                    ingestDocuments.get(i).setFieldValue(tag, true);
+                    handler.apply(i, ingestDocuments.get(i), null);
+                }
+            }
+        });
+        IngestService ingestService = createWithProcessors(processors);
+        ClusterState clusterState = ClusterState.builder(new ClusterName("_name")).build();
+        ClusterState previousClusterState = clusterState;
+        clusterState = IngestService.innerPut(new PutPipelineRequest("_id", new BytesArray("""
+            {"processors": [{"batch": {"tag": "default"}}]}"""), XContentType.JSON), clusterState);
+        clusterState = IngestService.innerPut(new PutPipelineRequest("_final", new BytesArray("""
+            {"processors": [{"batch": {"tag": "final"}}]}"""), XContentType.JSON), clusterState);
+        ingestService.applyClusterState(new ClusterChangedEvent("", clusterState, previousClusterState));
+
+        @SuppressWarnings("unchecked")
+        BiConsumer<Integer, Exception> requestItemErrorHandler = mock(BiConsumer.class);
+        @SuppressWarnings("unchecked")
+        final BiConsumer<Thread, Exception> completionHandler = mock(BiConsumer.class);
+        ingestService.executeBulkRequest(
+            numRequest,
+            bulkRequest.requests(),
+            requestItemErrorHandler,
+            completionHandler,
+            indexReq -> {},
+            Names.WRITE
+        );
+
+        verify(requestItemErrorHandler, never()).accept(any(), any());
+        verify(completionHandler, times(1)).accept(Thread.currentThread(), null);
+        // the documents go through both pipelines in batches
+        List<Integer> expectedBatchSizes = List.of(IngestService.MAX_BATCH_SIZE, numRequest - IngestService.MAX_BATCH_SIZE);
+        assertThat(batchSizes.get("default"), equalTo(expectedBatchSizes));
+        assertThat(batchSizes.get("final"), equalTo(expectedBatchSizes));
+        for (DocWriteRequest<?> docWriteRequest : bulkRequest.requests()) {
+            Map<String, Object> source = ((IndexRequest) docWriteRequest).sourceAsMap();
+            assertThat(source.get("default"), equalTo(true));
+            assertThat(source.get("final"), equalTo(true));
+        }
+        IngestStats stats = ingestService.stats();
+        assertStats(stats.getTotalStats(), 2L * numRequest, 0, 0);
+        assertPipelineStats(stats.getPipelineStats(), "_id", numRequest, 0, 0);
+        assertProcessorStats(0, stats, "_final", numRequest, 0, 0);
+    }
+
+    public void testBulkRequestExecutionWithInvalidMetadata() throws Exception {
+        int numRequest = randomIntBetween(2, IngestService.MAX_BATCH_SIZE);
+        int invalidSlot = randomIntBetween(0, numRequest - 1);
+        BulkRequest bulkRequest = new BulkRequest();
+        for (int i = 0; i < numRequest; i++) {
+            IndexRequest indexRequest = new IndexRequest("_index").id(Integer.toString(i)).setPipeline("_id").setFinalPipeline("_none");
+            indexRequest.source(Requests.INDEX_CONTENT_TYPE, "invalid", i == invalidSlot);
+            bulkRequest.add(indexRequest);
+        }
+
+        Map<String, Processor.Factory> processors = new HashMap<>();
+        processors.put("mock", (factories, tag, description, config) -> new FakeProcessor("mock", tag, description, doc -> {
+            if (doc.getFieldValue("invalid", Boolean.class)) {
+                // the version of the index request is a number, so this fails once the index request is updated from the document
+                doc.setFieldValue(IngestDocument.Metadata.VERSION.getFieldName(), "not a number");
+            }
+            doc.setFieldValue("processed", true);
+        }));
+        IngestService ingestService = createWithProcessors(processors);
+        ClusterState clusterState = ClusterState.builder(new ClusterName("_name")).build();
+        ClusterState previousClusterState = clusterState;
+        clusterState = IngestService.innerPut(new PutPipelineRequest("_id", new BytesArray("""
+            {"processors": [{"mock": {}}]}"""), XContentType.JSON), clusterState);
+        ingestService.applyClusterState(new ClusterChangedEvent("", clusterState, previousClusterState));
+
+        @SuppressWarnings("unchecked")
+        BiConsumer<Integer, Exception> requestItemErrorHandler = mock(BiConsumer.class);
+        @SuppressWarnings("unchecked")
+        final BiConsumer<Thread, Exception> completionHandler = mock(BiConsumer.class);
+        ingestService.executeBulkRequest(
+            numRequest,
+            bulkRequest.requests(),
+            requestItemErrorHandler,
+            completionHandler,
+            indexReq -> {},
+            Names.WRITE
+        );
+
+        // only the document with the invalid version fails, the other documents of its batch are still indexed
+        verify(requestItemErrorHandler, times(1)).accept(eq(invalidSlot), any(ClassCastException.class));
+        verify(requestItemErrorHandler, times(1)).accept(any(), any());
+        verify(completionHandler, times(1)).accept(Thread.currentThread(), null);
+        for (int i = 0; i < numRequest; i++) {
+            if (i != invalidSlot) {
+                Map<String, Object> source = ((IndexRequest) bulkRequest.requests().get(i)).sourceAsMap();
+                assertThat(source.get("processed"), equalTo(true));
+            }
+        }
+    }
+
     public void testStats() throws Exception {
         final Processor processor = mock(Processor.class);
         final Processor processorFailure = mock(Processor.class);
@@ -17,6 +17,7 @@ import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.TransportAddress;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.threadpool.TestThreadPool;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -26,8 +27,10 @@ import org.junit.Before;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 
+import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
 
 public class ResponseCollectorServiceTests extends ESTestCase {
 
@@ -137,4 +140,58 @@ public class ResponseCollectorServiceTests extends ESTestCase {
         assertTrue(nodeStats.containsKey("node1"));
         assertFalse(nodeStats.containsKey("node2"));
     }
+
+    public void testTailAwareRank() {
+        final int responses = randomIntBetween(ResponseTimeHistogram.GENERATION_SIZE, 2 * ResponseTimeHistogram.GENERATION_SIZE);
+        for (int i = 0; i < responses; i++) {
+            collector.addNodeStatistics("steady", 1, TimeValue.timeValueMillis(10).nanos(), 1000);
+            // a node that is faster most of the time, but has occasional long pauses
+            final long pausing = i % 20 == 0 ? TimeValue.timeValueMillis(500).nanos() : TimeValue.timeValueMillis(8).nanos();
+            collector.addNodeStatistics("pausing", 1, pausing, 1000);
+        }
+        final ResponseCollectorService.ComputedNodeStats steady = collector.getNodeStatistics("steady").get();
+        final ResponseCollectorService.ComputedNodeStats pausing = collector.getNodeStatistics("pausing").get();
+        assertThat(steady.p50ResponseTime, closeTo(TimeValue.timeValueMillis(10).nanos(), TimeValue.timeValueMillis(10).nanos() / 4));
+        assertThat(steady.p99ResponseTime, closeTo(TimeValue.timeValueMillis(10).nanos(), TimeValue.timeValueMillis(10).nanos() / 4));
+        assertThat(pausing.p50ResponseTime, lessThan(steady.p50ResponseTime));
+        assertThat(pausing.p99ResponseTime, greaterThan((double) TimeValue.timeValueMillis(300).nanos()));
+
+        final long outstandingRequests = randomLongBetween(0, 10);
+        assertThat(pausing.tailAwareRank(outstandingRequests), greaterThan(steady.tailAwareRank(outstandingRequests)));
+        assertThat(steady.tailAwareRank(outstandingRequests + 1), greaterThan(steady.tailAwareRank(outstandingRequests)));
+        assertThat(
+            steady.rank(ResponseCollectorService.RankingMode.LATENCY_HISTOGRAM, outstandingRequests),
+            equalTo(steady.tailAwareRank(outstandingRequests))
+        );
+        assertThat(collector.getRankingMode(), equalTo(ResponseCollectorService.RankingMode.EWMA));
+        clusterService.getClusterSettings()
+            .applySettings(Settings.builder().put(ResponseCollectorService.RANKING_MODE_SETTING.getKey(), "latency_histogram").build());
+        assertThat(collector.getRankingMode(), equalTo(ResponseCollectorService.RankingMode.LATENCY_HISTOGRAM));
+    }
+
+    public void testHedgeDelay() {
+        final long responseTime = TimeValue.timeValueMillis(randomIntBetween(1, 100)).nanos();
+        for (int i = 0; i < ResponseCollectorService.HEDGING_MIN_RESPONSES; i++) {
+            assertNull(collector.getHedgeDelay("node1"));
+            collector.addNodeStatistics("node1", 1, responseTime, 1000);
+        }
+        // disabled by default
+        assertNull(collector.getHedgeDelay("node1"));
+
+        clusterService.getClusterSettings()
+            .applySettings(Settings.builder().put(ResponseCollectorService.HEDGING_ENABLED_SETTING.getKey(), true).build());
+        final TimeValue hedgeDelay = collector.getHedgeDelay("node1");
+        assertNotNull(hedgeDelay);
+        assertThat((double) hedgeDelay.nanos(), closeTo(responseTime, responseTime / 4.0));
+        assertNull(collector.getHedgeDelay("node2"));
+
+        collector.onHedgeableRequest();
+        collector.onHedgeableRequest();
+        collector.onHedgedRequest();
+        collector.onHedgeWon();
+        final AdaptiveSelectionStats stats = collector.getAdaptiveStats(Map.of());
+        assertThat(stats.getHedgeableRequests(), equalTo(2L));
+        assertThat(stats.getHedgedRequests(), equalTo(1L));
+        assertThat(stats.getHedgeWins(), equalTo(1L));
+    }
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.node;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+
+public class ResponseTimeHistogramTests extends ESTestCase {
+
+    public void testEmpty() {
+        final ResponseTimeHistogram histogram = new ResponseTimeHistogram();
+        assertThat(histogram.count(), equalTo(0));
+        assertThat(histogram.percentile(randomDoubleBetween(0, 100, true)), equalTo(-1L));
+    }
+
+    public void testPercentiles() {
+        final ResponseTimeHistogram histogram = new ResponseTimeHistogram();
+        final int count = randomIntBetween(1, ResponseTimeHistogram.GENERATION_SIZE);
+        final long[] values = new long[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = randomLongBetween(1L << 10, 1L << 40);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        assertThat(histogram.count(), equalTo(count));
+        for (double percentile : new double[] { 0, 50, 95, 99, 100, randomDoubleBetween(0, 100, true) }) {
+            final long expected = values[Math.max(0, (int) Math.ceil(percentile / 100 * count) - 1)];
+            assertThat((double) histogram.percentile(percentile), closeTo(expected, expected / 4.0));
+        }
+    }
+
+    public void testOldResponsesAreForgotten() {
+        final ResponseTimeHistogram histogram = new ResponseTimeHistogram();
+        final long slow = randomLongBetween(1_000_000_000L, 10_000_000_000L);
+        final long fast = randomLongBetween(1_000L, 1_000_000L);
+        for (int i = 0; i < ResponseTimeHistogram.GENERATION_SIZE; i++) {
+            histogram.record(slow);
+        }
+        for (int i = 0; i < ResponseTimeHistogram.GENERATION_SIZE; i++) {
+            histogram.record(fast);
+        }
+        assertThat(histogram.count(), equalTo(2 * ResponseTimeHistogram.GENERATION_SIZE));
+        assertThat((double) histogram.percentile(99), closeTo(slow, slow / 4.0));
+
+        // starting a new generation drops the slow responses
+        histogram.record(fast);
+        assertThat(histogram.count(), equalTo(ResponseTimeHistogram.GENERATION_SIZE + 1));
+        assertThat((double) histogram.percentile(100), closeTo(fast, fast / 4.0));
+    }
+
+    public void testBuckets() {
+        assertThat(ResponseTimeHistogram.bucket(0), equalTo(0));
+        assertThat(ResponseTimeHistogram.bucket(1023), equalTo(0));
+        assertThat(ResponseTimeHistogram.bucket(1024), equalTo(1));
+        assertThat(ResponseTimeHistogram.bucket(Long.MAX_VALUE), equalTo(ResponseTimeHistogram.bucket(1L << 50)));
+
+        long previous = -1;
+        for (int bucket = 0; bucket <= ResponseTimeHistogram.bucket(Long.MAX_VALUE); bucket++) {
+            final long value = ResponseTimeHistogram.value(bucket);
+            assertThat(value, greaterThan(previous));
+            assertThat(ResponseTimeHistogram.bucket(value), equalTo(bucket));
+            previous = value;
+        }
+
+        final long nanos = randomLongBetween(1L << 10, 1L << 45);
+        final long value = ResponseTimeHistogram.value(ResponseTimeHistogram.bucket(nanos));
+        assertThat(Math.abs(value - nanos), lessThan(nanos / 4));
+        assertThat(value, greaterThanOrEqualTo(1L << 10));
+    }
+}
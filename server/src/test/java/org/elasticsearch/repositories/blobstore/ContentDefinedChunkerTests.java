@@ -0,0 +1,117 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.repositories.blobstore;
+
+import org.elasticsearch.common.lucene.store.ByteArrayIndexInput;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.startsWith;
+
+public class ContentDefinedChunkerTests extends ESTestCase {
+
+    private static final int MIN_CHUNK_SIZE = 256;
+    private static final int AVERAGE_CHUNK_SIZE = 1024;
+    private static final int MAX_CHUNK_SIZE = 4096;
+
+    private static List<BlobStoreIndexShardSnapshot.Chunk> chunk(byte[] bytes) throws IOException {
+        final ContentDefinedChunker chunker = new ContentDefinedChunker(MIN_CHUNK_SIZE, AVERAGE_CHUNK_SIZE, MAX_CHUNK_SIZE);
+        try (ByteArrayIndexInput input = new ByteArrayIndexInput("test", bytes)) {
+            return chunker.chunk(input);
+        }
+    }
+
+    public void testChunkSizes() throws IOException {
+        final byte[] bytes = randomByteArrayOfLength(randomIntBetween(1, 1 << 18));
+        final List<BlobStoreIndexShardSnapshot.Chunk> chunks = chunk(bytes);
+
+        assertThat(chunks.stream().mapToLong(BlobStoreIndexShardSnapshot.Chunk::length).sum(), equalTo((long) bytes.length));
+        for (int i = 0; i < chunks.size(); i++) {
+            final BlobStoreIndexShardSnapshot.Chunk chunk = chunks.get(i);
+            assertThat(chunk.name(), startsWith(ContentDefinedChunker.CHUNK_BLOB_PREFIX));
+            assertThat(chunk.length(), lessThanOrEqualTo((long) MAX_CHUNK_SIZE));
+            if (i < chunks.size() - 1) {
+                assertThat(chunk.length(), greaterThanOrEqualTo((long) MIN_CHUNK_SIZE));
+            }
+        }
+        // chunks are named after their contents only
+        assertThat(chunk(bytes), equalTo(chunks));
+    }
+
+    public void testEmptyInput() throws IOException {
+        assertThat(chunk(new byte[0]), empty());
+    }
+
+    public void testChunksSurviveInsertionsAndDeletions() throws IOException {
+        final byte[] bytes = randomByteArrayOfLength(1 << 18);
+        final int offset = randomIntBetween(0, bytes.length - 1);
+        final byte[] modified;
+        if (randomBoolean()) {
+            final byte[] inserted = randomByteArrayOfLength(randomIntBetween(1, 100));
+            modified = new byte[bytes.length + inserted.length];
+            System.arraycopy(bytes, 0, modified, 0, offset);
+            System.arraycopy(inserted, 0, modified, offset, inserted.length);
+            System.arraycopy(bytes, offset, modified, offset + inserted.length, bytes.length - offset);
+        } else {
+            final int deleted = randomIntBetween(1, Math.min(100, bytes.length - offset));
+            modified = new byte[bytes.length - deleted];
+            System.arraycopy(bytes, 0, modified, 0, offset);
+            System.arraycopy(bytes, offset + deleted, modified, offset, bytes.length - offset - deleted);
+        }
+
+        final List<BlobStoreIndexShardSnapshot.Chunk> chunks = chunk(bytes);
+        final Set<String> names = chunks.stream().map(BlobStoreIndexShardSnapshot.Chunk::name).collect(Collectors.toSet());
+        final Set<String> modifiedNames = new HashSet<>();
+        long sharedBytes = 0L;
+        for (BlobStoreIndexShardSnapshot.Chunk chunk : chunk(modified)) {
+            if (names.contains(chunk.name()) && modifiedNames.add(chunk.name())) {
+                sharedBytes += chunk.length();
+            }
+        }
+        // only the chunks around the modification differ, whereas fixed size parts would all differ after it
+        assertThat(sharedBytes, greaterThan(bytes.length - 4L * MAX_CHUNK_SIZE));
+    }
+
+    public void testStopsSplittingOnceCheckFails() throws IOException {
+        final ContentDefinedChunker chunker = new ContentDefinedChunker(MIN_CHUNK_SIZE, AVERAGE_CHUNK_SIZE, MAX_CHUNK_SIZE);
+        final byte[] bytes = randomByteArrayOfLength(1 << 18);
+        final int reads = randomIntBetween(1, 3);
+        final AtomicInteger checks = new AtomicInteger();
+        try (ByteArrayIndexInput input = new ByteArrayIndexInput("test", bytes)) {
+            expectThrows(IllegalStateException.class, () -> chunker.chunk(input, () -> {
+                if (checks.incrementAndGet() > reads) {
+                    throw new IllegalStateException("aborted");
+                }
+            }));
+            // the input is read in steps, and the check runs before each of them
+            assertThat(checks.get(), equalTo(reads + 1));
+            assertThat(input.getFilePointer(), lessThan((long) bytes.length));
+        }
+    }
+
+    public void testInvalidChunkSizes() {
+        expectThrows(IllegalArgumentException.class, () -> new ContentDefinedChunker(1, 3, 4));
+        expectThrows(IllegalArgumentException.class, () -> new ContentDefinedChunker(0, 2, 4));
+        expectThrows(IllegalArgumentException.class, () -> new ContentDefinedChunker(4, 2, 4));
+        expectThrows(IllegalArgumentException.class, () -> new ContentDefinedChunker(1, 8, 4));
+    }
+}
@@ -62,6 +62,7 @@ import org.elasticsearch.index.search.stats.SearchStats;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.SearchOperationListener;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardLongFieldRange;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.settings.InternalOrPrivateSettingsPlugin;
 import org.elasticsearch.plugins.Plugin;
@@ -1036,6 +1037,51 @@ public class SearchServiceTests extends ESSingleNodeTestCase {
         latch.await();
     }
 
+    public void testCanMatchReportsTimestampRangeOfImmutableShards() throws Exception {
+        final IndexService indexService = createIndex(
+            "index",
+            Settings.builder().put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1).build(),
+            "_doc",
+            "@timestamp",
+            "type=date"
+        );
+        client().prepareIndex("index").setSource("@timestamp", 1000L).get();
+        client().prepareIndex("index").setSource("@timestamp", 2000L).setRefreshPolicy(IMMEDIATE).get();
+        final SearchService service = getInstanceFromNode(SearchService.class);
+        final IndexShard indexShard = indexService.getShard(0);
+        final ShardSearchRequest request = new ShardSearchRequest(
+            OriginalIndices.NONE,
+            new SearchRequest().allowPartialSearchResults(true),
+            indexShard.shardId(),
+            0,
+            1,
+            new AliasFilter(null, Strings.EMPTY_ARRAY),
+            1f,
+            -1,
+            null
+        );
+        // the shard may still change
+        assertNull(service.canMatch(request).timestampRange());
+
+        assertAcked(
+            client().admin()
+                .indices()
+                .prepareUpdateSettings("index")
+                .setSettings(Settings.builder().put(IndexMetadata.INDEX_BLOCKS_WRITE_SETTING.getKey(), true))
+        );
+        indexShard.refresh("test");
+        final CanMatchShardResponse response = service.canMatch(request);
+        assertEquals(ShardLongFieldRange.of(1000L, 2000L), response.timestampRange());
+        assertEquals(indexService.getMetadata().getSettingsVersion(), response.timestampRangeSettingsVersion());
+
+        assertAcked(
+            client().admin()
+                .indices()
+                .prepareUpdateSettings("index")
+                .setSettings(Settings.builder().put(IndexMetadata.INDEX_BLOCKS_WRITE_SETTING.getKey(), false))
+        );
+    }
+
     public void testCanRewriteToMatchNone() {
         assertFalse(
             SearchService.canRewriteToMatchNone(
@@ -0,0 +1,143 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.tests.index.RandomIndexWriter;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.TriConsumer;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.CheckedConsumer;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.metrics.ValueCountAggregationBuilder;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class SpillingStringTermsAggregatorTests extends AggregatorTestCase {
+    private static final String FIELD = "keyword";
+
+    @Override
+    protected IndexSettings createIndexSettings() {
+        return new IndexSettings(
+            IndexMetadata.builder("_index")
+                .settings(
+                    Settings.builder()
+                        .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+                        // spill every few terms
+                        .put(SpillingStringTermsAggregator.SPILL_THRESHOLD_SETTING.getKey(), "256b")
+                )
+                .numberOfShards(1)
+                .numberOfReplicas(0)
+                .creationDate(System.currentTimeMillis())
+                .build(),
+            Settings.EMPTY
+        );
+    }
+
+    public void testSpillsAndMergesRuns() throws IOException {
+        MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType(FIELD, false, true, Map.of());
+        int numTerms = randomIntBetween(50, 300);
+        int numDocs = randomIntBetween(numTerms, 2000);
+        Map<String, Long> expected = new HashMap<>();
+        List<String> docs = randomList(numDocs, numDocs, () -> "term-" + randomIntBetween(0, numTerms));
+        for (String term : docs) {
+            expected.merge(term, 1L, Long::sum);
+        }
+        int size = randomIntBetween(1, 20);
+        boolean keyOrder = randomBoolean();
+        // the name of the aggregation doesn't end up in the names of the spilled files
+        String name = randomFrom("terms", "terms/with:odd*chars", "..");
+        TermsAggregationBuilder builder = new TermsAggregationBuilder(name).field(FIELD)
+            .executionHint("spill")
+            .size(size)
+            .shardSize(size)
+            .order(keyOrder ? BucketOrder.key(true) : BucketOrder.count(false));
+        Comparator<Map.Entry<String, Long>> comparator = keyOrder
+            ? Map.Entry.comparingByKey()
+            : Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+        List<Map.Entry<String, Long>> top = expected.entrySet().stream().sorted(comparator).limit(size).toList();
+
+        TriConsumer<StringTerms, Class<? extends Aggregator>, Map<String, Map<String, Object>>> verify = (result, impl, debug) -> {
+            assertThat(impl, equalTo(SpillingStringTermsAggregator.class));
+            assertThat((int) debug.get(name).get("spilled_runs"), greaterThan(1));
+            assertThat(result.getBuckets().size(), equalTo(top.size()));
+            long topDocCount = 0;
+            for (int i = 0; i < top.size(); i++) {
+                assertThat(result.getBuckets().get(i).getKeyAsString(), equalTo(top.get(i).getKey()));
+                assertThat(result.getBuckets().get(i).getDocCount(), equalTo(top.get(i).getValue()));
+                topDocCount += top.get(i).getValue();
+            }
+            assertThat(result.getSumOfOtherDocCounts(), equalTo(numDocs - topDocCount));
+        };
+        withIndexIn(newFSDirectory(createTempDir()), iw -> {
+            for (String term : docs) {
+                iw.addDocument(List.of(new SortedSetDocValuesField(FIELD, new BytesRef(term))));
+            }
+        }, searcher -> debugTestCase(builder, new MatchAllDocsQuery(), searcher, verify, fieldType));
+    }
+
+    public void testFallsBackToMapWithoutFileSystemDirectory() throws IOException {
+        MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType(FIELD, false, true, Map.of());
+        TermsAggregationBuilder builder = new TermsAggregationBuilder("terms").field(FIELD).executionHint("spill");
+        TriConsumer<StringTerms, Class<? extends Aggregator>, Map<String, Map<String, Object>>> verify = (result, impl, debug) -> {
+            assertThat(impl, equalTo(MapStringTermsAggregator.class));
+            assertThat(result.getBuckets().size(), equalTo(1));
+        };
+        // like the read-only directories of searchable snapshots, a directory that isn't stored on the file system can't spill
+        withIndexIn(new ByteBuffersDirectory(), iw -> {
+            iw.addDocument(List.of(new SortedSetDocValuesField(FIELD, new BytesRef("a"))));
+        }, searcher -> debugTestCase(builder, new MatchAllDocsQuery(), searcher, verify, fieldType));
+    }
+
+    public void testFallsBackToMapWithSubAggregations() throws IOException {
+        MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType(FIELD, false, true, Map.of());
+        TermsAggregationBuilder builder = new TermsAggregationBuilder("terms").field(FIELD)
+            .executionHint("spill")
+            .subAggregation(new ValueCountAggregationBuilder("count").field(FIELD));
+        debugTestCase(builder, new MatchAllDocsQuery(), iw -> {
+            iw.addDocument(List.of(new SortedSetDocValuesField(FIELD, new BytesRef("a"))));
+        }, (StringTerms result, Class<? extends Aggregator> impl, Map<String, Map<String, Object>> debug) -> {
+            assertThat(impl, equalTo(MapStringTermsAggregator.class));
+            assertThat(result.getBuckets().size(), equalTo(1));
+        }, fieldType);
+    }
+
+    private void withIndexIn(
+        Directory directory,
+        CheckedConsumer<RandomIndexWriter, IOException> buildIndex,
+        CheckedConsumer<IndexSearcher, IOException> consume
+    ) throws IOException {
+        try (directory) {
+            RandomIndexWriter iw = new RandomIndexWriter(random(), directory);
+            buildIndex.accept(iw);
+            iw.close();
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                consume.accept(newIndexSearcher(reader));
+            }
+        }
+    }
+}
@@ -9,6 +9,7 @@
 package org.elasticsearch.search.aggregations.timeseries;
 
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.index.DirectoryReader;
@@ -18,8 +19,12 @@ import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
@@ -39,6 +44,11 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class TimeSeriesIndexSearcherTests extends ESTestCase {
 
@@ -143,4 +153,91 @@ public class TimeSeriesIndexSearcherTests extends ESTestCase {
 
     }
 
+    public void testSkipsDocumentsOutsideOfTimestampRange() throws IOException {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = newIndexWriterConfig();
+        boolean descending = randomBoolean();
+        iwc.setIndexSort(
+            new Sort(
+                new SortField(TimeSeriesIdFieldMapper.NAME, SortField.Type.STRING),
+                new SortField(DataStream.TimestampField.FIXED_TIMESTAMP_FIELD, SortField.Type.LONG, descending)
+            )
+        );
+        RandomIndexWriter iw = new RandomIndexWriter(random(), dir, iwc);
+        int numTsids = randomIntBetween(1, 50);
+        int numDocs = randomIntBetween(1, 2000);
+        long[] timestamps = new long[numDocs];
+        Document doc = new Document();
+        for (int i = 0; i < numDocs; i++) {
+            timestamps[i] = randomLongBetween(0, 1000);
+            doc.clear();
+            doc.add(new SortedDocValuesField(TimeSeriesIdFieldMapper.NAME, new BytesRef("tsid" + randomIntBetween(0, numTsids))));
+            doc.add(new LongPoint(DataStream.TimestampField.FIXED_TIMESTAMP_FIELD, timestamps[i]));
+            doc.add(new NumericDocValuesField(DataStream.TimestampField.FIXED_TIMESTAMP_FIELD, timestamps[i]));
+            iw.addDocument(doc);
+        }
+        iw.close();
+
+        long from = randomLongBetween(-10, 1010);
+        long to = randomLongBetween(from, 1010);
+        long expected = 0;
+        for (long timestamp : timestamps) {
+            if (from <= timestamp && timestamp <= to) {
+                expected++;
+            }
+        }
+        Query rangeQuery = LongPoint.newRangeQuery(DataStream.TimestampField.FIXED_TIMESTAMP_FIELD, from, to);
+        Query query = new BooleanQuery.Builder().add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST)
+            .add(randomBoolean() ? rangeQuery : new ConstantScoreQuery(rangeQuery), BooleanClause.Occur.FILTER)
+            .build();
+        assertArrayEquals(new long[] { from, to }, TimeSeriesIndexSearcher.timestampBounds(query));
+
+        IndexReader reader = DirectoryReader.open(dir);
+        TimeSeriesIndexSearcher indexSearcher = new TimeSeriesIndexSearcher(new IndexSearcher(reader), List.of());
+        AtomicLong total = new AtomicLong();
+        indexSearcher.search(query, new BucketCollector() {
+            @Override
+            public LeafBucketCollector getLeafCollector(LeafReaderContext ctx) throws IOException {
+                NumericDocValues timestamp = DocValues.getNumeric(ctx.reader(), DataStream.TimestampField.FIXED_TIMESTAMP_FIELD);
+                return new LeafBucketCollector() {
+                    @Override
+                    public void collect(int doc, long owningBucketOrd) throws IOException {
+                        assertTrue(timestamp.advanceExact(doc));
+                        assertThat(timestamp.longValue(), both(greaterThanOrEqualTo(from)).and(lessThanOrEqualTo(to)));
+                        total.incrementAndGet();
+                    }
+                };
+            }
+
+            @Override
+            public void preCollection() {}
+
+            @Override
+            public void postCollection() {}
+
+            @Override
+            public ScoreMode scoreMode() {
+                return ScoreMode.COMPLETE_NO_SCORES;
+            }
+        });
+        assertEquals(expected, total.get());
+
+        reader.close();
+        dir.close();
+    }
+
+    public void testTimestampBounds() {
+        String field = DataStream.TimestampField.FIXED_TIMESTAMP_FIELD;
+        assertNull(TimeSeriesIndexSearcher.timestampBounds(new MatchAllDocsQuery()));
+        assertNull(TimeSeriesIndexSearcher.timestampBounds(LongPoint.newRangeQuery("other", 1, 2)));
+        assertArrayEquals(new long[] { 1, 10 }, TimeSeriesIndexSearcher.timestampBounds(LongPoint.newRangeQuery(field, 1, 10)));
+        Query intersection = new BooleanQuery.Builder().add(LongPoint.newRangeQuery(field, 1, 10), BooleanClause.Occur.FILTER)
+            .add(LongPoint.newRangeQuery(field, 5, 20), BooleanClause.Occur.MUST)
+            .build();
+        assertArrayEquals(new long[] { 5, 10 }, TimeSeriesIndexSearcher.timestampBounds(intersection));
+        Query optional = new BooleanQuery.Builder().add(LongPoint.newRangeQuery(field, 1, 10), BooleanClause.Occur.SHOULD)
+            .add(new MatchAllDocsQuery(), BooleanClause.Occur.SHOULD)
+            .build();
+        assertNull(TimeSeriesIndexSearcher.timestampBounds(optional));
+    }
 }
@@ -1399,6 +1399,8 @@ public class SnapshotResiliencyTests extends ESTestCase {
         return TestEnvironment.newEnvironment(
             Settings.builder()
                 .put(NODE_NAME_SETTING.getKey(), nodeName)
+                // notify all listeners on the deterministic applier thread
+                .put(ClusterApplierService.CLUSTER_SERVICE_INDEPENDENT_LISTENER_THREADS_SETTING.getKey(), 0)
                 .put(PATH_HOME_SETTING.getKey(), tempDir.resolve(nodeName).toAbsolutePath())
                 .put(Environment.PATH_REPO_SETTING.getKey(), tempDir.resolve("repo").toAbsolutePath())
                 .putList(
@@ -1834,6 +1836,7 @@ public class SnapshotResiliencyTests extends ESTestCase {
                     mock(SearchService.class),
                     peerRecoverySourceService,
                     snapshotShardsService,
+                    new IndexingPressure(settings),
                     new PrimaryReplicaSyncer(
                         transportService,
                         new TransportResyncReplicationAction(
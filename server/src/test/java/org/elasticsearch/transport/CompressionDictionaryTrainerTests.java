@@ -0,0 +1,78 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.test.ESTestCase;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class CompressionDictionaryTrainerTests extends ESTestCase {
+
+    static BytesReference randomDocuments() {
+        final StringBuilder documents = new StringBuilder();
+        final int numDocs = randomIntBetween(5, 20);
+        for (int i = 0; i < numDocs; i++) {
+            documents.append("{\"index\":{\"_index\":\"logs-generic-default\",\"_id\":\"")
+                .append(randomAlphaOfLength(20))
+                .append("\"}}\n{\"@timestamp\":\"2022-03-")
+                .append(randomIntBetween(10, 28))
+                .append("T12:00:00.000Z\",\"host\":{\"name\":\"host-")
+                .append(randomIntBetween(0, 9))
+                .append("\",\"architecture\":\"x86_64\"},\"log\":{\"level\":\"")
+                .append(randomFrom("info", "warn", "error"))
+                .append("\"},\"message\":\"")
+                .append(randomAlphaOfLength(randomIntBetween(10, 50)))
+                .append("\"}\n");
+        }
+        return new BytesArray(documents.toString());
+    }
+
+    public void testTrainsFromCommonContent() {
+        final List<BytesReference> samples = new ArrayList<>();
+        final int numSamples = randomIntBetween(8, OutboundCompressionDictionaries.TRAINING_SAMPLES);
+        for (int i = 0; i < numSamples; i++) {
+            samples.add(randomDocuments());
+        }
+        final int maxSize = randomIntBetween(4, 512) * CompressionDictionaryTrainer.SEGMENT_LENGTH;
+        final byte[] dictionary = CompressionDictionaryTrainer.train(samples, maxSize);
+
+        assertThat(dictionary, notNullValue());
+        assertThat(dictionary.length, greaterThan(0));
+        assertThat(dictionary.length, lessThanOrEqualTo(maxSize));
+        assertThat(dictionary.length % CompressionDictionaryTrainer.SEGMENT_LENGTH, equalTo(0));
+        assertThat(new String(dictionary, StandardCharsets.UTF_8), containsString("\"architecture\":\"x86_64\""));
+    }
+
+    public void testNoDictionaryWithoutCommonContent() {
+        final List<BytesReference> samples = new ArrayList<>();
+        final int numSamples = randomIntBetween(1, OutboundCompressionDictionaries.TRAINING_SAMPLES);
+        for (int i = 0; i < numSamples; i++) {
+            samples.add(new BytesArray(randomByteArrayOfLength(randomIntBetween(0, OutboundCompressionDictionaries.MAX_SAMPLE_SIZE))));
+        }
+        assertThat(CompressionDictionaryTrainer.train(samples, OutboundCompressionDictionaries.MAX_DICTIONARY_SIZE), nullValue());
+    }
+
+    public void testNoDictionaryFromTinySamples() {
+        final BytesReference sample = new BytesArray(randomByteArrayOfLength(CompressionDictionaryTrainer.SEGMENT_LENGTH / 2 - 1));
+        final int maxSize = OutboundCompressionDictionaries.MAX_DICTIONARY_SIZE;
+        assertThat(CompressionDictionaryTrainer.train(List.of(sample, sample), maxSize), nullValue());
+        assertThat(CompressionDictionaryTrainer.train(List.of(), maxSize), nullValue());
+    }
+}
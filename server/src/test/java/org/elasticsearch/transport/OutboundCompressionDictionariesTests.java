@@ -0,0 +1,182 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.recycler.Recycler;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.MockPageCacheRecycler;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+
+public class OutboundCompressionDictionariesTests extends ESTestCase {
+
+    private final Recycler<BytesRef> recycler = new BytesRefRecycler(new MockPageCacheRecycler(Settings.EMPTY));
+
+    public void testDictionaryIsUsedOnceDefined() {
+        final List<Runnable> trainings = new ArrayList<>();
+        final OutboundCompressionDictionaries dictionaries = new OutboundCompressionDictionaries(trainings::add);
+
+        for (int i = 0; i < OutboundCompressionDictionaries.TRAINING_SAMPLES; i++) {
+            final OutboundCompressionDictionaries.Lease lease = dictionaries.acquire();
+            assertThat(lease.dictionaryId(), equalTo(0));
+            assertNull(lease.dictionary());
+            assertFalse(lease.define());
+            assertTrue(lease.sample());
+            lease.offerSample(CompressionDictionaryTrainerTests.randomDocuments());
+            lease.release(true);
+        }
+        assertThat(trainings.size(), equalTo(1));
+
+        // no more samples are taken while training
+        final OutboundCompressionDictionaries.Lease beforeTraining = dictionaries.acquire();
+        assertFalse(beforeTraining.sample());
+        assertThat(beforeTraining.dictionaryId(), equalTo(0));
+        trainings.remove(0).run();
+        assertThat(dictionaries.liveDictionaries(), equalTo(1));
+
+        final OutboundCompressionDictionaries.Lease defining = dictionaries.acquire();
+        assertThat(defining.dictionaryId(), equalTo(1));
+        assertTrue(defining.define());
+        assertFalse(defining.sample());
+        assertThat(defining.retireBelow(), equalTo(1));
+
+        // the remote end might not know about the dictionary yet
+        final OutboundCompressionDictionaries.Lease concurrent = dictionaries.acquire();
+        assertThat(concurrent.dictionaryId(), equalTo(0));
+        assertFalse(concurrent.define());
+
+        final boolean written = randomBoolean();
+        defining.release(written);
+        final OutboundCompressionDictionaries.Lease after = dictionaries.acquire();
+        assertThat(after.dictionaryId(), equalTo(1));
+        // a dictionary that failed to be sent is sent again
+        assertThat(after.define(), equalTo(written == false));
+        assertFalse(after.sample());
+
+        Releasables.close(() -> concurrent.release(true), () -> beforeTraining.release(true), () -> after.release(true));
+        assertThat(dictionaries.liveDictionaries(), equalTo(1));
+    }
+
+    public void testRoundTripWithReorderedWrites() throws IOException {
+        final int retrainingInterval = randomIntBetween(1, 200);
+        final OutboundCompressionDictionaries outbound = new OutboundCompressionDictionaries(Runnable::run, retrainingInterval);
+        final InboundCompressionDictionaries inbound = new InboundCompressionDictionaries();
+
+        final List<Message> inFlight = new ArrayList<>();
+        long dictionaryCompressedSize = 0;
+        long plainCompressedSize = 0;
+        final int numMessages = randomIntBetween(OutboundCompressionDictionaries.TRAINING_SAMPLES + 50, 1000);
+        for (int i = 0; i <= numMessages; i++) {
+            final BytesReference message = CompressionDictionaryTrainerTests.randomDocuments();
+            final OutboundCompressionDictionaries.Lease lease = outbound.acquire();
+            if (lease.sample()) {
+                lease.offerSample(message);
+            }
+            final BytesReference compressed = compress(
+                message,
+                lease.dictionaryId(),
+                lease.retireBelow(),
+                lease.dictionary(),
+                lease.define()
+            );
+            if (lease.dictionaryId() != 0 && lease.define() == false) {
+                dictionaryCompressedSize += compressed.length();
+                plainCompressedSize += compress(message, 0, 0, null, false).length();
+            }
+            inFlight.add(new Message(message, compressed, lease));
+
+            while (inFlight.isEmpty() == false && (randomBoolean() || i >= numMessages - 1)) {
+                final Message written = inFlight.remove(randomIntBetween(0, inFlight.size() - 1));
+                assertThat(decompress(written.compressed(), inbound), equalTo(written.message()));
+                written.lease().release(true);
+            }
+        }
+        // the last message was acquired once all the others were written, so it retired all the dictionaries but the ones it may use
+        assertThat(outbound.liveDictionaries(), lessThanOrEqualTo(2));
+        assertThat(inbound.size(), lessThanOrEqualTo(2));
+        assertThat(plainCompressedSize, greaterThan(0L));
+        assertThat(dictionaryCompressedSize, lessThan(plainCompressedSize));
+    }
+
+    public void testUnknownDictionary() throws IOException {
+        final BytesReference compressed = compress(
+            CompressionDictionaryTrainerTests.randomDocuments(),
+            randomIntBetween(1, 10),
+            0,
+            randomByteArrayOfLength(CompressionDictionaryTrainer.SEGMENT_LENGTH),
+            false
+        );
+        final IllegalStateException e = expectThrows(
+            IllegalStateException.class,
+            () -> decompress(compressed, new InboundCompressionDictionaries())
+        );
+        assertThat(e.getMessage(), startsWith("unknown compression dictionary"));
+    }
+
+    private record Message(BytesReference message, BytesReference compressed, OutboundCompressionDictionaries.Lease lease) {}
+
+    private static BytesReference compress(BytesReference message, int dictionaryId, int retireBelow, byte[] dictionary, boolean define)
+        throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            try (
+                OutputStream compressed = Compression.Scheme.deflateDictionaryOutputStream(
+                    Streams.flushOnCloseStream(output),
+                    dictionaryId,
+                    retireBelow,
+                    dictionary,
+                    define
+                )
+            ) {
+                message.writeTo(compressed);
+            }
+            return output.copyBytes();
+        }
+    }
+
+    private BytesReference decompress(BytesReference compressed, InboundCompressionDictionaries dictionaries) throws IOException {
+        final List<ReleasableBytesReference> pages = new ArrayList<>();
+        try (DeflateDictionaryTransportDecompressor decompressor = new DeflateDictionaryTransportDecompressor(recycler, dictionaries)) {
+            int offset = 0;
+            while (offset < compressed.length()) {
+                final int length = randomIntBetween(1, compressed.length() - offset);
+                final int consumed = decompressor.decompress(compressed.slice(offset, length));
+                assertThat(consumed, lessThanOrEqualTo(length));
+                offset += consumed;
+                ReleasableBytesReference page;
+                while ((page = decompressor.pollDecompressedPage(offset == compressed.length())) != null) {
+                    pages.add(page);
+                }
+            }
+            assertTrue(decompressor.isEOS());
+            assertThat(decompressor.pollDecompressedPage(true), nullValue());
+            return new BytesArray(BytesReference.toBytes(CompositeBytesReference.of(pages.toArray(new BytesReference[0]))));
+        } finally {
+            Releasables.close(pages);
+        }
+    }
+}
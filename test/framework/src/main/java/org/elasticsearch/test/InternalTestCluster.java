@@ -509,11 +509,7 @@ public final class InternalTestCluster extends TestCluster {
                 builder.put(TransportSettings.TRANSPORT_COMPRESS.getKey(), Compression.Enabled.INDEXING_DATA);
             }
         }
-        if (random.nextBoolean()) {
-            builder.put(TransportSettings.TRANSPORT_COMPRESSION_SCHEME.getKey(), Compression.Scheme.DEFLATE);
-        } else {
-            builder.put(TransportSettings.TRANSPORT_COMPRESSION_SCHEME.getKey(), Compression.Scheme.LZ4);
-        }
+        builder.put(TransportSettings.TRANSPORT_COMPRESSION_SCHEME.getKey(), RandomPicks.randomFrom(random, Compression.Scheme.values()));
         if (random.nextBoolean()) {
             builder.put("cache.recycler.page.type", RandomPicks.randomFrom(random, PageCacheRecycler.Type.values()));
         }
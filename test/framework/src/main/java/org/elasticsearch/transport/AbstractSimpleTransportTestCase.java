@@ -616,7 +616,7 @@ public abstract class AbstractSimpleTransportTestCase extends ESTestCase {
                 .put(TransportSettings.TRANSPORT_COMPRESS.getKey(), Compression.Enabled.TRUE)
                 .put(
                     TransportSettings.TRANSPORT_COMPRESSION_SCHEME.getKey(),
-                    randomFrom(Compression.Scheme.DEFLATE, Compression.Scheme.LZ4)
+                    randomFrom(Compression.Scheme.values())
                 )
                 .build();
             ConnectionProfile connectionProfile = ConnectionProfile.buildDefaultConnectionProfile(settingsWithCompress);
@@ -673,7 +673,7 @@ public abstract class AbstractSimpleTransportTestCase extends ESTestCase {
                 .put(TransportSettings.TRANSPORT_COMPRESS.getKey(), Compression.Enabled.TRUE)
                 .put(
                     TransportSettings.TRANSPORT_COMPRESSION_SCHEME.getKey(),
-                    randomFrom(Compression.Scheme.DEFLATE, Compression.Scheme.LZ4)
+                    randomFrom(Compression.Scheme.values())
                 )
                 .build();
             ConnectionProfile connectionProfile = ConnectionProfile.buildDefaultConnectionProfile(settingsWithCompress);
@@ -733,7 +733,7 @@ public abstract class AbstractSimpleTransportTestCase extends ESTestCase {
                 .put(TransportSettings.TRANSPORT_COMPRESS.getKey(), Compression.Enabled.INDEXING_DATA)
                 .put(
                     TransportSettings.TRANSPORT_COMPRESSION_SCHEME.getKey(),
-                    randomFrom(Compression.Scheme.DEFLATE, Compression.Scheme.LZ4)
+                    randomFrom(Compression.Scheme.values())
                 )
                 .build();
             ConnectionProfile connectionProfile = ConnectionProfile.buildDefaultConnectionProfile(settingsWithCompress);
@@ -274,17 +274,26 @@ public class EnrichStatsAction extends ActionType<EnrichStatsAction.Response> {
             private final long hits;
             private final long misses;
             private final long evictions;
+            private final long coalesced;
 
-            public CacheStats(String nodeId, long count, long hits, long misses, long evictions) {
+            public CacheStats(String nodeId, long count, long hits, long misses, long evictions, long coalesced) {
                 this.nodeId = nodeId;
                 this.count = count;
                 this.hits = hits;
                 this.misses = misses;
                 this.evictions = evictions;
+                this.coalesced = coalesced;
             }
 
             public CacheStats(StreamInput in) throws IOException {
-                this(in.readString(), in.readVLong(), in.readVLong(), in.readVLong(), in.readVLong());
+                this(
+                    in.readString(),
+                    in.readVLong(),
+                    in.readVLong(),
+                    in.readVLong(),
+                    in.readVLong(),
+                    in.getVersion().onOrAfter(Version.V_8_2_0) ? in.readVLong() : 0L
+                );
             }
 
             public String getNodeId() {
@@ -307,6 +316,14 @@ public class EnrichStatsAction extends ActionType<EnrichStatsAction.Response> {
                 return evictions;
             }
 
+            /**
+             * @return the number of lookups that were served by the search of another lookup for the same key that was still in flight,
+             *         these lookups are also counted as {@link #getHits() hits}
+             */
+            public long getCoalesced() {
+                return coalesced;
+            }
+
             @Override
             public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
                 builder.field("node_id", nodeId);
@@ -314,6 +331,7 @@ public class EnrichStatsAction extends ActionType<EnrichStatsAction.Response> {
                 builder.field("hits", hits);
                 builder.field("misses", misses);
                 builder.field("evictions", evictions);
+                builder.field("coalesced", coalesced);
                 return builder;
             }
 
@@ -324,6 +342,9 @@ public class EnrichStatsAction extends ActionType<EnrichStatsAction.Response> {
                 out.writeVLong(hits);
                 out.writeVLong(misses);
                 out.writeVLong(evictions);
+                if (out.getVersion().onOrAfter(Version.V_8_2_0)) {
+                    out.writeVLong(coalesced);
+                }
             }
 
             @Override
@@ -335,12 +356,13 @@ public class EnrichStatsAction extends ActionType<EnrichStatsAction.Response> {
                     && hits == that.hits
                     && misses == that.misses
                     && evictions == that.evictions
+                    && coalesced == that.coalesced
                     && nodeId.equals(that.nodeId);
             }
 
             @Override
             public int hashCode() {
-                return Objects.hash(nodeId, count, hits, misses, evictions);
+                return Objects.hash(nodeId, count, hits, misses, evictions, coalesced);
             }
         }
     }
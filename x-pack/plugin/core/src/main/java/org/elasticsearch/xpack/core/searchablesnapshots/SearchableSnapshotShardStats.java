@@ -152,6 +152,9 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
         private final Counter blobStoreBytesRequested;
         private final Counter luceneBytesRead;
         private final long currentIndexCacheFills;
+        private final Counter prefetchedBytes;
+        private final Counter prefetchHitBytes;
+        private final Counter prefetchWastedBytes;
 
         public CacheIndexInputStats(
             String fileExt,
@@ -174,7 +177,10 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
             TimedCounter optimizedBytesRead,
             Counter blobStoreBytesRequested,
             Counter luceneBytesRead,
-            long currentIndexCacheFills
+            long currentIndexCacheFills,
+            Counter prefetchedBytes,
+            Counter prefetchHitBytes,
+            Counter prefetchWastedBytes
         ) {
             this.fileExt = fileExt;
             this.numFiles = numFiles;
@@ -197,6 +203,9 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
             this.blobStoreBytesRequested = blobStoreBytesRequested;
             this.luceneBytesRead = luceneBytesRead;
             this.currentIndexCacheFills = currentIndexCacheFills;
+            this.prefetchedBytes = prefetchedBytes;
+            this.prefetchHitBytes = prefetchHitBytes;
+            this.prefetchWastedBytes = prefetchWastedBytes;
         }
 
         CacheIndexInputStats(final StreamInput in) throws IOException {
@@ -237,6 +246,15 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                 this.luceneBytesRead = new Counter(0, 0, 0, 0);
             }
             this.currentIndexCacheFills = in.readVLong();
+            if (in.getVersion().onOrAfter(Version.V_8_2_0)) {
+                this.prefetchedBytes = new Counter(in);
+                this.prefetchHitBytes = new Counter(in);
+                this.prefetchWastedBytes = new Counter(in);
+            } else {
+                this.prefetchedBytes = new Counter(0, 0, 0, 0);
+                this.prefetchHitBytes = new Counter(0, 0, 0, 0);
+                this.prefetchWastedBytes = new Counter(0, 0, 0, 0);
+            }
         }
 
         public static CacheIndexInputStats combine(CacheIndexInputStats cis1, CacheIndexInputStats cis2) {
@@ -267,7 +285,10 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                 cis1.optimizedBytesRead.add(cis2.optimizedBytesRead),
                 cis1.blobStoreBytesRequested.add(cis2.blobStoreBytesRequested),
                 cis1.luceneBytesRead.add(cis2.luceneBytesRead),
-                cis1.currentIndexCacheFills + cis2.currentIndexCacheFills
+                cis1.currentIndexCacheFills + cis2.currentIndexCacheFills,
+                cis1.prefetchedBytes.add(cis2.prefetchedBytes),
+                cis1.prefetchHitBytes.add(cis2.prefetchHitBytes),
+                cis1.prefetchWastedBytes.add(cis2.prefetchWastedBytes)
             );
         }
 
@@ -307,6 +328,11 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                 luceneBytesRead.writeTo(out);
             }
             out.writeVLong(currentIndexCacheFills);
+            if (out.getVersion().onOrAfter(Version.V_8_2_0)) {
+                prefetchedBytes.writeTo(out);
+                prefetchHitBytes.writeTo(out);
+                prefetchWastedBytes.writeTo(out);
+            }
         }
 
         public String getFileExt() {
@@ -398,6 +424,18 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
             return currentIndexCacheFills;
         }
 
+        public Counter getPrefetchedBytes() {
+            return prefetchedBytes;
+        }
+
+        public Counter getPrefetchHitBytes() {
+            return prefetchHitBytes;
+        }
+
+        public Counter getPrefetchWastedBytes() {
+            return prefetchWastedBytes;
+        }
+
         @Override
         public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
             builder.startObject();
@@ -436,6 +474,9 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                 builder.field("blob_store_bytes_requested", getBlobStoreBytesRequested(), params);
                 builder.field("lucene_bytes_read", getLuceneBytesRead(), params);
                 builder.field("current_index_cache_fills", getCurrentIndexCacheFills());
+                builder.field("prefetched_bytes", getPrefetchedBytes(), params);
+                builder.field("prefetch_hit_bytes", getPrefetchHitBytes(), params);
+                builder.field("prefetch_wasted_bytes", getPrefetchWastedBytes(), params);
             }
             return builder.endObject();
         }
@@ -469,7 +510,10 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                 && Objects.equals(optimizedBytesRead, stats.optimizedBytesRead)
                 && Objects.equals(blobStoreBytesRequested, stats.blobStoreBytesRequested)
                 && Objects.equals(luceneBytesRead, stats.luceneBytesRead)
-                && currentIndexCacheFills == stats.currentIndexCacheFills;
+                && currentIndexCacheFills == stats.currentIndexCacheFills
+                && Objects.equals(prefetchedBytes, stats.prefetchedBytes)
+                && Objects.equals(prefetchHitBytes, stats.prefetchHitBytes)
+                && Objects.equals(prefetchWastedBytes, stats.prefetchWastedBytes);
         }
 
         @Override
@@ -495,7 +539,10 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                 optimizedBytesRead,
                 blobStoreBytesRequested,
                 luceneBytesRead,
-                currentIndexCacheFills
+                currentIndexCacheFills,
+                prefetchedBytes,
+                prefetchHitBytes,
+                prefetchWastedBytes
             );
         }
     }
@@ -69,7 +69,10 @@ public class SearchableSnapshotShardStatsTests extends AbstractWireSerializingTe
             randomTimedCounter(),
             randomCounter(),
             randomCounter(),
-            randomNonNegativeLong()
+            randomNonNegativeLong(),
+            randomCounter(),
+            randomCounter(),
+            randomCounter()
         );
     }
 
@@ -26,6 +26,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiConsumer;
 
 import static org.elasticsearch.action.ActionListener.wrap;
@@ -51,6 +52,7 @@ import static org.elasticsearch.action.ActionListener.wrap;
 public class EnrichCache {
 
     protected final Cache<CacheKey, CompletableFuture<List<Map<?, ?>>>> cache;
+    private final LongAdder coalesced = new LongAdder();
     private volatile Metadata metadata;
 
     EnrichCache(long maxSize) {
@@ -79,7 +81,8 @@ public class EnrichCache {
             cache.count(),
             cacheStats.getHits(),
             cacheStats.getMisses(),
-            cacheStats.getEvictions()
+            cacheStats.getEvictions(),
+            coalesced.sum()
         );
     }
 
@@ -100,14 +103,18 @@ public class EnrichCache {
     ) {
         CacheKey cacheKey = toKey(searchRequest);
         try {
+            CompletableFuture<List<Map<?, ?>>> completableFuture = new CompletableFuture<>();
             CompletableFuture<List<Map<?, ?>>> cacheEntry = cache.computeIfAbsent(cacheKey, request -> {
-                CompletableFuture<List<Map<?, ?>>> completableFuture = new CompletableFuture<>();
                 searchDispatcher.accept(
                     searchRequest,
                     wrap(response -> completableFuture.complete(toCacheValue(response)), completableFuture::completeExceptionally)
                 );
                 return completableFuture;
             });
+            if (cacheEntry != completableFuture && cacheEntry.isDone() == false) {
+                // another document looks up the same key, share its search rather than sending the same search again
+                coalesced.increment();
+            }
             cacheEntry.whenComplete((response, throwable) -> {
                 if (throwable != null) {
                     // Don't cache failures
@@ -0,0 +1,507 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.enrich;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.NoShardAvailableActionException;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.client.internal.Client;
+import org.elasticsearch.client.internal.OriginSettingClient;
+import org.elasticsearch.cluster.metadata.IndexAbstraction;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.cluster.routing.Preference;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.xcontent.support.XContentMapValues;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.query.ConstantScoreQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.TermQueryBuilder;
+import org.elasticsearch.index.query.TermsQueryBuilder;
+import org.elasticsearch.index.shard.IllegalIndexShardStateException;
+import org.elasticsearch.index.shard.ShardNotFoundException;
+import org.elasticsearch.search.SearchContextMissingException;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.threadpool.Scheduler;
+import org.elasticsearch.xpack.core.enrich.EnrichPolicy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import static org.elasticsearch.xpack.core.ClientHelper.ENRICH_ORIGIN;
+
+/**
+ * Serves the lookups of enrich processors from tables held in memory instead of searching the enrich index.
+ *
+ * An enrich index is read-only once the policy execution that created it completed, so the first lookup against an enrich index
+ * of a match policy loads all of its documents into a table keyed by the match field values, after which the lookups against this
+ * enrich index no longer need a search. Lookups are served by a search until the table is loaded, if the enrich index is not the
+ * index of a match policy, or if the table would not fit in the memory that the circuit breaker allows. Loading a table is retried
+ * with a backoff if it failed for a transient reason, such as a rejected or expired scroll or a relocating shard, and is retried
+ * by a later lookup if it failed for any other reason. The table of an enrich index is dropped as soon as a policy execution
+ * replaced it with a newer enrich index.
+ *
+ * The lookups must return the same documents, in the same order, as the search that they replace: the enrich index has a single
+ * segment and the search of the enrich processor scores all matches the same, so a search returns the matching documents in the
+ * order of their doc ids, which is the order in which they are loaded. Only keys and match field values that are strings are
+ * served, since the match field is a keyword field whose terms may not be the string representation of other values.
+ */
+public class EnrichLookupTables {
+
+    private static final Logger logger = LogManager.getLogger(EnrichLookupTables.class);
+
+    static final TimeValue SCROLL_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+    static final TimeValue RETRY_INITIAL_DELAY = TimeValue.timeValueMillis(500);
+    static final int MAX_RETRIES = 8;
+
+    /**
+     * Marks the enrich indices whose table is being loaded.
+     */
+    private static final Object LOADING = new Object();
+    /**
+     * Marks the enrich indices whose lookups are always served by a search.
+     */
+    private static final Object UNAVAILABLE = new Object();
+
+    private final Client client;
+    private final boolean enabled;
+    private final int fetchSize;
+    private final Supplier<CircuitBreaker> circuitBreaker;
+    private final BiFunction<Long, Runnable, Scheduler.ScheduledCancellable> scheduler;
+    // enrich index name -> LOADING, UNAVAILABLE or the loaded Table
+    final ConcurrentMap<String, Object> tables = new ConcurrentHashMap<>();
+    private volatile Metadata metadata;
+
+    EnrichLookupTables(
+        Client client,
+        boolean enabled,
+        int fetchSize,
+        Supplier<CircuitBreaker> circuitBreaker,
+        BiFunction<Long, Runnable, Scheduler.ScheduledCancellable> scheduler
+    ) {
+        this.client = client == null ? null : new OriginSettingClient(client, ENRICH_ORIGIN);
+        this.enabled = enabled;
+        this.fetchSize = fetchSize;
+        this.circuitBreaker = circuitBreaker;
+        this.scheduler = scheduler;
+    }
+
+    static EnrichLookupTables disabled() {
+        return new EnrichLookupTables(null, false, 1, () -> null, null);
+    }
+
+    void setMetadata(Metadata metadata) {
+        this.metadata = metadata;
+        if (enabled == false || tables.isEmpty()) {
+            return;
+        }
+        // drop the tables of the enrich indices that policy executions replaced, these indices no longer have the policy alias
+        for (Map.Entry<String, Object> entry : tables.entrySet()) {
+            IndexMetadata indexMetadata = metadata.index(entry.getKey());
+            boolean current = indexMetadata != null
+                && indexMetadata.getAliases().keySet().stream().anyMatch(alias -> alias.startsWith(EnrichPolicy.ENRICH_INDEX_NAME_BASE));
+            if (current == false && tables.remove(entry.getKey(), entry.getValue())) {
+                release(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Looks up the documents that the given search request of an enrich processor would return.
+     *
+     * @return the documents, or {@code null} if the search request has to be executed
+     */
+    List<Map<?, ?>> lookup(SearchRequest searchRequest) {
+        if (enabled == false) {
+            return null;
+        }
+        IndexAbstraction indexAbstraction = metadata.getIndicesLookup().get(searchRequest.indices()[0]);
+        if (indexAbstraction == null || indexAbstraction.getIndices().size() != 1) {
+            return null;
+        }
+        String enrichIndex = indexAbstraction.getIndices().get(0).getName();
+        Object table = tables.get(enrichIndex);
+        if (table == null) {
+            if (tables.putIfAbsent(enrichIndex, LOADING) == null) {
+                load(enrichIndex, BackoffPolicy.exponentialBackoff(RETRY_INITIAL_DELAY, MAX_RETRIES).iterator());
+            }
+            return null;
+        }
+        if (table instanceof Table == false) {
+            return null;
+        }
+        SearchSourceBuilder source = searchRequest.source();
+        if (source == null || (source.from() != -1 && source.from() != 0) || source.size() < 0) {
+            return null;
+        }
+        List<String> keys = keys(source.query(), ((Table) table).matchField);
+        return keys == null ? null : ((Table) table).lookup(keys, source.size());
+    }
+
+    /**
+     * @return the keys that the given query of an enrich processor matches on the given match field, or {@code null} if the query
+     *         doesn't only match keys of the match field
+     */
+    static List<String> keys(QueryBuilder query, String matchField) {
+        if (query instanceof ConstantScoreQueryBuilder constantScoreQuery) {
+            query = constantScoreQuery.innerQuery();
+        }
+        if (query instanceof TermQueryBuilder termQuery) {
+            if (termQuery.fieldName().equals(matchField) && termQuery.value() instanceof String key) {
+                return List.of(key);
+            }
+        } else if (query instanceof TermsQueryBuilder termsQuery) {
+            if (termsQuery.fieldName().equals(matchField) && termsQuery.termsLookup() == null) {
+                List<String> keys = new ArrayList<>(termsQuery.values().size());
+                for (Object value : termsQuery.values()) {
+                    if (value instanceof String key) {
+                        keys.add(key);
+                    } else {
+                        return null;
+                    }
+                }
+                return keys;
+            }
+        }
+        return null;
+    }
+
+    private void load(String enrichIndex, Iterator<TimeValue> retryDelays) {
+        IndexMetadata indexMetadata = metadata.index(enrichIndex);
+        Map<?, ?> meta = indexMetadata == null || indexMetadata.mapping() == null
+            ? null
+            : (Map<?, ?>) indexMetadata.mapping().sourceAsMap().get("_meta");
+        if (meta == null
+            || EnrichPolicy.MATCH_TYPE.equals(meta.get(EnrichPolicyRunner.ENRICH_POLICY_TYPE_FIELD_NAME)) == false
+            || meta.get(EnrichPolicyRunner.ENRICH_MATCH_FIELD_NAME) instanceof String == false) {
+            // only the lookups of match policies are served from tables
+            tables.replace(enrichIndex, LOADING, UNAVAILABLE);
+            return;
+        }
+        Table.Builder builder = new Table.Builder(
+            enrichIndex,
+            (String) meta.get(EnrichPolicyRunner.ENRICH_MATCH_FIELD_NAME),
+            circuitBreaker.get()
+        );
+        SearchRequest searchRequest = new SearchRequest(enrichIndex);
+        searchRequest.preference(Preference.LOCAL.type());
+        searchRequest.scroll(SCROLL_KEEP_ALIVE);
+        searchRequest.source(
+            new SearchSourceBuilder().size(fetchSize).sort(FieldSortBuilder.DOC_FIELD_NAME).trackTotalHits(false).fetchSource(true)
+        );
+        logger.debug("loading the lookup table of enrich index [{}]", enrichIndex);
+        client.search(
+            searchRequest,
+            ActionListener.wrap(response -> onPage(builder, retryDelays, response), e -> onFailure(builder, retryDelays, null, e))
+        );
+    }
+
+    private void onPage(Table.Builder builder, Iterator<TimeValue> retryDelays, SearchResponse response) {
+        try {
+            for (SearchHit hit : response.getHits()) {
+                builder.add(hit.getSourceAsMap());
+            }
+        } catch (CircuitBreakingException | IllegalArgumentException e) {
+            // the table doesn't fit in memory or can't serve the lookups, loading it again won't help
+            onUnavailable(builder, response.getScrollId(), e);
+            return;
+        } catch (Exception e) {
+            onFailure(builder, retryDelays, response.getScrollId(), e);
+            return;
+        }
+        if (response.getHits().getHits().length == 0) {
+            clearScroll(response.getScrollId());
+            Table table = builder.build();
+            if (tables.replace(builder.enrichIndex, LOADING, table)) {
+                logger.debug(
+                    "loaded the lookup table of enrich index [{}] with [{}] documents using [{}] bytes",
+                    builder.enrichIndex,
+                    table.documents.length,
+                    table.ramBytesUsed
+                );
+            } else {
+                // a policy execution replaced the enrich index in the meantime
+                table.release();
+            }
+            return;
+        }
+        SearchScrollRequest scrollRequest = new SearchScrollRequest(response.getScrollId());
+        scrollRequest.scroll(SCROLL_KEEP_ALIVE);
+        client.searchScroll(
+            scrollRequest,
+            ActionListener.wrap(
+                next -> onPage(builder, retryDelays, next),
+                e -> onFailure(builder, retryDelays, response.getScrollId(), e)
+            )
+        );
+    }
+
+    private void onUnavailable(Table.Builder builder, String scrollId, Exception e) {
+        builder.release();
+        if (scrollId != null) {
+            clearScroll(scrollId);
+        }
+        if (e instanceof CircuitBreakingException) {
+            logger.info(
+                "the lookup table of enrich index [{}] doesn't fit in memory, its lookups are served by searches: {}",
+                builder.enrichIndex,
+                e.getMessage()
+            );
+        } else {
+            logger.info(
+                "the lookup table of enrich index [{}] can't serve lookups, its lookups are served by searches: {}",
+                builder.enrichIndex,
+                e.getMessage()
+            );
+        }
+        tables.replace(builder.enrichIndex, LOADING, UNAVAILABLE);
+    }
+
+    private void onFailure(Table.Builder builder, Iterator<TimeValue> retryDelays, String scrollId, Exception e) {
+        builder.release();
+        if (scrollId != null) {
+            clearScroll(scrollId);
+        }
+        String enrichIndex = builder.enrichIndex;
+        if (isTransientFailure(e) && retryDelays.hasNext()) {
+            TimeValue delay = retryDelays.next();
+            logger.debug(
+                new ParameterizedMessage("failed to load the lookup table of enrich index [{}], retrying in [{}]", enrichIndex, delay),
+                e
+            );
+            scheduler.apply(delay.millis(), () -> {
+                // unless a policy execution replaced the enrich index in the meantime
+                if (tables.get(enrichIndex) == LOADING) {
+                    load(enrichIndex, retryDelays);
+                }
+            });
+        } else {
+            logger.warn(
+                new ParameterizedMessage(
+                    "failed to load the lookup table of enrich index [{}], its lookups are served by searches until a later lookup "
+                        + "loads it again",
+                    enrichIndex
+                ),
+                e
+            );
+            tables.remove(enrichIndex, LOADING);
+        }
+    }
+
+    /**
+     * @return whether loading a table failed for a reason that is likely to go away, so that loading it again shortly after may succeed
+     */
+    static boolean isTransientFailure(Exception e) {
+        return ExceptionsHelper.unwrap(
+            e,
+            EsRejectedExecutionException.class,
+            SearchContextMissingException.class,
+            IllegalIndexShardStateException.class,
+            ShardNotFoundException.class,
+            NoShardAvailableActionException.class
+        ) != null;
+    }
+
+    private void clearScroll(String scrollId) {
+        ClearScrollRequest clearScrollRequest = new ClearScrollRequest();
+        clearScrollRequest.addScrollId(scrollId);
+        client.clearScroll(
+            clearScrollRequest,
+            ActionListener.wrap(r -> {}, e -> logger.debug(new ParameterizedMessage("failed to clear scroll [{}]", scrollId), e))
+        );
+    }
+
+    private static void release(Object table) {
+        if (table instanceof Table loaded) {
+            loaded.release();
+        }
+    }
+
+    /**
+     * The documents of an enrich index, in doc id order, and the documents that each value of the match field matches.
+     */
+    static final class Table {
+
+        final String matchField;
+        final Map<?, ?>[] documents;
+        final Map<String, int[]> documentsByKey;
+        final long ramBytesUsed;
+        private final CircuitBreaker circuitBreaker;
+
+        private Table(
+            String matchField,
+            Map<?, ?>[] documents,
+            Map<String, int[]> documentsByKey,
+            long ramBytesUsed,
+            CircuitBreaker circuitBreaker
+        ) {
+            this.matchField = matchField;
+            this.documents = documents;
+            this.documentsByKey = documentsByKey;
+            this.ramBytesUsed = ramBytesUsed;
+            this.circuitBreaker = circuitBreaker;
+        }
+
+        /**
+         * @return copies of the first {@code maxMatches} documents that match any of the given keys
+         */
+        List<Map<?, ?>> lookup(List<String> keys, int maxMatches) {
+            int[] matches;
+            if (keys.size() == 1) {
+                matches = documentsByKey.get(keys.get(0));
+            } else {
+                Set<Integer> union = new HashSet<>();
+                for (String key : keys) {
+                    int[] keyMatches = documentsByKey.get(key);
+                    if (keyMatches != null) {
+                        for (int document : keyMatches) {
+                            union.add(document);
+                        }
+                    }
+                }
+                matches = union.stream().mapToInt(Integer::intValue).sorted().toArray();
+            }
+            if (matches == null || matches.length == 0) {
+                return List.of();
+            }
+            int count = Math.min(matches.length, maxMatches);
+            List<Map<?, ?>> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                result.add(EnrichCache.deepCopy(documents[matches[i]], false));
+            }
+            return result;
+        }
+
+        void release() {
+            if (circuitBreaker != null) {
+                circuitBreaker.addWithoutBreaking(-ramBytesUsed);
+            }
+        }
+
+        static final class Builder {
+
+            // the hash map entry of a key and the boxed document number while building the table
+            private static final long ENTRY_BYTES = 2L * RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+                + 3L * RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+
+            final String enrichIndex;
+            final String matchField;
+            private final CircuitBreaker circuitBreaker;
+            private final List<Map<?, ?>> documents = new ArrayList<>();
+            private final Map<String, List<Integer>> documentsByKey = new HashMap<>();
+            private long ramBytesUsed;
+
+            Builder(String enrichIndex, String matchField, CircuitBreaker circuitBreaker) {
+                this.enrichIndex = enrichIndex;
+                this.matchField = matchField;
+                this.circuitBreaker = circuitBreaker;
+            }
+
+            /**
+             * Adds the next document of the enrich index.
+             *
+             * @throws CircuitBreakingException if the table would use more memory than the circuit breaker allows
+             * @throws IllegalArgumentException if a value of the match field of the document isn't a string
+             */
+            void add(Map<String, Object> source) {
+                int document = documents.size();
+                List<Object> keys = XContentMapValues.extractRawValues(matchField, source);
+                long bytes = ramBytesUsed(source) + RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+                for (Object key : keys) {
+                    if (key instanceof String == false) {
+                        throw new IllegalArgumentException(
+                            "match field [" + matchField + "] of enrich index [" + enrichIndex + "] has a non string value [" + key + "]"
+                        );
+                    }
+                    bytes += ENTRY_BYTES + Integer.BYTES;
+                    if (documentsByKey.containsKey(key) == false) {
+                        bytes += RamUsageEstimator.sizeOf((String) key) + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER;
+                    }
+                }
+                if (circuitBreaker != null) {
+                    circuitBreaker.addEstimateBytesAndMaybeBreak(bytes, "enrich lookup table [" + enrichIndex + "]");
+                }
+                ramBytesUsed += bytes;
+                documents.add(EnrichCache.deepCopy(source, true));
+                for (Object key : keys) {
+                    List<Integer> keyDocuments = documentsByKey.computeIfAbsent((String) key, k -> new ArrayList<>(1));
+                    // a document matches a key once, even if the key is repeated in the match field
+                    if (keyDocuments.isEmpty() || keyDocuments.get(keyDocuments.size() - 1) != document) {
+                        keyDocuments.add(document);
+                    }
+                }
+            }
+
+            Table build() {
+                Map<String, int[]> byKey = new HashMap<>(documentsByKey.size());
+                documentsByKey.forEach((key, keyDocuments) -> byKey.put(key, keyDocuments.stream().mapToInt(Integer::intValue).toArray()));
+                Map<?, ?>[] table = documents.toArray(Map<?, ?>[]::new);
+                return new Table(matchField, table, Collections.unmodifiableMap(byKey), ramBytesUsed, circuitBreaker);
+            }
+
+            void release() {
+                if (circuitBreaker != null) {
+                    circuitBreaker.addWithoutBreaking(-ramBytesUsed);
+                }
+                ramBytesUsed = 0;
+            }
+        }
+    }
+
+    /**
+     * @return an estimate of the memory that the given value of a document source uses once copied into a table
+     */
+    static long ramBytesUsed(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            long bytes = RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                bytes += 2 * RamUsageEstimator.NUM_BYTES_OBJECT_REF + RamUsageEstimator.NUM_BYTES_OBJECT_HEADER;
+                bytes += ramBytesUsed(entry.getKey()) + ramBytesUsed(entry.getValue());
+            }
+            return bytes;
+        } else if (value instanceof List<?> list) {
+            long bytes = RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER;
+            for (Object item : list) {
+                bytes += RamUsageEstimator.NUM_BYTES_OBJECT_REF + ramBytesUsed(item);
+            }
+            return bytes;
+        } else if (value instanceof String string) {
+            return RamUsageEstimator.sizeOf(string);
+        } else if (value instanceof byte[] bytes) {
+            return RamUsageEstimator.sizeOf(bytes);
+        } else if (value == null) {
+            return 0;
+        } else {
+            // boxed numbers and booleans
+            return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + Long.BYTES;
+        }
+    }
+}
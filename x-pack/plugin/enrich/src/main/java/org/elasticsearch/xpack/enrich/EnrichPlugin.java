@@ -6,6 +6,7 @@
  */
 package org.elasticsearch.xpack.enrich;
 
+import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.action.ActionRequest;
 import org.elasticsearch.action.ActionResponse;
 import org.elasticsearch.client.internal.Client;
@@ -14,6 +15,7 @@ import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.IndexScopedSettings;
@@ -24,8 +26,11 @@ import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.indices.SystemIndexDescriptor;
+import org.elasticsearch.indices.breaker.BreakerSettings;
 import org.elasticsearch.ingest.Processor;
 import org.elasticsearch.license.XPackLicenseState;
+import org.elasticsearch.monitor.jvm.JvmInfo;
+import org.elasticsearch.plugins.CircuitBreakerPlugin;
 import org.elasticsearch.plugins.IngestPlugin;
 import org.elasticsearch.plugins.Plugin;
 import org.elasticsearch.plugins.SystemIndexPlugin;
@@ -73,7 +78,7 @@ import java.util.function.Supplier;
 
 import static org.elasticsearch.xpack.core.enrich.EnrichPolicy.ENRICH_INDEX_PATTERN;
 
-public class EnrichPlugin extends Plugin implements SystemIndexPlugin, IngestPlugin {
+public class EnrichPlugin extends Plugin implements SystemIndexPlugin, IngestPlugin, CircuitBreakerPlugin {
 
     static final Setting<Integer> ENRICH_FETCH_SIZE_SETTING = Setting.intSetting(
         "enrich.fetch_size",
@@ -112,6 +117,14 @@ public class EnrichPlugin extends Plugin implements SystemIndexPlugin, IngestPlu
         Setting.Property.NodeScope
     );
 
+    public static final Setting<TimeValue> COORDINATOR_PROXY_MAX_LOOKUP_DELAY = Setting.timeSetting(
+        "enrich.coordinator_proxy.max_lookup_delay",
+        TimeValue.ZERO,
+        TimeValue.ZERO,
+        TimeValue.timeValueSeconds(1),
+        Setting.Property.NodeScope
+    );
+
     static final Setting<Integer> ENRICH_MAX_FORCE_MERGE_ATTEMPTS = Setting.intSetting(
         "enrich.max_force_merge_attempts",
         3,
@@ -129,8 +142,19 @@ public class EnrichPlugin extends Plugin implements SystemIndexPlugin, IngestPlu
 
     public static final Setting<Long> CACHE_SIZE = Setting.longSetting("enrich.cache_size", 1000, 0, Setting.Property.NodeScope);
 
+    public static final Setting<Boolean> LOOKUP_TABLES_ENABLED = Setting.boolSetting(
+        "enrich.lookup_tables.enabled",
+        false,
+        Setting.Property.NodeScope
+    );
+
+    static final String LOOKUP_TABLES_CIRCUIT_BREAKER_NAME = "enrich_lookup_tables";
+    private static final long LOOKUP_TABLES_CIRCUIT_BREAKER_LIMIT = (long) ((0.10) * JvmInfo.jvmInfo().getMem().getHeapMax().getBytes());
+    private static final double LOOKUP_TABLES_CIRCUIT_BREAKER_OVERHEAD = 1.0D;
+
     private final Settings settings;
     private final EnrichCache enrichCache;
+    private final SetOnce<CircuitBreaker> lookupTablesCircuitBreaker = new SetOnce<>();
 
     public EnrichPlugin(final Settings settings) {
         this.settings = settings;
@@ -139,7 +163,19 @@ public class EnrichPlugin extends Plugin implements SystemIndexPlugin, IngestPlu
 
     @Override
     public Map<String, Processor.Factory> getProcessors(Processor.Parameters parameters) {
-        EnrichProcessorFactory factory = new EnrichProcessorFactory(parameters.client, parameters.scriptService, enrichCache);
+        EnrichLookupTables lookupTables = new EnrichLookupTables(
+            parameters.client,
+            LOOKUP_TABLES_ENABLED.get(settings),
+            ENRICH_FETCH_SIZE_SETTING.get(settings),
+            lookupTablesCircuitBreaker::get,
+            parameters.scheduler
+        );
+        EnrichProcessorFactory factory = new EnrichProcessorFactory(
+            parameters.client,
+            parameters.scriptService,
+            enrichCache,
+            lookupTables
+        );
         parameters.ingestService.addIngestClusterStateListener(factory);
         return Map.of(EnrichProcessorFactory.TYPE, factory);
     }
@@ -219,7 +255,7 @@ public class EnrichPlugin extends Plugin implements SystemIndexPlugin, IngestPlu
         enrichPolicyMaintenanceService.initialize();
         return List.of(
             enrichPolicyLocks,
-            new EnrichCoordinatorProxyAction.Coordinator(client, settings),
+            new EnrichCoordinatorProxyAction.Coordinator(client, settings, threadPool),
             enrichPolicyMaintenanceService,
             enrichPolicyExecutor,
             enrichCache
@@ -254,11 +290,33 @@ public class EnrichPlugin extends Plugin implements SystemIndexPlugin, IngestPlu
             COORDINATOR_PROXY_MAX_CONCURRENT_REQUESTS,
             COORDINATOR_PROXY_MAX_LOOKUPS_PER_REQUEST,
             COORDINATOR_PROXY_QUEUE_CAPACITY,
+            COORDINATOR_PROXY_MAX_LOOKUP_DELAY,
             ENRICH_MAX_FORCE_MERGE_ATTEMPTS,
-            CACHE_SIZE
+            CACHE_SIZE,
+            LOOKUP_TABLES_ENABLED
+        );
+    }
+
+    @Override
+    public BreakerSettings getCircuitBreaker(Settings settingsToUse) {
+        return BreakerSettings.updateFromSettings(
+            new BreakerSettings(
+                LOOKUP_TABLES_CIRCUIT_BREAKER_NAME,
+                LOOKUP_TABLES_CIRCUIT_BREAKER_LIMIT,
+                LOOKUP_TABLES_CIRCUIT_BREAKER_OVERHEAD,
+                CircuitBreaker.Type.MEMORY,
+                CircuitBreaker.Durability.PERMANENT
+            ),
+            settingsToUse
         );
     }
 
+    @Override
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        assert circuitBreaker.getName().equals(LOOKUP_TABLES_CIRCUIT_BREAKER_NAME);
+        this.lookupTablesCircuitBreaker.set(circuitBreaker);
+    }
+
     @Override
     public Collection<SystemIndexDescriptor> getSystemIndexDescriptors(Settings unused) {
         return Collections.singletonList(
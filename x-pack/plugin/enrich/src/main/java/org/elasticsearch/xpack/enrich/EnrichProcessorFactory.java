@@ -37,13 +37,19 @@ final class EnrichProcessorFactory implements Processor.Factory, Consumer<Cluste
     private final Client client;
     private final ScriptService scriptService;
     private final EnrichCache enrichCache;
+    final EnrichLookupTables lookupTables;
 
     volatile Metadata metadata;
 
     EnrichProcessorFactory(Client client, ScriptService scriptService, EnrichCache enrichCache) {
+        this(client, scriptService, enrichCache, EnrichLookupTables.disabled());
+    }
+
+    EnrichProcessorFactory(Client client, ScriptService scriptService, EnrichCache enrichCache, EnrichLookupTables lookupTables) {
         this.client = client;
         this.scriptService = scriptService;
         this.enrichCache = Objects.requireNonNull(enrichCache);
+        this.lookupTables = Objects.requireNonNull(lookupTables);
     }
 
     @Override
@@ -77,7 +83,11 @@ final class EnrichProcessorFactory implements Processor.Factory, Consumer<Cluste
         if (maxMatches < 1 || maxMatches > 128) {
             throw ConfigurationUtils.newConfigurationException(TYPE, tag, "max_matches", "should be between 1 and 128");
         }
-        BiConsumer<SearchRequest, BiConsumer<List<Map<?, ?>>, Exception>> searchRunner = createSearchRunner(client, enrichCache);
+        BiConsumer<SearchRequest, BiConsumer<List<Map<?, ?>>, Exception>> searchRunner = createSearchRunner(
+            client,
+            enrichCache,
+            lookupTables
+        );
         switch (policyType) {
             case EnrichPolicy.MATCH_TYPE:
             case EnrichPolicy.RANGE_TYPE:
@@ -121,17 +131,26 @@ final class EnrichProcessorFactory implements Processor.Factory, Consumer<Cluste
     public void accept(ClusterState state) {
         metadata = state.getMetadata();
         enrichCache.setMetadata(metadata);
+        lookupTables.setMetadata(metadata);
     }
 
     private static BiConsumer<SearchRequest, BiConsumer<List<Map<?, ?>>, Exception>> createSearchRunner(
         Client client,
-        EnrichCache enrichCache
+        EnrichCache enrichCache,
+        EnrichLookupTables lookupTables
     ) {
         Client originClient = new OriginSettingClient(client, ENRICH_ORIGIN);
-        return (req, handler) -> enrichCache.resolveOrDispatchSearch(
-            req,
-            (searchRequest, listener) -> originClient.execute(EnrichCoordinatorProxyAction.INSTANCE, searchRequest, listener),
-            handler
-        );
+        return (req, handler) -> {
+            List<Map<?, ?>> documents = lookupTables.lookup(req);
+            if (documents != null) {
+                handler.accept(documents, null);
+                return;
+            }
+            enrichCache.resolveOrDispatchSearch(
+                req,
+                (searchRequest, listener) -> originClient.execute(EnrichCoordinatorProxyAction.INSTANCE, searchRequest, listener),
+                handler
+            );
+        };
     }
 }
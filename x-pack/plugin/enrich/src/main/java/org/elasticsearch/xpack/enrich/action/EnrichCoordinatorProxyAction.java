@@ -20,8 +20,10 @@ import org.elasticsearch.client.internal.ElasticsearchClient;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.tasks.Task;
+import org.elasticsearch.threadpool.Scheduler;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportService;
 import org.elasticsearch.xpack.core.enrich.action.EnrichStatsAction.Response.CoordinatorStats;
@@ -37,6 +39,7 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.LongAdder;
 
@@ -89,13 +92,18 @@ public class EnrichCoordinatorProxyAction extends ActionType<SearchResponse> {
         final Semaphore remoteRequestPermits;
         final LongAdder remoteRequestsTotal = new LongAdder();
         final LongAdder executedSearchesTotal = new LongAdder();
+        final TimeValue maxLookupDelay;
+        final Scheduler scheduler;
+        final AtomicBoolean flushScheduled = new AtomicBoolean();
 
-        public Coordinator(Client client, Settings settings) {
+        public Coordinator(Client client, Settings settings, ThreadPool threadPool) {
             this(
                 lookupFunction(client),
                 EnrichPlugin.COORDINATOR_PROXY_MAX_LOOKUPS_PER_REQUEST.get(settings),
                 EnrichPlugin.COORDINATOR_PROXY_MAX_CONCURRENT_REQUESTS.get(settings),
-                EnrichPlugin.COORDINATOR_PROXY_QUEUE_CAPACITY.get(settings)
+                EnrichPlugin.COORDINATOR_PROXY_QUEUE_CAPACITY.get(settings),
+                EnrichPlugin.COORDINATOR_PROXY_MAX_LOOKUP_DELAY.get(settings),
+                threadPool
             );
         }
 
@@ -104,6 +112,17 @@ public class EnrichCoordinatorProxyAction extends ActionType<SearchResponse> {
             int maxLookupsPerRequest,
             int maxNumberOfConcurrentRequests,
             int queueCapacity
+        ) {
+            this(lookupFunction, maxLookupsPerRequest, maxNumberOfConcurrentRequests, queueCapacity, TimeValue.ZERO, null);
+        }
+
+        Coordinator(
+            BiConsumer<MultiSearchRequest, BiConsumer<MultiSearchResponse, Exception>> lookupFunction,
+            int maxLookupsPerRequest,
+            int maxNumberOfConcurrentRequests,
+            int queueCapacity,
+            TimeValue maxLookupDelay,
+            Scheduler scheduler
         ) {
             this.lookupFunction = lookupFunction;
             this.maxLookupsPerRequest = maxLookupsPerRequest;
@@ -111,6 +130,9 @@ public class EnrichCoordinatorProxyAction extends ActionType<SearchResponse> {
             this.queueCapacity = queueCapacity;
             this.queue = new ArrayBlockingQueue<>(queueCapacity);
             this.remoteRequestPermits = new Semaphore(maxNumberOfConcurrentRequests);
+            this.maxLookupDelay = maxLookupDelay;
+            this.scheduler = scheduler;
+            assert maxLookupDelay.nanos() == 0 || scheduler != null : "a scheduler is required to delay lookups";
         }
 
         void schedule(SearchRequest searchRequest, ActionListener<SearchResponse> listener) {
@@ -124,7 +146,11 @@ public class EnrichCoordinatorProxyAction extends ActionType<SearchResponse> {
             // but they may be busy with processing the remaining work for enrich results. If there is more than one
             // enrich processor in a pipeline, those search threads may find themselves here again before they can
             // coordinate the next set of lookups.
-            coordinateLookups();
+            if (accepted && maxLookupDelay.nanos() > 0 && queueSize < maxLookupsPerRequest) {
+                scheduleLookups();
+            } else {
+                coordinateLookups();
+            }
 
             if (accepted == false) {
                 listener.onFailure(
@@ -149,6 +175,27 @@ public class EnrichCoordinatorProxyAction extends ActionType<SearchResponse> {
             return maxNumberOfConcurrentRequests - remoteRequestPermits.availablePermits();
         }
 
+        /**
+         * Gives the lookups of the other documents that are being enriched on this node, e.g. the other documents of the same bulk
+         * request, a chance to join the queue for up to {@link #maxLookupDelay} before coordinating the lookups, so that they are sent
+         * with the same multi search request rather than with a multi search request each. The lookups are coordinated as soon as the
+         * queue holds enough lookups to fill a multi search request.
+         */
+        void scheduleLookups() {
+            if (flushScheduled.compareAndSet(false, true)) {
+                try {
+                    scheduler.schedule(() -> {
+                        flushScheduled.set(false);
+                        coordinateLookups();
+                    }, maxLookupDelay, ThreadPool.Names.GENERIC);
+                } catch (EsRejectedExecutionException e) {
+                    // the node is shutting down, don't leave the queued lookups behind
+                    flushScheduled.set(false);
+                    coordinateLookups();
+                }
+            }
+        }
+
         void coordinateLookups() {
             while (true) {
                 if (remoteRequestPermits.tryAcquire() == false) {
@@ -7,7 +7,9 @@
 package org.elasticsearch.xpack.enrich;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.cluster.metadata.AliasMetadata;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.cluster.metadata.Metadata;
@@ -27,6 +29,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
@@ -181,6 +184,40 @@ public class EnrichCacheTests extends ESTestCase {
         executor.shutdownNow();
     }
 
+    public void testCoalescesInFlightLookups() {
+        var enrichCache = new EnrichCache(3);
+        var metadata = Metadata.builder()
+            .put(
+                IndexMetadata.builder(EnrichPolicy.getBaseName("policy1") + "-1")
+                    .settings(settings(Version.CURRENT))
+                    .numberOfShards(1)
+                    .numberOfReplicas(0)
+                    .putAlias(AliasMetadata.builder(EnrichPolicy.getBaseName("policy1")).build())
+            )
+            .build();
+        enrichCache.setMetadata(metadata);
+
+        var key = new SearchRequest(EnrichPolicy.getBaseName("policy1")).source(
+            new SearchSourceBuilder().query(new MatchQueryBuilder("match_field", "1"))
+        );
+        List<ActionListener<SearchResponse>> dispatched = new ArrayList<>();
+        List<Exception> failures = new ArrayList<>();
+        int lookups = randomIntBetween(2, 10);
+        for (int i = 0; i < lookups; i++) {
+            enrichCache.resolveOrDispatchSearch(key, (req, listener) -> dispatched.add(listener), (value, e) -> failures.add(e));
+        }
+        assertThat(dispatched.size(), equalTo(1));
+        assertThat(failures, empty());
+        assertThat(enrichCache.getStats("_id").getCoalesced(), equalTo((long) lookups - 1));
+
+        dispatched.get(0).onFailure(new IllegalStateException("boom"));
+        assertThat(failures.size(), equalTo(lookups));
+        // failures aren't cached, so the next lookup sends a search again
+        enrichCache.resolveOrDispatchSearch(key, (req, listener) -> dispatched.add(listener), (value, e) -> failures.add(e));
+        assertThat(dispatched.size(), equalTo(2));
+        assertThat(enrichCache.getStats("_id").getCoalesced(), equalTo((long) lookups - 1));
+    }
+
     public void testDeepCopy() {
         Map<String, Object> original = new HashMap<>();
         {
@@ -0,0 +1,218 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+package org.elasticsearch.xpack.enrich;
+
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.ingest.PutPipelineRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.internal.OriginSettingClient;
+import org.elasticsearch.cluster.routing.Preference;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.query.ConstantScoreQueryBuilder;
+import org.elasticsearch.index.query.TermQueryBuilder;
+import org.elasticsearch.index.query.TermsQueryBuilder;
+import org.elasticsearch.ingest.IngestService;
+import org.elasticsearch.ingest.common.IngestCommonPlugin;
+import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.reindex.ReindexPlugin;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.test.ESSingleNodeTestCase;
+import org.elasticsearch.xcontent.XContentType;
+import org.elasticsearch.xpack.core.XPackSettings;
+import org.elasticsearch.xpack.core.enrich.EnrichPolicy;
+import org.elasticsearch.xpack.core.enrich.action.EnrichStatsAction;
+import org.elasticsearch.xpack.core.enrich.action.ExecuteEnrichPolicyAction;
+import org.elasticsearch.xpack.core.enrich.action.PutEnrichPolicyAction;
+import org.elasticsearch.xpack.enrich.action.EnrichCoordinatorProxyAction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.elasticsearch.xpack.core.ClientHelper.ENRICH_ORIGIN;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+/**
+ * Checks that the lookups that are served from the lookup tables return the same documents as the searches they replace.
+ */
+public class EnrichLookupTablesSingleNodeTests extends ESSingleNodeTestCase {
+
+    private static final String SOURCE_INDEX_NAME = "source";
+    private static final String POLICY_NAME = "my-policy";
+    private static final String MATCH_FIELD = "key";
+    private static final String ENRICH_FIELD = "value";
+
+    @Override
+    protected Collection<Class<? extends Plugin>> getPlugins() {
+        return List.of(LocalStateEnrich.class, ReindexPlugin.class, IngestCommonPlugin.class);
+    }
+
+    @Override
+    protected boolean resetNodeAfterTest() {
+        return true;
+    }
+
+    @Override
+    protected Settings nodeSettings() {
+        return Settings.builder()
+            // TODO Fix the test so that it runs with security enabled
+            // https://github.com/elastic/elasticsearch/issues/75940
+            .put(XPackSettings.SECURITY_ENABLED.getKey(), false)
+            .put(EnrichPlugin.LOOKUP_TABLES_ENABLED.getKey(), true)
+            .build();
+    }
+
+    public void testLookupsReturnTheSearchResults() throws Exception {
+        List<String> keys = createSourceIndexAndExecutePolicy();
+        EnrichLookupTables lookupTables = loadLookupTable(keys.get(0));
+
+        OriginSettingClient client = new OriginSettingClient(client(), ENRICH_ORIGIN);
+        for (int i = 0; i < 32; i++) {
+            // keys that match many documents, with fewer or more matches than asked for, and keys that match nothing
+            List<String> lookupKeys = randomBoolean() ? List.of(randomFrom(keys)) : randomSubsetOf(between(1, keys.size()), keys);
+            if (randomBoolean()) {
+                lookupKeys = new ArrayList<>(lookupKeys);
+                lookupKeys.add(randomAlphaOfLength(8));
+            }
+            SearchRequest request = request(lookupKeys, randomFrom(1, between(2, 8), 128));
+
+            List<Map<?, ?>> documents = lookupTables.lookup(request);
+            assertThat(documents, notNullValue());
+            SearchResponse response = client.execute(EnrichCoordinatorProxyAction.INSTANCE, request).actionGet();
+            List<Map<String, Object>> hits = Arrays.stream(response.getHits().getHits()).map(SearchHit::getSourceAsMap).toList();
+            assertThat("lookup of " + lookupKeys + " with max matches " + request.source().size(), documents, equalTo(hits));
+        }
+    }
+
+    public void testIngestDataWithMatchProcessor() throws Exception {
+        List<String> keys = createSourceIndexAndExecutePolicy();
+        int maxMatches = randomIntBetween(1, 8);
+        String pipelineName = "my-pipeline";
+        String pipelineBody = """
+            {
+              "processors": [
+                {
+                  "enrich": {
+                    "policy_name": "%s",
+                    "field": "%s",
+                    "target_field": "enriched",
+                    "max_matches": %s
+                  }
+                }
+              ]
+            }""".formatted(POLICY_NAME, MATCH_FIELD, maxMatches);
+        PutPipelineRequest putPipelineRequest = new PutPipelineRequest(pipelineName, new BytesArray(pipelineBody), XContentType.JSON);
+        client().admin().cluster().putPipeline(putPipelineRequest).actionGet();
+        EnrichLookupTables lookupTables = loadLookupTable(keys.get(0));
+        long executedSearches = executedSearchesTotal();
+
+        int numDocs = between(8, 32);
+        BulkRequest bulkRequest = new BulkRequest("my-index");
+        List<List<String>> docKeys = new ArrayList<>(numDocs);
+        for (int i = 0; i < numDocs; i++) {
+            List<String> lookupKeys = randomSubsetOf(between(1, 2), keys);
+            docKeys.add(lookupKeys);
+            bulkRequest.add(
+                new IndexRequest().id(Integer.toString(i))
+                    .setPipeline(pipelineName)
+                    .source(Map.of(MATCH_FIELD, lookupKeys.size() == 1 ? lookupKeys.get(0) : lookupKeys))
+            );
+        }
+        BulkResponse bulkResponse = client().bulk(bulkRequest).actionGet();
+        assertThat("Expected no failure, but " + bulkResponse.buildFailureMessage(), bulkResponse.hasFailures(), is(false));
+
+        for (int i = 0; i < numDocs; i++) {
+            Map<String, Object> source = client().get(new GetRequest("my-index", Integer.toString(i))).actionGet().getSourceAsMap();
+            List<Map<?, ?>> expected = lookupTables.lookup(request(docKeys.get(i), maxMatches));
+            if (expected.isEmpty()) {
+                assertThat(source.containsKey("enriched"), is(false));
+            } else {
+                assertThat(source.get("enriched"), equalTo(maxMatches == 1 ? expected.get(0) : expected));
+            }
+        }
+        // the lookups are served by the lookup table instead of searches
+        assertThat(executedSearchesTotal(), equalTo(executedSearches));
+    }
+
+    /**
+     * Creates a source index whose documents have one or more values of a small number of keys, so that each key matches many
+     * documents, and executes a match policy on it.
+     *
+     * @return the keys
+     */
+    private List<String> createSourceIndexAndExecutePolicy() {
+        List<String> keys = randomList(2, 6, () -> randomAlphaOfLength(8)).stream().distinct().toList();
+        int numDocs = between(16, 64);
+        for (int i = 0; i < numDocs; i++) {
+            List<String> docKeys = randomSubsetOf(between(1, Math.min(3, keys.size())), keys);
+            Object key = docKeys.size() == 1 ? docKeys.get(0) : docKeys;
+            client().index(new IndexRequest(SOURCE_INDEX_NAME).source(Map.of(MATCH_FIELD, key, ENRICH_FIELD, i))).actionGet();
+        }
+        client().admin().indices().refresh(new RefreshRequest(SOURCE_INDEX_NAME)).actionGet();
+
+        EnrichPolicy policy = new EnrichPolicy(
+            EnrichPolicy.MATCH_TYPE,
+            null,
+            List.of(SOURCE_INDEX_NAME),
+            MATCH_FIELD,
+            List.of(ENRICH_FIELD)
+        );
+        client().execute(PutEnrichPolicyAction.INSTANCE, new PutEnrichPolicyAction.Request(POLICY_NAME, policy)).actionGet();
+        client().execute(ExecuteEnrichPolicyAction.INSTANCE, new ExecuteEnrichPolicyAction.Request(POLICY_NAME)).actionGet();
+        return keys;
+    }
+
+    /**
+     * Starts loading the lookup table of the enrich index of the policy and waits until it is loaded.
+     */
+    private EnrichLookupTables loadLookupTable(String key) throws Exception {
+        IngestService ingestService = getInstanceFromNode(IngestService.class);
+        EnrichLookupTables lookupTables = ((EnrichProcessorFactory) ingestService.getProcessorFactories()
+            .get(EnrichProcessorFactory.TYPE)).lookupTables;
+        assertBusy(() -> assertThat(lookupTables.lookup(request(List.of(key), 1)), notNullValue()));
+        return lookupTables;
+    }
+
+    private long executedSearchesTotal() {
+        EnrichStatsAction.Response statsResponse = client().execute(EnrichStatsAction.INSTANCE, new EnrichStatsAction.Request())
+            .actionGet();
+        String localNodeId = getInstanceFromNode(ClusterService.class).localNode().getId();
+        assertThat(statsResponse.getCoordinatorStats().get(0).getNodeId(), equalTo(localNodeId));
+        return statsResponse.getCoordinatorStats().get(0).getExecutedSearchesTotal();
+    }
+
+    /**
+     * @return the search request that an enrich processor sends for a document with the given keys
+     */
+    private static SearchRequest request(List<String> keys, int maxMatches) {
+        SearchSourceBuilder searchBuilder = new SearchSourceBuilder().from(0)
+            .size(maxMatches)
+            .trackScores(false)
+            .fetchSource(true)
+            .query(
+                new ConstantScoreQueryBuilder(
+                    keys.size() == 1 ? new TermQueryBuilder(MATCH_FIELD, keys.get(0)) : new TermsQueryBuilder(MATCH_FIELD, keys)
+                )
+            );
+        SearchRequest request = new SearchRequest(EnrichPolicy.getBaseName(POLICY_NAME));
+        request.preference(Preference.LOCAL.type());
+        request.source(searchBuilder);
+        return request;
+    }
+}
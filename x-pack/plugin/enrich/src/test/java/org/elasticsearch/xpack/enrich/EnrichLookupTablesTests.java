@@ -0,0 +1,421 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.enrich;
+
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.ActionType;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.SearchPhaseExecutionException;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.cluster.metadata.AliasMetadata;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.core.Tuple;
+import org.elasticsearch.index.query.ConstantScoreQueryBuilder;
+import org.elasticsearch.index.query.MatchQueryBuilder;
+import org.elasticsearch.index.query.TermQueryBuilder;
+import org.elasticsearch.index.query.TermsQueryBuilder;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardNotFoundException;
+import org.elasticsearch.search.SearchContextMissingException;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.elasticsearch.search.internal.ShardSearchContextId;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.client.NoOpClient;
+import org.elasticsearch.threadpool.Scheduler;
+import org.elasticsearch.xcontent.XContentFactory;
+import org.elasticsearch.xcontent.XContentType;
+import org.elasticsearch.xpack.core.enrich.EnrichPolicy;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class EnrichLookupTablesTests extends ESTestCase {
+
+    public void testKeys() {
+        assertThat(EnrichLookupTables.keys(new TermQueryBuilder("key", "a"), "key"), equalTo(List.of("a")));
+        assertThat(EnrichLookupTables.keys(new ConstantScoreQueryBuilder(new TermQueryBuilder("key", "a")), "key"), equalTo(List.of("a")));
+        assertThat(
+            EnrichLookupTables.keys(new ConstantScoreQueryBuilder(new TermsQueryBuilder("key", List.of("a", "b"))), "key"),
+            equalTo(List.of("a", "b"))
+        );
+        // other fields, values and queries are searched
+        assertThat(EnrichLookupTables.keys(new TermQueryBuilder("other", "a"), "key"), nullValue());
+        assertThat(EnrichLookupTables.keys(new TermQueryBuilder("key", 1), "key"), nullValue());
+        assertThat(EnrichLookupTables.keys(new TermsQueryBuilder("key", List.of("a", 1)), "key"), nullValue());
+        assertThat(EnrichLookupTables.keys(new MatchQueryBuilder("key", "a"), "key"), nullValue());
+    }
+
+    public void testTable() {
+        EnrichLookupTables.Table.Builder builder = new EnrichLookupTables.Table.Builder("index", "key", null);
+        builder.add(Map.of("key", "a", "value", 0));
+        builder.add(Map.of("key", List.of("b", "a", "a"), "value", 1));
+        builder.add(Map.of("key", "c", "value", List.of(Map.of("nested", 2))));
+        builder.add(Map.of("value", 3));
+        builder.add(Map.of("key", "a", "value", 4));
+        EnrichLookupTables.Table table = builder.build();
+        assertThat(table.ramBytesUsed, greaterThan(0L));
+
+        assertThat(values(table.lookup(List.of("a"), 128)), equalTo(List.of(0, 1, 4)));
+        assertThat(values(table.lookup(List.of("a"), 2)), equalTo(List.of(0, 1)));
+        assertThat(values(table.lookup(List.of("b"), 1)), equalTo(List.of(1)));
+        assertThat(table.lookup(List.of("d"), 1), empty());
+        // the documents that match any of the keys, in the order of the enrich index
+        assertThat(values(table.lookup(List.of("b", "d"), 128)), equalTo(List.of(1)));
+        assertThat(table.lookup(List.of("c", "b"), 128).size(), equalTo(2));
+        assertThat(values(table.lookup(List.of("b", "a"), 128)), equalTo(List.of(0, 1, 4)));
+
+        // the documents are copied so that enrich processors can modify them
+        Map<?, ?> document = table.lookup(List.of("c"), 1).get(0);
+        assertThat(document, equalTo(Map.of("key", "c", "value", List.of(Map.of("nested", 2)))));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> nested = ((List<Map<String, Object>>) document.get("value")).get(0);
+        nested.put("nested", 3);
+        assertThat(table.lookup(List.of("c"), 1).get(0), equalTo(Map.of("key", "c", "value", List.of(Map.of("nested", 2)))));
+    }
+
+    public void testTableRejectsNonStringKeys() {
+        EnrichLookupTables.Table.Builder builder = new EnrichLookupTables.Table.Builder("index", "key", null);
+        expectThrows(IllegalArgumentException.class, () -> builder.add(Map.of("key", 1)));
+        expectThrows(IllegalArgumentException.class, () -> builder.add(Map.of("key", List.of("a", true))));
+    }
+
+    public void testLookup() throws IOException {
+        List<ActionRequest> requests = new ArrayList<>();
+        List<ActionListener<?>> listeners = new ArrayList<>();
+        AtomicLong used = new AtomicLong();
+        try (NoOpClient client = new NoOpClient(getTestName()) {
+            @Override
+            protected <Request extends ActionRequest, Response extends ActionResponse> void doExecute(
+                ActionType<Response> action,
+                Request request,
+                ActionListener<Response> listener
+            ) {
+                requests.add(request);
+                listeners.add(listener);
+            }
+        }) {
+            CircuitBreaker circuitBreaker = new CountingCircuitBreaker(used, Long.MAX_VALUE);
+            EnrichLookupTables lookupTables = new EnrichLookupTables(client, true, 2, () -> circuitBreaker, noRetries());
+            lookupTables.setMetadata(metadata("policy", "-1", EnrichPolicy.MATCH_TYPE));
+
+            // the first lookup loads the table
+            assertThat(lookupTables.lookup(request("policy", "a", 2)), nullValue());
+            assertThat(lookupTables.lookup(request("policy", "a", 2)), nullValue());
+            assertThat(requests.size(), equalTo(1));
+            SearchRequest searchRequest = (SearchRequest) requests.get(0);
+            assertThat(searchRequest.indices(), equalTo(new String[] { EnrichPolicy.getBaseName("policy") + "-1" }));
+            assertThat(searchRequest.scroll(), notNullValue());
+            respond(listeners.get(0), "scroll", Map.of("key", "a", "value", 0), Map.of("key", "b", "value", 1));
+            assertThat(requests.get(1), instanceOf(SearchScrollRequest.class));
+            assertThat(lookupTables.lookup(request("policy", "a", 2)), nullValue());
+            respond(listeners.get(1), "scroll", Map.of("key", "a", "value", 2));
+            respond(listeners.get(2), "scroll");
+            assertThat(requests.get(3), instanceOf(ClearScrollRequest.class));
+            long tableBytes = used.get();
+            assertThat(tableBytes, greaterThan(0L));
+
+            // the lookups are served from the table from now on
+            assertThat(values(lookupTables.lookup(request("policy", "a", 2))), equalTo(List.of(0, 2)));
+            assertThat(values(lookupTables.lookup(request("policy", "b", 2))), equalTo(List.of(1)));
+            assertThat(lookupTables.lookup(request("policy", "c", 2)), empty());
+            SearchRequest otherField = request("policy", "a", 2);
+            otherField.source().query(new TermQueryBuilder("other", "a"));
+            assertThat(lookupTables.lookup(otherField), nullValue());
+            assertThat(requests.size(), equalTo(4));
+
+            // the table is dropped once another policy execution replaced the enrich index
+            lookupTables.setMetadata(metadata("policy", "-2", EnrichPolicy.MATCH_TYPE));
+            assertThat(used.get(), equalTo(0L));
+            assertThat(lookupTables.tables.isEmpty(), equalTo(true));
+            assertThat(lookupTables.lookup(request("policy", "a", 2)), nullValue());
+            assertThat(requests.size(), equalTo(5));
+            assertThat(((SearchRequest) requests.get(4)).indices(), equalTo(new String[] { EnrichPolicy.getBaseName("policy") + "-2" }));
+        }
+    }
+
+    public void testLookupOfOtherPolicyTypes() throws IOException {
+        try (NoOpClient client = new NoOpClient(getTestName())) {
+            EnrichLookupTables lookupTables = new EnrichLookupTables(
+                client,
+                true,
+                2,
+                () -> new NoopCircuitBreaker("test"),
+                noRetries()
+            );
+            lookupTables.setMetadata(metadata("policy", "-1", randomFrom(EnrichPolicy.GEO_MATCH_TYPE, EnrichPolicy.RANGE_TYPE)));
+            for (int i = 0; i < 3; i++) {
+                assertThat(lookupTables.lookup(request("policy", "a", 1)), nullValue());
+            }
+        }
+    }
+
+    public void testLookupTableOverBudget() throws IOException {
+        List<ActionRequest> requests = new ArrayList<>();
+        List<ActionListener<?>> listeners = new ArrayList<>();
+        AtomicLong used = new AtomicLong();
+        try (NoOpClient client = new NoOpClient(getTestName()) {
+            @Override
+            protected <Request extends ActionRequest, Response extends ActionResponse> void doExecute(
+                ActionType<Response> action,
+                Request request,
+                ActionListener<Response> listener
+            ) {
+                requests.add(request);
+                listeners.add(listener);
+            }
+        }) {
+            EnrichLookupTables lookupTables = new EnrichLookupTables(
+                client,
+                true,
+                2,
+                () -> new CountingCircuitBreaker(used, 1024),
+                noRetries()
+            );
+            lookupTables.setMetadata(metadata("policy", "-1", EnrichPolicy.MATCH_TYPE));
+
+            assertThat(lookupTables.lookup(request("policy", "a", 1)), nullValue());
+            respond(listeners.get(0), "scroll", Map.of("key", "a", "value", randomAlphaOfLength(2048)));
+            assertThat(requests.get(1), instanceOf(ClearScrollRequest.class));
+            assertThat(used.get(), equalTo(0L));
+
+            // the lookups fall back to searches
+            for (int i = 0; i < 3; i++) {
+                assertThat(lookupTables.lookup(request("policy", "a", 1)), nullValue());
+            }
+            assertThat(requests.size(), equalTo(2));
+        }
+    }
+
+    public void testLoadIsRetriedOnTransientFailures() throws IOException {
+        List<ActionRequest> requests = new ArrayList<>();
+        List<ActionListener<?>> listeners = new ArrayList<>();
+        List<Tuple<Long, Runnable>> retries = new ArrayList<>();
+        try (NoOpClient client = new NoOpClient(getTestName()) {
+            @Override
+            protected <Request extends ActionRequest, Response extends ActionResponse> void doExecute(
+                ActionType<Response> action,
+                Request request,
+                ActionListener<Response> listener
+            ) {
+                requests.add(request);
+                listeners.add(listener);
+            }
+        }) {
+            EnrichLookupTables lookupTables = new EnrichLookupTables(
+                client,
+                true,
+                2,
+                () -> new NoopCircuitBreaker("test"),
+                (delay, command) -> {
+                    retries.add(Tuple.tuple(delay, command));
+                    return null;
+                }
+            );
+            lookupTables.setMetadata(metadata("policy", "-1", EnrichPolicy.MATCH_TYPE));
+
+            // a rejected search is retried after a delay
+            assertThat(lookupTables.lookup(request("policy", "a", 1)), nullValue());
+            listeners.get(0).onFailure(new EsRejectedExecutionException("rejected"));
+            assertThat(retries.size(), equalTo(1));
+            assertThat(retries.get(0).v1(), equalTo(EnrichLookupTables.RETRY_INITIAL_DELAY.millis()));
+            assertThat(lookupTables.lookup(request("policy", "a", 1)), nullValue());
+            assertThat(requests.size(), equalTo(1));
+            retries.get(0).v2().run();
+            assertThat(requests.get(1), instanceOf(SearchRequest.class));
+
+            // an expired scroll restarts the load from the first page after a longer delay
+            respond(listeners.get(1), "scroll", Map.of("key", "a", "value", 0));
+            assertThat(requests.get(2), instanceOf(SearchScrollRequest.class));
+            listeners.get(2).onFailure(new SearchContextMissingException(new ShardSearchContextId("", 1)));
+            assertThat(requests.get(3), instanceOf(ClearScrollRequest.class));
+            assertThat(retries.size(), equalTo(2));
+            assertThat(retries.get(1).v1(), greaterThan(retries.get(0).v1()));
+            retries.get(1).v2().run();
+            assertThat(requests.get(4), instanceOf(SearchRequest.class));
+            respond(listeners.get(4), "scroll", Map.of("key", "a", "value", 0));
+            respond(listeners.get(5), "scroll");
+            assertThat(values(lookupTables.lookup(request("policy", "a", 1))), equalTo(List.of(0)));
+        }
+    }
+
+    public void testLoadIsRetriedByLaterLookupsOnOtherFailures() throws IOException {
+        List<ActionRequest> requests = new ArrayList<>();
+        List<ActionListener<?>> listeners = new ArrayList<>();
+        try (NoOpClient client = new NoOpClient(getTestName()) {
+            @Override
+            protected <Request extends ActionRequest, Response extends ActionResponse> void doExecute(
+                ActionType<Response> action,
+                Request request,
+                ActionListener<Response> listener
+            ) {
+                requests.add(request);
+                listeners.add(listener);
+            }
+        }) {
+            EnrichLookupTables lookupTables = new EnrichLookupTables(client, true, 2, () -> new NoopCircuitBreaker("test"), noRetries());
+            lookupTables.setMetadata(metadata("policy", "-1", EnrichPolicy.MATCH_TYPE));
+
+            assertThat(lookupTables.lookup(request("policy", "a", 1)), nullValue());
+            listeners.get(0).onFailure(new IllegalStateException("failed"));
+            assertThat(lookupTables.tables.isEmpty(), equalTo(true));
+
+            // the next lookup loads the table again
+            assertThat(lookupTables.lookup(request("policy", "a", 1)), nullValue());
+            assertThat(requests.size(), equalTo(2));
+            respond(listeners.get(1), "scroll", Map.of("key", "a", "value", 0));
+            respond(listeners.get(2), "scroll");
+            assertThat(values(lookupTables.lookup(request("policy", "a", 1))), equalTo(List.of(0)));
+        }
+    }
+
+    public void testIsTransientFailure() {
+        assertThat(EnrichLookupTables.isTransientFailure(new EsRejectedExecutionException("rejected")), equalTo(true));
+        assertThat(
+            EnrichLookupTables.isTransientFailure(
+                new SearchPhaseExecutionException(
+                    "query",
+                    "all shards failed",
+                    new SearchContextMissingException(new ShardSearchContextId("", 1)),
+                    ShardSearchFailure.EMPTY_ARRAY
+                )
+            ),
+            equalTo(true)
+        );
+        assertThat(EnrichLookupTables.isTransientFailure(new ShardNotFoundException(new ShardId("index", "_na_", 0))), equalTo(true));
+        assertThat(EnrichLookupTables.isTransientFailure(new IllegalStateException("failed")), equalTo(false));
+    }
+
+    public void testDisabled() {
+        EnrichLookupTables lookupTables = EnrichLookupTables.disabled();
+        lookupTables.setMetadata(metadata("policy", "-1", EnrichPolicy.MATCH_TYPE));
+        assertThat(lookupTables.lookup(request("policy", "a", 1)), nullValue());
+        assertThat(lookupTables.tables.isEmpty(), equalTo(true));
+    }
+
+    private static Metadata metadata(String policyName, String suffix, String policyType) {
+        try {
+            String mapping = Strings.toString(
+                XContentFactory.jsonBuilder()
+                    .startObject()
+                    .startObject("_doc")
+                    .startObject("_meta")
+                    .field(EnrichPolicyRunner.ENRICH_POLICY_TYPE_FIELD_NAME, policyType)
+                    .field(EnrichPolicyRunner.ENRICH_MATCH_FIELD_NAME, "key")
+                    .endObject()
+                    .endObject()
+                    .endObject()
+            );
+            return Metadata.builder()
+                .put(
+                    IndexMetadata.builder(EnrichPolicy.getBaseName(policyName) + suffix)
+                        .settings(settings(Version.CURRENT))
+                        .numberOfShards(1)
+                        .numberOfReplicas(0)
+                        .putMapping(mapping)
+                        .putAlias(AliasMetadata.builder(EnrichPolicy.getBaseName(policyName)).build())
+                )
+                .build();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static BiFunction<Long, Runnable, Scheduler.ScheduledCancellable> noRetries() {
+        return (delay, command) -> { throw new AssertionError("unexpected retry"); };
+    }
+
+    private static SearchRequest request(String policyName, String key, int maxMatches) {
+        return new SearchRequest(EnrichPolicy.getBaseName(policyName)).source(
+            new SearchSourceBuilder().from(0)
+                .size(maxMatches)
+                .trackScores(false)
+                .fetchSource(true)
+                .query(new ConstantScoreQueryBuilder(new TermQueryBuilder("key", key)))
+        );
+    }
+
+    @SafeVarargs
+    @SuppressWarnings("unchecked")
+    private static void respond(ActionListener<?> listener, String scrollId, Map<String, Object>... documents) throws IOException {
+        SearchHit[] hits = new SearchHit[documents.length];
+        for (int i = 0; i < documents.length; i++) {
+            hits[i] = new SearchHit(i);
+            hits[i].sourceRef(BytesReference.bytes(XContentFactory.contentBuilder(XContentType.JSON).map(documents[i])));
+        }
+        InternalSearchResponse response = new InternalSearchResponse(
+            new SearchHits(hits, new TotalHits(hits.length, TotalHits.Relation.EQUAL_TO), Float.NaN),
+            InternalAggregations.EMPTY,
+            null,
+            null,
+            false,
+            null,
+            1
+        );
+        ((ActionListener<SearchResponse>) listener).onResponse(
+            new SearchResponse(response, scrollId, 1, 1, 0, 1, ShardSearchFailure.EMPTY_ARRAY, SearchResponse.Clusters.EMPTY)
+        );
+    }
+
+    private static List<Object> values(List<Map<?, ?>> documents) {
+        return documents.stream().map(document -> document.get("value")).toList();
+    }
+
+    private static class CountingCircuitBreaker extends NoopCircuitBreaker {
+
+        private final AtomicLong used;
+        private final long limit;
+
+        CountingCircuitBreaker(AtomicLong used, long limit) {
+            super(EnrichPlugin.LOOKUP_TABLES_CIRCUIT_BREAKER_NAME);
+            this.used = used;
+            this.limit = limit;
+        }
+
+        @Override
+        public void addEstimateBytesAndMaybeBreak(long bytes, String label) throws CircuitBreakingException {
+            if (used.get() + bytes > limit) {
+                throw new CircuitBreakingException("over budget", bytes, limit, CircuitBreaker.Durability.PERMANENT);
+            }
+            used.addAndGet(bytes);
+        }
+
+        @Override
+        public void addWithoutBreaking(long bytes) {
+            used.addAndGet(bytes);
+        }
+    }
+}
@@ -9,10 +9,13 @@ package org.elasticsearch.xpack.enrich;
 import org.elasticsearch.action.support.ActionFilters;
 import org.elasticsearch.action.support.TransportAction;
 import org.elasticsearch.client.internal.node.NodeClient;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.indices.breaker.BreakerSettings;
 import org.elasticsearch.license.LicenseService;
 import org.elasticsearch.license.XPackLicenseState;
+import org.elasticsearch.plugins.CircuitBreakerPlugin;
 import org.elasticsearch.protocol.xpack.XPackInfoRequest;
 import org.elasticsearch.protocol.xpack.XPackInfoResponse;
 import org.elasticsearch.transport.TransportService;
@@ -24,17 +27,30 @@ import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
 
-public class LocalStateEnrich extends LocalStateCompositeXPackPlugin {
+public class LocalStateEnrich extends LocalStateCompositeXPackPlugin implements CircuitBreakerPlugin {
+
+    private final EnrichPlugin enrichPlugin;
 
     public LocalStateEnrich(final Settings settings, final Path configPath) throws Exception {
         super(settings, configPath);
 
-        plugins.add(new EnrichPlugin(settings) {
+        enrichPlugin = new EnrichPlugin(settings) {
             @Override
             protected XPackLicenseState getLicenseState() {
                 return LocalStateEnrich.this.getLicenseState();
             }
-        });
+        };
+        plugins.add(enrichPlugin);
+    }
+
+    @Override
+    public BreakerSettings getCircuitBreaker(Settings settings) {
+        return enrichPlugin.getCircuitBreaker(settings);
+    }
+
+    @Override
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        enrichPlugin.setCircuitBreaker(circuitBreaker);
     }
 
     public static class EnrichTransportXPackInfoAction extends TransportXPackInfoAction {
@@ -20,6 +20,8 @@ import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.ShardSearchFailure;
 import org.elasticsearch.action.support.single.shard.SingleShardRequest;
 import org.elasticsearch.client.internal.ElasticsearchClient;
+import org.elasticsearch.common.util.concurrent.DeterministicTaskQueue;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.index.query.MatchQueryBuilder;
 import org.elasticsearch.search.SearchHit;
@@ -198,6 +200,52 @@ public class CoordinatorTests extends ESTestCase {
         }
     }
 
+    public void testDelayedLookups() {
+        MockLookupFunction lookupFunction = new MockLookupFunction();
+        DeterministicTaskQueue taskQueue = new DeterministicTaskQueue();
+        Coordinator coordinator = new Coordinator(lookupFunction, 5, 1, 100, TimeValue.timeValueMillis(10), taskQueue.getThreadPool());
+
+        // The lookups wait for other lookups to join them:
+        List<ActionListener<SearchResponse>> searchActionListeners = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            @SuppressWarnings("unchecked")
+            ActionListener<SearchResponse> actionListener = Mockito.mock(ActionListener.class);
+            searchActionListeners.add(actionListener);
+            coordinator.schedule(new SearchRequest("my-index"), actionListener);
+        }
+        assertThat(coordinator.queue.size(), equalTo(3));
+        assertThat(lookupFunction.capturedRequests, empty());
+        assertTrue(taskQueue.hasDeferredTasks());
+
+        // Until the delay elapsed:
+        taskQueue.advanceTime();
+        taskQueue.runAllRunnableTasks();
+        assertThat(coordinator.queue.size(), equalTo(0));
+        assertThat(lookupFunction.capturedRequests.size(), equalTo(1));
+        assertThat(lookupFunction.capturedRequests.get(0).requests().size(), equalTo(3));
+        SearchResponse emptyResponse = emptySearchResponse();
+        MultiSearchResponse.Item[] responseItems = new MultiSearchResponse.Item[3];
+        for (int i = 0; i < 3; i++) {
+            responseItems[i] = new MultiSearchResponse.Item(emptyResponse, null);
+        }
+        lookupFunction.capturedConsumers.get(0).accept(new MultiSearchResponse(responseItems, 1L), null);
+        assertThat(coordinator.getRemoteRequestsCurrent(), equalTo(0));
+        for (ActionListener<SearchResponse> searchActionListener : searchActionListeners) {
+            Mockito.verify(searchActionListener).onResponse(Mockito.eq(emptyResponse));
+        }
+
+        // Or enough lookups to fill up a multi search request are queued:
+        for (int i = 0; i < 5; i++) {
+            coordinator.schedule(new SearchRequest("my-index"), ActionListener.wrap(() -> {}));
+        }
+        assertThat(coordinator.queue.size(), equalTo(0));
+        assertThat(lookupFunction.capturedRequests.size(), equalTo(2));
+        assertThat(lookupFunction.capturedRequests.get(1).requests().size(), equalTo(5));
+        taskQueue.advanceTime();
+        taskQueue.runAllRunnableTasks();
+        assertThat(lookupFunction.capturedRequests.size(), equalTo(2));
+    }
+
     public void testNoBlockingWhenQueueing() throws Exception {
         MockLookupFunction lookupFunction = new MockLookupFunction();
         // Only one request allowed in flight. Queue size maxed at 1.
@@ -76,7 +76,7 @@ public class RepositoriesMeteringResponseTests extends ESTestCase {
                 boolean archived = randomBoolean();
                 RepositoryStatsSnapshot statsSnapshot = new RepositoryStatsSnapshot(
                     repositoryInfo,
-                    new RepositoryStats(Map.of("GET", randomLongBetween(0, 2000))),
+                    new RepositoryStats(Map.of("GET", randomLongBetween(0, 2000)), randomPartTransferStats(), randomPartTransferStats()),
                     archived ? clusterVersion : RepositoryStatsSnapshot.UNKNOWN_CLUSTER_VERSION,
                     archived
                 );
@@ -99,4 +99,8 @@ public class RepositoriesMeteringResponseTests extends ESTestCase {
 
         return new RepositoriesMeteringResponse(clusterName, nodeResponses, failures);
     }
+
+    private static RepositoryStats.PartTransferStats randomPartTransferStats() {
+        return new RepositoryStats.PartTransferStats(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong());
+    }
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.searchablesnapshots.preallocate;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.core.SuppressForbidden;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.security.PrivilegedExceptionAction;
+
+/**
+ * Unmaps memory mappings of files right away instead of leaving it to the garbage collector, the same way Lucene's
+ * {@link org.apache.lucene.store.MMapDirectory} does. It lives next to {@link Preallocate} since this codebase holds the permissions
+ * that the plugin needs for reflection.
+ */
+public class Unmapper {
+
+    private static final Logger logger = LogManager.getLogger(Unmapper.class);
+
+    private static final MethodHandle INVOKE_CLEANER = AccessController.doPrivileged((PrivilegedAction<MethodHandle>) () -> {
+        try {
+            return new InvokeCleanerAction().run();
+        } catch (Exception e) {
+            logger.debug("unmapping is not supported, mappings will be released by the garbage collector", e);
+            return null;
+        }
+    });
+
+    /**
+     * Unmaps the given buffer, which must not be accessed afterwards, or does nothing if unmapping is not supported.
+     */
+    public static void unmap(MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        final Throwable error = AccessController.doPrivileged((PrivilegedAction<Throwable>) () -> {
+            try {
+                INVOKE_CLEANER.invokeExact(buffer);
+                return null;
+            } catch (Throwable t) {
+                return t;
+            }
+        });
+        if (error != null) {
+            logger.warn("failed to unmap buffer, it will be released by the garbage collector", error);
+        }
+    }
+
+    @SuppressForbidden(reason = "need access to sun.misc.Unsafe to unmap buffers")
+    private static class InvokeCleanerAction implements PrivilegedExceptionAction<MethodHandle> {
+
+        @Override
+        public MethodHandle run() throws Exception {
+            // accessClassInPackage.sun.misc
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final MethodHandle invokeCleaner = MethodHandles.lookup()
+                .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class));
+            final Field f = unsafeClass.getDeclaredField("theUnsafe");
+            // suppressAccessChecks
+            f.setAccessible(true);
+            return invokeCleaner.bindTo(f.get(null)).asType(MethodType.methodType(void.class, MappedByteBuffer.class));
+        }
+    }
+}
@@ -125,6 +125,9 @@ public abstract class BaseSearchableSnapshotsIntegTestCase extends AbstractSnaps
                     : pageAligned(new ByteSizeValue(randomIntBetween(1, 10), ByteSizeUnit.MB))
             );
         }
+        if (randomBoolean()) {
+            builder.put(FrozenCacheService.SHARED_CACHE_MMAP_SETTING.getKey(), randomBoolean());
+        }
         return builder.build();
     }
 
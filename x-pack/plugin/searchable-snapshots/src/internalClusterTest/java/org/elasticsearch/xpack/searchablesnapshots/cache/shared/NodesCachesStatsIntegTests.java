@@ -158,12 +158,15 @@ public class NodesCachesStatsIntegTests extends BaseFrozenSearchableSnapshotsInt
                 assertThat(nodeCachesStats.getReads(), greaterThan(0L));
                 assertThat(nodeCachesStats.getBytesRead(), greaterThan(0L));
                 assertThat(nodeCachesStats.getEvictions(), greaterThan(0L));
+                assertThat(nodeCachesStats.getMisses(), greaterThan(0L));
             } else {
                 assertThat(nodeCachesStats.getWrites(), equalTo(0L));
                 assertThat(nodeCachesStats.getBytesWritten(), equalTo(0L));
                 assertThat(nodeCachesStats.getReads(), equalTo(0L));
                 assertThat(nodeCachesStats.getBytesRead(), equalTo(0L));
                 assertThat(nodeCachesStats.getEvictions(), equalTo(0L));
+                assertThat(nodeCachesStats.getHits(), equalTo(0L));
+                assertThat(nodeCachesStats.getMisses(), equalTo(0L));
             }
         }
     }
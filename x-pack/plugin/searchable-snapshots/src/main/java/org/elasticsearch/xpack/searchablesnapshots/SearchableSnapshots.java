@@ -306,6 +306,9 @@ public class SearchableSnapshots extends Plugin implements IndexStorePlugin, Eng
             FrozenCacheService.SHARED_CACHE_RANGE_SIZE_SETTING,
             FrozenCacheService.SHARED_CACHE_RECOVERY_RANGE_SIZE_SETTING,
             FrozenCacheService.SHARED_CACHE_MAX_FREQ_SETTING,
+            FrozenCacheService.SHARED_CACHE_STRIPES_SETTING,
+            FrozenCacheService.SHARED_CACHE_MMAP_SETTING,
+            FrozenCacheService.SHARED_CACHE_PREFETCH_MAX_CONCURRENCY_SETTING,
             FrozenCacheService.SHARED_CACHE_DECAY_INTERVAL_SETTING,
             FrozenCacheService.SHARED_CACHE_MIN_TIME_DELTA_SETTING,
             BlobStoreCacheMaintenanceService.SNAPSHOT_SNAPSHOT_CLEANUP_INTERVAL_SETTING,
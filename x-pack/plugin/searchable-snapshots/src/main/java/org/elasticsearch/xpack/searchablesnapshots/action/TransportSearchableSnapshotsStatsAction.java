@@ -119,7 +119,10 @@ public class TransportSearchableSnapshotsStatsAction extends AbstractTransportSe
             toTimedCounter(inputStats.getOptimizedBytesRead()),
             toCounter(inputStats.getBlobStoreBytesRequested()),
             toCounter(inputStats.getLuceneBytesRead()),
-            inputStats.getCurrentIndexCacheFills()
+            inputStats.getCurrentIndexCacheFills(),
+            toCounter(inputStats.getPrefetchedBytes()),
+            toCounter(inputStats.getPrefetchHitBytes()),
+            toCounter(inputStats.getPrefetchWastedBytes())
         );
     }
 
@@ -25,6 +25,7 @@ import org.elasticsearch.common.util.concurrent.AbstractAsyncTask;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.KeyedLock;
 import org.elasticsearch.core.AbstractRefCounted;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.core.TimeValue;
@@ -50,9 +51,11 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
 import java.util.function.LongSupplier;
 import java.util.function.Predicate;
@@ -215,6 +218,26 @@ public class FrozenCacheService implements Releasable {
         Setting.Property.Dynamic
     );
 
+    /**
+     * Whether to serve reads from a memory mapping of the shared cache file instead of positional reads through its file channel.
+     */
+    public static final Setting<Boolean> SHARED_CACHE_MMAP_SETTING = Setting.boolSetting(
+        SHARED_CACHE_SETTINGS_PREFIX + "mmap",
+        false,
+        Setting.Property.NodeScope
+    );
+
+    /**
+     * The maximum number of ranges that are prefetched into the shared cache concurrently, see {@code RangePrefetcher}. Prefetching is
+     * disabled if zero.
+     */
+    public static final Setting<Integer> SHARED_CACHE_PREFETCH_MAX_CONCURRENCY_SETTING = Setting.intSetting(
+        SHARED_CACHE_SETTINGS_PREFIX + "prefetch.max_concurrency",
+        0,                         // default
+        0,                            // min
+        Setting.Property.NodeScope
+    );
+
     public static final Setting<Integer> SHARED_CACHE_MAX_FREQ_SETTING = Setting.intSetting(
         SHARED_CACHE_SETTINGS_PREFIX + "max_freq",
         100,                       // default
@@ -229,6 +252,20 @@ public class FrozenCacheService implements Releasable {
         Setting.Property.NodeScope
     );
 
+    /**
+     * The maximum number of stripes of the LFU structure, see {@link Stripe}. The actual number of stripes is bounded by the number of
+     * regions so that each stripe holds at least {@link #MIN_REGIONS_PER_STRIPE} regions, because eviction is only approximately least
+     * frequently used across stripes and would be too inaccurate for small caches.
+     */
+    public static final Setting<Integer> SHARED_CACHE_STRIPES_SETTING = Setting.intSetting(
+        SHARED_CACHE_SETTINGS_PREFIX + "stripes",
+        16,                        // default
+        1,                            // min
+        Setting.Property.NodeScope
+    );
+
+    static final int MIN_REGIONS_PER_STRIPE = 64;
+
     private static final Logger logger = LogManager.getLogger(FrozenCacheService.class);
 
     private final ConcurrentHashMap<RegionKey, Entry<CacheFileRegion>> keyMapping;
@@ -245,7 +282,7 @@ public class FrozenCacheService implements Releasable {
 
     private final int numRegions;
     private final ConcurrentLinkedQueue<Integer> freeRegions = new ConcurrentLinkedQueue<>();
-    private final Entry<CacheFileRegion>[] freqs;
+    private final Stripe[] stripes;
     private final int maxFreq;
     private final long minTimeDelta;
 
@@ -261,6 +298,13 @@ public class FrozenCacheService implements Releasable {
 
     private final LongAdder evictCount = new LongAdder();
 
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder lockContentionCount = new LongAdder();
+
+    private final boolean prefetchEnabled;
+    private final Semaphore prefetchPermits;
+
     @SuppressWarnings({ "unchecked", "rawtypes" })
     public FrozenCacheService(NodeEnvironment environment, Settings settings, ThreadPool threadPool) {
         this.currentTimeSupplier = threadPool::relativeTimeInMillis;
@@ -289,14 +333,28 @@ public class FrozenCacheService implements Releasable {
         assert regionSize > 0L;
         this.maxFreq = SHARED_CACHE_MAX_FREQ_SETTING.get(settings);
         this.minTimeDelta = SHARED_CACHE_MIN_TIME_DELTA_SETTING.get(settings).millis();
-        freqs = new Entry[maxFreq];
+        final int numStripes = Math.max(1, Math.min(SHARED_CACHE_STRIPES_SETTING.get(settings), numRegions / MIN_REGIONS_PER_STRIPE));
+        stripes = new Stripe[numStripes];
+        for (int i = 0; i < numStripes; i++) {
+            stripes[i] = new Stripe();
+        }
         try {
-            sharedBytes = new SharedBytes(numRegions, regionSize, environment, writeBytes::add, readBytes::add);
+            sharedBytes = new SharedBytes(
+                numRegions,
+                regionSize,
+                environment,
+                writeBytes::add,
+                readBytes::add,
+                SHARED_CACHE_MMAP_SETTING.get(settings)
+            );
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
         decayTask = new CacheDecayTask(threadPool, SHARED_CACHE_DECAY_INTERVAL_SETTING.get(settings));
         decayTask.rescheduleIfNecessary();
+        final int prefetchMaxConcurrency = SHARED_CACHE_PREFETCH_MAX_CONCURRENCY_SETTING.get(settings);
+        this.prefetchEnabled = numRegions > 0 && prefetchMaxConcurrency > 0;
+        this.prefetchPermits = new Semaphore(prefetchMaxConcurrency);
         this.rangeSize = SHARED_CACHE_RANGE_SIZE_SETTING.get(settings);
         this.recoveryRangeSize = SHARED_CACHE_RECOVERY_RANGE_SIZE_SETTING.get(settings);
     }
@@ -307,6 +365,24 @@ public class FrozenCacheService implements Releasable {
             .getBytes();
     }
 
+    public boolean isPrefetchEnabled() {
+        return prefetchEnabled;
+    }
+
+    /**
+     * Tries to reserve one of the concurrent prefetches of ranges into the cache.
+     *
+     * @return a {@link Releasable} that must be released once the prefetch completed, or {@code null} if too many prefetches are already
+     *         running
+     */
+    @Nullable
+    public Releasable tryAcquirePrefetchPermit() {
+        if (prefetchPermits.tryAcquire()) {
+            return Releasables.releaseOnce(prefetchPermits::release);
+        }
+        return null;
+    }
+
     public int getRangeSize() {
         return toIntBytes(rangeSize.getBytes());
     }
@@ -380,31 +456,27 @@ public class FrozenCacheService implements Releasable {
                 regionKey,
                 key -> new Entry<>(new CacheFileRegion(regionKey, effectiveRegionSize), now)
             );
+            final Stripe stripe = getStripe(regionKey);
             if (entry.chunk.sharedBytesPos == -1) {
                 // new item
                 assert entry.freq == 0;
                 assert entry.prev == null;
                 assert entry.next == null;
+                missCount.increment();
                 final Integer freeSlot = freeRegions.poll();
                 if (freeSlot != null) {
                     // no need to evict an item, just add
                     entry.chunk.sharedBytesPos = freeSlot;
                     assert regionOwners[freeSlot].compareAndSet(null, entry.chunk);
-                    synchronized (this) {
-                        pushEntryToBack(entry);
-                    }
+                    stripe.pushEntryToBack(entry);
                 } else {
                     // need to evict something
-                    synchronized (this) {
-                        maybeEvict();
-                    }
+                    maybeEvict(stripe);
                     final Integer freeSlotRetry = freeRegions.poll();
                     if (freeSlotRetry != null) {
                         entry.chunk.sharedBytesPos = freeSlotRetry;
                         assert regionOwners[freeSlotRetry].compareAndSet(null, entry.chunk);
-                        synchronized (this) {
-                            pushEntryToBack(entry);
-                        }
+                        stripe.pushEntryToBack(entry);
                     } else {
                         boolean removed = keyMapping.remove(regionKey, entry);
                         assert removed;
@@ -412,20 +484,24 @@ public class FrozenCacheService implements Releasable {
                     }
                 }
             } else {
-                // check if we need to promote item
-                synchronized (this) {
-                    if (now - entry.lastAccessed >= minTimeDelta && entry.freq + 1 < maxFreq) {
-                        unlink(entry);
-                        entry.freq++;
-                        entry.lastAccessed = now;
-                        pushEntryToBack(entry);
-                    }
+                hitCount.increment();
+                // check if we need to promote item, entries are promoted at most once per minTimeDelta so most hits don't lock at all
+                if (needsPromotion(entry, now)) {
+                    stripe.promote(entry, now);
                 }
             }
             return entry.chunk;
         }
     }
 
+    private boolean needsPromotion(Entry<CacheFileRegion> entry, long now) {
+        return now - entry.lastAccessed >= minTimeDelta && entry.freq + 1 < maxFreq;
+    }
+
+    private Stripe getStripe(RegionKey regionKey) {
+        return stripes[Math.floorMod(regionKey.hashCode(), stripes.length)];
+    }
+
     public void onClose(CacheFileRegion chunk) {
         assert regionOwners[chunk.sharedBytesPos].compareAndSet(chunk, null);
         freeRegions.add(chunk.sharedBytesPos);
@@ -445,119 +521,32 @@ public class FrozenCacheService implements Releasable {
             writeCount.sum(),
             writeBytes.sum(),
             readCount.sum(),
-            readBytes.sum()
+            readBytes.sum(),
+            hitCount.sum(),
+            missCount.sum(),
+            lockContentionCount.sum()
         );
     }
 
-    private synchronized boolean invariant(final Entry<CacheFileRegion> e, boolean present) {
-        boolean found = false;
-        for (int i = 0; i < maxFreq; i++) {
-            assert freqs[i] == null || freqs[i].prev != null;
-            assert freqs[i] == null || freqs[i].prev != freqs[i] || freqs[i].next == null;
-            assert freqs[i] == null || freqs[i].prev.next == null;
-            for (Entry<CacheFileRegion> entry = freqs[i]; entry != null; entry = entry.next) {
-                assert entry.next == null || entry.next.prev == entry;
-                assert entry.prev != null;
-                assert entry.prev.next == null || entry.prev.next == entry;
-                assert entry.freq == i;
-                if (entry == e) {
-                    found = true;
-                }
-            }
-            for (Entry<CacheFileRegion> entry = freqs[i]; entry != null && entry.prev != freqs[i]; entry = entry.prev) {
-                assert entry.next == null || entry.next.prev == entry;
-                assert entry.prev != null;
-                assert entry.prev.next == null || entry.prev.next == entry;
-                assert entry.freq == i;
-                if (entry == e) {
-                    found = true;
-                }
-            }
-        }
-        assert found == present;
-        return true;
-    }
-
-    private void maybeEvict() {
-        assert Thread.holdsLock(this);
-        for (int i = 0; i < maxFreq; i++) {
-            for (Entry<CacheFileRegion> entry = freqs[i]; entry != null; entry = entry.next) {
-                boolean evicted = entry.chunk.tryEvict();
-                if (evicted) {
-                    unlink(entry);
-                    keyMapping.remove(entry.chunk.regionKey, entry);
-                    return;
-                }
-            }
+    /**
+     * Evicts a region, preferring the least frequently used regions of the given stripe and falling back to the other stripes if none of
+     * its regions can be evicted.
+     */
+    private void maybeEvict(Stripe preferredStripe) {
+        if (preferredStripe.maybeEvict()) {
+            return;
         }
-    }
-
-    private void pushEntryToBack(final Entry<CacheFileRegion> entry) {
-        assert Thread.holdsLock(this);
-        assert invariant(entry, false);
-        assert entry.prev == null;
-        assert entry.next == null;
-        final Entry<CacheFileRegion> currFront = freqs[entry.freq];
-        if (currFront == null) {
-            freqs[entry.freq] = entry;
-            entry.prev = entry;
-            entry.next = null;
-        } else {
-            assert currFront.freq == entry.freq;
-            final Entry<CacheFileRegion> last = currFront.prev;
-            currFront.prev = entry;
-            last.next = entry;
-            entry.prev = last;
-            entry.next = null;
-        }
-        assert freqs[entry.freq].prev == entry;
-        assert freqs[entry.freq].prev.next == null;
-        assert entry.prev != null;
-        assert entry.prev.next == null || entry.prev.next == entry;
-        assert entry.next == null;
-        assert invariant(entry, true);
-    }
-
-    private void unlink(final Entry<CacheFileRegion> entry) {
-        assert Thread.holdsLock(this);
-        assert invariant(entry, true);
-        assert entry.prev != null;
-        final Entry<CacheFileRegion> currFront = freqs[entry.freq];
-        assert currFront != null;
-        if (currFront == entry) {
-            freqs[entry.freq] = entry.next;
-            if (entry.next != null) {
-                assert entry.prev != entry;
-                entry.next.prev = entry.prev;
-            }
-        } else {
-            if (entry.next != null) {
-                entry.next.prev = entry.prev;
-            }
-            entry.prev.next = entry.next;
-            if (currFront.prev == entry) {
-                currFront.prev = entry.prev;
+        for (Stripe stripe : stripes) {
+            if (stripe != preferredStripe && stripe.maybeEvict()) {
+                return;
             }
         }
-        entry.next = null;
-        entry.prev = null;
-        assert invariant(entry, false);
     }
 
     private void computeDecay() {
-        synchronized (this) {
-            long now = currentTimeSupplier.getAsLong();
-            for (int i = 0; i < maxFreq; i++) {
-                for (Entry<CacheFileRegion> entry = freqs[i]; entry != null; entry = entry.next) {
-                    if (now - entry.lastAccessed >= 2 * minTimeDelta) {
-                        if (entry.freq > 0) {
-                            unlink(entry);
-                            entry.freq--;
-                            pushEntryToBack(entry);
-                        }
-                    }
-                }
-            }
+        final long now = currentTimeSupplier.getAsLong();
+        for (Stripe stripe : stripes) {
+            stripe.computeDecay(now);
         }
     }
 
@@ -580,19 +569,21 @@ public class FrozenCacheService implements Releasable {
                 matchingEntries.add(value);
             }
         });
-        if (matchingEntries.isEmpty() == false) {
-            synchronized (this) {
-                for (Entry<CacheFileRegion> entry : matchingEntries) {
-                    boolean evicted = entry.chunk.forceEvict();
-                    if (evicted) {
-                        unlink(entry);
-                        keyMapping.remove(entry.chunk.regionKey, entry);
-                    }
-                }
-            }
+        for (Entry<CacheFileRegion> entry : matchingEntries) {
+            getStripe(entry.chunk.regionKey).forceEvict(entry);
         }
     }
 
+    // used by tests
+    boolean isMemoryMapped() {
+        return sharedBytes.isMemoryMapped();
+    }
+
+    // used by tests
+    int stripeCount() {
+        return stripes.length;
+    }
+
     // used by tests
     int getFreq(CacheFileRegion cacheFileRegion) {
         return keyMapping.get(cacheFileRegion.regionKey).freq;
@@ -604,6 +595,186 @@ public class FrozenCacheService implements Releasable {
         decayTask.close();
     }
 
+    /**
+     * One stripe of the LFU structure of the cache. Regions are assigned to stripes by the hash of their key, and each stripe keeps the
+     * frequency lists of its regions under its own lock, so that lookups and promotions of different regions rarely contend and the
+     * decay task only ever blocks a single stripe at a time.
+     */
+    private class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Entry<CacheFileRegion>[] freqs;
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        Stripe() {
+            freqs = new Entry[maxFreq];
+        }
+
+        private void lock() {
+            if (lock.tryLock() == false) {
+                lockContentionCount.increment();
+                lock.lock();
+            }
+        }
+
+        void pushEntryToBack(final Entry<CacheFileRegion> entry) {
+            lock();
+            try {
+                pushEntryToBackLocked(entry);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void promote(final Entry<CacheFileRegion> entry, long now) {
+            lock();
+            try {
+                // the entry may have been promoted or evicted concurrently
+                if (entry.prev != null && needsPromotion(entry, now)) {
+                    unlink(entry);
+                    entry.freq++;
+                    entry.lastAccessed = now;
+                    pushEntryToBackLocked(entry);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean maybeEvict() {
+            lock();
+            try {
+                for (int i = 0; i < maxFreq; i++) {
+                    for (Entry<CacheFileRegion> entry = freqs[i]; entry != null; entry = entry.next) {
+                        boolean evicted = entry.chunk.tryEvict();
+                        if (evicted) {
+                            unlink(entry);
+                            keyMapping.remove(entry.chunk.regionKey, entry);
+                            return true;
+                        }
+                    }
+                }
+                return false;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void forceEvict(final Entry<CacheFileRegion> entry) {
+            lock();
+            try {
+                boolean evicted = entry.chunk.forceEvict();
+                if (evicted) {
+                    unlink(entry);
+                    keyMapping.remove(entry.chunk.regionKey, entry);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void computeDecay(long now) {
+            lock();
+            try {
+                for (int i = 0; i < maxFreq; i++) {
+                    for (Entry<CacheFileRegion> entry = freqs[i]; entry != null; entry = entry.next) {
+                        if (now - entry.lastAccessed >= 2 * minTimeDelta) {
+                            if (entry.freq > 0) {
+                                unlink(entry);
+                                entry.freq--;
+                                pushEntryToBackLocked(entry);
+                            }
+                        }
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean invariant(final Entry<CacheFileRegion> e, boolean present) {
+            assert lock.isHeldByCurrentThread();
+            boolean found = false;
+            for (int i = 0; i < maxFreq; i++) {
+                assert freqs[i] == null || freqs[i].prev != null;
+                assert freqs[i] == null || freqs[i].prev != freqs[i] || freqs[i].next == null;
+                assert freqs[i] == null || freqs[i].prev.next == null;
+                for (Entry<CacheFileRegion> entry = freqs[i]; entry != null; entry = entry.next) {
+                    assert entry.next == null || entry.next.prev == entry;
+                    assert entry.prev != null;
+                    assert entry.prev.next == null || entry.prev.next == entry;
+                    assert entry.freq == i;
+                    if (entry == e) {
+                        found = true;
+                    }
+                }
+                for (Entry<CacheFileRegion> entry = freqs[i]; entry != null && entry.prev != freqs[i]; entry = entry.prev) {
+                    assert entry.next == null || entry.next.prev == entry;
+                    assert entry.prev != null;
+                    assert entry.prev.next == null || entry.prev.next == entry;
+                    assert entry.freq == i;
+                    if (entry == e) {
+                        found = true;
+                    }
+                }
+            }
+            assert found == present;
+            return true;
+        }
+
+        private void pushEntryToBackLocked(final Entry<CacheFileRegion> entry) {
+            assert lock.isHeldByCurrentThread();
+            assert invariant(entry, false);
+            assert entry.prev == null;
+            assert entry.next == null;
+            final Entry<CacheFileRegion> currFront = freqs[entry.freq];
+            if (currFront == null) {
+                freqs[entry.freq] = entry;
+                entry.prev = entry;
+                entry.next = null;
+            } else {
+                assert currFront.freq == entry.freq;
+                final Entry<CacheFileRegion> last = currFront.prev;
+                currFront.prev = entry;
+                last.next = entry;
+                entry.prev = last;
+                entry.next = null;
+            }
+            assert freqs[entry.freq].prev == entry;
+            assert freqs[entry.freq].prev.next == null;
+            assert entry.prev != null;
+            assert entry.prev.next == null || entry.prev.next == entry;
+            assert entry.next == null;
+            assert invariant(entry, true);
+        }
+
+        private void unlink(final Entry<CacheFileRegion> entry) {
+            assert lock.isHeldByCurrentThread();
+            assert invariant(entry, true);
+            assert entry.prev != null;
+            final Entry<CacheFileRegion> currFront = freqs[entry.freq];
+            assert currFront != null;
+            if (currFront == entry) {
+                freqs[entry.freq] = entry.next;
+                if (entry.next != null) {
+                    assert entry.prev != entry;
+                    entry.next.prev = entry.prev;
+                }
+            } else {
+                if (entry.next != null) {
+                    entry.next.prev = entry.prev;
+                }
+                entry.prev.next = entry.next;
+                if (currFront.prev == entry) {
+                    currFront.prev = entry.prev;
+                }
+            }
+            entry.next = null;
+            entry.prev = null;
+            assert invariant(entry, false);
+        }
+    }
+
     class CacheDecayTask extends AbstractAsyncTask {
 
         CacheDecayTask(ThreadPool threadPool, TimeValue interval) {
@@ -663,8 +834,9 @@ public class FrozenCacheService implements Releasable {
         final T chunk;
         Entry<T> prev;
         Entry<T> next;
-        int freq;
-        long lastAccessed;
+        // read without holding the lock of the stripe to check whether the entry needs promotion
+        volatile int freq;
+        volatile long lastAccessed;
 
         Entry(T chunk, long lastAccessed) {
             this.chunk = chunk;
@@ -933,7 +1105,7 @@ public class FrozenCacheService implements Releasable {
 
     public static class Stats {
 
-        public static final Stats EMPTY = new Stats(0, 0L, 0L, 0L, 0L, 0L, 0L, 0L);
+        public static final Stats EMPTY = new Stats(0, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L);
 
         private final int numberOfRegions;
         private final long size;
@@ -943,6 +1115,9 @@ public class FrozenCacheService implements Releasable {
         private final long writeBytes;
         private final long readCount;
         private final long readBytes;
+        private final long hitCount;
+        private final long missCount;
+        private final long lockContentionCount;
 
         private Stats(
             int numberOfRegions,
@@ -952,7 +1127,10 @@ public class FrozenCacheService implements Releasable {
             long writeCount,
             long writeBytes,
             long readCount,
-            long readBytes
+            long readBytes,
+            long hitCount,
+            long missCount,
+            long lockContentionCount
         ) {
             this.numberOfRegions = numberOfRegions;
             this.size = size;
@@ -962,6 +1140,9 @@ public class FrozenCacheService implements Releasable {
             this.writeBytes = writeBytes;
             this.readCount = readCount;
             this.readBytes = readBytes;
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.lockContentionCount = lockContentionCount;
         }
 
         public int getNumberOfRegions() {
@@ -995,5 +1176,17 @@ public class FrozenCacheService implements Releasable {
         public long getReadBytes() {
             return readBytes;
         }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        public long getMissCount() {
+            return missCount;
+        }
+
+        public long getLockContentionCount() {
+            return lockContentionCount;
+        }
     }
 }
@@ -17,9 +17,11 @@ import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.xpack.searchablesnapshots.preallocate.Preallocate;
+import org.elasticsearch.xpack.searchablesnapshots.preallocate.Unmapper;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -48,10 +50,14 @@ public class SharedBytes extends AbstractRefCounted {
     private final FileChannel fileChannel;
     private final Path path;
 
+    // read-only mappings of consecutive regions of the cache file, or null if reads go through the file channel
+    private final MappedByteBuffer[] mappings;
+    private final int regionsPerMapping;
+
     private final IntConsumer writeBytes;
     private final IntConsumer readBytes;
 
-    SharedBytes(int numRegions, long regionSize, NodeEnvironment environment, IntConsumer writeBytes, IntConsumer readBytes)
+    SharedBytes(int numRegions, long regionSize, NodeEnvironment environment, IntConsumer writeBytes, IntConsumer readBytes, boolean mmap)
         throws IOException {
         this.numRegions = numRegions;
         this.regionSize = regionSize;
@@ -68,6 +74,31 @@ public class SharedBytes extends AbstractRefCounted {
                 Files.deleteIfExists(path.resolve(CACHE_FILE_NAME));
             }
         }
+        if (mmap && fileSize > 0 && regionSize > Integer.MAX_VALUE) {
+            logger.warn("not memory mapping shared cache file since its region size [{}] is too large", ByteSizeValue.ofBytes(regionSize));
+        }
+        if (mmap && fileSize > 0 && regionSize <= Integer.MAX_VALUE) {
+            // a mapping is limited to 2gb so map the file in chunks of as many whole regions as fit
+            this.regionsPerMapping = Math.toIntExact(Math.min(numRegions, Integer.MAX_VALUE / regionSize));
+            this.mappings = new MappedByteBuffer[(numRegions + regionsPerMapping - 1) / regionsPerMapping];
+            boolean success = false;
+            try {
+                for (int i = 0; i < mappings.length; i++) {
+                    final long position = (long) i * regionsPerMapping * regionSize;
+                    final long length = Math.min(regionsPerMapping * regionSize, fileSize - position);
+                    mappings[i] = fileChannel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                }
+                success = true;
+            } finally {
+                if (success == false) {
+                    unmapAll(mappings);
+                    IOUtils.closeWhileHandlingException(fileChannel);
+                }
+            }
+        } else {
+            this.regionsPerMapping = 0;
+            this.mappings = null;
+        }
         this.path = cacheFile;
         this.writeBytes = writeBytes;
         this.readBytes = readBytes;
@@ -96,8 +127,20 @@ public class SharedBytes extends AbstractRefCounted {
         }
     }
 
+    private static void unmapAll(MappedByteBuffer[] mappings) {
+        for (MappedByteBuffer mapping : mappings) {
+            if (mapping != null) {
+                Unmapper.unmap(mapping);
+            }
+        }
+    }
+
     @Override
     protected void closeInternal() {
+        // all the IO instances, which are the only readers of the mappings, hold a reference so no read can happen anymore
+        if (mappings != null) {
+            unmapAll(mappings);
+        }
         try {
             IOUtils.close(fileChannel, path == null ? null : () -> Files.deleteIfExists(path));
         } catch (IOException e) {
@@ -134,20 +177,47 @@ public class SharedBytes extends AbstractRefCounted {
         return physicalOffset;
     }
 
+    /**
+     * @return whether reads are served from a memory mapping of the cache file rather than through the file channel
+     */
+    boolean isMemoryMapped() {
+        return mappings != null;
+    }
+
     public final class IO extends AbstractRefCounted {
 
         private final int sharedBytesPos;
         private final long pageStart;
 
+        // the slice of the memory mapping that covers this region, or null if reads go through the file channel
+        private final ByteBuffer mappedRegion;
+
         private IO(final int sharedBytesPos) {
             this.sharedBytesPos = sharedBytesPos;
             pageStart = getPhysicalOffset(sharedBytesPos);
+            if (mappings != null) {
+                final int offset = Math.toIntExact((sharedBytesPos % regionsPerMapping) * regionSize);
+                mappedRegion = mappings[sharedBytesPos / regionsPerMapping].slice(offset, Math.toIntExact(regionSize));
+            } else {
+                mappedRegion = null;
+            }
         }
 
+        /**
+         * Reads from the cache file into the given buffer. Callers only read ranges that have been completely written to the cache file,
+         * so with a memory mapped cache file the bytes are copied straight from the mapping without a system call. Writes always go
+         * through the file channel, and are visible through the mapping since both share the page cache of the operating system.
+         */
         @SuppressForbidden(reason = "Use positional reads on purpose")
         public int read(ByteBuffer dst, long position) throws IOException {
             checkOffsets(position, dst.remaining());
-            final int bytesRead = fileChannel.read(dst, position);
+            final int bytesRead;
+            if (mappedRegion != null) {
+                bytesRead = dst.remaining();
+                dst.put(mappedRegion.slice(Math.toIntExact(position - pageStart), bytesRead));
+            } else {
+                bytesRead = fileChannel.read(dst, position);
+            }
             readBytes.accept(bytesRead);
             return bytesRead;
         }
@@ -57,6 +57,10 @@ public class IndexInputStats {
 
     private final Counter luceneBytesRead = new Counter();
 
+    private final Counter prefetchedBytes = new Counter();
+    private final Counter prefetchHitBytes = new Counter();
+    private final Counter prefetchWastedBytes = new Counter();
+
     public IndexInputStats(long numFiles, long totalSize, long minSize, long maxSize, LongSupplier currentTimeNanos) {
         this(numFiles, totalSize, minSize, maxSize, SEEKING_THRESHOLD.getBytes(), currentTimeNanos);
     }
@@ -155,6 +159,18 @@ public class IndexInputStats {
         luceneBytesRead.add(bytesRead);
     }
 
+    public void addPrefetchedBytes(long bytes) {
+        prefetchedBytes.add(bytes);
+    }
+
+    public void addPrefetchHitBytes(long bytes) {
+        prefetchHitBytes.add(bytes);
+    }
+
+    public void addPrefetchWastedBytes(long bytes) {
+        prefetchWastedBytes.add(bytes);
+    }
+
     public long getNumFiles() {
         return numFiles;
     }
@@ -231,6 +247,18 @@ public class IndexInputStats {
         return luceneBytesRead;
     }
 
+    public Counter getPrefetchedBytes() {
+        return prefetchedBytes;
+    }
+
+    public Counter getPrefetchHitBytes() {
+        return prefetchHitBytes;
+    }
+
+    public Counter getPrefetchWastedBytes() {
+        return prefetchWastedBytes;
+    }
+
     @SuppressForbidden(reason = "Handles Long.MIN_VALUE before using Math.abs()")
     public boolean isLargeSeek(long delta) {
         return delta != Long.MIN_VALUE && Math.abs(delta) > seekingThreshold;
@@ -34,6 +34,7 @@ import org.elasticsearch.common.util.LazyInitializable;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.core.CheckedRunnable;
 import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.core.internal.io.IOUtils;
@@ -64,6 +65,7 @@ import org.elasticsearch.xpack.searchablesnapshots.store.input.CachedBlobContain
 import org.elasticsearch.xpack.searchablesnapshots.store.input.ChecksumBlobContainerIndexInput;
 import org.elasticsearch.xpack.searchablesnapshots.store.input.DirectBlobContainerIndexInput;
 import org.elasticsearch.xpack.searchablesnapshots.store.input.FrozenIndexInput;
+import org.elasticsearch.xpack.searchablesnapshots.store.input.RangePrefetcher;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -137,6 +139,8 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
     private final boolean partial;
     private final FrozenCacheService frozenCacheService;
     private final ByteSizeValue blobStoreCacheMaxLength;
+    @Nullable // if ranges are not prefetched
+    private final RangePrefetcher rangePrefetcher;
 
     // volatile fields are updated once under `this` lock, all together, iff loaded is not true.
     private volatile BlobStoreIndexShardSnapshot snapshot;
@@ -183,6 +187,7 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
         this.threadPool = threadPool;
         this.loaded = false;
         this.frozenCacheService = frozenCacheService;
+        this.rangePrefetcher = partial && useCache && frozenCacheService.isPrefetchEnabled() ? new RangePrefetcher() : null;
         assert invariant();
     }
 
@@ -382,6 +387,22 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
         return threadPool.executor(SearchableSnapshots.CACHE_FETCH_ASYNC_THREAD_POOL_NAME);
     }
 
+    /**
+     * @return the {@link RangePrefetcher} of the ranges of the files of this directory, or {@code null} if ranges are not prefetched
+     */
+    @Nullable
+    public RangePrefetcher getRangePrefetcher() {
+        return rangePrefetcher;
+    }
+
+    /**
+     * @see FrozenCacheService#tryAcquirePrefetchPermit()
+     */
+    @Nullable
+    public Releasable tryAcquirePrefetchPermit() {
+        return frozenCacheService.tryAcquirePrefetchPermit();
+    }
+
     public Executor prewarmExecutor() {
         return threadPool.executor(SearchableSnapshots.CACHE_PREWARMING_THREAD_POOL_NAME);
     }
@@ -210,7 +210,7 @@ public abstract class BaseSearchableSnapshotIndexInput extends BufferedIndexInpu
      */
     private int getPartNumberForPosition(long position) {
         ensureValidPosition(position);
-        final int part = fileInfo.numberOfParts() == 1 ? 0 : Math.toIntExact(position / fileInfo.partSize().getBytes());
+        final int part = fileInfo.partNumberForPosition(position);
         assert part <= fileInfo.numberOfParts() : "part number [" + part + "] exceeds number of parts: " + fileInfo.numberOfParts();
         assert part >= 0 : "part number [" + part + "] is negative";
         return part;
@@ -222,8 +222,9 @@ public abstract class BaseSearchableSnapshotIndexInput extends BufferedIndexInpu
      */
     private long getRelativePositionInPart(long position) {
         ensureValidPosition(position);
-        final long pos = position % fileInfo.partSize().getBytes();
-        assert pos < fileInfo.partBytes(getPartNumberForPosition(pos)) : "position in part [" + pos + "] exceeds part's length";
+        final int part = getPartNumberForPosition(position);
+        final long pos = position - fileInfo.partOffset(part);
+        assert pos < fileInfo.partBytes(part) : "position in part [" + pos + "] exceeds part's length";
         assert pos >= 0L : "position in part [" + pos + "] is negative";
         return pos;
     }
@@ -25,7 +25,6 @@ import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.IntStream;
 
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshotsUtils.toIntBytes;
 
@@ -104,7 +103,7 @@ public class CachedBlobContainerIndexInput extends MetadataCachingIndexInput {
     protected long getDefaultRangeSize() {
         return (context != CACHE_WARMING_CONTEXT) ? (directory.isRecoveryFinalized() ? defaultRangeSize : recoveryRangeSize)
             : fileInfo.numberOfParts() == 1 ? Long.MAX_VALUE
-            : fileInfo.partSize().getBytes();
+            : fileInfo.maxPartBytes();
     }
 
     @Override
@@ -145,7 +144,8 @@ public class CachedBlobContainerIndexInput extends MetadataCachingIndexInput {
         if (part >= fileInfo.numberOfParts()) {
             throw new IllegalArgumentException("Unexpected part number [" + part + "]");
         }
-        final ByteRange partRange = computeRange(IntStream.range(0, part).mapToLong(fileInfo::partBytes).sum());
+        final long partStart = fileInfo.partOffset(part);
+        final ByteRange partRange = ByteRange.of(partStart, partStart + fileInfo.partBytes(part));
         assert assertRangeIsAlignedWithPart(partRange);
 
         try {
@@ -226,9 +226,9 @@ public class CachedBlobContainerIndexInput extends MetadataCachingIndexInput {
             assert range.start() == 0L : "start of range [" + range.start() + "] is not aligned with zero";
             assert range.end() == length : "end of range [" + range.end() + "] is not aligned with file length [" + length + ']';
         } else {
-            final long length = fileInfo.partSize().getBytes();
-            assert range.start() % length == 0L : "start of range [" + range.start() + "] is not aligned with part start";
-            assert range.end() % length == 0L || (range.end() == fileInfo.length())
+            final int part = fileInfo.partNumberForPosition(range.start());
+            assert range.start() == fileInfo.partOffset(part) : "start of range [" + range.start() + "] is not aligned with part start";
+            assert range.end() == fileInfo.partOffset(part) + fileInfo.partBytes(part)
                 : "end of range [" + range.end() + "] is not aligned with part end or with file length";
         }
         return true;
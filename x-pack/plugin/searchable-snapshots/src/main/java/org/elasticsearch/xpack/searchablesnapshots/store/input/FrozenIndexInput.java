@@ -16,6 +16,7 @@ import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
 import org.elasticsearch.action.StepListener;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.Releasable;
 import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
 import org.elasticsearch.xpack.searchablesnapshots.cache.common.ByteRange;
 import org.elasticsearch.xpack.searchablesnapshots.cache.shared.FrozenCacheService.FrozenCacheFile;
@@ -164,6 +165,7 @@ public class FrozenIndexInput extends MetadataCachingIndexInput {
                 },
                 directory.cacheFetchAsyncExecutor()
             );
+            maybePrefetch(rangeToWrite);
 
             final int bytesRead = populateCacheFuture.asFuture().get();
             assert bytesRead == length : bytesRead + " vs " + length;
@@ -176,6 +178,57 @@ public class FrozenIndexInput extends MetadataCachingIndexInput {
         }
     }
 
+    /**
+     * Fetches the ranges that the {@link RangePrefetcher} of the directory expects to be read soon after the given range into the cache,
+     * without waiting for them.
+     */
+    private void maybePrefetch(ByteRange rangeRead) {
+        final RangePrefetcher prefetcher = directory.getRangePrefetcher();
+        if (prefetcher == null || directory.isRecoveryFinalized() == false) {
+            return;
+        }
+        final String fileName = fileInfo.physicalName();
+        final long end = compoundFileOffset > 0L ? offset + length() : fileInfo.length();
+        for (ByteRange range : prefetcher.onRead(fileName, rangeRead, end, this::computeRange, stats)) {
+            final Releasable permit = directory.tryAcquirePrefetchPermit();
+            if (permit == null) {
+                prefetcher.onPrefetchCancelled(fileName, range);
+                continue;
+            }
+            final AtomicBoolean fetched = new AtomicBoolean();
+            try {
+                frozenCacheFile.populateAndRead(
+                    range,
+                    range,
+                    (channel, pos, relativePos, len) -> toIntBytes(len),
+                    (channel, channelPos, relativePos, len, progressUpdater) -> {
+                        fetched.set(true);
+                        final long startTimeNanos = stats.currentTimeNanos();
+                        try (InputStream input = openInputStreamFromBlobStore(range.start() + relativePos, len)) {
+                            writeCacheFile(channel, input, channelPos, relativePos, len, progressUpdater, startTimeNanos);
+                        }
+                        stats.addPrefetchedBytes(len);
+                    },
+                    directory.cacheFetchAsyncExecutor()
+                ).whenComplete(read -> {
+                    permit.close();
+                    if (fetched.get() == false) {
+                        // the range was cached already
+                        prefetcher.onPrefetchCancelled(fileName, range);
+                    }
+                }, e -> {
+                    permit.close();
+                    prefetcher.onPrefetchCancelled(fileName, range);
+                    logger.debug(() -> new ParameterizedMessage("{}: failed to prefetch range [{}]", fileName, range), e);
+                });
+            } catch (Exception e) {
+                permit.close();
+                prefetcher.onPrefetchCancelled(fileName, range);
+                logger.debug(() -> new ParameterizedMessage("{}: failed to prefetch range [{}]", fileName, range), e);
+            }
+        }
+    }
+
     private static int positionalWrite(SharedBytes.IO fc, long start, ByteBuffer byteBuffer) throws IOException {
         assert assertCurrentThreadMayWriteCacheFile();
         byteBuffer.flip();
@@ -0,0 +1,165 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.searchablesnapshots.store.input;
+
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.store.LuceneFilesExtensions;
+import org.elasticsearch.xpack.searchablesnapshots.cache.common.ByteRange;
+import org.elasticsearch.xpack.searchablesnapshots.store.IndexInputStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.LongFunction;
+
+/**
+ * Learns how the files of a partially mounted shard are read, per {@link LuceneFilesExtensions}, and decides which ranges of a file
+ * should be fetched into the shared cache ahead of the reads that are likely to need them.
+ * <p>
+ * Lucene reads some files randomly, for instance terms dictionaries and points, and others in long forward runs, for instance postings,
+ * doc values and stored fields of consecutive documents. A cold query on a frozen index therefore pays one blob store round trip after the
+ * other while it walks through a file. The prefetcher counts, per extension, how often a read moves on to the range that directly follows
+ * the range previously read from the same file. Once this is the usual pattern for an extension, reads of files with that extension ask
+ * for the next few ranges to be fetched in parallel, more of them the more reliable the pattern is. The prefetched ranges are remembered
+ * until they are read, which is reported as a prefetch hit, or until they are passed over, which is reported as wasted.
+ */
+public class RangePrefetcher {
+
+    /**
+     * The number of reads of an extension to observe before prefetching ranges of its files.
+     */
+    static final int MIN_SAMPLES = 8;
+
+    /**
+     * The maximum number of ranges to prefetch ahead of a read.
+     */
+    static final int MAX_PREFETCH_RANGES = 4;
+
+    // older observations are discounted after this many reads, so that the prefetcher adapts to changes in the workload
+    private static final int DECAY_SAMPLES = 1024;
+
+    private final Map<LuceneFilesExtensions, AccessPattern> accessPatterns = ConcurrentCollections.newConcurrentMap();
+    private final Map<String, FileState> files = ConcurrentCollections.newConcurrentMap();
+
+    /**
+     * Records that a read needs the given range of the given file and returns the ranges that should be prefetched, which have then been
+     * registered as in flight.
+     *
+     * @param name          the physical name of the file
+     * @param range         the range of the file that is read
+     * @param end           the position up to which ranges of the file may be prefetched, which is the end of the logical file for slices
+     *                      of compound files
+     * @param computeRange  computes the range of the file that contains the given position
+     * @param stats         the stats to report prefetch hits and wasted prefetches to
+     */
+    List<ByteRange> onRead(String name, ByteRange range, long end, LongFunction<ByteRange> computeRange, IndexInputStats stats) {
+        final LuceneFilesExtensions extension = LuceneFilesExtensions.fromFile(name);
+        if (extension == null || extension.isMetadata()) {
+            // metadata files are small and read once, they are cached in the blob store cache index anyway
+            return List.of();
+        }
+        final FileState fileState = files.computeIfAbsent(name, n -> new FileState());
+        final AccessPattern accessPattern = accessPatterns.computeIfAbsent(extension, e -> new AccessPattern());
+        synchronized (fileState) {
+            if (fileState.lastRangeStart <= range.start() && range.end() <= fileState.lastRangeEnd) {
+                // still reading the same range
+                return List.of();
+            }
+            accessPattern.onRead(fileState.lastRangeStart < range.start() && range.start() <= fileState.lastRangeEnd);
+            fileState.lastRangeStart = range.start();
+            fileState.lastRangeEnd = range.end();
+
+            // ranges that the reads passed over are unlikely to be read any time soon
+            final NavigableMap<Long, Long> passedOver = fileState.prefetched.headMap(range.start(), false);
+            for (Long length : passedOver.values()) {
+                stats.addPrefetchWastedBytes(length);
+            }
+            passedOver.clear();
+            final NavigableMap<Long, Long> read = fileState.prefetched.headMap(range.end(), false);
+            for (Long length : read.values()) {
+                stats.addPrefetchHitBytes(length);
+            }
+            read.clear();
+
+            final int depth = accessPattern.prefetchDepth();
+            if (depth == 0) {
+                return List.of();
+            }
+            final List<ByteRange> ranges = new ArrayList<>(depth);
+            long position = range.end();
+            while (ranges.size() < depth && position < end) {
+                final ByteRange next = computeRange(position, computeRange);
+                if (fileState.prefetched.containsKey(next.start()) == false) {
+                    fileState.prefetched.put(next.start(), next.length());
+                    ranges.add(next);
+                }
+                position = next.end();
+            }
+            return ranges;
+        }
+    }
+
+    private static ByteRange computeRange(long position, LongFunction<ByteRange> computeRange) {
+        final ByteRange range = computeRange.apply(position);
+        assert range.start() <= position && position < range.end() : range + " vs " + position;
+        return range;
+    }
+
+    /**
+     * Forgets about a range returned by {@link #onRead} that was not prefetched after all, because it was already cached or because
+     * fetching it failed or was rejected.
+     */
+    void onPrefetchCancelled(String name, ByteRange range) {
+        final FileState fileState = files.get(name);
+        if (fileState != null) {
+            synchronized (fileState) {
+                fileState.prefetched.remove(range.start(), range.length());
+            }
+        }
+    }
+
+    // visible for testing
+    int prefetchDepth(LuceneFilesExtensions extension) {
+        final AccessPattern accessPattern = accessPatterns.get(extension);
+        return accessPattern == null ? 0 : accessPattern.prefetchDepth();
+    }
+
+    private static class FileState {
+        private long lastRangeStart = -1L;
+        private long lastRangeEnd = -1L;
+        // start and length of the ranges that were prefetched and not read yet
+        private final NavigableMap<Long, Long> prefetched = new TreeMap<>();
+    }
+
+    private static class AccessPattern {
+        private int sequentialReads;
+        private int reads;
+
+        synchronized void onRead(boolean sequential) {
+            if (reads == DECAY_SAMPLES) {
+                sequentialReads /= 2;
+                reads /= 2;
+            }
+            reads += 1;
+            if (sequential) {
+                sequentialReads += 1;
+            }
+        }
+
+        synchronized int prefetchDepth() {
+            if (reads < MIN_SAMPLES || 2 * sequentialReads < reads) {
+                return 0;
+            }
+            // prefetch a single range if half of the reads are sequential, and up to the maximum if all of them are
+            final double ratio = (double) sequentialReads / reads;
+            return Math.max(1, (int) Math.floor((2 * ratio - 1) * MAX_PREFETCH_RANGES));
+        }
+    }
+}
@@ -164,6 +164,9 @@ public abstract class AbstractSearchableSnapshotsTestCase extends ESIndexInputTe
         if (randomBoolean()) {
             cacheSettings.put(FrozenCacheService.SHARED_CACHE_RECOVERY_RANGE_SIZE_SETTING.getKey(), randomFrozenCacheRangeSize());
         }
+        if (randomBoolean()) {
+            cacheSettings.put(FrozenCacheService.SHARED_CACHE_MMAP_SETTING.getKey(), randomBoolean());
+        }
         return new FrozenCacheService(singlePathNodeEnvironment, cacheSettings.build(), threadPool);
     }
 
@@ -7,6 +7,7 @@
 
 package org.elasticsearch.xpack.searchablesnapshots.cache.shared;
 
+import org.elasticsearch.action.StepListener;
 import org.elasticsearch.cluster.node.DiscoveryNodeRole;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
@@ -29,6 +30,9 @@ import org.elasticsearch.xpack.searchablesnapshots.cache.common.CacheKey;
 import org.elasticsearch.xpack.searchablesnapshots.cache.shared.FrozenCacheService.CacheFileRegion;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -209,6 +213,91 @@ public class FrozenCacheServiceTests extends ESTestCase {
         }
     }
 
+    public void testStripedEvictionAndStats() throws IOException {
+        final int numRegions = 2 * FrozenCacheService.MIN_REGIONS_PER_STRIPE;
+        Settings settings = Settings.builder()
+            .put(NODE_NAME_SETTING.getKey(), "node")
+            .put(FrozenCacheService.SHARED_CACHE_SIZE_SETTING.getKey(), new ByteSizeValue(size(numRegions)).getStringRep())
+            .put(FrozenCacheService.SHARED_CACHE_REGION_SIZE_SETTING.getKey(), new ByteSizeValue(size(1)).getStringRep())
+            .put(FrozenCacheService.SHARED_CACHE_STRIPES_SETTING.getKey(), randomIntBetween(2, 16))
+            .put("path.home", createTempDir())
+            .build();
+        final DeterministicTaskQueue taskQueue = new DeterministicTaskQueue();
+        try (
+            NodeEnvironment environment = new NodeEnvironment(settings, TestEnvironment.newEnvironment(settings));
+            FrozenCacheService cacheService = new FrozenCacheService(environment, settings, taskQueue.getThreadPool())
+        ) {
+            // the number of stripes is bounded by the number of regions
+            assertEquals(2, cacheService.stripeCount());
+
+            final CacheKey cacheKey = generateCacheKey();
+            final long fileLength = size(3L * numRegions);
+            final List<CacheFileRegion> regions = new ArrayList<>();
+            for (int i = 0; i < numRegions; i++) {
+                regions.add(cacheService.get(cacheKey, fileLength, i));
+            }
+            assertEquals(0, cacheService.freeRegionCount());
+            for (int i = 0; i < numRegions; i++) {
+                assertSame(regions.get(i), cacheService.get(cacheKey, fileLength, i));
+            }
+
+            // every new region evicts an existing one, from any stripe if needed
+            final int extraRegions = randomIntBetween(1, 2 * numRegions);
+            for (int i = numRegions; i < numRegions + extraRegions; i++) {
+                assertFalse(cacheService.get(cacheKey, fileLength, i).isEvicted());
+                assertEquals(0, cacheService.freeRegionCount());
+            }
+
+            final FrozenCacheService.Stats stats = cacheService.getStats();
+            assertEquals(numRegions, stats.getHitCount());
+            assertEquals(numRegions + extraRegions, stats.getMissCount());
+            assertEquals(extraRegions, stats.getEvictCount());
+            assertEquals(0L, stats.getLockContentionCount());
+        }
+    }
+
+    public void testReadsFromMemoryMapping() throws Exception {
+        final boolean mmap = randomBoolean();
+        Settings settings = Settings.builder()
+            .put(NODE_NAME_SETTING.getKey(), "node")
+            .put(FrozenCacheService.SHARED_CACHE_SIZE_SETTING.getKey(), new ByteSizeValue(size(500)).getStringRep())
+            .put(FrozenCacheService.SHARED_CACHE_REGION_SIZE_SETTING.getKey(), new ByteSizeValue(size(100)).getStringRep())
+            .put(FrozenCacheService.SHARED_CACHE_MMAP_SETTING.getKey(), mmap)
+            .put("path.home", createTempDir())
+            .build();
+        final DeterministicTaskQueue taskQueue = new DeterministicTaskQueue();
+        try (
+            NodeEnvironment environment = new NodeEnvironment(settings, TestEnvironment.newEnvironment(settings));
+            FrozenCacheService cacheService = new FrozenCacheService(environment, settings, taskQueue.getThreadPool())
+        ) {
+            assertEquals(mmap, cacheService.isMemoryMapped());
+            final CacheKey cacheKey = generateCacheKey();
+            final byte[] content = randomByteArrayOfLength(Math.toIntExact(size(2)));
+            final List<CacheFileRegion> regions = List.of(
+                cacheService.get(cacheKey, size(250), randomIntBetween(0, 1)),
+                cacheService.get(cacheKey, size(250), 2)
+            );
+            for (CacheFileRegion region : regions) {
+                final int offset = randomIntBetween(0, content.length - 1);
+                final int length = randomIntBetween(1, content.length - offset);
+                final ByteBuffer readBuffer = ByteBuffer.allocate(length);
+                final StepListener<Integer> listener = region.populateAndRead(
+                    ByteRange.of(0L, content.length),
+                    ByteRange.of(offset, offset + length),
+                    (channel, channelPos, relativePos, len) -> channel.read(readBuffer, channelPos),
+                    (channel, channelPos, relativePos, len, progressUpdater) -> {
+                        channel.write(ByteBuffer.wrap(content, Math.toIntExact(relativePos), Math.toIntExact(len)), channelPos);
+                        progressUpdater.accept(len);
+                    },
+                    taskQueue.getThreadPool().executor(ThreadPool.Names.GENERIC)
+                );
+                taskQueue.runAllRunnableTasks();
+                assertThat(listener.result(), equalTo(length));
+                assertArrayEquals(Arrays.copyOfRange(content, offset, offset + length), readBuffer.array());
+            }
+        }
+    }
+
     public void testCacheSizeRejectedOnNonFrozenNodes() {
         String cacheSize = randomBoolean() ? new ByteSizeValue(size(500)).getStringRep() : new RatioValue(between(1, 100)).toString();
         final Settings settings = Settings.builder()
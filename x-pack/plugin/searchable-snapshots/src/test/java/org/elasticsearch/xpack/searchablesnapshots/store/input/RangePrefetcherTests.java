@@ -0,0 +1,120 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+package org.elasticsearch.xpack.searchablesnapshots.store.input;
+
+import org.elasticsearch.index.store.LuceneFilesExtensions;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xpack.searchablesnapshots.cache.common.ByteRange;
+import org.elasticsearch.xpack.searchablesnapshots.store.IndexInputStats;
+
+import java.util.List;
+import java.util.function.LongFunction;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class RangePrefetcherTests extends ESTestCase {
+
+    private static final long RANGE_SIZE = 100L;
+    private static final long FILE_LENGTH = 100 * RANGE_SIZE;
+
+    private static final LongFunction<ByteRange> COMPUTE_RANGE = position -> {
+        final long start = position - position % RANGE_SIZE;
+        return ByteRange.of(start, Math.min(start + RANGE_SIZE, FILE_LENGTH));
+    };
+
+    private static IndexInputStats newStats() {
+        return new IndexInputStats(1, FILE_LENGTH, FILE_LENGTH, FILE_LENGTH, System::nanoTime);
+    }
+
+    public void testSequentialReads() {
+        final RangePrefetcher prefetcher = new RangePrefetcher();
+        final IndexInputStats stats = newStats();
+
+        long prefetchedBytes = 0L;
+        for (long position = 0L; position < FILE_LENGTH; position += RANGE_SIZE) {
+            final List<ByteRange> ranges = prefetcher.onRead("_0.fdt", COMPUTE_RANGE.apply(position), FILE_LENGTH, COMPUTE_RANGE, stats);
+            assertThat(ranges.size(), lessThanOrEqualTo(RangePrefetcher.MAX_PREFETCH_RANGES));
+            for (ByteRange range : ranges) {
+                assertThat(range.start(), greaterThan(position));
+                assertThat(range.end(), lessThanOrEqualTo(FILE_LENGTH));
+                prefetchedBytes += range.length();
+            }
+        }
+
+        assertThat(prefetcher.prefetchDepth(LuceneFilesExtensions.FDT), equalTo(RangePrefetcher.MAX_PREFETCH_RANGES - 1));
+        assertThat(prefetchedBytes, greaterThan(0L));
+        // every prefetched range was read eventually
+        assertThat(stats.getPrefetchHitBytes().total(), equalTo(prefetchedBytes));
+        assertThat(stats.getPrefetchWastedBytes().total(), equalTo(0L));
+    }
+
+    public void testRandomReads() {
+        final RangePrefetcher prefetcher = new RangePrefetcher();
+        final IndexInputStats stats = newStats();
+
+        // reads that never move on to the range that follows the previous one
+        for (long position = FILE_LENGTH - 1L; position >= 0L; position -= 2 * RANGE_SIZE) {
+            final ByteRange range = COMPUTE_RANGE.apply(position);
+            assertThat(prefetcher.onRead("_0.dvd", range, FILE_LENGTH, COMPUTE_RANGE, stats), empty());
+        }
+
+        assertThat(prefetcher.prefetchDepth(LuceneFilesExtensions.DVD), equalTo(0));
+        assertThat(stats.getPrefetchHitBytes().total(), equalTo(0L));
+        assertThat(stats.getPrefetchWastedBytes().total(), equalTo(0L));
+    }
+
+    public void testMetadataFilesAreNotPrefetched() {
+        final RangePrefetcher prefetcher = new RangePrefetcher();
+        final IndexInputStats stats = newStats();
+
+        for (long position = 0L; position < FILE_LENGTH; position += RANGE_SIZE) {
+            assertThat(prefetcher.onRead("_0.si", COMPUTE_RANGE.apply(position), FILE_LENGTH, COMPUTE_RANGE, stats), empty());
+        }
+        assertThat(prefetcher.prefetchDepth(LuceneFilesExtensions.SI), equalTo(0));
+    }
+
+    public void testPrefetchedRangesPassedOverAreWasted() {
+        final RangePrefetcher prefetcher = new RangePrefetcher();
+        final IndexInputStats stats = newStats();
+
+        long position = 0L;
+        List<ByteRange> ranges = List.of();
+        while (ranges.isEmpty()) {
+            ranges = prefetcher.onRead("_0.doc", COMPUTE_RANGE.apply(position), FILE_LENGTH, COMPUTE_RANGE, stats);
+            position += RANGE_SIZE;
+        }
+        final long prefetchedBytes = ranges.stream().mapToLong(ByteRange::length).sum();
+
+        // jump past all the prefetched ranges
+        prefetcher.onRead("_0.doc", COMPUTE_RANGE.apply(FILE_LENGTH - 1L), FILE_LENGTH, COMPUTE_RANGE, stats);
+        assertThat(stats.getPrefetchWastedBytes().total(), equalTo(prefetchedBytes));
+        assertThat(stats.getPrefetchHitBytes().total(), equalTo(0L));
+    }
+
+    public void testCancelledPrefetchesAreNotReported() {
+        final RangePrefetcher prefetcher = new RangePrefetcher();
+        final IndexInputStats stats = newStats();
+
+        long position = 0L;
+        List<ByteRange> ranges = List.of();
+        while (ranges.isEmpty()) {
+            ranges = prefetcher.onRead("_0.pos", COMPUTE_RANGE.apply(position), FILE_LENGTH, COMPUTE_RANGE, stats);
+            position += RANGE_SIZE;
+        }
+        for (; position < FILE_LENGTH; position += RANGE_SIZE) {
+            for (ByteRange range : ranges) {
+                prefetcher.onPrefetchCancelled("_0.pos", range);
+            }
+            ranges = prefetcher.onRead("_0.pos", COMPUTE_RANGE.apply(position), FILE_LENGTH, COMPUTE_RANGE, stats);
+        }
+        assertThat(stats.getPrefetchHitBytes().total(), equalTo(0L));
+        assertThat(stats.getPrefetchWastedBytes().total(), equalTo(0L));
+    }
+}